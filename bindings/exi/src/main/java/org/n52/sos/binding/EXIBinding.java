@@ -28,7 +28,6 @@
  */
 package org.n52.sos.binding;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
@@ -36,13 +35,7 @@ import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.sax.SAXSource;
-import javax.xml.transform.stream.StreamResult;
-
+import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.coding.OperationKey;
 import org.n52.sos.decode.Decoder;
@@ -52,17 +45,14 @@ import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.request.AbstractServiceRequest;
 import org.n52.sos.response.AbstractServiceResponse;
 import org.n52.sos.util.CodingHelper;
-import org.n52.sos.util.XmlHelper;
 import org.n52.sos.util.http.MediaType;
 import org.n52.sos.util.http.MediaTypes;
 import org.n52.sos.utils.EXIUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.InputSource;
-import org.xml.sax.XMLReader;
+import org.xml.sax.SAXException;
 
-import com.siemens.ct.exi.EXIFactory;
-import com.siemens.ct.exi.api.sax.EXISource;
 import com.siemens.ct.exi.exceptions.EXIException;
 
 /**
@@ -149,7 +139,8 @@ public class EXIBinding extends SimpleBinding {
 
     /**
      * Parse the incoming EXI encoded {@link InputStream} transform to
-     * {@link XmlObject}
+     * {@link XmlObject}. The decoded SAX events are passed directly to
+     * XmlBeans.
      * 
      * @param request
      *            {@link HttpServletRequest} with EXI encoded
@@ -160,34 +151,20 @@ public class EXIBinding extends SimpleBinding {
      *             If an error occurs during parsing
      */
     protected XmlObject decode(HttpServletRequest request) throws OwsExceptionReport {
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-            
-            EXIFactory ef = EXI_UTILS.newEXIFactory();
-            
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
-            if (ef.isFragment()) {
-				transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION,"yes");
-			}
-            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        try {
             // decode EXI encoded InputStream
-            EXISource exiSource = new EXISource(ef);
-            XMLReader exiReader = exiSource.getXMLReader();
             InputSource inputSource = new InputSource(request.getInputStream());
             inputSource.setEncoding(request.getCharacterEncoding());
-            SAXSource saxSource = new SAXSource(inputSource);
-            saxSource.setXMLReader(exiReader);
-            transformer.transform(saxSource, new StreamResult(os));
-            
-            // create XmlObject from OutputStream
-            return XmlHelper.parseXmlString(os.toString());
+            return EXIUtils.decode(EXI_UTILS.newEXIFactory(), inputSource);
         } catch (IOException ioe) {
             throw new NoApplicableCodeException().causedBy(ioe).withMessage(
                     "Error while reading request! Message: %s", ioe.getMessage());
-        } catch (TransformerException te) {
-            throw new NoApplicableCodeException().causedBy(te).withMessage(
-                    "Error while transforming request! Message: %s", te.getMessage());
+        } catch (SAXException saxe) {
+            throw new NoApplicableCodeException().causedBy(saxe).withMessage(
+                    "Error while decoding request! Message: %s", saxe.getMessage());
+        } catch (XmlException xmle) {
+            throw new NoApplicableCodeException().causedBy(xmle).withMessage(
+                    "An xml error occured when parsing the request! Message: %s", xmle.getMessage());
         } catch (EXIException exie) {
             throw new NoApplicableCodeException().causedBy(exie).withMessage(
                     "Error while reading request! Message: %s", exie.getMessage());
@@ -28,7 +28,9 @@
  */
 package org.n52.sos.binding;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.Set;
 
@@ -38,13 +40,18 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.coding.OperationKey;
 import org.n52.sos.decode.Decoder;
+import org.n52.sos.decode.StreamingInsertResultParser;
 import org.n52.sos.exception.HTTPException;
+import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.ogc.ows.OWSConstants.RequestParams;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.ConformanceClasses;
 import org.n52.sos.request.AbstractServiceRequest;
-import org.n52.sos.response.AbstractServiceResponse;
+import org.n52.sos.request.InsertResultRequest;
+import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.XmlHelper;
+import org.n52.sos.util.http.HTTPUtils;
 import org.n52.sos.util.http.MediaType;
 import org.n52.sos.util.http.MediaTypes;
 import org.slf4j.Logger;
@@ -69,9 +76,7 @@ public class PoxBinding extends SimpleBinding {
         AbstractServiceRequest<?> sosRequest = null;
         try {
             sosRequest = parseRequest(req);
-            AbstractServiceResponse sosResponse = getServiceOperator(sosRequest)
-                    .receiveRequest(sosRequest);
-            writeResponse(req, res, sosResponse);
+            processRequest(req, res, sosRequest);
         } catch (OwsExceptionReport oer) {
             oer.setVersion(sosRequest != null ? sosRequest.getVersion() : null);
             writeOwsExceptionReport(req, res, oer);
@@ -80,7 +85,25 @@ public class PoxBinding extends SimpleBinding {
 
     protected AbstractServiceRequest<?> parseRequest(HttpServletRequest request)
             throws OwsExceptionReport {
-        XmlObject doc = XmlHelper.parseXmlSosRequest(request);
+        XmlObject doc;
+        if (ServiceConfiguration.getInstance().isStreamingInsertResult() && !hasRequestParameter(request)) {
+            InputStream in;
+            try {
+                in = new BufferedInputStream(HTTPUtils.getInputStream(request));
+            } catch (IOException ioe) {
+                throw new NoApplicableCodeException().causedBy(ioe).withMessage(
+                        "Error while reading request! Message: %s", ioe.getMessage());
+            }
+            InsertResultRequest insertResultRequest =
+                    new StreamingInsertResultParser().parse(in, request.getCharacterEncoding());
+            if (insertResultRequest != null) {
+                LOGGER.debug("Streaming result values of InsertResult request.");
+                return insertResultRequest.setRequestContext(getRequestContext(request));
+            }
+            doc = XmlHelper.parseXmlSosRequest(in, request.getCharacterEncoding());
+        } else {
+            doc = XmlHelper.parseXmlSosRequest(request);
+        }
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("XML-REQUEST: {}", doc.xmlText());
         }
@@ -89,6 +112,10 @@ public class PoxBinding extends SimpleBinding {
         return decoder.decode(doc).setRequestContext(getRequestContext(request));
     }
 
+    private boolean hasRequestParameter(HttpServletRequest request) {
+        return request.getParameterMap().containsKey(RequestParams.request.name());
+    }
+
     @Override
     public Set<String> getConformanceClasses() {
         return Collections.unmodifiableSet(CONFORMANCE_CLASSES);
@@ -40,6 +40,7 @@ import org.n52.sos.exception.CodedException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.exception.ows.concrete.NoEncoderForKeyException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.response.StreamingDataResponse;
 import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.soap.SoapResponse;
 import org.n52.sos.util.CodingHelper;
@@ -67,6 +68,10 @@ public class SoapChainResponseWriter extends AbstractResponseWriter<SoapChain> {
             }
         } catch (SOAPException soapex) {
             throw new NoApplicableCodeException().causedBy(soapex);
+        } finally {
+            if (chain.hasBodyResponse() && chain.getBodyResponse() instanceof StreamingDataResponse) {
+                ((StreamingDataResponse) chain.getBodyResponse()).closeStreamingData();
+            }
         }
     }
 
@@ -28,9 +28,7 @@
  */
 package org.n52.sos.encode;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 
 import org.n52.sos.exception.CodedException;
@@ -41,19 +39,15 @@ import org.n52.sos.util.XmlOptionsHelper;
 import org.n52.sos.util.http.MediaType;
 import org.n52.sos.util.http.MediaTypes;
 import org.n52.sos.utils.EXIUtils;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.XMLReaderFactory;
 
-import com.siemens.ct.exi.EXIFactory;
-import com.siemens.ct.exi.api.sax.EXIResult;
 import com.siemens.ct.exi.exceptions.EXIException;
 
 /**
  * Writer class for {@link EXIObject}
  * 
- * Converts XML documents via EXI encoding using {@link EXISettings}.
+ * Converts XML documents via EXI encoding using {@link EXISettings}. The SAX
+ * events of the document are streamed directly into the EXI encoder.
  * 
  * @author Carsten Hollmann <c.hollmann@52north.org>
  * @since 4.2.0
@@ -65,17 +59,9 @@ public class EXIResponseWriter extends AbstractResponseWriter<EXIObject> {
 
     @Override
     public void write(EXIObject exiObject, OutputStream out, ResponseProxy responseProxy) throws IOException, CodedException {
-        try (InputStream is =
-                new ByteArrayInputStream(exiObject.getDoc().xmlText(XmlOptionsHelper.getInstance().getXmlOptions())
-                        .getBytes("UTF-8"))) {
-        	
-        	EXIFactory ef = EXI_UTILS.newEXIFactory();
-            
-            EXIResult exiResult = new EXIResult(ef);
-            exiResult.setOutputStream(out);
-            XMLReader xmlReader = XMLReaderFactory.createXMLReader();
-            xmlReader.setContentHandler(exiResult.getHandler());
-            xmlReader.parse(new InputSource(is));
+        try {
+            EXIUtils.encode(EXI_UTILS.newEXIFactory(), exiObject.getDoc(), XmlOptionsHelper.getInstance()
+                    .getXmlOptions(), out);
         } catch (EXIException | SAXException e) {
         	throw new NoApplicableCodeException().causedBy(e);
         }
@@ -28,6 +28,13 @@
  */
 package org.n52.sos.utils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.XmlSaxHandler;
 import org.n52.sos.config.SettingsManager;
 import org.n52.sos.config.annotation.Configurable;
 import org.n52.sos.config.annotation.Setting;
@@ -37,11 +44,18 @@ import org.n52.sos.ogc.sos.Sos2Constants;
 import org.n52.sos.util.Validation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
 
 import com.siemens.ct.exi.CodingMode;
 import com.siemens.ct.exi.EXIFactory;
 import com.siemens.ct.exi.FidelityOptions;
 import com.siemens.ct.exi.GrammarFactory;
+import com.siemens.ct.exi.api.sax.EXIResult;
+import com.siemens.ct.exi.api.sax.EXISource;
 import com.siemens.ct.exi.exceptions.EXIException;
 import com.siemens.ct.exi.exceptions.UnsupportedOption;
 import com.siemens.ct.exi.grammars.Grammars;
@@ -58,6 +72,8 @@ public class EXIUtils {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EXIUtils.class);
 
+    private static final String SAX_LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
     private static Grammars GRAMMAR_SOS20 = null;
 
     private static Grammars GRAMMAR_SOS10 = null;
@@ -304,4 +320,66 @@ public class EXIUtils {
         return ef;
     }
 
+    /**
+     * Encodes the {@link XmlObject} to EXI by saving its SAX events directly
+     * into an {@link EXIResult}, without serializing the document to XML text
+     * and parsing it again.
+     *
+     * @param ef
+     *            the {@link EXIFactory} to encode with
+     * @param doc
+     *            the document to encode
+     * @param options
+     *            the {@link XmlOptions} to save the document with
+     * @param out
+     *            the stream to write the EXI encoded document to
+     * @throws EXIException
+     *             if the EXI encoder could not be created
+     * @throws SAXException
+     *             if the document could not be encoded
+     *
+     * @since 4.4.0
+     */
+    public static void encode(EXIFactory ef, XmlObject doc, XmlOptions options, OutputStream out)
+            throws EXIException, SAXException {
+        EXIResult exiResult = new EXIResult(ef);
+        exiResult.setOutputStream(out);
+        doc.save(exiResult.getHandler(), exiResult.getLexicalHandler(), options);
+    }
+
+    /**
+     * Decodes the EXI encoded {@link InputSource} by feeding the SAX events of
+     * an {@link EXISource} directly into an XmlBeans {@link XmlSaxHandler},
+     * without writing the document to XML text and parsing it again.
+     *
+     * @param ef
+     *            the {@link EXIFactory} to decode with
+     * @param in
+     *            the EXI encoded input
+     * @return the decoded document
+     * @throws EXIException
+     *             if the EXI decoder could not be created
+     * @throws SAXException
+     *             if the input could not be decoded
+     * @throws IOException
+     *             if the input could not be read
+     * @throws XmlException
+     *             if the decoded events do not form a valid document
+     *
+     * @since 4.4.0
+     */
+    public static XmlObject decode(EXIFactory ef, InputSource in) throws EXIException, SAXException, IOException,
+            XmlException {
+        XmlSaxHandler saxHandler = XmlObject.Factory.newXmlSaxHandler();
+        XMLReader exiReader = new EXISource(ef).getXMLReader();
+        exiReader.setContentHandler(saxHandler.getContentHandler());
+        try {
+            exiReader.setProperty(SAX_LEXICAL_HANDLER, saxHandler.getLexicalHandler());
+        } catch (SAXNotRecognizedException | SAXNotSupportedException e) {
+            LOGGER.debug("EXI reader does not support lexical events, comments and CDATA are dropped.", e);
+        }
+        exiReader.parse(in);
+        return saxHandler.getObject();
+    }
+
 }
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.n52.sos.exi.EXISettings;
+import org.n52.sos.ogc.sos.Sos1Constants;
+import org.n52.sos.ogc.sos.Sos2Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import com.siemens.ct.exi.EXIFactory;
+import com.siemens.ct.exi.GrammarFactory;
+import com.siemens.ct.exi.api.sax.EXIResult;
+import com.siemens.ct.exi.api.sax.EXISource;
+import com.siemens.ct.exi.exceptions.EXIException;
+import com.siemens.ct.exi.grammars.Grammars;
+import com.siemens.ct.exi.helpers.DefaultEXIFactory;
+
+/**
+ * JMH benchmark of the EXI encoding and decoding of SOS documents for the
+ * grammar modes of the {@link EXISettings}: the streaming implementation of
+ * {@link EXIUtils} is compared with the previous one, which encoded from and
+ * decoded to intermediate XML text. Run it with {@link #main(String[])} from
+ * the test classpath. The schema based grammars are loaded from
+ * schemas.opengis.net during setup.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EXIStreamingBenchmark {
+    @Param({ EXISettings.EXI_GRAMMAR_SCHEMALESS, EXISettings.EXI_GRAMMAR_BASETYPES,
+            EXISettings.EXI_GRAMMAR_SCHEMA_SOS_10, EXISettings.EXI_GRAMMAR_SCHEMA_SOS_20 })
+    private String grammar;
+
+    @Param({ "GetObservation", "GetDataAvailability" })
+    private String document;
+
+    private EXIFactory exiFactory;
+
+    private XmlOptions xmlOptions;
+
+    private XmlObject doc;
+
+    private byte[] exi;
+
+    @Setup
+    public void setup() throws EXIException, XmlException, IOException, SAXException {
+        exiFactory = DefaultEXIFactory.newInstance();
+        exiFactory.setGrammars(createGrammars(grammar));
+        xmlOptions = new XmlOptions();
+        try (InputStream in = getClass().getResourceAsStream("/xml/" + document + ".xml")) {
+            doc = XmlObject.Factory.parse(in);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EXIUtils.encode(exiFactory, doc, xmlOptions, out);
+        exi = out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeViaXmlText() throws EXIException, SAXException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EXIResult exiResult = new EXIResult(exiFactory);
+        exiResult.setOutputStream(out);
+        XMLReader xmlReader = XMLReaderFactory.createXMLReader();
+        xmlReader.setContentHandler(exiResult.getHandler());
+        xmlReader.parse(new InputSource(new ByteArrayInputStream(doc.xmlText(xmlOptions).getBytes("UTF-8"))));
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeStreaming() throws EXIException, SAXException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EXIUtils.encode(exiFactory, doc, xmlOptions, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public XmlObject decodeViaXmlText() throws EXIException, TransformerException, XmlException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        SAXSource saxSource = new SAXSource(new InputSource(new ByteArrayInputStream(exi)));
+        saxSource.setXMLReader(new EXISource(exiFactory).getXMLReader());
+        transformer.transform(saxSource, new StreamResult(out));
+        return XmlObject.Factory.parse(out.toString());
+    }
+
+    @Benchmark
+    public XmlObject decodeStreaming() throws EXIException, SAXException, IOException, XmlException {
+        return EXIUtils.decode(exiFactory, new InputSource(new ByteArrayInputStream(exi)));
+    }
+
+    private static Grammars createGrammars(String grammar) throws EXIException {
+        GrammarFactory grammarFactory = GrammarFactory.newInstance();
+        if (EXISettings.EXI_GRAMMAR_BASETYPES.equals(grammar)) {
+            return grammarFactory.createXSDTypesOnlyGrammars();
+        } else if (EXISettings.EXI_GRAMMAR_SCHEMA_SOS_10.equals(grammar)) {
+            return grammarFactory.createGrammars(Sos1Constants.SCHEMA_LOCATION_SOS);
+        } else if (EXISettings.EXI_GRAMMAR_SCHEMA_SOS_20.equals(grammar)) {
+            return grammarFactory.createGrammars(Sos2Constants.SCHEMA_LOCATION_URL_SOS);
+        }
+        return grammarFactory.createSchemaLessGrammars();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(EXIStreamingBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
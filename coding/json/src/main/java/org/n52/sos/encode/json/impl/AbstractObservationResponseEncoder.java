@@ -28,32 +28,52 @@
  */
 package org.n52.sos.encode.json.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
+import org.n52.sos.coding.CodingRepository;
 import org.n52.sos.coding.json.JSONConstants;
+import org.n52.sos.encode.Encoder;
+import org.n52.sos.encode.EncodingValues;
 import org.n52.sos.encode.json.AbstractSosResponseEncoder;
+import org.n52.sos.encode.json.JSONEncoderKey;
+import org.n52.sos.encode.streaming.StreamingEncoder;
+import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.exception.ows.concrete.NoEncoderForKeyException;
+import org.n52.sos.exception.ows.concrete.UnsupportedEncoderInputException;
 import org.n52.sos.ogc.om.OmConstants;
 import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.StreamingObservation;
+import org.n52.sos.ogc.om.StreamingValue;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.response.AbstractObservationResponse;
+import org.n52.sos.util.JSONUtils;
 import org.n52.sos.util.http.MediaTypes;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.Sets;
 
 /**
- * TODO JavaDoc
+ * Encoder for observation responses. When used as {@link StreamingEncoder} the
+ * observations are written one by one to a {@link JsonGenerator} and
+ * {@link StreamingValue}/{@link StreamingObservation} values are pulled from the
+ * database while writing, so the response is never built as a whole. Streaming
+ * is only used if it is enabled in the streaming settings, as streamed
+ * responses are not gzip compressed.
  * 
  * @author Christian Autermann <c.autermann@52north.org>
  * 
  * @since 4.0.0
  */
 public abstract class AbstractObservationResponseEncoder<T extends AbstractObservationResponse> extends
-        AbstractSosResponseEncoder<T> implements org.n52.sos.encode.ObservationEncoder<JsonNode, T>{
+        AbstractSosResponseEncoder<T> implements org.n52.sos.encode.ObservationEncoder<JsonNode, T>,
+        StreamingEncoder<JsonNode, T> {
     public AbstractObservationResponseEncoder(Class<T> type, String operation) {
         super(type, operation);
     }
@@ -70,6 +90,93 @@ public abstract class AbstractObservationResponseEncoder<T extends AbstractObser
         }
     }
 
+    @Override
+    public void encode(T response, OutputStream outputStream) throws OwsExceptionReport {
+        encode(response, outputStream, new EncodingValues());
+    }
+
+    @Override
+    public void encode(T response, OutputStream outputStream, EncodingValues encodingValues)
+            throws OwsExceptionReport {
+        if (response == null) {
+            throw new UnsupportedEncoderInputException(this, response);
+        }
+        try {
+            JsonGenerator generator = JSONUtils.createGenerator(outputStream);
+            generator.writeStartObject();
+            generator.writeStringField(JSONConstants.REQUEST, response.getOperationName());
+            generator.writeStringField(JSONConstants.VERSION, response.getVersion());
+            generator.writeStringField(JSONConstants.SERVICE, response.getService());
+            generator.writeArrayFieldStart(JSONConstants.OBSERVATIONS);
+            writeObservations(response, generator);
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.close();
+        } catch (IOException ioe) {
+            throw new NoApplicableCodeException().causedBy(ioe).withMessage("Error while writing %s response!",
+                    response.getOperationName());
+        }
+    }
+
+    private void writeObservations(T response, JsonGenerator generator) throws OwsExceptionReport, IOException {
+        for (OmObservation o : response.getObservationCollection()) {
+            if (o.getValue() instanceof StreamingObservation) {
+                StreamingObservation streamingObservation = (StreamingObservation) o.getValue();
+                if (streamingObservation.hasNextValue()) {
+                    if (response.isSetMergeObservation()) {
+                        for (OmObservation obs : streamingObservation.mergeObservation()) {
+                            writeObservation(obs, generator);
+                        }
+                    } else {
+                        do {
+                            writeObservation(streamingObservation.nextSingleObservation(), generator);
+                        } while (streamingObservation.hasNextValue());
+                    }
+                } else if (streamingObservation.getValue() != null) {
+                    writeObservation(streamingObservation.getValue().getValue(), generator);
+                }
+            } else if (o.getValue() instanceof StreamingValue) {
+                StreamingValue<?> streamingValue = (StreamingValue<?>) o.getValue();
+                if (streamingValue.hasNextValue()) {
+                    if (response.isSetMergeObservation()) {
+                        if (supportsResultStreamingForMergedValues()
+                                && !response.getObservationMergeIndicator().isSetResultTime()) {
+                            getObservationEncoder().writeMergedStreamingValue(o, generator);
+                        } else {
+                            for (OmObservation obs : streamingValue.mergeObservation()) {
+                                writeObservation(obs, generator);
+                            }
+                        }
+                    } else {
+                        do {
+                            writeObservation(streamingValue.nextSingleObservation(), generator);
+                        } while (streamingValue.hasNextValue());
+                    }
+                } else if (streamingValue.getValue() != null) {
+                    writeObservation(streamingValue.getValue().getValue(), generator);
+                }
+            } else {
+                writeObservation(o, generator);
+            }
+        }
+    }
+
+    private void writeObservation(OmObservation observation, JsonGenerator generator) throws OwsExceptionReport,
+            IOException {
+        if (observation != null) {
+            generator.writeTree(encodeObjectToJson(observation));
+        }
+    }
+
+    private ObservationEncoder getObservationEncoder() throws OwsExceptionReport {
+        JSONEncoderKey key = new JSONEncoderKey(OmObservation.class);
+        Encoder<JsonNode, OmObservation> encoder = CodingRepository.getInstance().getEncoder(key);
+        if (!(encoder instanceof ObservationEncoder)) {
+            throw new NoEncoderForKeyException(key);
+        }
+        return (ObservationEncoder) encoder;
+    }
+
     @Override
     public boolean isObservationAndMeasurmentV20Type() {
         return false;
@@ -77,7 +184,7 @@ public abstract class AbstractObservationResponseEncoder<T extends AbstractObser
     
     @Override
     public boolean supportsResultStreamingForMergedValues() {
-        return false;
+        return true;
     }
 
     @Override
@@ -28,12 +28,24 @@
  */
 package org.n52.sos.encode.json.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import org.n52.sos.coding.json.JSONConstants;
+import org.n52.sos.encode.EncodingValues;
 import org.n52.sos.encode.json.AbstractSosResponseEncoder;
+import org.n52.sos.encode.streaming.StreamingEncoder;
+import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.exception.ows.concrete.UnsupportedEncoderInputException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.SosConstants;
+import org.n52.sos.ogc.sos.StreamingResultValues;
 import org.n52.sos.response.GetResultResponse;
+import org.n52.sos.util.JSONUtils;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -43,13 +55,62 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  * 
  * @since 4.0.0
  */
-public class GetResultResponseEncoder extends AbstractSosResponseEncoder<GetResultResponse> {
+public class GetResultResponseEncoder extends AbstractSosResponseEncoder<GetResultResponse> implements
+        StreamingEncoder<JsonNode, GetResultResponse> {
     public GetResultResponseEncoder() {
         super(GetResultResponse.class, SosConstants.Operations.GetResult);
     }
 
     @Override
     protected void encodeResponse(ObjectNode json, GetResultResponse t) throws OwsExceptionReport {
+        t.mergeStreamingData();
         json.put(JSONConstants.RESULT_VALUES, t.getResultValues());
     }
+
+    @Override
+    public void encode(GetResultResponse response, OutputStream outputStream) throws OwsExceptionReport {
+        encode(response, outputStream, new EncodingValues());
+    }
+
+    @Override
+    public void encode(GetResultResponse response, OutputStream outputStream, EncodingValues encodingValues)
+            throws OwsExceptionReport {
+        if (response == null) {
+            throw new UnsupportedEncoderInputException(this, response);
+        }
+        try {
+            JsonGenerator generator = JSONUtils.createGenerator(outputStream);
+            generator.writeStartObject();
+            generator.writeStringField(JSONConstants.REQUEST, response.getOperationName());
+            generator.writeStringField(JSONConstants.VERSION, response.getVersion());
+            generator.writeStringField(JSONConstants.SERVICE, response.getService());
+            generator.writeFieldName(JSONConstants.RESULT_VALUES);
+            if (response.hasStreamingData()) {
+                writeStreamingResultValues(response.getStreamingResultValues(), generator);
+            } else {
+                generator.writeString(response.getResultValues());
+            }
+            generator.writeEndObject();
+            generator.close();
+        } catch (IOException ioe) {
+            throw new NoApplicableCodeException().causedBy(ioe).withMessage("Error while writing %s response!",
+                    response.getOperationName());
+        }
+    }
+
+    /**
+     * Write the result values as one JSON string. The generator can only
+     * write complete strings, so the quotes are written as raw value and the
+     * escaped parts as raw content in between.
+     */
+    private void writeStreamingResultValues(StreamingResultValues values, JsonGenerator generator)
+            throws OwsExceptionReport, IOException {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        generator.writeRawValue("\"");
+        while (values.hasNextValues()) {
+            char[] quoted = encoder.quoteAsString(values.nextValues());
+            generator.writeRaw(quoted, 0, quoted.length);
+        }
+        generator.writeRaw('"');
+    }
 }
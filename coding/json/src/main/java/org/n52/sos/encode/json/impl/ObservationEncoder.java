@@ -28,8 +28,11 @@
  */
 package org.n52.sos.encode.json.impl;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 
 import org.n52.sos.coding.json.JSONConstants;
 import org.n52.sos.encode.json.JSONEncoder;
@@ -39,6 +42,7 @@ import org.n52.sos.ogc.om.NamedValue;
 import org.n52.sos.ogc.om.OmConstants;
 import org.n52.sos.ogc.om.OmObservation;
 import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.StreamingValue;
 import org.n52.sos.ogc.om.TimeValuePair;
 import org.n52.sos.ogc.om.values.BooleanValue;
 import org.n52.sos.ogc.om.values.CategoryValue;
@@ -75,6 +79,7 @@ import org.n52.sos.ogc.swe.simpleType.SweTime;
 import org.n52.sos.util.JSONUtils;
 import org.n52.sos.util.OMHelper;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -109,6 +114,65 @@ public class ObservationEncoder extends JSONEncoder<OmObservation> {
         return json;
     }
 
+    /**
+     * Write an observation with a {@link StreamingValue} as a single merged
+     * SWE array observation. The time value pairs are pulled one by one from
+     * the {@link StreamingValue} and written directly to the generator, so the
+     * merged result is never held in memory.
+     *
+     * @param o
+     *            the observation holding the {@link StreamingValue}
+     * @param generator
+     *            the generator to write to
+     * @throws OwsExceptionReport
+     *             if the values can not be queried or encoded
+     * @throws IOException
+     *             if writing to the generator fails
+     *
+     * @since 4.4.0
+     */
+    public void writeMergedStreamingValue(OmObservation o, JsonGenerator generator) throws OwsExceptionReport,
+            IOException {
+        StreamingValue<?> values = (StreamingValue<?>) o.getValue();
+        ObjectNode json = nodeFactory().objectNode();
+        json.put(JSONConstants.TYPE, OmConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION);
+        encodeIdentifier(o, json);
+        encodeProcedure(o, json);
+        encodeParameter(o, json);
+        encodeObservableProperty(o, json);
+        encodeFeatureOfInterest(o, json);
+        encodePhenomenonTime(o, json);
+        encodeResultTime(o, json);
+        encodeValidTime(o, json);
+        generator.writeStartObject();
+        Iterator<Entry<String, JsonNode>> fields = json.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            generator.writeFieldName(field.getKey());
+            generator.writeTree(field.getValue());
+        }
+        generator.writeObjectFieldStart(JSONConstants.RESULT);
+        TimeValuePair first = values.hasNextValue() ? values.nextValue() : null;
+        if (first != null) {
+            String obsProp = o.getObservationConstellation().getObservableProperty().getIdentifier();
+            generator.writeArrayFieldStart(JSONConstants.FIELDS);
+            generator.writeTree(encodeObjectToJson(createPhenomenonTimeField()));
+            generator.writeTree(encodeObjectToJson(getFieldForValue(obsProp, first.getValue())));
+            generator.writeEndArray();
+            generator.writeArrayFieldStart(JSONConstants.VALUES);
+            generator.writeTree(encodeTimeValuePair(first));
+            while (values.hasNextValue()) {
+                TimeValuePair tvp = values.nextValue();
+                if (tvp != null) {
+                    generator.writeTree(encodeTimeValuePair(tvp));
+                }
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
     private void encodeIdentifier(OmObservation o, ObjectNode json) {
         if (o.isSetIdentifier()) {
             json.put(JSONConstants.IDENTIFIER, encodeCodeWithAuthority(o.getIdentifierCodeWithAuthority()));
@@ -408,10 +472,7 @@ public class ObservationEncoder extends JSONEncoder<OmObservation> {
         List<TimeValuePair> values = tvpValue.getValue();
         if (values != null && !values.isEmpty()) {
             String obsProp = o.getObservationConstellation().getObservableProperty().getIdentifier();
-            SweTime timeDef = new SweTime();
-            timeDef.setDefinition(OmConstants.PHENOMENON_TIME);
-            timeDef.setUom(OmConstants.PHEN_UOM_ISO8601);
-            SweField timeField = new SweField(OmConstants.PHENOMENON_TIME_NAME, timeDef);
+            SweField timeField = createPhenomenonTimeField();
             SweField valueField = getFieldForValue(obsProp, values.get(0).getValue());
 
             result.putArray(JSONConstants.FIELDS).add(encodeObjectToJson(timeField))
@@ -419,12 +480,23 @@ public class ObservationEncoder extends JSONEncoder<OmObservation> {
             ArrayNode jvalues = result.putArray(JSONConstants.VALUES);
 
             for (TimeValuePair tvp : values) {
-                jvalues.addArray().add(encodeObjectToJson(tvp.getTime())).add(getTokenForValue(tvp.getValue()));
+                jvalues.add(encodeTimeValuePair(tvp));
             }
         }
         return result;
     }
 
+    private SweField createPhenomenonTimeField() {
+        SweTime timeDef = new SweTime();
+        timeDef.setDefinition(OmConstants.PHENOMENON_TIME);
+        timeDef.setUom(OmConstants.PHEN_UOM_ISO8601);
+        return new SweField(OmConstants.PHENOMENON_TIME_NAME, timeDef);
+    }
+
+    private ArrayNode encodeTimeValuePair(TimeValuePair tvp) throws OwsExceptionReport {
+        return nodeFactory().arrayNode().add(encodeObjectToJson(tvp.getTime())).add(getTokenForValue(tvp.getValue()));
+    }
+
     private SweField getFieldForValue(String phenomenon, Value<?> value) throws UnsupportedEncoderInputException {
         final SweAbstractDataComponent def;
         if (value instanceof BooleanValue) {
@@ -0,0 +1,221 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.encode.json.impl;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.n52.sos.ConfiguredSettingsManager;
+import org.n52.sos.coding.json.JSONConstants;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.om.OmConstants;
+import org.n52.sos.ogc.om.OmObservableProperty;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.SingleObservationValue;
+import org.n52.sos.ogc.om.StreamingValue;
+import org.n52.sos.ogc.om.TimeValuePair;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.Sos2Constants;
+import org.n52.sos.ogc.sos.SosConstants;
+import org.n52.sos.ogc.sos.SosProcedureDescriptionUnknowType;
+import org.n52.sos.response.GetObservationResponse;
+import org.n52.sos.util.JSONUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
+
+/**
+ * Test that the streamed JSON of {@link AbstractObservationResponseEncoder}
+ * equals the JSON of the non-streaming encoding.
+ *
+ * @since 4.4.0
+ */
+public class GetObservationResponseEncoderTest {
+    @ClassRule
+    public static final ConfiguredSettingsManager csm = new ConfiguredSettingsManager();
+
+    private static final int VALUES = 3;
+
+    private GetObservationResponseEncoder encoder;
+
+    @Before
+    public void setUp() {
+        encoder = new GetObservationResponseEncoder();
+    }
+
+    @Test
+    public void should_not_force_streaming() {
+        assertThat(encoder.forceStreaming(), is(false));
+    }
+
+    @Test
+    public void should_stream_observations_like_the_non_streaming_encoder() throws Exception {
+        GetObservationResponse merged = createResponse(false);
+        merged.mergeStreamingData();
+        JsonNode expected = encoder.encodeJSON(merged);
+        JsonNode streamed = stream(createResponse(false));
+
+        assertThat(streamed.path(JSONConstants.OBSERVATIONS).size(), is(VALUES));
+        assertThat(streamed, is(expected));
+    }
+
+    @Test
+    public void should_stream_merged_observations_like_the_non_streaming_encoder() throws Exception {
+        GetObservationResponse merged = createResponse(true);
+        merged.mergeStreamingData();
+        JsonNode expected = encoder.encodeJSON(merged);
+        JsonNode streamed = stream(createResponse(true));
+
+        assertThat(streamed.path(JSONConstants.OBSERVATIONS).size(), is(1));
+        assertThat(streamed.path(JSONConstants.OBSERVATIONS).path(0).path(JSONConstants.TYPE).asText(),
+                is(OmConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION));
+        assertThat(streamed.path(JSONConstants.OBSERVATIONS).path(0).path(JSONConstants.RESULT)
+                .path(JSONConstants.VALUES).size(), is(VALUES));
+        assertThat(streamed, is(expected));
+    }
+
+    private JsonNode stream(GetObservationResponse response) throws OwsExceptionReport {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(response, out);
+        return JSONUtils.loadString(new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private GetObservationResponse createResponse(boolean merge) {
+        OmObservationConstellation constellation = new OmObservationConstellation();
+        constellation.setProcedure(new SosProcedureDescriptionUnknowType("procedure", null, null));
+        constellation.setObservableProperty(new OmObservableProperty("observableProperty"));
+        constellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority("feature")));
+        OmObservation template = new OmObservation();
+        template.setObservationConstellation(constellation);
+        DateTime time = new DateTime(2016, 1, 1, 0, 0, DateTimeZone.UTC);
+        List<TimeValuePair> values = Lists.newArrayList();
+        for (int i = 0; i < VALUES; i++) {
+            values.add(new TimeValuePair(new TimeInstant(time.plusHours(i)), new QuantityValue(i + 0.5, "m")));
+        }
+        TestStreamingValue value = new TestStreamingValue(values);
+        value.setObservationTemplate(template);
+        OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(constellation);
+        observation.setValue(value);
+        GetObservationResponse response = new GetObservationResponse();
+        response.setService(SosConstants.SOS);
+        response.setVersion(Sos2Constants.SERVICEVERSION);
+        response.setMergeObservations(merge);
+        response.setObservationCollection(Lists.newArrayList(observation));
+        return response;
+    }
+
+    /**
+     * {@link StreamingValue} over a list of values that merges like the
+     * Hibernate streaming values.
+     */
+    private static class TestStreamingValue extends StreamingValue<TimeValuePair> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<TimeValuePair> values;
+
+        private final Iterator<TimeValuePair> iterator;
+
+        TestStreamingValue(List<TimeValuePair> values) {
+            this.values = values;
+            this.iterator = values.iterator();
+        }
+
+        @Override
+        public boolean hasNextValue() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public TimeValuePair nextEntity() {
+            return iterator.next();
+        }
+
+        @Override
+        public TimeValuePair nextValue() {
+            return nextEntity();
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public OmObservation nextSingleObservation(boolean withIdentifierNameDesription) {
+            TimeValuePair value = nextValue();
+            OmObservation observation = observationTemplate.cloneTemplate(withIdentifierNameDesription);
+            observation.setValue(new SingleObservationValue(value.getTime(), value.getValue()));
+            return observation;
+        }
+
+        @Override
+        public Collection<OmObservation> mergeObservation() throws OwsExceptionReport {
+            OmObservation merged = nextSingleObservation();
+            while (hasNextValue()) {
+                merged.getObservationConstellation().setObservationType(
+                        OmConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION);
+                merged.mergeWithObservation(nextSingleObservation());
+            }
+            return Collections.singletonList(merged);
+        }
+
+        @Override
+        public void mergeValue(StreamingValue<TimeValuePair> streamingValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void queryTimes() {
+            TimePeriod phenomenonTime = new TimePeriod();
+            for (TimeValuePair value : values) {
+                phenomenonTime.extendToContain(value.getTime());
+            }
+            setPhenomenonTime(phenomenonTime);
+        }
+
+        @Override
+        protected void queryUnit() {
+            setUnit("m");
+        }
+    }
+}
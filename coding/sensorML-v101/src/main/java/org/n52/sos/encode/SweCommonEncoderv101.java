@@ -61,6 +61,7 @@ import org.n52.sos.ogc.swe.SweAbstractDataComponent;
 import org.n52.sos.ogc.swe.SweConstants;
 import org.n52.sos.ogc.swe.SweCoordinate;
 import org.n52.sos.ogc.swe.SweDataArray;
+import org.n52.sos.ogc.swe.SweDataArrayColumns;
 import org.n52.sos.ogc.swe.SweDataRecord;
 import org.n52.sos.ogc.swe.SweEnvelope;
 import org.n52.sos.ogc.swe.SweField;
@@ -927,6 +928,13 @@ public class SweCommonEncoderv101 extends AbstractXmlEncoder<Object> {
         // Configurator.getInstance().getDecimalSeparator();
         final String tokenSeparator = textEncoding.getTokenSeparator();
         final String blockSeparator = textEncoding.getBlockSeparator();
+        if (values instanceof SweDataArrayColumns) {
+            // typed columns are appended without creating the token strings
+            final XmlString xbValueString = XmlString.Factory.newInstance();
+            xbValueString.setStringValue(((SweDataArrayColumns) values).appendTo(valueStringBuilder, tokenSeparator,
+                    blockSeparator).toString());
+            return xbValueString;
+        }
         for (final List<String> block : values) {
             final StringBuilder blockStringBuilder = new StringBuilder();
             for (final String token : block) {
@@ -55,6 +55,7 @@ import org.n52.sos.ogc.swe.SweAbstractDataComponent;
 import org.n52.sos.ogc.swe.SweConstants;
 import org.n52.sos.ogc.swe.SweCoordinate;
 import org.n52.sos.ogc.swe.SweDataArray;
+import org.n52.sos.ogc.swe.SweDataArrayColumns;
 import org.n52.sos.ogc.swe.SweDataRecord;
 import org.n52.sos.ogc.swe.SweField;
 import org.n52.sos.ogc.swe.SweVector;
@@ -340,7 +341,10 @@ public class SweCommonDecoderV20 implements Decoder<Object, Object> {
                     final SweTextEncoding textEncoding = (SweTextEncoding) encoding;
 
                     final String[] blocks = values.split(textEncoding.getBlockSeparator());
-                    final List<List<String>> resultValues = new ArrayList<List<String>>(blocks.length);
+                    List<List<String>> resultValues = SweDataArrayColumns.forElementType(elementType);
+                    if (resultValues == null) {
+                        resultValues = new ArrayList<List<String>>(blocks.length);
+                    }
                     for (final String block : blocks) {
                         final String[] tokens = block.split(textEncoding.getTokenSeparator());
                         final List<String> tokenList = Arrays.asList(tokens);
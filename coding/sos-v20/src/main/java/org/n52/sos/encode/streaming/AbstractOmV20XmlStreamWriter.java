@@ -37,6 +37,7 @@ import java.util.Set;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 
+import net.opengis.gml.x32.FeaturePropertyType;
 import net.opengis.om.x20.OMObservationType;
 
 import org.apache.xmlbeans.SchemaType;
@@ -55,9 +56,12 @@ import org.n52.sos.encode.XmlStreamWriter;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.exception.ows.concrete.DateTimeFormatException;
 import org.n52.sos.exception.ows.concrete.UnsupportedEncoderInputException;
+import org.n52.sos.ogc.OGCConstants;
+import org.n52.sos.ogc.gml.AbstractFeature;
 import org.n52.sos.ogc.gml.AbstractMetaData;
 import org.n52.sos.ogc.gml.CodeWithAuthority;
 import org.n52.sos.ogc.gml.GmlConstants;
+import org.n52.sos.ogc.gml.ReferenceType;
 import org.n52.sos.ogc.gml.time.Time;
 import org.n52.sos.ogc.gml.time.TimeInstant;
 import org.n52.sos.ogc.gml.time.TimePeriod;
@@ -65,6 +69,12 @@ import org.n52.sos.ogc.om.AbstractObservationValue;
 import org.n52.sos.ogc.om.NamedValue;
 import org.n52.sos.ogc.om.OmConstants;
 import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.values.BooleanValue;
+import org.n52.sos.ogc.om.values.CategoryValue;
+import org.n52.sos.ogc.om.values.CountValue;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.om.values.TextValue;
+import org.n52.sos.ogc.om.values.Value;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.ogc.sos.SosConstants.HelperValues;
@@ -92,6 +102,24 @@ import com.google.common.collect.Maps;
  */
 public abstract class AbstractOmV20XmlStreamWriter extends XmlStreamWriter<OmObservation> {
 
+    protected static final String XS_BOOLEAN = W3CConstants.NS_XS_PREFIX + Constants.COLON_STRING + "boolean";
+
+    protected static final String XS_INTEGER = W3CConstants.NS_XS_PREFIX + Constants.COLON_STRING + "integer";
+
+    protected static final String XS_STRING = W3CConstants.NS_XS_PREFIX + Constants.COLON_STRING + "string";
+
+    protected static final String GML_MEASURE_TYPE = GmlConstants.NS_GML_PREFIX + Constants.COLON_STRING
+            + "MeasureType";
+
+    protected static final String GML_REFERENCE_TYPE = GmlConstants.NS_GML_PREFIX + Constants.COLON_STRING
+            + "ReferenceType";
+
+    private static final String XML_FRAGMENT_START = "<" + XML_FRAGMENT;
+
+    private static final String AN_CODE_SPACE = "codeSpace";
+
+    private static final String AN_UOM = "uom";
+
     private OmObservation observation;
 
     /**
@@ -217,6 +245,13 @@ public abstract class AbstractOmV20XmlStreamWriter extends XmlStreamWriter<OmObs
      *             If an error occurs when writing to stream
      */
     protected void writeIdentifier(CodeWithAuthority identifier) throws OwsExceptionReport, XMLStreamException {
+        if (identifier.isSetValue()) {
+            start(GmlConstants.QN_IDENTIFIER_32);
+            attr(AN_CODE_SPACE, identifier.isSetCodeSpace() ? identifier.getCodeSpace() : OGCConstants.UNKNOWN);
+            chars(identifier.getValue());
+            endInline(GmlConstants.QN_IDENTIFIER_32);
+            return;
+        }
         Encoder<?, CodeWithAuthority> encoder =
                 CodingRepository.getInstance().getEncoder(
                         CodingHelper.getEncoderKey(GmlConstants.NS_GML_32, identifier));
@@ -420,8 +455,12 @@ public abstract class AbstractOmV20XmlStreamWriter extends XmlStreamWriter<OmObs
         for (NamedValue<?> namedValue : observation.getParameter()) {
             start(OmConstants.QN_OM_20_PARAMETER);
             writeNewLine();
-            XmlObject xmlObject = CodingHelper.encodeObjectToXml(OmConstants.NS_OM_2, namedValue);
-            writeXmlObject(xmlObject, OmConstants.QN_OM_20_NAMED_VALUE);
+            if (isSimpleNamedValue(namedValue)) {
+                writeNamedValue(namedValue);
+            } else {
+                XmlObject xmlObject = CodingHelper.encodeObjectToXml(OmConstants.NS_OM_2, namedValue);
+                writeXmlObject(xmlObject, OmConstants.QN_OM_20_NAMED_VALUE);
+            }
             writeNewLine();
             indent--;
             end(OmConstants.QN_OM_20_PARAMETER);
@@ -458,7 +497,11 @@ public abstract class AbstractOmV20XmlStreamWriter extends XmlStreamWriter<OmObs
      */
     protected void writeFeatureOfIntererst(EncodingValues encodingValues) throws XMLStreamException,
             OwsExceptionReport {
-        if (encodingValues.isSetEncoder() && encodingValues.getEncoder() instanceof AbstractOmEncoderv20) {
+        AbstractFeature featureOfInterest = observation.getObservationConstellation().getFeatureOfInterest();
+        ReferenceType encodedFeature = encodingValues.getEncodedFeature(featureOfInterest.getIdentifier());
+        if (encodedFeature != null) {
+            writeFeatureOfInterestReference(encodedFeature);
+        } else if (encodingValues.isSetEncoder() && encodingValues.getEncoder() instanceof AbstractOmEncoderv20) {
             AbstractOmEncoderv20 encoder = (AbstractOmEncoderv20) encodingValues.getEncoder();
             Map<HelperValues, String> additionalValues =
                     new EnumMap<SosConstants.HelperValues, String>(HelperValues.class);
@@ -471,24 +514,25 @@ public abstract class AbstractOmV20XmlStreamWriter extends XmlStreamWriter<OmObs
             } else if (!Strings.isNullOrEmpty(encoder.getDefaultFeatureEncodingNamespace())) {
                 additionalValues.put(HelperValues.ENCODE_NAMESPACE, encoder.getDefaultFeatureEncodingNamespace());
             } else {
-                additionalValues.put(HelperValues.ENCODE_NAMESPACE, observation.getObservationConstellation()
-                        .getFeatureOfInterest().getDefaultElementEncoding());
+                additionalValues.put(HelperValues.ENCODE_NAMESPACE, featureOfInterest.getDefaultElementEncoding());
             }
             additionalValues.put(HelperValues.PROPERTY_TYPE, "true");
+            boolean referenced = featureOfInterest.isSetGmlID();
             XmlObject xmlObject =
-                    CodingHelper.encodeObjectToXml(GmlConstants.NS_GML_32, observation.getObservationConstellation()
-                            .getFeatureOfInterest(), additionalValues);
-            if (xmlObject.xmlText().contains(XML_FRAGMENT)) {
-                writeXmlObject(xmlObject, OmConstants.QN_OM_20_FEATURE_OF_INTEREST);
+                    CodingHelper.encodeObjectToXml(GmlConstants.NS_GML_32, featureOfInterest, additionalValues);
+            String xmlText = xmlObject.xmlText(XmlOptionsHelper.getInstance().getXmlOptions());
+            if (isXmlFragment(xmlText)) {
+                rawText(xmlText.replaceAll(XML_FRAGMENT, getReplacement(OmConstants.QN_OM_20_FEATURE_OF_INTEREST)));
             } else {
                 start(OmConstants.QN_OM_20_FEATURE_OF_INTEREST);
                 writeNewLine();
-                writeXmlObject(xmlObject, OmConstants.QN_OM_20_FEATURE_OF_INTEREST);
+                rawText(xmlText);
                 writeNewLine();
                 indent--;
                 end(OmConstants.QN_OM_20_FEATURE_OF_INTEREST);
                 indent++;
             }
+            rememberEncodedFeature(featureOfInterest, xmlObject, referenced, encodingValues);
         } else {
             empty(OmConstants.QN_OM_20_FEATURE_OF_INTEREST);
             addXlinkHrefAttr(observation.getObservationConstellation().getFeatureOfInterest().getIdentifier());
@@ -552,6 +596,102 @@ public abstract class AbstractOmV20XmlStreamWriter extends XmlStreamWriter<OmObs
         }
     }
 
+    /**
+     * Check whether the {@link Value} can be written by
+     * {@link #writeSimpleValue(QName, Value)}
+     *
+     * @param value
+     *            {@link Value} to check
+     * @return <code>true</code>, if the value is a set quantity, count,
+     *         category, boolean or text value
+     */
+    protected boolean isSimpleValue(Value<?> value) {
+        return value != null
+                && value.isSetValue()
+                && (value instanceof QuantityValue || value instanceof CountValue || value instanceof CategoryValue
+                        || value instanceof BooleanValue || value instanceof TextValue);
+    }
+
+    /**
+     * Write a simple {@link Value} directly to stream as typed element, e.g.
+     * om:result or om:value, without creating XmlBeans objects
+     *
+     * @param name
+     *            Name of the element to write
+     * @param value
+     *            {@link Value} to write, see {@link #isSimpleValue(Value)}
+     * @throws XMLStreamException
+     *             If an error occurs when writing to stream
+     */
+    protected void writeSimpleValue(QName name, Value<?> value) throws XMLStreamException {
+        if (value instanceof QuantityValue) {
+            start(name);
+            writeXsiType(GML_MEASURE_TYPE);
+            attr(AN_UOM, value.isSetUnit() ? value.getUnit() : OGCConstants.UNKNOWN);
+            chars(printDouble(((QuantityValue) value).getValue().doubleValue()));
+            endInline(name);
+        } else if (value instanceof CategoryValue) {
+            CategoryValue categoryValue = (CategoryValue) value;
+            empty(name);
+            writeXsiType(GML_REFERENCE_TYPE);
+            if (categoryValue.getValue().startsWith("http://")) {
+                addXlinkHrefAttr(categoryValue.getValue());
+            } else {
+                addXlinkTitleAttr(categoryValue.getValue());
+            }
+            if (categoryValue.isSetUnit()) {
+                attr(W3CConstants.QN_XLINK_ROLE, categoryValue.getUnit());
+            }
+        } else if (value instanceof CountValue) {
+            writeXsTypedValue(name, XS_INTEGER, ((CountValue) value).getValue().toString());
+        } else if (value instanceof BooleanValue) {
+            writeXsTypedValue(name, XS_BOOLEAN, ((BooleanValue) value).getValue().toString());
+        } else if (value instanceof TextValue) {
+            writeXsTypedValue(name, XS_STRING, ((TextValue) value).getValue());
+        }
+    }
+
+    /**
+     * Write an empty element with xsi:type and xsi:nil attribute to stream
+     *
+     * @param name
+     *            Name of the element to write
+     * @param type
+     *            XML schema type, e.g. xs:boolean
+     * @throws XMLStreamException
+     *             If an error occurs when writing to stream
+     */
+    protected void writeNilValue(QName name, String type) throws XMLStreamException {
+        empty(name);
+        getXmlWriter().writeNamespace(W3CConstants.NS_XS_PREFIX, W3CConstants.NS_XS);
+        writeXsiType(type);
+        attr(W3CConstants.QN_XSI_NIL, Boolean.TRUE.toString());
+    }
+
+    /**
+     * Write xsi:type attribute and the xsi namespace declaration to stream
+     *
+     * @param type
+     *            The prefixed type name
+     * @throws XMLStreamException
+     *             If an error occurs when writing to stream
+     */
+    protected void writeXsiType(String type) throws XMLStreamException {
+        getXmlWriter().writeNamespace(W3CConstants.NS_XSI_PREFIX, W3CConstants.NS_XSI);
+        attr(W3CConstants.QN_XSI_TYPE, type);
+    }
+
+    /**
+     * Check whether the serialized {@link XmlObject} is an xml-fragment
+     *
+     * @param xmlText
+     *            Serialized {@link XmlObject}
+     * @return <code>true</code>, if the root element is an xml-fragment
+     */
+    protected boolean isXmlFragment(String xmlText) {
+        return xmlText.startsWith(XML_FRAGMENT_START);
+    }
+
     /**
      * Get additional values map with document helper value
      *
@@ -601,6 +741,134 @@ public abstract class AbstractOmV20XmlStreamWriter extends XmlStreamWriter<OmObs
         return false;
     }
 
+    /**
+     * Check whether the {@link NamedValue} can be written directly to stream
+     *
+     * @param namedValue
+     *            {@link NamedValue} to check
+     * @return <code>true</code>, if name and value can be written without
+     *         XmlBeans
+     */
+    private boolean isSimpleNamedValue(NamedValue<?> namedValue) {
+        return namedValue.getName() != null && !namedValue.getName().isEmpty()
+                && isSimpleValue(namedValue.getValue());
+    }
+
+    /**
+     * Write om:NamedValue with simple value to stream
+     *
+     * @param namedValue
+     *            {@link NamedValue} to write
+     * @throws XMLStreamException
+     *             If an error occurs when writing to stream
+     */
+    private void writeNamedValue(NamedValue<?> namedValue) throws XMLStreamException {
+        ReferenceType name = namedValue.getName();
+        start(OmConstants.QN_OM_20_NAMED_VALUE);
+        empty(OmConstants.QN_OM_20_NAME);
+        if (name.isSetHref()) {
+            addXlinkHrefAttr(name.getHref());
+        }
+        if (name.isSetTitle()) {
+            addXlinkTitleAttr(name.getTitle());
+        }
+        if (name.isSetRole()) {
+            attr(W3CConstants.QN_XLINK_ROLE, name.getRole());
+        }
+        writeSimpleValue(OmConstants.QN_OM_20_VALUE, namedValue.getValue());
+        end(OmConstants.QN_OM_20_NAMED_VALUE);
+    }
+
+    /**
+     * Write element with xsi:type of XML schema namespace and text content to
+     * stream
+     *
+     * @param name
+     *            Name of the element to write
+     * @param type
+     *            XML schema type, e.g. xs:boolean
+     * @param value
+     *            Text content
+     * @throws XMLStreamException
+     *             If an error occurs when writing to stream
+     */
+    private void writeXsTypedValue(QName name, String type, String value) throws XMLStreamException {
+        start(name);
+        getXmlWriter().writeNamespace(W3CConstants.NS_XS_PREFIX, W3CConstants.NS_XS);
+        writeXsiType(type);
+        chars(value);
+        endInline(name);
+    }
+
+    /**
+     * Write om:featureOfInterest as xlink:href to a feature that was already
+     * written to the current document
+     *
+     * @param reference
+     *            Reference to write
+     * @throws XMLStreamException
+     *             If an error occurs when writing to stream
+     */
+    private void writeFeatureOfInterestReference(ReferenceType reference) throws XMLStreamException {
+        empty(OmConstants.QN_OM_20_FEATURE_OF_INTEREST);
+        addXlinkHrefAttr(reference.getHref());
+        if (reference.isSetTitle()) {
+            addXlinkTitleAttr(reference.getTitle());
+        }
+    }
+
+    /**
+     * Remember how the feature was written to the current document so that
+     * further observations of the same feature can reference it without
+     * encoding the feature again.
+     *
+     * @param feature
+     *            The written feature
+     * @param xmlObject
+     *            The encoded feature
+     * @param referenced
+     *            Indicator whether the feature was already referenced by
+     *            gml:id before encoding
+     * @param encodingValues
+     *            {@link EncodingValues} of the current document
+     */
+    private void rememberEncodedFeature(AbstractFeature feature, XmlObject xmlObject, boolean referenced,
+            EncodingValues encodingValues) {
+        if (!feature.isSetIdentifier()) {
+            return;
+        }
+        if (xmlObject instanceof FeaturePropertyType && ((FeaturePropertyType) xmlObject).isSetHref()
+                && ((FeaturePropertyType) xmlObject).getAbstractFeature() == null) {
+            FeaturePropertyType featurePropertyType = (FeaturePropertyType) xmlObject;
+            ReferenceType reference = new ReferenceType(featurePropertyType.getHref());
+            if (featurePropertyType.isSetTitle()) {
+                reference.setTitle(featurePropertyType.getTitle());
+            }
+            encodingValues.addEncodedFeature(feature.getIdentifier(), reference);
+        } else if (!referenced && feature.isSetGmlID()) {
+            encodingValues.addEncodedFeature(feature.getIdentifier(),
+                    new ReferenceType(Constants.NUMBER_SIGN_STRING + feature.getGmlId()));
+        }
+    }
+
+    /**
+     * Print a double value like XML schema xs:double
+     *
+     * @param value
+     *            Value to print
+     * @return Printed value
+     */
+    private String printDouble(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "INF";
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            return "-INF";
+        } else if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        return Double.toString(value);
+    }
+
     /**
      * Add gml:id to om:OM_Observation element
      *
@@ -28,11 +28,35 @@
  */
 package org.n52.sos.encode.streaming;
 
+import java.util.List;
+
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 
 import org.n52.sos.encode.EncodingValues;
+import org.n52.sos.ogc.om.AbstractObservationValue;
+import org.n52.sos.ogc.om.MultiObservationValues;
+import org.n52.sos.ogc.om.OmConstants;
 import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.SingleObservationValue;
+import org.n52.sos.ogc.om.values.BooleanValue;
+import org.n52.sos.ogc.om.values.CategoryValue;
+import org.n52.sos.ogc.om.values.CountValue;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.om.values.TextValue;
+import org.n52.sos.ogc.om.values.Value;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.swe.SweAbstractDataComponent;
+import org.n52.sos.ogc.swe.SweConstants;
+import org.n52.sos.ogc.swe.SweDataArray;
+import org.n52.sos.ogc.swe.SweDataArrayColumns;
+import org.n52.sos.ogc.swe.SweDataRecord;
+import org.n52.sos.ogc.swe.encoding.SweTextEncoding;
+import org.n52.sos.ogc.swe.simpleType.SweCount;
+import org.n52.sos.util.CodingHelper;
+import org.n52.sos.util.Constants;
+import org.n52.sos.util.OMHelper;
+import org.n52.sos.util.SweHelper;
 
 /**
  * Implementation of {@link AbstractOmV20XmlStreamWriter} to write O&M 2.0 encoded
@@ -44,6 +68,34 @@ import org.n52.sos.ogc.ows.OwsExceptionReport;
  */
 public class OmV20XmlStreamWriter extends AbstractOmV20XmlStreamWriter {
 
+    private static final QName QN_ELEMENT_COUNT = new QName(SweConstants.NS_SWE_20, "elementCount",
+            SweConstants.NS_SWE_PREFIX);
+
+    private static final QName QN_ELEMENT_TYPE = new QName(SweConstants.NS_SWE_20, "elementType",
+            SweConstants.NS_SWE_PREFIX);
+
+    private static final QName QN_ENCODING = new QName(SweConstants.NS_SWE_20, "encoding",
+            SweConstants.NS_SWE_PREFIX);
+
+    private static final QName QN_VALUES = new QName(SweConstants.NS_SWE_20, "values", SweConstants.NS_SWE_PREFIX);
+
+    private static final String SWE_DATA_ARRAY_TYPE = SweConstants.NS_SWE_PREFIX + Constants.COLON_STRING
+            + "DataArrayType";
+
+    private static final String DEFAULT_ELEMENT_TYPE_NAME = "Components";
+
+    private static final String AN_NAME = "name";
+
+    private static final String AN_BLOCK_SEPARATOR = "blockSeparator";
+
+    private static final String AN_COLLAPSE_WHITE_SPACES = "collapseWhiteSpaces";
+
+    private static final String AN_DECIMAL_SEPARATOR = "decimalSeparator";
+
+    private static final String AN_TOKEN_SEPARATOR = "tokenSeparator";
+
+    private final SweHelper helper = new SweHelper();
+
     /**
      * constructor
      */
@@ -62,11 +114,195 @@ public class OmV20XmlStreamWriter extends AbstractOmV20XmlStreamWriter {
     @Override
     protected void writeResult(OmObservation observation, EncodingValues encodingValues) throws XMLStreamException,
             OwsExceptionReport {
+        if (OmConstants.NS_OM_2.equals(encodingValues.getEncodingNamespace())
+                && observation.getValue() instanceof AbstractObservationValue<?>) {
+            AbstractObservationValue<?> observationValue = (AbstractObservationValue<?>) observation.getValue();
+            observationValue.setValuesForResultEncoding(observation);
+            if (writeResultValue(observationValue)) {
+                return;
+            }
+        }
         super.writeResult(observation, encodingValues);
     }
 
+    /**
+     * Write the om:result of the common O&M 2.0 observation types directly to
+     * stream.
+     *
+     * @param observationValue
+     *            the observation value to write
+     * @return <code>true</code>, if the result was written, <code>false</code>
+     *         if the result has to be encoded with the encoder
+     * @throws XMLStreamException
+     *             If an error occurs when writing to stream
+     * @throws OwsExceptionReport
+     *             If an error occurs when creating elements to be written
+     */
+    protected boolean writeResultValue(AbstractObservationValue<?> observationValue) throws XMLStreamException,
+            OwsExceptionReport {
+        if (observationValue instanceof SingleObservationValue) {
+            Value<?> value = ((SingleObservationValue<?>) observationValue).getValue();
+            String observationType;
+            if (observationValue.isSetObservationType()) {
+                observationType = observationValue.getObservationType();
+            } else {
+                observationType = OMHelper.getObservationTypeFor(value);
+            }
+            if (OmConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION.equals(observationType)) {
+                return writeDataArrayResult(helper.createSosSweDataArray(observationValue));
+            }
+            return writeSingleResult(observationType, value);
+        } else if (observationValue instanceof MultiObservationValues) {
+            return writeDataArrayResult(helper.createSosSweDataArray(observationValue));
+        }
+        return false;
+    }
+
     @Override
     protected void writeAddtitionalNamespaces() throws XMLStreamException {
         // nothing to write
     }
+
+    private boolean writeSingleResult(String observationType, Value<?> value) throws XMLStreamException {
+        if (OmConstants.OBS_TYPE_MEASUREMENT.equals(observationType) && value instanceof QuantityValue) {
+            if (!value.isSetValue()) {
+                // let the encoder report the missing value
+                return false;
+            }
+            writeSimpleValue(OmConstants.QN_OM_20_RESULT, value);
+        } else if (OmConstants.OBS_TYPE_CATEGORY_OBSERVATION.equals(observationType)
+                && value instanceof CategoryValue) {
+            if (value.isSetValue() && !((CategoryValue) value).getValue().isEmpty()) {
+                writeSimpleValue(OmConstants.QN_OM_20_RESULT, value);
+            } else {
+                empty(OmConstants.QN_OM_20_RESULT);
+            }
+        } else if (OmConstants.OBS_TYPE_COUNT_OBSERVATION.equals(observationType) && value instanceof CountValue) {
+            if (value.isSetValue() && ((CountValue) value).getValue() != Integer.MIN_VALUE) {
+                writeSimpleValue(OmConstants.QN_OM_20_RESULT, value);
+            } else {
+                writeNilValue(OmConstants.QN_OM_20_RESULT, XS_INTEGER);
+            }
+        } else if (OmConstants.OBS_TYPE_TRUTH_OBSERVATION.equals(observationType) && value instanceof BooleanValue) {
+            if (value.isSetValue()) {
+                writeSimpleValue(OmConstants.QN_OM_20_RESULT, value);
+            } else {
+                writeNilValue(OmConstants.QN_OM_20_RESULT, XS_BOOLEAN);
+            }
+        } else if (OmConstants.OBS_TYPE_TEXT_OBSERVATION.equals(observationType) && value instanceof TextValue) {
+            if (value.isSetValue()) {
+                writeSimpleValue(OmConstants.QN_OM_20_RESULT, value);
+            } else {
+                writeNilValue(OmConstants.QN_OM_20_RESULT, XS_STRING);
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Write swe:DataArray as om:result to stream. Only the swe:elementType is
+     * encoded with XmlBeans, the swe:values are written block by block.
+     */
+    private boolean writeDataArrayResult(SweDataArray dataArray) throws XMLStreamException, OwsExceptionReport {
+        if (!isStreamableDataArray(dataArray)) {
+            return false;
+        }
+        SweTextEncoding encoding = (SweTextEncoding) dataArray.getEncoding();
+        SweAbstractDataComponent elementType = dataArray.getElementType();
+        start(OmConstants.QN_OM_20_RESULT);
+        getXmlWriter().writeNamespace(SweConstants.NS_SWE_PREFIX, SweConstants.NS_SWE_20);
+        writeXsiType(SWE_DATA_ARRAY_TYPE);
+        start(QN_ELEMENT_COUNT);
+        start(SweConstants.QN_COUNT_SWE_200);
+        SweCount elementCount = dataArray.getElementCount();
+        if (elementCount.isSetValue()) {
+            start(SweConstants.QN_VALUE_SWE_200);
+            chars(Integer.toString(elementCount.getValue().intValue()));
+            endInline(SweConstants.QN_VALUE_SWE_200);
+        }
+        end(SweConstants.QN_COUNT_SWE_200);
+        end(QN_ELEMENT_COUNT);
+        start(QN_ELEMENT_TYPE);
+        attr(AN_NAME, DEFAULT_ELEMENT_TYPE_NAME);
+        writeNewLine();
+        writeXmlObject(CodingHelper.encodeObjectToXml(SweConstants.NS_SWE_20, elementType),
+                SweConstants.QN_DATA_RECORD_SWE_200);
+        end(QN_ELEMENT_TYPE);
+        start(QN_ENCODING);
+        empty(SweConstants.QN_TEXT_ENCODING_SWE_200);
+        if (encoding.getBlockSeparator() != null) {
+            attr(AN_BLOCK_SEPARATOR, encoding.getBlockSeparator());
+        }
+        if (encoding.isSetCollapseWhiteSpaces()) {
+            attr(AN_COLLAPSE_WHITE_SPACES, Boolean.toString(encoding.isCollapseWhiteSpaces()));
+        }
+        if (encoding.getDecimalSeparator() != null) {
+            attr(AN_DECIMAL_SEPARATOR, encoding.getDecimalSeparator());
+        }
+        if (encoding.getTokenSeparator() != null) {
+            attr(AN_TOKEN_SEPARATOR, encoding.getTokenSeparator());
+        }
+        end(QN_ENCODING);
+        if (dataArray.isSetValues()) {
+            start(QN_VALUES);
+            writeValues(dataArray.getValues(), encoding.getTokenSeparator(), encoding.getBlockSeparator());
+            endInline(QN_VALUES);
+        }
+        end(OmConstants.QN_OM_20_RESULT);
+        return true;
+    }
+
+    private void writeValues(List<List<String>> values, String tokenSeparator, String blockSeparator)
+            throws XMLStreamException {
+        if (values instanceof SweDataArrayColumns) {
+            SweDataArrayColumns columns = (SweDataArrayColumns) values;
+            StringBuilder builder = new StringBuilder(128);
+            for (int row = 0; row < columns.size(); row++) {
+                if (row > 0) {
+                    chars(blockSeparator);
+                }
+                builder.setLength(0);
+                chars(columns.appendBlock(builder, row, tokenSeparator).toString());
+            }
+            return;
+        }
+        boolean firstBlock = true;
+        for (List<String> block : values) {
+            if (!firstBlock) {
+                chars(blockSeparator);
+            }
+            boolean firstToken = true;
+            for (String token : block) {
+                if (!firstToken) {
+                    chars(tokenSeparator);
+                }
+                chars(token);
+                firstToken = false;
+            }
+            firstBlock = false;
+        }
+    }
+
+    /**
+     * Check whether the swe:DataArray could be written directly to stream.
+     * Arrays with XML representation, non-text encodings or element types
+     * that carry additional attributes are left to the encoder.
+     */
+    private boolean isStreamableDataArray(SweDataArray dataArray) {
+        if (dataArray == null || dataArray.isSetXml() || !(dataArray.getEncoding() instanceof SweTextEncoding)
+                || !(dataArray.getElementType() instanceof SweDataRecord)) {
+            return false;
+        }
+        SweAbstractDataComponent elementType = dataArray.getElementType();
+        SweCount elementCount = dataArray.getElementCount();
+        SweTextEncoding encoding = (SweTextEncoding) dataArray.getEncoding();
+        return !elementType.isSetXml() && !elementType.isSetDescription() && !elementType.isSetIdentifier()
+                && !elementType.isSetLabel() && !elementType.isSetDefinition()
+                && !elementCount.isSetContstraint() && !elementCount.isSetQuality()
+                && (!dataArray.isSetValues() || encoding.getTokenSeparator() != null
+                        && encoding.getBlockSeparator() != null);
+    }
+
 }
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.encode.streaming.sos.v2;
+
+import java.io.OutputStream;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.n52.sos.encode.EncodingValues;
+import org.n52.sos.encode.XmlStreamWriter;
+import org.n52.sos.encode.streaming.StreamingDataEncoder;
+import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.Sos2Constants;
+import org.n52.sos.ogc.sos.Sos2StreamingConstants;
+import org.n52.sos.ogc.sos.StreamingResultValues;
+import org.n52.sos.response.GetResultResponse;
+import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.w3c.SchemaLocation;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Implementation of {@link XmlStreamWriter} for {@link GetResultResponse}.
+ * {@link StreamingResultValues} are written block by block.
+ *
+ * @since 4.4.0
+ *
+ */
+public class GetResultResponseXmlStreamWriter extends XmlStreamWriter<GetResultResponse> implements
+        StreamingDataEncoder {
+
+    private GetResultResponse response;
+
+    /**
+     * constructor
+     */
+    public GetResultResponseXmlStreamWriter() {
+    }
+
+    /**
+     * constructor
+     *
+     * @param response
+     *            {@link GetResultResponse} to write to stream
+     */
+    public GetResultResponseXmlStreamWriter(GetResultResponse response) {
+        setResponse(response);
+    }
+
+    @Override
+    public void write(OutputStream out) throws XMLStreamException, OwsExceptionReport {
+        write(getResponse(), out);
+    }
+
+    @Override
+    public void write(OutputStream out, EncodingValues encodingValues) throws XMLStreamException, OwsExceptionReport {
+        write(getResponse(), out, encodingValues);
+    }
+
+    @Override
+    public void write(GetResultResponse response, OutputStream out) throws XMLStreamException, OwsExceptionReport {
+        write(response, out, new EncodingValues());
+    }
+
+    @Override
+    public void write(GetResultResponse response, OutputStream out, EncodingValues encodingValues)
+            throws XMLStreamException, OwsExceptionReport {
+        try {
+            init(out, encodingValues);
+            start(encodingValues.isEmbedded());
+            writeGetResultResponseDoc(response, encodingValues);
+            end();
+            finish();
+        } catch (XMLStreamException xmlse) {
+            throw new NoApplicableCodeException().causedBy(xmlse);
+        }
+    }
+
+    /**
+     * Set the {@link GetResultResponse} to be written to stream
+     *
+     * @param response
+     *            {@link GetResultResponse} to write to stream
+     */
+    protected void setResponse(GetResultResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * Get the {@link GetResultResponse} to write to stream
+     *
+     * @return {@link GetResultResponse} to write
+     */
+    protected GetResultResponse getResponse() {
+        return response;
+    }
+
+    private void writeGetResultResponseDoc(GetResultResponse response, EncodingValues encodingValues)
+            throws XMLStreamException, OwsExceptionReport {
+        start(Sos2Constants.QN_GET_RESULT_RESPONSE);
+        namespace(Sos2StreamingConstants.NS_SOS_PREFIX, Sos2StreamingConstants.NS_SOS_20);
+        schemaLocation(getSchemaLocation(encodingValues));
+        writeNewLine();
+        start(Sos2StreamingConstants.QN_RESULT_VALUES);
+        if (response.hasStreamingData()) {
+            StreamingResultValues values = response.getStreamingResultValues();
+            while (values.hasNextValues()) {
+                chars(values.nextValues(), false);
+            }
+        } else if (response.hasResultValues()) {
+            chars(response.getResultValues(), false);
+        }
+        endInline(Sos2StreamingConstants.QN_RESULT_VALUES);
+        writeNewLine();
+        end(Sos2Constants.QN_GET_RESULT_RESPONSE);
+    }
+
+    private Set<SchemaLocation> getSchemaLocation(EncodingValues encodingValue) {
+        Set<SchemaLocation> schemaLocations = Sets.newHashSet();
+        if (encodingValue.isSetEncoder()
+                && CollectionHelper.isNotEmpty(encodingValue.getEncoder().getSchemaLocations())) {
+            schemaLocations.addAll(encodingValue.getEncoder().getSchemaLocations());
+        } else {
+            schemaLocations.add(Sos2Constants.SOS_GET_RESULT_SCHEMA_LOCATION);
+        }
+        return schemaLocations;
+    }
+
+}
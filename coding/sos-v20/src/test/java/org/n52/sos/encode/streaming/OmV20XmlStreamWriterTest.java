@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.encode.streaming;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ErrorCollector;
+import org.w3c.dom.Node;
+
+import org.n52.sos.encode.EncodingValues;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.gml.GmlConstants;
+import org.n52.sos.ogc.gml.ReferenceType;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.om.NamedValue;
+import org.n52.sos.ogc.om.OmConstants;
+import org.n52.sos.ogc.om.OmObservableProperty;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.SingleObservationValue;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.om.values.BooleanValue;
+import org.n52.sos.ogc.om.values.CountValue;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.om.values.TextValue;
+import org.n52.sos.ogc.om.values.Value;
+import org.n52.sos.ogc.sensorML.SensorML;
+import org.n52.sos.service.Configurator;
+import org.n52.sos.service.profile.DefaultProfileHandler;
+import org.n52.sos.w3c.W3CConstants;
+
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.Iterators;
+
+/**
+ * Test for the direct stream writing of {@link OmV20XmlStreamWriter}
+ *
+ * @since 4.4.0
+ *
+ */
+public class OmV20XmlStreamWriterTest {
+
+    private static final String CODE_SPACE = "codespace";
+
+    private static final String FEATURE = "feature";
+
+    @Rule
+    public final ErrorCollector errors = new ErrorCollector();
+
+    @Before
+    public void init() {
+        Configurator configurator = mock(Configurator.class);
+        when(configurator.getProfileHandler()).thenReturn(new DefaultProfileHandler());
+        Configurator.setInstance(configurator);
+    }
+
+    @Test
+    public void shouldWriteMeasurementResult() throws Exception {
+        Node node = write(createObservation(OmConstants.OBS_TYPE_MEASUREMENT, new QuantityValue(42.5, "m")),
+                createEncodingValues());
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result/@xsi:type", is("gml:MeasureType")));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result/@uom", is("m")));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result", is("42.5")));
+    }
+
+    @Test
+    public void shouldWriteCountResult() throws Exception {
+        Node node = write(createObservation(OmConstants.OBS_TYPE_COUNT_OBSERVATION, new CountValue(52)),
+                createEncodingValues());
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result/@xsi:type", is("xs:integer")));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result", is("52")));
+    }
+
+    @Test
+    public void shouldWriteTruthResult() throws Exception {
+        Node node = write(createObservation(OmConstants.OBS_TYPE_TRUTH_OBSERVATION, new BooleanValue(true)),
+                createEncodingValues());
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result/@xsi:type", is("xs:boolean")));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result", is("true")));
+    }
+
+    @Test
+    public void shouldWriteEscapedTextResult() throws Exception {
+        Node node = write(createObservation(OmConstants.OBS_TYPE_TEXT_OBSERVATION, new TextValue("a < b & c")),
+                createEncodingValues());
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result/@xsi:type", is("xs:string")));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result", is("a < b & c")));
+    }
+
+    @Test
+    public void shouldWriteNilForMissingTextResult() throws Exception {
+        Node node = write(createObservation(OmConstants.OBS_TYPE_TEXT_OBSERVATION, new TextValue(null)),
+                createEncodingValues());
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:result/@xsi:nil", is("true")));
+    }
+
+    @Test
+    public void shouldWriteIdentifierAndParameter() throws Exception {
+        OmObservation observation =
+                createObservation(OmConstants.OBS_TYPE_MEASUREMENT, new QuantityValue(42.5, "m"));
+        observation.setIdentifier(new CodeWithAuthority("observation", CODE_SPACE));
+        NamedValue<Double> parameter = new NamedValue<Double>();
+        parameter.setName(new ReferenceType("http://example.tld/parameter/depth"));
+        parameter.setValue(new QuantityValue(2.0, "m"));
+        observation.addParameter(parameter);
+        Node node = write(observation, createEncodingValues());
+        errors.checkThat(node, hasXPath("/om:OM_Observation/gml:identifier/@codeSpace", is(CODE_SPACE)));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/gml:identifier", is("observation")));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:parameter/om:NamedValue/om:name/@xlink:href",
+                is("http://example.tld/parameter/depth")));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:parameter/om:NamedValue/om:value/@uom", is("m")));
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:parameter/om:NamedValue/om:value", is("2.0")));
+    }
+
+    @Test
+    public void shouldReferenceAlreadyWrittenFeature() throws Exception {
+        EncodingValues encodingValues = createEncodingValues();
+        encodingValues.addEncodedFeature(FEATURE, new ReferenceType("#sf_1"));
+        Node node = write(createObservation(OmConstants.OBS_TYPE_MEASUREMENT, new QuantityValue(42.5, "m")),
+                encodingValues);
+        errors.checkThat(node, hasXPath("/om:OM_Observation/om:featureOfInterest/@xlink:href", is("#sf_1")));
+        errors.checkThat(node, hasXPath("count(/om:OM_Observation/om:featureOfInterest/*)", is("0")));
+    }
+
+    private EncodingValues createEncodingValues() {
+        return new EncodingValues().setEncodingNamespace(OmConstants.NS_OM_2);
+    }
+
+    private Node write(OmObservation observation, EncodingValues encodingValues) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new OmV20XmlStreamWriter().write(observation, out, encodingValues);
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private OmObservation createObservation(String observationType, Value<?> value) {
+        DateTime now = new DateTime(DateTimeZone.UTC);
+        OmObservation observation = new OmObservation();
+        OmObservationConstellation observationConstellation = new OmObservationConstellation();
+        observationConstellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority(FEATURE,
+                CODE_SPACE)));
+        observationConstellation.setObservableProperty(new OmObservableProperty("observableProperty"));
+        observationConstellation.setObservationType(observationType);
+        SensorML procedure = new SensorML();
+        procedure.setIdentifier(new CodeWithAuthority("procedure", CODE_SPACE));
+        observationConstellation.setProcedure(procedure);
+        observation.setObservationConstellation(observationConstellation);
+        observation.setResultTime(new TimeInstant(now));
+        observation.setValue(new SingleObservationValue<>(new TimeInstant(now), value));
+        return observation;
+    }
+
+    private Matcher<Node> hasXPath(String path, Matcher<String> value) {
+        return Matchers.hasXPath(path, new NamespaceContextImpl(), value);
+    }
+
+    private class NamespaceContextImpl implements NamespaceContext {
+        private final ImmutableBiMap<String, String> map = ImmutableBiMap.<String, String> builder()
+                .put(OmConstants.NS_OM_PREFIX, OmConstants.NS_OM_2)
+                .put(W3CConstants.NS_XSI_PREFIX, W3CConstants.NS_XSI)
+                .put(W3CConstants.NS_XLINK_PREFIX, W3CConstants.NS_XLINK)
+                .put(GmlConstants.NS_GML_PREFIX, GmlConstants.NS_GML_32)
+                .build();
+
+        @Override
+        public String getNamespaceURI(String prefix) {
+            return map.get(prefix);
+        }
+
+        @Override
+        public String getPrefix(String namespaceURI) {
+            return map.inverse().get(namespaceURI);
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(String namespaceURI) {
+            return Iterators.singletonIterator(getPrefix(namespaceURI));
+        }
+    }
+}
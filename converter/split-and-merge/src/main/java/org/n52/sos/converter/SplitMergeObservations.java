@@ -66,6 +66,8 @@ import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.Sos1Constants;
 import org.n52.sos.ogc.sos.Sos2Constants;
 import org.n52.sos.ogc.sos.SosConstants;
+import org.n52.sos.ogc.swe.SweDataArrayColumns;
+import org.n52.sos.ogc.swe.SweDataArrayColumns.ColumnType;
 import org.n52.sos.ogc.swe.SweDataRecord;
 import org.n52.sos.ogc.swe.SweField;
 import org.n52.sos.ogc.swe.simpleType.SweAbstractUomType;
@@ -194,6 +196,8 @@ public class SplitMergeObservations
                 observationConstellation.setObservationType(getObservationTypeFromElementType(
                         (SweDataRecord) sweDataArrayValue.getValue().getElementType(),
                         observationConstellation.getObservableProperty()));
+                // typed columns are read without parsing the tokens
+                final SweDataArrayColumns columns = sweDataArrayValue.getValue().getColumns();
                 // split into single observation
                 for (final List<String> block : sweDataArrayValue.getValue().getValues()) {
                     LOGGER.debug("Processing block {}/{}", ++counter, sweDataArrayValue.getValue().getValues().size());
@@ -209,6 +213,8 @@ public class SplitMergeObservations
                     Time phenomenonTime;
                     if (phenomenonTimeIndex == -1) {
                         phenomenonTime = observation.getPhenomenonTime();
+                    } else if (columns != null && columns.getColumnType(phenomenonTimeIndex) == ColumnType.TIME) {
+                        phenomenonTime = new TimeInstant(columns.getDateTime(counter - 1, phenomenonTimeIndex));
                     } else {
                         phenomenonTime = DateTimeHelper.parseIsoString2DateTime2Time(block.get(phenomenonTimeIndex));
                     }
@@ -223,6 +229,8 @@ public class SplitMergeObservations
                         } else {
                             newObservation.setResultTime(observation.getResultTime());
                         }
+                    } else if (columns != null) {
+                        newObservation.setResultTime(new TimeInstant(columns.getDateTime(counter - 1, resultTimeIndex)));
                     } else {
                         newObservation.setResultTime(
                                 new TimeInstant(DateTimeHelper.parseIsoString2DateTime(block.get(resultTimeIndex))));
@@ -231,10 +239,18 @@ public class SplitMergeObservations
                         newObservation.setParameter(observation.getParameter());
                     }
                     // value
-                    final ObservationValue<?> value = createObservationResultValue(
-                            observationConstellation.getObservationType(), block.get(resultValueIndex), phenomenonTime,
-                            ((SweDataRecord) sweDataArrayValue.getValue().getElementType()).getFields()
-                                    .get(resultValueIndex));
+                    final SweField resultDefinitionField = ((SweDataRecord) sweDataArrayValue.getValue()
+                            .getElementType()).getFields().get(resultValueIndex);
+                    final ObservationValue<?> value;
+                    if (columns != null && observationConstellation.getObservationType().equalsIgnoreCase(
+                            OmConstants.OBS_TYPE_MEASUREMENT)) {
+                        value = createQuantityValue(columns.getDouble(counter - 1, resultValueIndex),
+                                resultDefinitionField);
+                        value.setPhenomenonTime(phenomenonTime);
+                    } else {
+                        value = createObservationResultValue(observationConstellation.getObservationType(),
+                                block.get(resultValueIndex), phenomenonTime, resultDefinitionField);
+                    }
                     newObservation.setValue(value);
                     finalObservationCollection.add(newObservation);
                 }
@@ -255,9 +271,7 @@ public class SplitMergeObservations
         } else if (observationType.equalsIgnoreCase(OmConstants.OBS_TYPE_COUNT_OBSERVATION)) {
             value = new SingleObservationValue<Integer>(new CountValue(Integer.parseInt(valueString)));
         } else if (observationType.equalsIgnoreCase(OmConstants.OBS_TYPE_MEASUREMENT)) {
-            final QuantityValue quantity = new QuantityValue(Double.parseDouble(valueString));
-            quantity.setUnit(getUom(resultDefinitionField));
-            value = new SingleObservationValue<Double>(quantity);
+            value = createQuantityValue(Double.parseDouble(valueString), resultDefinitionField);
         } else if (observationType.equalsIgnoreCase(OmConstants.OBS_TYPE_CATEGORY_OBSERVATION)) {
             final CategoryValue cat = new CategoryValue(valueString);
             cat.setUnit(getUom(resultDefinitionField));
@@ -275,6 +289,12 @@ public class SplitMergeObservations
         return value;
     }
 
+    private SingleObservationValue<Double> createQuantityValue(final double doubleValue, final SweField resultDefinitionField) {
+        final QuantityValue quantity = new QuantityValue(doubleValue);
+        quantity.setUnit(getUom(resultDefinitionField));
+        return new SingleObservationValue<Double>(quantity);
+    }
+
     private String getUom(final SweField resultDefinitionField) {
         return ((SweAbstractUomType<?>) resultDefinitionField.getElement()).getUom();
     }
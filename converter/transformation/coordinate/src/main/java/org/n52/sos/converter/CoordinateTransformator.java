@@ -849,18 +849,23 @@ public class CoordinateTransformator implements
      */
     private void checkResponseObservations(List<OmObservation> observations, int targetCRS) throws OwsExceptionReport {
         if (CollectionHelper.isNotEmpty(observations)) {
+            // observations of the same feature share its geometry, so each
+            // feature geometry is transformed only once per response
+            Map<Geometry, Geometry> transformed = Maps.newIdentityHashMap();
+            List<NamedValue<Geometry>> samplingGeometries = Lists.newArrayList();
             for (OmObservation omObservation : observations) {
                 if (omObservation.getObservationConstellation().getFeatureOfInterest() instanceof SamplingFeature)
                     checkResponseGeometryOfSamplingFeature((SamplingFeature) omObservation
-                            .getObservationConstellation().getFeatureOfInterest(), targetCRS);
+                            .getObservationConstellation().getFeatureOfInterest(), targetCRS, transformed);
                 if (omObservation.isSetParameter()) {
-                    checkOmParameterForGeometry(omObservation.getParameter(), targetCRS);
+                    samplingGeometries.addAll(getSamplingGeometryParameters(omObservation.getParameter()));
                 }
                 if (omObservation.getValue() instanceof AbstractStreaming) {
                     ((AbstractStreaming) omObservation.getValue()).add(OWSConstants.AdditionalRequestParams.crs,
                             targetCRS);
                 }
             }
+            transformSamplingGeometries(samplingGeometries, targetCRS);
         }
     }
 
@@ -892,9 +897,35 @@ public class CoordinateTransformator implements
      */
     private void checkResponseGeometryOfSamplingFeature(SamplingFeature samplingFeature, int targetCRS)
             throws OwsExceptionReport {
+        checkResponseGeometryOfSamplingFeature(samplingFeature, targetCRS,
+                Maps.<Geometry, Geometry> newIdentityHashMap());
+    }
+
+    /**
+     * Check and transform the {@link SamplingFeature} geometry to requested or
+     * default response EPSG code if necessary, reusing the already transformed
+     * geometries of the response
+     * 
+     * @param samplingFeature
+     *            the {@link SamplingFeature}
+     * @param targetCrs
+     *            Target EPSG code
+     * @param transformed
+     *            Transformed geometries by source geometry
+     * @throws OwsExceptionReport
+     *             If the transformation fails
+     */
+    private void checkResponseGeometryOfSamplingFeature(SamplingFeature samplingFeature, int targetCRS,
+            Map<Geometry, Geometry> transformed) throws OwsExceptionReport {
         if (samplingFeature.isSetGeometry()) {
-            if (samplingFeature.getGeometry().getSRID() != targetCRS) {
-                samplingFeature.setGeometry(getGeomtryHandler().transform(samplingFeature.getGeometry(), targetCRS));
+            Geometry geometry = samplingFeature.getGeometry();
+            if (geometry.getSRID() != targetCRS) {
+                Geometry transformedGeometry = transformed.get(geometry);
+                if (transformedGeometry == null) {
+                    transformedGeometry = getGeomtryHandler().transform(geometry, targetCRS);
+                    transformed.put(geometry, transformedGeometry);
+                }
+                samplingFeature.setGeometry(transformedGeometry);
             }
         }
     }
@@ -914,11 +945,19 @@ public class CoordinateTransformator implements
         if (feature != null) {
             if (feature instanceof FeatureCollection) {
                 FeatureCollection featureCollection = (FeatureCollection) feature;
+                List<SamplingFeature> samplingFeatures = Lists.newArrayList();
+                List<Geometry> geometries = Lists.newArrayList();
                 for (AbstractFeature abstractFeature : featureCollection.getMembers().values()) {
-                    if (abstractFeature instanceof SamplingFeature) {
-                        checkResponseGeometryOfSamplingFeature((SamplingFeature) abstractFeature, targetCRS);
+                    if (abstractFeature instanceof SamplingFeature
+                            && ((SamplingFeature) abstractFeature).isSetGeometry()) {
+                        samplingFeatures.add((SamplingFeature) abstractFeature);
+                        geometries.add(((SamplingFeature) abstractFeature).getGeometry());
                     }
                 }
+                List<Geometry> transformed = getGeomtryHandler().transform(geometries, targetCRS);
+                for (int i = 0; i < samplingFeatures.size(); i++) {
+                    samplingFeatures.get(i).setGeometry(transformed.get(i));
+                }
             } else if (feature instanceof SamplingFeature) {
                 checkResponseGeometryOfSamplingFeature((SamplingFeature) feature, targetCRS);
             }
@@ -936,17 +975,54 @@ public class CoordinateTransformator implements
      * @throws OwsExceptionReport
      *             If the transformation fails
      */
-    @SuppressWarnings("unchecked")
     private void checkOmParameterForGeometry(Collection<NamedValue<?>> parameters, int targetCRS)
             throws OwsExceptionReport {
+        transformSamplingGeometries(getSamplingGeometryParameters(parameters), targetCRS);
+    }
+
+    /**
+     * Get the O&M parameters containing a geometry, e.g. SOS 2.0 Spatial
+     * Filtering Profile
+     * 
+     * @param parameters
+     *            O&M parameter to check
+     * @return the parameters containing a geometry
+     */
+    @SuppressWarnings("unchecked")
+    private List<NamedValue<Geometry>> getSamplingGeometryParameters(Collection<NamedValue<?>> parameters) {
+        List<NamedValue<Geometry>> samplingGeometries = Lists.newArrayList();
         for (NamedValue<?> namedValue : parameters) {
             if (Sos2Constants.HREF_PARAMETER_SPATIAL_FILTERING_PROFILE.equals(namedValue.getName().getHref())) {
-                NamedValue<Geometry> spatialFilteringProfileParameter = (NamedValue<Geometry>) namedValue;
-                spatialFilteringProfileParameter.getValue().setValue(
-                        getGeomtryHandler().transform(spatialFilteringProfileParameter.getValue().getValue(),
-                                targetCRS));
+                samplingGeometries.add((NamedValue<Geometry>) namedValue);
             }
         }
+        return samplingGeometries;
+    }
+
+    /**
+     * Transform the geometries of the O&M parameters to target EPSG code with
+     * a single batch transformation
+     * 
+     * @param samplingGeometries
+     *            O&M parameters containing a geometry
+     * @param targetCrs
+     *            Target EPSG code
+     * @throws OwsExceptionReport
+     *             If the transformation fails
+     */
+    private void transformSamplingGeometries(List<NamedValue<Geometry>> samplingGeometries, int targetCRS)
+            throws OwsExceptionReport {
+        if (samplingGeometries.isEmpty()) {
+            return;
+        }
+        List<Geometry> geometries = Lists.newArrayListWithCapacity(samplingGeometries.size());
+        for (NamedValue<Geometry> samplingGeometry : samplingGeometries) {
+            geometries.add(samplingGeometry.getValue().getValue());
+        }
+        List<Geometry> transformed = getGeomtryHandler().transform(geometries, targetCRS);
+        for (int i = 0; i < samplingGeometries.size(); i++) {
+            samplingGeometries.get(i).getValue().setValue(transformed.get(i));
+        }
     }
 
     private GeometryHandler getGeomtryHandler() {
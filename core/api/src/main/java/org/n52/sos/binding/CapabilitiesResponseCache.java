@@ -0,0 +1,330 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.binding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPOutputStream;
+
+import org.n52.sos.config.SettingsManager;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.event.SosEvent;
+import org.n52.sos.event.SosEventBus;
+import org.n52.sos.event.SosEventListener;
+import org.n52.sos.event.events.ActivationChangeEvent;
+import org.n52.sos.event.events.CapabilitiesExtensionChangeEvent;
+import org.n52.sos.event.events.ConfiguratorInitializedEvent;
+import org.n52.sos.event.events.ContentCacheUpdateEvent;
+import org.n52.sos.event.events.SettingsChangeEvent;
+import org.n52.sos.event.events.SosContentChangeEvent;
+import org.n52.sos.ogc.swe.simpleType.SweAbstractSimpleType;
+import org.n52.sos.ogc.swes.SwesExtension;
+import org.n52.sos.request.AbstractServiceRequest;
+import org.n52.sos.request.GetCapabilitiesRequest;
+import org.n52.sos.service.ServiceSettings;
+import org.n52.sos.util.http.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+
+/**
+ * Cache for the encoded GetCapabilities responses of the {@link SimpleBinding}
+ * s.
+ * <p/>
+ * The responses are cached per binding, service, version, accepted versions,
+ * sections, accepted formats, update sequence, extensions (e.g. language or
+ * CRS) and HTTP Accept header, holding the plain and the gzip encoded bytes
+ * and an entity tag. All entries are discarded if the content cache was
+ * updated, the settings, activated components or capabilities extensions
+ * changed or a transactional operation modified the contents of the service.
+ * <p/>
+ * The content cache may be updated asynchronously after a transactional
+ * operation. While such an update is pending, the responses are neither
+ * served from nor stored in this cache, so a response created from the
+ * outdated content cache does not get cached with an entity tag.
+ * 
+ * @since 4.4.0
+ */
+@Configurable
+public class CapabilitiesResponseCache implements SosEventListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapabilitiesResponseCache.class);
+
+    private static final int MAXIMUM_SIZE = 64;
+
+    private static final Joiner KEY_JOINER = Joiner.on('\u0000').useForNull("");
+
+    private static final Joiner LIST_JOINER = Joiner.on('\u0001').useForNull("");
+
+    private static final Set<Class<? extends SosEvent>> TYPES = Sets.<Class<? extends SosEvent>> newHashSet(
+            ContentCacheUpdateEvent.class, SosContentChangeEvent.class, SettingsChangeEvent.class,
+            ActivationChangeEvent.class, CapabilitiesExtensionChangeEvent.class, ConfiguratorInitializedEvent.class);
+
+    private static CapabilitiesResponseCache instance = null;
+
+    private final Cache<String, CachedResponse> cache = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+
+    private long generation = 0;
+
+    private volatile boolean enabled = true;
+
+    public static synchronized CapabilitiesResponseCache getInstance() {
+        if (instance == null) {
+            instance = new CapabilitiesResponseCache();
+            SettingsManager.getInstance().configure(instance);
+            SosEventBus.getInstance().register(instance);
+        }
+        return instance;
+    }
+
+    CapabilitiesResponseCache() {
+    }
+
+    @Setting(ServiceSettings.CAPABILITIES_RESPONSE_CACHE)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            invalidate();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the cache key of the request.
+     * 
+     * @param binding
+     *            the binding that received the request
+     * @param request
+     *            the request
+     * @param acceptHeader
+     *            the HTTP Accept header of the request
+     * @return the cache key or <code>null</code> if the cache is disabled, a
+     *         content cache update is pending or the response to the request
+     *         should not be cached
+     */
+    public String getKey(Binding binding, AbstractServiceRequest<?> request, String acceptHeader) {
+        if (!isEnabled() || !(request instanceof GetCapabilitiesRequest) || isContentCacheUpdatePending()) {
+            return null;
+        }
+        GetCapabilitiesRequest gcr = (GetCapabilitiesRequest) request;
+        if (gcr.getExtensionArray() != null && !gcr.getExtensionArray().isEmpty()) {
+            return null;
+        }
+        String extensions = getExtensionKey(gcr);
+        if (extensions == null) {
+            return null;
+        }
+        return KEY_JOINER.join(binding.getClass().getName(), gcr.getService(), gcr.getVersion(),
+                LIST_JOINER.join(gcr.getAcceptVersions()), LIST_JOINER.join(gcr.getSections()),
+                LIST_JOINER.join(gcr.getAcceptFormats()), gcr.getUpdateSequence(), gcr.getCapabilitiesId(),
+                extensions, acceptHeader);
+    }
+
+    /**
+     * @return if a content modification is not yet applied to the content
+     *         cache
+     */
+    protected boolean isContentCacheUpdatePending() {
+        return SosEventBus.getInstance().isPending(SosContentChangeEvent.class);
+    }
+
+    /**
+     * Get the key of the extensions of the request. Only extensions with
+     * simple values are supported.
+     * 
+     * @param request
+     *            the request
+     * @return the key or <code>null</code> if an extension has a complex
+     *         value
+     */
+    private String getExtensionKey(AbstractServiceRequest<?> request) {
+        if (!request.isSetExtensions()) {
+            return "";
+        }
+        Set<String> extensions = new TreeSet<String>();
+        for (SwesExtension<?> extension : request.getExtensions().getExtensions()) {
+            Object value = extension.getValue();
+            String stringValue;
+            if (value instanceof SweAbstractSimpleType) {
+                SweAbstractSimpleType<?> simpleType = (SweAbstractSimpleType<?>) value;
+                stringValue = KEY_JOINER.join(simpleType.getDefinition(), simpleType.getIdentifier(),
+                        simpleType.isSetValue() ? simpleType.getStringValue() : null);
+            } else if (value == null || value instanceof String || value instanceof Number
+                    || value instanceof Boolean) {
+                stringValue = String.valueOf(value);
+            } else {
+                return null;
+            }
+            extensions.add(KEY_JOINER.join(extension.getNamespace(), extension.getIdentifier(),
+                    extension.getDefinition(), stringValue));
+        }
+        return LIST_JOINER.join(extensions);
+    }
+
+    /**
+     * @return the current generation of the cache, has to be passed to
+     *         {@link #put(String, long, CachedResponse)}
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Get the cached response.
+     * 
+     * @param key
+     *            the cache key
+     * @return the response or <code>null</code>
+     */
+    public CachedResponse get(String key) {
+        return key == null ? null : cache.getIfPresent(key);
+    }
+
+    /**
+     * Cache a response if the cache was not invalidated since the response was
+     * created.
+     * 
+     * @param key
+     *            the cache key
+     * @param generation
+     *            the generation of the cache before the response was created
+     * @param response
+     *            the response
+     */
+    public synchronized void put(String key, long generation, CachedResponse response) {
+        if (key != null && isEnabled() && this.generation == generation) {
+            cache.put(key, response);
+        }
+    }
+
+    /**
+     * Discard all cached responses.
+     */
+    public synchronized void invalidate() {
+        this.generation++;
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the number of cached responses
+     */
+    long size() {
+        return cache.size();
+    }
+
+    @Override
+    public Set<Class<? extends SosEvent>> getTypes() {
+        return Collections.unmodifiableSet(TYPES);
+    }
+
+    @Override
+    public void handle(SosEvent event) {
+        LOGGER.debug("Invalidating cached capabilities responses: {}", event);
+        invalidate();
+    }
+
+    /**
+     * Encoded GetCapabilities response.
+     */
+    public static class CachedResponse {
+        private final MediaType contentType;
+
+        private final byte[] bytes;
+
+        private final byte[] gzippedBytes;
+
+        private final String entityTag;
+
+        public CachedResponse(MediaType contentType, byte[] bytes) throws IOException {
+            this.contentType = contentType;
+            this.bytes = bytes;
+            this.gzippedBytes = gzip(bytes);
+            this.entityTag = "\"" + Hashing.murmur3_128().hashBytes(bytes).toString() + "\"";
+        }
+
+        public MediaType getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public byte[] getGzippedBytes() {
+            return gzippedBytes;
+        }
+
+        public String getEntityTag() {
+            return entityTag;
+        }
+
+        /**
+         * Check if the entity tags of an If-None-Match header match this
+         * response.
+         * 
+         * @param ifNoneMatch
+         *            the value of the If-None-Match header
+         * @return <code>true</code>, if the client has this response
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String trimmed = tag.trim();
+                if (trimmed.startsWith("W/")) {
+                    trimmed = trimmed.substring(2);
+                }
+                if (trimmed.equals("*") || trimmed.equals(entityTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static byte[] gzip(byte[] bytes) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, bytes.length / 4));
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(bytes);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -28,12 +28,15 @@
  */
 package org.n52.sos.binding;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.n52.sos.binding.CapabilitiesResponseCache.CachedResponse;
 import org.n52.sos.coding.CodingRepository;
 import org.n52.sos.coding.OperationKey;
 import org.n52.sos.decode.Decoder;
@@ -43,6 +46,9 @@ import org.n52.sos.encode.Encoder;
 import org.n52.sos.encode.EncoderKey;
 import org.n52.sos.encode.ExceptionEncoderKey;
 import org.n52.sos.encode.OperationEncoderKey;
+import org.n52.sos.encode.ResponseProxy;
+import org.n52.sos.encode.ResponseWriter;
+import org.n52.sos.encode.ResponseWriterRepository;
 import org.n52.sos.event.SosEventBus;
 import org.n52.sos.event.events.ExceptionEvent;
 import org.n52.sos.exception.HTTPException;
@@ -59,12 +65,15 @@ import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.request.AbstractServiceRequest;
 import org.n52.sos.request.GetCapabilitiesRequest;
 import org.n52.sos.request.RequestContext;
+import org.n52.sos.request.ResponseFormat;
 import org.n52.sos.response.AbstractServiceResponse;
 import org.n52.sos.response.ServiceResponse;
 import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.service.operator.ServiceOperator;
 import org.n52.sos.service.operator.ServiceOperatorKey;
 import org.n52.sos.service.operator.ServiceOperatorRepository;
+import org.n52.sos.util.http.HTTPConstants;
+import org.n52.sos.util.http.HTTPHeaders;
 import org.n52.sos.util.http.HTTPStatus;
 import org.n52.sos.util.http.HTTPUtils;
 import org.n52.sos.util.http.MediaType;
@@ -280,6 +289,100 @@ public abstract class SimpleBinding extends Binding {
         HTTPUtils.writeObject(request, response, contentType, serviceResponse, this);
     }
 
+    /**
+     * Pass the request to the {@link ServiceOperator} and write the response.
+     * GetCapabilities responses are served from and stored in the
+     * {@link CapabilitiesResponseCache}.
+     * 
+     * @param request
+     *            the HTTP request
+     * @param response
+     *            the HTTP response
+     * @param serviceRequest
+     *            the parsed request
+     * @throws OwsExceptionReport
+     *             if the request could not be processed
+     * @throws HTTPException
+     *             if the response could not be written
+     * @throws IOException
+     *             if the response could not be written
+     * @since 4.4.0
+     */
+    protected void processRequest(HttpServletRequest request, HttpServletResponse response,
+            AbstractServiceRequest<?> serviceRequest) throws OwsExceptionReport, HTTPException, IOException {
+        CapabilitiesResponseCache cache = CapabilitiesResponseCache.getInstance();
+        String key = cache.getKey(this, serviceRequest, request.getHeader(HTTPHeaders.ACCEPT));
+        if (key == null) {
+            writeResponse(request, response, getServiceOperator(serviceRequest).receiveRequest(serviceRequest));
+            return;
+        }
+        CachedResponse cached = cache.get(key);
+        if (cached == null) {
+            long generation = cache.getGeneration();
+            AbstractServiceResponse serviceResponse =
+                    getServiceOperator(serviceRequest).receiveRequest(serviceRequest);
+            cached = encodeCachedResponse(request, response, serviceResponse);
+            if (cached == null) {
+                // response was written directly
+                return;
+            }
+            cache.put(key, generation, cached);
+        } else {
+            LOG.debug("Writing cached {} response", serviceRequest.getOperationName());
+        }
+        writeCachedResponse(request, response, cached);
+    }
+
+    private CachedResponse encodeCachedResponse(HttpServletRequest request, HttpServletResponse response,
+            AbstractServiceResponse serviceResponse) throws OwsExceptionReport, HTTPException, IOException {
+        MediaType contentType = chooseResponseContentType(serviceResponse, HTTPUtils.getAcceptHeader(request),
+                getDefaultContentType());
+        if (!serviceResponse.isSetContentType()) {
+            serviceResponse.setContentType(contentType);
+        }
+        ResponseWriter<Object> writer = ResponseWriterRepository.getInstance().getWriter(serviceResponse.getClass());
+        if (writer == null) {
+            throw new RuntimeException("no writer for " + serviceResponse.getClass() + " found!");
+        }
+        writer.setContentType(contentType);
+        if (!writer.supportsGZip(serviceResponse)) {
+            // streaming encoders write directly to the response
+            HTTPUtils.writeObject(request, response, contentType, serviceResponse, this);
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(serviceResponse, out, new ResponseProxy(response));
+        MediaType encodedContentType;
+        if (serviceResponse instanceof ResponseFormat) {
+            encodedContentType = writer.getEncodedContentType((ResponseFormat) serviceResponse);
+        } else {
+            encodedContentType = writer.getContentType();
+        }
+        return new CachedResponse(encodedContentType, out.toByteArray());
+    }
+
+    private void writeCachedResponse(HttpServletRequest request, HttpServletResponse response, CachedResponse cached)
+            throws IOException {
+        response.setHeader(HTTPHeaders.ETAG, cached.getEntityTag());
+        response.setHeader(HTTPHeaders.VARY, HTTPHeaders.ACCEPT + ", " + HTTPHeaders.ACCEPT_ENCODING);
+        if (cached.matches(request.getHeader(HTTPHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HTTPStatus.NOT_MODIFIED.getCode());
+            return;
+        }
+        response.setContentType(cached.getContentType().toString());
+        byte[] bytes;
+        if (HTTPUtils.supportsGzipEncoding(request)) {
+            response.setHeader(HTTPHeaders.CONTENT_ENCODING, HTTPConstants.GZIP_ENCODING);
+            bytes = cached.getGzippedBytes();
+        } else {
+            bytes = cached.getBytes();
+        }
+        response.setContentLength(bytes.length);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(bytes);
+        }
+    }
+
     protected Object encodeResponse(AbstractServiceResponse response, MediaType contentType) throws OwsExceptionReport {
         OperationEncoderKey key = new OperationEncoderKey(response.getOperationKey(), contentType);
         Encoder<Object, AbstractServiceResponse> encoder = CodingRepository.getInstance().getEncoder(key);
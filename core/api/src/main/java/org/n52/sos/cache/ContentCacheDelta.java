@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+/**
+ * Outcome of an incremental cache update: the number of entities that were
+ * refreshed in the cache, or the reason why the changes could not be applied
+ * incrementally and a complete update is required.
+ *
+ * @since 4.4.0
+ */
+public class ContentCacheDelta {
+    private final int series;
+
+    private final int offerings;
+
+    private final int procedures;
+
+    private final int featuresOfInterest;
+
+    private final int observableProperties;
+
+    private final String completeUpdateReason;
+
+    public ContentCacheDelta(int series, int offerings, int procedures, int featuresOfInterest,
+            int observableProperties) {
+        this(series, offerings, procedures, featuresOfInterest, observableProperties, null);
+    }
+
+    private ContentCacheDelta(int series, int offerings, int procedures, int featuresOfInterest,
+            int observableProperties, String completeUpdateReason) {
+        this.series = series;
+        this.offerings = offerings;
+        this.procedures = procedures;
+        this.featuresOfInterest = featuresOfInterest;
+        this.observableProperties = observableProperties;
+        this.completeUpdateReason = completeUpdateReason;
+    }
+
+    /**
+     * Create a delta signaling that the cache could not be updated
+     * incrementally.
+     *
+     * @param reason
+     *            why a complete update is required
+     *
+     * @return the delta
+     */
+    public static ContentCacheDelta completeUpdateRequired(String reason) {
+        return new ContentCacheDelta(0, 0, 0, 0, 0, reason);
+    }
+
+    /**
+     * @return the number of changed series
+     */
+    public int getSeries() {
+        return series;
+    }
+
+    /**
+     * @return the number of refreshed offerings
+     */
+    public int getOfferings() {
+        return offerings;
+    }
+
+    /**
+     * @return the number of refreshed procedures
+     */
+    public int getProcedures() {
+        return procedures;
+    }
+
+    /**
+     * @return the number of features of interest of the changed series
+     */
+    public int getFeaturesOfInterest() {
+        return featuresOfInterest;
+    }
+
+    /**
+     * @return the number of observable properties of the changed series
+     */
+    public int getObservableProperties() {
+        return observableProperties;
+    }
+
+    /**
+     * @return if the changes could not be applied incrementally
+     */
+    public boolean isCompleteUpdateRequired() {
+        return completeUpdateReason != null;
+    }
+
+    /**
+     * @return why a complete update is required or {@code null}
+     */
+    public String getCompleteUpdateReason() {
+        return completeUpdateReason;
+    }
+
+    /**
+     * @return if nothing changed since the last update
+     */
+    public boolean isEmpty() {
+        return !isCompleteUpdateRequired() && series == 0;
+    }
+
+    @Override
+    public String toString() {
+        if (isCompleteUpdateRequired()) {
+            return String.format("%s[completeUpdateRequired=%s]", getClass().getSimpleName(), completeUpdateReason);
+        }
+        return String.format("%s[series=%d, offerings=%d, procedures=%d, featuresOfInterest=%d, "
+                + "observableProperties=%d]", getClass().getSimpleName(), series, offerings, procedures,
+                featuresOfInterest, observableProperties);
+    }
+}
@@ -58,13 +58,11 @@ import org.n52.sos.service.operator.ServiceOperatorRepository;
 import org.n52.sos.util.Activatable;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.CompositeSimilar;
-import org.n52.sos.util.ProxySimilarityComparator;
 import org.n52.sos.util.SetMultiMap;
 import org.n52.sos.w3c.SchemaLocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -91,18 +89,12 @@ public class CodingRepository {
     @SuppressWarnings("rawtypes")
     private final ServiceLoader<Encoder> serviceLoaderEncoder;
 
-    private final Set<Decoder<?, ?>> decoders;
+    private volatile DecoderIndex decoders;
 
-    private final Set<Encoder<?, ?>> encoders;
-
-    private final SetMultiMap<DecoderKey, Decoder<?, ?>> decoderByKey = newSetMultiMap();
-
-    private final SetMultiMap<EncoderKey, Encoder<?, ?>> encoderByKey = newSetMultiMap();
+    private volatile EncoderIndex encoders;
 
     private SetMultiMap<SupportedTypeKey, Activatable<String>> typeMap = newSetMultiMap(SupportedTypeKey.class);
 
-    private final Set<ObservationEncoder<?, ?>> observationEncoders = Sets.newHashSet();
-
     private final Map<String, Map<String, Set<String>>> responseFormats = Maps.newHashMap();
 
     private final Map<ResponseFormatKey, Boolean> responseFormatStatus = Maps.newHashMap();
@@ -133,10 +125,8 @@ public class CodingRepository {
     private CodingRepository() {
         serviceLoaderDecoder = ServiceLoader.load(Decoder.class);
         serviceLoaderEncoder = ServiceLoader.load(Encoder.class);
-        decoders = Sets.newHashSet(loadDecoders());
-        encoders = Sets.newHashSet(loadEncoders());
-        initDecoderMap();
-        initEncoderMap();
+        decoders = new DecoderIndex(loadDecoders());
+        encoders = new EncoderIndex(loadEncoders());
         generateTypeMap();
         generateResponseFormatMaps();
         generateProcedureDescriptionFormatMaps();
@@ -150,48 +140,16 @@ public class CodingRepository {
         return (T) o;
     }
 
-    private <F, T> Decoder<F, T> processDecoderMatches(final Set<Decoder<?, ?>> matches, final DecoderKey key) {
-        if (matches == null || matches.isEmpty()) {
-            LOG.debug("No Decoder implementation for {}", key);
-            return null;
-        } else if (matches.size() > 1) {
-            final Decoder<?, ?> dec = Collections.min(matches, new DecoderComparator(key));
-            LOG.debug("Requested ambiguous Decoder implementations for {}: Found {}; Choosing {}.", key,
-                    Joiner.on(", ").join(matches), dec);
-            return unsafeCast(dec);
-        } else {
-            return unsafeCast(matches.iterator().next());
-        }
-    }
-
-    private <F, T> Encoder<F, T> processEncoderMatches(final Set<Encoder<?, ?>> matches, final EncoderKey key) {
-        if (matches == null || matches.isEmpty()) {
-            LOG.debug("No Encoder for {}", key);
-            return null;
-        } else if (matches.size() > 1) {
-            final Encoder<?, ?> enc = Collections.min(matches, new EncoderComparator(key));
-            LOG.debug("Requested ambiguous Encoder implementations for {}: Found {}; Choosing {}.", key,
-                    Joiner.on(", ").join(matches), enc);
-            return unsafeCast(enc);
-        } else {
-            return unsafeCast(matches.iterator().next());
-        }
-    }
-
     public void updateDecoders() {
         LOG.debug("Reloading Decoder implementations");
-        decoders.clear();
-        decoders.addAll(loadDecoders());
-        initDecoderMap();
+        decoders = new DecoderIndex(loadDecoders());
         generateTypeMap();
         LOG.debug("Reloaded Decoder implementations");
     }
 
     public void updateEncoders() {
         LOG.debug("Reloading Encoder implementations");
-        encoders.clear();
-        encoders.addAll(loadEncoders());
-        initEncoderMap();
+        encoders = new EncoderIndex(loadEncoders());
         generateTypeMap();
         generateResponseFormatMaps();
         generateProcedureDescriptionFormatMaps();
@@ -284,7 +242,7 @@ public class CodingRepository {
 
     private void generateSchemaLocationMap() {
         schemaLocations.clear();
-        for (final Encoder<?, ?> encoder : encoders) {
+        for (final Encoder<?, ?> encoder : getEncoders()) {
             if (CollectionHelper.isNotEmpty(encoder.getEncoderKeyType())) {
                 for (final EncoderKey key : encoder.getEncoderKeyType()) {
                     if (key instanceof XmlEncoderKey && CollectionHelper.isNotEmpty(encoder.getSchemaLocations())) {
@@ -377,19 +335,19 @@ public class CodingRepository {
     }
 
     public Set<Decoder<?, ?>> getDecoders() {
-        return CollectionHelper.unmodifiableSet(decoders);
+        return decoders.getComponents();
     }
 
     public Set<Encoder<?, ?>> getEncoders() {
-        return CollectionHelper.unmodifiableSet(encoders);
+        return encoders.getComponents();
     }
 
     public Map<DecoderKey, Set<Decoder<?, ?>>> getDecoderByKey() {
-        return CollectionHelper.unmodifiableMap(decoderByKey);
+        return decoders.getComponentsByKey();
     }
 
     public Map<EncoderKey, Set<Encoder<?, ?>>> getEncoderByKey() {
-        return CollectionHelper.unmodifiableMap(encoderByKey);
+        return encoders.getComponentsByKey();
     }
 
     public Set<String> getFeatureOfInterestTypes() {
@@ -430,27 +388,6 @@ public class CodingRepository {
         typeMap = resultMap;
     }
 
-    private void initEncoderMap() {
-        encoderByKey.clear();
-        for (final Encoder<?, ?> encoder : getEncoders()) {
-            for (final EncoderKey key : encoder.getEncoderKeyType()) {
-                encoderByKey.add(key, encoder);
-            }
-            if (encoder instanceof ObservationEncoder) {
-                observationEncoders.add((ObservationEncoder<?, ?>) encoder);
-            }
-        }
-    }
-
-    private void initDecoderMap() {
-        decoderByKey.clear();
-        for (final Decoder<?, ?> decoder : getDecoders()) {
-            for (final DecoderKey key : decoder.getDecoderKeyTypes()) {
-                decoderByKey.add(key, decoder);
-            }
-        }
-    }
-
     public boolean hasDecoder(final DecoderKey key, final DecoderKey... keys) {
         return getDecoder(key, keys) != null;
     }
@@ -485,75 +422,19 @@ public class CodingRepository {
     }
 
     private <F, T> Decoder<F, T> getDecoderSingleKey(final DecoderKey key) {
-        return processDecoderMatches(findDecodersForSingleKey(key), key);
+        return unsafeCast(decoders.get(key));
     }
 
     private <F, T> Decoder<F, T> getDecoderCompositeKey(final CompositeDecoderKey key) {
-        return processDecoderMatches(findDecodersForCompositeKey(key), key);
+        return unsafeCast(decoders.get(key));
     }
 
     private <F, T> Encoder<F, T> getEncoderSingleKey(final EncoderKey key) {
-        return processEncoderMatches(findEncodersForSingleKey(key), key);
+        return unsafeCast(encoders.get(key));
     }
 
     private <F, T> Encoder<F, T> getEncoderCompositeKey(final CompositeEncoderKey key) {
-        return processEncoderMatches(findEncodersForCompositeKey(key), key);
-    }
-
-    private Set<Encoder<?, ?>> findEncodersForSingleKey(final EncoderKey key) {
-        if (!encoderByKey.containsKey(key)) {
-            for (final Encoder<?, ?> encoder : getEncoders()) {
-                for (final EncoderKey ek : encoder.getEncoderKeyType()) {
-                    if (ek.getSimilarity(key) >= 0) {
-                        encoderByKey.add(key, encoder);
-                    }
-                }
-            }
-        }
-        return encoderByKey.get(key);
-    }
-
-    private Set<Decoder<?, ?>> findDecodersForSingleKey(final DecoderKey key) {
-        if (!decoderByKey.containsKey(key)) {
-            for (final Decoder<?, ?> decoder : getDecoders()) {
-                for (final DecoderKey dk : decoder.getDecoderKeyTypes()) {
-                    if (dk.getSimilarity(key) >= 0) {
-                        decoderByKey.add(key, decoder);
-                    }
-                }
-            }
-        }
-        return decoderByKey.get(key);
-    }
-
-    private Set<Encoder<?, ?>> findEncodersForCompositeKey(final CompositeEncoderKey ck) {
-        if (!encoderByKey.containsKey(ck)) {
-            // first request; search for matching encoders and save result for
-            // later quries
-            for (final Encoder<?, ?> encoder : encoders) {
-                if (ck.matches(encoder.getEncoderKeyType())) {
-                    encoderByKey.add(ck, encoder);
-                }
-            }
-            LOG.debug("Found {} Encoders for CompositeKey: {}", encoderByKey.get(ck).size(),
-                    Joiner.on(", ").join(encoderByKey.get(ck)));
-        }
-        return encoderByKey.get(ck);
-    }
-
-    private Set<Decoder<?, ?>> findDecodersForCompositeKey(final CompositeDecoderKey ck) {
-        if (!decoderByKey.containsKey(ck)) {
-            // first request; search for matching decoders and save result for
-            // later queries
-            for (final Decoder<?, ?> decoder : decoders) {
-                if (ck.matches(decoder.getDecoderKeyTypes())) {
-                    decoderByKey.add(ck, decoder);
-                }
-            }
-            LOG.debug("Found {} Decoders for CompositeKey: {}", decoderByKey.get(ck).size(),
-                    Joiner.on(", ").join(decoderByKey.get(ck)));
-        }
-        return decoderByKey.get(ck);
+        return unsafeCast(encoders.get(key));
     }
 
     public Map<ServiceOperatorKey, Set<String>> getSupportedResponseFormats() {
@@ -754,25 +635,25 @@ public class CodingRepository {
         }
     }
 
-    private class DecoderComparator extends ProxySimilarityComparator<Decoder<?, ?>, DecoderKey> {
-        DecoderComparator(final DecoderKey key) {
-            super(key);
+    private static class DecoderIndex extends DispatchIndex<DecoderKey, Decoder<?, ?>> {
+        DecoderIndex(final Iterable<Decoder<?, ?>> decoders) {
+            super(decoders);
         }
 
         @Override
-        protected Collection<DecoderKey> getSimilars(final Decoder<?, ?> t) {
-            return t.getDecoderKeyTypes();
+        protected Set<DecoderKey> getKeys(final Decoder<?, ?> decoder) {
+            return decoder.getDecoderKeyTypes();
         }
     }
 
-    private class EncoderComparator extends ProxySimilarityComparator<Encoder<?, ?>, EncoderKey> {
-        EncoderComparator(final EncoderKey key) {
-            super(key);
+    private static class EncoderIndex extends DispatchIndex<EncoderKey, Encoder<?, ?>> {
+        EncoderIndex(final Iterable<Encoder<?, ?>> encoders) {
+            super(encoders);
         }
 
         @Override
-        protected Collection<EncoderKey> getSimilars(final Encoder<?, ?> t) {
-            return t.getEncoderKeyType();
+        protected Set<EncoderKey> getKeys(final Encoder<?, ?> encoder) {
+            return encoder.getEncoderKeyType();
         }
     }
 
@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.coding;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.n52.sos.util.CompositeSimilar;
+import org.n52.sos.util.ProxySimilarityComparator;
+import org.n52.sos.util.Similar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Immutable dispatch table of the encoders or decoders of the
+ * {@link CodingRepository}.
+ * <p/>
+ * The best matching component of every key declared by the components is
+ * resolved when the index is created. Other keys (e.g. keys of subclasses or
+ * composite keys) are resolved on their first lookup and remembered, including
+ * keys without a matching component, so that every further lookup is a single
+ * hash probe. The number of remembered keys is limited to
+ * {@value #MAX_RESOLVED_KEYS} to protect against keys derived from request
+ * contents.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the component type
+ * 
+ * @since 4.4.0
+ */
+abstract class DispatchIndex<K extends Similar<K>, V> {
+    private static final Logger LOG = LoggerFactory.getLogger(DispatchIndex.class);
+
+    static final int MAX_RESOLVED_KEYS = 10000;
+
+    private final Set<V> components;
+
+    private final Map<K, Set<V>> componentsByKey;
+
+    private final ConcurrentMap<K, Optional<V>> resolved;
+
+    private final AtomicInteger resolvedKeys = new AtomicInteger(0);
+
+    DispatchIndex(Iterable<? extends V> components) {
+        this.components = ImmutableSet.copyOf(components);
+        Map<K, Set<V>> byKey = Maps.newHashMap();
+        for (V component : this.components) {
+            Set<K> keys = getKeys(component);
+            if (keys != null) {
+                for (K key : keys) {
+                    Set<V> forKey = byKey.get(key);
+                    if (forKey == null) {
+                        forKey = Sets.newHashSet();
+                        byKey.put(key, forKey);
+                    }
+                    forKey.add(component);
+                }
+            }
+        }
+        ImmutableMap.Builder<K, Set<V>> builder = ImmutableMap.builder();
+        for (Map.Entry<K, Set<V>> entry : byKey.entrySet()) {
+            builder.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+        }
+        this.componentsByKey = builder.build();
+        this.resolved = new ConcurrentHashMap<K, Optional<V>>(this.componentsByKey.size() * 2);
+        for (K key : this.componentsByKey.keySet()) {
+            this.resolved.put(key, Optional.fromNullable(resolve(key)));
+        }
+    }
+
+    /**
+     * @param component
+     *            the component
+     * @return the keys declared by the component
+     */
+    protected abstract Set<K> getKeys(V component);
+
+    /**
+     * @return all components of this index
+     */
+    Set<V> getComponents() {
+        return components;
+    }
+
+    /**
+     * @return the components by their declared keys
+     */
+    Map<K, Set<V>> getComponentsByKey() {
+        return componentsByKey;
+    }
+
+    /**
+     * Get the best matching component for the key.
+     * 
+     * @param key
+     *            the key
+     * @return the component or <code>null</code> if no component matches
+     */
+    V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        Optional<V> match = resolved.get(key);
+        if (match == null) {
+            match = Optional.fromNullable(resolve(key));
+            if (resolvedKeys.get() < MAX_RESOLVED_KEYS && resolved.putIfAbsent(key, match) == null) {
+                resolvedKeys.incrementAndGet();
+            }
+        }
+        return match.orNull();
+    }
+
+    private V resolve(K key) {
+        List<V> matches = new LinkedList<V>();
+        for (V component : components) {
+            if (matches(key, component)) {
+                matches.add(component);
+            }
+        }
+        if (matches.isEmpty()) {
+            LOG.debug("No implementation for {}", key);
+            return null;
+        } else if (matches.size() > 1) {
+            V match = Collections.min(matches, new Comparator(key));
+            LOG.debug("Ambiguous implementations for {}: Found {}; Choosing {}.", key, Joiner.on(", ")
+                    .join(matches), match);
+            return match;
+        } else {
+            return matches.get(0);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean matches(K key, V component) {
+        Set<K> keys = getKeys(component);
+        if (key instanceof CompositeSimilar) {
+            return ((CompositeSimilar<K>) key).matches(keys);
+        }
+        if (keys != null) {
+            for (K k : keys) {
+                if (k.getSimilarity(key) >= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private class Comparator extends ProxySimilarityComparator<V, K> {
+        Comparator(K key) {
+            super(key);
+        }
+
+        @Override
+        protected Collection<K> getSimilars(V component) {
+            return getKeys(component);
+        }
+    }
+}
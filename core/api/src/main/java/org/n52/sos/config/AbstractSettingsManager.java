@@ -50,6 +50,7 @@ import org.n52.sos.ds.ConnectionProviderException;
 import org.n52.sos.encode.ProcedureDescriptionFormatKey;
 import org.n52.sos.encode.ResponseFormatKey;
 import org.n52.sos.event.SosEventBus;
+import org.n52.sos.event.events.ActivationChangeEvent;
 import org.n52.sos.event.events.SettingsChangeEvent;
 import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.ogc.ows.OwsExtendedCapabilitiesKey;
@@ -340,6 +341,7 @@ public abstract class AbstractSettingsManager extends SettingsManager {
             RequestOperatorRepository.getInstance().setActive(rokt, active);
             CapabilitiesExtensionRepository.getInstance().setOperationsChanged();
         }
+        SosEventBus.fire(new ActivationChangeEvent(rokt, active));
     }
 
     @Override
@@ -349,6 +351,7 @@ public abstract class AbstractSettingsManager extends SettingsManager {
         if (Configurator.getInstance() != null) {
             CodingRepository.getInstance().setActive(rfkt, active);
         }
+        SosEventBus.fire(new ActivationChangeEvent(rfkt, active));
     }
 
     @Override
@@ -358,6 +361,7 @@ public abstract class AbstractSettingsManager extends SettingsManager {
         if (Configurator.getInstance() != null) {
             CodingRepository.getInstance().setActive(pdfkt, active);
         }
+        SosEventBus.fire(new ActivationChangeEvent(pdfkt, active));
     }
 
     @Override
@@ -367,6 +371,7 @@ public abstract class AbstractSettingsManager extends SettingsManager {
         if (Configurator.getInstance() != null) {
             BindingRepository.getInstance().setActive(bk, active);
         }
+        SosEventBus.fire(new ActivationChangeEvent(bk, active));
     }
     
     @Override
@@ -381,6 +386,7 @@ public abstract class AbstractSettingsManager extends SettingsManager {
         if (updateRepository && OfferingExtensionRepository.getInstance() != null) {
             OfferingExtensionRepository.getInstance().setActive(oek, active);
         }
+        SosEventBus.fire(new ActivationChangeEvent(oek, active));
     }
 
     @Override
@@ -395,6 +401,7 @@ public abstract class AbstractSettingsManager extends SettingsManager {
         if (updateRepository && OwsExtendedCapabilitiesRepository.getInstance() != null) {
             OwsExtendedCapabilitiesRepository.getInstance().setActive(oeck, active);
         }
+        SosEventBus.fire(new ActivationChangeEvent(oeck, active));
     }
     
     /**
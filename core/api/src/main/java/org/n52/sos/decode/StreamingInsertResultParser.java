@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.decode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.exception.ows.concrete.MissingResultValuesParameterException;
+import org.n52.sos.ogc.ows.OWSConstants;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.Sos2Constants;
+import org.n52.sos.request.InsertResultRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parser for SOS 2.0 InsertResult requests that does not materialize the
+ * <code>sos:resultValues</code> content. The header of the request is read
+ * with StAX and the result values are exposed as a {@link Reader} on the
+ * returned {@link InsertResultRequest} that pulls the text events of the
+ * underlying {@link XMLStreamReader} on demand.
+ * <p>
+ * The passed stream has to support {@link InputStream#mark(int)}. If the
+ * request is no InsertResult request or contains elements the parser does not
+ * handle (e.g. <code>swes:extension</code>), the stream is reset and
+ * <code>null</code> is returned so that the request can be decoded the usual
+ * way.
+ *
+ * @since 4.4.0
+ */
+public class StreamingInsertResultParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingInsertResultParser.class);
+
+    /**
+     * Number of bytes that may be read before the decision whether the
+     * request can be streamed is made.
+     */
+    public static final int MARK_LIMIT = 1024 * 1024;
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    /**
+     * Parse the InsertResult request from the stream.
+     *
+     * @param in
+     *            the request body, has to support {@link InputStream#mark(int)}
+     * @param encoding
+     *            the character encoding of the body, may be <code>null</code>
+     * @return the request with a result values reader or <code>null</code> if
+     *         the request can not be streamed
+     * @throws OwsExceptionReport
+     *             if the request can not be read or is missing the result
+     *             values
+     */
+    public InsertResultRequest parse(InputStream in, String encoding) throws OwsExceptionReport {
+        if (!in.markSupported()) {
+            return null;
+        }
+        in.mark(MARK_LIMIT);
+        XMLStreamReader reader = null;
+        try {
+            if (encoding == null || encoding.isEmpty()) {
+                reader = INPUT_FACTORY.createXMLStreamReader(in);
+            } else {
+                reader = INPUT_FACTORY.createXMLStreamReader(in, encoding);
+            }
+            reader.nextTag();
+            if (!isSosElement(reader, Sos2Constants.EN_INSERT_RESULT)) {
+                return reset(reader, in);
+            }
+            InsertResultRequest request = new InsertResultRequest();
+            request.setService(reader.getAttributeValue(null, OWSConstants.RequestParams.service.name()));
+            request.setVersion(reader.getAttributeValue(null, OWSConstants.RequestParams.version.name()));
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if (isSosElement(reader, Sos2Constants.InsertResultParams.template.name())) {
+                    request.setTemplateIdentifier(reader.getElementText().trim());
+                } else if (isSosElement(reader, Sos2Constants.InsertResultParams.resultValues.name())) {
+                    request.setResultValuesReader(new ResultValuesReader(reader));
+                    return request;
+                } else {
+                    LOGGER.debug("Element {} is not supported for streaming InsertResult requests.",
+                            reader.getName());
+                    return reset(reader, in);
+                }
+            }
+            throw new MissingResultValuesParameterException();
+        } catch (XMLStreamException | IOException e) {
+            throw new NoApplicableCodeException().causedBy(e).withMessage(
+                    "An xml error occured when parsing the request! Message: %s", e.getMessage());
+        }
+    }
+
+    private boolean isSosElement(XMLStreamReader reader, String localName) {
+        return Sos2Constants.NS_SOS_20.equals(reader.getNamespaceURI())
+                && localName.equals(reader.getLocalName());
+    }
+
+    private InsertResultRequest reset(XMLStreamReader reader, InputStream in) throws XMLStreamException,
+            IOException {
+        reader.close();
+        in.reset();
+        return null;
+    }
+
+    /**
+     * {@link Reader} over the text content of the current element of a
+     * {@link XMLStreamReader}. The end of the element is the end of the
+     * stream.
+     */
+    private static class ResultValuesReader extends Reader {
+
+        private final XMLStreamReader reader;
+
+        private int offset;
+
+        private int length;
+
+        private boolean eof;
+
+        ResultValuesReader(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (offset >= length) {
+                if (eof || !nextText()) {
+                    eof = true;
+                    return -1;
+                }
+            }
+            try {
+                int read = reader.getTextCharacters(offset, cbuf, off, Math.min(len, length - offset));
+                offset += read;
+                return read;
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        private boolean nextText() throws IOException {
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        offset = 0;
+                        length = reader.getTextLength();
+                        return true;
+                    case XMLStreamConstants.END_ELEMENT:
+                        return false;
+                    case XMLStreamConstants.START_ELEMENT:
+                        throw new IOException(String.format("Unexpected element %s in %s", reader.getName(),
+                                Sos2Constants.InsertResultParams.resultValues));
+                    default:
+                        break;
+                    }
+                }
+                return false;
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
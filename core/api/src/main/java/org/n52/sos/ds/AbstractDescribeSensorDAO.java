@@ -28,6 +28,7 @@
  */
 package org.n52.sos.ds;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import org.n52.sos.coding.CodingRepository;
@@ -54,7 +55,7 @@ public abstract class AbstractDescribeSensorDAO extends AbstractOperationDAO {
     protected void setOperationsMetadata(OwsOperation opsMeta, String service, String version)
             throws OwsExceptionReport {
         addProcedureParameter(opsMeta);
-        Set<String> pdfs = getCache().getRequestableProcedureDescriptionFormat();
+        Set<String> pdfs = new HashSet<>(getCache().getRequestableProcedureDescriptionFormat());
         if (version.equals(Sos1Constants.SERVICEVERSION)) {
             pdfs.addAll(CodingRepository.getInstance().getSupportedProcedureDescriptionFormats(SosConstants.SOS,
                     Sos1Constants.SERVICEVERSION));
@@ -202,7 +202,7 @@ public abstract class AbstractOperationDAO implements OperationDAO {
     }
 
     protected Collection<String> getObservableProperties() {
-        Set<String> observableProperties = getCache().getObservableProperties();
+        Set<String> observableProperties = new HashSet<>(getCache().getObservableProperties());
         if (ServiceConfiguration.getInstance().isIncludeChildObservableProperties()) {
             Set<String> compositePhenomenons = getCache().getCompositePhenomenons();
             observableProperties.removeAll(compositePhenomenons);
@@ -0,0 +1,317 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.n52.sos.cache.ContentCache;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.sos.SosOffering;
+import org.n52.sos.ogc.sos.SosProcedureDescription;
+import org.n52.sos.request.AbstractServiceRequest;
+import org.n52.sos.request.DeleteSensorRequest;
+import org.n52.sos.request.InsertObservationRequest;
+import org.n52.sos.request.InsertResultRequest;
+import org.n52.sos.request.InsertResultTemplateRequest;
+import org.n52.sos.request.InsertSensorRequest;
+import org.n52.sos.request.UpdateSensorRequest;
+import org.n52.sos.util.StringHelper;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Groups the sub-requests of a batch into stages of requests that do not
+ * depend on each other and can be executed concurrently. The stages have to be
+ * executed in order.
+ * <p/>
+ * Two requests depend on each other if at least one of them modifies the
+ * datasource and both touch the same procedure, offering or result template.
+ * The procedure and offerings of the result template of an InsertResult
+ * request are taken from the content cache.
+ * Requests that insert observations, sensors or result templates may create
+ * entities shared by many procedures, like observable properties, features,
+ * units, observation types or procedure description formats. They therefore
+ * depend on every other inserting request and are executed one after the
+ * other.
+ * Requests whose operation name starts with {@code Get} or {@code Describe}
+ * are considered read-only; as they may read anything, they depend on every
+ * modifying request. Modifying requests whose affected entities can not be
+ * determined depend on every other request.
+ * <p/>
+ * If the batch should stop at the first failure, only consecutive read-only
+ * requests share a stage, so that no modification after a failed request is
+ * executed.
+ *
+ * @since 4.4.0
+ */
+public class BatchExecutionPlan {
+    private static final String PROCEDURE = "procedure:";
+
+    private static final String OFFERING = "offering:";
+
+    private static final String TEMPLATE = "template:";
+
+    private final List<List<Integer>> stages;
+
+    private BatchExecutionPlan(List<List<Integer>> stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * @return the stages of request indices, every stage in ascending order
+     */
+    public List<List<Integer>> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * @return the number of stages
+     */
+    public int size() {
+        return stages.size();
+    }
+
+    /**
+     * Create the execution plan for the requests.
+     *
+     * @param requests
+     *            the sub-requests of the batch
+     * @param stopAtFailure
+     *            if the batch stops at the first failed request
+     * @param cache
+     *            the content cache to resolve the result templates
+     *
+     * @return the plan
+     */
+    public static BatchExecutionPlan create(List<? extends AbstractServiceRequest<?>> requests,
+            boolean stopAtFailure, ContentCache cache) {
+        final List<Footprint> footprints = Lists.newArrayListWithCapacity(requests.size());
+        for (AbstractServiceRequest<?> request : requests) {
+            footprints.add(Footprint.of(request, cache));
+        }
+        if (stopAtFailure) {
+            return new BatchExecutionPlan(createConsecutiveStages(footprints));
+        } else {
+            return new BatchExecutionPlan(createLevels(footprints));
+        }
+    }
+
+    private static List<List<Integer>> createLevels(List<Footprint> footprints) {
+        final List<List<Integer>> levels = Lists.newArrayList();
+        final int[] levelOf = new int[footprints.size()];
+        for (int i = 0; i < footprints.size(); ++i) {
+            int level = 0;
+            for (int j = 0; j < i; ++j) {
+                if (levelOf[j] >= level && footprints.get(i).conflicts(footprints.get(j))) {
+                    level = levelOf[j] + 1;
+                }
+            }
+            levelOf[i] = level;
+            if (level == levels.size()) {
+                levels.add(Lists.<Integer> newArrayList());
+            }
+            levels.get(level).add(i);
+        }
+        return levels;
+    }
+
+    private static List<List<Integer>> createConsecutiveStages(List<Footprint> footprints) {
+        final List<List<Integer>> stages = Lists.newArrayList();
+        List<Integer> stage = null;
+        for (int i = 0; i < footprints.size(); ++i) {
+            if (stage == null || footprints.get(i).isModifying() || footprints.get(stage.get(0)).isModifying()) {
+                stage = Lists.newArrayList();
+                stages.add(stage);
+            }
+            stage.add(i);
+        }
+        return stages;
+    }
+
+    /**
+     * The entities read or modified by a request.
+     */
+    private static class Footprint {
+        private final boolean modifying;
+
+        private final boolean inserting;
+
+        /**
+         * the affected entities or {@code null} if they are unknown
+         */
+        private final Set<String> keys;
+
+        Footprint(boolean modifying, boolean inserting, Set<String> keys) {
+            this.modifying = modifying;
+            this.inserting = inserting;
+            this.keys = keys;
+        }
+
+        boolean isModifying() {
+            return modifying;
+        }
+
+        boolean conflicts(Footprint other) {
+            if (!this.modifying && !other.modifying) {
+                return false;
+            }
+            if (this.inserting && other.inserting) {
+                return true;
+            }
+            if (this.keys == null || other.keys == null) {
+                return true;
+            }
+            return !Collections.disjoint(this.keys, other.keys);
+        }
+
+        static Footprint of(AbstractServiceRequest<?> request, ContentCache cache) {
+            if (isReadOnly(request)) {
+                return new Footprint(false, false, null);
+            }
+            return new Footprint(true, isInserting(request), getModifiedKeys(request, cache));
+        }
+
+        private static boolean isReadOnly(AbstractServiceRequest<?> request) {
+            final String operation = request.getOperationName();
+            return operation != null && (operation.startsWith("Get") || operation.startsWith("Describe"));
+        }
+
+        private static boolean isInserting(AbstractServiceRequest<?> request) {
+            return request instanceof InsertSensorRequest || request instanceof InsertObservationRequest
+                    || request instanceof InsertResultTemplateRequest || request instanceof InsertResultRequest;
+        }
+
+        private static Set<String> getModifiedKeys(AbstractServiceRequest<?> request, ContentCache cache) {
+            final Set<String> keys = Sets.newHashSet();
+            if (request instanceof InsertSensorRequest) {
+                final InsertSensorRequest isr = (InsertSensorRequest) request;
+                final SosProcedureDescription description = isr.getProcedureDescription();
+                if (description == null || !description.isSetIdentifier()) {
+                    // the identifier is generated by the service
+                    return null;
+                }
+                keys.add(PROCEDURE + description.getIdentifier());
+                if (description.isSetOfferings()) {
+                    for (SosOffering offering : description.getOfferings()) {
+                        addKey(keys, OFFERING, offering.getIdentifier());
+                    }
+                }
+                if (isr.isSetAssignedOfferings()) {
+                    for (SosOffering offering : isr.getAssignedOfferings()) {
+                        addKey(keys, OFFERING, offering.getIdentifier());
+                    }
+                }
+            } else if (request instanceof UpdateSensorRequest) {
+                if (!addKey(keys, PROCEDURE, ((UpdateSensorRequest) request).getProcedureIdentifier())) {
+                    return null;
+                }
+            } else if (request instanceof DeleteSensorRequest) {
+                if (!addKey(keys, PROCEDURE, ((DeleteSensorRequest) request).getProcedureIdentifier())) {
+                    return null;
+                }
+            } else if (request instanceof InsertObservationRequest) {
+                final InsertObservationRequest ior = (InsertObservationRequest) request;
+                if (ior.getObservations() == null || ior.getObservations().isEmpty()) {
+                    return null;
+                }
+                addKey(keys, PROCEDURE, ior.getAssignedSensorId());
+                if (ior.getOfferings() != null) {
+                    for (String offering : ior.getOfferings()) {
+                        addKey(keys, OFFERING, offering);
+                    }
+                }
+                for (OmObservation observation : ior.getObservations()) {
+                    final OmObservationConstellation constellation = observation.getObservationConstellation();
+                    if (constellation == null
+                            || !addKey(keys, PROCEDURE, constellation.getProcedureIdentifier())) {
+                        return null;
+                    }
+                }
+            } else if (request instanceof InsertResultTemplateRequest) {
+                final InsertResultTemplateRequest irtr = (InsertResultTemplateRequest) request;
+                final OmObservationConstellation template = irtr.getObservationTemplate();
+                if (!addKey(keys, TEMPLATE, irtr.getIdentifier()) || template == null
+                        || !addKey(keys, PROCEDURE, template.getProcedureIdentifier())) {
+                    return null;
+                }
+                if (template.getOfferings() != null) {
+                    for (String offering : template.getOfferings()) {
+                        addKey(keys, OFFERING, offering);
+                    }
+                }
+            } else if (request instanceof InsertResultRequest) {
+                final String template = ((InsertResultRequest) request).getTemplateIdentifier();
+                if (!addKey(keys, TEMPLATE, template) || !addTemplateKeys(keys, template, cache)) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            return keys;
+        }
+
+        /**
+         * Add the offerings of the result template and their procedures.
+         *
+         * @return if the offerings and procedures could be resolved
+         */
+        private static boolean addTemplateKeys(Set<String> keys, String template, ContentCache cache) {
+            if (cache == null) {
+                return false;
+            }
+            boolean resolved = false;
+            for (String offering : cache.getOfferingsWithResultTemplate()) {
+                if (cache.getResultTemplatesForOffering(offering).contains(template)) {
+                    final Set<String> procedures = cache.getProceduresForOffering(offering);
+                    if (procedures.isEmpty()) {
+                        return false;
+                    }
+                    addKey(keys, OFFERING, offering);
+                    for (String procedure : procedures) {
+                        addKey(keys, PROCEDURE, procedure);
+                    }
+                    resolved = true;
+                }
+            }
+            return resolved;
+        }
+
+        private static boolean addKey(Set<String> keys, String prefix, String identifier) {
+            if (StringHelper.isNotEmpty(identifier)) {
+                keys.add(prefix + identifier);
+                return true;
+            }
+            return false;
+        }
+    }
+}
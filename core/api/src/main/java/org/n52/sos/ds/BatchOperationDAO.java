@@ -28,6 +28,22 @@
  */
 package org.n52.sos.ds;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.sos.cache.ContentCache;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.exception.ows.concrete.InvalidAcceptVersionsParameterException;
 import org.n52.sos.exception.ows.concrete.InvalidServiceOrVersionException;
 import org.n52.sos.exception.ows.concrete.InvalidServiceParameterException;
@@ -42,10 +58,16 @@ import org.n52.sos.request.AbstractServiceRequest;
 import org.n52.sos.request.BatchRequest;
 import org.n52.sos.request.GetCapabilitiesRequest;
 import org.n52.sos.response.BatchResponse;
+import org.n52.sos.response.BatchResponse.ExceptionOrResponse;
+import org.n52.sos.service.Configurator;
 import org.n52.sos.service.operator.ServiceOperator;
 import org.n52.sos.service.operator.ServiceOperatorKey;
 import org.n52.sos.service.operator.ServiceOperatorRepository;
 import org.n52.sos.util.BatchConstants;
+import org.n52.sos.util.GroupedAndNamedThreadFactory;
+import org.n52.sos.util.Validation;
+
+import com.google.common.collect.Lists;
 
 /**
  * TODO JavaDoc
@@ -54,28 +76,158 @@ import org.n52.sos.util.BatchConstants;
  * 
  * @since 4.0.0
  */
+@Configurable
 public class BatchOperationDAO extends AbstractOperationDAO {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchOperationDAO.class);
+
+    private static final String THREAD_GROUP_NAME = "batch-executor";
+
+    private static final long THREAD_KEEP_ALIVE = 60;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ThreadGroup workers;
+
     public BatchOperationDAO() {
         super(SosConstants.SOS, BatchConstants.OPERATION_NAME);
+        final int threads = BatchOperationSettings.BATCH_THREADS_DEFINITION.getDefaultValue();
+        final GroupedAndNamedThreadFactory threadFactory = new GroupedAndNamedThreadFactory(THREAD_GROUP_NAME);
+        this.workers = threadFactory.getThreadGroup();
+        this.executor = new ThreadPoolExecutor(threads, threads, THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param threads
+     *            the maximum number of sub-requests executed concurrently, 1
+     *            executes them sequentially
+     *
+     * @since 4.4.0
+     */
+    @Setting(BatchOperationSettings.BATCH_THREADS)
+    public void setThreads(int threads) throws ConfigurationException {
+        Validation.greaterZero("Batch threads", threads);
+        synchronized (this.executor) {
+            if (threads > this.executor.getMaximumPoolSize()) {
+                this.executor.setMaximumPoolSize(threads);
+                this.executor.setCorePoolSize(threads);
+            } else {
+                this.executor.setCorePoolSize(threads);
+                this.executor.setMaximumPoolSize(threads);
+            }
+        }
     }
 
     public BatchResponse executeRequests(BatchRequest request) throws OwsExceptionReport {
         BatchResponse response = new BatchResponse();
         response.setService(request.getService());
         response.setVersion(request.getVersion());
+        List<AbstractServiceRequest<?>> requests = Lists.newArrayListWithCapacity(request.getRequests().size());
         for (AbstractServiceRequest<?> r : request) {
-            try {
-                response.add(getServiceOperator(r).receiveRequest(r));
-            } catch (OwsExceptionReport e) {
-                response.add(e.setVersion(r.getVersion() != null ? r.getVersion() : request.getVersion()));
-                if (request.isStopAtFailure()) {
-                    break;
+            requests.add(r);
+        }
+        if (!isParallel(requests)) {
+            executeSequentially(request, response);
+            return response;
+        }
+        BatchExecutionPlan plan = BatchExecutionPlan.create(requests, request.isStopAtFailure(), getCache());
+        LOGGER.debug("Executing {} requests of batch in {} stages", requests.size(), plan.size());
+        ExceptionOrResponse[] results = new ExceptionOrResponse[requests.size()];
+        for (List<Integer> stage : plan.getStages()) {
+            executeStage(request, requests, stage, results);
+            if (request.isStopAtFailure()) {
+                for (Integer i : stage) {
+                    if (results[i].isException()) {
+                        // the remaining requests of the stage are read-only
+                        addAll(response, results, i + 1);
+                        return response;
+                    }
                 }
             }
         }
+        addAll(response, results, results.length);
         return response;
     }
 
+    private boolean isParallel(List<AbstractServiceRequest<?>> requests) {
+        // a nested batch is executed by the worker itself to not wait for
+        // the workers it is occupying
+        return requests.size() > 1 && this.executor.getMaximumPoolSize() > 1
+                && Thread.currentThread().getThreadGroup() != this.workers;
+    }
+
+    private void executeSequentially(BatchRequest request, BatchResponse response) {
+        for (AbstractServiceRequest<?> r : request) {
+            ExceptionOrResponse result = execute(request, r);
+            response.add(result);
+            if (result.isException() && request.isStopAtFailure()) {
+                break;
+            }
+        }
+    }
+
+    private void executeStage(final BatchRequest request, List<AbstractServiceRequest<?>> requests,
+            List<Integer> stage, ExceptionOrResponse[] results) throws OwsExceptionReport {
+        if (stage.size() == 1) {
+            int i = stage.get(0);
+            results[i] = execute(request, requests.get(i));
+            return;
+        }
+        List<Future<ExceptionOrResponse>> futures = Lists.newArrayListWithCapacity(stage.size());
+        try {
+            // the servlet thread executes the first request itself
+            for (Integer i : stage.subList(1, stage.size())) {
+                final AbstractServiceRequest<?> r = requests.get(i);
+                futures.add(this.executor.submit(new Callable<ExceptionOrResponse>() {
+                    @Override
+                    public ExceptionOrResponse call() {
+                        return execute(request, r);
+                    }
+                }));
+            }
+            results[stage.get(0)] = execute(request, requests.get(stage.get(0)));
+            for (int j = 0; j < futures.size(); ++j) {
+                results[stage.get(j + 1)] = futures.get(j).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoApplicableCodeException().causedBy(e).withMessage("Interrupted while executing batch");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new NoApplicableCodeException().causedBy(e.getCause()).withMessage("Error while executing batch");
+        } finally {
+            // only skip the requests not yet started, interrupting running
+            // requests could leave their sessions and transactions half-done
+            for (Future<ExceptionOrResponse> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private ExceptionOrResponse execute(BatchRequest request, AbstractServiceRequest<?> r) {
+        try {
+            return new ExceptionOrResponse(getServiceOperator(r).receiveRequest(r));
+        } catch (OwsExceptionReport e) {
+            return new ExceptionOrResponse(e.setVersion(r.getVersion() != null ? r.getVersion() : request
+                    .getVersion()));
+        }
+    }
+
+    private void addAll(BatchResponse response, ExceptionOrResponse[] results, int count) {
+        for (int i = 0; i < count; ++i) {
+            response.add(results[i]);
+        }
+    }
+
+    protected ContentCache getCache() {
+        return Configurator.getInstance().getCache();
+    }
+
     protected ServiceOperator getServiceOperator(AbstractServiceRequest<?> request) throws OwsExceptionReport {
         checkServiceOperatorKeys(request);
         for (ServiceOperatorKey sokt : request.getServiceOperatorKeyType()) {
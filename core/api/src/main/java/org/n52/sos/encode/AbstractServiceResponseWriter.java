@@ -54,26 +54,32 @@ public class AbstractServiceResponseWriter extends AbstractResponseWriter<Abstra
     @Override
     public void write(AbstractServiceResponse asr, OutputStream out, ResponseProxy responseProxy)
             throws IOException, OwsExceptionReport {
-        Encoder<Object, AbstractServiceResponse> encoder = getEncoder(asr);
-        if (encoder != null) {
-            if (isStreaming(asr, encoder)) {
-                ((StreamingEncoder<?, AbstractServiceResponse>) encoder).encode(asr, out);
-            } else {
-                if (asr instanceof StreamingDataResponse && ((StreamingDataResponse) asr).hasStreamingData()
-                        && !(encoder instanceof StreamingDataEncoder)) {
-                    ((StreamingDataResponse) asr).mergeStreamingData();
-                }
-                // use encoded Object specific writer, e.g. XmlResponseWriter
-                Object encode = encoder.encode(asr);
-                if (encode != null) {
-                    ResponseWriter<Object> writer =
-                            ResponseWriterRepository.getInstance().getWriter(encode.getClass());
-                    if (writer == null) {
-                        throw new RuntimeException("no writer for " + encode.getClass() + " found!");
+        try {
+            Encoder<Object, AbstractServiceResponse> encoder = getEncoder(asr);
+            if (encoder != null) {
+                if (isStreaming(asr, encoder)) {
+                    ((StreamingEncoder<?, AbstractServiceResponse>) encoder).encode(asr, out);
+                } else {
+                    if (asr instanceof StreamingDataResponse && ((StreamingDataResponse) asr).hasStreamingData()
+                            && !(encoder instanceof StreamingDataEncoder)) {
+                        ((StreamingDataResponse) asr).mergeStreamingData();
+                    }
+                    // use encoded Object specific writer, e.g. XmlResponseWriter
+                    Object encode = encoder.encode(asr);
+                    if (encode != null) {
+                        ResponseWriter<Object> writer =
+                                ResponseWriterRepository.getInstance().getWriter(encode.getClass());
+                        if (writer == null) {
+                            throw new RuntimeException("no writer for " + encode.getClass() + " found!");
+                        }
+                        writer.write(encode, out, responseProxy);
                     }
-                    writer.write(encode, out, responseProxy);
                 }
             }
+        } finally {
+            if (asr instanceof StreamingDataResponse) {
+                ((StreamingDataResponse) asr).closeStreamingData();
+            }
         }
     }
 
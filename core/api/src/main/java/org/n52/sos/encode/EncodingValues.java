@@ -30,6 +30,7 @@ package org.n52.sos.encode;
 
 import java.util.Map;
 
+import org.n52.sos.ogc.gml.ReferenceType;
 import org.n52.sos.ogc.sos.SosConstants.HelperValues;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.StringHelper;
@@ -66,6 +67,8 @@ public class EncodingValues {
     
     private Encoder<?, ?> encoder;
     
+    private final Map<String, ReferenceType> encodedFeatures = Maps.newHashMap();
+    
     public EncodingValues() {
         
     }
@@ -311,4 +314,33 @@ public class EncodingValues {
         return getEncoder() != null;
     }
 
+    /**
+     * Get the reference for a feature that was already encoded in the
+     * current document
+     * 
+     * @param identifier
+     *            the feature identifier
+     * @return the reference to write instead of the feature or
+     *         <code>null</code> if the feature was not yet encoded
+     * @since 4.4.0
+     */
+    public ReferenceType getEncodedFeature(String identifier) {
+        return encodedFeatures.get(identifier);
+    }
+
+    /**
+     * Remember how a feature was written to the current document, so that
+     * further occurrences of the same feature can be written as reference
+     * 
+     * @param identifier
+     *            the feature identifier
+     * @param reference
+     *            the reference to write for further occurrences
+     * @since 4.4.0
+     */
+    public EncodingValues addEncodedFeature(String identifier, ReferenceType reference) {
+        encodedFeatures.put(identifier, reference);
+        return this;
+    }
+
 }
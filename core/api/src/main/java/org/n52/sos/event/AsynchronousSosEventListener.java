@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.event;
+
+/**
+ * {@link SosEventListener} that may handle events asynchronously. Events for
+ * the listener are queued in a bounded queue and handled in submission order
+ * by a worker of the {@link SosEventBus}.
+ *
+ * @since 4.4.0
+ */
+public interface AsynchronousSosEventListener extends SosEventListener {
+
+    /**
+     * @return <code>true</code>, if events should be queued, otherwise they are
+     *         handled by the submitting thread
+     */
+    boolean isAsynchronous();
+
+    /**
+     * @return the maximum number of queued events
+     */
+    int getQueueCapacity();
+
+    /**
+     * @return the behaviour if the queue is full
+     */
+    BackpressureStrategy getBackpressureStrategy();
+
+    /**
+     * Merge an event into an already queued event. Only used with
+     * {@link BackpressureStrategy#COALESCE}.
+     *
+     * @param queued
+     *            the queued event that is not yet handled
+     * @param event
+     *            the submitted event
+     * @return the event replacing the queued one or <code>null</code> if the
+     *         events can not be merged
+     */
+    SosEvent coalesce(SosEvent queued, SosEvent event);
+}
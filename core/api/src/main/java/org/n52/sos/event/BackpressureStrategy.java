@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.event;
+
+/**
+ * Behaviour of an {@link AsynchronousSosEventListener} queue if it is full.
+ *
+ * @since 4.4.0
+ */
+public enum BackpressureStrategy {
+    /**
+     * The submitting thread waits until the queue has free capacity.
+     */
+    BLOCK,
+    /**
+     * The event is discarded.
+     */
+    DROP,
+    /**
+     * The event is merged into the last queued event if the listener can
+     * coalesce them (see
+     * {@link AsynchronousSosEventListener#coalesce(SosEvent, SosEvent)}),
+     * otherwise the submitting thread waits like {@link #BLOCK}.
+     */
+    COALESCE
+}
@@ -28,17 +28,21 @@
  */
 package org.n52.sos.event;
 
-import java.util.HashSet;
+import java.util.ArrayDeque;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
+import java.util.Map;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.n52.sos.util.ClassHelper;
@@ -48,7 +52,20 @@ import org.n52.sos.util.SetMultiMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
 /**
+ * Dispatches {@link SosEvent}s to the registered {@link SosEventListener}s.
+ * <p>
+ * The listeners of an event class are resolved once and cached until the
+ * registrations change. Plain listeners are called by the submitting thread.
+ * {@link AsynchronousSosEventListener}s get a bounded queue that is drained in
+ * submission order by a worker thread, the behaviour of a full queue is
+ * defined by their {@link BackpressureStrategy}. Queue depth and latencies are
+ * available via {@link #getMetrics()}.
+ *
  * @author Christian Autermann <c.autermann@52north.org>
  * 
  * @since 4.0.0
@@ -56,12 +73,14 @@ import org.slf4j.LoggerFactory;
 public class SosEventBus {
     private static final Logger LOG = LoggerFactory.getLogger(SosEventBus.class);
 
-    private static final boolean ASYNCHRONOUS_EXECUTION = false;
-
     private static final int THREAD_POOL_SIZE = 3;
 
+    private static final long THREAD_KEEP_ALIVE = 60;
+
     private static final String THREAD_GROUP_NAME = "SosEventBus-Worker";
 
+    private static final ListenerDispatcher[] NO_DISPATCHERS = new ListenerDispatcher[0];
+
     public static SosEventBus getInstance() {
         return LazyHolder.INSTANCE;
     }
@@ -90,18 +109,22 @@ public class SosEventBus {
         return true;
     }
 
-    private final ClassCache classCache = new ClassCache();
-
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
-    private final Executor executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE, new GroupedAndNamedThreadFactory(
-            THREAD_GROUP_NAME));
+    private final ThreadPoolExecutor executor;
 
     private final SetMultiMap<Class<? extends SosEvent>, SosEventListener> listeners = MultiMaps.newSetMultiMap();
 
-    private final Queue<HandlerExecution> queue = new ConcurrentLinkedQueue<HandlerExecution>();
+    private final Map<SosEventListener, ListenerDispatcher> dispatchers = Maps.newLinkedHashMap();
+
+    private final ConcurrentMap<Class<? extends SosEvent>, ListenerDispatcher[]> dispatchIndex = Maps
+            .newConcurrentMap();
 
     private SosEventBus() {
+        this.executor = new ThreadPoolExecutor(THREAD_POOL_SIZE, THREAD_POOL_SIZE, THREAD_KEEP_ALIVE,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new GroupedAndNamedThreadFactory(
+                        THREAD_GROUP_NAME));
+        this.executor.allowCoreThreadTimeOut(true);
         loadListenerImplementations();
     }
 
@@ -117,53 +140,47 @@ public class SosEventBus {
         }
     }
 
-    private Set<SosEventListener> getListenersForEvent(final SosEvent event) {
-        final LinkedList<SosEventListener> result = new LinkedList<SosEventListener>();
-        lock.readLock().lock();
-        try {
-            for (final Class<? extends SosEvent> eventType : classCache.getClasses(event.getClass())) {
-                final Set<SosEventListener> listenersForClass = listeners.get(eventType);
-
-                if (listenersForClass != null) {
-                    LOG.trace("Adding {} Listeners for event {} (eventType={})", listenersForClass.size(), event,
-                            eventType);
-                    result.addAll(listenersForClass);
-                } else {
-                    LOG.trace("Adding 0 Listeners for event {} (eventType={})", event, eventType);
+    private ListenerDispatcher[] getDispatchersForEvent(final SosEvent event) {
+        final Class<? extends SosEvent> eventClass = event.getClass();
+        ListenerDispatcher[] result = dispatchIndex.get(eventClass);
+        if (result == null) {
+            lock.readLock().lock();
+            try {
+                final Set<ListenerDispatcher> dispatchersForEvent = Sets.newLinkedHashSet();
+                for (final Class<? extends SosEvent> eventType : ClassHelper.flattenPartialHierachy(SosEvent.class,
+                        eventClass)) {
+                    final Set<SosEventListener> listenersForClass = listeners.get(eventType);
+                    if (listenersForClass != null) {
+                        LOG.trace("Adding {} Listeners for event class {} (eventType={})", listenersForClass.size(),
+                                eventClass, eventType);
+                        for (final SosEventListener listener : listenersForClass) {
+                            dispatchersForEvent.add(dispatchers.get(listener));
+                        }
+                    }
                 }
-
+                result = dispatchersForEvent.isEmpty() ? NO_DISPATCHERS
+                        : dispatchersForEvent.toArray(new ListenerDispatcher[dispatchersForEvent.size()]);
+                // the index is cleared while holding the write lock, so the
+                // computed entry can not be outdated
+                dispatchIndex.put(eventClass, result);
+            } finally {
+                lock.readLock().unlock();
             }
-        } finally {
-            lock.readLock().unlock();
         }
-        return new HashSet<SosEventListener>(result);
+        return result;
     }
 
     public void submit(final SosEvent event) {
-        boolean submittedEvent = false;
         if (!checkEvent(event)) {
             return;
         }
-        lock.readLock().lock();
-        try {
-            for (final SosEventListener listener : getListenersForEvent(event)) {
-                submittedEvent = true;
-                LOG.debug("Queueing Event {} for Listener {}", event, listener);
-                queue.offer(new HandlerExecution(event, listener));
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-        HandlerExecution r;
-        while ((r = queue.poll()) != null) {
-            if (ASYNCHRONOUS_EXECUTION) {
-                executor.execute(r);
-            } else {
-                r.run();
-            }
-        }
-        if (!submittedEvent) {
+        final ListenerDispatcher[] dispatchersForEvent = getDispatchersForEvent(event);
+        if (dispatchersForEvent.length == 0) {
             LOG.debug("No Listeners for SosEvent {}", event);
+            return;
+        }
+        for (final ListenerDispatcher dispatcher : dispatchersForEvent) {
+            dispatcher.dispatch(event);
         }
     }
 
@@ -173,10 +190,14 @@ public class SosEventBus {
         }
         lock.writeLock().lock();
         try {
+            if (!dispatchers.containsKey(listener)) {
+                dispatchers.put(listener, new ListenerDispatcher(listener));
+            }
             for (final Class<? extends SosEvent> eventType : listener.getTypes()) {
                 LOG.debug("Subscibing Listener {} to EventType {}", listener, eventType);
                 listeners.add(eventType, listener);
             }
+            dispatchIndex.clear();
         } finally {
             lock.writeLock().unlock();
         }
@@ -190,76 +211,306 @@ public class SosEventBus {
         try {
             for (final Class<? extends SosEvent> eventType : listener.getTypes()) {
                 final Set<SosEventListener> listenersForKey = listeners.get(eventType);
-                if (listenersForKey.contains(listener)) {
+                if (listenersForKey != null && listenersForKey.contains(listener)) {
                     LOG.debug("Unsubscibing Listener {} from EventType {}", listener, eventType);
                     listenersForKey.remove(listener);
                 } else {
                     LOG.warn("Listener {} was not registered for SosEvent Type {}", listener, eventType);
                 }
             }
+            if (!listeners.containsCollectionValue(listener)) {
+                // already queued events are still handled
+                dispatchers.remove(listener);
+            }
+            dispatchIndex.clear();
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * @return the dispatching statistics of the registered listeners
+     *
+     * @since 4.4.0
+     */
+    public List<SosEventListenerMetrics> getMetrics() {
+        lock.readLock().lock();
+        try {
+            final List<SosEventListenerMetrics> metrics = Lists.newArrayListWithCapacity(dispatchers.size());
+            for (final ListenerDispatcher dispatcher : dispatchers.values()) {
+                metrics.add(dispatcher.getMetrics());
+            }
+            return metrics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Wait until the queued events of all asynchronous listeners are handled.
+     *
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of the timeout
+     * @return <code>true</code>, if all queues are empty
+     * @throws InterruptedException
+     *             If the current thread was interrupted while waiting
+     *
+     * @since 4.4.0
+     */
+    public boolean flush(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final List<ListenerDispatcher> toFlush;
+        lock.readLock().lock();
+        try {
+            toFlush = Lists.newArrayList(dispatchers.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (final ListenerDispatcher dispatcher : toFlush) {
+            if (!dispatcher.awaitEmpty(deadline)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if events of the type, or one of its subtypes, are queued for or
+     * handled by an asynchronous listener.
+     *
+     * @param eventType
+     *            the event type
+     * @return <code>true</code>, if an event of the type is not yet handled
+     *
+     * @since 4.4.0
+     */
+    public boolean isPending(final Class<? extends SosEvent> eventType) {
+        lock.readLock().lock();
+        try {
+            for (final ListenerDispatcher dispatcher : dispatchers.values()) {
+                if (dispatcher.isListeningTo(eventType) && !dispatcher.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     private static class LazyHolder {
         private static final SosEventBus INSTANCE = new SosEventBus();
 
         private LazyHolder() {}
     }
 
-    private class ClassCache {
-        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Event queued for an asynchronous listener
+     */
+    private static class QueuedEvent {
+        private SosEvent event;
 
-        private final SetMultiMap<Class<? extends SosEvent>, Class<? extends SosEvent>> cache = MultiMaps.newSetMultiMap();
+        private final long submitted;
 
-        public Set<Class<? extends SosEvent>> getClasses(final Class<? extends SosEvent> eventClass) {
-            lock.readLock().lock();
-            try {
-                final Set<Class<? extends SosEvent>> r = cache.get(eventClass);
-                if (r != null) {
-                    return r;
+        QueuedEvent(final SosEvent event, final long submitted) {
+            this.event = event;
+            this.submitted = submitted;
+        }
+    }
+
+    /**
+     * Delivers the events to a single listener and keeps its statistics.
+     */
+    private class ListenerDispatcher implements Runnable {
+        private final SosEventListener listener;
+
+        private final AsynchronousSosEventListener asynchronousListener;
+
+        private final ArrayDeque<QueuedEvent> queue = new ArrayDeque<QueuedEvent>();
+
+        private final ReentrantLock queueLock = new ReentrantLock();
+
+        private final Condition notFull = queueLock.newCondition();
+
+        private final Condition empty = queueLock.newCondition();
+
+        private boolean draining = false;
+
+        private volatile Thread worker;
+
+        private final AtomicLong handled = new AtomicLong(0);
+
+        private final AtomicLong failed = new AtomicLong(0);
+
+        private final AtomicLong dropped = new AtomicLong(0);
+
+        private final AtomicLong coalesced = new AtomicLong(0);
+
+        private final AtomicLong totalLatency = new AtomicLong(0);
+
+        private final AtomicLong maxLatency = new AtomicLong(0);
+
+        ListenerDispatcher(final SosEventListener listener) {
+            this.listener = listener;
+            if (listener instanceof AsynchronousSosEventListener) {
+                this.asynchronousListener = (AsynchronousSosEventListener) listener;
+            } else {
+                this.asynchronousListener = null;
+            }
+        }
+
+        void dispatch(final SosEvent event) {
+            final long submitted = System.nanoTime();
+            if (asynchronousListener == null || worker == Thread.currentThread()) {
+                // events fired by the listener itself are handled directly
+                // to avoid waiting for its own queue
+                handle(event, submitted);
+            } else if (!asynchronousListener.isAsynchronous() && isEmpty()) {
+                handle(event, submitted);
+            } else {
+                enqueue(event, submitted);
+            }
+        }
+
+        boolean isListeningTo(final Class<? extends SosEvent> eventType) {
+            for (final Class<? extends SosEvent> type : listener.getTypes()) {
+                if (eventType.isAssignableFrom(type)) {
+                    return true;
                 }
-            } finally {
-                lock.readLock().unlock();
             }
-            lock.writeLock().lock();
+            return false;
+        }
+
+        boolean isEmpty() {
+            queueLock.lock();
             try {
-                Set<Class<? extends SosEvent>> r = cache.get(eventClass);
-                if (r != null) {
-                    return r;
-                }
-                r = flatten(eventClass);
-                cache.put(eventClass, r);
-                return r;
+                return queue.isEmpty() && !draining;
             } finally {
-                lock.writeLock().unlock();
+                queueLock.unlock();
             }
         }
 
-        private Set<Class<? extends SosEvent>> flatten(final Class<? extends SosEvent> eventClass) {
-            return ClassHelper.flattenPartialHierachy(SosEvent.class, eventClass);
+        private void enqueue(final SosEvent event, final long submitted) {
+            boolean schedule = false;
+            queueLock.lock();
+            try {
+                final BackpressureStrategy strategy = asynchronousListener.getBackpressureStrategy();
+                if (strategy == BackpressureStrategy.COALESCE && coalesce(event)) {
+                    coalesced.incrementAndGet();
+                    return;
+                }
+                final int capacity = Math.max(1, asynchronousListener.getQueueCapacity());
+                while (queue.size() >= capacity) {
+                    if (strategy == BackpressureStrategy.DROP) {
+                        dropped.incrementAndGet();
+                        LOG.warn("Queue of Listener {} is full, dropping Event {}", listener, event);
+                        return;
+                    }
+                    notFull.awaitUninterruptibly();
+                }
+                LOG.debug("Queueing Event {} for Listener {}", event, listener);
+                queue.offer(new QueuedEvent(event, submitted));
+                if (!draining) {
+                    draining = true;
+                    schedule = true;
+                }
+            } finally {
+                queueLock.unlock();
+            }
+            if (schedule) {
+                executor.execute(this);
+            }
         }
-    }
-
-    private class HandlerExecution implements Runnable {
-        private final SosEvent event;
-
-        private final SosEventListener listener;
 
-        HandlerExecution(final SosEvent event, final SosEventListener listener) {
-            this.event = event;
-            this.listener = listener;
+        private boolean coalesce(final SosEvent event) {
+            final QueuedEvent last = queue.peekLast();
+            if (last != null) {
+                final SosEvent merged = asynchronousListener.coalesce(last.event, event);
+                if (merged != null) {
+                    LOG.debug("Coalescing Event {} into queued Event {} for Listener {}", event, last.event, listener);
+                    last.event = merged;
+                    return true;
+                }
+            }
+            return false;
         }
 
         @Override
         public void run() {
+            worker = Thread.currentThread();
+            try {
+                while (true) {
+                    final QueuedEvent next;
+                    queueLock.lock();
+                    try {
+                        next = queue.poll();
+                        if (next == null) {
+                            draining = false;
+                            empty.signalAll();
+                            return;
+                        }
+                        notFull.signalAll();
+                    } finally {
+                        queueLock.unlock();
+                    }
+                    handle(next.event, next.submitted);
+                }
+            } finally {
+                worker = null;
+            }
+        }
+
+        private void handle(final SosEvent event, final long submitted) {
             try {
                 LOG.debug("Submitting Event {} to Listener {}", event, listener);
                 listener.handle(event);
+                handled.incrementAndGet();
             } catch (final Throwable t) {
+                failed.incrementAndGet();
                 LOG.error(String.format("Error handling event %s by handler %s", event, listener), t);
+            } finally {
+                final long latency = System.nanoTime() - submitted;
+                totalLatency.addAndGet(latency);
+                long max = maxLatency.get();
+                while (latency > max && !maxLatency.compareAndSet(max, latency)) {
+                    max = maxLatency.get();
+                }
+            }
+        }
+
+        boolean awaitEmpty(final long deadline) throws InterruptedException {
+            queueLock.lock();
+            try {
+                while (!queue.isEmpty() || draining) {
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    empty.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        SosEventListenerMetrics getMetrics() {
+            final int depth;
+            queueLock.lock();
+            try {
+                depth = queue.size();
+            } finally {
+                queueLock.unlock();
             }
+            final long count = handled.get() + failed.get();
+            final long mean = count == 0 ? 0 : totalLatency.get() / count;
+            return new SosEventListenerMetrics(listener.getClass().getName(),
+                    asynchronousListener != null && asynchronousListener.isAsynchronous(), depth,
+                    asynchronousListener == null ? 0 : asynchronousListener.getQueueCapacity(), handled.get(),
+                    failed.get(), dropped.get(), coalesced.get(), TimeUnit.NANOSECONDS.toMillis(mean),
+                    TimeUnit.NANOSECONDS.toMillis(maxLatency.get()));
         }
     }
 }
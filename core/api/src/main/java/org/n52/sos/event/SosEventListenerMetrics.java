@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.event;
+
+import com.google.common.base.Objects;
+
+/**
+ * Snapshot of the dispatching statistics of a {@link SosEventListener}.
+ *
+ * @since 4.4.0
+ */
+public class SosEventListenerMetrics {
+    private final String listener;
+
+    private final boolean asynchronous;
+
+    private final int queueDepth;
+
+    private final int queueCapacity;
+
+    private final long handled;
+
+    private final long failed;
+
+    private final long dropped;
+
+    private final long coalesced;
+
+    private final long meanLatency;
+
+    private final long maxLatency;
+
+    public SosEventListenerMetrics(String listener, boolean asynchronous, int queueDepth, int queueCapacity,
+            long handled, long failed, long dropped, long coalesced, long meanLatency, long maxLatency) {
+        this.listener = listener;
+        this.asynchronous = asynchronous;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.handled = handled;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.meanLatency = meanLatency;
+        this.maxLatency = maxLatency;
+    }
+
+    /**
+     * @return the name of the listener
+     */
+    public String getListener() {
+        return listener;
+    }
+
+    /**
+     * @return <code>true</code>, if the listener handles events asynchronously
+     */
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    /**
+     * @return the number of queued events
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the queue capacity, <code>0</code> for synchronous listeners
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the number of handled events
+     */
+    public long getHandled() {
+        return handled;
+    }
+
+    /**
+     * @return the number of events the listener failed to handle
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the number of events dropped because of a full queue
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of events merged into queued events
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return the mean time in milliseconds from submission until the event
+     *         was handled
+     */
+    public long getMeanLatency() {
+        return meanLatency;
+    }
+
+    /**
+     * @return the maximum time in milliseconds from submission until the
+     *         event was handled
+     */
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).omitNullValues()
+                .add("listener", getListener())
+                .add("asynchronous", isAsynchronous())
+                .add("queueDepth", getQueueDepth())
+                .add("queueCapacity", getQueueCapacity())
+                .add("handled", getHandled())
+                .add("failed", getFailed())
+                .add("dropped", getDropped())
+                .add("coalesced", getCoalesced())
+                .add("meanLatency", getMeanLatency())
+                .add("maxLatency", getMaxLatency())
+                .toString();
+    }
+}
@@ -73,7 +73,7 @@ public abstract class AbstractStreaming extends AbstractObservationValue<Value<O
     public abstract OmObservation nextSingleObservation(boolean withIdentifierNameDesription) throws OwsExceptionReport;
     
     public Collection<OmObservation> mergeObservation() throws OwsExceptionReport {
-        return mergeObservation(getObservation());
+        return getObservationMerger().mergeObservations(this, getObservationMergeIndicator());
     }
     
     public Collection<OmObservation> mergeObservation(Collection<OmObservation> observations) throws OwsExceptionReport {
@@ -124,6 +124,16 @@ public abstract class AbstractStreaming extends AbstractObservationValue<Value<O
         return observations;
     }
 
+    /**
+     * Release the resources, e.g. datasource sessions, still held by the
+     * streaming values. Called after the response was written, also if the
+     * writing was aborted. The default implementation does nothing.
+     *
+     * @since 4.4.0
+     */
+    public void close() {
+    }
+
     public void add(AdditionalRequestParams parameter, Object object) {
         additionalRequestParams.put(parameter, object);
     }
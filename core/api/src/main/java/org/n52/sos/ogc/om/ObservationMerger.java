@@ -28,53 +28,81 @@
  */
 package org.n52.sos.ogc.om;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
+import org.n52.sos.ogc.gml.AbstractFeature;
+import org.n52.sos.ogc.gml.time.Time;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosProcedureDescription;
 import org.n52.sos.util.CollectionHelper;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.vividsolutions.jts.geom.Geometry;
 
+/**
+ * Merges observations that share the properties selected by an
+ * {@link ObservationMergeIndicator}.
+ * <p>
+ * Observations are grouped by a merge key derived from the indicator, so
+ * merging a collection takes linear time instead of comparing each
+ * observation with every previously merged one. The key is only a coarse
+ * grouping, the final decision is still made by
+ * {@link #checkForMerge(OmObservation, OmObservation, ObservationMergeIndicator)}
+ * for the few candidates sharing a key.
+ */
 public class ObservationMerger {
-    
+
     public List<OmObservation> mergeObservations(Collection<OmObservation> observations, ObservationMergeIndicator observationMergeIndicator) {
         if (CollectionHelper.isNotEmpty(observations)) {
-            final List<OmObservation> mergedObservations = new LinkedList<OmObservation>();
-            int obsIdCounter = 1;
+            final MergeContext context = new MergeContext(observationMergeIndicator);
             for (final OmObservation sosObservation : observations) {
-                if (mergedObservations.isEmpty()) {
-                    sosObservation.setObservationID(Integer.toString(obsIdCounter++));
-                    mergedObservations.add(sosObservation);
-                } else {
-                    boolean combined = false;
-                    for (final OmObservation combinedSosObs : mergedObservations) {
-                        if (checkForMerge(combinedSosObs, sosObservation, observationMergeIndicator)) {
-//                        if (combinedSosObs.checkForMerge(sosObservation)) {
-                            combinedSosObs.setResultTime(null);
-                            combinedSosObs.mergeWithObservation(sosObservation);
-                            combined = true;
-                            break;
-                        }
-                    }
-                    if (!combined) {
-                        mergedObservations.add(sosObservation);
-                    }
-                }
+                context.add(sosObservation);
             }
-            return mergedObservations;
+            return context.getMergedObservations();
         }
         return Lists.newArrayList(observations);
     }
-    
+
+    /**
+     * Merge the observations of a streaming value on the fly. Each
+     * observation is merged into its group as soon as it is read, so the
+     * unmerged observations are never collected in memory.
+     *
+     * @param streaming
+     *            the streaming value to read the observations from
+     * @param observationMergeIndicator
+     *            the properties that merged observations have to share
+     * @return the merged observations
+     * @throws OwsExceptionReport
+     *             If an error occurs while reading the streaming value
+     *
+     * @since 4.4.0
+     */
+    public List<OmObservation> mergeObservations(AbstractStreaming streaming, ObservationMergeIndicator observationMergeIndicator) throws OwsExceptionReport {
+        final MergeContext context = new MergeContext(observationMergeIndicator);
+        do {
+            OmObservation sosObservation = streaming.nextSingleObservation();
+            if (sosObservation != null) {
+                context.add(sosObservation);
+            }
+        } while (streaming.hasNextValue());
+        return context.getMergedObservations();
+    }
+
     public List<OmObservation> mergeObservations(Collection<OmObservation> observations) {
         return mergeObservations(observations, new ObservationMergeIndicator());
     }
     
     public OmObservation mergeObservations(OmObservation observation, OmObservation observationToAdd, ObservationMergeIndicator observationMergeIndicator) {
         if (checkForMerge(observation, observationToAdd, observationMergeIndicator)) {
-            observation.setResultTime(null);
-            observation.mergeWithObservation(observationToAdd);
+            merge(observation, observationToAdd, observationMergeIndicator);
             return observation;
         }
         return observation;
@@ -83,7 +111,86 @@ public class ObservationMerger {
     public OmObservation mergeObservations(OmObservation observation, OmObservation observationToAdd) {
         return mergeObservations(observation, observationToAdd, new ObservationMergeIndicator());
     }
-    
+
+    protected void merge(OmObservation observation, OmObservation observationToAdd, ObservationMergeIndicator observationMergeIndicator) {
+        if (!observationMergeIndicator.isSetResultTime()) {
+            observation.setResultTime(null);
+        }
+        observation.mergeWithObservation(observationToAdd);
+    }
+
+    /**
+     * Create the key used to group observations before they are compared
+     * with {@link #checkForMerge(OmObservation, OmObservation, ObservationMergeIndicator)}.
+     * Observations that could be merged must get equal keys, observations
+     * with equal keys are not necessarily mergeable.
+     *
+     * @param observation
+     *            the observation to create the key for
+     * @param observationMergeIndicator
+     *            the properties that merged observations have to share
+     * @return the merge key
+     *
+     * @since 4.4.0
+     */
+    protected Object createMergeKey(OmObservation observation, ObservationMergeIndicator observationMergeIndicator) {
+        final OmObservationConstellation constellation = observation.getObservationConstellation();
+        final List<Object> key = Lists.newArrayListWithCapacity(8);
+        key.add(observation.isSetAdditionalMergeIndicator() ? observation.getAdditionalMergeIndicator() : null);
+        if (observationMergeIndicator.sameObservationConstellation()) {
+            key.add(constellation.hashCode());
+        } else {
+            if (observationMergeIndicator.isProcedure()) {
+                key.add(getIdentifier(constellation.getProcedure()));
+            }
+            if (observationMergeIndicator.isObservableProperty()) {
+                key.add(getIdentifier(constellation.getObservableProperty()));
+            }
+            if (observationMergeIndicator.isFeatureOfInterest()) {
+                key.add(getIdentifier(constellation.getFeatureOfInterest()));
+            }
+            if (observationMergeIndicator.isOfferings()) {
+                key.add(constellation.getOfferings() == null ? null : Sets.newHashSet(constellation.getOfferings()));
+            }
+        }
+        if (observationMergeIndicator.isPhenomenonTime()) {
+            key.add(getTimeKey(observation.getPhenomenonTime()));
+        }
+        if (observationMergeIndicator.isSetResultTime()) {
+            key.add(getTimeKey(observation.getResultTime()));
+        }
+        if (observationMergeIndicator.isSamplingGeometry() && observation.isSetSpatialFilteringProfileParameter()) {
+            Geometry geometry = observation.getSpatialFilteringProfileParameter().getValue().getValue();
+            key.add(geometry == null ? null : geometry.getEnvelopeInternal());
+        }
+        return key;
+    }
+
+    private Object getIdentifier(SosProcedureDescription procedure) {
+        return procedure == null ? null : procedure.getIdentifier();
+    }
+
+    private Object getIdentifier(AbstractPhenomenon phenomenon) {
+        return phenomenon == null ? null : phenomenon.getIdentifier();
+    }
+
+    private Object getIdentifier(AbstractFeature feature) {
+        return feature == null ? null : feature.getIdentifier();
+    }
+
+    /**
+     * Time equality is based on the instant, so the key uses the
+     * milliseconds instead of the (time zone sensitive) hash code.
+     */
+    private Object getTimeKey(Time time) {
+        if (time instanceof TimeInstant && ((TimeInstant) time).isSetValue()) {
+            return ((TimeInstant) time).getValue().getMillis();
+        } else if (time instanceof TimePeriod && ((TimePeriod) time).isSetStart() && ((TimePeriod) time).isSetEnd()) {
+            return Arrays.asList(((TimePeriod) time).getStart().getMillis(), ((TimePeriod) time).getEnd().getMillis());
+        }
+        return null;
+    }
+
     protected boolean checkForMerge(OmObservation observation, OmObservation observationToAdd, ObservationMergeIndicator observationMergeIndicator) {
         boolean merge = true;
         if (observation.isSetAdditionalMergeIndicator() && observationToAdd.isSetAdditionalMergeIndicator()) {
@@ -144,6 +251,9 @@ public class ObservationMerger {
     }
     
     protected boolean checkForResultTime(OmObservation observation, OmObservation observationToAdd) {
+        if (observation.getResultTime() == null) {
+            return observationToAdd.getResultTime() == null;
+        }
         return observation.getResultTime().equals(observationToAdd.getResultTime());
     }
     
@@ -167,4 +277,50 @@ public class ObservationMerger {
                 && !OmConstants.OBS_TYPE_UNKNOWN.equals(observationConstellation.getObservationType()));
     }
     
+    /**
+     * Holds the merged observations and their grouping while merging.
+     */
+    private class MergeContext {
+
+        private final ObservationMergeIndicator observationMergeIndicator;
+
+        private final Map<Object, List<OmObservation>> groups = Maps.newHashMap();
+
+        private final List<OmObservation> mergedObservations = Lists.newArrayList();
+
+        MergeContext(ObservationMergeIndicator observationMergeIndicator) {
+            this.observationMergeIndicator = observationMergeIndicator;
+        }
+
+        void add(OmObservation sosObservation) {
+            if (mergedObservations.isEmpty()) {
+                sosObservation.setObservationID("1");
+            }
+            if (!checkObservationTypeForMerging(sosObservation.getObservationConstellation())) {
+                // can not be merged with any other observation
+                mergedObservations.add(sosObservation);
+                return;
+            }
+            Object key = createMergeKey(sosObservation, observationMergeIndicator);
+            List<OmObservation> candidates = groups.get(key);
+            if (candidates == null) {
+                candidates = Lists.newArrayListWithCapacity(1);
+                groups.put(key, candidates);
+            } else {
+                for (OmObservation combinedSosObs : candidates) {
+                    if (checkForMerge(combinedSosObs, sosObservation, observationMergeIndicator)) {
+                        merge(combinedSosObs, sosObservation, observationMergeIndicator);
+                        return;
+                    }
+                }
+            }
+            candidates.add(sosObservation);
+            mergedObservations.add(sosObservation);
+        }
+
+        List<OmObservation> getMergedObservations() {
+            return mergedObservations;
+        }
+    }
+
 }
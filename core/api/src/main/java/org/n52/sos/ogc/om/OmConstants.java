@@ -166,6 +166,10 @@ public interface OmConstants {
     String EN_NAMED_VALUE = "NamedValue";
 
     String EN_VALID_TIME = "validTime";
+
+    String EN_NAME = "name";
+
+    String EN_VALUE = "value";
     
     // /////////////////////////////////////////////////////////////////////////////////
     // other constants
@@ -299,6 +303,10 @@ public interface OmConstants {
     QName QN_OM_20_PARAMETER = new QName(NS_OM_2, EN_PARAMETER, NS_OM_PREFIX);
 
     QName QN_OM_20_NAMED_VALUE = new QName(NS_OM_2, EN_NAMED_VALUE, NS_OM_PREFIX);
+
+    QName QN_OM_20_NAME = new QName(NS_OM_2, EN_NAME, NS_OM_PREFIX);
+
+    QName QN_OM_20_VALUE = new QName(NS_OM_2, EN_VALUE, NS_OM_PREFIX);
     
     Set<String> OBSERVATION_TYPES = ImmutableSet.of(
             OBS_TYPE_MEASUREMENT,
@@ -37,12 +37,15 @@ import org.slf4j.LoggerFactory;
 import org.n52.sos.exception.ows.concrete.DateTimeParseException;
 import org.n52.sos.ogc.UoM;
 import org.n52.sos.ogc.gml.time.Time;
+import org.n52.sos.ogc.gml.time.TimeInstant;
 import org.n52.sos.ogc.gml.time.TimePeriod;
 import org.n52.sos.ogc.om.OmConstants;
 import org.n52.sos.ogc.om.values.visitor.ValueVisitor;
 import org.n52.sos.ogc.om.values.visitor.VoidValueVisitor;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.swe.SweDataArray;
+import org.n52.sos.ogc.swe.SweDataArrayColumns;
+import org.n52.sos.ogc.swe.SweDataArrayColumns.ColumnType;
 import org.n52.sos.ogc.swe.SweDataRecord;
 import org.n52.sos.ogc.swe.SweField;
 import org.n52.sos.ogc.swe.simpleType.SweTime;
@@ -162,22 +165,30 @@ public class SweDataArrayValue implements MultiValue<SweDataArray> {
 
             }
             if (CollectionHelper.isNotEmpty(dateTokenIndizes)) {
+                // typed time columns are read without parsing the tokens
+                final SweDataArrayColumns columns = getValue().getColumns();
+                int row = 0;
                 for (final List<String> block : getValue().getValues()) {
                     // check for "/" to identify time periods (Is
                     // conform with ISO8601 (see WP))
                     // datetimehelper to DateTime from joda time
                     for (Integer index : dateTokenIndizes) {
-                    	String token = null;
                     	try {
-	                    	token = block.get(index);
-	                    	final Time time = DateTimeHelper.parseIsoString2DateTime2Time(token);
+                    	    final Time time;
+                    	    if (columns != null && index < columns.getColumnCount()
+                    	            && columns.getColumnType(index) == ColumnType.TIME) {
+                    	        time = new TimeInstant(columns.getDateTime(row, index));
+                    	    } else {
+                    	        time = DateTimeHelper.parseIsoString2DateTime2Time(block.get(index));
+                    	    }
 	                        timePeriod.extendToContain(time);
 	                    } catch (final DateTimeParseException dte) {
-	                         LOGGER.error(String.format("Could not parse ISO8601 string \"%s\"", token), dte);
+	                         LOGGER.error(String.format("Could not parse ISO8601 string \"%s\"", block.get(index)), dte);
 	                         // FIXME throw exception here?
 	                         continue; // try next block;
 	                     }
 					}
+                    row++;
                 }
             } else {
                 final String errorMsg
@@ -47,4 +47,8 @@ public interface Sos2StreamingConstants extends Sos2Constants {
     public static final QName QN_GET_FEATURE_OF_INTEREST_RESPONSE = new QName(NS_SOS_20, EN_GET_FEATURE_OF_INTEREST_RESPONSE, NS_SOS_PREFIX);
 
     public static final QName QN_FEATURE_MEMBER = new QName(NS_SOS_20, EN_FEATURE_MEMBER, NS_SOS_PREFIX);
+
+    public static final String EN_RESULT_VALUES = "resultValues";
+
+    public static final QName QN_RESULT_VALUES = new QName(NS_SOS_20, EN_RESULT_VALUES, NS_SOS_PREFIX);
 }
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ogc.sos;
+
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+/**
+ * Source of text encoded result values for a GetResult response which are
+ * queried block by block while the response is written instead of being
+ * concatenated into one string.
+ * <p>
+ * The written result values are the element count followed by the blocks,
+ * all separated by the block separator, as produced for not streamed
+ * responses.
+ * 
+ * @since 4.4.0
+ *
+ */
+public abstract class StreamingResultValues {
+
+    private boolean first = true;
+
+    /**
+     * Check if a further block is available. Like
+     * {@link org.n52.sos.ogc.om.AbstractStreaming#hasNextValue()} this method
+     * has to be called once before each call of {@link #nextBlock()}.
+     * 
+     * @return <code>true</code>, if a further block is available
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public abstract boolean hasNextBlock() throws OwsExceptionReport;
+
+    /**
+     * Get the token separated values of the next block without block
+     * separator
+     * 
+     * @return the next block
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public abstract String nextBlock() throws OwsExceptionReport;
+
+    /**
+     * @return the number of blocks
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public abstract long getElementCount() throws OwsExceptionReport;
+
+    /**
+     * @return the block separator of the result encoding
+     */
+    public abstract String getBlockSeparator();
+
+    /**
+     * Check if further result values are available
+     * 
+     * @return <code>true</code>, if further result values are available
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     * @see #hasNextBlock()
+     */
+    public boolean hasNextValues() throws OwsExceptionReport {
+        return hasNextBlock();
+    }
+
+    /**
+     * Get the next part of the result values to write. The first part is
+     * prefixed with the element count, the following parts with the block
+     * separator, so concatenating all parts results in the complete result
+     * values.
+     * 
+     * @return the next part of the result values
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public String nextValues() throws OwsExceptionReport {
+        StringBuilder builder = new StringBuilder();
+        if (first) {
+            builder.append(getElementCount()).append(getBlockSeparator());
+            first = false;
+        } else {
+            builder.append(getBlockSeparator());
+        }
+        return builder.append(nextBlock()).toString();
+    }
+
+    /**
+     * Concatenate all remaining result values into one string
+     * 
+     * @return the result values
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public String getResultValues() throws OwsExceptionReport {
+        StringBuilder builder = new StringBuilder();
+        while (hasNextValues()) {
+            builder.append(nextValues());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Release the resources, e.g. datasource sessions, still held by the
+     * result values. Called after the response was written, also if the
+     * writing was aborted. The default implementation does nothing.
+     */
+    public void close() {
+    }
+
+}
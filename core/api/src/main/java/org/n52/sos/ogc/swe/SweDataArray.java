@@ -47,6 +47,8 @@ public class SweDataArray extends SweAbstractDataComponent {
      * swe:values<br />
      * Each list entry represents one block, a list of tokens.<br />
      * Atm, this implementation using java.lang.String to represent each token.
+     * If the element type allows it, the tokens are stored in typed columns,
+     * see {@link SweDataArrayColumns}.
      */
     private List<List<String>> values;
 
@@ -142,18 +144,48 @@ public class SweDataArray extends SweAbstractDataComponent {
      */
     public boolean add(final List<String> blockOfTokensToAddAtTheEnd) {
         if (values == null) {
-            values = new LinkedList<List<String>>();
+            values = createValues();
         }
         return values.add(blockOfTokensToAddAtTheEnd);
     }
     
     public boolean addAll(List<List<String>> newValues) {
         if (values == null) {
-            values = new LinkedList<List<String>>();
+            values = createValues();
         }
         return values.addAll(newValues);
     }
 
+    private List<List<String>> createValues() {
+        SweDataArrayColumns columns = SweDataArrayColumns.forElementType(getElementType());
+        if (columns != null) {
+            return columns;
+        }
+        return new LinkedList<List<String>>();
+    }
+
+    /**
+     * @return the columnar values or <code>null</code> if the values are not
+     *         stored in columns
+     *
+     * @since 4.4.0
+     */
+    public SweDataArrayColumns getColumns() {
+        if (values instanceof SweDataArrayColumns && ((SweDataArrayColumns) values).isColumnar()) {
+            return (SweDataArrayColumns) values;
+        }
+        return null;
+    }
+
+    /**
+     * @return <tt>true</tt>, if the values are stored in typed columns
+     *
+     * @since 4.4.0
+     */
+    public boolean isColumnar() {
+        return getColumns() != null;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 23;
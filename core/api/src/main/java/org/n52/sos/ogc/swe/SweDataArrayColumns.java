@@ -0,0 +1,678 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ogc.swe;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.n52.sos.exception.ows.concrete.DateTimeParseException;
+import org.n52.sos.ogc.swe.simpleType.SweAbstractSimpleType;
+import org.n52.sos.ogc.swe.simpleType.SweCount;
+import org.n52.sos.ogc.swe.simpleType.SweQuantity;
+import org.n52.sos.ogc.swe.simpleType.SweTime;
+import org.n52.sos.util.DateTimeHelper;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Columnar storage for the values of a {@link SweDataArray}.
+ * <p>
+ * Each token position of the element type is stored in its own column:
+ * quantities and counts as unscaled decimals, times as epoch milliseconds and
+ * all other simple types dictionary encoded. Tokens are stored losslessly, a
+ * token that does not fit the column type is kept as literal, so the
+ * {@link List}<{@link List}<{@link String}>> view returns exactly the tokens
+ * that were added. Typed values can be read without parsing via
+ * {@link #getDouble(int, int)}, {@link #getLong(int, int)} and
+ * {@link #getDateTime(int, int)}.
+ * <p>
+ * If a block does not match the number of columns the storage falls back to a
+ * plain list of blocks.
+ *
+ * @since 4.4.0
+ */
+public class SweDataArrayColumns extends AbstractList<List<String>> {
+
+    /**
+     * Type of a column
+     */
+    public enum ColumnType {
+        DOUBLE, LONG, TIME, CATEGORY
+    }
+
+    private final ColumnType[] types;
+
+    private Column[] columns;
+
+    private int size;
+
+    private List<List<String>> fallback;
+
+    public SweDataArrayColumns(List<ColumnType> types) {
+        Preconditions.checkArgument(types != null && !types.isEmpty(), "At least one column is required!");
+        this.types = types.toArray(new ColumnType[types.size()]);
+        this.columns = new Column[this.types.length];
+        for (int i = 0; i < this.types.length; i++) {
+            this.columns[i] = createColumn(this.types[i]);
+        }
+    }
+
+    /**
+     * Create a columnar storage for the element type of a {@link SweDataArray}
+     *
+     * @param elementType
+     *            the element type
+     * @return the columnar storage or <code>null</code> if the element type
+     *         can not be mapped to columns
+     */
+    public static SweDataArrayColumns forElementType(SweAbstractDataComponent elementType) {
+        if (elementType instanceof DataRecord) {
+            List<ColumnType> types = Lists.newArrayList();
+            if (addColumnTypes((DataRecord) elementType, types) && !types.isEmpty()) {
+                return new SweDataArrayColumns(types);
+            }
+        }
+        return null;
+    }
+
+    private static boolean addColumnTypes(DataRecord record, List<ColumnType> types) {
+        if (!record.isSetFields()) {
+            return false;
+        }
+        for (SweField field : record.getFields()) {
+            SweAbstractDataComponent element = field.getElement();
+            if (element instanceof SweQuantity) {
+                types.add(ColumnType.DOUBLE);
+            } else if (element instanceof SweCount) {
+                types.add(ColumnType.LONG);
+            } else if (element instanceof SweTime) {
+                types.add(ColumnType.TIME);
+            } else if (element instanceof SweAbstractSimpleType) {
+                types.add(ColumnType.CATEGORY);
+            } else if (element instanceof DataRecord) {
+                if (!addColumnTypes((DataRecord) element, types)) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Column createColumn(ColumnType type) {
+        switch (type) {
+        case DOUBLE:
+        case LONG:
+            return new DecimalColumn();
+        case TIME:
+            return new TimeColumn();
+        default:
+            return new CategoryColumn();
+        }
+    }
+
+    @Override
+    public boolean add(List<String> block) {
+        if (isColumnar() && block != null && block.size() == columns.length) {
+            for (int i = 0; i < columns.length; i++) {
+                if (!columns[i].add(block.get(i))) {
+                    columns[i] = columns[i].toCategory();
+                }
+            }
+            size++;
+            modCount++;
+            return true;
+        }
+        if (isColumnar()) {
+            materialize();
+        }
+        modCount++;
+        return fallback.add(block);
+    }
+
+    @Override
+    public List<String> get(int index) {
+        if (!isColumnar()) {
+            return fallback.get(index);
+        }
+        Preconditions.checkElementIndex(index, size);
+        return new Block(index);
+    }
+
+    @Override
+    public int size() {
+        return isColumnar() ? size : fallback.size();
+    }
+
+    /**
+     * @return <code>true</code>, if the values are stored in columns
+     */
+    public boolean isColumnar() {
+        return fallback == null;
+    }
+
+    /**
+     * @return the number of columns (tokens per block)
+     */
+    public int getColumnCount() {
+        return types.length;
+    }
+
+    /**
+     * @param column
+     *            the column index
+     * @return the type of the column derived from the element type
+     */
+    public ColumnType getColumnType(int column) {
+        return types[column];
+    }
+
+    /**
+     * Get the token of a block
+     *
+     * @param row
+     *            the block index
+     * @param column
+     *            the token index
+     * @return the token
+     */
+    public String getToken(int row, int column) {
+        if (!isColumnar()) {
+            return fallback.get(row).get(column);
+        }
+        return columns[column].getString(row);
+    }
+
+    /**
+     * Get the token of a block as double without parsing it if it is stored
+     * in a decimal column.
+     *
+     * @param row
+     *            the block index
+     * @param column
+     *            the token index
+     * @return the double value
+     * @throws NumberFormatException
+     *             If the token is not a number
+     */
+    public double getDouble(int row, int column) {
+        if (isColumnar() && columns[column] instanceof DecimalColumn && !columns[column].isLiteral(row)) {
+            return ((DecimalColumn) columns[column]).getDouble(row);
+        }
+        return Double.parseDouble(getToken(row, column));
+    }
+
+    /**
+     * Get the token of a block as long without parsing it if it is stored as
+     * integer in a decimal column.
+     *
+     * @param row
+     *            the block index
+     * @param column
+     *            the token index
+     * @return the long value
+     * @throws NumberFormatException
+     *             If the token is not an integer
+     */
+    public long getLong(int row, int column) {
+        if (isColumnar() && columns[column] instanceof DecimalColumn && !columns[column].isLiteral(row)
+                && ((DecimalColumn) columns[column]).getScale(row) == 0) {
+            return ((DecimalColumn) columns[column]).getUnscaled(row);
+        }
+        return Long.parseLong(getToken(row, column));
+    }
+
+    /**
+     * Get the token of a block as {@link DateTime} without parsing it if it is
+     * stored in a time column.
+     *
+     * @param row
+     *            the block index
+     * @param column
+     *            the token index
+     * @return the time value
+     * @throws DateTimeParseException
+     *             If the token is not an ISO 8601 time
+     */
+    public DateTime getDateTime(int row, int column) throws DateTimeParseException {
+        if (isColumnar() && columns[column] instanceof TimeColumn && !columns[column].isLiteral(row)) {
+            return ((TimeColumn) columns[column]).getDateTime(row);
+        }
+        return DateTimeHelper.parseIsoString2DateTime(getToken(row, column));
+    }
+
+    /**
+     * Append a block to the builder without creating the token strings of
+     * typed columns.
+     *
+     * @param builder
+     *            the builder to append to
+     * @param row
+     *            the block index
+     * @param tokenSeparator
+     *            the token separator
+     * @return the builder
+     */
+    public StringBuilder appendBlock(StringBuilder builder, int row, String tokenSeparator) {
+        if (!isColumnar()) {
+            boolean first = true;
+            for (String token : fallback.get(row)) {
+                if (!first) {
+                    builder.append(tokenSeparator);
+                }
+                builder.append(token);
+                first = false;
+            }
+            return builder;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                builder.append(tokenSeparator);
+            }
+            columns[i].append(builder, row);
+        }
+        return builder;
+    }
+
+    /**
+     * Append all blocks to the builder.
+     *
+     * @param builder
+     *            the builder to append to
+     * @param tokenSeparator
+     *            the token separator
+     * @param blockSeparator
+     *            the block separator
+     * @return the builder
+     */
+    public StringBuilder appendTo(StringBuilder builder, String tokenSeparator, String blockSeparator) {
+        for (int row = 0; row < size(); row++) {
+            if (row > 0) {
+                builder.append(blockSeparator);
+            }
+            appendBlock(builder, row, tokenSeparator);
+        }
+        return builder;
+    }
+
+    private void materialize() {
+        List<List<String>> blocks = new ArrayList<List<String>>(Math.max(size, 10));
+        for (int row = 0; row < size; row++) {
+            blocks.add(new ArrayList<String>(new Block(row)));
+        }
+        this.fallback = blocks;
+        this.columns = null;
+    }
+
+    /**
+     * Read only view of a block
+     */
+    private class Block extends AbstractList<String> {
+        private final int row;
+
+        Block(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public String get(int index) {
+            return getToken(row, index);
+        }
+
+        @Override
+        public int size() {
+            return isColumnar() ? types.length : fallback.get(row).size();
+        }
+    }
+
+    /**
+     * Column of tokens with optional literals for tokens that could not be
+     * stored typed.
+     */
+    private abstract static class Column {
+        private static final int MIN_LITERALS = 64;
+
+        protected int size;
+
+        private Map<Integer, String> literals;
+
+        /**
+         * @return <code>false</code>, if the column should be replaced by a
+         *         {@link CategoryColumn} because it holds too many literals
+         */
+        boolean add(String token) {
+            boolean typed = token != null && addTyped(token);
+            if (!typed) {
+                addPlaceholder();
+                if (literals == null) {
+                    literals = Maps.newHashMap();
+                }
+                literals.put(size, token);
+            }
+            size++;
+            return literals == null || literals.size() < MIN_LITERALS || literals.size() * 4 < size;
+        }
+
+        boolean isLiteral(int row) {
+            return literals != null && literals.containsKey(row);
+        }
+
+        String getString(int row) {
+            if (isLiteral(row)) {
+                return literals.get(row);
+            }
+            return format(row);
+        }
+
+        void append(StringBuilder builder, int row) {
+            builder.append(getString(row));
+        }
+
+        CategoryColumn toCategory() {
+            CategoryColumn column = new CategoryColumn();
+            for (int row = 0; row < size; row++) {
+                column.add(getString(row));
+            }
+            return column;
+        }
+
+        /**
+         * Store the token typed if it can be restored exactly
+         */
+        abstract boolean addTyped(String token);
+
+        abstract void addPlaceholder();
+
+        abstract String format(int row);
+
+        static int grow(int length, int size) {
+            return size < length ? length : Math.max(16, length + (length >> 1));
+        }
+    }
+
+    /**
+     * Plain decimal tokens as unscaled long and scale
+     */
+    private static class DecimalColumn extends Column {
+        private static final int MAX_DIGITS = 18;
+
+        private static final long MAX_EXACT = 1L << 53;
+
+        private static final double[] POW10 = new double[MAX_DIGITS + 1];
+
+        static {
+            POW10[0] = 1;
+            for (int i = 1; i < POW10.length; i++) {
+                POW10[i] = POW10[i - 1] * 10;
+            }
+        }
+
+        private long[] unscaled = new long[0];
+
+        private byte[] scale = new byte[0];
+
+        @Override
+        boolean addTyped(String token) {
+            int length = token.length();
+            boolean negative = length > 0 && token.charAt(0) == '-';
+            int start = negative ? 1 : 0;
+            long value = 0;
+            int digits = 0;
+            int integerDigits = 0;
+            int fractionDigits = -1;
+            for (int i = start; i < length; i++) {
+                char c = token.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    if (++digits > MAX_DIGITS) {
+                        return false;
+                    }
+                    value = value * 10 + (c - '0');
+                    if (fractionDigits < 0) {
+                        integerDigits++;
+                    } else {
+                        fractionDigits++;
+                    }
+                } else if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else {
+                    return false;
+                }
+            }
+            if (integerDigits == 0 || fractionDigits == 0 || (integerDigits > 1 && token.charAt(start) == '0')
+                    || (negative && value == 0)) {
+                // not restorable, e.g. ".5", "5.", "05" or "-0"
+                return false;
+            }
+            ensureCapacity();
+            unscaled[size] = negative ? -value : value;
+            scale[size] = (byte) Math.max(fractionDigits, 0);
+            return true;
+        }
+
+        @Override
+        void addPlaceholder() {
+            ensureCapacity();
+            unscaled[size] = 0;
+            scale[size] = 0;
+        }
+
+        private void ensureCapacity() {
+            if (size == unscaled.length) {
+                int length = grow(unscaled.length, size);
+                unscaled = Arrays.copyOf(unscaled, length);
+                scale = Arrays.copyOf(scale, length);
+            }
+        }
+
+        long getUnscaled(int row) {
+            return unscaled[row];
+        }
+
+        int getScale(int row) {
+            return scale[row];
+        }
+
+        double getDouble(int row) {
+            if (Math.abs(unscaled[row]) > MAX_EXACT) {
+                return Double.parseDouble(format(row));
+            }
+            return unscaled[row] / POW10[scale[row]];
+        }
+
+        @Override
+        String format(int row) {
+            return append(new StringBuilder(MAX_DIGITS + 3), unscaled[row], scale[row]).toString();
+        }
+
+        @Override
+        void append(StringBuilder builder, int row) {
+            if (isLiteral(row)) {
+                super.append(builder, row);
+            } else {
+                append(builder, unscaled[row], scale[row]);
+            }
+        }
+
+        private static StringBuilder append(StringBuilder builder, long value, int scale) {
+            if (scale == 0) {
+                return builder.append(value);
+            }
+            if (value < 0) {
+                builder.append('-');
+            }
+            String digits = Long.toString(Math.abs(value));
+            int integerDigits = digits.length() - scale;
+            if (integerDigits > 0) {
+                builder.append(digits, 0, integerDigits).append('.');
+            } else {
+                builder.append("0.");
+                for (int i = integerDigits; i < 0; i++) {
+                    builder.append('0');
+                }
+                integerDigits = 0;
+            }
+            builder.append(digits, integerDigits, digits.length());
+            return builder;
+        }
+    }
+
+    /**
+     * ISO 8601 time tokens as epoch milliseconds with the time zone and
+     * format of the column.
+     */
+    private static class TimeColumn extends Column {
+        private static final DateTimeFormatter[] FORMATTERS =
+                new DateTimeFormatter[] { ISODateTimeFormat.dateTime(), ISODateTimeFormat.dateTimeNoMillis() };
+
+        private long[] millis = new long[0];
+
+        private DateTimeZone zone;
+
+        private DateTimeFormatter formatter;
+
+        @Override
+        boolean addTyped(String token) {
+            DateTime dateTime;
+            try {
+                dateTime = DateTimeHelper.parseIsoString2DateTime(token);
+            } catch (DateTimeParseException dtpe) {
+                return false;
+            }
+            if (dateTime == null) {
+                return false;
+            }
+            if (formatter == null) {
+                for (DateTimeFormatter f : FORMATTERS) {
+                    if (f.withZone(dateTime.getZone()).print(dateTime).equals(token)) {
+                        zone = dateTime.getZone();
+                        formatter = f.withZone(zone);
+                        break;
+                    }
+                }
+                if (formatter == null) {
+                    return false;
+                }
+            } else if (!zone.equals(dateTime.getZone()) || !formatter.print(dateTime).equals(token)) {
+                return false;
+            }
+            ensureCapacity();
+            millis[size] = dateTime.getMillis();
+            return true;
+        }
+
+        @Override
+        void addPlaceholder() {
+            ensureCapacity();
+            millis[size] = 0;
+        }
+
+        private void ensureCapacity() {
+            if (size == millis.length) {
+                millis = Arrays.copyOf(millis, grow(millis.length, size));
+            }
+        }
+
+        DateTime getDateTime(int row) {
+            return new DateTime(millis[row], zone);
+        }
+
+        @Override
+        String format(int row) {
+            return formatter.print(millis[row]);
+        }
+
+        @Override
+        void append(StringBuilder builder, int row) {
+            if (isLiteral(row)) {
+                super.append(builder, row);
+            } else {
+                formatter.printTo(builder, millis[row]);
+            }
+        }
+    }
+
+    /**
+     * Dictionary encoded tokens
+     */
+    private static class CategoryColumn extends Column {
+        private final Map<String, Integer> codes = Maps.newHashMap();
+
+        private final List<String> dictionary = Lists.newArrayList();
+
+        private int[] rows = new int[0];
+
+        @Override
+        boolean add(String token) {
+            addTyped(token);
+            size++;
+            return true;
+        }
+
+        @Override
+        boolean addTyped(String token) {
+            Integer code = codes.get(token);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(token);
+                codes.put(token, code);
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, grow(rows.length, size));
+            }
+            rows[size] = code;
+            return true;
+        }
+
+        @Override
+        void addPlaceholder() {
+            addTyped(null);
+        }
+
+        @Override
+        String format(int row) {
+            return dictionary.get(rows[row]);
+        }
+
+        @Override
+        CategoryColumn toCategory() {
+            return this;
+        }
+    }
+
+}
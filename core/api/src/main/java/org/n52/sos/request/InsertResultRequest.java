@@ -28,6 +28,8 @@
  */
 package org.n52.sos.request;
 
+import java.io.Reader;
+
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.Sos2Constants;
 import org.n52.sos.response.InsertResultResponse;
@@ -43,6 +45,8 @@ public class InsertResultRequest extends AbstractServiceRequest<InsertResultResp
 
     private String resultValues;
 
+    private Reader resultValuesReader;
+
     @Override
     public String getOperationName() {
         return Sos2Constants.Operations.InsertResult.name();
@@ -72,6 +76,33 @@ public class InsertResultRequest extends AbstractServiceRequest<InsertResultResp
         return StringHelper.isNotEmpty(getResultValues());
     }
 
+    /**
+     * Set a reader to stream the result values from instead of holding them
+     * as a string, e.g. directly from the request body.
+     *
+     * @param resultValuesReader
+     *            the result values reader
+     */
+    public void setResultValuesReader(Reader resultValuesReader) {
+        this.resultValuesReader = resultValuesReader;
+    }
+
+    /**
+     * @return the reader to stream the result values from, may be
+     *         <code>null</code>
+     */
+    public Reader getResultValuesReader() {
+        return resultValuesReader;
+    }
+
+    /**
+     * @return <code>true</code>, if the result values are streamed from a
+     *         reader
+     */
+    public boolean isStreamingResultValues() {
+        return getResultValuesReader() != null;
+    }
+
     @Override
     public InsertResultResponse getResponse() throws OwsExceptionReport {
         return (InsertResultResponse) new InsertResultResponse().set(this);
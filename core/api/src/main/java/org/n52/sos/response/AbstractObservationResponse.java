@@ -168,20 +168,35 @@ public abstract class AbstractObservationResponse extends AbstractServiceRespons
     public void mergeStreamingData() throws OwsExceptionReport {
         List<OmObservation> observations = Lists.newArrayList();
         if (hasStreamingData()) {
-            for (OmObservation observation : getObservationCollection()) {
-                AbstractStreaming values = (AbstractStreaming) observation.getValue();
-                if (values.hasNextValue()) {
-                    if (isSetMergeObservation()) { 
-                        observations.addAll(values.mergeObservation());
-                    } else {
-                        observations.addAll(values.getObservation());
+            try {
+                for (OmObservation observation : getObservationCollection()) {
+                    AbstractStreaming values = (AbstractStreaming) observation.getValue();
+                    if (values.hasNextValue()) {
+                        if (isSetMergeObservation()) { 
+                            observations.addAll(values.mergeObservation());
+                        } else {
+                            observations.addAll(values.getObservation());
+                        }
                     }
                 }
+            } finally {
+                closeStreamingData();
             }
         }
         setObservationCollection(observations);
     }
 
+    @Override
+    public void closeStreamingData() {
+        if (hasStreamingData()) {
+            for (OmObservation observation : getObservationCollection()) {
+                if (observation.getValue() instanceof AbstractStreaming) {
+                    ((AbstractStreaming) observation.getValue()).close();
+                }
+            }
+        }
+    }
+
     public AbstractObservationResponse setGlobalValues(GlobalGetObservationValues globalValues) {
         this.globalValues = globalValues;
         return this;
@@ -28,16 +28,20 @@
  */
 package org.n52.sos.response;
 
+import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.SosConstants;
+import org.n52.sos.ogc.sos.StreamingResultValues;
 
 /**
  * @since 4.0.0
  * 
  */
-public class GetResultResponse extends AbstractServiceResponse {
+public class GetResultResponse extends AbstractServiceResponse implements StreamingDataResponse {
 
     private String resultValues;
 
+    private StreamingResultValues streamingResultValues;
+
     public void setResultValues(String resultValues) {
         this.resultValues = resultValues;
     }
@@ -50,6 +54,51 @@ public class GetResultResponse extends AbstractServiceResponse {
         return resultValues != null && !resultValues.isEmpty();
     }
 
+    /**
+     * Set the result values to be queried while the response is written
+     * 
+     * @param streamingResultValues
+     *            the streaming result values
+     * 
+     * @since 4.4.0
+     */
+    public void setStreamingResultValues(StreamingResultValues streamingResultValues) {
+        this.streamingResultValues = streamingResultValues;
+    }
+
+    /**
+     * @return the streaming result values
+     * 
+     * @since 4.4.0
+     */
+    public StreamingResultValues getStreamingResultValues() {
+        return streamingResultValues;
+    }
+
+    @Override
+    public boolean hasStreamingData() {
+        return streamingResultValues != null;
+    }
+
+    @Override
+    public void mergeStreamingData() throws OwsExceptionReport {
+        if (hasStreamingData()) {
+            try {
+                setResultValues(streamingResultValues.getResultValues());
+            } finally {
+                closeStreamingData();
+            }
+        }
+    }
+
+    @Override
+    public void closeStreamingData() {
+        if (hasStreamingData()) {
+            streamingResultValues.close();
+            setStreamingResultValues(null);
+        }
+    }
+
     @Override
     public String getOperationName() {
         return SosConstants.Operations.GetResult.name();
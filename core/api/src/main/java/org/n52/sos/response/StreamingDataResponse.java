@@ -53,4 +53,13 @@ public interface StreamingDataResponse {
      * @throws OwsExceptionReport If an error occurs.
      */
     void mergeStreamingData() throws OwsExceptionReport;
+
+    /**
+     * Release the resources held by the streaming data. Called by the
+     * response writer after the response was written or the writing was
+     * aborted.
+     *
+     * @since 4.4.0
+     */
+    void closeStreamingData();
 }
@@ -33,6 +33,7 @@ import static org.n52.sos.util.ConfiguringSingletonServiceLoader.loadAndConfigur
 import java.util.Locale;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -100,6 +101,11 @@ public class Configurator implements Cleanupable {
 
     private static final Lock INIT_LOCK = new ReentrantLock();
 
+    /**
+     * Time in seconds to wait for asynchronously dispatched events on cleanup
+     */
+    private static final long EVENT_FLUSH_TIMEOUT = 30;
+
     /**
      * @return Returns the instance of the Configurator. <tt>null</tt> will be
      *         returned if the parameterized
@@ -649,6 +655,7 @@ public class Configurator implements Cleanupable {
      */
     @Override
     public synchronized void cleanup() {
+        flushEvents();
         cleanup(dataConnectionProvider);
         cleanup(featureConnectionProvider);
         cleanup(contentCacheController);
@@ -656,6 +663,17 @@ public class Configurator implements Cleanupable {
         instance = null;
     }
 
+    private void flushEvents() {
+        try {
+            if (!SosEventBus.getInstance().flush(EVENT_FLUSH_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warn("Pending events could not be delivered within {}s", EVENT_FLUSH_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while delivering pending events", e);
+        }
+    }
+
     /**
      * @return the connectionProviderIdentificator
      */
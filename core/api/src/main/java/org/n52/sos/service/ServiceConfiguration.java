@@ -154,6 +154,8 @@ public class ServiceConfiguration {
 
     private boolean streamingEncoding = true;
 
+    private boolean streamingInsertResult = false;
+
     private boolean includeChildObservableProperties = false;
     
     private boolean updateFeatureGeometry = false;
@@ -474,6 +476,15 @@ public class ServiceConfiguration {
         return streamingEncoding;
     }
 
+    @Setting(StreamingSettings.STREAMING_INSERT_RESULT)
+    public void setStreamingInsertResult(boolean streamingInsertResult) {
+        this.streamingInsertResult = streamingInsertResult;
+    }
+
+    public boolean isStreamingInsertResult() {
+        return streamingInsertResult;
+    }
+
     public boolean isIncludeChildObservableProperties() {
         return includeChildObservableProperties;
     }
@@ -75,6 +75,8 @@ public class ServiceSettings implements SettingDefinitionProvider {
 
     public static final String INCLUDE_RESULT_TIME_FOR_MERGING = "service.includeResultTimeForMerging";
 
+    public static final String CAPABILITIES_RESPONSE_CACHE = "service.capabilities.responseCache";
+
     public static final SettingDefinitionGroup GROUP = new SettingDefinitionGroup().setTitle("Service").setOrder(2);
 
     public static final UriSettingDefinition SERVICE_URL_DEFINITION = new UriSettingDefinition()
@@ -202,6 +204,16 @@ public class ServiceSettings implements SettingDefinitionProvider {
                             "Whether the SOS should include the resultTime as inidcator when merging observations!");
       
     
+     public static final BooleanSettingDefinition CAPABILITIES_RESPONSE_CACHE_DEFINITION =
+             new BooleanSettingDefinition()
+                     .setGroup(GROUP)
+                     .setOrder(23)
+                     .setKey(CAPABILITIES_RESPONSE_CACHE)
+                     .setDefaultValue(true)
+                     .setTitle("Should this SOS cache the encoded GetCapabilities responses?")
+                     .setDescription(
+                            "Whether the SOS should keep the encoded GetCapabilities responses of the KVP, POX and JSON bindings in memory and answer conditional requests (If-None-Match) with 304 Not Modified. The cached responses are discarded on every content cache update, settings change and transactional operation.");
+      
     private static final Set<SettingDefinition<?, ?>> DEFINITIONS = Sets.<SettingDefinition<?, ?>> newHashSet(
             SERVICE_URL_DEFINITION,
             SENSOR_DIRECTORY_DEFINITION,
@@ -214,7 +226,8 @@ public class ServiceSettings implements SettingDefinitionProvider {
             CACHE_FILE_FOLDER_DEFILINION,
             CREATE_FOI_GEOM_FROM_SAMPLING_GEOMS_DEFINITION,
             ALLOW_TEMPLATE_WITHOUT_PROCEDURE_FEATURE_DEFINITION,
-            INCLUDE_RESULT_TIME_FOR_MERGING_DEFINITION);
+            INCLUDE_RESULT_TIME_FOR_MERGING_DEFINITION,
+            CAPABILITIES_RESPONSE_CACHE_DEFINITION);
 
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
@@ -42,6 +42,8 @@ public class StreamingSettings implements SettingDefinitionProvider {
 
     public static final String FORCE_STREAMING_ENCODING = "service.streaming.encoding";
 
+    public static final String STREAMING_INSERT_RESULT = "service.streaming.insertResult";
+
     public static final SettingDefinitionGroup GROUP =
             new SettingDefinitionGroup().setTitle("Streaming").setOrder(5).setDescription(
                     "NOTE for Oracle users! Because of an issue in Hibernate ORM the chunk streaming approach throws an exception if the request conatains an offering parameter! Please, uncheck the third checkbox to use scollable values.");
@@ -51,12 +53,21 @@ public class StreamingSettings implements SettingDefinitionProvider {
             .setOrder(ORDER_0)
             .setKey(FORCE_STREAMING_ENCODING)
             .setDefaultValue(false)
-            .setTitle("Should this service stream the XML responses?")
+            .setTitle("Should this service stream the XML and JSON responses?")
+            .setDescription(
+                    "Whether the service should stream the XML and JSON responses! If true, the responses are not validated and not gzip compressed!");
+
+    public static final BooleanSettingDefinition STREAMING_INSERT_RESULT_DEFINITION = new BooleanSettingDefinition()
+            .setGroup(GROUP)
+            .setOrder(ORDER_4)
+            .setKey(STREAMING_INSERT_RESULT)
+            .setDefaultValue(false)
+            .setTitle("Should this service stream the resultValues of InsertResult requests?")
             .setDescription(
-                    "Whether the service should stream the XML response! If true, the responses are not validated!");
+                    "Whether the service should read the resultValues of plain XML InsertResult requests directly from the request stream and insert them in chunks instead of parsing the whole request into memory! If true, these requests are not validated and extensions are ignored.");
 
     private static final Set<SettingDefinition<?, ?>> DEFINITIONS = Sets.<SettingDefinition<?, ?>> newHashSet(
-            FORCE_STREAMING_ENCODING_DEFINITION);
+            FORCE_STREAMING_ENCODING_DEFINITION, STREAMING_INSERT_RESULT_DEFINITION);
 
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
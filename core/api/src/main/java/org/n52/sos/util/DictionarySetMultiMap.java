@@ -0,0 +1,450 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Synchronized {@link SetMultiMap} for identifier relations that stores keys
+ * and values as ids of a shared {@link IdentifierDictionary}. Keys are held in
+ * a primitive open addressing table and the values of a key in a sorted
+ * {@code int} array, so every identifier is kept only once regardless of the
+ * number of relations it is part of. The value sets are returned as immutable
+ * {@link IdentifierSet}s; modifications have to be done through the map.
+ *
+ * @since 4.4.0
+ */
+public class DictionarySetMultiMap extends AbstractMap<String, Set<String>> implements SetMultiMap<String, String> {
+    private static final long serialVersionUID = 4915683484738710587L;
+
+    private static final int FREE = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Lock read = lock.readLock();
+
+    private final Lock write = lock.writeLock();
+
+    private final IdentifierDictionary dictionary;
+
+    private int[] keys = newKeys(INITIAL_CAPACITY);
+
+    private int[][] values = new int[INITIAL_CAPACITY][];
+
+    private int size;
+
+    public DictionarySetMultiMap(IdentifierDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public IdentifierDictionary getDictionary() {
+        return this.dictionary;
+    }
+
+    @Override
+    public int size() {
+        read.lock();
+        try {
+            return this.size;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int id = this.dictionary.lookup(key);
+        if (id < 0) {
+            return false;
+        }
+        read.lock();
+        try {
+            return find(id) >= 0;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> get(Object key) {
+        int id = this.dictionary.lookup(key);
+        if (id < 0) {
+            return null;
+        }
+        read.lock();
+        try {
+            int slot = find(id);
+            return slot < 0 ? null : toSet(this.values[slot]);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public boolean hasValues(String key) {
+        int id = this.dictionary.lookup(key);
+        if (id < 0) {
+            return false;
+        }
+        read.lock();
+        try {
+            int slot = find(id);
+            return slot >= 0 && this.values[slot].length > 0;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsCollectionValue(String v) {
+        int id = this.dictionary.lookup(v);
+        if (id < 0) {
+            return false;
+        }
+        read.lock();
+        try {
+            for (int i = 0; i < this.keys.length; ++i) {
+                if (this.keys[i] != FREE && Arrays.binarySearch(this.values[i], id) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> allValues() {
+        read.lock();
+        try {
+            int[] all = IdentifierSet.NO_IDS;
+            for (int i = 0; i < this.keys.length; ++i) {
+                if (this.keys[i] != FREE) {
+                    all = IdentifierSet.union(all, this.values[i]);
+                }
+            }
+            return toSet(all);
+        } finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> put(String key, Set<String> value) {
+        int id = this.dictionary.encode(key);
+        int[] ids = IdentifierSet.encode(this.dictionary, value);
+        write.lock();
+        try {
+            return toSet(store(id, ids));
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> add(String key, String value) {
+        int id = this.dictionary.encode(key);
+        int valueId = this.dictionary.encode(value);
+        write.lock();
+        try {
+            int slot = find(id);
+            int[] ids = IdentifierSet.insert(slot < 0 ? IdentifierSet.NO_IDS : this.values[slot], valueId);
+            store(id, ids);
+            return toSet(ids);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> addAll(String key, Collection<? extends String> values) {
+        int id = this.dictionary.encode(key);
+        int[] valueIds = IdentifierSet.encode(this.dictionary, values);
+        write.lock();
+        try {
+            int slot = find(id);
+            int[] ids = IdentifierSet.union(slot < 0 ? IdentifierSet.NO_IDS : this.values[slot], valueIds);
+            store(id, ids);
+            return toSet(ids);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> remove(Object key) {
+        int id = this.dictionary.lookup(key);
+        if (id < 0) {
+            return null;
+        }
+        write.lock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return null;
+            }
+            int[] previous = this.values[slot];
+            delete(slot);
+            return toSet(previous);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return remove(key, value, false);
+    }
+
+    @Override
+    public boolean removeWithKey(String key, String value) {
+        return remove(key, value, true);
+    }
+
+    @Override
+    public boolean remove(String key, Iterable<String> value) {
+        return remove(key, value, false);
+    }
+
+    @Override
+    public boolean removeWithKey(String key, Iterable<String> value) {
+        return remove(key, value, true);
+    }
+
+    @Override
+    public void clear() {
+        write.lock();
+        try {
+            this.keys = newKeys(INITIAL_CAPACITY);
+            this.values = new int[INITIAL_CAPACITY][];
+            this.size = 0;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Set<String>>> entrySet() {
+        final List<Entry<String, Set<String>>> entries;
+        read.lock();
+        try {
+            entries = new ArrayList<>(this.size);
+            for (int i = 0; i < this.keys.length; ++i) {
+                if (this.keys[i] != FREE) {
+                    entries.add(new SimpleImmutableEntry<String, Set<String>>(this.dictionary.decode(this.keys[i]),
+                            toSet(this.values[i])));
+                }
+            }
+        } finally {
+            read.unlock();
+        }
+        return new AbstractSet<Entry<String, Set<String>>>() {
+            @Override
+            public Iterator<Entry<String, Set<String>>> iterator() {
+                final Iterator<Entry<String, Set<String>>> iter = entries.iterator();
+                return new Iterator<Entry<String, Set<String>>>() {
+                    private Entry<String, Set<String>> current;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iter.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Set<String>> next() {
+                        this.current = iter.next();
+                        return this.current;
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (this.current == null) {
+                            throw new IllegalStateException();
+                        }
+                        iter.remove();
+                        DictionarySetMultiMap.this.remove(this.current.getKey());
+                        this.current = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    private boolean remove(Object key, Object value, boolean removeKey) {
+        int id = this.dictionary.lookup(key);
+        if (id < 0) {
+            return false;
+        }
+        write.lock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return false;
+            }
+            int[] previous = this.values[slot];
+            int[] ids;
+            if (value instanceof Iterable) {
+                ids = previous;
+                for (Object v : (Iterable<?>) value) {
+                    ids = IdentifierSet.delete(ids, this.dictionary.lookup(v));
+                }
+            } else {
+                ids = IdentifierSet.delete(previous, this.dictionary.lookup(value));
+            }
+            if (removeKey && ids.length == 0) {
+                delete(slot);
+            } else {
+                this.values[slot] = ids;
+            }
+            return ids != previous;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private IdentifierSet toSet(int[] ids) {
+        return ids == null ? null : new IdentifierSet(this.dictionary, ids);
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        return keys;
+    }
+
+    private static int hash(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private int find(int id) {
+        int mask = this.keys.length - 1;
+        for (int i = hash(id, mask);; i = (i + 1) & mask) {
+            if (this.keys[i] == id) {
+                return i;
+            } else if (this.keys[i] == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Sets the values of the key and returns the previous ones.
+     */
+    private int[] store(int id, int[] ids) {
+        int slot = find(id);
+        if (slot >= 0) {
+            int[] previous = this.values[slot];
+            this.values[slot] = ids;
+            return previous;
+        }
+        if (2 * (this.size + 1) > this.keys.length) {
+            rehash(this.keys.length * 2);
+        }
+        int mask = this.keys.length - 1;
+        int i = hash(id, mask);
+        while (this.keys[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = id;
+        this.values[i] = ids;
+        ++this.size;
+        return null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = this.keys;
+        int[][] oldValues = this.values;
+        this.keys = newKeys(capacity);
+        this.values = new int[capacity][];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; ++j) {
+            if (oldKeys[j] != FREE) {
+                int i = hash(oldKeys[j], mask);
+                while (this.keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = oldKeys[j];
+                this.values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Removes the slot and moves following entries of the probe sequence to
+     * close the gap.
+     */
+    private void delete(int slot) {
+        int mask = this.keys.length - 1;
+        int i = slot;
+        int j = slot;
+        while (true) {
+            this.keys[i] = FREE;
+            this.values[i] = null;
+            while (true) {
+                j = (j + 1) & mask;
+                if (this.keys[j] == FREE) {
+                    --this.size;
+                    return;
+                }
+                int home = hash(this.keys[j], mask);
+                boolean inRange = i <= j ? i < home && home <= j : i < home || home <= j;
+                if (!inRange) {
+                    break;
+                }
+            }
+            this.keys[i] = this.keys[j];
+            this.values[i] = this.values[j];
+            i = j;
+        }
+    }
+}
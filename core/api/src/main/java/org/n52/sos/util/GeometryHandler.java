@@ -38,6 +38,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.geotools.factory.Hints;
@@ -69,9 +70,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.CoordinateSequenceFilter;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
@@ -115,7 +121,16 @@ public class GeometryHandler implements Cleanupable, EpsgConstants {
 
     private CRSAuthorityFactory crsAuthority;
 
-    private Map<Integer, CoordinateReferenceSystem> supportedCRSMap = Maps.newHashMap();;
+    private boolean longitudeFirstAxisOrder;
+
+    private final Map<Integer, CoordinateReferenceSystem> supportedCRSMap = Maps.newConcurrentMap();
+
+    /**
+     * {@link MathTransform}s by source and target EPSG code, absent if the
+     * CRSs are equal
+     */
+    private final ConcurrentMap<MathTransformKey, Optional<MathTransform>> mathTransforms = Maps
+            .newConcurrentMap();
 
     /**
      * Private constructor
@@ -146,9 +161,10 @@ public class GeometryHandler implements Cleanupable, EpsgConstants {
     }
 
     private void initCrsAuthoritycrsAuthority() {
+        longitudeFirstAxisOrder = isEastingFirstEpsgCode(getStorageEPSG());
         crsAuthority =
                 getCRSAuthorityFactory(authority, new Hints(FORCE_LONGITUDE_FIRST_AXIS_ORDER,
-                        isEastingFirstEpsgCode(getStorageEPSG())));
+                        longitudeFirstAxisOrder));
 
     }
 
@@ -555,7 +571,7 @@ public class GeometryHandler implements Cleanupable, EpsgConstants {
             } else {
                 targetSRID = getStorageEPSG();
             }
-            return transform(geometry, targetSRID, sourceCRS, getCRS(targetSRID));
+            return transform(geometry, targetSRID);
         }
         return geometry;
     }
@@ -575,51 +591,170 @@ public class GeometryHandler implements Cleanupable, EpsgConstants {
             if (geometry.getSRID() == targetSRID) {
                 return geometry;
             }
-            CoordinateReferenceSystem sourceCRS = getCRS(geometry.getSRID());
-            CoordinateReferenceSystem targetCRS = getCRS(targetSRID);
-            return transform(geometry, targetSRID, sourceCRS, targetCRS);
+            MathTransform transform = getMathTransform(geometry.getSRID(), targetSRID);
+            if (transform == null) {
+                return geometry;
+            }
+            Geometry switchedCoordiantes = switchCoordinateAxisIfNeeded(geometry, targetSRID);
+            try {
+                Geometry transformed = JTS.transform(switchedCoordiantes, transform);
+                transformed.setSRID(targetSRID);
+                return transformed;
+            } catch (MismatchedDimensionException mde) {
+                throw new NoApplicableCodeException().causedBy(mde).withMessage(
+                        "The EPSG code '%s' is not supported!", switchedCoordiantes.getSRID());
+            } catch (TransformException te) {
+                throw new NoApplicableCodeException().causedBy(te).withMessage(
+                        "The EPSG code '%s' is not supported!", switchedCoordiantes.getSRID());
+            }
         }
         return geometry;
     }
 
     /**
-     * Transform geometry
+     * Transform the geometries to this EPSG code. The coordinates of all
+     * geometries with the same EPSG code are transformed with a single call of
+     * the {@link MathTransform}, which is considerably faster than
+     * transforming the geometries one by one. The passed geometries are not
+     * modified.
      * 
-     * @param geometry
-     *            Geometry to transform
+     * @param geometries
+     *            Geometries to transform
      * @param targetSRID
-     *            TargetEPSG code
-     * @param sourceCRS
-     *            Source CRS
-     * @param targetCRS
-     *            Target CRS
-     * @return Transformed geometry
+     *            Target EPSG code
+     * @return Transformed geometries in the order of the passed geometries
+     * @throws OwsExceptionReport
+     *             If the transformation fails
+     */
+    public List<Geometry> transform(final List<Geometry> geometries, final int targetSRID)
+            throws OwsExceptionReport {
+        List<Geometry> transformed = Lists.newArrayList(geometries);
+        Map<Integer, List<Integer>> indicesBySRID = Maps.newHashMap();
+        for (int i = 0; i < geometries.size(); i++) {
+            Geometry geometry = geometries.get(i);
+            if (geometry != null && !geometry.isEmpty() && geometry.getSRID() != targetSRID) {
+                List<Integer> indices = indicesBySRID.get(geometry.getSRID());
+                if (indices == null) {
+                    indices = Lists.newArrayList();
+                    indicesBySRID.put(geometry.getSRID(), indices);
+                }
+                indices.add(i);
+            }
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : indicesBySRID.entrySet()) {
+            if (getMathTransform(entry.getKey(), targetSRID) == null) {
+                continue;
+            }
+            List<Geometry> copies = Lists.newArrayListWithCapacity(entry.getValue().size());
+            CoordinateCollector collector = new CoordinateCollector();
+            for (Integer index : entry.getValue()) {
+                Geometry copy = (Geometry) geometries.get(index).clone();
+                copy.apply(collector);
+                copies.add(copy);
+            }
+            Coordinate[] coordinates = collector.getCoordinates();
+            transform(coordinates, entry.getKey(), targetSRID);
+            CoordinateWriter writer = new CoordinateWriter(coordinates);
+            for (int i = 0; i < copies.size(); i++) {
+                Geometry copy = copies.get(i);
+                copy.apply(writer);
+                copy.geometryChanged();
+                copy.setSRID(targetSRID);
+                transformed.set(entry.getValue().get(i), copy);
+            }
+        }
+        return transformed;
+    }
+
+    /**
+     * Transform the coordinates in place from the source to the target EPSG
+     * code, switching the coordinate axis if the axis order of the EPSG codes
+     * differs. All coordinates are transformed with a single call of the
+     * {@link MathTransform}.
+     * 
+     * @param coordinates
+     *            Coordinates to transform
+     * @param sourceSRID
+     *            Source EPSG code
+     * @param targetSRID
+     *            Target EPSG code
      * @throws OwsExceptionReport
+     *             If the transformation fails
      */
-    private Geometry transform(final Geometry geometry, final int targetSRID,
-            final CoordinateReferenceSystem sourceCRS, final CoordinateReferenceSystem targetCRS)
+    public void transform(final Coordinate[] coordinates, final int sourceSRID, final int targetSRID)
             throws OwsExceptionReport {
-        if (sourceCRS.equals(targetCRS)) {
-            return geometry;
+        if (coordinates == null || coordinates.length == 0 || sourceSRID == targetSRID) {
+            return;
+        }
+        MathTransform transform = getMathTransform(sourceSRID, targetSRID);
+        if (transform == null) {
+            return;
+        }
+        boolean switchAxis = isNorthingFirstEpsgCode(sourceSRID) != isNorthingFirstEpsgCode(targetSRID);
+        int sourceDimension = transform.getSourceDimensions();
+        int targetDimension = transform.getTargetDimensions();
+        double[] source = new double[coordinates.length * sourceDimension];
+        for (int i = 0; i < coordinates.length; i++) {
+            int offset = i * sourceDimension;
+            source[offset] = switchAxis ? coordinates[i].y : coordinates[i].x;
+            source[offset + 1] = switchAxis ? coordinates[i].x : coordinates[i].y;
+            if (sourceDimension > 2) {
+                source[offset + 2] = coordinates[i].z;
+            }
         }
-        Geometry switchedCoordiantes = switchCoordinateAxisIfNeeded(geometry, targetSRID);
+        double[] target =
+                sourceDimension == targetDimension ? source : new double[coordinates.length * targetDimension];
         try {
-            MathTransform transform = CRS.findMathTransform(sourceCRS, targetCRS);
-            Geometry transformed = JTS.transform(switchedCoordiantes, transform);
-            transformed.setSRID(targetSRID);
-            return transformed;
-        } catch (FactoryException fe) {
-            throw new NoApplicableCodeException().causedBy(fe).withMessage("The EPSG code '%s' is not supported!",
-                    switchedCoordiantes.getSRID());
-        } catch (MismatchedDimensionException mde) {
-            throw new NoApplicableCodeException().causedBy(mde).withMessage("The EPSG code '%s' is not supported!",
-                    switchedCoordiantes.getSRID());
+            transform.transform(source, 0, target, 0, coordinates.length);
         } catch (TransformException te) {
-            throw new NoApplicableCodeException().causedBy(te).withMessage("The EPSG code '%s' is not supported!",
-                    switchedCoordiantes.getSRID());
+            throw new NoApplicableCodeException().causedBy(te).withMessage(
+                    "Transformation from EPSG code '%s' to '%s' fails!", sourceSRID, targetSRID);
+        }
+        for (int i = 0; i < coordinates.length; i++) {
+            int offset = i * targetDimension;
+            coordinates[i].x = target[offset];
+            coordinates[i].y = target[offset + 1];
+            if (targetDimension > 2) {
+                coordinates[i].z = target[offset + 2];
+            }
         }
     }
 
+    /**
+     * Get the {@link MathTransform} from the source to the target EPSG code.
+     * The transforms are created once and kept for the axis order of the CRS
+     * authority.
+     * 
+     * @param sourceSRID
+     *            Source EPSG code
+     * @param targetSRID
+     *            Target EPSG code
+     * @return the {@link MathTransform} or <code>null</code> if the CRSs are
+     *         equal
+     * @throws CodedException
+     *             If the EPSG codes are not supported
+     */
+    private MathTransform getMathTransform(final int sourceSRID, final int targetSRID) throws CodedException {
+        MathTransformKey key = new MathTransformKey(sourceSRID, targetSRID, longitudeFirstAxisOrder);
+        Optional<MathTransform> transform = mathTransforms.get(key);
+        if (transform == null) {
+            CoordinateReferenceSystem sourceCRS = getCRS(sourceSRID);
+            CoordinateReferenceSystem targetCRS = getCRS(targetSRID);
+            if (sourceCRS.equals(targetCRS)) {
+                transform = Optional.absent();
+            } else {
+                try {
+                    transform = Optional.of(CRS.findMathTransform(sourceCRS, targetCRS));
+                } catch (FactoryException fe) {
+                    throw new NoApplicableCodeException().causedBy(fe).withMessage(
+                            "The EPSG code '%s' is not supported!", sourceSRID);
+                }
+            }
+            mathTransforms.putIfAbsent(key, transform);
+        }
+        return transform.orNull();
+    }
+
     /**
      * Get CRS from EPSG code
      * 
@@ -703,15 +838,13 @@ public class GeometryHandler implements Cleanupable, EpsgConstants {
      */
     public Envelope transformEnvelope(Envelope envelope, int sourceSRID, int targetSRID) throws CodedException {
         if (envelope != null && !envelope.isNull() && targetSRID > 0 && sourceSRID != targetSRID) {
-            CoordinateReferenceSystem sourceCRS = getCRS(sourceSRID);
-            CoordinateReferenceSystem targetCRS = getCRS(targetSRID);
+            MathTransform transform = getMathTransform(sourceSRID, targetSRID);
+            if (transform == null) {
+                return envelope;
+            }
             try {
-                MathTransform transform = CRS.findMathTransform(sourceCRS, targetCRS);
                 Envelope transformed = JTS.transform(envelope, transform);
                 return transformed;
-            } catch (FactoryException fe) {
-                throw new NoApplicableCodeException().causedBy(fe).withMessage("The EPSG code '%s' is not supported!",
-                        sourceSRID);
             } catch (MismatchedDimensionException mde) {
                 throw new NoApplicableCodeException().causedBy(mde).withMessage(
                         "Transformation from EPSG code '%s' to '%s' fails!", sourceSRID, targetSRID);
@@ -729,6 +862,7 @@ public class GeometryHandler implements Cleanupable, EpsgConstants {
     @VisibleForTesting
     protected void clearSupportedCRSMap() {
         supportedCRSMap.clear();
+        mathTransforms.clear();
     }
 
     public Set<String> addAuthorityCrsPrefix(Collection<Integer> crses) {
@@ -755,4 +889,95 @@ public class GeometryHandler implements Cleanupable, EpsgConstants {
         return new StringBuilder(ServiceConfiguration.getInstance().getSrsNamePrefixSosV2()).append(crs).toString();
     }
 
+    /**
+     * Key of a cached {@link MathTransform}.
+     */
+    private static class MathTransformKey {
+        private final int sourceSRID;
+
+        private final int targetSRID;
+
+        private final boolean longitudeFirst;
+
+        MathTransformKey(int sourceSRID, int targetSRID, boolean longitudeFirst) {
+            this.sourceSRID = sourceSRID;
+            this.targetSRID = targetSRID;
+            this.longitudeFirst = longitudeFirst;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(sourceSRID, targetSRID, longitudeFirst);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof MathTransformKey) {
+                MathTransformKey other = (MathTransformKey) obj;
+                return sourceSRID == other.sourceSRID && targetSRID == other.targetSRID
+                        && longitudeFirst == other.longitudeFirst;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Collects copies of the coordinates of the visited coordinate sequences.
+     */
+    private static class CoordinateCollector implements CoordinateSequenceFilter {
+        private final List<Coordinate> coordinates = Lists.newArrayList();
+
+        @Override
+        public void filter(CoordinateSequence seq, int i) {
+            coordinates.add(new Coordinate(seq.getX(i), seq.getY(i), seq.getOrdinate(i, CoordinateSequence.Z)));
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public boolean isGeometryChanged() {
+            return false;
+        }
+
+        Coordinate[] getCoordinates() {
+            return coordinates.toArray(new Coordinate[coordinates.size()]);
+        }
+    }
+
+    /**
+     * Writes the coordinates to the visited coordinate sequences in the order
+     * they were collected by the {@link CoordinateCollector}.
+     */
+    private static class CoordinateWriter implements CoordinateSequenceFilter {
+        private final Coordinate[] coordinates;
+
+        private int index = 0;
+
+        CoordinateWriter(Coordinate[] coordinates) {
+            this.coordinates = coordinates;
+        }
+
+        @Override
+        public void filter(CoordinateSequence seq, int i) {
+            Coordinate coordinate = coordinates[index++];
+            seq.setOrdinate(i, CoordinateSequence.X, coordinate.x);
+            seq.setOrdinate(i, CoordinateSequence.Y, coordinate.y);
+            if (seq.getDimension() > 2) {
+                seq.setOrdinate(i, CoordinateSequence.Z, coordinate.z);
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            return index >= coordinates.length;
+        }
+
+        @Override
+        public boolean isGeometryChanged() {
+            return true;
+        }
+    }
 }
@@ -46,6 +46,15 @@ public class GroupedAndNamedThreadFactory implements ThreadFactory {
         tg = new ThreadGroup(name);
     }
 
+    /**
+     * @return the group of the created threads
+     *
+     * @since 4.4.0
+     */
+    public ThreadGroup getThreadGroup() {
+        return tg;
+    }
+
     @Override
     public Thread newThread(Runnable r) {
         return new Thread(tg, r, String.format("%s-%d", tg.getName(), i.getAndIncrement()));
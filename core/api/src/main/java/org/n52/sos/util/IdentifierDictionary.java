@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe dictionary that assigns dense {@code int} ids to identifiers.
+ * Every identifier is stored only once and ids are never reassigned, so
+ * structures holding ids instead of strings (see
+ * {@link DictionarySetMultiMap}) can share the identifiers of a single
+ * dictionary. Lookups are lock-free, only the assignment of new ids is
+ * serialized.
+ *
+ * @since 4.4.0
+ */
+public class IdentifierDictionary implements Serializable {
+    private static final long serialVersionUID = 2203749375286131566L;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile String[] identifiers = new String[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Get the id of the identifier, assigning a new one if the identifier is
+     * not yet contained in this dictionary.
+     *
+     * @param identifier
+     *            the identifier
+     *
+     * @return the id
+     */
+    public int encode(String identifier) {
+        Integer id = this.ids.get(identifier);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = this.ids.get(identifier);
+            if (id != null) {
+                return id;
+            }
+            String[] array = this.identifiers;
+            if (this.size == array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+            array[this.size] = identifier;
+            // publish the array before the id becomes visible
+            this.identifiers = array;
+            this.ids.put(identifier, this.size);
+            return this.size++;
+        }
+    }
+
+    /**
+     * Get the id of the identifier without assigning a new one.
+     *
+     * @param identifier
+     *            the identifier
+     *
+     * @return the id or {@code -1} if the identifier is unknown
+     */
+    public int lookup(Object identifier) {
+        if (identifier == null) {
+            return -1;
+        }
+        Integer id = this.ids.get(identifier);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id
+     *            the id
+     *
+     * @return the identifier of the id
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the id was not assigned by this dictionary
+     */
+    public String decode(int id) {
+        String identifier = id < 0 ? null : this.identifiers[id];
+        if (identifier == null) {
+            throw new IndexOutOfBoundsException(String.valueOf(id));
+        }
+        return identifier;
+    }
+
+    /**
+     * Get the canonical instance of the identifier.
+     *
+     * @param identifier
+     *            the identifier
+     *
+     * @return the instance stored in this dictionary
+     */
+    public String intern(String identifier) {
+        return identifier == null ? null : decode(encode(identifier));
+    }
+
+    /**
+     * @return the number of identifiers in this dictionary
+     */
+    public int size() {
+        return this.ids.size();
+    }
+}
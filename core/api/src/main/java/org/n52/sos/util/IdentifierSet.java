@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable set of identifiers that is stored as a sorted array of the ids
+ * assigned by an {@link IdentifierDictionary}. Sets sharing a dictionary are
+ * compared and intersected on the ids without touching the strings.
+ *
+ * @since 4.4.0
+ */
+public final class IdentifierSet extends AbstractSet<String> implements Serializable {
+    private static final long serialVersionUID = -2986414003713707651L;
+
+    static final int[] NO_IDS = new int[0];
+
+    private final IdentifierDictionary dictionary;
+
+    private final int[] ids;
+
+    /**
+     * @param dictionary
+     *            the dictionary that assigned the ids
+     * @param ids
+     *            the sorted and distinct ids, that will not be copied
+     */
+    IdentifierSet(IdentifierDictionary dictionary, int[] ids) {
+        this.dictionary = dictionary;
+        this.ids = ids;
+    }
+
+    /**
+     * Creates a new set containing the specified identifiers.
+     *
+     * @param dictionary
+     *            the dictionary to encode the identifiers with
+     * @param identifiers
+     *            the identifiers
+     *
+     * @return the set
+     */
+    public static IdentifierSet of(IdentifierDictionary dictionary, Collection<? extends String> identifiers) {
+        return new IdentifierSet(dictionary, encode(dictionary, identifiers));
+    }
+
+    @Override
+    public int size() {
+        return this.ids.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.ids.length == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int id = this.dictionary.lookup(o);
+        return id >= 0 && Arrays.binarySearch(this.ids, id) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof IdentifierSet && ((IdentifierSet) c).dictionary == this.dictionary) {
+            int[] other = ((IdentifierSet) c).ids;
+            return other.length <= this.ids.length && intersect(this.ids, other).length == other.length;
+        }
+        return super.containsAll(c);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.i < ids.length;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return dictionary.decode(ids[this.i++]);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Creates the intersection of this and the specified set. If both sets
+     * share the same dictionary the intersection is computed by merging the
+     * sorted ids.
+     *
+     * @param other
+     *            the other set
+     *
+     * @return the intersection
+     */
+    public IdentifierSet intersection(Set<String> other) {
+        if (other instanceof IdentifierSet && ((IdentifierSet) other).dictionary == this.dictionary) {
+            return new IdentifierSet(this.dictionary, intersect(this.ids, ((IdentifierSet) other).ids));
+        }
+        int[] result = new int[this.ids.length];
+        int n = 0;
+        for (int id : this.ids) {
+            if (other.contains(this.dictionary.decode(id))) {
+                result[n++] = id;
+            }
+        }
+        return new IdentifierSet(this.dictionary, Arrays.copyOf(result, n));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IdentifierSet && ((IdentifierSet) o).dictionary == this.dictionary) {
+            return Arrays.equals(this.ids, ((IdentifierSet) o).ids);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    int[] ids() {
+        return this.ids;
+    }
+
+    IdentifierDictionary dictionary() {
+        return this.dictionary;
+    }
+
+    static int[] encode(IdentifierDictionary dictionary, Collection<? extends String> identifiers) {
+        if (identifiers == null || identifiers.isEmpty()) {
+            return NO_IDS;
+        }
+        if (identifiers instanceof IdentifierSet && ((IdentifierSet) identifiers).dictionary == dictionary) {
+            return ((IdentifierSet) identifiers).ids;
+        }
+        int[] ids = new int[identifiers.size()];
+        int n = 0;
+        for (String identifier : identifiers) {
+            if (identifier != null) {
+                ids[n++] = dictionary.encode(identifier);
+            }
+        }
+        return distinct(ids, n);
+    }
+
+    /**
+     * Sorts the first {@code n} ids and removes duplicates.
+     */
+    static int[] distinct(int[] ids, int n) {
+        if (n == 0) {
+            return NO_IDS;
+        }
+        Arrays.sort(ids, 0, n);
+        int m = 1;
+        for (int i = 1; i < n; ++i) {
+            if (ids[i] != ids[m - 1]) {
+                ids[m++] = ids[i];
+            }
+        }
+        return m == ids.length ? ids : Arrays.copyOf(ids, m);
+    }
+
+    static int[] insert(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0) {
+            return ids;
+        }
+        pos = -pos - 1;
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, pos);
+        result[pos] = id;
+        System.arraycopy(ids, pos, result, pos + 1, ids.length - pos);
+        return result;
+    }
+
+    static int[] delete(int[] ids, int id) {
+        int pos = id < 0 ? -1 : Arrays.binarySearch(ids, id);
+        if (pos < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return NO_IDS;
+        }
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, pos);
+        System.arraycopy(ids, pos + 1, result, pos, result.length - pos);
+        return result;
+    }
+
+    static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        } else if (b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i++];
+                ++j;
+            }
+        }
+        while (i < a.length) {
+            result[n++] = a[i++];
+        }
+        while (j < b.length) {
+            result[n++] = b[j++];
+        }
+        if (n == a.length) {
+            return a;
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                ++i;
+            } else if (a[i] > b[j]) {
+                ++j;
+            } else {
+                result[n++] = a[i++];
+                ++j;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    static int[] difference(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length) {
+            if (j >= b.length || a[i] < b[j]) {
+                result[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                ++j;
+            } else {
+                ++i;
+                ++j;
+            }
+        }
+        if (n == a.length) {
+            return a;
+        }
+        return n == 0 ? NO_IDS : Arrays.copyOf(result, n);
+    }
+}
@@ -45,6 +45,8 @@ import java.util.logging.Level;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -77,6 +79,10 @@ public class JSONUtils {
 
     private static final ObjectWriter WRITER;
 
+    private static final ObjectMapper MAPPER;
+
+    private static final DefaultPrettyPrinter PRETTY_PRINTER;
+
     private static final Function<Object, JsonNode> TO_JSON_STRING
                 = new Function<Object, JsonNode>() {
                     @Override
@@ -92,12 +98,11 @@ public class JSONUtils {
                 };
 
     static {
-        final ObjectMapper mapper =
-                new ObjectMapper().setNodeFactory(FACTORY).enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
-        READER = mapper.reader();
-        DefaultPrettyPrinter pp = new DefaultPrettyPrinter();
-        pp.indentArraysWith(DefaultIndenter.SYSTEM_LINEFEED_INSTANCE);
-        WRITER = mapper.writer(pp);
+        MAPPER = new ObjectMapper().setNodeFactory(FACTORY).enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        READER = MAPPER.reader();
+        PRETTY_PRINTER = new DefaultPrettyPrinter();
+        PRETTY_PRINTER.indentArraysWith(DefaultIndenter.SYSTEM_LINEFEED_INSTANCE);
+        WRITER = MAPPER.writer(PRETTY_PRINTER);
     }
 
     protected JSONUtils() {
@@ -111,6 +116,26 @@ public class JSONUtils {
         return WRITER;
     }
 
+    /**
+     * Create a {@link JsonGenerator} that writes to the supplied stream using
+     * the same formatting as {@link #getWriter()}. Closing the generator does
+     * not close the stream.
+     *
+     * @param out
+     *            the stream to write to
+     * @return the generator
+     * @throws IOException
+     *             if the generator can not be created
+     *
+     * @since 4.4.0
+     */
+    public static JsonGenerator createGenerator(final OutputStream out) throws IOException {
+        JsonGenerator generator = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setPrettyPrinter(PRETTY_PRINTER.createInstance());
+        return generator;
+    }
+
     public static JsonNodeFactory nodeFactory() {
         return FACTORY;
     }
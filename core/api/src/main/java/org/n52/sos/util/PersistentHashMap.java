@@ -0,0 +1,628 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+
+/**
+ * Immutable hash map that is <em>persistent</em> in the functional sense:
+ * every modification ({@link #plus(Object, Object)}, {@link #minus(Object)})
+ * returns a new map that shares all untouched structure with its predecessor.
+ * The map is implemented as a hash array mapped trie, so lookups and
+ * modifications are {@code O(log32 n)} and a modification copies at most a
+ * handful of small nodes instead of the whole map.
+ * <p/>
+ * Instances can be shared between threads without any synchronization. The
+ * {@link Map} mutator methods are not supported. The map is serialized as a
+ * plain list of its mappings and rebuilt on deserialization, as the trie
+ * layout depends on the key hash codes of the running VM.
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ *
+ * @since 4.4.0
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> implements Serializable {
+    private static final long serialVersionUID = -5384213734357283524L;
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap(null, 0);
+
+    private final Object root;
+
+    private final int size;
+
+    private transient Set<Entry<K, V>> entrySet;
+
+    private PersistentHashMap(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param <K>
+     *            the key type
+     * @param <V>
+     *            the value type
+     *
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Creates a persistent copy of the supplied map.
+     *
+     * @param <K>
+     *            the key type
+     * @param <V>
+     *            the value type
+     * @param map
+     *            the map to copy (may be {@code null})
+     *
+     * @return the persistent map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) {
+            return (PersistentHashMap<K, V>) map;
+        }
+        PersistentHashMap<K, V> copy = empty();
+        if (map != null) {
+            copy = copy.plusAll(map);
+        }
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Leaf<K, V> leaf = find(key);
+        return leaf == null ? null : leaf.getValue();
+    }
+
+    /**
+     * Returns a map that additionally maps {@code key} to {@code value}.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     *
+     * @return the new map, or this map if it already contained the mapping
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        boolean[] added = new boolean[1];
+        Object newRoot = put(this.root, 0, new Leaf<K, V>(hash(key), key, value), added);
+        if (newRoot == this.root) {
+            return this;
+        }
+        return new PersistentHashMap<K, V>(newRoot, added[0] ? this.size + 1 : this.size);
+    }
+
+    /**
+     * Returns a map that additionally contains all mappings of {@code map}.
+     *
+     * @param map
+     *            the mappings to add
+     *
+     * @return the new map
+     */
+    public PersistentHashMap<K, V> plusAll(Map<? extends K, ? extends V> map) {
+        PersistentHashMap<K, V> result = this;
+        for (Entry<? extends K, ? extends V> e : map.entrySet()) {
+            result = result.plus(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a map without a mapping for {@code key}.
+     *
+     * @param key
+     *            the key
+     *
+     * @return the new map, or this map if it did not contain the key
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        boolean[] removed = new boolean[1];
+        Object newRoot = remove(this.root, 0, hash(key), key, removed);
+        if (!removed[0]) {
+            return this;
+        }
+        if (newRoot == null) {
+            return empty();
+        }
+        return new PersistentHashMap<K, V>(newRoot, this.size - 1);
+    }
+
+    /**
+     * Returns a map without mappings for any of the supplied keys.
+     *
+     * @param keys
+     *            the keys
+     *
+     * @return the new map
+     */
+    public PersistentHashMap<K, V> minusAll(Iterable<?> keys) {
+        PersistentHashMap<K, V> result = this;
+        for (Object key : keys) {
+            result = result.minus(key);
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (this.entrySet == null) {
+            this.entrySet = new EntrySet();
+        }
+        return this.entrySet;
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("SerializedForm required");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Leaf<K, V> find(Object key) {
+        int hash = hash(key);
+        Object node = this.root;
+        int shift = 0;
+        while (node != null) {
+            if (node instanceof Branch) {
+                Branch branch = (Branch) node;
+                int bit = bit(hash, shift);
+                if ((branch.bitmap & bit) == 0) {
+                    return null;
+                }
+                node = branch.children[branch.index(bit)];
+                shift += BITS;
+            } else if (node instanceof Leaf) {
+                Leaf<K, V> leaf = (Leaf<K, V>) node;
+                return leaf.matches(hash, key) ? leaf : null;
+            } else {
+                return ((Collision) node).find(hash, key);
+            }
+        }
+        return null;
+    }
+
+    private static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        // spread the bits like java.util.HashMap does
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static int hashOf(Object node) {
+        if (node instanceof Leaf) {
+            return ((Leaf<?, ?>) node).hash;
+        }
+        return ((Collision) node).hash;
+    }
+
+    private static Object put(Object node, int shift, Leaf<?, ?> leaf, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return leaf;
+        } else if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = bit(leaf.hash, shift);
+            int index = branch.index(bit);
+            if ((branch.bitmap & bit) == 0) {
+                added[0] = true;
+                return branch.insert(bit, index, leaf);
+            }
+            Object child = branch.children[index];
+            Object newChild = put(child, shift + BITS, leaf, added);
+            return newChild == child ? branch : branch.replace(index, newChild);
+        } else if (node instanceof Leaf) {
+            Leaf<?, ?> existing = (Leaf<?, ?>) node;
+            if (existing.hash != leaf.hash) {
+                added[0] = true;
+                return merge(existing, leaf, shift);
+            } else if (Objects.equal(existing.key, leaf.key)) {
+                return existing.value == leaf.value ? existing : leaf;
+            } else {
+                added[0] = true;
+                return new Collision(leaf.hash, new Leaf<?, ?>[] { existing, leaf });
+            }
+        } else {
+            Collision collision = (Collision) node;
+            if (collision.hash != leaf.hash) {
+                added[0] = true;
+                return merge(collision, leaf, shift);
+            }
+            return collision.put(leaf, added);
+        }
+    }
+
+    private static Object merge(Object a, Object b, int shift) {
+        int ha = hashOf(a);
+        int hb = hashOf(b);
+        int ia = (ha >>> shift) & MASK;
+        int ib = (hb >>> shift) & MASK;
+        if (ia == ib) {
+            return new Branch(1 << ia, new Object[] { merge(a, b, shift + BITS) });
+        } else if (ia < ib) {
+            return new Branch((1 << ia) | (1 << ib), new Object[] { a, b });
+        } else {
+            return new Branch((1 << ia) | (1 << ib), new Object[] { b, a });
+        }
+    }
+
+    private static Object remove(Object node, int shift, int hash, Object key, boolean[] removed) {
+        if (node == null) {
+            return null;
+        } else if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = bit(hash, shift);
+            if ((branch.bitmap & bit) == 0) {
+                return branch;
+            }
+            int index = branch.index(bit);
+            Object child = branch.children[index];
+            Object newChild = remove(child, shift + BITS, hash, key, removed);
+            if (newChild == child) {
+                return branch;
+            } else if (newChild == null) {
+                return branch.delete(bit, index);
+            } else if (branch.children.length == 1 && !(newChild instanceof Branch)) {
+                // collapse the path to a single leaf
+                return newChild;
+            } else {
+                return branch.replace(index, newChild);
+            }
+        } else if (node instanceof Leaf) {
+            if (((Leaf<?, ?>) node).matches(hash, key)) {
+                removed[0] = true;
+                return null;
+            }
+            return node;
+        } else {
+            return ((Collision) node).remove(hash, key, removed);
+        }
+    }
+
+    /**
+     * A single mapping.
+     */
+    private static final class Leaf<K, V> implements Entry<K, V> {
+        private final int hash;
+
+        private final K key;
+
+        private final V value;
+
+        Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        boolean matches(int hash, Object key) {
+            return this.hash == hash && Objects.equal(this.key, key);
+        }
+
+        @Override
+        public K getKey() {
+            return this.key;
+        }
+
+        @Override
+        public V getValue() {
+            return this.value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Entry) {
+                Entry<?, ?> e = (Entry<?, ?>) o;
+                return Objects.equal(this.key, e.getKey()) && Objects.equal(this.value, e.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.key == null ? 0 : this.key.hashCode()) ^ (this.value == null ? 0 : this.value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+    }
+
+    /**
+     * Inner trie node holding up to 32 children selected by a bitmap.
+     */
+    private static final class Branch {
+        private final int bitmap;
+
+        private final Object[] children;
+
+        Branch(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(this.bitmap & (bit - 1));
+        }
+
+        Branch insert(int bit, int index, Object child) {
+            Object[] copy = new Object[this.children.length + 1];
+            System.arraycopy(this.children, 0, copy, 0, index);
+            copy[index] = child;
+            System.arraycopy(this.children, index, copy, index + 1, this.children.length - index);
+            return new Branch(this.bitmap | bit, copy);
+        }
+
+        Branch replace(int index, Object child) {
+            Object[] copy = this.children.clone();
+            copy[index] = child;
+            return new Branch(this.bitmap, copy);
+        }
+
+        Object delete(int bit, int index) {
+            if (this.children.length == 1) {
+                return null;
+            }
+            if (this.children.length == 2 && !(this.children[1 - index] instanceof Branch)) {
+                // collapse the path to the remaining leaf
+                return this.children[1 - index];
+            }
+            Object[] copy = new Object[this.children.length - 1];
+            System.arraycopy(this.children, 0, copy, 0, index);
+            System.arraycopy(this.children, index + 1, copy, index, copy.length - index);
+            return new Branch(this.bitmap & ~bit, copy);
+        }
+    }
+
+    /**
+     * Leaves whose keys share the same hash.
+     */
+    private static final class Collision {
+        private final int hash;
+
+        private final Leaf<?, ?>[] leaves;
+
+        Collision(int hash, Leaf<?, ?>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @SuppressWarnings("unchecked")
+        <K, V> Leaf<K, V> find(int hash, Object key) {
+            if (this.hash == hash) {
+                for (Leaf<?, ?> leaf : this.leaves) {
+                    if (Objects.equal(leaf.key, key)) {
+                        return (Leaf<K, V>) leaf;
+                    }
+                }
+            }
+            return null;
+        }
+
+        Object put(Leaf<?, ?> leaf, boolean[] added) {
+            for (int i = 0; i < this.leaves.length; ++i) {
+                if (Objects.equal(this.leaves[i].key, leaf.key)) {
+                    if (this.leaves[i].value == leaf.value) {
+                        return this;
+                    }
+                    Leaf<?, ?>[] copy = this.leaves.clone();
+                    copy[i] = leaf;
+                    return new Collision(this.hash, copy);
+                }
+            }
+            added[0] = true;
+            Leaf<?, ?>[] copy = new Leaf<?, ?>[this.leaves.length + 1];
+            System.arraycopy(this.leaves, 0, copy, 0, this.leaves.length);
+            copy[this.leaves.length] = leaf;
+            return new Collision(this.hash, copy);
+        }
+
+        Object remove(int hash, Object key, boolean[] removed) {
+            if (this.hash != hash) {
+                return this;
+            }
+            for (int i = 0; i < this.leaves.length; ++i) {
+                if (Objects.equal(this.leaves[i].key, key)) {
+                    removed[0] = true;
+                    if (this.leaves.length == 2) {
+                        return this.leaves[1 - i];
+                    }
+                    Leaf<?, ?>[] copy = new Leaf<?, ?>[this.leaves.length - 1];
+                    System.arraycopy(this.leaves, 0, copy, 0, i);
+                    System.arraycopy(this.leaves, i + 1, copy, i, copy.length - i);
+                    return new Collision(this.hash, copy);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Depth-first iterator over the leaves of the trie.
+     */
+    private static final class LeafIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Deque<Object> stack = new ArrayDeque<Object>();
+
+        private Leaf<K, V> next;
+
+        LeafIterator(Object root) {
+            if (root != null) {
+                this.stack.push(root);
+            }
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            this.next = null;
+            while (!this.stack.isEmpty()) {
+                Object node = this.stack.pop();
+                if (node instanceof Leaf) {
+                    this.next = (Leaf<K, V>) node;
+                    return;
+                } else if (node instanceof Branch) {
+                    Object[] children = ((Branch) node).children;
+                    for (int i = children.length - 1; i >= 0; --i) {
+                        this.stack.push(children[i]);
+                    }
+                } else {
+                    Leaf<?, ?>[] leaves = ((Collision) node).leaves;
+                    for (int i = leaves.length - 1; i >= 0; --i) {
+                        this.stack.push(leaves[i]);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+            Leaf<K, V> current = this.next;
+            advance();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Serialization proxy holding the plain mappings.
+     */
+    private static final class SerializedForm implements Serializable {
+        private static final long serialVersionUID = 1207325616735213906L;
+
+        private final Object[] keys;
+
+        private final Object[] values;
+
+        SerializedForm(PersistentHashMap<?, ?> map) {
+            this.keys = new Object[map.size()];
+            this.values = new Object[map.size()];
+            int i = 0;
+            for (Entry<?, ?> e : map.entrySet()) {
+                this.keys[i] = e.getKey();
+                this.values[i] = e.getValue();
+                ++i;
+            }
+        }
+
+        private Object readResolve() {
+            PersistentHashMap<Object, Object> map = empty();
+            for (int i = 0; i < this.keys.length; ++i) {
+                map = map.plus(this.keys[i], this.values[i]);
+            }
+            return map;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new LeafIterator<K, V>(root);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Entry) {
+                Entry<?, ?> e = (Entry<?, ?>) o;
+                Leaf<K, V> leaf = find(e.getKey());
+                return leaf != null && Objects.equal(leaf.getValue(), e.getValue());
+            }
+            return false;
+        }
+    }
+}
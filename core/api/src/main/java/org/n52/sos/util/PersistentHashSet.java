@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * Immutable hash set backed by a {@link PersistentHashMap}. Every
+ * modification returns a new set that shares all untouched structure with its
+ * predecessor, so adding a single element to a large set does not copy it.
+ * The {@link java.util.Set} mutator methods are not supported.
+ *
+ * @param <T>
+ *            the element type
+ *
+ * @since 4.4.0
+ */
+public final class PersistentHashSet<T> extends AbstractSet<T> implements Serializable {
+    private static final long serialVersionUID = -2036208437520429545L;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashSet EMPTY = new PersistentHashSet(PersistentHashMap.empty());
+
+    private final PersistentHashMap<T, Boolean> map;
+
+    private PersistentHashSet(PersistentHashMap<T, Boolean> map) {
+        this.map = map;
+    }
+
+    /**
+     * @param <T>
+     *            the element type
+     *
+     * @return the empty set
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentHashSet<T> empty() {
+        return (PersistentHashSet<T>) EMPTY;
+    }
+
+    /**
+     * Creates a persistent copy of the supplied elements.
+     *
+     * @param <T>
+     *            the element type
+     * @param elements
+     *            the elements (may be {@code null})
+     *
+     * @return the persistent set
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentHashSet<T> copyOf(Iterable<? extends T> elements) {
+        if (elements instanceof PersistentHashSet) {
+            return (PersistentHashSet<T>) elements;
+        }
+        PersistentHashSet<T> copy = empty();
+        if (elements != null) {
+            copy = copy.plusAll(elements);
+        }
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.map.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return this.map.containsKey(o);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        final Iterator<Entry<T, Boolean>> iterator = this.map.entrySet().iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @param element
+     *            the element to add
+     *
+     * @return the new set, or this set if it already contained the element
+     */
+    public PersistentHashSet<T> plus(T element) {
+        return wrap(this.map.plus(element, Boolean.TRUE));
+    }
+
+    /**
+     * @param elements
+     *            the elements to add
+     *
+     * @return the new set
+     */
+    public PersistentHashSet<T> plusAll(Iterable<? extends T> elements) {
+        PersistentHashMap<T, Boolean> result = this.map;
+        for (T element : elements) {
+            result = result.plus(element, Boolean.TRUE);
+        }
+        return wrap(result);
+    }
+
+    /**
+     * @param element
+     *            the element to remove
+     *
+     * @return the new set, or this set if it did not contain the element
+     */
+    public PersistentHashSet<T> minus(Object element) {
+        return wrap(this.map.minus(element));
+    }
+
+    /**
+     * @param elements
+     *            the elements to remove
+     *
+     * @return the new set
+     */
+    public PersistentHashSet<T> minusAll(Iterable<?> elements) {
+        return wrap(this.map.minusAll(elements));
+    }
+
+    private PersistentHashSet<T> wrap(PersistentHashMap<T, Boolean> newMap) {
+        if (newMap == this.map) {
+            return this;
+        } else if (newMap.isEmpty()) {
+            return empty();
+        }
+        return new PersistentHashSet<T>(newMap);
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable {@code Set} based multi map built from a {@link PersistentHashMap}
+ * of {@link PersistentHashSet}s. Like its building blocks every modification
+ * returns a new instance sharing all untouched keys and value sets with its
+ * predecessor. Keys without values are never retained.
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ *
+ * @since 4.4.0
+ */
+public final class PersistentSetMultiMap<K, V> extends AbstractMap<K, Set<V>> implements Serializable {
+    private static final long serialVersionUID = 2617066383357914012L;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentSetMultiMap EMPTY = new PersistentSetMultiMap(PersistentHashMap.empty());
+
+    private final PersistentHashMap<K, PersistentHashSet<V>> map;
+
+    private PersistentSetMultiMap(PersistentHashMap<K, PersistentHashSet<V>> map) {
+        this.map = map;
+    }
+
+    /**
+     * @param <K>
+     *            the key type
+     * @param <V>
+     *            the value type
+     *
+     * @return the empty multi map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentSetMultiMap<K, V> empty() {
+        return (PersistentSetMultiMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Creates a persistent copy of the supplied multi map.
+     *
+     * @param <K>
+     *            the key type
+     * @param <V>
+     *            the value type
+     * @param map
+     *            the map to copy (may be {@code null})
+     *
+     * @return the persistent multi map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentSetMultiMap<K, V> copyOf(Map<? extends K, ? extends Collection<? extends V>> map) {
+        if (map instanceof PersistentSetMultiMap) {
+            return (PersistentSetMultiMap<K, V>) map;
+        }
+        PersistentSetMultiMap<K, V> copy = empty();
+        if (map != null) {
+            for (Entry<? extends K, ? extends Collection<? extends V>> e : map.entrySet()) {
+                copy = copy.with(e.getKey(), e.getValue());
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.map.containsKey(key);
+    }
+
+    @Override
+    public Set<V> get(Object key) {
+        return this.map.get(key);
+    }
+
+    /**
+     * @param key
+     *            the key
+     *
+     * @return the values of the key or an empty set
+     */
+    public PersistentHashSet<V> getOrEmpty(Object key) {
+        PersistentHashSet<V> values = this.map.get(key);
+        return values == null ? PersistentHashSet.<V> empty() : values;
+    }
+
+    /**
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     *
+     * @return if {@code value} is associated with {@code key}
+     */
+    public boolean containsEntry(Object key, Object value) {
+        PersistentHashSet<V> values = this.map.get(key);
+        return values != null && values.contains(value);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    public Set<Entry<K, Set<V>>> entrySet() {
+        return (Set) this.map.entrySet();
+    }
+
+    /**
+     * @return the union of the values of all keys
+     */
+    public PersistentHashSet<V> allValues() {
+        PersistentHashSet<V> union = PersistentHashSet.empty();
+        for (PersistentHashSet<V> values : this.map.values()) {
+            union = union.isEmpty() ? values : union.plusAll(values);
+        }
+        return union;
+    }
+
+    /**
+     * @param key
+     *            the key
+     * @param value
+     *            the value to add
+     *
+     * @return the new multi map
+     */
+    public PersistentSetMultiMap<K, V> plus(K key, V value) {
+        return with(key, getOrEmpty(key).plus(value));
+    }
+
+    /**
+     * @param key
+     *            the key
+     * @param values
+     *            the values to add
+     *
+     * @return the new multi map
+     */
+    public PersistentSetMultiMap<K, V> plusAll(K key, Iterable<? extends V> values) {
+        return with(key, getOrEmpty(key).plusAll(values));
+    }
+
+    /**
+     * Replaces the values of a key.
+     *
+     * @param key
+     *            the key
+     * @param values
+     *            the new values (removes the key if {@code null} or empty)
+     *
+     * @return the new multi map
+     */
+    public PersistentSetMultiMap<K, V> with(K key, Iterable<? extends V> values) {
+        PersistentHashSet<V> set = PersistentHashSet.copyOf(values);
+        if (set.isEmpty()) {
+            return minus(key);
+        }
+        return wrap(this.map.plus(key, set));
+    }
+
+    /**
+     * @param key
+     *            the key to remove
+     *
+     * @return the new multi map
+     */
+    public PersistentSetMultiMap<K, V> minus(Object key) {
+        return wrap(this.map.minus(key));
+    }
+
+    /**
+     * Removes a value of a key. The key is removed if no values remain.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value to remove
+     *
+     * @return the new multi map
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentSetMultiMap<K, V> minus(Object key, Object value) {
+        PersistentHashSet<V> values = this.map.get(key);
+        if (values == null || !values.contains(value)) {
+            return this;
+        }
+        return with((K) key, values.minus(value));
+    }
+
+    /**
+     * Removes a value from every key. Keys without remaining values are
+     * removed.
+     *
+     * @param value
+     *            the value to remove
+     *
+     * @return the new multi map
+     */
+    public PersistentSetMultiMap<K, V> minusValue(Object value) {
+        PersistentSetMultiMap<K, V> result = this;
+        for (Entry<K, PersistentHashSet<V>> e : this.map.entrySet()) {
+            if (e.getValue().contains(value)) {
+                result = result.minus(e.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param keys
+     *            the keys to retain
+     *
+     * @return the new multi map containing only the supplied keys
+     */
+    public PersistentSetMultiMap<K, V> retainKeys(Collection<?> keys) {
+        PersistentSetMultiMap<K, V> result = this;
+        for (K key : this.map.keySet()) {
+            if (!keys.contains(key)) {
+                result = result.minus(key);
+            }
+        }
+        return result;
+    }
+
+    private PersistentSetMultiMap<K, V> wrap(PersistentHashMap<K, PersistentHashSet<V>> newMap) {
+        if (newMap == this.map) {
+            return this;
+        } else if (newMap.isEmpty()) {
+            return empty();
+        }
+        return new PersistentSetMultiMap<K, V>(newMap);
+    }
+}
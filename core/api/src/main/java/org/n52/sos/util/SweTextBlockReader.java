@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.n52.sos.ogc.swe.encoding.SweTextEncoding;
+
+import com.google.common.base.Strings;
+
+/**
+ * Reads the blocks of {@link SweTextEncoding} encoded values (e.g. the
+ * resultValues of an InsertResult request) one after another from a
+ * {@link Reader}, so that the values never have to be held completely in
+ * memory. Separators are matched literally. Like the block splitting of the
+ * InsertResult handling, a preceding element count, leading and trailing
+ * whitespace, empty blocks and trailing empty tokens of a block are skipped.
+ *
+ * @since 4.4.0
+ */
+public class SweTextBlockReader implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+
+    private final String tokenSeparator;
+
+    private final String blockSeparator;
+
+    private final char[] buffer;
+
+    private final StringBuilder token = new StringBuilder();
+
+    private int position;
+
+    private int limit;
+
+    private boolean started;
+
+    private boolean first = true;
+
+    private boolean eof;
+
+    public SweTextBlockReader(Reader reader, SweTextEncoding encoding) {
+        this(reader, encoding.getTokenSeparator(), encoding.getBlockSeparator(), DEFAULT_BUFFER_SIZE);
+    }
+
+    public SweTextBlockReader(Reader reader, String tokenSeparator, String blockSeparator, int bufferSize) {
+        if (reader == null || Strings.isNullOrEmpty(tokenSeparator)
+                || Strings.isNullOrEmpty(blockSeparator) || bufferSize <= 0) {
+            throw new IllegalArgumentException("reader, separators and a positive buffer size are required");
+        }
+        this.reader = reader;
+        this.tokenSeparator = tokenSeparator;
+        this.blockSeparator = blockSeparator;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Read the next block.
+     *
+     * @return the tokens of the next block or <code>null</code> if the end of
+     *         the values is reached
+     * @throws IOException
+     *             if the underlying reader fails
+     */
+    public List<String> readBlock() throws IOException {
+        List<String> block = nextBlock();
+        if (first) {
+            first = false;
+            if (block != null && block.size() == 1) {
+                // preceding element count
+                block = nextBlock();
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Read up to {@code max} blocks.
+     *
+     * @param max
+     *            the maximum number of blocks to read
+     * @return the read blocks, empty if the end of the values is reached
+     * @throws IOException
+     *             if the underlying reader fails
+     */
+    public List<List<String>> readBlocks(int max) throws IOException {
+        List<List<String>> blocks = new LinkedList<>();
+        List<String> block;
+        while (blocks.size() < max && (block = readBlock()) != null) {
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> nextBlock() throws IOException {
+        List<String> tokens = new ArrayList<>();
+        while (!eof) {
+            if (position == limit && !fill()) {
+                eof = true;
+                String last = token.toString().trim();
+                token.setLength(0);
+                if (!last.isEmpty() || !tokens.isEmpty()) {
+                    tokens.add(last);
+                }
+            } else {
+                char c = buffer[position++];
+                if (!started && Character.isWhitespace(c)) {
+                    continue;
+                }
+                started = true;
+                token.append(c);
+                if (endsWith(blockSeparator)) {
+                    tokens.add(completeToken(blockSeparator));
+                } else if (endsWith(tokenSeparator)) {
+                    tokens.add(completeToken(tokenSeparator));
+                    continue;
+                } else {
+                    continue;
+                }
+            }
+            // block completed
+            removeTrailingEmptyTokens(tokens);
+            if (!tokens.isEmpty()) {
+                return tokens;
+            }
+        }
+        return null;
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private boolean endsWith(String separator) {
+        int offset = token.length() - separator.length();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < separator.length(); ++i) {
+            if (token.charAt(offset + i) != separator.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String completeToken(String separator) {
+        token.setLength(token.length() - separator.length());
+        String value = token.toString();
+        token.setLength(0);
+        return value;
+    }
+
+    private static void removeTrailingEmptyTokens(List<String> tokens) {
+        while (!tokens.isEmpty() && tokens.get(tokens.size() - 1).isEmpty()) {
+            tokens.remove(tokens.size() - 1);
+        }
+    }
+}
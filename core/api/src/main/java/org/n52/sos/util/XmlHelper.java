@@ -103,10 +103,7 @@ public final class XmlHelper {
                         XmlObject.Factory.parse(SosHelper.parseHttpPostBodyWithParameter(request.getParameterNames(),
                                 request.getParameterMap()));
             } else {
-                final String requestContent =
-                        StringHelper.convertStreamToString(HTTPUtils.getInputStream(request),
-                                request.getCharacterEncoding());
-                doc = parseXmlString(requestContent);
+                return parseXmlSosRequest(HTTPUtils.getInputStream(request), request.getCharacterEncoding());
             }
         } catch (final XmlException xmle) {
             throw new NoApplicableCodeException().causedBy(xmle).withMessage(
@@ -119,6 +116,22 @@ public final class XmlHelper {
         return doc;
     }
 
+    /**
+     * Parse the request body read from the given stream.
+     *
+     * @param in
+     *            the request body
+     * @param encoding
+     *            the character encoding of the body, may be <code>null</code>
+     * @return the parsed request document
+     * @throws OwsExceptionReport
+     *             if the body can not be read or is not well formed
+     * @since 4.4.0
+     */
+    public static XmlObject parseXmlSosRequest(final InputStream in, final String encoding) throws OwsExceptionReport {
+        return parseXmlString(StringHelper.convertStreamToString(in, encoding));
+    }
+
     public static XmlObject parseXmlString(final String xmlString) throws OwsExceptionReport {
         try {
             return XmlObject.Factory.parse(xmlString);
@@ -57,4 +57,10 @@ public interface HTTPHeaders {
     String ACCESS_CONTROL_ALLOW_HEADERS = "Access-Control-Allow-Headers";
 
     String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    String ETAG = "ETag";
+
+    String IF_NONE_MATCH = "If-None-Match";
+
+    String VARY = "Vary";
 }
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.binding;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.binding.CapabilitiesResponseCache.CachedResponse;
+import org.n52.sos.event.events.SettingsChangeEvent;
+import org.n52.sos.ogc.ows.OWSConstants;
+import org.n52.sos.ogc.swe.simpleType.SweText;
+import org.n52.sos.ogc.swes.SwesExtensionImpl;
+import org.n52.sos.request.GetCapabilitiesRequest;
+import org.n52.sos.request.GetObservationRequest;
+import org.n52.sos.util.http.MediaTypes;
+
+/**
+ * @since 4.4.0
+ */
+public class CapabilitiesResponseCacheTest {
+    private static final String ACCEPT = "application/xml";
+
+    private CapabilitiesResponseCache cache;
+
+    private TestBinding binding;
+
+    @Before
+    public void setUp() {
+        this.cache = new CapabilitiesResponseCache();
+        this.binding = new TestBinding();
+    }
+
+    @Test
+    public void should_not_cache_other_requests() {
+        assertThat(cache.getKey(binding, new GetObservationRequest(), ACCEPT), is(nullValue()));
+    }
+
+    @Test
+    public void should_not_cache_if_disabled() {
+        cache.setEnabled(false);
+        assertThat(cache.getKey(binding, new GetCapabilitiesRequest(), ACCEPT), is(nullValue()));
+    }
+
+    @Test
+    public void should_not_cache_while_content_cache_update_is_pending() {
+        cache = new CapabilitiesResponseCache() {
+            @Override
+            protected boolean isContentCacheUpdatePending() {
+                return true;
+            }
+        };
+        assertThat(cache.getKey(binding, new GetCapabilitiesRequest(), ACCEPT), is(nullValue()));
+    }
+
+    @Test
+    public void should_create_equal_keys_for_equal_requests() {
+        assertThat(cache.getKey(binding, createRequest("en"), ACCEPT),
+                is(cache.getKey(binding, createRequest("en"), ACCEPT)));
+    }
+
+    @Test
+    public void should_create_different_keys_for_different_requests() {
+        String key = cache.getKey(binding, createRequest("en"), ACCEPT);
+        assertThat(key.equals(cache.getKey(binding, createRequest("de"), ACCEPT)), is(false));
+        assertThat(key.equals(cache.getKey(binding, createRequest("en"), "application/json")), is(false));
+        GetCapabilitiesRequest request = createRequest("en");
+        request.setSections(Arrays.asList("Contents"));
+        assertThat(key.equals(cache.getKey(binding, request, ACCEPT)), is(false));
+    }
+
+    @Test
+    public void should_not_cache_complex_extensions() {
+        GetCapabilitiesRequest request = createRequest("en");
+        request.addExtension(new SwesExtensionImpl<Object>().setIdentifier("complex").setValue(new Object()));
+        assertThat(cache.getKey(binding, request, ACCEPT), is(nullValue()));
+    }
+
+    @Test
+    public void should_discard_responses_on_events() throws Exception {
+        String key = cache.getKey(binding, createRequest("en"), ACCEPT);
+        cache.put(key, cache.getGeneration(), createResponse("<Capabilities/>"));
+        assertThat(cache.get(key), is(notNullValue()));
+        cache.handle(new SettingsChangeEvent(null, null, null));
+        assertThat(cache.get(key), is(nullValue()));
+    }
+
+    @Test
+    public void should_not_store_responses_of_previous_generation() throws Exception {
+        String key = cache.getKey(binding, createRequest("en"), ACCEPT);
+        long generation = cache.getGeneration();
+        cache.invalidate();
+        cache.put(key, generation, createResponse("<Capabilities/>"));
+        assertThat(cache.get(key), is(nullValue()));
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void should_match_entity_tag() throws Exception {
+        CachedResponse response = createResponse("<Capabilities/>");
+        String etag = response.getEntityTag();
+        assertThat(response.matches(etag), is(true));
+        assertThat(response.matches("\"other\", " + etag), is(true));
+        assertThat(response.matches("W/" + etag), is(true));
+        assertThat(response.matches("*"), is(true));
+        assertThat(response.matches("\"other\""), is(false));
+        assertThat(response.matches(null), is(false));
+        assertThat(createResponse("<Capabilities/>").getEntityTag(), is(etag));
+        assertThat(createResponse("<Capabilities></Capabilities>").getEntityTag().equals(etag), is(false));
+    }
+
+    private GetCapabilitiesRequest createRequest(String language) {
+        GetCapabilitiesRequest request = new GetCapabilitiesRequest();
+        request.setAcceptVersions(Arrays.asList("2.0.0"));
+        request.addExtension(new SwesExtensionImpl<SweText>().setIdentifier(
+                OWSConstants.AdditionalRequestParams.language.name()).setValue(new SweText().setValue(language)));
+        return request;
+    }
+
+    private CachedResponse createResponse(String content) throws Exception {
+        return new CachedResponse(MediaTypes.APPLICATION_XML, content.getBytes("UTF-8"));
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.coding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.n52.sos.encode.EncoderKey;
+import org.n52.sos.encode.OperationEncoderKey;
+import org.n52.sos.encode.XmlEncoderKey;
+import org.n52.sos.util.ProxySimilarityComparator;
+import org.n52.sos.util.http.MediaType;
+import org.n52.sos.util.http.MediaTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * JMH benchmark comparing the encoder lookup of the {@link DispatchIndex} with
+ * the previous lookup of the {@link CodingRepository}, which scanned all
+ * encoders for keys that were not yet known and never remembered keys without
+ * a matching encoder. The lookups are a mix of {@link XmlEncoderKey}s for
+ * subclasses of the declared types, {@link OperationEncoderKey}s and keys
+ * without encoder. Run it with {@link #main(String[])} from the test
+ * classpath.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodingRepositoryBenchmark {
+    private static final String[] NAMESPACES = { "http://www.opengis.net/om/2.0", "http://www.opengis.net/gml/3.2",
+            "http://www.opengis.net/swe/2.0", "http://www.opengis.net/sos/2.0", "http://www.opengis.net/swes/2.0",
+            "http://www.opengis.net/sensorML/1.0.1", "http://www.opengis.net/waterml/2.0",
+            "http://www.opengis.net/samplingSpatial/2.0" };
+
+    private static final Class<?>[] TYPES = { Object.class, Number.class, CharSequence.class, Collection.class,
+            Map.class, Iterable.class };
+
+    private static final Class<?>[] REQUESTED_TYPES = { Integer.class, String.class, ArrayList.class,
+            HashMap.class, Double.class, StringBuilder.class };
+
+    private static final String[] OPERATIONS = { "GetCapabilities", "DescribeSensor", "GetObservation",
+            "GetFeatureOfInterest", "GetObservationById", "InsertObservation", "InsertSensor", "GetResult",
+            "GetResultTemplate", "InsertResult", "GetDataAvailability", "DeleteSensor" };
+
+    private static final MediaType[] MEDIA_TYPES = { MediaTypes.APPLICATION_XML, MediaTypes.APPLICATION_JSON,
+            MediaTypes.APPLICATION_EXI };
+
+    private List<Set<EncoderKey>> encoders;
+
+    private EncoderKey[] lookups;
+
+    private KeySetIndex index;
+
+    private LinearScan scan;
+
+    @Setup
+    public void setup() {
+        encoders = new ArrayList<Set<EncoderKey>>();
+        for (String namespace : NAMESPACES) {
+            for (Class<?> type : TYPES) {
+                encoders.add(ImmutableSet.<EncoderKey> of(new XmlEncoderKey(namespace, type)));
+            }
+        }
+        for (String operation : OPERATIONS) {
+            for (MediaType mediaType : MEDIA_TYPES) {
+                encoders.add(ImmutableSet.<EncoderKey> of(new OperationEncoderKey("SOS", "2.0.0", operation,
+                        mediaType), new OperationEncoderKey("SOS", "1.0.0", operation, mediaType)));
+            }
+        }
+        List<EncoderKey> keys = new ArrayList<EncoderKey>();
+        for (String namespace : NAMESPACES) {
+            for (Class<?> type : REQUESTED_TYPES) {
+                keys.add(new XmlEncoderKey(namespace, type));
+            }
+            keys.add(new XmlEncoderKey(namespace + "/unknown", Integer.class));
+        }
+        for (String operation : OPERATIONS) {
+            keys.add(new OperationEncoderKey("SOS", "2.0.0", operation, MediaTypes.APPLICATION_XML));
+            keys.add(new OperationEncoderKey("SOS", "2.0.0", operation, MediaTypes.TEXT_PLAIN));
+        }
+        Collections.shuffle(keys, new Random(42));
+        lookups = keys.toArray(new EncoderKey[keys.size()]);
+        index = new KeySetIndex(encoders);
+        scan = new LinearScan(encoders);
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        for (EncoderKey key : lookups) {
+            blackhole.consume(scan.get(key));
+        }
+    }
+
+    @Benchmark
+    public void dispatchIndex(Blackhole blackhole) {
+        for (EncoderKey key : lookups) {
+            blackhole.consume(index.get(key));
+        }
+    }
+
+    @Benchmark
+    public KeySetIndex createDispatchIndex() {
+        return new KeySetIndex(encoders);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(CodingRepositoryBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+    static class KeySetIndex extends DispatchIndex<EncoderKey, Set<EncoderKey>> {
+        KeySetIndex(Iterable<Set<EncoderKey>> encoders) {
+            super(encoders);
+        }
+
+        @Override
+        protected Set<EncoderKey> getKeys(Set<EncoderKey> encoder) {
+            return encoder;
+        }
+    }
+
+    /**
+     * The lookup as previously implemented by the {@link CodingRepository}.
+     */
+    private static class LinearScan {
+        private final List<Set<EncoderKey>> encoders;
+
+        private final Map<EncoderKey, List<Set<EncoderKey>>> encoderByKey = Maps.newHashMap();
+
+        LinearScan(List<Set<EncoderKey>> encoders) {
+            this.encoders = encoders;
+        }
+
+        Set<EncoderKey> get(final EncoderKey key) {
+            List<Set<EncoderKey>> matches = encoderByKey.get(key);
+            if (matches == null) {
+                for (Set<EncoderKey> encoder : encoders) {
+                    for (EncoderKey ek : encoder) {
+                        if (ek.getSimilarity(key) >= 0) {
+                            if (matches == null) {
+                                matches = new ArrayList<Set<EncoderKey>>();
+                                encoderByKey.put(key, matches);
+                            }
+                            matches.add(encoder);
+                            break;
+                        }
+                    }
+                }
+            }
+            if (matches == null || matches.isEmpty()) {
+                return null;
+            } else if (matches.size() > 1) {
+                return Collections.min(matches, new ProxySimilarityComparator<Set<EncoderKey>, EncoderKey>(key) {
+                    @Override
+                    protected Collection<EncoderKey> getSimilars(Set<EncoderKey> encoder) {
+                        return encoder;
+                    }
+                });
+            } else {
+                return matches.get(0);
+            }
+        }
+    }
+}
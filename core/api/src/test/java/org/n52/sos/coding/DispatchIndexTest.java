@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.coding;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Test;
+import org.n52.sos.encode.EncoderKey;
+import org.n52.sos.encode.OperationEncoderKey;
+import org.n52.sos.encode.XmlEncoderKey;
+import org.n52.sos.util.CompositeSimilar;
+import org.n52.sos.util.http.MediaTypes;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * @since 4.4.0
+ */
+public class DispatchIndexTest {
+    private static final String NAMESPACE = "http://www.opengis.net/om/2.0";
+
+    private static final Set<EncoderKey> OBJECT = ImmutableSet.<EncoderKey> of(new XmlEncoderKey(NAMESPACE,
+            Object.class));
+
+    private static final Set<EncoderKey> NUMBER = ImmutableSet.<EncoderKey> of(new XmlEncoderKey(NAMESPACE,
+            Number.class));
+
+    private static final Set<EncoderKey> OPERATION = ImmutableSet.<EncoderKey> of(
+            new OperationEncoderKey("SOS", "2.0.0", "GetObservation", MediaTypes.APPLICATION_XML),
+            new XmlEncoderKey(NAMESPACE, String.class));
+
+    private final KeySetIndex index = new KeySetIndex(Arrays.asList(OBJECT, NUMBER, OPERATION));
+
+    @Test
+    public void should_find_declared_keys() {
+        assertThat(index.get(new XmlEncoderKey(NAMESPACE, Number.class)), is(sameInstance(NUMBER)));
+        assertThat(index.get(new OperationEncoderKey("SOS", "2.0.0", "GetObservation",
+                MediaTypes.APPLICATION_XML)), is(sameInstance(OPERATION)));
+    }
+
+    @Test
+    public void should_choose_most_similar_component() {
+        assertThat(index.get(new XmlEncoderKey(NAMESPACE, Integer.class)), is(sameInstance(NUMBER)));
+        assertThat(index.get(new XmlEncoderKey(NAMESPACE, String.class)), is(sameInstance(OPERATION)));
+        assertThat(index.get(new XmlEncoderKey(NAMESPACE, Boolean.class)), is(sameInstance(OBJECT)));
+    }
+
+    @Test
+    public void should_remember_missing_components() {
+        EncoderKey key = new XmlEncoderKey("http://www.example.org", Integer.class);
+        assertThat(index.get(key), is(nullValue()));
+        assertThat(index.get(key), is(nullValue()));
+        assertThat(index.getComponentsByKey().containsKey(key), is(false));
+    }
+
+    @Test
+    public void should_match_composite_keys() {
+        assertThat(index.get(new CompositeKey(OPERATION)), is(sameInstance(OPERATION)));
+        assertThat(index.get(new CompositeKey(ImmutableSet.<EncoderKey> builder().addAll(OPERATION)
+                .addAll(NUMBER).build())), is(nullValue()));
+    }
+
+    @Test
+    public void should_return_null_for_null_key() {
+        assertThat(index.get(null), is(nullValue()));
+    }
+
+    private static class KeySetIndex extends DispatchIndex<EncoderKey, Set<EncoderKey>> {
+        KeySetIndex(Iterable<Set<EncoderKey>> components) {
+            super(components);
+        }
+
+        @Override
+        protected Set<EncoderKey> getKeys(Set<EncoderKey> component) {
+            return component;
+        }
+    }
+
+    private static class CompositeKey extends CompositeSimilar<EncoderKey> implements EncoderKey {
+        CompositeKey(Iterable<EncoderKey> keys) {
+            super(keys);
+        }
+    }
+}
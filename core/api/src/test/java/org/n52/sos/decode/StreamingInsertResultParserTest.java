@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.decode;
+
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.n52.sos.exception.ows.concrete.MissingResultValuesParameterException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.request.InsertResultRequest;
+
+import com.google.common.io.CharStreams;
+
+public class StreamingInsertResultParserTest {
+
+    private static final String INSERT_RESULT_START =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<sos:InsertResult xmlns:sos=\"http://www.opengis.net/sos/2.0\""
+                    + " xmlns:swes=\"http://www.opengis.net/swes/2.0\" service=\"SOS\" version=\"2.0.0\">";
+
+    private static InputStream stream(String xml) {
+        return new BufferedInputStream(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void shouldStreamResultValues() throws OwsExceptionReport, IOException {
+        InsertResultRequest request = new StreamingInsertResultParser().parse(stream(INSERT_RESULT_START
+                + "<sos:template> template </sos:template>"
+                + "<sos:resultValues>2@t1,1.0<!-- c -->@<![CDATA[t2,2.0]]></sos:resultValues>"
+                + "</sos:InsertResult>"), null);
+        assertThat(request, is(notNullValue()));
+        assertThat(request.getService(), is("SOS"));
+        assertThat(request.getVersion(), is("2.0.0"));
+        assertThat(request.getTemplateIdentifier(), is("template"));
+        assertThat(request.isStreamingResultValues(), is(true));
+        try (Reader reader = request.getResultValuesReader()) {
+            assertThat(CharStreams.toString(reader), is("2@t1,1.0@t2,2.0"));
+        }
+    }
+
+    @Test
+    public void shouldResetOtherRequests() throws OwsExceptionReport, IOException {
+        String xml = "<sos:GetResult xmlns:sos=\"http://www.opengis.net/sos/2.0\"/>";
+        InputStream in = stream(xml);
+        assertThat(new StreamingInsertResultParser().parse(in, null), is(nullValue()));
+        assertThat(CharStreams.toString(new InputStreamReader(in, StandardCharsets.UTF_8)), is(xml));
+    }
+
+    @Test
+    public void shouldResetRequestsWithExtensions() throws OwsExceptionReport {
+        InputStream in = stream(INSERT_RESULT_START
+                + "<swes:extension>ext</swes:extension>"
+                + "<sos:template>template</sos:template>"
+                + "<sos:resultValues>t1,1.0</sos:resultValues>"
+                + "</sos:InsertResult>");
+        assertThat(new StreamingInsertResultParser().parse(in, null), is(nullValue()));
+    }
+
+    @Test(expected = MissingResultValuesParameterException.class)
+    public void shouldFailWithoutResultValues() throws OwsExceptionReport {
+        new StreamingInsertResultParser().parse(stream(INSERT_RESULT_START
+                + "<sos:template>template</sos:template>"
+                + "</sos:InsertResult>"), null);
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.cache.ContentCache;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.sos.SosProcedureDescriptionUnknowType;
+import org.n52.sos.request.AbstractServiceRequest;
+import org.n52.sos.request.DeleteSensorRequest;
+import org.n52.sos.request.GetObservationRequest;
+import org.n52.sos.request.InsertResultRequest;
+import org.n52.sos.request.InsertResultTemplateRequest;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * @since 4.4.0
+ *
+ */
+public class BatchExecutionPlanTest {
+
+    private ContentCache cache;
+
+    @Before
+    public void setUp() {
+        cache = mock(ContentCache.class);
+        when(cache.getOfferingsWithResultTemplate()).thenReturn(Sets.newHashSet("o1", "o2"));
+        when(cache.getResultTemplatesForOffering("o1")).thenReturn(Collections.singleton("t1"));
+        when(cache.getResultTemplatesForOffering("o2")).thenReturn(Collections.singleton("t2"));
+        when(cache.getProceduresForOffering("o1")).thenReturn(Collections.singleton("p1"));
+        when(cache.getProceduresForOffering("o2")).thenReturn(Collections.singleton("p2"));
+    }
+
+    @Test
+    public void should_execute_independent_requests_in_one_stage() {
+        BatchExecutionPlan plan = BatchExecutionPlan.create(
+                requests(insertResult("t1"), deleteSensor("p2"), deleteSensor("p3")), false, cache);
+        assertThat(plan.size(), is(1));
+        assertThat(plan.getStages().get(0), contains(0, 1, 2));
+    }
+
+    @Test
+    public void should_execute_insert_result_and_deletion_of_template_procedure_in_different_stages() {
+        BatchExecutionPlan plan = BatchExecutionPlan.create(
+                requests(insertResult("t1"), deleteSensor("p1"), deleteSensor("p2")), false, cache);
+        assertThat(plan.size(), is(2));
+        assertThat(plan.getStages().get(0), contains(0, 2));
+        assertThat(plan.getStages().get(1), contains(1));
+    }
+
+    @Test
+    public void should_isolate_insert_result_of_unknown_template() {
+        BatchExecutionPlan plan = BatchExecutionPlan.create(
+                requests(insertResult("unknown"), deleteSensor("p2")), false, cache);
+        assertThat(plan.size(), is(2));
+    }
+
+    @Test
+    public void should_execute_dependent_requests_in_later_stage() {
+        BatchExecutionPlan plan = BatchExecutionPlan.create(
+                requests(insertResultTemplate("t1"), deleteSensor("p2"), deleteSensor("p1"), deleteSensor("p1")),
+                false, cache);
+        assertThat(plan.size(), is(3));
+        assertThat(plan.getStages().get(0), contains(0, 1));
+        assertThat(plan.getStages().get(1), contains(2));
+        assertThat(plan.getStages().get(2), contains(3));
+    }
+
+    @Test
+    public void should_execute_inserting_requests_sequentially() {
+        BatchExecutionPlan plan = BatchExecutionPlan.create(
+                requests(insertResult("t1"), insertResult("t2"), insertResultTemplate("t3")), false, cache);
+        assertThat(plan.size(), is(3));
+        assertThat(plan.getStages().get(0), contains(0));
+        assertThat(plan.getStages().get(1), contains(1));
+        assertThat(plan.getStages().get(2), contains(2));
+    }
+
+    @Test
+    public void should_order_read_requests_and_modifications() {
+        BatchExecutionPlan plan = BatchExecutionPlan.create(
+                requests(new GetObservationRequest(), insertResult("t1"), new GetObservationRequest(),
+                        new GetObservationRequest()), false, cache);
+        assertThat(plan.size(), is(3));
+        assertThat(plan.getStages().get(0), contains(0));
+        assertThat(plan.getStages().get(1), contains(1));
+        assertThat(plan.getStages().get(2), contains(2, 3));
+    }
+
+    @Test
+    public void should_isolate_requests_with_unknown_entities() {
+        BatchExecutionPlan plan = BatchExecutionPlan.create(
+                requests(insertResult("t1"), insertResultTemplate(null), insertResult("t2")), false, cache);
+        assertThat(plan.size(), is(3));
+    }
+
+    @Test
+    public void should_only_group_consecutive_reads_if_stopping_at_failure() {
+        BatchExecutionPlan plan = BatchExecutionPlan.create(
+                requests(new GetObservationRequest(), new GetObservationRequest(), insertResult("t1"),
+                        insertResult("t2"), new GetObservationRequest()), true, cache);
+        assertThat(plan.size(), is(4));
+        assertThat(plan.getStages().get(0), contains(0, 1));
+        assertThat(plan.getStages().get(1), contains(2));
+        assertThat(plan.getStages().get(2), contains(3));
+        assertThat(plan.getStages().get(3), contains(4));
+    }
+
+    private List<AbstractServiceRequest<?>> requests(AbstractServiceRequest<?>... requests) {
+        return Lists.newArrayList(requests);
+    }
+
+    private InsertResultRequest insertResult(String template) {
+        InsertResultRequest request = new InsertResultRequest();
+        request.setTemplateIdentifier(template);
+        return request;
+    }
+
+    private InsertResultTemplateRequest insertResultTemplate(String template) {
+        InsertResultTemplateRequest request = new InsertResultTemplateRequest();
+        request.setIdentifier(template);
+        request.setObservationTemplate(new OmObservationConstellation()
+                .setProcedure(new SosProcedureDescriptionUnknowType("p1", null, null)));
+        return request;
+    }
+
+    private DeleteSensorRequest deleteSensor(String procedure) {
+        DeleteSensorRequest request = new DeleteSensorRequest();
+        request.setProcedureIdentifier(procedure);
+        return request;
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.event;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * @since 4.4.0
+ *
+ */
+public class SosEventBusTest {
+
+    private final SosEventBus bus = SosEventBus.getInstance();
+
+    private TestListener listener;
+
+    @After
+    public void unregister() throws InterruptedException {
+        if (listener != null) {
+            listener.release.countDown();
+            bus.flush(10, TimeUnit.SECONDS);
+            bus.unregister(listener);
+        }
+    }
+
+    @Test
+    public void should_handle_synchronous_listener_in_submitting_thread() {
+        listener = new TestListener(false, BackpressureStrategy.BLOCK);
+        listener.release.countDown();
+        bus.register(listener);
+        bus.submit(new TestEvent(1));
+        assertThat(listener.handled, contains(1));
+        assertThat(listener.threads, contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void should_handle_asynchronous_listener_in_order() throws InterruptedException {
+        listener = new TestListener(true, BackpressureStrategy.BLOCK);
+        listener.release.countDown();
+        bus.register(listener);
+        for (int i = 0; i < 10; ++i) {
+            bus.submit(new TestEvent(i));
+        }
+        assertThat(bus.flush(10, TimeUnit.SECONDS), is(true));
+        assertThat(listener.handled, contains(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+    }
+
+    @Test
+    public void should_coalesce_queued_events() throws InterruptedException {
+        listener = new TestListener(true, BackpressureStrategy.COALESCE);
+        bus.register(listener);
+        bus.submit(new TestEvent(1));
+        listener.started.await(10, TimeUnit.SECONDS);
+        bus.submit(new TestEvent(2));
+        bus.submit(new TestEvent(3));
+        listener.release.countDown();
+        assertThat(bus.flush(10, TimeUnit.SECONDS), is(true));
+        assertThat(listener.handled, contains(1, 5));
+        assertThat(getMetrics().getCoalesced(), is(1L));
+        assertThat(getMetrics().getHandled(), is(2L));
+    }
+
+    @Test
+    public void should_drop_events_if_queue_is_full() throws InterruptedException {
+        listener = new TestListener(true, BackpressureStrategy.DROP);
+        bus.register(listener);
+        bus.submit(new TestEvent(1));
+        listener.started.await(10, TimeUnit.SECONDS);
+        bus.submit(new TestEvent(2));
+        bus.submit(new TestEvent(3));
+        listener.release.countDown();
+        assertThat(bus.flush(10, TimeUnit.SECONDS), is(true));
+        assertThat(listener.handled, contains(1, 2));
+        assertThat(getMetrics().getDropped(), is(1L));
+    }
+
+    @Test
+    public void should_report_pending_events() throws InterruptedException {
+        listener = new TestListener(true, BackpressureStrategy.BLOCK);
+        bus.register(listener);
+        assertThat(bus.isPending(TestEvent.class), is(false));
+        bus.submit(new TestEvent(1));
+        listener.started.await(10, TimeUnit.SECONDS);
+        assertThat(bus.isPending(TestEvent.class), is(true));
+        assertThat(bus.isPending(SosEvent.class), is(true));
+        listener.release.countDown();
+        assertThat(bus.flush(10, TimeUnit.SECONDS), is(true));
+        assertThat(bus.isPending(TestEvent.class), is(false));
+    }
+
+    private SosEventListenerMetrics getMetrics() {
+        for (SosEventListenerMetrics metrics : bus.getMetrics()) {
+            if (metrics.getListener().equals(listener.getClass().getName())) {
+                return metrics;
+            }
+        }
+        throw new AssertionError("No metrics for " + listener);
+    }
+
+    private static class TestEvent implements SosEvent {
+        private final int value;
+
+        TestEvent(int value) {
+            this.value = value;
+        }
+    }
+
+    private static class TestListener implements AsynchronousSosEventListener {
+        private final boolean asynchronous;
+
+        private final BackpressureStrategy strategy;
+
+        private final List<Integer> handled = Collections.synchronizedList(Lists.<Integer> newArrayList());
+
+        private final List<Thread> threads = Collections.synchronizedList(Lists.<Thread> newArrayList());
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        TestListener(boolean asynchronous, BackpressureStrategy strategy) {
+            this.asynchronous = asynchronous;
+            this.strategy = strategy;
+        }
+
+        @Override
+        public Set<Class<? extends SosEvent>> getTypes() {
+            return Collections.<Class<? extends SosEvent>> singleton(TestEvent.class);
+        }
+
+        @Override
+        public void handle(SosEvent event) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.add(((TestEvent) event).value);
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public boolean isAsynchronous() {
+            return asynchronous;
+        }
+
+        @Override
+        public int getQueueCapacity() {
+            return 1;
+        }
+
+        @Override
+        public BackpressureStrategy getBackpressureStrategy() {
+            return strategy;
+        }
+
+        @Override
+        public SosEvent coalesce(SosEvent queued, SosEvent event) {
+            return new TestEvent(((TestEvent) queued).value + ((TestEvent) event).value);
+        }
+    }
+}
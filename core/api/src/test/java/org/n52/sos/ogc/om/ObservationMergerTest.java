@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ogc.om;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.om.values.TVPValue;
+import org.n52.sos.ogc.sos.SosProcedureDescriptionUnknowType;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * @since 4.4.0
+ *
+ */
+public class ObservationMergerTest {
+
+    private final ObservationMerger merger = new ObservationMerger();
+
+    @Test
+    public void should_merge_observations_with_same_constellation() {
+        List<OmObservation> observations = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            observations.add(createObservation("proc", "obsProp" + (i % 2), "feature", i));
+        }
+        List<OmObservation> merged =
+                merger.mergeObservations(observations, ObservationMergeIndicator.defaultObservationMergerIndicator());
+        assertThat(merged, hasSize(2));
+        assertThat(merged.get(0).getObservationConstellation().getObservablePropertyIdentifier(), is("obsProp0"));
+        assertThat(merged.get(1).getObservationConstellation().getObservablePropertyIdentifier(), is("obsProp1"));
+        assertThat(merged.get(0).getValue().getValue(), is(instanceOf(TVPValue.class)));
+        assertThat(((TVPValue) merged.get(0).getValue().getValue()).getValue(), hasSize(5));
+        assertThat(merged.get(0).getObservationID(), is("1"));
+    }
+
+    @Test
+    public void should_merge_by_selected_properties_only() {
+        OmObservation first = createObservation("proc", "obsProp", "feature1", 0);
+        OmObservation second = createObservation("proc", "obsProp", "feature2", 1);
+        OmObservation third = createObservation("proc2", "obsProp", "feature1", 2);
+        List<OmObservation> merged = merger.mergeObservations(Lists.newArrayList(first, second, third),
+                new ObservationMergeIndicator().setProcedure(true));
+        assertThat(merged, contains(first, third));
+    }
+
+    @Test
+    public void should_not_merge_unsupported_observation_types() {
+        OmObservation first = createObservation("proc", "obsProp", "feature", 0);
+        OmObservation second = createObservation("proc", "obsProp", "feature", 1);
+        first.getObservationConstellation().setObservationType(OmConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION);
+        second.getObservationConstellation().setObservationType(OmConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION);
+        List<OmObservation> merged = merger.mergeObservations(Lists.newArrayList(first, second),
+                ObservationMergeIndicator.defaultObservationMergerIndicator());
+        assertThat(merged, contains(first, second));
+    }
+
+    private OmObservation createObservation(String procedure, String observableProperty, String feature, int value) {
+        OmObservationConstellation constellation =
+                new OmObservationConstellation(new SosProcedureDescriptionUnknowType(procedure, null, null),
+                        new OmObservableProperty(observableProperty), new SamplingFeature(new CodeWithAuthority(
+                                feature)), Sets.newHashSet("offering"));
+        constellation.setObservationType(OmConstants.OBS_TYPE_MEASUREMENT);
+        OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(constellation);
+        observation.setValue(new SingleObservationValue<Double>(new TimeInstant(new DateTime(value * 1000L)),
+                new QuantityValue((double) value, "m")));
+        return observation;
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ogc.sos;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.response.GetResultResponse;
+
+/**
+ * @since 4.4.0
+ */
+public class StreamingResultValuesTest {
+
+    @Test
+    public void shouldPrefixElementCountAndSeparateBlocks() throws OwsExceptionReport {
+        StreamingResultValues values =
+                new ListResultValues("@@", "2012-11-19T13:00:00Z,1.0", "2012-11-19T13:01:00Z,2.0");
+        assertThat(values.getResultValues(), is("2@@2012-11-19T13:00:00Z,1.0@@2012-11-19T13:01:00Z,2.0"));
+    }
+
+    @Test
+    public void shouldReturnEmptyStringWithoutBlocks() throws OwsExceptionReport {
+        assertThat(new ListResultValues("@@").getResultValues(), is(""));
+    }
+
+    @Test
+    public void shouldMergeStreamingResultValuesIntoResponse() throws OwsExceptionReport {
+        GetResultResponse response = new GetResultResponse();
+        response.setStreamingResultValues(new ListResultValues(";", "a,1", "b,2", "c,3"));
+        assertThat(response.hasStreamingData(), is(true));
+        response.mergeStreamingData();
+        assertThat(response.hasStreamingData(), is(false));
+        assertThat(response.getResultValues(), is("3;a,1;b,2;c,3"));
+    }
+
+    private static class ListResultValues extends StreamingResultValues {
+        private final String blockSeparator;
+
+        private final List<String> blocks;
+
+        private final Iterator<String> iterator;
+
+        ListResultValues(String blockSeparator, String... blocks) {
+            this.blockSeparator = blockSeparator;
+            this.blocks = Arrays.asList(blocks);
+            this.iterator = this.blocks.iterator();
+        }
+
+        @Override
+        public boolean hasNextBlock() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public String nextBlock() {
+            return iterator.next();
+        }
+
+        @Override
+        public long getElementCount() {
+            return blocks.size();
+        }
+
+        @Override
+        public String getBlockSeparator() {
+            return blockSeparator;
+        }
+    }
+}
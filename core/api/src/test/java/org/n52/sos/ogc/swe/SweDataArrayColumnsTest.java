@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ogc.swe;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.n52.sos.exception.ows.concrete.DateTimeParseException;
+import org.n52.sos.ogc.swe.SweDataArrayColumns.ColumnType;
+
+import com.google.common.collect.Lists;
+
+/**
+ * @since 4.4.0
+ *
+ */
+public class SweDataArrayColumnsTest {
+
+    private static final List<ColumnType> TYPES = Arrays.asList(ColumnType.TIME, ColumnType.DOUBLE,
+            ColumnType.LONG, ColumnType.CATEGORY);
+
+    @Test
+    public void should_restore_tokens_exactly() {
+        SweDataArrayColumns columns = new SweDataArrayColumns(TYPES);
+        List<List<String>> blocks = Lists.newArrayList();
+        blocks.add(Arrays.asList("2012-11-19T13:00:00.000+01:00", "12.50", "3", "a"));
+        blocks.add(Arrays.asList("2012-11-19T13:30:00.000+01:00", "-0.05", "-42", "b"));
+        blocks.add(Arrays.asList("2012-11-19T14:00:00Z", "1.0E-5", "07", "a"));
+        blocks.add(Arrays.asList("2012-11-19T14:30:00.000+01:00", "NaN", "", null));
+        blocks.add(Arrays.asList("2012-11-19T15:00:00.000+01:00", "0", "0.5", "c"));
+        for (List<String> block : blocks) {
+            columns.add(block);
+        }
+        assertThat(columns.isColumnar(), is(true));
+        assertThat(columns.size(), is(blocks.size()));
+        assertThat(columns, is((List<List<String>>) blocks));
+        assertThat(columns.hashCode(), is(blocks.hashCode()));
+    }
+
+    @Test
+    public void should_read_typed_values() throws DateTimeParseException {
+        SweDataArrayColumns columns = new SweDataArrayColumns(TYPES);
+        columns.add(Arrays.asList("2012-11-19T13:00:00.000+01:00", "12.50", "3", "a"));
+        columns.add(Arrays.asList("2012-11-19T13:00:00.000+01:00", "-0.05", "1.5", "a"));
+        assertThat(columns.getDouble(0, 1), is(12.5));
+        assertThat(columns.getDouble(1, 1), is(-0.05));
+        assertThat(columns.getLong(0, 2), is(3L));
+        assertThat(columns.getDouble(1, 2), is(1.5));
+        assertThat(columns.getDateTime(0, 0).getMillis(),
+                is(new DateTime(2012, 11, 19, 12, 0, DateTimeZone.UTC).getMillis()));
+    }
+
+    @Test
+    public void should_append_blocks() {
+        SweDataArrayColumns columns = new SweDataArrayColumns(TYPES);
+        columns.add(Arrays.asList("2012-11-19T13:00:00Z", "12.50", "3", "a"));
+        columns.add(Arrays.asList("2012-11-19T13:30:00Z", "0.001", "4", "b"));
+        assertThat(columns.appendTo(new StringBuilder(), ",", "@@").toString(),
+                is("2012-11-19T13:00:00Z,12.50,3,a@@2012-11-19T13:30:00Z,0.001,4,b"));
+    }
+
+    @Test
+    public void should_fall_back_to_blocks_for_irregular_blocks() {
+        SweDataArrayColumns columns = new SweDataArrayColumns(TYPES);
+        columns.add(Arrays.asList("2012-11-19T13:00:00Z", "12.50", "3", "a"));
+        columns.add(Arrays.<String> asList());
+        assertThat(columns.isColumnar(), is(false));
+        assertThat(columns.size(), is(2));
+        assertThat(columns.get(0), contains("2012-11-19T13:00:00Z", "12.50", "3", "a"));
+        assertThat(columns.get(1).isEmpty(), is(true));
+    }
+
+    @Test
+    public void should_demote_columns_with_many_literals() {
+        SweDataArrayColumns columns = new SweDataArrayColumns(Arrays.asList(ColumnType.DOUBLE));
+        List<List<String>> blocks = Lists.newArrayList();
+        for (int i = 0; i < 200; i++) {
+            blocks.add(Arrays.asList(i % 2 == 0 ? Integer.toString(i) : "x" + i));
+        }
+        columns.addAll(blocks);
+        assertThat(columns, is(blocks));
+        assertThat(columns.getDouble(2, 0), is(2.0));
+    }
+
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * @since 4.4.0
+ */
+public class DictionarySetMultiMapTest {
+    private final IdentifierDictionary dictionary = new IdentifierDictionary();
+
+    private final DictionarySetMultiMap map = new DictionarySetMultiMap(dictionary);
+
+    @Test
+    public void should_assign_dense_ids() {
+        assertThat(dictionary.encode("a"), is(0));
+        assertThat(dictionary.encode("b"), is(1));
+        assertThat(dictionary.encode("a"), is(0));
+        assertThat(dictionary.decode(1), is("b"));
+        assertThat(dictionary.lookup("c"), is(-1));
+        assertThat(dictionary.size(), is(2));
+    }
+
+    @Test
+    public void should_add_and_remove_values() {
+        map.add("k", "a");
+        map.addAll("k", Arrays.asList("b", "c"));
+        assertThat(map.get("k"), containsInAnyOrder("a", "b", "c"));
+        assertThat(map.removeWithKey("k", "b"), is(true));
+        assertThat(map.removeWithKey("k", "b"), is(false));
+        assertThat(map.get("k"), containsInAnyOrder("a", "c"));
+        assertThat(map.removeWithKey("k", Arrays.asList("a", "c")), is(true));
+        assertThat(map.containsKey("k"), is(false));
+        assertThat(map.get("k"), is(nullValue()));
+    }
+
+    @Test
+    public void should_keep_key_without_values() {
+        map.add("k", "a");
+        assertThat(map.remove("k", (Object) "a"), is(true));
+        assertThat(map.containsKey("k"), is(true));
+        assertThat(map.hasValues("k"), is(false));
+        assertThat(map.get("k"), is(empty()));
+    }
+
+    @Test
+    public void should_be_equal_to_hash_set_multi_map() {
+        SetMultiMap<String, String> expected = MultiMaps.newSetMultiMap();
+        for (int i = 0; i < 100; ++i) {
+            map.add("k" + i % 7, "v" + i);
+            expected.add("k" + i % 7, "v" + i);
+        }
+        assertThat(map.equals(expected), is(true));
+        assertThat(expected.equals(map), is(true));
+        assertThat(map.hashCode(), is(expected.hashCode()));
+        assertThat(map.allValues(), is(expected.allValues()));
+    }
+
+    @Test
+    public void should_remove_keys_through_key_set() {
+        for (int i = 0; i < 50; ++i) {
+            map.add("k" + i, "v");
+        }
+        Iterator<String> iter = map.keySet().iterator();
+        while (iter.hasNext()) {
+            if (!iter.next().equals("k42")) {
+                iter.remove();
+            }
+        }
+        assertThat(map.size(), is(1));
+        assertThat(map.get("k42"), containsInAnyOrder("v"));
+    }
+
+    @Test
+    public void should_not_change_returned_sets() {
+        map.add("k", "a");
+        Set<String> values = map.get("k");
+        map.add("k", "b");
+        assertThat(values, containsInAnyOrder("a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void should_return_immutable_sets() {
+        map.add("k", "a");
+        map.get("k").add("b");
+    }
+
+    @Test
+    public void should_intersect_identifier_sets() {
+        IdentifierSet a = IdentifierSet.of(dictionary, Arrays.asList("a", "b", "c"));
+        IdentifierSet b = IdentifierSet.of(dictionary, Arrays.asList("b", "c", "d"));
+        assertThat(a.intersection(b), containsInAnyOrder("b", "c"));
+        assertThat(a.intersection(new HashSet<>(Arrays.asList("c", "x"))), containsInAnyOrder("c"));
+        assertThat(a.containsAll(IdentifierSet.of(dictionary, Arrays.asList("a", "c"))), is(true));
+        assertThat(a.containsAll(b), is(false));
+    }
+}
@@ -32,11 +32,15 @@ import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
+import java.util.List;
+
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKTReader;
@@ -169,4 +173,32 @@ public class GeometryHandlerTest {
         geometryHandler.setStorageEpsg(EPSG_31467);
         assertThat((geometryHandler.switchCoordinateAxisFromToDatasourceIfNeeded(get31467Geometry()).distance(get31467Geometry()) < DISTANCE), is(true));
     }
+
+    @Test
+    public void shouldTransformGeometriesInBatch() throws OwsExceptionReport {
+        geometryHandler.clearSupportedCRSMap();
+        Geometry geometry4326 = get4326Geometry();
+        List<Geometry> transformed =
+                geometryHandler.transform(Lists.newArrayList(geometry4326, get31467Geometry(), null), EPSG_31467);
+        assertEquals(3, transformed.size());
+        assertEquals(EPSG_31467, transformed.get(0).getSRID());
+        assertThat((transformed.get(0).distance(geometryHandler.transform(get4326Geometry(), EPSG_31467)) < DISTANCE),
+                is(true));
+        assertThat((transformed.get(0).distance(get31467Geometry()) < DISTANCE_TRANSFORMED), is(true));
+        assertThat((transformed.get(1).distance(get31467Geometry()) < DISTANCE), is(true));
+        assertThat(transformed.get(2) == null, is(true));
+        // the passed geometries are not modified
+        assertEquals(EPSG_4326, geometry4326.getSRID());
+        assertThat((geometry4326.distance(get4326Geometry()) < DISTANCE), is(true));
+    }
+
+    @Test
+    public void shouldTransformCoordinatesInPlace() throws OwsExceptionReport {
+        geometryHandler.clearSupportedCRSMap();
+        Coordinate[] coordinates = new Coordinate[] { new Coordinate(get4326Geometry().getCoordinate()) };
+        geometryHandler.transform(coordinates, EPSG_4326, EPSG_31467);
+        Geometry expected = geometryHandler.transform(get4326Geometry(), EPSG_31467);
+        assertEquals(expected.getCoordinate().x, coordinates[0].x, DISTANCE);
+        assertEquals(expected.getCoordinate().y, coordinates[0].y, DISTANCE);
+    }
 }
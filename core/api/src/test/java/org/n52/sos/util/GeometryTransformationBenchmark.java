@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.geotools.geometry.jts.JTS;
+import org.geotools.referencing.CRS;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * JMH benchmark of the geometry transformation of a GetObservation response:
+ * the sampling geometries of the observations are either requested in the
+ * storage CRS (untransformed) or in another CRS, transformed one by one with
+ * a {@link org.opengis.referencing.operation.MathTransform} looked up for
+ * every geometry as previously done by the {@link GeometryHandler}, one by one
+ * with the cached transform, or in a single batch. Run it with
+ * {@link #main(String[])} from the test classpath.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryTransformationBenchmark {
+    private static final int SOURCE_EPSG = 4326;
+
+    private static final int TARGET_EPSG = 31467;
+
+    @Param({ "100", "10000" })
+    private int observations;
+
+    private GeometryHandler geometryHandler;
+
+    private List<Geometry> geometries;
+
+    private CoordinateReferenceSystem sourceCRS;
+
+    private CoordinateReferenceSystem targetCRS;
+
+    @Setup
+    public void setup() throws ConfigurationException, FactoryException {
+        geometryHandler = GeometryHandler.getInstance();
+        geometryHandler.setSupportedCRS(Joiner.on(Constants.COMMA_CHAR).join(SOURCE_EPSG, TARGET_EPSG));
+        geometryHandler.setEpsgCodesWithNorthingFirstAxisOrder(Joiner.on(Constants.SEMICOLON_CHAR).join(
+                SOURCE_EPSG, TARGET_EPSG));
+        GeometryFactory factory = JTSHelper.getGeometryFactoryForSRID(SOURCE_EPSG);
+        Random random = new Random(42);
+        geometries = Lists.newArrayListWithCapacity(observations);
+        for (int i = 0; i < observations; i++) {
+            geometries.add(factory.createPoint(new Coordinate(50 + random.nextDouble() * 4, 7 + random
+                    .nextDouble() * 4)));
+        }
+        sourceCRS = CRS.decode("EPSG:" + SOURCE_EPSG);
+        targetCRS = CRS.decode("EPSG:" + TARGET_EPSG);
+    }
+
+    @Benchmark
+    public void untransformed(Blackhole blackhole) throws OwsExceptionReport {
+        for (Geometry geometry : geometries) {
+            blackhole.consume(geometryHandler.transform(geometry, SOURCE_EPSG));
+        }
+    }
+
+    @Benchmark
+    public void transformedWithLookup(Blackhole blackhole) throws FactoryException, TransformException {
+        for (Geometry geometry : geometries) {
+            Geometry transformed = JTS.transform(geometry, CRS.findMathTransform(sourceCRS, targetCRS));
+            transformed.setSRID(TARGET_EPSG);
+            blackhole.consume(transformed);
+        }
+    }
+
+    @Benchmark
+    public void transformedWithCachedTransform(Blackhole blackhole) throws OwsExceptionReport {
+        for (Geometry geometry : geometries) {
+            blackhole.consume(geometryHandler.transform(geometry, TARGET_EPSG));
+        }
+    }
+
+    @Benchmark
+    public List<Geometry> transformedInBatch() throws OwsExceptionReport {
+        return geometryHandler.transform(geometries, TARGET_EPSG);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder().include(GeometryTransformationBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SweTextBlockReaderTest {
+
+    private static SweTextBlockReader reader(String values, int bufferSize) {
+        return new SweTextBlockReader(new StringReader(values), ",", "@@", bufferSize);
+    }
+
+    @Test
+    public void shouldReadBlocks() throws IOException {
+        SweTextBlockReader reader = reader("t1,1.0@@t2,2.0@@t3,3.0", 4);
+        assertThat(reader.readBlock(), contains("t1", "1.0"));
+        assertThat(reader.readBlock(), contains("t2", "2.0"));
+        assertThat(reader.readBlock(), contains("t3", "3.0"));
+        assertThat(reader.readBlock(), is(nullValue()));
+        assertThat(reader.readBlock(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSkipElementCount() throws IOException {
+        SweTextBlockReader reader = reader("2@@t1,1.0@@t2,2.0", SweTextBlockReader.DEFAULT_BUFFER_SIZE);
+        assertThat(reader.readBlock(), contains("t1", "1.0"));
+        assertThat(reader.readBlock(), contains("t2", "2.0"));
+        assertThat(reader.readBlock(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSkipWhitespaceAndEmptyBlocks() throws IOException {
+        SweTextBlockReader reader = reader("\n   t1,1.0@@@@t2,2.0,@@ \n", 3);
+        assertThat(reader.readBlock(), contains("t1", "1.0"));
+        assertThat(reader.readBlock(), contains("t2", "2.0"));
+        assertThat(reader.readBlock(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldKeepEmptyTokensWithinBlock() throws IOException {
+        SweTextBlockReader reader = reader("t1,,1.0", 1);
+        assertThat(reader.readBlock(), contains("t1", "", "1.0"));
+        assertThat(reader.readBlock(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotInterpretSeparatorsAsRegex() throws IOException {
+        SweTextBlockReader reader = new SweTextBlockReader(new StringReader("a|b.c|d"), "|", ".", 2);
+        assertThat(reader.readBlock(), contains("a", "b"));
+        assertThat(reader.readBlock(), contains("c", "d"));
+        assertThat(reader.readBlock(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldReadBlocksInChunks() throws IOException {
+        SweTextBlockReader reader = reader("t1,1@@t2,2@@t3,3", 5);
+        List<List<String>> chunk = reader.readBlocks(2);
+        assertThat(chunk.size(), is(2));
+        assertThat(chunk.get(1), contains("t2", "2"));
+        chunk = reader.readBlocks(2);
+        assertThat(chunk.size(), is(1));
+        assertThat(chunk.get(0), contains("t3", "3"));
+        assertThat(reader.readBlocks(2), is(empty()));
+    }
+
+    @Test
+    public void shouldReturnNothingForEmptyValues() throws IOException {
+        assertThat(reader("  ", 2).readBlock(), is(nullValue()));
+        assertThat(reader("", 2).readBlock(), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireSeparators() {
+        new SweTextBlockReader(new StringReader(""), "", "@@", 1);
+    }
+}
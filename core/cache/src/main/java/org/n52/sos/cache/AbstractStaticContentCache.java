@@ -45,6 +45,7 @@ import org.n52.sos.ogc.gml.time.TimeInstant;
 import org.n52.sos.ogc.gml.time.TimePeriod;
 import org.n52.sos.ogc.sos.SosEnvelope;
 import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.IdentifierSet;
 
 import com.google.common.collect.Sets;
 import com.vividsolutions.jts.geom.Envelope;
@@ -144,7 +145,8 @@ public abstract class AbstractStaticContentCache implements ContentCache {
     }
 
     /**
-     * Creates a unmodifiable copy of the specified set.
+     * Creates a unmodifiable copy of the specified set. Immutable
+     * {@link IdentifierSet}s are returned as they are.
      *
      * @param <T>
      *            the element type
@@ -156,6 +158,8 @@ public abstract class AbstractStaticContentCache implements ContentCache {
     protected static <T> Set<T> copyOf(Set<T> set) {
         if (set == null) {
             return Collections.emptySet();
+        } else if (set instanceof IdentifierSet) {
+            return set;
         } else {
             return Collections.unmodifiableSet(new HashSet<>(set));
         }
@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+import org.joda.time.DateTime;
+import org.n52.sos.cache.ContentCache.ComponentAggregation;
+import org.n52.sos.cache.ContentCache.TypeInstance;
+import org.n52.sos.i18n.MultilingualString;
+import org.n52.sos.ogc.sos.SosEnvelope;
+import org.n52.sos.util.Constants;
+import org.n52.sos.util.PersistentHashMap;
+import org.n52.sos.util.PersistentHashSet;
+import org.n52.sos.util.PersistentSetMultiMap;
+
+import com.google.common.base.Objects;
+
+/**
+ * State of a {@link SnapshotContentCache}. All collections are persistent, so
+ * a snapshot can be forked in constant time with {@link #copy()}. Once a
+ * snapshot has been published it is never modified again; writers always
+ * operate on a private copy. The same applies to the contained
+ * {@link SosEnvelope}s, which are replaced instead of expanded in place.
+ *
+ * @since 4.4.0
+ */
+final class ContentCacheSnapshot implements Cloneable, Serializable {
+    private static final long serialVersionUID = -1585962376224306436L;
+
+    /**
+     * Incremented on publication; not considered by {@link #equals(Object)}.
+     */
+    long version;
+
+    DateTime updateTime;
+    int defaultEpsgCode = Constants.EPSG_WGS84;
+    SosEnvelope globalEnvelope = new SosEnvelope(null, defaultEpsgCode);
+    DateTime minPhenomenonTime;
+    DateTime maxPhenomenonTime;
+    DateTime minResultTime;
+    DateTime maxResultTime;
+    PersistentHashMap<String, DateTime> maxPhenomenonTimeForOfferings = PersistentHashMap.empty();
+    PersistentHashMap<String, DateTime> minPhenomenonTimeForOfferings = PersistentHashMap.empty();
+    PersistentHashMap<String, DateTime> maxResultTimeForOfferings = PersistentHashMap.empty();
+    PersistentHashMap<String, DateTime> minResultTimeForOfferings = PersistentHashMap.empty();
+    PersistentHashMap<String, DateTime> maxPhenomenonTimeForProcedures = PersistentHashMap.empty();
+    PersistentHashMap<String, DateTime> minPhenomenonTimeForProcedures = PersistentHashMap.empty();
+    PersistentSetMultiMap<String, String> allowedObservationTypeForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> allowedFeatureOfInterestTypeForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> childFeaturesForFeatureOfInterest = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> childProceduresForProcedures = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> childOfferingsForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> featuresOfInterestForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> offeringsForFeaturesOfInterest = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> featuresOfInterestForResultTemplates = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> observablePropertiesForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> observablePropertiesForProcedures = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> observationTypesForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> featureOfInterestTypesForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> observedPropertiesForResultTemplates = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> offeringsForObservableProperties = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> offeringsForProcedures = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> parentFeaturesForFeaturesOfInterest = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> parentProceduresForProcedures = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> parentOfferingsForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> proceduresForFeaturesOfInterest = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> proceduresForObservableProperties = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> proceduresForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> hiddenChildProceduresForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> relatedFeaturesForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> resultTemplatesForOfferings = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> rolesForRelatedFeatures = PersistentSetMultiMap.empty();
+    PersistentHashMap<String, SosEnvelope> envelopeForOfferings = PersistentHashMap.empty();
+    PersistentHashMap<String, SosEnvelope> spatialFilteringProfileEnvelopeForOfferings = PersistentHashMap.empty();
+    PersistentHashMap<String, String> nameForOfferings = PersistentHashMap.empty();
+    PersistentHashMap<String, MultilingualString> i18nNameForOfferings = PersistentHashMap.empty();
+    PersistentHashMap<String, MultilingualString> i18nDescriptionForOfferings = PersistentHashMap.empty();
+    PersistentHashSet<Integer> epsgCodes = PersistentHashSet.empty();
+    PersistentHashSet<String> featuresOfInterest = PersistentHashSet.empty();
+    PersistentHashSet<String> procedures = PersistentHashSet.empty();
+    PersistentHashSet<String> resultTemplates = PersistentHashSet.empty();
+    PersistentHashSet<String> offerings = PersistentHashSet.empty();
+    PersistentHashSet<Locale> supportedLanguages = PersistentHashSet.empty();
+    PersistentHashMap<String, String> featureOfInterestIdentifierForHumanReadableName = PersistentHashMap.empty();
+    PersistentHashMap<String, String> featureOfInterestHumanReadableNameForIdentifier = PersistentHashMap.empty();
+    PersistentHashMap<String, String> observablePropertyIdentifierForHumanReadableName = PersistentHashMap.empty();
+    PersistentHashMap<String, String> observablePropertyHumanReadableNameForIdentifier = PersistentHashMap.empty();
+    PersistentHashMap<String, String> procedureIdentifierForHumanReadableName = PersistentHashMap.empty();
+    PersistentHashMap<String, String> procedureHumanReadableNameForIdentifier = PersistentHashMap.empty();
+    PersistentHashMap<String, String> offeringIdentifierForHumanReadableName = PersistentHashMap.empty();
+    PersistentHashMap<String, String> offeringHumanReadableNameForIdentifier = PersistentHashMap.empty();
+    PersistentHashSet<String> compositePhenomenons = PersistentHashSet.empty();
+    PersistentSetMultiMap<String, String> compositePhenomenonsForProcedure = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> compositePhenomenonsForOffering = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> observablePropertiesForCompositePhenomenon = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> compositePhenomenonForObservableProperty = PersistentSetMultiMap.empty();
+    PersistentHashSet<String> requestableProcedureDescriptionFormats = PersistentHashSet.empty();
+    PersistentSetMultiMap<TypeInstance, String> typeInstanceProcedures = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<ComponentAggregation, String> componentAggregationProcedures = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> typeOfProcedures = PersistentSetMultiMap.empty();
+    PersistentSetMultiMap<String, String> procedureProcedureDescriptionFormats = PersistentSetMultiMap.empty();
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(updateTime,
+                                defaultEpsgCode,
+                                globalEnvelope,
+                                minPhenomenonTime,
+                                maxPhenomenonTime,
+                                minResultTime,
+                                maxResultTime,
+                                maxPhenomenonTimeForOfferings,
+                                minPhenomenonTimeForOfferings,
+                                maxResultTimeForOfferings,
+                                minResultTimeForOfferings,
+                                maxPhenomenonTimeForProcedures,
+                                minPhenomenonTimeForProcedures,
+                                allowedObservationTypeForOfferings,
+                                allowedFeatureOfInterestTypeForOfferings,
+                                childFeaturesForFeatureOfInterest,
+                                childProceduresForProcedures,
+                                childOfferingsForOfferings,
+                                featuresOfInterestForOfferings,
+                                offeringsForFeaturesOfInterest,
+                                featuresOfInterestForResultTemplates,
+                                observablePropertiesForOfferings,
+                                observablePropertiesForProcedures,
+                                observationTypesForOfferings,
+                                featureOfInterestTypesForOfferings,
+                                observedPropertiesForResultTemplates,
+                                offeringsForObservableProperties,
+                                offeringsForProcedures,
+                                parentFeaturesForFeaturesOfInterest,
+                                parentProceduresForProcedures,
+                                parentOfferingsForOfferings,
+                                proceduresForFeaturesOfInterest,
+                                proceduresForObservableProperties,
+                                proceduresForOfferings,
+                                hiddenChildProceduresForOfferings,
+                                relatedFeaturesForOfferings,
+                                resultTemplatesForOfferings,
+                                rolesForRelatedFeatures,
+                                envelopeForOfferings,
+                                spatialFilteringProfileEnvelopeForOfferings,
+                                nameForOfferings,
+                                i18nNameForOfferings,
+                                i18nDescriptionForOfferings,
+                                epsgCodes,
+                                featuresOfInterest,
+                                procedures,
+                                resultTemplates,
+                                offerings,
+                                supportedLanguages,
+                                featureOfInterestIdentifierForHumanReadableName,
+                                featureOfInterestHumanReadableNameForIdentifier,
+                                observablePropertyIdentifierForHumanReadableName,
+                                observablePropertyHumanReadableNameForIdentifier,
+                                procedureIdentifierForHumanReadableName,
+                                procedureHumanReadableNameForIdentifier,
+                                offeringIdentifierForHumanReadableName,
+                                offeringHumanReadableNameForIdentifier,
+                                compositePhenomenons,
+                                compositePhenomenonsForProcedure,
+                                compositePhenomenonsForOffering,
+                                observablePropertiesForCompositePhenomenon,
+                                compositePhenomenonForObservableProperty,
+                                requestableProcedureDescriptionFormats,
+                                typeInstanceProcedures,
+                                componentAggregationProcedures,
+                                typeOfProcedures,
+                                procedureProcedureDescriptionFormats);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ContentCacheSnapshot)) {
+            return false;
+        }
+        final ContentCacheSnapshot other = (ContentCacheSnapshot) obj;
+        return Objects.equal(this.updateTime, other.updateTime)
+                && Objects.equal(this.defaultEpsgCode, other.defaultEpsgCode)
+                && Objects.equal(this.globalEnvelope, other.globalEnvelope)
+                && Objects.equal(this.minPhenomenonTime, other.minPhenomenonTime)
+                && Objects.equal(this.maxPhenomenonTime, other.maxPhenomenonTime)
+                && Objects.equal(this.minResultTime, other.minResultTime)
+                && Objects.equal(this.maxResultTime, other.maxResultTime)
+                && Objects.equal(this.maxPhenomenonTimeForOfferings, other.maxPhenomenonTimeForOfferings)
+                && Objects.equal(this.minPhenomenonTimeForOfferings, other.minPhenomenonTimeForOfferings)
+                && Objects.equal(this.maxResultTimeForOfferings, other.maxResultTimeForOfferings)
+                && Objects.equal(this.minResultTimeForOfferings, other.minResultTimeForOfferings)
+                && Objects.equal(this.maxPhenomenonTimeForProcedures, other.maxPhenomenonTimeForProcedures)
+                && Objects.equal(this.minPhenomenonTimeForProcedures, other.minPhenomenonTimeForProcedures)
+                && Objects.equal(this.allowedObservationTypeForOfferings, other.allowedObservationTypeForOfferings)
+                && Objects.equal(this.allowedFeatureOfInterestTypeForOfferings, other.allowedFeatureOfInterestTypeForOfferings)
+                && Objects.equal(this.childFeaturesForFeatureOfInterest, other.childFeaturesForFeatureOfInterest)
+                && Objects.equal(this.childProceduresForProcedures, other.childProceduresForProcedures)
+                && Objects.equal(this.childOfferingsForOfferings, other.childOfferingsForOfferings)
+                && Objects.equal(this.featuresOfInterestForOfferings, other.featuresOfInterestForOfferings)
+                && Objects.equal(this.offeringsForFeaturesOfInterest, other.offeringsForFeaturesOfInterest)
+                && Objects.equal(this.featuresOfInterestForResultTemplates, other.featuresOfInterestForResultTemplates)
+                && Objects.equal(this.observablePropertiesForOfferings, other.observablePropertiesForOfferings)
+                && Objects.equal(this.observablePropertiesForProcedures, other.observablePropertiesForProcedures)
+                && Objects.equal(this.observationTypesForOfferings, other.observationTypesForOfferings)
+                && Objects.equal(this.featureOfInterestTypesForOfferings, other.featureOfInterestTypesForOfferings)
+                && Objects.equal(this.observedPropertiesForResultTemplates, other.observedPropertiesForResultTemplates)
+                && Objects.equal(this.offeringsForObservableProperties, other.offeringsForObservableProperties)
+                && Objects.equal(this.offeringsForProcedures, other.offeringsForProcedures)
+                && Objects.equal(this.parentFeaturesForFeaturesOfInterest, other.parentFeaturesForFeaturesOfInterest)
+                && Objects.equal(this.parentProceduresForProcedures, other.parentProceduresForProcedures)
+                && Objects.equal(this.parentOfferingsForOfferings, other.parentOfferingsForOfferings)
+                && Objects.equal(this.proceduresForFeaturesOfInterest, other.proceduresForFeaturesOfInterest)
+                && Objects.equal(this.proceduresForObservableProperties, other.proceduresForObservableProperties)
+                && Objects.equal(this.proceduresForOfferings, other.proceduresForOfferings)
+                && Objects.equal(this.hiddenChildProceduresForOfferings, other.hiddenChildProceduresForOfferings)
+                && Objects.equal(this.relatedFeaturesForOfferings, other.relatedFeaturesForOfferings)
+                && Objects.equal(this.resultTemplatesForOfferings, other.resultTemplatesForOfferings)
+                && Objects.equal(this.rolesForRelatedFeatures, other.rolesForRelatedFeatures)
+                && Objects.equal(this.envelopeForOfferings, other.envelopeForOfferings)
+                && Objects.equal(this.spatialFilteringProfileEnvelopeForOfferings, other.spatialFilteringProfileEnvelopeForOfferings)
+                && Objects.equal(this.nameForOfferings, other.nameForOfferings)
+                && Objects.equal(this.i18nNameForOfferings, other.i18nNameForOfferings)
+                && Objects.equal(this.i18nDescriptionForOfferings, other.i18nDescriptionForOfferings)
+                && Objects.equal(this.epsgCodes, other.epsgCodes)
+                && Objects.equal(this.featuresOfInterest, other.featuresOfInterest)
+                && Objects.equal(this.procedures, other.procedures)
+                && Objects.equal(this.resultTemplates, other.resultTemplates)
+                && Objects.equal(this.offerings, other.offerings)
+                && Objects.equal(this.supportedLanguages, other.supportedLanguages)
+                && Objects.equal(this.featureOfInterestIdentifierForHumanReadableName, other.featureOfInterestIdentifierForHumanReadableName)
+                && Objects.equal(this.featureOfInterestHumanReadableNameForIdentifier, other.featureOfInterestHumanReadableNameForIdentifier)
+                && Objects.equal(this.observablePropertyIdentifierForHumanReadableName, other.observablePropertyIdentifierForHumanReadableName)
+                && Objects.equal(this.observablePropertyHumanReadableNameForIdentifier, other.observablePropertyHumanReadableNameForIdentifier)
+                && Objects.equal(this.procedureIdentifierForHumanReadableName, other.procedureIdentifierForHumanReadableName)
+                && Objects.equal(this.procedureHumanReadableNameForIdentifier, other.procedureHumanReadableNameForIdentifier)
+                && Objects.equal(this.offeringIdentifierForHumanReadableName, other.offeringIdentifierForHumanReadableName)
+                && Objects.equal(this.offeringHumanReadableNameForIdentifier, other.offeringHumanReadableNameForIdentifier)
+                && Objects.equal(this.compositePhenomenons, other.compositePhenomenons)
+                && Objects.equal(this.compositePhenomenonsForProcedure, other.compositePhenomenonsForProcedure)
+                && Objects.equal(this.compositePhenomenonsForOffering, other.compositePhenomenonsForOffering)
+                && Objects.equal(this.observablePropertiesForCompositePhenomenon, other.observablePropertiesForCompositePhenomenon)
+                && Objects.equal(this.compositePhenomenonForObservableProperty, other.compositePhenomenonForObservableProperty)
+                && Objects.equal(this.requestableProcedureDescriptionFormats, other.requestableProcedureDescriptionFormats)
+                && Objects.equal(this.typeInstanceProcedures, other.typeInstanceProcedures)
+                && Objects.equal(this.componentAggregationProcedures, other.componentAggregationProcedures)
+                && Objects.equal(this.typeOfProcedures, other.typeOfProcedures)
+                && Objects.equal(this.procedureProcedureDescriptionFormats, other.procedureProcedureDescriptionFormats);
+    }
+
+    /**
+     * @return a modifiable copy of this snapshot sharing all collections
+     */
+    ContentCacheSnapshot copy() {
+        try {
+            return (ContentCacheSnapshot) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
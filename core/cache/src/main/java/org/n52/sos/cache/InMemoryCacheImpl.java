@@ -50,6 +50,8 @@ import org.n52.sos.request.ProcedureRequestSettings;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.Constants;
 import org.n52.sos.util.DateTimeHelper;
+import org.n52.sos.util.DictionarySetMultiMap;
+import org.n52.sos.util.IdentifierDictionary;
 import org.n52.sos.util.SetMultiMap;
 import org.n52.sos.util.StringHelper;
 
@@ -62,37 +64,38 @@ public class InMemoryCacheImpl extends AbstractStaticContentCache implements Wri
     private static final Logger LOG = LoggerFactory.getLogger(InMemoryCacheImpl.class);
     private static final long serialVersionUID = 5229487811485834059L;
     private DateTime updateTime;
+    private final IdentifierDictionary identifiers = createIdentifierDictionary();
     private final Map<String, DateTime> maxPhenomenonTimeForOfferings = newSynchronizedMap();
     private final Map<String, DateTime> minPhenomenonTimeForOfferings = newSynchronizedMap();
     private final Map<String, DateTime> maxResultTimeForOfferings = newSynchronizedMap();
     private final Map<String, DateTime> minResultTimeForOfferings = newSynchronizedMap();
     private final Map<String, DateTime> maxPhenomenonTimeForProcedures = newSynchronizedMap();
     private final Map<String, DateTime> minPhenomenonTimeForProcedures = newSynchronizedMap();
-    private final SetMultiMap<String, String> allowedObservationTypeForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> allowedFeatureOfInterestTypeForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> childFeaturesForFeatureOfInterest = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> childProceduresForProcedures = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> childOfferingsForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> featuresOfInterestForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> offeringsForFeaturesOfInterest = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> featuresOfInterestForResultTemplates = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> observablePropertiesForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> observablePropertiesForProcedures = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> observationTypesForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> featureOfInterestTypesForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> observedPropertiesForResultTemplates = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> offeringsForObservableProperties = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> offeringsForProcedures = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> parentFeaturesForFeaturesOfInterest = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> parentProceduresForProcedures = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> parentOfferingsForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> proceduresForFeaturesOfInterest = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> proceduresForObservableProperties = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> proceduresForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> hiddenChildProceduresForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> relatedFeaturesForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> resultTemplatesForOfferings = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String, String> rolesForRelatedFeatures = newSynchronizedSetMultiMap();
+    private final SetMultiMap<String, String> allowedObservationTypeForOfferings = newRelation();
+    private final SetMultiMap<String, String> allowedFeatureOfInterestTypeForOfferings = newRelation();
+    private final SetMultiMap<String, String> childFeaturesForFeatureOfInterest = newRelation();
+    private final SetMultiMap<String, String> childProceduresForProcedures = newRelation();
+    private final SetMultiMap<String, String> childOfferingsForOfferings = newRelation();
+    private final SetMultiMap<String, String> featuresOfInterestForOfferings = newRelation();
+    private final SetMultiMap<String, String> offeringsForFeaturesOfInterest = newRelation();
+    private final SetMultiMap<String, String> featuresOfInterestForResultTemplates = newRelation();
+    private final SetMultiMap<String, String> observablePropertiesForOfferings = newRelation();
+    private final SetMultiMap<String, String> observablePropertiesForProcedures = newRelation();
+    private final SetMultiMap<String, String> observationTypesForOfferings = newRelation();
+    private final SetMultiMap<String, String> featureOfInterestTypesForOfferings = newRelation();
+    private final SetMultiMap<String, String> observedPropertiesForResultTemplates = newRelation();
+    private final SetMultiMap<String, String> offeringsForObservableProperties = newRelation();
+    private final SetMultiMap<String, String> offeringsForProcedures = newRelation();
+    private final SetMultiMap<String, String> parentFeaturesForFeaturesOfInterest = newRelation();
+    private final SetMultiMap<String, String> parentProceduresForProcedures = newRelation();
+    private final SetMultiMap<String, String> parentOfferingsForOfferings = newRelation();
+    private final SetMultiMap<String, String> proceduresForFeaturesOfInterest = newRelation();
+    private final SetMultiMap<String, String> proceduresForObservableProperties = newRelation();
+    private final SetMultiMap<String, String> proceduresForOfferings = newRelation();
+    private final SetMultiMap<String, String> hiddenChildProceduresForOfferings = newRelation();
+    private final SetMultiMap<String, String> relatedFeaturesForOfferings = newRelation();
+    private final SetMultiMap<String, String> resultTemplatesForOfferings = newRelation();
+    private final SetMultiMap<String, String> rolesForRelatedFeatures = newRelation();
     private final Map<String, SosEnvelope> envelopeForOfferings = newSynchronizedMap();
     private final Map<String, String> nameForOfferings = newSynchronizedMap();
     private final Map<String, MultilingualString> i18nNameForOfferings = newSynchronizedMap();
@@ -115,17 +118,36 @@ public class InMemoryCacheImpl extends AbstractStaticContentCache implements Wri
     private final Map<String, String> offeringIdentifierForHumanReadableName = newSynchronizedMap();
     private final Map<String, String> offeringHumanReadableNameForIdentifier = newSynchronizedMap();
     private final Set<String> compositePhenomenons =  newSynchronizedSet();
-    private final SetMultiMap<String,String> compositePhenomenonsForProcedure = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String,String> compositePhenomenonsForOffering = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String,String> observablePropertiesForCompositePhenomenon = newSynchronizedSetMultiMap();
-    private final SetMultiMap<String,String> compositePhenomenonForObservableProperty = newSynchronizedSetMultiMap();
+    private final SetMultiMap<String,String> compositePhenomenonsForProcedure = newRelation();
+    private final SetMultiMap<String,String> compositePhenomenonsForOffering = newRelation();
+    private final SetMultiMap<String,String> observablePropertiesForCompositePhenomenon = newRelation();
+    private final SetMultiMap<String,String> compositePhenomenonForObservableProperty = newRelation();
     private Set<String> requestableProcedureDescriptionFormats = newSynchronizedSet();
     private int defaultEpsgCode = Constants.EPSG_WGS84;
     private SosEnvelope globalEnvelope = new SosEnvelope(null, defaultEpsgCode);
     private Map<TypeInstance, Set<String>> typeInstanceProcedures = newSynchronizedMap();
     private Map<ComponentAggregation, Set<String>> componentAggregationProcedures = newSynchronizedMap();
     private Map<String, Set<String>> typeOfProcedures = newSynchronizedMap();
-    private final SetMultiMap<String,String> procedureProcedureDescriptionFormats = newSynchronizedSetMultiMap();
+    private final SetMultiMap<String,String> procedureProcedureDescriptionFormats = newRelation();
+
+    /**
+     * Creates the dictionary the identifier relations of this cache are
+     * encoded with. Called during construction, implementations must not
+     * access the state of the subclass.
+     *
+     * @return the dictionary or {@code null} to store the relations as
+     *         strings
+     */
+    protected IdentifierDictionary createIdentifierDictionary() {
+        return null;
+    }
+
+    private SetMultiMap<String, String> newRelation() {
+        if (this.identifiers == null) {
+            return newSynchronizedSetMultiMap();
+        }
+        return new DictionarySetMultiMap(this.identifiers);
+    }
 
     /**
      * @param envelope
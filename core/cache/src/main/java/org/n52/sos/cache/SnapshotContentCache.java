@@ -0,0 +1,3770 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import static org.n52.sos.util.SosHelper.getHierarchy;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.joda.time.DateTime;
+import org.n52.sos.i18n.LocalizedString;
+import org.n52.sos.i18n.MultilingualString;
+import org.n52.sos.ogc.gml.time.Time;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.sos.SosEnvelope;
+import org.n52.sos.request.ProcedureRequestSettings;
+import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.DateTimeHelper;
+import org.n52.sos.util.PersistentHashMap;
+import org.n52.sos.util.PersistentHashSet;
+import org.n52.sos.util.PersistentSetMultiMap;
+import org.n52.sos.util.StringHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Lock-free alternative to {@link InMemoryCacheImpl}. The whole state of the
+ * cache is kept in an immutable {@link ContentCacheSnapshot} built from
+ * persistent collections that is published through a single {@code volatile}
+ * field:
+ * <ul>
+ * <li>Readers never block and never copy. They read the current snapshot and
+ * get the immutable collections of it returned directly. Unlike the copies
+ * returned by {@link InMemoryCacheImpl}, these throw an
+ * {@link UnsupportedOperationException} on modification, so callers that
+ * modify a result have to copy it first.</li>
+ * <li>Writers are serialized by a lock. The first modification forks the
+ * current snapshot (which is a constant time operation as all collections are
+ * shared), the modifications are applied to the fork by path copying and the
+ * fork is published once the outermost modification completes.</li>
+ * </ul>
+ * Several modifications can be published atomically by enclosing them in
+ * {@link #beginUpdate()} and {@link #endUpdate()}. Until then readers keep
+ * seeing the previous snapshot, while the writing thread sees its own
+ * modifications.
+ *
+ * @since 4.4.0
+ */
+public class SnapshotContentCache extends AbstractStaticContentCache implements WritableContentCache, CacheConstants {
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotContentCache.class);
+
+    private static final long serialVersionUID = -4237462305429386917L;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile ContentCacheSnapshot snapshot = new ContentCacheSnapshot();
+
+    /**
+     * The snapshot currently modified by the thread holding
+     * {@link #writeLock}.
+     */
+    private transient ContentCacheSnapshot pending;
+
+    /**
+     * Starts a set of modifications that will become visible to other threads
+     * at once after the matching call to {@link #endUpdate()}. Calls may be
+     * nested; every call has to be followed by a call to {@link #endUpdate()}
+     * in a {@code finally} block.
+     */
+    public void beginUpdate() {
+        edit();
+    }
+
+    /**
+     * Completes a set of modifications started with {@link #beginUpdate()}
+     * and publishes them if this was the outermost update.
+     */
+    public void endUpdate() {
+        commit();
+    }
+
+    /**
+     * @return the version of the published snapshot, which is incremented with
+     *         every published set of modifications
+     */
+    public long getVersion() {
+        return this.snapshot.version;
+    }
+
+    /**
+     * @return the snapshot to read from: the pending one for the thread that is
+     *         currently modifying the cache, the published one for all others
+     */
+    private ContentCacheSnapshot read() {
+        if (this.writeLock.isHeldByCurrentThread() && this.pending != null) {
+            return this.pending;
+        }
+        return this.snapshot;
+    }
+
+    /**
+     * Acquires the write lock and returns the snapshot to modify. Has to be
+     * followed by a call to {@link #commit()} in a {@code finally} block.
+     *
+     * @return the pending snapshot
+     */
+    private ContentCacheSnapshot edit() {
+        this.writeLock.lock();
+        if (this.pending == null) {
+            this.pending = this.snapshot.copy();
+        }
+        return this.pending;
+    }
+
+    /**
+     * Publishes the pending snapshot if the outermost modification completes
+     * and releases the write lock.
+     */
+    private void commit() {
+        try {
+            if (this.writeLock.getHoldCount() == 1 && this.pending != null) {
+                this.pending.version = this.snapshot.version + 1;
+                this.snapshot = this.pending;
+                this.pending = null;
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (this.snapshot == null) {
+            this.snapshot = new ContentCacheSnapshot();
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return this.snapshot.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof SnapshotContentCache) {
+            final ContentCacheSnapshot s = this.snapshot;
+            final ContentCacheSnapshot o = ((SnapshotContentCache) obj).snapshot;
+            return s == o || s.equals(o);
+        }
+        return false;
+    }
+
+    @Override
+    public int getDefaultEPSGCode() {
+        return read().defaultEpsgCode;
+    }
+
+    @Override
+    public void setDefaultEPSGCode(int defaultEpsgCode) {
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.defaultEpsgCode = defaultEpsgCode;
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public DateTime getLastUpdateTime() {
+        return read().updateTime;
+    }
+
+    @Override
+    public void setLastUpdateTime(DateTime time) {
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.updateTime = time;
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public DateTime getMaxPhenomenonTime() {
+        return read().maxPhenomenonTime;
+    }
+
+    @Override
+    public DateTime getMinPhenomenonTime() {
+        return read().minPhenomenonTime;
+    }
+
+    @Override
+    public Set<Integer> getEpsgCodes() {
+        return read().epsgCodes;
+    }
+
+    @Override
+    public Set<String> getFeaturesOfInterest() {
+        return read().featuresOfInterest;
+    }
+
+    @Override
+    public Set<String> getProcedures() {
+        return read().procedures;
+    }
+
+    @Override
+    public Set<String> getResultTemplates() {
+        return read().resultTemplates;
+    }
+
+    @Override
+    public SosEnvelope getGlobalEnvelope() {
+        return copyOf(read().globalEnvelope);
+    }
+
+    @Override
+    public Set<String> getOfferings() {
+        return read().offerings;
+    }
+
+    @Override
+    public Set<String> getOfferingsForObservableProperty(final String observableProperty) {
+        return read().offeringsForObservableProperties.getOrEmpty(observableProperty);
+    }
+
+    @Override
+    public Set<String> getOfferingsForProcedure(final String procedure) {
+        return read().offeringsForProcedures.getOrEmpty(procedure);
+    }
+
+    @Override
+    public Set<String> getOfferingsForProcedures(Set<String> procedures) {
+        final ContentCacheSnapshot s = read();
+        PersistentHashSet<String> offerings = PersistentHashSet.empty();
+        if (procedures != null) {
+            for (String procedure : procedures) {
+                offerings = offerings.plusAll(s.offeringsForProcedures.getOrEmpty(procedure));
+            }
+        }
+        return offerings;
+    }
+
+    @Override
+    public Set<String> getProceduresForFeatureOfInterest(final String featureOfInterest) {
+        return read().proceduresForFeaturesOfInterest.getOrEmpty(featureOfInterest);
+    }
+
+    @Override
+    public Set<String> getProceduresForObservableProperty(final String observableProperty) {
+        return read().proceduresForObservableProperties.getOrEmpty(observableProperty);
+    }
+
+    @Override
+    public Set<String> getProceduresForOffering(final String offering) {
+        return read().proceduresForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getHiddenChildProceduresForOffering(final String offering) {
+        return read().hiddenChildProceduresForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getRelatedFeaturesForOffering(final String offering) {
+        return read().relatedFeaturesForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getResultTemplatesForOffering(final String offering) {
+        return read().resultTemplatesForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getRolesForRelatedFeature(final String relatedFeature) {
+        return read().rolesForRelatedFeatures.getOrEmpty(relatedFeature);
+    }
+
+    @Override
+    public SosEnvelope getEnvelopeForOffering(final String offering) {
+        return copyOf(read().envelopeForOfferings.get(offering));
+    }
+
+    @Override
+    public SosEnvelope getSpatialFilteringProfileEnvelopeForOffering(String offering) {
+        return copyOf(read().spatialFilteringProfileEnvelopeForOfferings.get(offering));
+    }
+
+    @Override
+    public String getNameForOffering(final String offering) {
+        return read().nameForOfferings.get(offering);
+    }
+
+    @Override
+    public LocalizedString getI18nNameForOffering(String offering, Locale i18n) {
+        MultilingualString map = read().i18nNameForOfferings.get(offering);
+        if (map != null) {
+            return map.getLocalization(i18n).orNull();
+        }
+        return null;
+    }
+
+    @Override
+    public MultilingualString getI18nNamesForOffering(String offering) {
+        return read().i18nNameForOfferings.get(offering);
+    }
+
+    @Override
+    public boolean hasI18NNamesForOffering(String offering, Locale i18n) {
+        MultilingualString map = read().i18nNameForOfferings.get(offering);
+        return map != null && map.hasLocale(i18n);
+    }
+
+    @Override
+    public LocalizedString getI18nDescriptionForOffering(String offering, Locale i18n) {
+        MultilingualString map = read().i18nDescriptionForOfferings.get(offering);
+        if (map != null) {
+            return map.getLocalization(i18n).orNull();
+        }
+        return null;
+    }
+
+    @Override
+    public MultilingualString getI18nDescriptionsForOffering(String offering) {
+        return read().i18nDescriptionForOfferings.get(offering);
+    }
+
+    @Override
+    public boolean hasI18NDescriptionForOffering(String offering, Locale i18n) {
+        MultilingualString map = read().i18nDescriptionForOfferings.get(offering);
+        return map != null && map.hasLocale(i18n);
+    }
+
+    @Override
+    public DateTime getMaxPhenomenonTimeForOffering(final String offering) {
+        return read().maxPhenomenonTimeForOfferings.get(offering);
+    }
+
+    @Override
+    public DateTime getMinPhenomenonTimeForOffering(final String offering) {
+        return read().minPhenomenonTimeForOfferings.get(offering);
+    }
+
+    @Override
+    public DateTime getMaxPhenomenonTimeForProcedure(final String procedure) {
+        final ContentCacheSnapshot s = read();
+        DateTime maxTime = null;
+        for (final String thisProcedure : getHierarchy(s.childProceduresForProcedures, procedure, true, true)) {
+            final DateTime thisTime = s.maxPhenomenonTimeForProcedures.get(thisProcedure);
+            if (thisTime != null && (maxTime == null || maxTime.isBefore(thisTime))) {
+                maxTime = thisTime;
+            }
+        }
+        return maxTime;
+    }
+
+    @Override
+    public DateTime getMinPhenomenonTimeForProcedure(final String procedure) {
+        final ContentCacheSnapshot s = read();
+        DateTime minTime = null;
+        for (final String thisProcedure : getHierarchy(s.childProceduresForProcedures, procedure, true, true)) {
+            final DateTime thisTime = s.minPhenomenonTimeForProcedures.get(thisProcedure);
+            if (thisTime != null && (minTime == null || minTime.isAfter(thisTime))) {
+                minTime = thisTime;
+            }
+        }
+        return minTime;
+    }
+
+    @Override
+    public Set<String> getAllowedObservationTypesForOffering(final String offering) {
+        return read().allowedObservationTypeForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getAllObservationTypesForOffering(final String offering) {
+        final ContentCacheSnapshot s = read();
+        return s.allowedObservationTypeForOfferings.getOrEmpty(offering)
+                .plusAll(s.observationTypesForOfferings.getOrEmpty(offering));
+    }
+
+    @Override
+    public Set<String> getFeaturesOfInterestForOffering(final String offering) {
+        return read().featuresOfInterestForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getOfferingsForFeatureOfInterest(final String featureOfInterest) {
+        return read().offeringsForFeaturesOfInterest.getOrEmpty(featureOfInterest);
+    }
+
+    @Override
+    public Set<String> getFeaturesOfInterestForResultTemplate(final String resultTemplate) {
+        return read().featuresOfInterestForResultTemplates.getOrEmpty(resultTemplate);
+    }
+
+    @Override
+    public Set<String> getObservablePropertiesForOffering(final String offering) {
+        return read().observablePropertiesForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getObservablePropertiesForProcedure(final String procedure) {
+        return read().observablePropertiesForProcedures.getOrEmpty(procedure);
+    }
+
+    @Override
+    public Set<String> getObservationTypesForOffering(final String offering) {
+        return read().observationTypesForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getObservablePropertiesForResultTemplate(final String resultTemplate) {
+        return read().observedPropertiesForResultTemplates.getOrEmpty(resultTemplate);
+    }
+
+    @Override
+    public Set<String> getParentProcedures(final String procedureIdentifier, final boolean fullHierarchy,
+            final boolean includeSelf) {
+        return getHierarchy(read().parentProceduresForProcedures, procedureIdentifier, fullHierarchy, includeSelf);
+    }
+
+    @Override
+    public Set<String> getParentProcedures(final Set<String> procedureIdentifiers, final boolean fullHierarchy,
+            final boolean includeSelves) {
+        return getHierarchy(read().parentProceduresForProcedures, procedureIdentifiers, fullHierarchy,
+                includeSelves);
+    }
+
+    @Override
+    public Set<String> getParentFeatures(final String featureIdentifier, final boolean fullHierarchy,
+            final boolean includeSelf) {
+        return getHierarchy(read().parentFeaturesForFeaturesOfInterest, featureIdentifier, fullHierarchy,
+                includeSelf);
+    }
+
+    @Override
+    public Set<String> getParentFeatures(final Set<String> featureIdentifiers, final boolean fullHierarchy,
+            final boolean includeSelves) {
+        return getHierarchy(read().parentFeaturesForFeaturesOfInterest, featureIdentifiers, fullHierarchy,
+                includeSelves);
+    }
+
+    @Override
+    public Set<String> getChildProcedures(final String procedureIdentifier, final boolean fullHierarchy,
+            final boolean includeSelf) {
+        return getHierarchy(read().childProceduresForProcedures, procedureIdentifier, fullHierarchy, includeSelf);
+    }
+
+    @Override
+    public Set<String> getChildProcedures(final Set<String> procedureIdentifiers, final boolean fullHierarchy,
+            final boolean includeSelves) {
+        return getHierarchy(read().childProceduresForProcedures, procedureIdentifiers, fullHierarchy,
+                includeSelves);
+    }
+
+    @Override
+    public Set<String> getParentOfferings(final String offeringIdentifier, final boolean fullHierarchy,
+            final boolean includeSelf) {
+        return getHierarchy(read().parentOfferingsForOfferings, offeringIdentifier, fullHierarchy, includeSelf);
+    }
+
+    @Override
+    public Set<String> getParentOfferings(final Set<String> offeringIdentifiers, final boolean fullHierarchy,
+            final boolean includeSelves) {
+        return getHierarchy(read().parentOfferingsForOfferings, offeringIdentifiers, fullHierarchy, includeSelves);
+    }
+
+    @Override
+    public Set<String> getChildOfferings(final String offeringIdentifier, final boolean fullHierarchy,
+            final boolean includeSelf) {
+        return getHierarchy(read().childOfferingsForOfferings, offeringIdentifier, fullHierarchy, includeSelf);
+    }
+
+    @Override
+    public Set<String> getChildOfferings(final Set<String> offeringIdentifiers, final boolean fullHierarchy,
+            final boolean includeSelves) {
+        return getHierarchy(read().childOfferingsForOfferings, offeringIdentifiers, fullHierarchy, includeSelves);
+    }
+
+    @Override
+    public boolean hasParentOfferings(String offering) {
+        return read().parentOfferingsForOfferings.containsKey(offering);
+    }
+
+    @Override
+    public Set<String> getChildFeatures(final String featureIdentifier, final boolean fullHierarchy,
+            final boolean includeSelf) {
+        return getHierarchy(read().childFeaturesForFeatureOfInterest, featureIdentifier, fullHierarchy, includeSelf);
+    }
+
+    @Override
+    public Set<String> getFeaturesOfInterestWithResultTemplate() {
+        return read().featuresOfInterestForResultTemplates.allValues();
+    }
+
+    @Override
+    public Set<String> getObservableProperties() {
+        return read().observablePropertiesForOfferings.allValues();
+    }
+
+    @Override
+    public Set<String> getObservablePropertiesWithResultTemplate() {
+        return read().observedPropertiesForResultTemplates.allValues();
+    }
+
+    @Override
+    public Set<String> getOfferingsWithResultTemplate() {
+        return Collections.unmodifiableSet(read().resultTemplatesForOfferings.keySet());
+    }
+
+    @Override
+    public Set<String> getRelatedFeatures() {
+        return read().relatedFeaturesForOfferings.allValues();
+    }
+
+    @Override
+    public Set<String> getFeaturesOfInterestWithOffering() {
+        return read().featuresOfInterestForOfferings.allValues();
+    }
+
+    @Override
+    public Set<String> getOfferingWithFeaturesOfInterest() {
+        return read().offeringsForFeaturesOfInterest.allValues();
+    }
+
+    @Override
+    public boolean hasFeatureOfInterest(final String featureOfInterest) {
+        return read().featuresOfInterest.contains(featureOfInterest);
+    }
+
+    @Override
+    public boolean hasObservableProperty(final String observableProperty) {
+        for (Set<String> observableProperties : read().observablePropertiesForOfferings.values()) {
+            if (observableProperties.contains(observableProperty)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasObservationType(final String observationType) {
+        return getObservationTypes().contains(observationType);
+    }
+
+    @Override
+    public boolean hasOffering(final String offering) {
+        return read().offerings.contains(offering);
+    }
+
+    @Override
+    public boolean hasProcedure(final String procedure) {
+        return read().procedures.contains(procedure);
+    }
+
+    @Override
+    public boolean hasRelatedFeature(final String relatedFeature) {
+        for (Set<String> relatedFeatures : read().relatedFeaturesForOfferings.values()) {
+            if (relatedFeatures.contains(relatedFeature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasResultTemplate(final String resultTemplate) {
+        return read().resultTemplates.contains(resultTemplate);
+    }
+
+    @Override
+    public boolean hasEpsgCode(final Integer epsgCode) {
+        return read().epsgCodes.contains(epsgCode);
+    }
+
+    @Override
+    public boolean hasMaxPhenomenonTimeForOffering(final String offering) {
+        return getMaxPhenomenonTimeForOffering(offering) != null;
+    }
+
+    @Override
+    public boolean hasMinPhenomenonTimeForOffering(final String offering) {
+        return getMinPhenomenonTimeForOffering(offering) != null;
+    }
+
+    @Override
+    public boolean hasMaxPhenomenonTimeForProcedure(final String procedure) {
+        return getMaxPhenomenonTimeForProcedure(procedure) != null;
+    }
+
+    @Override
+    public boolean hasMinPhenomenonTimeForProcedure(final String procedure) {
+        return getMinPhenomenonTimeForProcedure(procedure) != null;
+    }
+
+    @Override
+    public boolean hasEnvelopeForOffering(final String offering) {
+        final SosEnvelope e = read().envelopeForOfferings.get(offering);
+        return e != null && e.isSetEnvelope();
+    }
+
+    @Override
+    public boolean hasSpatialFilteringProfileEnvelopeForOffering(String offering) {
+        final SosEnvelope e = read().spatialFilteringProfileEnvelopeForOfferings.get(offering);
+        return e != null && e.isSetEnvelope();
+    }
+
+    @Override
+    public boolean hasMaxPhenomenonTime() {
+        return getMaxPhenomenonTime() != null;
+    }
+
+    @Override
+    public boolean hasMinPhenomenonTime() {
+        return getMinPhenomenonTime() != null;
+    }
+
+    @Override
+    public boolean hasGlobalEnvelope() {
+        final SosEnvelope e = read().globalEnvelope;
+        return e != null && e.isSetEnvelope();
+    }
+
+    @Override
+    public DateTime getMaxResultTime() {
+        return read().maxResultTime;
+    }
+
+    @Override
+    public boolean hasMaxResultTime() {
+        return getMaxResultTime() != null;
+    }
+
+    @Override
+    public DateTime getMaxResultTimeForOffering(final String offering) {
+        return read().maxResultTimeForOfferings.get(offering);
+    }
+
+    @Override
+    public boolean hasMaxResultTimeForOffering(final String offering) {
+        return getMaxResultTimeForOffering(offering) != null;
+    }
+
+    @Override
+    public DateTime getMinResultTime() {
+        return read().minResultTime;
+    }
+
+    @Override
+    public boolean hasMinResultTime() {
+        return getMinResultTime() != null;
+    }
+
+    @Override
+    public DateTime getMinResultTimeForOffering(final String offering) {
+        return read().minResultTimeForOfferings.get(offering);
+    }
+
+    @Override
+    public boolean hasMinResultTimeForOffering(final String offering) {
+        return getMinResultTimeForOffering(offering) != null;
+    }
+
+    @Override
+    public boolean isRelatedFeatureSampled(final String relatedFeatureIdentifier) {
+        return relatedFeatureIdentifier != null && !relatedFeatureIdentifier.isEmpty()
+                && hasRelatedFeature(relatedFeatureIdentifier)
+                && !getChildFeatures(relatedFeatureIdentifier, true, false).isEmpty();
+    }
+
+    @Override
+    public boolean hasFeatureOfInterestType(String featureOfInterestType) {
+        return getFeatureOfInterestTypes().contains(featureOfInterestType);
+    }
+
+    @Override
+    public Set<String> getFeatureOfInterestTypesForOffering(String offering) {
+        return read().featureOfInterestTypesForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<String> getAllowedFeatureOfInterestTypesForOffering(String offering) {
+        return read().allowedFeatureOfInterestTypeForOfferings.getOrEmpty(offering);
+    }
+
+    @Override
+    public Set<Locale> getSupportedLanguages() {
+        return read().supportedLanguages;
+    }
+
+    @Override
+    public boolean hasSupportedLanguage() {
+        return !read().supportedLanguages.isEmpty();
+    }
+
+    @Override
+    public boolean isLanguageSupported(final Locale language) {
+        return read().supportedLanguages.contains(language);
+    }
+
+    @Override
+    public String getFeatureOfInterestIdentifierForHumanReadableName(String humanReadableName) {
+        return valueOrKey(read().featureOfInterestIdentifierForHumanReadableName, humanReadableName);
+    }
+
+    @Override
+    public String getFeatureOfInterestHumanReadableNameForIdentifier(String identifier) {
+        return valueOrKey(read().featureOfInterestHumanReadableNameForIdentifier, identifier);
+    }
+
+    @Override
+    public String getObservablePropertyIdentifierForHumanReadableName(String humanReadableName) {
+        return valueOrKey(read().observablePropertyIdentifierForHumanReadableName, humanReadableName);
+    }
+
+    @Override
+    public String getObservablePropertyHumanReadableNameForIdentifier(String identifier) {
+        return valueOrKey(read().observablePropertyHumanReadableNameForIdentifier, identifier);
+    }
+
+    @Override
+    public String getProcedureIdentifierForHumanReadableName(String humanReadableName) {
+        return valueOrKey(read().procedureIdentifierForHumanReadableName, humanReadableName);
+    }
+
+    @Override
+    public String getProcedureHumanReadableNameForIdentifier(String identifier) {
+        return valueOrKey(read().procedureHumanReadableNameForIdentifier, identifier);
+    }
+
+    @Override
+    public String getOfferingIdentifierForHumanReadableName(String humanReadableName) {
+        return valueOrKey(read().offeringIdentifierForHumanReadableName, humanReadableName);
+    }
+
+    @Override
+    public String getOfferingHumanReadableNameForIdentifier(String identifier) {
+        return valueOrKey(read().offeringHumanReadableNameForIdentifier, identifier);
+    }
+
+    @Override
+    public Set<String> getCompositePhenomenons() {
+        return read().compositePhenomenons;
+    }
+
+    @Override
+    public boolean isCompositePhenomenon(String observableProperty) {
+        return read().compositePhenomenons.contains(observableProperty);
+    }
+
+    @Override
+    public Set<String> getCompositePhenomenonsForProcedure(String procedure) {
+        return read().compositePhenomenonsForProcedure.getOrEmpty(procedure);
+    }
+
+    @Override
+    public boolean isCompositePhenomenonForProcedure(String procedure, String observableProperty) {
+        return read().compositePhenomenonsForProcedure.containsEntry(procedure, observableProperty);
+    }
+
+    @Override
+    public Set<String> getCompositePhenomenonsForOffering(String offering) {
+        return read().compositePhenomenonsForOffering.getOrEmpty(offering);
+    }
+
+    @Override
+    public boolean isCompositePhenomenonForOffering(String offering, String observableProperty) {
+        return read().compositePhenomenonsForOffering.containsEntry(offering, observableProperty);
+    }
+
+    @Override
+    public Set<String> getObservablePropertiesForCompositePhenomenon(String compositePhenomenon) {
+        return read().observablePropertiesForCompositePhenomenon.getOrEmpty(compositePhenomenon);
+    }
+
+    @Override
+    public boolean isObservablePropertyOfCompositePhenomenon(String compositePhenomenon, String observableProperty) {
+        return read().observablePropertiesForCompositePhenomenon.containsEntry(compositePhenomenon,
+                observableProperty);
+    }
+
+    @Override
+    public Set<String> getCompositePhenomenonForObservableProperty(String observableProperty) {
+        return read().compositePhenomenonForObservableProperty.getOrEmpty(observableProperty);
+    }
+
+    @Override
+    public boolean isCompositePhenomenonComponent(String observableProperty) {
+        return read().compositePhenomenonForObservableProperty.containsKey(observableProperty);
+    }
+
+    @Override
+    public Set<String> getRequestableProcedureDescriptionFormat() {
+        return read().requestableProcedureDescriptionFormats;
+    }
+
+    @Override
+    public boolean hasRequestableProcedureDescriptionFormat(String format) {
+        return read().requestableProcedureDescriptionFormats.contains(format);
+    }
+
+    @Override
+    public Set<String> getTransactionalObservationProcedures() {
+        final ContentCacheSnapshot s = read();
+        return s.proceduresForOfferings.allValues().plusAll(s.hiddenChildProceduresForOfferings.allValues());
+    }
+
+    @Override
+    public boolean hasTransactionalObservationProcedure(String procedureID) {
+        return getTransactionalObservationProcedures().contains(procedureID);
+    }
+
+    @Override
+    public Set<String> getQueryableProcedures() {
+        final ContentCacheSnapshot s = read();
+        Set<String> procedures = s.procedures;
+        // allowQueryingForInstancesOnly
+        if (ProcedureRequestSettings.getInstance().isAllowQueryingForInstancesOnly()) {
+            procedures = CollectionHelper.conjunctCollectionsToSet(procedures,
+                    s.typeInstanceProcedures.getOrEmpty(TypeInstance.INSTANCE));
+        }
+        // showOnlyAggregatedProcedures
+        if (ProcedureRequestSettings.getInstance().isShowOnlyAggregatedProcedures()) {
+            procedures = CollectionHelper.conjunctCollectionsToSet(procedures,
+                    s.componentAggregationProcedures.getOrEmpty(ComponentAggregation.AGGREGATION));
+        }
+        return procedures;
+    }
+
+    @Override
+    public boolean hasQueryableProcedure(String procedureID) {
+        return getQueryableProcedures().contains(procedureID);
+    }
+
+    @Override
+    public Set<String> getTypeInstanceProcedure(TypeInstance typeInstance) {
+        return read().typeInstanceProcedures.getOrEmpty(typeInstance);
+    }
+
+    @Override
+    public Set<String> getComponentAggregationProcedure(ComponentAggregation componentAggregation) {
+        return read().componentAggregationProcedures.getOrEmpty(componentAggregation);
+    }
+
+    @Override
+    public Set<String> getInstancesForProcedure(String identifier) {
+        return read().typeOfProcedures.getOrEmpty(identifier);
+    }
+
+    @Override
+    public boolean hasInstancesForProcedure(String identifier) {
+        return read().typeOfProcedures.containsKey(identifier);
+    }
+
+    @Override
+    public Set<String> getProcedureDescriptionFormatsForProcedure(String procedure) {
+        return read().procedureProcedureDescriptionFormats.getOrEmpty(procedure);
+    }
+
+    @Override
+    public void addEpsgCode(final Integer epsgCode) {
+        greaterZero(EPSG_CODE, epsgCode);
+        LOG.trace("Adding EpsgCode {}", epsgCode);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.epsgCodes = s.epsgCodes.plus(epsgCode);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addEpsgCodes(final Collection<Integer> epsgCodes) {
+        noNullValues(EPSG_CODES, epsgCodes);
+        for (final Integer epsgCode : epsgCodes) {
+            greaterZero(EPSG_CODE, epsgCode);
+        }
+        LOG.trace("Adding EpsgCodes {}", epsgCodes);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.epsgCodes = s.epsgCodes.plusAll(epsgCodes);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeEpsgCode(final Integer epsgCode) {
+        notNull(EPSG_CODE, epsgCode);
+        LOG.trace("Removing epsgCode {}", epsgCode);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.epsgCodes = s.epsgCodes.minus(epsgCode);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeEpsgCodes(final Collection<Integer> epsgCodes) {
+        noNullValues(EPSG_CODES, epsgCodes);
+        LOG.trace("Removing epsgCodes {}", epsgCodes);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.epsgCodes = s.epsgCodes.minusAll(epsgCodes);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addFeatureOfInterest(final String featureOfInterest) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        LOG.trace("Adding FeatureOfInterest {}", featureOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterest = s.featuresOfInterest.plus(featureOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addFeaturesOfInterest(final Collection<String> featuresOfInterest) {
+        noNullOrEmptyValues(FEATURES_OF_INTEREST, featuresOfInterest);
+        LOG.trace("Adding FeaturesOfInterest {}", featuresOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterest = s.featuresOfInterest.plusAll(featuresOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setFeaturesOfInterest(final Collection<String> featuresOfInterest) {
+        noNullOrEmptyValues(FEATURES_OF_INTEREST, featuresOfInterest);
+        LOG.trace("Setting FeaturesOfInterest");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterest = PersistentHashSet.copyOf(featuresOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeatureOfInterest(final String featureOfInterest) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        LOG.trace("Removing FeatureOfInterest {}", featureOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterest = s.featuresOfInterest.minus(featureOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeaturesOfInterest(final Collection<String> featuresOfInterest) {
+        noNullValues(FEATURES_OF_INTEREST, featuresOfInterest);
+        LOG.trace("Removing FeaturesOfInterest {}", featuresOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterest = s.featuresOfInterest.minusAll(featuresOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearFeaturesOfInterest() {
+        LOG.trace("Clearing features of interest");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterest = PersistentHashSet.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addProcedure(final String procedure) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Adding procedure {}", procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedures = s.procedures.plus(procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addProcedures(final Collection<String> procedures) {
+        noNullOrEmptyValues(PROCEDURES, procedures);
+        LOG.trace("Adding procedures {}", procedures);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedures = s.procedures.plusAll(procedures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setProcedures(final Collection<String> procedures) {
+        noNullOrEmptyValues(PROCEDURES, procedures);
+        LOG.trace("Setting Procedures");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedures = PersistentHashSet.copyOf(procedures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProcedure(final String procedure) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing Procedure {}", procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedures = s.procedures.minus(procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProcedures(final Collection<String> procedures) {
+        noNullValues(PROCEDURES, procedures);
+        LOG.trace("Removing Procedures {}", procedures);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedures = s.procedures.minusAll(procedures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addResultTemplate(final String resultTemplate) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        LOG.trace("Adding SosResultTemplate {}", resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.resultTemplates = s.resultTemplates.plus(resultTemplate);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addResultTemplates(final Collection<String> resultTemplates) {
+        noNullOrEmptyValues(RESULT_TEMPLATES, resultTemplates);
+        LOG.trace("Adding SosResultTemplates {}", resultTemplates);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.resultTemplates = s.resultTemplates.plusAll(resultTemplates);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeResultTemplate(final String resultTemplate) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        LOG.trace("Removing SosResultTemplate {}", resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.resultTemplates = s.resultTemplates.minus(resultTemplate);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeResultTemplates(final Collection<String> resultTemplates) {
+        noNullValues(RESULT_TEMPLATES, resultTemplates);
+        LOG.trace("Removing SosResultTemplates {}", resultTemplates);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.resultTemplates = s.resultTemplates.minusAll(resultTemplates);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Adding offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offerings = s.offerings.plus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addOfferings(final Collection<String> offerings) {
+        noNullOrEmptyValues(OFFERINGS, offerings);
+        LOG.trace("Adding offerings {}", offerings);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offerings = s.offerings.plusAll(offerings);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setOfferings(final Collection<String> offerings) {
+        noNullOrEmptyValues(OFFERINGS, offerings);
+        LOG.trace("Setting offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offerings = PersistentHashSet.copyOf(offerings);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing Offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offerings = s.offerings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeOfferings(final Collection<String> offerings) {
+        noNullValues(OFFERINGS, offerings);
+        LOG.trace("Removing Offerings {}", offerings);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offerings = s.offerings.minusAll(offerings);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearOfferings() {
+        LOG.trace("Clearing offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offerings = PersistentHashSet.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addSupportedLanguage(Locale language) {
+        notNull(SUPPORTED_LANGUAGE, language);
+        LOG.trace("Adding Language {}", language);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.supportedLanguages = s.supportedLanguages.plus(language);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addSupportedLanguage(Collection<Locale> languages) {
+        noNullValues(SUPPORTED_LANGUAGES, languages);
+        LOG.trace("Adding Languages {}", languages);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.supportedLanguages = s.supportedLanguages.plusAll(languages);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeSupportedLanguage(Locale language) {
+        LOG.trace("Removing Language {}", language);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.supportedLanguages = s.supportedLanguages.minus(language);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearSupportedLanguage() {
+        LOG.trace("Clearing supported languages");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.supportedLanguages = PersistentHashSet.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setRequestableProcedureDescriptionFormat(Collection<String> formats) {
+        LOG.trace("Adding requestable procedureDescriptionFormat");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.requestableProcedureDescriptionFormats = s.requestableProcedureDescriptionFormats.plusAll(formats);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addProcedureDescriptionFormatsForProcedure(String procedure, Set<String> formats) {
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedureProcedureDescriptionFormats = s.procedureProcedureDescriptionFormats.plusAll(procedure, formats);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProcedureDescriptionFormatsForProcedure(String procedure) {
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedureProcedureDescriptionFormats = s.procedureProcedureDescriptionFormats.minus(procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addAllowedObservationTypeForOffering(final String offering, final String allowedObservationType) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(ALLOWED_OBSERVATION_TYPE, allowedObservationType);
+        LOG.trace("Adding AllowedObservationType {} to Offering {}", allowedObservationType, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedObservationTypeForOfferings =
+                    s.allowedObservationTypeForOfferings.plus(offering, allowedObservationType);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addAllowedObservationTypesForOffering(final String offering,
+            final Collection<String> allowedObservationTypes) {
+        notNullOrEmpty(OFFERING, offering);
+        noNullValues(ALLOWED_OBSERVATION_TYPES, allowedObservationTypes);
+        LOG.trace("Adding AllowedObservationTypes {} to Offering {}", allowedObservationTypes, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedObservationTypeForOfferings =
+                    s.allowedObservationTypeForOfferings.plusAll(offering, allowedObservationTypes);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setAllowedObservationTypeForOffering(final String offering,
+            final Collection<String> allowedObservationTypes) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting allowedObservationTypes for offering {} to {}", offering, allowedObservationTypes);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedObservationTypeForOfferings =
+                    s.allowedObservationTypeForOfferings.with(offering, allowedObservationTypes);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeAllowedObservationTypeForOffering(final String offering, final String allowedObservationType) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(ALLOWED_OBSERVATION_TYPE, allowedObservationType);
+        LOG.trace("Removing allowedObservationType {} from offering {}", allowedObservationType, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedObservationTypeForOfferings =
+                    s.allowedObservationTypeForOfferings.minus(offering, allowedObservationType);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeAllowedObservationTypesForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing allowedObservationTypes for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedObservationTypeForOfferings = s.allowedObservationTypeForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearAllowedObservationTypeForOfferings() {
+        LOG.trace("Clearing allowed observation types for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedObservationTypeForOfferings = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addAllowedFeatureOfInterestTypeForOffering(final String offering,
+            final String allowedFeatureOfInterestType) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(ALLOWED_FEATURE_OF_INTEREST_TYPE, allowedFeatureOfInterestType);
+        LOG.trace("Adding AllowedFeatureOfInterestType {} to Offering {}", allowedFeatureOfInterestType, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedFeatureOfInterestTypeForOfferings =
+                    s.allowedFeatureOfInterestTypeForOfferings.plus(offering, allowedFeatureOfInterestType);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addAllowedFeatureOfInterestTypesForOffering(final String offering,
+            final Collection<String> allowedFeatureOfInterestTypes) {
+        notNullOrEmpty(OFFERING, offering);
+        noNullOrEmptyValues(ALLOWED_FEATURE_OF_INTEREST_TYPES, allowedFeatureOfInterestTypes);
+        LOG.trace("Adding AllowedFeatureOfInterestTypes {} to Offering {}", allowedFeatureOfInterestTypes, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedFeatureOfInterestTypeForOfferings =
+                    s.allowedFeatureOfInterestTypeForOfferings.plusAll(offering, allowedFeatureOfInterestTypes);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setAllowedFeatureOfInterestTypeForOffering(final String offering,
+            final Collection<String> allowedFeatureOfInterestTypes) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting allowedFeatureOfInterestTypes for offering {} to {}", offering, allowedFeatureOfInterestTypes);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.allowedFeatureOfInterestTypeForOfferings =
+                    s.allowedFeatureOfInterestTypeForOfferings.with(offering, allowedFeatureOfInterestTypes);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addFeatureOfInterestTypesForOffering(final String offering, final String featureOfInterestType) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(FEATURE_OF_INTEREST_TYPE, featureOfInterestType);
+        LOG.trace("Adding featureOfInterestType {} to offering {}", featureOfInterestType, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featureOfInterestTypesForOfferings =
+                    s.featureOfInterestTypesForOfferings.plus(offering, featureOfInterestType);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setFeatureOfInterestTypesForOffering(final String offering,
+            final Collection<String> featureOfInterestTypes) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting FeatureOfInterestTypes for Offering {} to {}", offering, featureOfInterestTypes);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featureOfInterestTypesForOfferings =
+                    s.featureOfInterestTypesForOfferings.with(offering, featureOfInterestTypes);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeatureOfInterestTypeForOffering(final String offering, final String featureOfInterestType) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(FEATURE_OF_INTEREST_TYPE, featureOfInterestType);
+        LOG.trace("Removing featureOfInterestType {} from offering {}", featureOfInterestType, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featureOfInterestTypesForOfferings =
+                    s.featureOfInterestTypesForOfferings.minus(offering, featureOfInterestType);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeatureOfInterestTypesForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing featureOfInterestTypes for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featureOfInterestTypesForOfferings = s.featureOfInterestTypesForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addObservationTypesForOffering(final String offering, final String observationType) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(OBSERVATION_TYPE, observationType);
+        LOG.trace("Adding observationType {} to offering {}", observationType, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observationTypesForOfferings = s.observationTypesForOfferings.plus(offering, observationType);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setObservationTypesForOffering(final String offering, final Collection<String> observationTypes) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting ObservationTypes for Offering {} to {}", offering, observationTypes);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observationTypesForOfferings = s.observationTypesForOfferings.with(offering, observationTypes);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservationTypeForOffering(final String offering, final String observationType) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(OBSERVATION_TYPE, observationType);
+        LOG.trace("Removing observationType {} from offering {}", observationType, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observationTypesForOfferings = s.observationTypesForOfferings.minus(offering, observationType);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservationTypesForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing observationTypes for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observationTypesForOfferings = s.observationTypesForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearObservationTypesForOfferings() {
+        LOG.trace("Clearing observation types for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observationTypesForOfferings = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addFeatureOfInterestForResultTemplate(final String resultTemplate, final String featureOfInterest) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        LOG.trace("Adding FeatureOfInterest {} to SosResultTemplate {}", featureOfInterest, resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterestForResultTemplates =
+                    s.featuresOfInterestForResultTemplates.plus(resultTemplate, featureOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addFeaturesOfInterestForResultTemplate(final String resultTemplate,
+            final Collection<String> featuresOfInterest) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        noNullOrEmptyValues(FEATURES_OF_INTEREST, featuresOfInterest);
+        LOG.trace("Adding FeaturesOfInterest {} to SosResultTemplate {}", featuresOfInterest, resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterestForResultTemplates =
+                    s.featuresOfInterestForResultTemplates.plusAll(resultTemplate, featuresOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeatureOfInterestForResultTemplate(final String resultTemplate, final String featureOfInterest) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        LOG.trace("Removing featureOfInterest {} from resultTemplate {}", featureOfInterest, resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterestForResultTemplates =
+                    s.featuresOfInterestForResultTemplates.minus(resultTemplate, featureOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeaturesOfInterestForResultTemplate(final String resultTemplate) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        LOG.trace("Removing featuresOfInterest for resultTemplate {}", resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterestForResultTemplates = s.featuresOfInterestForResultTemplates.minus(resultTemplate);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addObservablePropertyForOffering(final String offering, final String observableProperty) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Adding observableProperty {} to offering {}", observableProperty, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForOfferings = s.observablePropertiesForOfferings.plus(offering, observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setObservablePropertiesForOffering(final String offering,
+            final Collection<String> observableProperties) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting ObservableProperties for Offering {} to {}", offering, observableProperties);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForOfferings =
+                    s.observablePropertiesForOfferings.with(offering, observableProperties);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservablePropertyForOffering(final String offering, final String observableProperty) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Removing observableProperty {} from offering {}", observableProperty, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForOfferings = s.observablePropertiesForOfferings.minus(offering, observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservablePropertiesForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing observableProperties for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForOfferings = s.observablePropertiesForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearObservablePropertiesForOfferings() {
+        LOG.trace("Clearing observable properties for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForOfferings = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addObservablePropertyForProcedure(final String procedure, final String observableProperty) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Adding observableProperty {} to procedure {}", observableProperty, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForProcedures =
+                    s.observablePropertiesForProcedures.plus(procedure, observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setObservablePropertiesForProcedure(final String procedure,
+            final Collection<String> observableProperties) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Setting ObservableProperties for Procedure {} to {}", procedure, observableProperties);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForProcedures =
+                    s.observablePropertiesForProcedures.with(procedure, observableProperties);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservablePropertyForProcedure(final String procedure, final String observableProperty) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Removing observableProperty {} from procedure {}", observableProperty, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForProcedures =
+                    s.observablePropertiesForProcedures.minus(procedure, observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservablePropertiesForProcedure(final String procedure) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing observableProperties for procedure {}", procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForProcedures = s.observablePropertiesForProcedures.minus(procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addObservablePropertyForResultTemplate(final String resultTemplate, final String observableProperty) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Adding observableProperty {} to resultTemplate {}", observableProperty, resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observedPropertiesForResultTemplates =
+                    s.observedPropertiesForResultTemplates.plus(resultTemplate, observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setObservablePropertiesForResultTemplate(final String resultTemplate,
+            final Collection<String> observableProperties) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        LOG.trace("Setting observableProperties for resultTemplate {} to {}", resultTemplate, observableProperties);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observedPropertiesForResultTemplates =
+                    s.observedPropertiesForResultTemplates.with(resultTemplate, observableProperties);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservablePropertyForResultTemplate(final String resultTemplate,
+            final String observableProperty) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Removing observableProperty {} from resultTemplate {}", observableProperty, resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observedPropertiesForResultTemplates =
+                    s.observedPropertiesForResultTemplates.minus(resultTemplate, observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservablePropertiesForResultTemplate(final String resultTemplate) {
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        LOG.trace("Removing observableProperties for resultTemplate {}", resultTemplate);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observedPropertiesForResultTemplates = s.observedPropertiesForResultTemplates.minus(resultTemplate);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addOfferingForObservableProperty(final String observableProperty, final String offering) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Adding offering {} to observableProperty {}", offering, observableProperty);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForObservableProperties = s.offeringsForObservableProperties.plus(observableProperty, offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setOfferingsForObservableProperty(final String observableProperty, final Collection<String> offerings) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Setting Offerings for ObservableProperty {} to {}", observableProperty, offerings);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForObservableProperties = s.offeringsForObservableProperties.with(observableProperty, offerings);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeOfferingForObservableProperty(final String observableProperty, final String offering) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing offering {} from observableProperty {}", offering, observableProperty);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForObservableProperties = s.offeringsForObservableProperties.minus(observableProperty, offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeOfferingsForObservableProperty(final String observableProperty) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Removing offerings for observableProperty {}", observableProperty);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForObservableProperties = s.offeringsForObservableProperties.minus(observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addOfferingForProcedure(final String procedure, final String offering) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Adding offering {} to procedure {}", offering, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForProcedures = s.offeringsForProcedures.plus(procedure, offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setOfferingsForProcedure(final String procedure, final Collection<String> offerings) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Setting Offerings for Procedure {} to {}", procedure, offerings);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForProcedures = s.offeringsForProcedures.with(procedure, offerings);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeOfferingForProcedure(final String procedure, final String offering) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing offering {} from procedure {}", offering, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForProcedures = s.offeringsForProcedures.minus(procedure, offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeOfferingsForProcedure(final String procedure) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing offering for procedure {}", procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForProcedures = s.offeringsForProcedures.minus(procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addProcedureForFeatureOfInterest(final String featureOfInterest, final String procedure) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Adding procedure {} to featureOfInterest {}", procedure, featureOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForFeaturesOfInterest = s.proceduresForFeaturesOfInterest.plus(featureOfInterest, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setProceduresForFeatureOfInterest(final String featureOfInterest, final Collection<String> procedures) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        LOG.trace("Setting Procedures for FeatureOfInterest {} to {}", featureOfInterest, procedures);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForFeaturesOfInterest = s.proceduresForFeaturesOfInterest.with(featureOfInterest, procedures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProcedureForFeatureOfInterest(final String featureOfInterest, final String procedure) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing procedure {} from featureOfInterest {}", procedure, featureOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForFeaturesOfInterest = s.proceduresForFeaturesOfInterest.minus(featureOfInterest, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProceduresForFeatureOfInterest(final String featureOfInterest) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        LOG.trace("Removing procedures for featureOfInterest {}", featureOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForFeaturesOfInterest = s.proceduresForFeaturesOfInterest.minus(featureOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearProceduresForFeatureOfInterest() {
+        LOG.trace("Clearing procedures for feature of interest");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForFeaturesOfInterest = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addProcedureForObservableProperty(final String observableProperty, final String procedure) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Adding procedure {} to observableProperty {}", procedure, observableProperty);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForObservableProperties =
+                    s.proceduresForObservableProperties.plus(observableProperty, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setProceduresForObservableProperty(final String observableProperty,
+            final Collection<String> procedures) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Setting Procedures for ObservableProperty {} to {}", observableProperty, procedures);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForObservableProperties =
+                    s.proceduresForObservableProperties.with(observableProperty, procedures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProcedureForObservableProperty(final String observableProperty, final String procedure) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing procedure {} from observableProperty {}", procedure, observableProperty);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForObservableProperties =
+                    s.proceduresForObservableProperties.minus(observableProperty, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProceduresForObservableProperty(final String observableProperty) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Removing procedures for observableProperty {}", observableProperty);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForObservableProperties = s.proceduresForObservableProperties.minus(observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addProcedureForOffering(final String offering, final String procedure) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Adding procedure {} to offering {}", procedure, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForOfferings = s.proceduresForOfferings.plus(offering, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setProceduresForOffering(final String offering, final Collection<String> procedures) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting Procedures for Offering {} to {}", offering, procedures);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForOfferings = s.proceduresForOfferings.with(offering, procedures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProcedureForOffering(final String offering, final String procedure) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing procedure {} from offering {}", procedure, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForOfferings = s.proceduresForOfferings.minus(offering, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProceduresForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing procedures for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForOfferings = s.proceduresForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearProceduresForOfferings() {
+        LOG.trace("Clearing procedures for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.proceduresForOfferings = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addHiddenChildProcedureForOffering(final String offering, final String procedure) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Adding hidden child procedure {} to offering {}", procedure, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.hiddenChildProceduresForOfferings = s.hiddenChildProceduresForOfferings.plus(offering, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setHiddenChildProceduresForOffering(final String offering, final Collection<String> procedures) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting hidden child Procedures for Offering {} to {}", offering, procedures);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.hiddenChildProceduresForOfferings = s.hiddenChildProceduresForOfferings.with(offering, procedures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeHiddenChildProcedureForOffering(final String offering, final String procedure) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing hidden child procedure {} from offering {}", procedure, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.hiddenChildProceduresForOfferings = s.hiddenChildProceduresForOfferings.minus(offering, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearHiddenChildProceduresForOfferings() {
+        LOG.trace("Clearing hidden child procedures for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.hiddenChildProceduresForOfferings = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addRelatedFeatureForOffering(final String offering, final String relatedFeature) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(RELATED_FEATURE, relatedFeature);
+        LOG.trace("Adding relatedFeature {} to offering {}", relatedFeature, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.relatedFeaturesForOfferings = s.relatedFeaturesForOfferings.plus(offering, relatedFeature);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addRelatedFeaturesForOffering(final String offering, final Collection<String> relatedFeatures) {
+        notNullOrEmpty(OFFERING, offering);
+        noNullOrEmptyValues(RELATED_FEATURES, relatedFeatures);
+        LOG.trace("Adding relatedFeatures {} to offering {}", relatedFeatures, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.relatedFeaturesForOfferings = s.relatedFeaturesForOfferings.plusAll(offering, relatedFeatures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setRelatedFeaturesForOffering(final String offering, final Collection<String> relatedFeatures) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting Related Features for Offering {} to {}", offering, relatedFeatures);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.relatedFeaturesForOfferings = s.relatedFeaturesForOfferings.with(offering, relatedFeatures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeRelatedFeatureForOffering(final String offering, final String relatedFeature) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(RELATED_FEATURE, relatedFeature);
+        LOG.trace("Removing relatedFeature {} from offering {}", relatedFeature, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.relatedFeaturesForOfferings = s.relatedFeaturesForOfferings.minus(offering, relatedFeature);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeRelatedFeaturesForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing RelatedFeatures for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.relatedFeaturesForOfferings = s.relatedFeaturesForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearRelatedFeaturesForOfferings() {
+        LOG.trace("Clearing related features for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.relatedFeaturesForOfferings = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addResultTemplateForOffering(final String offering, final String resultTemplate) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        LOG.trace("Adding resultTemplate {} to offering {}", resultTemplate, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.resultTemplatesForOfferings = s.resultTemplatesForOfferings.plus(offering, resultTemplate);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setResultTemplatesForOffering(final String offering, final Collection<String> resultTemplates) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting ResultTemplates for Offering {} to {}", offering, resultTemplates);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.resultTemplatesForOfferings = s.resultTemplatesForOfferings.with(offering, resultTemplates);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeResultTemplateForOffering(final String offering, final String resultTemplate) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
+        LOG.trace("Removing resultTemplate {} from offering {}", resultTemplate, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.resultTemplatesForOfferings = s.resultTemplatesForOfferings.minus(offering, resultTemplate);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeResultTemplatesForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing ResultTemplates for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.resultTemplatesForOfferings = s.resultTemplatesForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addRoleForRelatedFeature(final String relatedFeature, final String role) {
+        notNullOrEmpty(RELATED_FEATURE, relatedFeature);
+        notNullOrEmpty(ROLE, role);
+        LOG.trace("Adding role {} to relatedFeature {}", role, relatedFeature);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.rolesForRelatedFeatures = s.rolesForRelatedFeatures.plus(relatedFeature, role);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setRolesForRelatedFeature(final String relatedFeature, final Collection<String> roles) {
+        notNullOrEmpty(RELATED_FEATURE, relatedFeature);
+        LOG.trace("Setting Roles for RelatedFeature {} to {}", relatedFeature, roles);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.rolesForRelatedFeatures = s.rolesForRelatedFeatures.with(relatedFeature, roles);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeRoleForRelatedFeature(final String relatedFeature, final String role) {
+        notNullOrEmpty(RELATED_FEATURE, relatedFeature);
+        notNullOrEmpty(ROLE, role);
+        LOG.trace("Removing role {} from relatedFeature {}", role, relatedFeature);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.rolesForRelatedFeatures = s.rolesForRelatedFeatures.minus(relatedFeature, role);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeRolesForRelatedFeature(final String relatedFeature) {
+        notNullOrEmpty(RELATED_FEATURE, relatedFeature);
+        LOG.trace("Removing roles for relatedFeature {}", relatedFeature);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.rolesForRelatedFeatures = s.rolesForRelatedFeatures.minus(relatedFeature);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeRolesForRelatedFeatureNotIn(final Collection<String> relatedFeatures) {
+        notNull(RELATED_FEATURES, relatedFeatures);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.rolesForRelatedFeatures = s.rolesForRelatedFeatures.retainKeys(relatedFeatures);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addFeatureOfInterestForOffering(final String offering, final String featureOfInterest) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        LOG.trace("Adding featureOfInterest {} to Offering {}", featureOfInterest, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterestForOfferings = s.featuresOfInterestForOfferings.plus(offering, featureOfInterest);
+            s.offeringsForFeaturesOfInterest = s.offeringsForFeaturesOfInterest.plus(featureOfInterest, offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addOfferingForFeaturesOfInterest(final String offering, final Collection<String> featuresOfInterest) {
+        notNullOrEmpty(OFFERING, offering);
+        noNullOrEmptyValues(FEATURES_OF_INTEREST, featuresOfInterest);
+        LOG.trace("Adding offering {} to featureOfInterest {}", offering, featuresOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            for (final String featureOfInterest : featuresOfInterest) {
+                s.offeringsForFeaturesOfInterest = s.offeringsForFeaturesOfInterest.plus(featureOfInterest, offering);
+            }
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setFeaturesOfInterestForOffering(final String offering, final Collection<String> featuresOfInterest) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting featureOfInterest for offering {} to {}", offering, featuresOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterestForOfferings = s.featuresOfInterestForOfferings.with(offering, featuresOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeatureOfInterestForOffering(final String offering, final String featureOfInterest) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        LOG.trace("Removing featureOfInterest {} from offering {}", featureOfInterest, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterestForOfferings = s.featuresOfInterestForOfferings.minus(offering, featureOfInterest);
+            s.offeringsForFeaturesOfInterest = s.offeringsForFeaturesOfInterest.minus(featureOfInterest, offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeaturesOfInterestForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing featuresOfInterest for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            for (String featureOfInterest : s.featuresOfInterestForOfferings.getOrEmpty(offering)) {
+                s.offeringsForFeaturesOfInterest = s.offeringsForFeaturesOfInterest.minus(featureOfInterest, offering);
+            }
+            s.featuresOfInterestForOfferings = s.featuresOfInterestForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearFeaturesOfInterestForOfferings() {
+        LOG.trace("Clearing features of interest for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featuresOfInterestForOfferings = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearOfferingsForFeaturesOfInterest() {
+        LOG.trace("Clearing offerings for features of interest");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringsForFeaturesOfInterest = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addParentFeature(final String featureOfInterest, final String parentFeature) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        notNullOrEmpty(PARENT_FEATURE, parentFeature);
+        LOG.trace("Adding parentFeature {} to featureOfInterest {}", parentFeature, featureOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.parentFeaturesForFeaturesOfInterest =
+                    s.parentFeaturesForFeaturesOfInterest.plus(featureOfInterest, parentFeature);
+            s.childFeaturesForFeatureOfInterest =
+                    s.childFeaturesForFeatureOfInterest.plus(parentFeature, featureOfInterest);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addParentFeatures(final String featureOfInterest, final Collection<String> parentFeatures) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
+        noNullOrEmptyValues(PARENT_FEATURES, parentFeatures);
+        LOG.trace("Adding parentFeature {} to featureOfInterest {}", parentFeatures, featureOfInterest);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.parentFeaturesForFeaturesOfInterest =
+                    s.parentFeaturesForFeaturesOfInterest.plusAll(featureOfInterest, parentFeatures);
+            for (final String parentFeature : parentFeatures) {
+                s.childFeaturesForFeatureOfInterest =
+                        s.childFeaturesForFeatureOfInterest.plus(parentFeature, featureOfInterest);
+            }
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearFeatureHierarchy() {
+        LOG.trace("Clearing feature hierarchy");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.childFeaturesForFeatureOfInterest = PersistentSetMultiMap.empty();
+            s.parentFeaturesForFeaturesOfInterest = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addParentProcedure(final String procedure, final String parentProcedure) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        notNullOrEmpty(PARENT_PROCEDURE, parentProcedure);
+        LOG.trace("Adding parentProcedure {} to procedure {}", parentProcedure, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.parentProceduresForProcedures = s.parentProceduresForProcedures.plus(procedure, parentProcedure);
+            s.childProceduresForProcedures = s.childProceduresForProcedures.plus(parentProcedure, procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addParentProcedures(final String procedure, final Collection<String> parentProcedures) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        noNullOrEmptyValues(PARENT_PROCEDURES, parentProcedures);
+        LOG.trace("Adding parentProcedures {} to procedure {}", parentProcedures, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.parentProceduresForProcedures = s.parentProceduresForProcedures.plusAll(procedure, parentProcedures);
+            for (final String parentProcedure : parentProcedures) {
+                s.childProceduresForProcedures = s.childProceduresForProcedures.plus(parentProcedure, procedure);
+            }
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addParentOffering(final String offering, final String parentOffering) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(PARENT_OFFERING, parentOffering);
+        LOG.trace("Adding parentOffering {} to offering {}", parentOffering, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.parentOfferingsForOfferings = s.parentOfferingsForOfferings.plus(offering, parentOffering);
+            s.childOfferingsForOfferings = s.childOfferingsForOfferings.plus(parentOffering, offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addParentOfferings(final String offering, final Collection<String> parentOfferings) {
+        notNullOrEmpty(OFFERING, offering);
+        noNullOrEmptyValues(PARENT_OFFERINGS, parentOfferings);
+        LOG.trace("Adding parentOfferings {} to offering {}", parentOfferings, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.parentOfferingsForOfferings = s.parentOfferingsForOfferings.plusAll(offering, parentOfferings);
+            for (final String parentOffering : parentOfferings) {
+                s.childOfferingsForOfferings = s.childOfferingsForOfferings.plus(parentOffering, offering);
+            }
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setNameForOffering(final String offering, final String name) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(NAME, name);
+        LOG.trace("Setting Name of Offering {} to {}", offering, name);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.nameForOfferings = s.nameForOfferings.plus(offering, name);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeNameForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing name for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.nameForOfferings = s.nameForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearNameForOfferings() {
+        LOG.trace("Clearing names for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.nameForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setI18nNameForOffering(String offering, MultilingualString name) {
+        notNullOrEmpty(OFFERING, offering);
+        notNull(NAME, name);
+        LOG.trace("Setting I18N Name of Offering {} to {}", offering, name);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.i18nNameForOfferings = s.i18nNameForOfferings.plus(offering, name);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearI18nNamesForOfferings() {
+        LOG.trace("Clearing i18n names for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.i18nNameForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setI18nDescriptionForOffering(String offering, MultilingualString description) {
+        notNullOrEmpty(OFFERING, offering);
+        notNull(DESCRIPTION, description);
+        LOG.trace("Setting I18N Description of Offering {} to {}", offering, description);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.i18nDescriptionForOfferings = s.i18nDescriptionForOfferings.plus(offering, description);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearI18nDescriptionsNameForOfferings() {
+        LOG.trace("Clearing i18n descriptions for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.i18nDescriptionForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addFeatureOfInterestIdentifierHumanReadableName(String identifier, String humanReadableName) {
+        if (StringHelper.isNotEmpty(identifier) && StringHelper.isNotEmpty(humanReadableName)) {
+            final ContentCacheSnapshot s = edit();
+            try {
+                s.featureOfInterestIdentifierForHumanReadableName =
+                        putIfAbsent(s.featureOfInterestIdentifierForHumanReadableName, humanReadableName, identifier);
+                s.featureOfInterestHumanReadableNameForIdentifier =
+                        putIfAbsent(s.featureOfInterestHumanReadableNameForIdentifier, identifier, humanReadableName);
+            } finally {
+                commit();
+            }
+        }
+    }
+
+    @Override
+    public void addObservablePropertyIdentifierHumanReadableName(String identifier, String humanReadableName) {
+        if (StringHelper.isNotEmpty(identifier) && StringHelper.isNotEmpty(humanReadableName)) {
+            final ContentCacheSnapshot s = edit();
+            try {
+                s.observablePropertyIdentifierForHumanReadableName =
+                        putIfAbsent(s.observablePropertyIdentifierForHumanReadableName, humanReadableName,
+                                identifier);
+                s.observablePropertyHumanReadableNameForIdentifier =
+                        putIfAbsent(s.observablePropertyHumanReadableNameForIdentifier, identifier,
+                                humanReadableName);
+            } finally {
+                commit();
+            }
+        }
+    }
+
+    @Override
+    public void addProcedureIdentifierHumanReadableName(String identifier, String humanReadableName) {
+        if (StringHelper.isNotEmpty(identifier) && StringHelper.isNotEmpty(humanReadableName)) {
+            final ContentCacheSnapshot s = edit();
+            try {
+                s.procedureIdentifierForHumanReadableName =
+                        putIfAbsent(s.procedureIdentifierForHumanReadableName, humanReadableName, identifier);
+                s.procedureHumanReadableNameForIdentifier =
+                        putIfAbsent(s.procedureHumanReadableNameForIdentifier, identifier, humanReadableName);
+            } finally {
+                commit();
+            }
+        }
+    }
+
+    @Override
+    public void addOfferingIdentifierHumanReadableName(String identifier, String humanReadableName) {
+        if (StringHelper.isNotEmpty(identifier) && StringHelper.isNotEmpty(humanReadableName)) {
+            final ContentCacheSnapshot s = edit();
+            try {
+                s.offeringIdentifierForHumanReadableName =
+                        putIfAbsent(s.offeringIdentifierForHumanReadableName, humanReadableName, identifier);
+                s.offeringHumanReadableNameForIdentifier =
+                        putIfAbsent(s.offeringHumanReadableNameForIdentifier, identifier, humanReadableName);
+            } finally {
+                commit();
+            }
+        }
+    }
+
+    @Override
+    public void removeFeatureOfInterestIdentifierForHumanReadableName(String humanReadableName) {
+        notNullOrEmpty(FEATURE_OF_INTEREST_NAME, humanReadableName);
+        LOG.trace("Removing featuresOfInterest identifier for humanReadableName {}", humanReadableName);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featureOfInterestIdentifierForHumanReadableName =
+                    s.featureOfInterestIdentifierForHumanReadableName.minus(humanReadableName);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeFeatureOfInterestHumanReadableNameForIdentifier(String identifier) {
+        notNullOrEmpty(FEATURE_OF_INTEREST, identifier);
+        LOG.trace("Removing featuresOfInterest human readable name for identifier {}", identifier);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featureOfInterestHumanReadableNameForIdentifier =
+                    s.featureOfInterestHumanReadableNameForIdentifier.minus(identifier);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservablePropertyIdentifierForHumanReadableName(String humanReadableName) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY_NAME, humanReadableName);
+        LOG.trace("Removing observableProperty identifier for humanReadableName {}", humanReadableName);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertyIdentifierForHumanReadableName =
+                    s.observablePropertyIdentifierForHumanReadableName.minus(humanReadableName);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeObservablePropertyHumanReadableNameForIdentifier(String identifier) {
+        notNullOrEmpty(OBSERVABLE_PROPERTY, identifier);
+        LOG.trace("Removing observableProperty human readable name for identifier {}", identifier);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertyHumanReadableNameForIdentifier =
+                    s.observablePropertyHumanReadableNameForIdentifier.minus(identifier);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProcedureIdentifierForHumanReadableName(String humanReadableName) {
+        notNullOrEmpty(PROCEDURE_NAME, humanReadableName);
+        LOG.trace("Removing procedure identifier for humanReadableName {}", humanReadableName);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedureIdentifierForHumanReadableName =
+                    s.procedureIdentifierForHumanReadableName.minus(humanReadableName);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeProcedureHumanReadableNameForIdentifier(String identifier) {
+        notNullOrEmpty(PROCEDURE, identifier);
+        LOG.trace("Removing procedure human readable name for identifier {}", identifier);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedureHumanReadableNameForIdentifier = s.procedureHumanReadableNameForIdentifier.minus(identifier);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeOfferingIdentifierForHumanReadableName(String humanReadableName) {
+        notNullOrEmpty(OFFERING_NAME, humanReadableName);
+        LOG.trace("Removing offering identifier for humanReadableName {}", humanReadableName);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringIdentifierForHumanReadableName =
+                    s.offeringIdentifierForHumanReadableName.minus(humanReadableName);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeOfferingHumanReadableNameForIdentifier(String identifier) {
+        notNullOrEmpty(OFFERING, identifier);
+        LOG.trace("Removing offering human readable name for identifier {}", identifier);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringHumanReadableNameForIdentifier = s.offeringHumanReadableNameForIdentifier.minus(identifier);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearFeatureOfInterestIdentifierHumanReadableNameMaps() {
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.featureOfInterestIdentifierForHumanReadableName = PersistentHashMap.empty();
+            s.featureOfInterestHumanReadableNameForIdentifier = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearObservablePropertyIdentifierHumanReadableNameMaps() {
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertyIdentifierForHumanReadableName = PersistentHashMap.empty();
+            s.observablePropertyHumanReadableNameForIdentifier = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearProcedureIdentifierHumanReadableNameMaps() {
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.procedureIdentifierForHumanReadableName = PersistentHashMap.empty();
+            s.procedureHumanReadableNameForIdentifier = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearOfferingIdentifierHumanReadableNameMaps() {
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.offeringIdentifierForHumanReadableName = PersistentHashMap.empty();
+            s.offeringHumanReadableNameForIdentifier = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setEnvelopeForOffering(final String offering, final SosEnvelope envelope) {
+        LOG.trace("Setting Envelope for Offering {} to {}", offering, envelope);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.envelopeForOfferings = putOrRemove(s.envelopeForOfferings, offering, copyOf(envelope));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void updateEnvelopeForOffering(final String offering, final Envelope envelope) {
+        notNullOrEmpty(OFFERING, offering);
+        notNull(ENVELOPE, envelope);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.envelopeForOfferings =
+                    s.envelopeForOfferings.plus(offering,
+                            expand(s.envelopeForOfferings.get(offering), envelope, s.defaultEpsgCode));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeEnvelopeForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing envelope for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.envelopeForOfferings = s.envelopeForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearEnvelopeForOfferings() {
+        LOG.trace("Clearing envelope for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.envelopeForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setSpatialFilteringProfileEnvelopeForOffering(String offering, SosEnvelope envelope) {
+        LOG.trace("Setting Spatial Filtering Profile Envelope for Offering {} to {}", offering, envelope);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.spatialFilteringProfileEnvelopeForOfferings =
+                    putOrRemove(s.spatialFilteringProfileEnvelopeForOfferings, offering, copyOf(envelope));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void updateSpatialFilteringProfileEnvelopeForOffering(String offering, Envelope envelope) {
+        notNullOrEmpty(OFFERING, offering);
+        notNull(ENVELOPE, envelope);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.spatialFilteringProfileEnvelopeForOfferings =
+                    s.spatialFilteringProfileEnvelopeForOfferings.plus(offering,
+                            expand(s.spatialFilteringProfileEnvelopeForOfferings.get(offering), envelope,
+                                    s.defaultEpsgCode));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeSpatialFilteringProfileEnvelopeForOffering(String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing Spatial Filtering Profile envelope for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.spatialFilteringProfileEnvelopeForOfferings = s.spatialFilteringProfileEnvelopeForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearSpatialFilteringProfileEnvelopeForOfferings() {
+        LOG.trace("Clearing Spatial Filtering Profile envelope for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.spatialFilteringProfileEnvelopeForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setGlobalEnvelope(final SosEnvelope globalEnvelope) {
+        final ContentCacheSnapshot s = edit();
+        try {
+            if (globalEnvelope == null) {
+                s.globalEnvelope = new SosEnvelope(null, s.defaultEpsgCode);
+            } else {
+                s.globalEnvelope = copyOf(globalEnvelope);
+            }
+            LOG.trace("Global envelope updated to '{}' with '{}'", s.globalEnvelope, globalEnvelope);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void updateGlobalEnvelope(final Envelope envelope) {
+        notNull(ENVELOPE, envelope);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.globalEnvelope = expand(s.globalEnvelope, envelope, s.defaultEpsgCode);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void recalculateGlobalEnvelope() {
+        LOG.trace("Recalculating global spatial envelope based on offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            SosEnvelope globalEnvelope = null;
+            if (!s.offerings.isEmpty()) {
+                for (final String offering : s.offerings) {
+                    final SosEnvelope e = s.envelopeForOfferings.get(offering);
+                    if (e != null) {
+                        if (globalEnvelope == null) {
+                            if (e.isSetEnvelope()) {
+                                globalEnvelope = new SosEnvelope(new Envelope(e.getEnvelope()), e.getSrid());
+                                LOG.trace("First envelope '{}' used as starting point", globalEnvelope);
+                            }
+                        } else {
+                            globalEnvelope.getEnvelope().expandToInclude(e.getEnvelope());
+                            LOG.trace("Envelope expanded to include '{}' resulting in '{}'", e, globalEnvelope);
+                        }
+                    }
+                }
+                if (globalEnvelope == null) {
+                    LOG.error("Global envelope could not be resetted");
+                }
+            }
+            s.globalEnvelope = globalEnvelope == null ? new SosEnvelope(null, s.defaultEpsgCode) : globalEnvelope;
+            LOG.trace("Spatial envelope finally set to '{}'", s.globalEnvelope);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setPhenomenonTime(final DateTime minEventTime, final DateTime maxEventTime) {
+        LOG.trace("Setting EventTime to [{}, {}]", minEventTime, maxEventTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTime = DateTimeHelper.toUTC(minEventTime);
+            s.maxPhenomenonTime = DateTimeHelper.toUTC(maxEventTime);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMaxPhenomenonTime(final DateTime maxEventTime) {
+        LOG.trace("Setting Maximal EventTime to {}", maxEventTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxPhenomenonTime = DateTimeHelper.toUTC(maxEventTime);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMinPhenomenonTime(final DateTime minEventTime) {
+        LOG.trace("Setting Minimal EventTime to {}", minEventTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTime = DateTimeHelper.toUTC(minEventTime);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void updatePhenomenonTime(final Time eventTime) {
+        notNull(EVENT_TIME, eventTime);
+        final TimePeriod tp = toTimePeriod(eventTime);
+        LOG.trace("Expanding global EventTime to include {}", tp);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTime = min(s.minPhenomenonTime, tp.getStart());
+            s.maxPhenomenonTime = max(s.maxPhenomenonTime, tp.getEnd());
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void recalculatePhenomenonTime() {
+        LOG.trace("Recalculating global phenomenon time based on offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            DateTime globalMax = null, globalMin = null;
+            if (!s.offerings.isEmpty()) {
+                for (final String offering : s.offerings) {
+                    globalMax = max(globalMax, s.maxPhenomenonTimeForOfferings.get(offering));
+                    globalMin = min(globalMin, s.minPhenomenonTimeForOfferings.get(offering));
+                }
+                if (globalMin == null || globalMax == null) {
+                    LOG.error("Error in cache! Reset of global temporal bounding box failed. Max: '{}'; Min: '{}'",
+                            globalMax, globalMin);
+                }
+            }
+            s.minPhenomenonTime = globalMin;
+            s.maxPhenomenonTime = globalMax;
+            LOG.trace("Global temporal bounding box reset done. Min: '{}'; Max: '{}'", globalMin, globalMax);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setResultTime(final DateTime min, final DateTime max) {
+        LOG.trace("Setting ResultTime to [{}, {}]", min, max);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minResultTime = DateTimeHelper.toUTC(min);
+            s.maxResultTime = DateTimeHelper.toUTC(max);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMaxResultTime(final DateTime maxResultTime) {
+        LOG.trace("Setting Maximal ResultTime to {}", maxResultTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxResultTime = DateTimeHelper.toUTC(maxResultTime);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMinResultTime(final DateTime minResultTime) {
+        LOG.trace("Setting Minimal ResultTime to {}", minResultTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minResultTime = DateTimeHelper.toUTC(minResultTime);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void updateResultTime(final Time resultTime) {
+        if (resultTime == null) {
+            return;
+        }
+        final TimePeriod tp = toTimePeriod(resultTime);
+        LOG.trace("Expanding global ResultTime to include {}", tp);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minResultTime = min(s.minResultTime, tp.getStart());
+            s.maxResultTime = max(s.maxResultTime, tp.getEnd());
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void recalculateResultTime() {
+        LOG.trace("Recalculating global result time based on offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            DateTime globalMax = null, globalMin = null;
+            for (final String offering : s.offerings) {
+                globalMax = max(globalMax, s.maxResultTimeForOfferings.get(offering));
+                globalMin = min(globalMin, s.minResultTimeForOfferings.get(offering));
+            }
+            s.minResultTime = globalMin;
+            s.maxResultTime = globalMax;
+            LOG.trace("Global result time bounding box reset done. Min: '{}'); Max: '{}'", globalMin, globalMax);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMaxPhenomenonTimeForOffering(final String offering, final DateTime maxTime) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting maximal EventTime for Offering {} to {}", offering, maxTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxPhenomenonTimeForOfferings = putOrRemove(s.maxPhenomenonTimeForOfferings, offering, DateTimeHelper.toUTC(maxTime));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeMaxPhenomenonTimeForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing maxEventTime for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxPhenomenonTimeForOfferings = s.maxPhenomenonTimeForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearMaxPhenomenonTimeForOfferings() {
+        LOG.trace("Clearing max phenomenon time for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxPhenomenonTimeForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMinPhenomenonTimeForOffering(final String offering, final DateTime minTime) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting minimal EventTime for Offering {} to {}", offering, minTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTimeForOfferings = putOrRemove(s.minPhenomenonTimeForOfferings, offering, DateTimeHelper.toUTC(minTime));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeMinPhenomenonTimeForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing minEventTime for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTimeForOfferings = s.minPhenomenonTimeForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearMinPhenomenonTimeForOfferings() {
+        LOG.trace("Clearing min phenomenon time for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTimeForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMaxPhenomenonTimeForProcedure(final String procedure, final DateTime maxTime) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Setting maximal phenomenon time for procedure {} to {}", procedure, maxTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxPhenomenonTimeForProcedures = putOrRemove(s.maxPhenomenonTimeForProcedures, procedure, DateTimeHelper.toUTC(maxTime));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeMaxPhenomenonTimeForProcedure(final String procedure) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing maxEventTime for procedure {}", procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxPhenomenonTimeForProcedures = s.maxPhenomenonTimeForProcedures.minus(procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearMaxPhenomenonTimeForProcedures() {
+        LOG.trace("Clearing max phenomenon time for procedures");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxPhenomenonTimeForProcedures = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMinPhenomenonTimeForProcedure(final String procedure, final DateTime minTime) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Setting minimal phenomenon time for procedure {} to {}", procedure, minTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTimeForProcedures = putOrRemove(s.minPhenomenonTimeForProcedures, procedure, DateTimeHelper.toUTC(minTime));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeMinPhenomenonTimeForProcedure(final String procedure) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing minEventTime for procedure {}", procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTimeForProcedures = s.minPhenomenonTimeForProcedures.minus(procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearMinPhenomenonTimeForProcedures() {
+        LOG.trace("Clearing min phenomenon time for procedures");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minPhenomenonTimeForProcedures = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMaxResultTimeForOffering(final String offering, final DateTime maxTime) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting maximal ResultTime for Offering {} to {}", offering, maxTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxResultTimeForOfferings = putOrRemove(s.maxResultTimeForOfferings, offering, DateTimeHelper.toUTC(maxTime));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeMaxResultTimeForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing maxResultTime for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxResultTimeForOfferings = s.maxResultTimeForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearMaxResultTimeForOfferings() {
+        LOG.trace("Clearing max result time for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxResultTimeForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setMinResultTimeForOffering(final String offering, final DateTime minTime) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Setting minimal ResultTime for Offering {} to {}", offering, minTime);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minResultTimeForOfferings = putOrRemove(s.minResultTimeForOfferings, offering, DateTimeHelper.toUTC(minTime));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeMinResultTimeForOffering(final String offering) {
+        notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing minResultTime for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minResultTimeForOfferings = s.minResultTimeForOfferings.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearMinResultTimeForOfferings() {
+        LOG.trace("Clearing min result time for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.minResultTimeForOfferings = PersistentHashMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void updatePhenomenonTimeForOffering(final String offering, final Time eventTime) {
+        notNullOrEmpty(OFFERING, offering);
+        notNull(EVENT_TIME, eventTime);
+        final TimePeriod tp = toTimePeriod(eventTime);
+        LOG.trace("Expanding EventTime of offering {} to include {}", offering, tp);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxPhenomenonTimeForOfferings =
+                    putOrRemove(s.maxPhenomenonTimeForOfferings, offering,
+                            max(s.maxPhenomenonTimeForOfferings.get(offering), tp.getEnd()));
+            s.minPhenomenonTimeForOfferings =
+                    putOrRemove(s.minPhenomenonTimeForOfferings, offering,
+                            min(s.minPhenomenonTimeForOfferings.get(offering), tp.getStart()));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void updatePhenomenonTimeForProcedure(final String procedure, final Time eventTime) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        notNull(EVENT_TIME, eventTime);
+        final TimePeriod tp = toTimePeriod(eventTime);
+        LOG.trace("Expanding phenomenon time of procedure {} to include {}", procedure, tp);
+        final ContentCacheSnapshot s = edit();
+        try {
+            final DateTime maxTime = getMaxPhenomenonTimeForProcedure(procedure);
+            if (maxTime == null || maxTime.isBefore(tp.getEnd())) {
+                s.maxPhenomenonTimeForProcedures =
+                        putOrRemove(s.maxPhenomenonTimeForProcedures, procedure, DateTimeHelper.toUTC(tp.getEnd()));
+            }
+            final DateTime minTime = getMinPhenomenonTimeForProcedure(procedure);
+            if (minTime == null || minTime.isAfter(tp.getStart())) {
+                s.minPhenomenonTimeForProcedures =
+                        putOrRemove(s.minPhenomenonTimeForProcedures, procedure,
+                                DateTimeHelper.toUTC(tp.getStart()));
+            }
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void updateResultTimeForOffering(final String offering, final Time resultTime) {
+        notNullOrEmpty(OFFERING, offering);
+        if (resultTime == null) {
+            return;
+        }
+        final TimePeriod tp = toTimePeriod(resultTime);
+        LOG.trace("Expanding ResultTime of offering {} to include {}", offering, tp);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.maxResultTimeForOfferings =
+                    putOrRemove(s.maxResultTimeForOfferings, offering,
+                            max(s.maxResultTimeForOfferings.get(offering), tp.getEnd()));
+            s.minResultTimeForOfferings =
+                    putOrRemove(s.minResultTimeForOfferings, offering,
+                            min(s.minResultTimeForOfferings.get(offering), tp.getStart()));
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addCompositePhenomenon(String compositePhenomenon) {
+        notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Adding composite phenomenon {}", compositePhenomenon);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenons = s.compositePhenomenons.plus(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addCompositePhenomenon(Collection<String> compositePhenomenon) {
+        noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Adding composite phenomenon {}", compositePhenomenon);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenons = s.compositePhenomenons.plusAll(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setCompositePhenomenon(Collection<String> compositePhenomenon) {
+        noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Setting composite phenomenon {}", compositePhenomenon);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenons = PersistentHashSet.copyOf(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearCompositePhenomenon() {
+        LOG.trace("Clearing composite phenomenon");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenons = PersistentHashSet.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addCompositePhenomenonForProcedure(String procedure, String compositePhenomenon) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Adding composite phenomenon {} to procedure {}", compositePhenomenon, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForProcedure = s.compositePhenomenonsForProcedure.plus(procedure, compositePhenomenon);
+            s.compositePhenomenons = s.compositePhenomenons.plus(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addCompositePhenomenonForProcedure(String procedure, Collection<String> compositePhenomenon) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Adding composite phenomenon {} to procedure {}", compositePhenomenon, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForProcedure =
+                    s.compositePhenomenonsForProcedure.plusAll(procedure, compositePhenomenon);
+            s.compositePhenomenons = s.compositePhenomenons.plusAll(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setCompositePhenomenonForProcedure(String procedure, Collection<String> compositePhenomenon) {
+        notNullOrEmpty(PROCEDURE, procedure);
+        noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Setting composite phenomenon {} for procedure {}", compositePhenomenon, procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForProcedure =
+                    s.compositePhenomenonsForProcedure.with(procedure, compositePhenomenon);
+            s.compositePhenomenons = s.compositePhenomenons.plusAll(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearCompositePhenomenonForProcedure(String procedure) {
+        LOG.trace("Clearing composite phenomenons for procedure {}", procedure);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForProcedure = s.compositePhenomenonsForProcedure.minus(procedure);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearCompositePhenomenonForProcedures() {
+        LOG.trace("Clearing composite phenomenons for procedures");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForProcedure = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addCompositePhenomenonForOffering(String offering, String compositePhenomenon) {
+        notNullOrEmpty(OFFERING, offering);
+        notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Adding composite phenomenon {} to offering {}", compositePhenomenon, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForOffering = s.compositePhenomenonsForOffering.plus(offering, compositePhenomenon);
+            s.compositePhenomenons = s.compositePhenomenons.plus(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addCompositePhenomenonForOffering(String offering, Collection<String> compositePhenomenon) {
+        notNullOrEmpty(OFFERING, offering);
+        noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Adding composite phenomenon {} to offering {}", compositePhenomenon, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForOffering =
+                    s.compositePhenomenonsForOffering.plusAll(offering, compositePhenomenon);
+            s.compositePhenomenons = s.compositePhenomenons.plusAll(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setCompositePhenomenonForOffering(String offering, Collection<String> compositePhenomenon) {
+        notNullOrEmpty(OFFERING, offering);
+        noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
+        LOG.trace("Setting composite phenomenon {} for offering {}", compositePhenomenon, offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForOffering = s.compositePhenomenonsForOffering.with(offering, compositePhenomenon);
+            s.compositePhenomenons = s.compositePhenomenons.plusAll(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearCompositePhenomenonForOffering(String offering) {
+        LOG.trace("Clearing composite phenomenons for offering {}", offering);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForOffering = s.compositePhenomenonsForOffering.minus(offering);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearCompositePhenomenonForOfferings() {
+        LOG.trace("Clearing composite phenomenons for offerings");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonsForOffering = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addCompositePhenomenonForObservableProperty(String observableProperty, String compositePhenomenon) {
+        notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Adding composite phenomenon {} to to observable property {}", compositePhenomenon,
+                observableProperty);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonForObservableProperty =
+                    s.compositePhenomenonForObservableProperty.plus(observableProperty, compositePhenomenon);
+            s.compositePhenomenons = s.compositePhenomenons.plus(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearCompositePhenomenonsForObservableProperty() {
+        LOG.trace("Clearing composite phenomenon for observable properties");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonForObservableProperty = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearCompositePhenomenonsForObservableProperty(String observableProperty) {
+        LOG.trace("Clearing composite phenomenon for observable property {}", observableProperty);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.compositePhenomenonForObservableProperty =
+                    s.compositePhenomenonForObservableProperty.minus(observableProperty);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addObservablePropertyForCompositePhenomenon(String compositePhenomenon, String observableProperty) {
+        notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
+        notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Adding observable property {} to composite phenomenon {}", observableProperty,
+                compositePhenomenon);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForCompositePhenomenon =
+                    s.observablePropertiesForCompositePhenomenon.plus(compositePhenomenon, observableProperty);
+            s.compositePhenomenons = s.compositePhenomenons.plus(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addObservablePropertiesForCompositePhenomenon(String compositePhenomenon,
+            Collection<String> observableProperty) {
+        notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
+        noNullOrEmptyValues(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Adding observable properties {} to composite phenomenon {}", observableProperty,
+                compositePhenomenon);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForCompositePhenomenon =
+                    s.observablePropertiesForCompositePhenomenon.plusAll(compositePhenomenon, observableProperty);
+            s.compositePhenomenons = s.compositePhenomenons.plus(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void setObservablePropertiesForCompositePhenomenon(String compositePhenomenon,
+            Collection<String> observableProperty) {
+        notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
+        noNullOrEmptyValues(OBSERVABLE_PROPERTY, observableProperty);
+        LOG.trace("Setting observable properties {} for composite phenomenon {}", observableProperty,
+                compositePhenomenon);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForCompositePhenomenon =
+                    s.observablePropertiesForCompositePhenomenon.with(compositePhenomenon, observableProperty);
+            s.compositePhenomenons = s.compositePhenomenons.plus(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearObservablePropertiesForCompositePhenomenon(String compositePhenomenon) {
+        LOG.trace("Clearing observable properties for composite phenomenon {}", compositePhenomenon);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForCompositePhenomenon =
+                    s.observablePropertiesForCompositePhenomenon.minus(compositePhenomenon);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearObservablePropertiesForCompositePhenomenon() {
+        LOG.trace("Clearing observable properties for composite phenomenon");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.observablePropertiesForCompositePhenomenon = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addTypeInstanceProcedure(TypeInstance typeInstance, String identifier) {
+        notNullOrEmpty(TYPE_PROCEDURE, identifier);
+        LOG.trace("Adding '{}' to '{}'", identifier, TYPE_PROCEDURE);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.typeInstanceProcedures = s.typeInstanceProcedures.plus(typeInstance, identifier);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeTypeInstanceProcedure(String identifier) {
+        notNullOrEmpty(TYPE_PROCEDURE, identifier);
+        LOG.trace("Removing '{}' from '{}'", identifier, TYPE_PROCEDURE);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.typeInstanceProcedures = s.typeInstanceProcedures.minusValue(identifier);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearTypeInstanceProcedure() {
+        LOG.trace("Clearing '{}'", TYPE_PROCEDURE);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.typeInstanceProcedures = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addComponentAggregationProcedure(ComponentAggregation componentAggregation, String identifier) {
+        notNullOrEmpty(AGGREGATED_PROCEDURE, identifier);
+        LOG.trace("Adding '{}' to '{}'", identifier, AGGREGATED_PROCEDURE);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.componentAggregationProcedures = s.componentAggregationProcedures.plus(componentAggregation, identifier);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeComponentAggregationProcedure(String identifier) {
+        notNullOrEmpty(AGGREGATED_PROCEDURE, identifier);
+        LOG.trace("Removing '{}' from '{}'", identifier, AGGREGATED_PROCEDURE);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.componentAggregationProcedures = s.componentAggregationProcedures.minusValue(identifier);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearComponentAggregationProcedure() {
+        LOG.trace("Clearing '{}'", AGGREGATED_PROCEDURE);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.componentAggregationProcedures = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addTypeOfProcedure(String type, String instance) {
+        notNullOrEmpty(TYPE_PROCEDURE, type);
+        notNullOrEmpty(PROCEDURE_INSTANCE, instance);
+        LOG.trace("Adding instance '{}' to type '{}'", instance, type);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.typeOfProcedures = s.typeOfProcedures.plus(type, instance);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void addTypeOfProcedure(String type, Set<String> instances) {
+        notNullOrEmpty(TYPE_PROCEDURE, type);
+        noNullValues(PROCEDURE_INSTANCES, instances);
+        LOG.trace("Adding instances {} to type '{}'", instances, type);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.typeOfProcedures = s.typeOfProcedures.plusAll(type, instances);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeTypeOfProcedure(String type) {
+        notNullOrEmpty(TYPE_PROCEDURE, type);
+        LOG.trace("Removing type '{}'", type);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.typeOfProcedures = s.typeOfProcedures.minus(type).minusValue(type);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void removeTypeOfProcedure(String type, String instance) {
+        notNullOrEmpty(TYPE_PROCEDURE, type);
+        notNullOrEmpty(PROCEDURE_INSTANCE, instance);
+        LOG.trace("Removing instance '{}' of type '{}'", instance, type);
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.typeOfProcedures = s.typeOfProcedures.minus(type, instance);
+        } finally {
+            commit();
+        }
+    }
+
+    @Override
+    public void clearTypeOfProcedure() {
+        LOG.trace("Clearing type instance procedure map");
+        final ContentCacheSnapshot s = edit();
+        try {
+            s.typeOfProcedures = PersistentSetMultiMap.empty();
+        } finally {
+            commit();
+        }
+    }
+
+    private static String valueOrKey(PersistentHashMap<String, String> map, String key) {
+        final String value = map.get(key);
+        return value == null ? key : value;
+    }
+
+    private static <K, V> PersistentHashMap<K, V> putIfAbsent(PersistentHashMap<K, V> map, K key, V value) {
+        return map.containsKey(key) ? map : map.plus(key, value);
+    }
+
+    private static <K, V> PersistentHashMap<K, V> putOrRemove(PersistentHashMap<K, V> map, K key, V value) {
+        return value == null ? map.minus(key) : map.plus(key, value);
+    }
+
+    /**
+     * Returns a new envelope as published envelopes may not be modified.
+     */
+    private static SosEnvelope expand(SosEnvelope current, Envelope envelope, int defaultEpsgCode) {
+        if (current == null || !current.isSetEnvelope()) {
+            return new SosEnvelope(new Envelope(envelope), defaultEpsgCode);
+        }
+        final SosEnvelope expanded = copyOf(current);
+        LOG.trace("Expanding envelope {} to include {}", expanded, envelope);
+        expanded.expandToInclude(envelope);
+        return expanded;
+    }
+
+    private static DateTime min(DateTime current, DateTime candidate) {
+        if (candidate != null && (current == null || current.isAfter(candidate))) {
+            return DateTimeHelper.toUTC(candidate);
+        }
+        return current;
+    }
+
+    private static DateTime max(DateTime current, DateTime candidate) {
+        if (candidate != null && (current == null || current.isBefore(candidate))) {
+            return DateTimeHelper.toUTC(candidate);
+        }
+        return current;
+    }
+}
@@ -153,11 +153,21 @@ public abstract class AbstractSchedulingContentCacheController implements Conten
         this.initialized = initialized;
     }
 
+    /**
+     * Executes the scheduled cache update. Defaults to a complete update.
+     *
+     * @throws OwsExceptionReport
+     *             if the update fails
+     */
+    protected void scheduledUpdate() throws OwsExceptionReport {
+        update();
+    }
+
     private class UpdateTimerTask extends TimerTask {
         @Override
         public void run() {
             try {
-                update();
+                scheduledUpdate();
                 LOGGER.info("Timertask: capabilities cache update successful!");
                 schedule();
             } catch (OwsExceptionReport e) {
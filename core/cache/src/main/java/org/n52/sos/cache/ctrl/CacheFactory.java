@@ -29,18 +29,47 @@
 package org.n52.sos.cache.ctrl;
 
 import org.n52.sos.cache.InMemoryCacheImpl;
+import org.n52.sos.cache.InternedInMemoryCacheImpl;
+import org.n52.sos.cache.SnapshotContentCache;
 import org.n52.sos.cache.WritableContentCache;
+import org.n52.sos.config.SettingsManager;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.exception.ConfigurationException;
 
 /**
+ * Creates the {@link WritableContentCache} instances used by the
+ * {@link ContentCacheControllerImpl}. The implementation is selected by the
+ * setting {@value CacheFactorySettings#CONTENT_CACHE_IMPLEMENTATION}.
+ *
  * @author Christian Autermann <c.autermann@52north.org>
  *
  * @since 4.0.0
  */
+@Configurable
 public class CacheFactory {
+    private volatile String implementation = CacheFactorySettings.IN_MEMORY;
+
     private CacheFactory() {
     }
 
+    @Setting(CacheFactorySettings.CONTENT_CACHE_IMPLEMENTATION)
+    public void setImplementation(String implementation) {
+        if (!CacheFactorySettings.IN_MEMORY.equals(implementation)
+                && !CacheFactorySettings.SNAPSHOT.equals(implementation)
+                && !CacheFactorySettings.INTERNED.equals(implementation)) {
+            throw new ConfigurationException(String.format("Unknown content cache implementation: %s",
+                    implementation));
+        }
+        this.implementation = implementation;
+    }
+
     public WritableContentCache create() {
+        if (CacheFactorySettings.SNAPSHOT.equals(this.implementation)) {
+            return new SnapshotContentCache();
+        } else if (CacheFactorySettings.INTERNED.equals(this.implementation)) {
+            return new InternedInMemoryCacheImpl();
+        }
         return new InMemoryCacheImpl();
     }
 
@@ -49,9 +78,15 @@ public class CacheFactory {
     }
 
     private static class LazyHolder {
-        private static final CacheFactory INSTANCE = new CacheFactory();
+        private static final CacheFactory INSTANCE = createInstance();
 
         private LazyHolder() {
         }
+
+        private static CacheFactory createInstance() {
+            CacheFactory factory = new CacheFactory();
+            SettingsManager.getInstance().configure(factory);
+            return factory;
+        }
     }
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.n52.sos.cache.InMemoryCacheImpl;
+import org.n52.sos.cache.InternedInMemoryCacheImpl;
+import org.n52.sos.cache.SnapshotContentCache;
+import org.n52.sos.config.SettingDefinition;
+import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.ChoiceSettingDefinition;
+import org.n52.sos.service.ServiceSettings;
+
+/**
+ * Settings for the {@link CacheFactory}.
+ *
+ * @since 4.4.0
+ */
+public class CacheFactorySettings implements SettingDefinitionProvider {
+    public static final String CONTENT_CACHE_IMPLEMENTATION = "service.contentCacheImplementation";
+
+    /**
+     * Value selecting the {@link InMemoryCacheImpl}.
+     */
+    public static final String IN_MEMORY = "inMemory";
+
+    /**
+     * Value selecting the {@link SnapshotContentCache}.
+     */
+    public static final String SNAPSHOT = "snapshot";
+
+    /**
+     * Value selecting the {@link InternedInMemoryCacheImpl}.
+     */
+    public static final String INTERNED = "interned";
+
+    public static final ChoiceSettingDefinition CONTENT_CACHE_IMPLEMENTATION_DEFINITION = createDefinition();
+
+    private static ChoiceSettingDefinition createDefinition() {
+        ChoiceSettingDefinition definition = new ChoiceSettingDefinition();
+        definition.setGroup(ServiceSettings.GROUP)
+                .setOrder(6.2F)
+                .setKey(CONTENT_CACHE_IMPLEMENTATION)
+                .setTitle("Content cache implementation")
+                .setDescription("The implementation of the content cache. The synchronized in-memory cache "
+                        + "copies every returned collection. The snapshot cache returns immutable collections "
+                        + "without copying and never blocks readers, which improves the throughput of "
+                        + "concurrent requests. The interned cache stores every identifier only once and the relations "
+                        + "between them as integer ids, which reduces the memory consumption of large caches. "
+                        + "Takes effect with the next complete cache update.");
+        definition.addOption(IN_MEMORY, "Synchronized in-memory cache");
+        definition.addOption(SNAPSHOT, "Lock-free snapshot cache");
+        definition.addOption(INTERNED, "Interned in-memory cache");
+        definition.setDefaultValue(IN_MEMORY);
+        return definition;
+    }
+
+    @Override
+    public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
+        return Collections.<SettingDefinition<?, ?>> singleton(CONTENT_CACHE_IMPLEMENTATION_DEFINITION);
+    }
+}
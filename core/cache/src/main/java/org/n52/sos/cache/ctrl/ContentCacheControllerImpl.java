@@ -37,13 +37,21 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.n52.sos.cache.ContentCacheDelta;
 import org.n52.sos.cache.ContentCacheUpdate;
+import org.n52.sos.cache.SnapshotContentCache;
 import org.n52.sos.cache.WritableContentCache;
 import org.n52.sos.cache.ctrl.action.CompleteCacheUpdate;
+import org.n52.sos.cache.ctrl.action.DeltaCacheUpdate;
 import org.joda.time.DateTime;
 import org.n52.sos.cache.ContentCachePersistenceStrategy;
 import org.n52.sos.cache.ctrl.persistence.CachePersistenceStrategyFactory;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.event.SosEventBus;
+import org.n52.sos.event.events.ContentCacheUpdateEvent;
+import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.util.Validation;
 
 import com.google.common.base.Optional;
 
@@ -65,6 +73,21 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
 
     private final ContentCachePersistenceStrategy persistenceStrategy;
 
+    private boolean deltaUpdates = false;
+
+    private int maxDeltaUpdates;
+
+    private int deltaUpdateCount = 0;
+
+    private final ContentCacheUpdateBatcher batcher = new ContentCacheUpdateBatcher(
+            new ContentCacheUpdateBatcher.Executor() {
+                @Override
+                public void execute(ContentCacheUpdate update) throws OwsExceptionReport {
+                    executePartial(new PartialUpdate(update));
+                }
+            }, ScheduledContentCacheControllerSettings.CACHE_UPDATE_BATCH_WINDOW_DEFINITION.getDefaultValue(),
+            ScheduledContentCacheControllerSettings.CACHE_UPDATE_BATCH_SIZE_DEFINITION.getDefaultValue());
+
     public ContentCacheControllerImpl(
             ContentCachePersistenceStrategy persistenceStrategy) {
         this.persistenceStrategy = persistenceStrategy;
@@ -119,9 +142,10 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
             if (update.isCompleteUpdate()) {
                 executeComplete(new CompleteUpdate(update));
             } else {
-                executePartial(new PartialUpdate(update));
+                batcher.execute(update);
             }
             cache.setLastUpdateTime(DateTime.now());
+            SosEventBus.fire(new ContentCacheUpdateEvent(update.isCompleteUpdate()));
         } else {
             throw new IllegalArgumentException("update may not be null");
         }
@@ -224,6 +248,61 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
         return this.persistenceStrategy;
     }
 
+    @Setting(ScheduledContentCacheControllerSettings.CAPABILITIES_CACHE_UPDATE_MODE)
+    public void setUpdateMode(String mode) throws ConfigurationException {
+        Validation.notNullOrEmpty("Cache update mode", mode);
+        if (ScheduledContentCacheControllerSettings.COMPLETE.equals(mode)) {
+            this.deltaUpdates = false;
+        } else if (ScheduledContentCacheControllerSettings.DELTA.equals(mode)) {
+            this.deltaUpdates = true;
+        } else {
+            throw new ConfigurationException(String.format("Unknown cache update mode: %s", mode));
+        }
+    }
+
+    @Setting(ScheduledContentCacheControllerSettings.CAPABILITIES_CACHE_MAX_DELTA_UPDATES)
+    public void setMaxDeltaUpdates(int maxDeltaUpdates) throws ConfigurationException {
+        Validation.greaterEqualZero("Maximum delta cache updates", maxDeltaUpdates);
+        this.maxDeltaUpdates = maxDeltaUpdates;
+    }
+
+    @Setting(ScheduledContentCacheControllerSettings.CAPABILITIES_CACHE_UPDATE_BATCH_WINDOW)
+    public void setUpdateBatchWindow(int window) throws ConfigurationException {
+        Validation.greaterEqualZero("Content cache update batch window", window);
+        this.batcher.setWindow(window);
+    }
+
+    @Setting(ScheduledContentCacheControllerSettings.CAPABILITIES_CACHE_UPDATE_BATCH_SIZE)
+    public void setUpdateBatchSize(int size) throws ConfigurationException {
+        Validation.greaterZero("Content cache update batch size", size);
+        this.batcher.setMaxSize(size);
+    }
+
+    @Override
+    protected void scheduledUpdate() throws OwsExceptionReport {
+        if (isDeltaUpdateDue()) {
+            try {
+                DeltaCacheUpdate update = new DeltaCacheUpdate();
+                update(update);
+                ContentCacheDelta delta = update.getDelta();
+                if (delta != null && !delta.isCompleteUpdateRequired()) {
+                    this.deltaUpdateCount++;
+                    LOGGER.info("Delta cache update #{} finished: {}", this.deltaUpdateCount, delta);
+                    return;
+                }
+                LOGGER.info("Falling back to complete cache update: {}", delta);
+            } catch (OwsExceptionReport e) {
+                LOGGER.warn("Delta cache update failed, falling back to complete cache update", e);
+            }
+        }
+        update();
+        this.deltaUpdateCount = 0;
+    }
+
+    private boolean isDeltaUpdateDue() {
+        return this.deltaUpdates && (this.maxDeltaUpdates == 0 || this.deltaUpdateCount < this.maxDeltaUpdates);
+    }
+
     private enum State {
         WAITING, RUNNING, APPLYING_UPDATES, FINISHED, FAILED
     }
@@ -251,7 +330,18 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
             LOGGER.trace("Starting Update {}", getUpdate());
             getUpdate().reset();
             getUpdate().setCache(cache);
-            getUpdate().execute();
+            if (cache instanceof SnapshotContentCache) {
+                // publish all modifications of this update at once
+                SnapshotContentCache snapshotCache = (SnapshotContentCache) cache;
+                snapshotCache.beginUpdate();
+                try {
+                    getUpdate().execute();
+                } finally {
+                    snapshotCache.endUpdate();
+                }
+            } else {
+                getUpdate().execute();
+            }
             LOGGER.trace("Finished Update {}", getUpdate());
             if (getUpdate().failed()) {
                 LOGGER.warn("Update failed!", getUpdate().getFailureCause());
@@ -0,0 +1,262 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.sos.cache.ContentCacheUpdate;
+import org.n52.sos.cache.ctrl.action.BatchedCacheUpdate;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Collects concurrently submitted partial cache updates and executes them as a
+ * single {@link BatchedCacheUpdate}. The first thread submitting an update
+ * opens a batch and waits until the batch window elapsed or the maximum batch
+ * size is reached; updates submitted in the meantime join the batch. The
+ * opening thread then executes the batch while the others wait for it, so
+ * {@link #execute(ContentCacheUpdate)} only returns after the update is
+ * applied.
+ * <p/>
+ * A batch window of {@code 0} disables batching.
+ *
+ * @since 4.4.0
+ */
+public class ContentCacheUpdateBatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentCacheUpdateBatcher.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition full = lock.newCondition();
+
+    private final Executor executor;
+
+    private long window;
+
+    private int maxSize;
+
+    private Batch open;
+
+    /**
+     * @param executor
+     *            the executor of the (batched) updates
+     * @param window
+     *            the time in milliseconds to wait for further updates
+     * @param maxSize
+     *            the maximum number of updates in a batch
+     */
+    public ContentCacheUpdateBatcher(Executor executor, long window, int maxSize) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor may not be null");
+        }
+        this.executor = executor;
+        setWindow(window);
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * @param window
+     *            the time in milliseconds to wait for further updates,
+     *            {@code 0} disables batching
+     */
+    public void setWindow(long window) {
+        if (window < 0) {
+            throw new IllegalArgumentException("window may not be negative");
+        }
+        lock.lock();
+        try {
+            this.window = window;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param maxSize
+     *            the maximum number of updates in a batch
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize has to be greater than zero");
+        }
+        lock.lock();
+        try {
+            this.maxSize = maxSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Execute the update, possibly together with concurrently submitted
+     * updates.
+     *
+     * @param update
+     *            the partial update
+     *
+     * @throws OwsExceptionReport
+     *             if the update failed
+     */
+    public void execute(ContentCacheUpdate update) throws OwsExceptionReport {
+        final Batch batch;
+        final boolean leader;
+        final long timeout;
+        lock.lock();
+        try {
+            if (window <= 0 || maxSize <= 1) {
+                batch = null;
+                leader = false;
+                timeout = 0;
+            } else {
+                if (open == null) {
+                    open = new Batch();
+                    leader = true;
+                } else {
+                    leader = false;
+                }
+                batch = open;
+                batch.updates.add(update);
+                if (batch.updates.size() >= maxSize) {
+                    open = null;
+                    full.signalAll();
+                }
+                timeout = window;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch == null) {
+            executor.execute(update);
+        } else if (leader) {
+            awaitBatch(batch, timeout);
+            batch.execute();
+            batch.check(update);
+        } else {
+            batch.await();
+            batch.check(update);
+        }
+    }
+
+    private void awaitBatch(Batch batch, long timeout) {
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (open == batch && nanos > 0) {
+                nanos = full.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (open == batch) {
+                open = null;
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes a single or batched partial update.
+     */
+    public interface Executor {
+        void execute(ContentCacheUpdate update) throws OwsExceptionReport;
+    }
+
+    private class Batch {
+        private final List<ContentCacheUpdate> updates = Lists.newArrayList();
+
+        private final ReentrantLock batchLock = new ReentrantLock();
+
+        private final Condition done = batchLock.newCondition();
+
+        private boolean finished = false;
+
+        private BatchedCacheUpdate executed;
+
+        private OwsExceptionReport failure;
+
+        private RuntimeException error;
+
+        void execute() {
+            // the batch is closed, no further updates are added
+            final BatchedCacheUpdate batched = new BatchedCacheUpdate(updates);
+            OwsExceptionReport owsFailure = null;
+            RuntimeException runtimeError = null;
+            try {
+                LOGGER.debug("Executing {}", batched);
+                executor.execute(batched);
+            } catch (OwsExceptionReport e) {
+                owsFailure = e;
+            } catch (RuntimeException e) {
+                runtimeError = e;
+            } finally {
+                batchLock.lock();
+                try {
+                    this.executed = batched;
+                    this.failure = owsFailure;
+                    this.error = runtimeError;
+                    this.finished = true;
+                    done.signalAll();
+                } finally {
+                    batchLock.unlock();
+                }
+            }
+        }
+
+        void await() {
+            batchLock.lock();
+            try {
+                while (!finished) {
+                    done.awaitUninterruptibly();
+                }
+            } finally {
+                batchLock.unlock();
+            }
+        }
+
+        void check(ContentCacheUpdate update) throws OwsExceptionReport {
+            if (error != null) {
+                throw error;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            final OwsExceptionReport cause = executed.getFailureCause(update);
+            if (cause != null) {
+                throw cause;
+            }
+        }
+    }
+}
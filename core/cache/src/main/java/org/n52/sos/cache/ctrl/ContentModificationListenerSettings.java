@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.n52.sos.config.SettingDefinition;
+import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.BooleanSettingDefinition;
+import org.n52.sos.config.settings.ChoiceSettingDefinition;
+import org.n52.sos.config.settings.IntegerSettingDefinition;
+import org.n52.sos.event.BackpressureStrategy;
+import org.n52.sos.service.ServiceSettings;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Settings for the {@link DefaultContentModificationListener}.
+ *
+ * @since 4.4.0
+ */
+public class ContentModificationListenerSettings implements SettingDefinitionProvider {
+    public static final String ASYNCHRONOUS_CACHE_UPDATES = "service.asynchronousCacheUpdates";
+
+    public static final String CACHE_UPDATE_QUEUE_CAPACITY = "service.cacheUpdateQueueCapacity";
+
+    public static final String CACHE_UPDATE_BACKPRESSURE = "service.cacheUpdateBackpressure";
+
+    public static final BooleanSettingDefinition ASYNCHRONOUS_CACHE_UPDATES_DEFINITION =
+            new BooleanSettingDefinition()
+                    .setGroup(ServiceSettings.GROUP)
+                    .setOrder(6.3F)
+                    .setKey(ASYNCHRONOUS_CACHE_UPDATES)
+                    .setDefaultValue(false)
+                    .setTitle("Asynchronous content cache updates")
+                    .setDescription("Should the content cache be updated asynchronously after transactional "
+                            + "operations? The operations return without waiting for the cache update, so "
+                            + "the capabilities may not reflect inserted content immediately.");
+
+    public static final IntegerSettingDefinition CACHE_UPDATE_QUEUE_CAPACITY_DEFINITION =
+            new IntegerSettingDefinition()
+                    .setGroup(ServiceSettings.GROUP)
+                    .setOrder(6.31F)
+                    .setKey(CACHE_UPDATE_QUEUE_CAPACITY)
+                    .setDefaultValue(1000)
+                    .setMinimum(1)
+                    .setTitle("Asynchronous content cache update queue capacity")
+                    .setDescription("The maximum number of pending asynchronous content cache updates.");
+
+    public static final ChoiceSettingDefinition CACHE_UPDATE_BACKPRESSURE_DEFINITION =
+            createBackpressureDefinition();
+
+    private static final Set<SettingDefinition<?, ?>> DEFINITIONS = Sets.<SettingDefinition<?, ?>> newHashSet(
+            ASYNCHRONOUS_CACHE_UPDATES_DEFINITION,
+            CACHE_UPDATE_QUEUE_CAPACITY_DEFINITION,
+            CACHE_UPDATE_BACKPRESSURE_DEFINITION);
+
+    private static ChoiceSettingDefinition createBackpressureDefinition() {
+        ChoiceSettingDefinition definition = new ChoiceSettingDefinition();
+        definition.setGroup(ServiceSettings.GROUP)
+                .setOrder(6.32F)
+                .setKey(CACHE_UPDATE_BACKPRESSURE)
+                .setTitle("Asynchronous content cache update backpressure")
+                .setDescription("The behaviour if the queue of asynchronous content cache updates is full. "
+                        + "Block waits for free capacity, coalesce merges consecutive observation and result "
+                        + "insertions and waits otherwise, drop discards the update until the next complete "
+                        + "cache update.");
+        definition.addOption(BackpressureStrategy.BLOCK.name(), "Block");
+        definition.addOption(BackpressureStrategy.COALESCE.name(), "Coalesce");
+        definition.addOption(BackpressureStrategy.DROP.name(), "Drop");
+        definition.setDefaultValue(BackpressureStrategy.COALESCE.name());
+        return definition;
+    }
+
+    @Override
+    public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
+        return Collections.unmodifiableSet(DEFINITIONS);
+    }
+}
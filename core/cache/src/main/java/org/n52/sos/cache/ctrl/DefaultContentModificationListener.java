@@ -29,6 +29,7 @@
 package org.n52.sos.cache.ctrl;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -40,23 +41,35 @@ import org.n52.sos.cache.ctrl.action.ResultInsertionUpdate;
 import org.n52.sos.cache.ctrl.action.ResultTemplateInsertionUpdate;
 import org.n52.sos.cache.ctrl.action.SensorDeletionUpdate;
 import org.n52.sos.cache.ctrl.action.SensorInsertionUpdate;
+import org.n52.sos.config.SettingsManager;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.event.AsynchronousSosEventListener;
+import org.n52.sos.event.BackpressureStrategy;
 import org.n52.sos.event.SosEvent;
-import org.n52.sos.event.SosEventListener;
 import org.n52.sos.event.events.ObservationInsertion;
 import org.n52.sos.event.events.ResultInsertion;
 import org.n52.sos.event.events.ResultTemplateInsertion;
 import org.n52.sos.event.events.SensorDeletion;
 import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.ogc.om.OmObservation;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.request.InsertObservationRequest;
+import org.n52.sos.response.InsertResultResponse;
 import org.n52.sos.service.Configurator;
+import org.n52.sos.util.Validation;
 
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 /**
  * @author Christian Autermann <c.autermann@52north.org>
  * @since 4.0.0
  */
-public class DefaultContentModificationListener implements SosEventListener {
+@Configurable
+public class DefaultContentModificationListener implements AsynchronousSosEventListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultContentModificationListener.class);
 
     @SuppressWarnings("unchecked")
@@ -64,11 +77,126 @@ public class DefaultContentModificationListener implements SosEventListener {
             SensorInsertion.class, ObservationInsertion.class, ResultTemplateInsertion.class, SensorDeletion.class,
             ResultInsertion.class);
 
+    private boolean asynchronous = ContentModificationListenerSettings.ASYNCHRONOUS_CACHE_UPDATES_DEFINITION
+            .getDefaultValue();
+
+    private int queueCapacity = ContentModificationListenerSettings.CACHE_UPDATE_QUEUE_CAPACITY_DEFINITION
+            .getDefaultValue();
+
+    private BackpressureStrategy backpressureStrategy = BackpressureStrategy
+            .valueOf(ContentModificationListenerSettings.CACHE_UPDATE_BACKPRESSURE_DEFINITION.getDefaultValue());
+
+    private volatile boolean configured = false;
+
     @Override
     public Set<Class<? extends SosEvent>> getTypes() {
         return Collections.unmodifiableSet(TYPES);
     }
 
+    @Setting(ContentModificationListenerSettings.ASYNCHRONOUS_CACHE_UPDATES)
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    @Setting(ContentModificationListenerSettings.CACHE_UPDATE_QUEUE_CAPACITY)
+    public void setQueueCapacity(int queueCapacity) {
+        Validation.greaterZero("Asynchronous content cache update queue capacity", queueCapacity);
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Setting(ContentModificationListenerSettings.CACHE_UPDATE_BACKPRESSURE)
+    public void setBackpressureStrategy(String backpressureStrategy) {
+        Validation.notNullOrEmpty("Asynchronous content cache update backpressure", backpressureStrategy);
+        try {
+            this.backpressureStrategy = BackpressureStrategy.valueOf(backpressureStrategy);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(String.format("Unsupported backpressure strategy: %s",
+                    backpressureStrategy), e);
+        }
+    }
+
+    @Override
+    public boolean isAsynchronous() {
+        configure();
+        return asynchronous;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        configure();
+        return queueCapacity;
+    }
+
+    @Override
+    public BackpressureStrategy getBackpressureStrategy() {
+        configure();
+        return backpressureStrategy;
+    }
+
+    /**
+     * The listener is instantiated by the {@link org.n52.sos.event.SosEventBus}
+     * before the settings are available, so it is configured on first use.
+     */
+    private void configure() {
+        if (!configured) {
+            synchronized (this) {
+                if (!configured) {
+                    try {
+                        SettingsManager.getInstance().configure(this);
+                    } catch (ConfigurationException e) {
+                        LOGGER.warn("Could not configure content modification listener, using defaults", e);
+                    }
+                    configured = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public SosEvent coalesce(SosEvent queued, SosEvent event) {
+        if (queued instanceof ObservationInsertion && event instanceof ObservationInsertion) {
+            return coalesce((ObservationInsertion) queued, (ObservationInsertion) event);
+        } else if (queued instanceof ResultInsertion && event instanceof ResultInsertion) {
+            return coalesce((ResultInsertion) queued, (ResultInsertion) event);
+        }
+        return null;
+    }
+
+    private SosEvent coalesce(ObservationInsertion queued, ObservationInsertion event) {
+        InsertObservationRequest first = queued.getRequest();
+        InsertObservationRequest second = event.getRequest();
+        if (first.getOfferings() == null || second.getOfferings() == null
+                || !Sets.newHashSet(first.getOfferings()).equals(Sets.newHashSet(second.getOfferings()))) {
+            return null;
+        }
+        InsertObservationRequest merged = new InsertObservationRequest();
+        merged.setService(first.getService());
+        merged.setVersion(first.getVersion());
+        merged.setOfferings(first.getOfferings());
+        List<OmObservation> observations = Lists.newArrayList(first.getObservations());
+        observations.addAll(second.getObservations());
+        try {
+            merged.setObservation(observations);
+        } catch (OwsExceptionReport ex) {
+            LOGGER.debug("Could not coalesce observation insertions", ex);
+            return null;
+        }
+        return new ObservationInsertion(merged, queued.getResponse());
+    }
+
+    private SosEvent coalesce(ResultInsertion queued, ResultInsertion event) {
+        if (!Objects.equal(queued.getRequest().getTemplateIdentifier(), event.getRequest().getTemplateIdentifier())) {
+            return null;
+        }
+        InsertResultResponse merged = new InsertResultResponse();
+        merged.setService(queued.getResponse().getService());
+        merged.setVersion(queued.getResponse().getVersion());
+        List<OmObservation> observations = Lists.newArrayList(queued.getResponse().getObservations());
+        observations.addAll(event.getResponse().getObservations());
+        merged.setObservations(observations);
+        return new ResultInsertion(queued.getRequest(), merged);
+    }
+
     @Override
     public void handle(SosEvent event) {
         if (event instanceof SensorInsertion) {
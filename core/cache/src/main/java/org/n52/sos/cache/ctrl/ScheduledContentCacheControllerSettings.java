@@ -33,9 +33,12 @@ import java.util.Set;
 
 import org.n52.sos.config.SettingDefinition;
 import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.ChoiceSettingDefinition;
 import org.n52.sos.config.settings.IntegerSettingDefinition;
 import org.n52.sos.service.ServiceSettings;
 
+import com.google.common.collect.Sets;
+
 /**
  * Settings for the {@link AbstractSchedulingContentCacheController}.
  * 
@@ -46,6 +49,24 @@ import org.n52.sos.service.ServiceSettings;
 public class ScheduledContentCacheControllerSettings implements SettingDefinitionProvider {
     public static final String CAPABILITIES_CACHE_UPDATE_INTERVAL = "service.capabilitiesCacheUpdateInterval";
 
+    public static final String CAPABILITIES_CACHE_UPDATE_MODE = "service.capabilitiesCacheUpdateMode";
+
+    public static final String CAPABILITIES_CACHE_MAX_DELTA_UPDATES = "service.capabilitiesCacheMaxDeltaUpdates";
+
+    public static final String CAPABILITIES_CACHE_UPDATE_BATCH_WINDOW = "service.capabilitiesCacheUpdateBatchWindow";
+
+    public static final String CAPABILITIES_CACHE_UPDATE_BATCH_SIZE = "service.capabilitiesCacheUpdateBatchSize";
+
+    /**
+     * Value selecting scheduled complete cache updates.
+     */
+    public static final String COMPLETE = "complete";
+
+    /**
+     * Value selecting scheduled incremental cache updates.
+     */
+    public static final String DELTA = "delta";
+
     public static final IntegerSettingDefinition CACHE_UPDATE_INTERVAL_DEFINITION = new IntegerSettingDefinition()
             .setGroup(ServiceSettings.GROUP)
             .setOrder(6)
@@ -58,8 +79,68 @@ public class ScheduledContentCacheControllerSettings implements SettingDefinitio
                             + "your database is externally modified frequently. Set to 0 to disable scheduled "
                             + "cache updates.");
 
+    public static final ChoiceSettingDefinition CACHE_UPDATE_MODE_DEFINITION = createUpdateModeDefinition();
+
+    public static final IntegerSettingDefinition CACHE_MAX_DELTA_UPDATES_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(6.06F)
+            .setKey(CAPABILITIES_CACHE_MAX_DELTA_UPDATES)
+            .setDefaultValue(24)
+            .setMinimum(0)
+            .setTitle("Maximum consecutive delta cache updates")
+            .setDescription(
+                    "The number of scheduled delta updates after which a complete cache update is executed, "
+                            + "to pick up changes that are not tracked incrementally. Set to 0 to execute "
+                            + "complete updates only if a delta can not be applied.");
+
+    public static final IntegerSettingDefinition CACHE_UPDATE_BATCH_WINDOW_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(6.07F)
+            .setKey(CAPABILITIES_CACHE_UPDATE_BATCH_WINDOW)
+            .setDefaultValue(0)
+            .setMinimum(0)
+            .setTitle("Content cache update batch window")
+            .setDescription(
+                    "The time in milliseconds to collect concurrent content cache updates of transactional "
+                            + "requests before applying and persisting them at once. Requests wait up to this "
+                            + "time for the cache update. Set to 0 to apply every update immediately.");
+
+    public static final IntegerSettingDefinition CACHE_UPDATE_BATCH_SIZE_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(6.08F)
+            .setKey(CAPABILITIES_CACHE_UPDATE_BATCH_SIZE)
+            .setDefaultValue(100)
+            .setMinimum(1)
+            .setTitle("Content cache update batch size")
+            .setDescription(
+                    "The maximum number of content cache updates that are applied at once. A batch is applied "
+                            + "as soon as it is full, even if the batch window did not elapse.");
+
+    private static final Set<SettingDefinition<?, ?>> DEFINITIONS = Sets.<SettingDefinition<?, ?>> newHashSet(
+            CACHE_UPDATE_INTERVAL_DEFINITION,
+            CACHE_UPDATE_MODE_DEFINITION,
+            CACHE_MAX_DELTA_UPDATES_DEFINITION,
+            CACHE_UPDATE_BATCH_WINDOW_DEFINITION,
+            CACHE_UPDATE_BATCH_SIZE_DEFINITION);
+
+    private static ChoiceSettingDefinition createUpdateModeDefinition() {
+        ChoiceSettingDefinition definition = new ChoiceSettingDefinition();
+        definition.setGroup(ServiceSettings.GROUP)
+                .setOrder(6.05F)
+                .setKey(CAPABILITIES_CACHE_UPDATE_MODE)
+                .setTitle("Content cache update mode")
+                .setDescription("The kind of scheduled content cache update. A complete update rebuilds the "
+                        + "whole cache from the datasource. A delta update only refreshes the offerings and "
+                        + "procedures of series that changed since the last update and falls back to a complete "
+                        + "update if entities were removed or the datasource does not support it.");
+        definition.addOption(COMPLETE, "Complete update");
+        definition.addOption(DELTA, "Delta update");
+        definition.setDefaultValue(COMPLETE);
+        return definition;
+    }
+
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
-        return Collections.<SettingDefinition<?, ?>> singleton(CACHE_UPDATE_INTERVAL_DEFINITION);
+        return Collections.unmodifiableSet(DEFINITIONS);
     }
 }
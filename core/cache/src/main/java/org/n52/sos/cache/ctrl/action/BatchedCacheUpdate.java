@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.action;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.sos.cache.ContentCacheUpdate;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.request.InsertObservationRequest;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Executes several partial cache updates as a single update. Consecutive
+ * {@link ObservationInsertionUpdate}s and consecutive
+ * {@link ResultInsertionUpdate}s of the same result template are merged, so
+ * that the bounding boxes of the cache are extended only once for all of them.
+ * <p/>
+ * The failure of a single update does not fail the batch; use
+ * {@link #getFailureCause(ContentCacheUpdate)} to check the outcome of every
+ * batched update.
+ *
+ * @since 4.4.0
+ */
+public class BatchedCacheUpdate extends ContentCacheUpdate {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchedCacheUpdate.class);
+
+    private final List<ContentCacheUpdate> updates;
+
+    private final Map<ContentCacheUpdate, ContentCacheUpdate> executedBy =
+            new IdentityHashMap<ContentCacheUpdate, ContentCacheUpdate>();
+
+    private final int size;
+
+    public BatchedCacheUpdate(List<? extends ContentCacheUpdate> updates) {
+        if (updates == null) {
+            throw new IllegalArgumentException("updates may not be null");
+        }
+        for (ContentCacheUpdate update : updates) {
+            if (update == null || update.isCompleteUpdate()) {
+                throw new IllegalArgumentException(String.format("Can not batch update %s", update));
+            }
+        }
+        this.size = updates.size();
+        this.updates = merge(updates);
+    }
+
+    private List<ContentCacheUpdate> merge(List<? extends ContentCacheUpdate> toMerge) {
+        final List<ContentCacheUpdate> merged = Lists.newArrayListWithCapacity(toMerge.size());
+        int i = 0;
+        while (i < toMerge.size()) {
+            final ContentCacheUpdate update = toMerge.get(i);
+            int j = i + 1;
+            while (j < toMerge.size() && isMergeable(update, toMerge.get(j))) {
+                ++j;
+            }
+            final ContentCacheUpdate executed;
+            if (j - i > 1) {
+                executed = merge(update, toMerge.subList(i, j));
+            } else {
+                executed = update;
+            }
+            for (ContentCacheUpdate u : toMerge.subList(i, j)) {
+                executedBy.put(u, executed);
+            }
+            merged.add(executed);
+            i = j;
+        }
+        return merged;
+    }
+
+    private boolean isMergeable(ContentCacheUpdate first, ContentCacheUpdate update) {
+        if (first instanceof ObservationInsertionUpdate) {
+            return update instanceof ObservationInsertionUpdate;
+        } else if (first instanceof ResultInsertionUpdate && update instanceof ResultInsertionUpdate) {
+            return ((ResultInsertionUpdate) first).getTemplateIdentifier().equals(
+                    ((ResultInsertionUpdate) update).getTemplateIdentifier());
+        }
+        return false;
+    }
+
+    private ContentCacheUpdate merge(ContentCacheUpdate first, List<? extends ContentCacheUpdate> run) {
+        if (first instanceof ObservationInsertionUpdate) {
+            final List<InsertObservationRequest> requests = Lists.newArrayList();
+            for (ContentCacheUpdate update : run) {
+                requests.addAll(((ObservationInsertionUpdate) update).getRequests());
+            }
+            return new ObservationInsertionUpdate(requests);
+        } else {
+            final List<OmObservation> observations = Lists.newArrayList();
+            for (ContentCacheUpdate update : run) {
+                observations.addAll(((ResultInsertionUpdate) update).getObservations());
+            }
+            return new ResultInsertionUpdate(((ResultInsertionUpdate) first).getTemplateIdentifier(), observations);
+        }
+    }
+
+    @Override
+    public void execute() {
+        for (ContentCacheUpdate update : updates) {
+            update.reset();
+            update.setCache(getCache());
+            update.execute();
+            if (update.failed()) {
+                LOGGER.warn(String.format("Batched update %s failed", update), update.getFailureCause());
+            }
+        }
+    }
+
+    @Override
+    public ContentCacheUpdate reset() {
+        for (ContentCacheUpdate update : updates) {
+            update.reset();
+        }
+        return super.reset();
+    }
+
+    /**
+     * @param update
+     *            one of the batched updates
+     *
+     * @return the cause of failure of the update or {@code null}
+     */
+    public OwsExceptionReport getFailureCause(ContentCacheUpdate update) {
+        final ContentCacheUpdate executed = executedBy.get(update);
+        return executed == null ? null : executed.getFailureCause();
+    }
+
+    /**
+     * @return the number of batched updates
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of updates that are executed after merging
+     */
+    public int getMergedSize() {
+        return updates.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [updates=%d, merged=%d]", getClass().getSimpleName(), size(), getMergedSize());
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.action;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.n52.sos.cache.WritableContentCache;
+import org.n52.sos.ogc.gml.time.Time;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+
+import com.google.common.collect.Maps;
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Collects the temporal and spatial extents touched by an insertion update, so
+ * that every bounding box of the cache is extended only once per update
+ * instead of once per observation.
+ *
+ * @since 4.4.0
+ */
+class CacheExtents {
+    private final TimePeriod phenomenonTime = new TimePeriod();
+
+    private final TimePeriod resultTime = new TimePeriod();
+
+    private Envelope globalEnvelope;
+
+    private final Map<String, TimePeriod> phenomenonTimeForProcedures = Maps.newHashMap();
+
+    private final Map<String, TimePeriod> phenomenonTimeForOfferings = Maps.newHashMap();
+
+    private final Map<String, TimePeriod> resultTimeForOfferings = Maps.newHashMap();
+
+    private final Map<String, Envelope> envelopeForOfferings = Maps.newHashMap();
+
+    private final Map<String, Envelope> spatialFilteringProfileEnvelopeForOfferings = Maps.newHashMap();
+
+    void updatePhenomenonTime(Time time) {
+        phenomenonTime.extendToContain(time);
+    }
+
+    void updateResultTime(Time time) {
+        resultTime.extendToContain(time);
+    }
+
+    void updatePhenomenonTimeForProcedure(String procedure, Time time) {
+        extend(phenomenonTimeForProcedures, procedure, time);
+    }
+
+    void updatePhenomenonTimeForOffering(String offering, Time time) {
+        extend(phenomenonTimeForOfferings, offering, time);
+    }
+
+    void updateResultTimeForOffering(String offering, Time time) {
+        extend(resultTimeForOfferings, offering, time);
+    }
+
+    void updateGlobalEnvelope(Envelope envelope) {
+        if (globalEnvelope == null) {
+            globalEnvelope = new Envelope();
+        }
+        globalEnvelope.expandToInclude(envelope);
+    }
+
+    void updateEnvelopeForOffering(String offering, Envelope envelope) {
+        extend(envelopeForOfferings, offering, envelope);
+    }
+
+    void updateSpatialFilteringProfileEnvelopeForOffering(String offering, Envelope envelope) {
+        extend(spatialFilteringProfileEnvelopeForOfferings, offering, envelope);
+    }
+
+    /**
+     * Extend the bounding boxes of the cache by the collected extents.
+     *
+     * @param cache
+     *            the cache to update
+     */
+    void apply(WritableContentCache cache) {
+        if (phenomenonTime.isSetStart()) {
+            cache.updatePhenomenonTime(phenomenonTime);
+        }
+        if (resultTime.isSetStart()) {
+            cache.updateResultTime(resultTime);
+        }
+        if (globalEnvelope != null) {
+            cache.updateGlobalEnvelope(globalEnvelope);
+        }
+        for (Entry<String, TimePeriod> e : phenomenonTimeForProcedures.entrySet()) {
+            cache.updatePhenomenonTimeForProcedure(e.getKey(), e.getValue());
+        }
+        for (Entry<String, TimePeriod> e : phenomenonTimeForOfferings.entrySet()) {
+            cache.updatePhenomenonTimeForOffering(e.getKey(), e.getValue());
+        }
+        for (Entry<String, TimePeriod> e : resultTimeForOfferings.entrySet()) {
+            cache.updateResultTimeForOffering(e.getKey(), e.getValue());
+        }
+        for (Entry<String, Envelope> e : envelopeForOfferings.entrySet()) {
+            cache.updateEnvelopeForOffering(e.getKey(), e.getValue());
+        }
+        for (Entry<String, Envelope> e : spatialFilteringProfileEnvelopeForOfferings.entrySet()) {
+            cache.updateSpatialFilteringProfileEnvelopeForOffering(e.getKey(), e.getValue());
+        }
+    }
+
+    private static void extend(Map<String, TimePeriod> map, String key, Time time) {
+        if (time == null) {
+            return;
+        }
+        TimePeriod period = map.get(key);
+        if (period == null) {
+            period = new TimePeriod();
+        }
+        period.extendToContain(time);
+        if (period.isSetStart()) {
+            map.put(key, period);
+        }
+    }
+
+    private static void extend(Map<String, Envelope> map, String key, Envelope envelope) {
+        Envelope extent = map.get(key);
+        if (extent == null) {
+            extent = new Envelope();
+            map.put(key, extent);
+        }
+        extent.expandToInclude(envelope);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.action;
+
+import org.n52.sos.cache.ContentCacheDelta;
+import org.n52.sos.cache.ContentCacheUpdate;
+import org.n52.sos.ds.CacheFeederDAO;
+import org.n52.sos.ds.IncrementalCacheFeederDAO;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+/**
+ * Applies the changes of the datasource since the last update to the live
+ * cache, if the {@link CacheFeederDAO} is an
+ * {@link IncrementalCacheFeederDAO}. Check {@link #getDelta()} afterwards to
+ * see if a complete update is required instead.
+ *
+ * @since 4.4.0
+ */
+public class DeltaCacheUpdate extends CacheFeederDAOCacheUpdate {
+    private ContentCacheDelta delta;
+
+    @Override
+    public void execute() {
+        try {
+            CacheFeederDAO dao = getDao();
+            if (dao instanceof IncrementalCacheFeederDAO) {
+                this.delta = ((IncrementalCacheFeederDAO) dao).updateCacheIncrementally(getCache());
+            } else {
+                this.delta = ContentCacheDelta.completeUpdateRequired(
+                        String.format("%s does not support incremental updates", dao.getClass().getSimpleName()));
+            }
+        } catch (OwsExceptionReport ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * @return the applied delta or {@code null} if the update failed
+     */
+    public ContentCacheDelta getDelta() {
+        return delta;
+    }
+
+    @Override
+    public ContentCacheUpdate reset() {
+        this.delta = null;
+        return super.reset();
+    }
+}
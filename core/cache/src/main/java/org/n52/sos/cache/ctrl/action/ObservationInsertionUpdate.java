@@ -30,6 +30,7 @@ package org.n52.sos.cache.ctrl.action;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.n52.sos.cache.WritableContentCache;
@@ -78,17 +79,49 @@ import com.vividsolutions.jts.geom.Geometry;
  */
 public class ObservationInsertionUpdate extends InMemoryCacheUpdate {
 
-    private final InsertObservationRequest request;
+    private final List<InsertObservationRequest> requests;
 
     public ObservationInsertionUpdate(InsertObservationRequest request) {
         checkArgument(request != null, "Missing argument: '%s': %s",
                       InsertObservationRequest.class.getName(), request);
-        this.request = request;
+        this.requests = Collections.singletonList(request);
+    }
+
+    /**
+     * Creates an update for several requests. The bounding boxes of the cache
+     * are extended once for all observations of the requests.
+     *
+     * @param requests
+     *            the requests
+     *
+     * @since 4.4.0
+     */
+    public ObservationInsertionUpdate(List<InsertObservationRequest> requests) {
+        checkArgument(requests != null && !requests.isEmpty() && !requests.contains(null),
+                      "Missing argument: '%s': %s", InsertObservationRequest.class.getName(), requests);
+        this.requests = requests;
+    }
+
+    /**
+     * @return the requests of this update
+     *
+     * @since 4.4.0
+     */
+    public List<InsertObservationRequest> getRequests() {
+        return Collections.unmodifiableList(requests);
     }
 
     @Override
     public void execute() {
         final WritableContentCache cache = getCache();
+        final CacheExtents extents = new CacheExtents();
+        for (InsertObservationRequest request : requests) {
+            execute(cache, extents, request);
+        }
+        extents.apply(cache);
+    }
+
+    private void execute(WritableContentCache cache, CacheExtents extents, InsertObservationRequest request) {
         // TODO Review required methods and update test accordingly (@see
         // SensorInsertionInMemoryCacheUpdate)
         // Always update the javadoc when changing this method!
@@ -99,16 +132,16 @@ public class ObservationInsertionUpdate extends InMemoryCacheUpdate {
             final Time phenomenonTime = observation.getPhenomenonTime();
             final Time resultTime = observation.getResultTime();
 
-            cache.updatePhenomenonTime(phenomenonTime);
-            cache.updateResultTime(resultTime);
-            cache.updatePhenomenonTimeForProcedure(procedure, phenomenonTime);
+            extents.updatePhenomenonTime(phenomenonTime);
+            extents.updateResultTime(resultTime);
+            extents.updatePhenomenonTimeForProcedure(procedure, phenomenonTime);
 
             // update features
             List<SamplingFeature> observedFeatures =
                     sosFeaturesToList(observation.getObservationConstellation().getFeatureOfInterest());
 
             final Envelope envelope = createEnvelopeFrom(observedFeatures);
-            cache.updateGlobalEnvelope(envelope);
+            extents.updateGlobalEnvelope(envelope);
 
             for (SamplingFeature sosSamplingFeature : observedFeatures) {
                 String featureOfInterest = sosSamplingFeature.getIdentifierCodeWithAuthority().getValue();
@@ -140,8 +173,6 @@ public class ObservationInsertionUpdate extends InMemoryCacheUpdate {
                     if (Sos2Constants.HREF_PARAMETER_SPATIAL_FILTERING_PROFILE.equals(namedValue.getName().getHref())) {
                         if (namedValue.getValue().isSetValue()) {
                             spatialFitleringProfileEnvelope.expandToInclude(((Geometry) namedValue.getValue().getValue()).getEnvelopeInternal());
-                            spatialFitleringProfileEnvelope.expandToInclude(((Geometry) namedValue.getValue()
-                                    .getValue()).getEnvelopeInternal());
                         }
                     }
                 }
@@ -158,19 +189,20 @@ public class ObservationInsertionUpdate extends InMemoryCacheUpdate {
                 // observation type
                 cache.addObservationTypesForOffering(offering, observationType);
                 // envelopes/bounding boxes (spatial and temporal)
-                cache.updatePhenomenonTimeForOffering(offering, phenomenonTime);
-                cache.updateResultTimeForOffering(offering, resultTime);
-                cache.updateEnvelopeForOffering(offering, envelope);
+                extents.updatePhenomenonTimeForOffering(offering, phenomenonTime);
+                extents.updateResultTimeForOffering(offering, resultTime);
+                extents.updateEnvelopeForOffering(offering, envelope);
                 if (!envelope.isNull()) {
-                    cache.updateSpatialFilteringProfileEnvelopeForOffering(offering, spatialFitleringProfileEnvelope);
+                    extents.updateSpatialFilteringProfileEnvelopeForOffering(offering, spatialFitleringProfileEnvelope);
                 }
             }
 
-            updateObservableProperties(cache, observableProperty, procedure);
+            updateObservableProperties(cache, request, observableProperty, procedure);
         }
     }
 
     private void updateObservableProperties(WritableContentCache cache,
+                                            InsertObservationRequest request,
                                             AbstractPhenomenon observableProperty,
                                             String procedure) {
         // procedure <-> observable property
@@ -28,6 +28,7 @@
  */
 package org.n52.sos.cache.ctrl.action;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -86,10 +87,29 @@ public class ResultInsertionUpdate extends InMemoryCacheUpdate {
         this.templateIdentifier = templateIdentifier;
     }
 
+    /**
+     * @return the identifier of the result template
+     *
+     * @since 4.4.0
+     */
+    public String getTemplateIdentifier() {
+        return templateIdentifier;
+    }
+
+    /**
+     * @return the inserted observations
+     *
+     * @since 4.4.0
+     */
+    public List<OmObservation> getObservations() {
+        return Collections.unmodifiableList(observations);
+    }
+
     @Override
     public void execute() {
         // TODO remove not required updates and adjust test accordingly
         final WritableContentCache cache = getCache();
+        final CacheExtents extents = new CacheExtents();
         for (OmObservation observation : observations) {
             final String observationType = observation.getObservationConstellation().getObservationType();
             final String procedure = observation.getObservationConstellation().getProcedure().getIdentifier();
@@ -97,11 +117,11 @@ public class ResultInsertionUpdate extends InMemoryCacheUpdate {
             final Time phenomenonTime = observation.getPhenomenonTime();
             final Time resultTime = observation.getResultTime();
     
-            cache.updatePhenomenonTime(phenomenonTime);
-            cache.updateResultTime(resultTime);
+            extents.updatePhenomenonTime(phenomenonTime);
+            extents.updateResultTime(resultTime);
     
             cache.addProcedure(procedure);
-            cache.updatePhenomenonTimeForProcedure(procedure, phenomenonTime);
+            extents.updatePhenomenonTimeForProcedure(procedure, phenomenonTime);
     
             cache.addProcedureForObservableProperty(observableProperty, procedure);
             cache.addObservablePropertyForResultTemplate(templateIdentifier, observableProperty);
@@ -112,7 +132,7 @@ public class ResultInsertionUpdate extends InMemoryCacheUpdate {
     
             final Envelope envelope = createEnvelopeFrom(observedFeatures);
     
-            cache.updateGlobalEnvelope(envelope);
+            extents.updateGlobalEnvelope(envelope);
     
             for (SamplingFeature sosSamplingFeature : observedFeatures) {
                 final String featureOfInterest = sosSamplingFeature.getIdentifierCodeWithAuthority().getValue();
@@ -129,9 +149,9 @@ public class ResultInsertionUpdate extends InMemoryCacheUpdate {
                     cache.addProcedureForOffering(offering, procedure);
                 }
                 cache.addOfferingForProcedure(procedure, offering);
-                cache.updateEnvelopeForOffering(offering, envelope);
-                cache.updatePhenomenonTimeForOffering(offering, phenomenonTime);
-                cache.updateResultTimeForOffering(offering, resultTime);
+                extents.updateEnvelopeForOffering(offering, envelope);
+                extents.updatePhenomenonTimeForOffering(offering, phenomenonTime);
+                extents.updateResultTimeForOffering(offering, resultTime);
                 // observable property
                 cache.addOfferingForObservableProperty(observableProperty, offering);
                 cache.addObservablePropertyForOffering(offering, observableProperty);
@@ -139,5 +159,6 @@ public class ResultInsertionUpdate extends InMemoryCacheUpdate {
                 cache.addObservationTypesForOffering(offering, observationType);
             }
         }
+        extents.apply(cache);
     }
 }
@@ -52,7 +52,7 @@ public abstract class AbstractPersistingCachePersistenceStrategy
         implements ContentCachePersistenceStrategy {
     private static final Logger LOGGER = LoggerFactory
             .getLogger(AbstractPersistingCachePersistenceStrategy.class);
-    private static final String CACHE_FILE = "cache.tmp";
+    protected static final String CACHE_FILE = "cache.tmp";
     private final String cacheFile;
 
     public AbstractPersistingCachePersistenceStrategy() {
@@ -60,9 +60,19 @@ public abstract class AbstractPersistingCachePersistenceStrategy
     }
 
     public AbstractPersistingCachePersistenceStrategy(File cacheFile) {
+        this(cacheFile, CACHE_FILE);
+    }
+
+    /**
+     * @param cacheFile
+     *            the cache file or {@code null} to use the default file
+     * @param defaultFileName
+     *            the name of the default file in the cache file folder
+     */
+    protected AbstractPersistingCachePersistenceStrategy(File cacheFile, String defaultFileName) {
         if (cacheFile == null) {
             String basePath = getBasePath();
-            this.cacheFile = new File(basePath, CACHE_FILE).getAbsolutePath();
+            this.cacheFile = new File(basePath, defaultFileName).getAbsolutePath();
         } else {
             this.cacheFile = cacheFile.getAbsolutePath();
         }
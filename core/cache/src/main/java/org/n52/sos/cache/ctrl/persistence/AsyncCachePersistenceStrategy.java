@@ -67,7 +67,11 @@ public class AsyncCachePersistenceStrategy
     }
 
     public AsyncCachePersistenceStrategy(File cacheFile) {
-        super(cacheFile);
+        this(cacheFile, CACHE_FILE);
+    }
+
+    protected AsyncCachePersistenceStrategy(File cacheFile, String defaultFileName) {
+        super(cacheFile, defaultFileName);
         updater = new Updater();
         this.executor.schedule(updater, writeDelay, WRITE_DELAY_UNITS);
     }
@@ -0,0 +1,482 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.sos.i18n.LocalizedString;
+import org.n52.sos.i18n.MultilingualString;
+import org.n52.sos.ogc.sos.SosEnvelope;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Reads and writes {@link CacheImage}s in a compact, versioned binary format.
+ * <p>
+ * The file starts with a magic number and the format version, followed by
+ * frames. The first frame contains the complete image, every following frame
+ * the changes of a delta appended after a partial update. Each frame consists
+ * of the frame type, the payload length, the payload and a trailer; a frame
+ * that was not completely written is ignored when reading. The payload starts
+ * with the strings that were added to the string dictionary of the file,
+ * followed by records referencing the strings by their index:
+ *
+ * <pre>
+ * record := property:int key:int kind:byte value
+ * </pre>
+ *
+ * Complete images are written to a temporary file that is atomically renamed,
+ * deltas are appended to the existing file. Files are read through a memory
+ * map.
+ *
+ * @since 4.4.0
+ */
+class BinaryCacheFile {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryCacheFile.class);
+
+    private static final int MAGIC = 0x534F5343;
+
+    private static final short VERSION = 1;
+
+    private static final int HEADER_LENGTH = 6;
+
+    private static final int TRAILER = 0x454E4446;
+
+    private static final byte FULL = 1;
+
+    private static final byte DELTA = 2;
+
+    private static final byte REMOVED = 0;
+
+    private static final byte STRINGS = 1;
+
+    private static final byte STRING = 2;
+
+    private static final byte TIME = 3;
+
+    private static final byte ENVELOPE = 4;
+
+    private static final byte I18N = 5;
+
+    private static final byte INTEGERS = 6;
+
+    private static final byte INTEGER = 7;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    private long length;
+
+    private int fullRecords;
+
+    private int deltaRecords;
+
+    BinaryCacheFile(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return this.file;
+    }
+
+    /**
+     * @return the number of records of the complete image
+     */
+    int getFullRecords() {
+        return this.fullRecords;
+    }
+
+    /**
+     * @return the number of records appended as deltas since the complete
+     *         image was written
+     */
+    int getDeltaRecords() {
+        return this.deltaRecords;
+    }
+
+    /**
+     * Reads the image stored in the file, replaying all deltas.
+     *
+     * @return the image
+     *
+     * @throws IOException
+     *             if the file can not be read or has an unsupported format
+     */
+    CacheImage read() throws IOException {
+        reset();
+        CacheImage image = new CacheImage();
+        List<String> strings = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC) {
+                throw new IOException(String.format("'%s' is not a cache file", this.file));
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported cache file version %d", version));
+            }
+            this.length = buffer.position();
+            while (buffer.remaining() > 0) {
+                if (buffer.remaining() < 5) {
+                    LOGGER.warn("Ignoring incomplete frame at the end of cache file '{}'", this.file);
+                    break;
+                }
+                byte type = buffer.get();
+                int payload = buffer.getInt();
+                if (payload < 0 || buffer.remaining() < payload + 4
+                        || buffer.getInt(buffer.position() + payload) != TRAILER) {
+                    LOGGER.warn("Ignoring incomplete frame at the end of cache file '{}'", this.file);
+                    break;
+                }
+                int end = buffer.position() + payload;
+                int records = readFrame(buffer, strings, image);
+                if (buffer.position() != end) {
+                    throw new IOException(String.format("Corrupt frame in cache file '%s'", this.file));
+                }
+                buffer.getInt();
+                if (type == FULL) {
+                    this.fullRecords = records;
+                } else {
+                    this.deltaRecords += records;
+                }
+                this.length = buffer.position();
+            }
+        }
+        for (int i = 0; i < strings.size(); ++i) {
+            this.dictionary.put(strings.get(i), i);
+        }
+        return image;
+    }
+
+    /**
+     * Replaces the file with the specified image.
+     *
+     * @param image
+     *            the image
+     *
+     * @throws IOException
+     *             if the file can not be written
+     */
+    void write(CacheImage image) throws IOException {
+        reset();
+        Path temp = path().resolveSibling(this.file.getName() + ".new");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            this.fullRecords = writeFrame(out, FULL, image.getProperties());
+            out.flush();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                write(channel, bytes);
+            }
+            try {
+                Files.move(temp, path(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            this.length = bytes.size();
+        } catch (IOException e) {
+            reset();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the specified changes to the file. The file has to be read or
+     * written before.
+     *
+     * @param delta
+     *            the changes, mapping removed keys to {@code null}
+     *
+     * @throws IOException
+     *             if the file can not be written
+     */
+    void append(Map<String, Map<String, Object>> delta) throws IOException {
+        if (this.length == 0) {
+            throw new IOException("No complete image was written");
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int records = writeFrame(out, DELTA, delta);
+            out.flush();
+            try (FileChannel channel = FileChannel.open(path(), StandardOpenOption.WRITE)) {
+                // discard an incomplete frame of a previous write
+                channel.truncate(this.length);
+                channel.position(this.length);
+                write(channel, bytes);
+            }
+            this.length += bytes.size();
+            this.deltaRecords += records;
+        } catch (IOException e) {
+            reset();
+            throw e;
+        }
+    }
+
+    private void reset() {
+        this.dictionary.clear();
+        this.length = 0;
+        this.fullRecords = 0;
+        this.deltaRecords = 0;
+    }
+
+    private Path path() {
+        return this.file.toPath();
+    }
+
+    private static void write(FileChannel channel, ByteArrayOutputStream bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    private int writeFrame(DataOutputStream out, byte type, Map<String, Map<String, Object>> properties)
+            throws IOException {
+        List<String> strings = new ArrayList<>();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int count = 0;
+        for (Entry<String, Map<String, Object>> property : properties.entrySet()) {
+            for (Entry<String, Object> value : property.getValue().entrySet()) {
+                records.writeInt(id(property.getKey(), strings));
+                records.writeInt(id(value.getKey(), strings));
+                writeValue(records, value.getValue(), strings);
+                ++count;
+            }
+        }
+        records.flush();
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream dictionary = new DataOutputStream(stringBytes);
+        dictionary.writeInt(strings.size());
+        for (String string : strings) {
+            byte[] encoded = string.getBytes(UTF8);
+            dictionary.writeInt(encoded.length);
+            dictionary.write(encoded);
+        }
+        dictionary.writeInt(count);
+        dictionary.flush();
+        out.writeByte(type);
+        out.writeInt(stringBytes.size() + recordBytes.size());
+        stringBytes.writeTo(out);
+        recordBytes.writeTo(out);
+        out.writeInt(TRAILER);
+        return count;
+    }
+
+    private int id(String string, List<String> strings) {
+        Integer id = this.dictionary.get(string);
+        if (id == null) {
+            id = this.dictionary.size();
+            this.dictionary.put(string, id);
+            strings.add(string);
+        }
+        return id;
+    }
+
+    private void writeValue(DataOutputStream out, Object value, List<String> strings) throws IOException {
+        if (value == null) {
+            out.writeByte(REMOVED);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            out.writeInt(id((String) value, strings));
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof DateTime) {
+            out.writeByte(TIME);
+            out.writeLong(((DateTime) value).getMillis());
+        } else if (value instanceof SosEnvelope) {
+            out.writeByte(ENVELOPE);
+            writeEnvelope(out, (SosEnvelope) value);
+        } else if (value instanceof MultilingualString) {
+            out.writeByte(I18N);
+            MultilingualString string = (MultilingualString) value;
+            out.writeInt(string.size());
+            for (LocalizedString localized : string) {
+                out.writeInt(id(localized.getLang().toLanguageTag(), strings));
+                out.writeInt(id(localized.getText(), strings));
+            }
+        } else if (value instanceof Set && !((Set<?>) value).isEmpty()
+                && ((Set<?>) value).iterator().next() instanceof Integer) {
+            Set<?> set = (Set<?>) value;
+            out.writeByte(INTEGERS);
+            out.writeInt(set.size());
+            for (Object element : set) {
+                out.writeInt((Integer) element);
+            }
+        } else if (value instanceof Set) {
+            Set<?> set = (Set<?>) value;
+            out.writeByte(STRINGS);
+            out.writeInt(set.size());
+            for (Object element : set) {
+                out.writeInt(id((String) element, strings));
+            }
+        } else {
+            throw new IOException("Unsupported value type " + value.getClass().getName());
+        }
+    }
+
+    private static void writeEnvelope(DataOutputStream out, SosEnvelope envelope) throws IOException {
+        out.writeInt(envelope.getSrid());
+        Envelope e = envelope.getEnvelope();
+        boolean hasEnvelope = e != null && !e.isNull();
+        out.writeBoolean(hasEnvelope);
+        if (hasEnvelope) {
+            out.writeDouble(e.getMinX());
+            out.writeDouble(e.getMaxX());
+            out.writeDouble(e.getMinY());
+            out.writeDouble(e.getMaxY());
+        }
+        out.writeBoolean(envelope.getMinZ() != null);
+        if (envelope.getMinZ() != null) {
+            out.writeDouble(envelope.getMinZ());
+        }
+        out.writeBoolean(envelope.getMaxZ() != null);
+        if (envelope.getMaxZ() != null) {
+            out.writeDouble(envelope.getMaxZ());
+        }
+    }
+
+    private int readFrame(ByteBuffer in, List<String> strings, CacheImage image) throws IOException {
+        try {
+            return readRecords(in, strings, image);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException(String.format("Corrupt frame in cache file '%s'", this.file), e);
+        }
+    }
+
+    private static int readRecords(ByteBuffer in, List<String> strings, CacheImage image) throws IOException {
+        int added = in.getInt();
+        for (int i = 0; i < added; ++i) {
+            byte[] encoded = new byte[in.getInt()];
+            in.get(encoded);
+            strings.add(new String(encoded, UTF8));
+        }
+        int records = in.getInt();
+        for (int i = 0; i < records; ++i) {
+            String property = strings.get(in.getInt());
+            String key = strings.get(in.getInt());
+            image.put(property, key, readValue(in, strings));
+        }
+        return records;
+    }
+
+    private static Object readValue(ByteBuffer in, List<String> strings) throws IOException {
+        byte kind = in.get();
+        switch (kind) {
+        case REMOVED:
+            return null;
+        case STRING:
+            return strings.get(in.getInt());
+        case INTEGER:
+            return in.getInt();
+        case TIME:
+            return new DateTime(in.getLong(), DateTimeZone.UTC);
+        case ENVELOPE:
+            return readEnvelope(in);
+        case I18N:
+            MultilingualString string = new MultilingualString();
+            for (int i = in.getInt(); i > 0; --i) {
+                Locale lang = Locale.forLanguageTag(strings.get(in.getInt()));
+                string.addLocalization(lang, strings.get(in.getInt()));
+            }
+            return string;
+        case INTEGERS:
+            Set<Integer> integers = new HashSet<>();
+            for (int i = in.getInt(); i > 0; --i) {
+                integers.add(in.getInt());
+            }
+            return integers;
+        case STRINGS:
+            Set<String> set = new HashSet<>();
+            for (int i = in.getInt(); i > 0; --i) {
+                set.add(strings.get(in.getInt()));
+            }
+            return set;
+        default:
+            throw new IOException("Unknown value kind " + kind);
+        }
+    }
+
+    private static SosEnvelope readEnvelope(ByteBuffer in) {
+        int srid = in.getInt();
+        Envelope envelope = null;
+        if (in.get() != 0) {
+            double minX = in.getDouble();
+            double maxX = in.getDouble();
+            double minY = in.getDouble();
+            double maxY = in.getDouble();
+            envelope = new Envelope(minX, maxX, minY, maxY);
+        }
+        SosEnvelope sosEnvelope = new SosEnvelope(envelope, srid);
+        if (in.get() != 0) {
+            sosEnvelope.setMinZ(in.getDouble());
+        }
+        if (in.get() != 0) {
+            sosEnvelope.setMaxZ(in.getDouble());
+        }
+        return sosEnvelope;
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.sos.cache.ContentCache;
+import org.n52.sos.cache.WritableContentCache;
+import org.n52.sos.cache.ctrl.CacheFactory;
+import org.n52.sos.config.annotation.Configurable;
+
+import com.google.common.base.Optional;
+
+/**
+ * Persistence strategy that stores the cache in the binary format of
+ * {@link BinaryCacheFile} instead of using Java serialization. Writes are
+ * delayed like in {@link AsyncCachePersistenceStrategy}; only the changes
+ * since the last write are appended to the file. The changes are found by
+ * comparing the cache with a {@link CacheImage.Digest} of the last write, so
+ * neither the written values are kept nor an image of the complete cache is
+ * created. The file is compacted by rewriting the complete cache once the
+ * appended changes exceed half of the size of the complete image.
+ *
+ * @since 4.4.0
+ */
+@Configurable
+public class BinaryCachePersistenceStrategy extends AsyncCachePersistenceStrategy {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryCachePersistenceStrategy.class);
+
+    private static final String BINARY_CACHE_FILE = "cache.bin";
+
+    private static final double COMPACTION_RATIO = 0.5;
+
+    private final BinaryCacheFile file;
+
+    /**
+     * The digest of the cache as it is stored in the file.
+     */
+    private CacheImage.Digest persisted;
+
+    public BinaryCachePersistenceStrategy() {
+        this(null);
+    }
+
+    public BinaryCachePersistenceStrategy(File cacheFile) {
+        super(cacheFile, BINARY_CACHE_FILE);
+        this.file = new BinaryCacheFile(getCacheFile());
+    }
+
+    @Override
+    public synchronized Optional<WritableContentCache> load() {
+        File f = getCacheFile();
+        if (f.exists() && f.canRead()) {
+            LOGGER.debug("Reading cache from file '{}'", f.getAbsolutePath());
+            try {
+                long start = System.currentTimeMillis();
+                WritableContentCache cache = CacheFactory.getInstance().create();
+                CacheImage image = this.file.read();
+                image.applyTo(cache);
+                this.persisted = CacheImage.Digest.of(image);
+                LOGGER.debug("Read cache from file '{}' in {} ms", f.getAbsolutePath(),
+                        System.currentTimeMillis() - start);
+                return Optional.of(cache);
+            } catch (IOException e) {
+                LOGGER.error(String.format("Error reading cache file '%s'", f.getAbsolutePath()), e);
+            }
+            this.persisted = null;
+            f.delete();
+        } else {
+            LOGGER.debug("No cache file found at '{}'", f.getAbsolutePath());
+        }
+        return Optional.absent();
+    }
+
+    @Override
+    protected synchronized void persistCache(ContentCache cache) {
+        if (cache == null) {
+            return;
+        }
+        File f = getCacheFile();
+        try {
+            if (this.persisted == null || !f.exists()) {
+                LOGGER.debug("Writing cache to {}", f.getAbsolutePath());
+                this.persisted = write(cache);
+            } else {
+                CacheImage.Digest digest = new CacheImage.Digest();
+                Map<String, Map<String, Object>> delta = this.persisted.diff(cache, digest);
+                if (delta.isEmpty()) {
+                    return;
+                }
+                LOGGER.debug("Appending cache changes to {}", f.getAbsolutePath());
+                this.file.append(delta);
+                this.persisted = digest;
+                if (this.file.getDeltaRecords() > this.file.getFullRecords() * COMPACTION_RATIO) {
+                    LOGGER.debug("Compacting cache file {}", f.getAbsolutePath());
+                    this.persisted = write(cache);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error(String.format("Error writing cache to '%s'", f.getAbsolutePath()), e);
+            this.persisted = null;
+        }
+    }
+
+    private CacheImage.Digest write(ContentCache cache) throws IOException {
+        CacheImage image = CacheImage.of(cache);
+        this.file.write(image);
+        return CacheImage.Digest.of(image);
+    }
+
+    @Override
+    public synchronized void cleanup() {
+        super.cleanup();
+        this.persisted = null;
+    }
+}
@@ -0,0 +1,1259 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.n52.sos.cache.ContentCache;
+import org.n52.sos.cache.ContentCache.ComponentAggregation;
+import org.n52.sos.cache.ContentCache.TypeInstance;
+import org.n52.sos.cache.WritableContentCache;
+import org.n52.sos.i18n.LocalizedString;
+import org.n52.sos.i18n.MultilingualString;
+import org.n52.sos.ogc.sos.SosEnvelope;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Implementation independent image of the state of a {@link ContentCache}.
+ * The state is organized in named properties that map a key (e.g. an offering
+ * identifier or the empty string for global values) to a value, which is
+ * either a {@code Set<String>}, a {@code Set<Integer>}, a {@code String}, an
+ * {@code Integer}, a {@link DateTime}, a {@link SosEnvelope} or a
+ * {@link MultilingualString}. The image is read from and applied to a cache
+ * using the {@link ContentCache} and {@link WritableContentCache} interfaces
+ * only, so it is not affected by changes of the cache classes. Properties that
+ * are unknown when applying an image are ignored.
+ *
+ * @since 4.4.0
+ */
+final class CacheImage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheImage.class);
+
+    /**
+     * Key of global values.
+     */
+    static final String GLOBAL = "";
+
+    private static final List<Property> PROPERTIES = createProperties();
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final Map<String, Map<String, Object>> properties = new HashMap<>();
+
+    /**
+     * Reads the state of the specified cache.
+     *
+     * @param cache
+     *            the cache
+     *
+     * @return the image
+     */
+    static CacheImage of(ContentCache cache) {
+        CacheImage image = new CacheImage();
+        for (Property property : PROPERTIES) {
+            Map<String, Object> values = new HashMap<>();
+            property.read(cache, values);
+            if (!values.isEmpty()) {
+                image.properties.put(property.getName(), values);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Applies this image to the specified (empty) cache.
+     *
+     * @param cache
+     *            the cache
+     */
+    void applyTo(WritableContentCache cache) {
+        for (Property property : PROPERTIES) {
+            Map<String, Object> values = this.properties.get(property.getName());
+            if (values != null) {
+                for (Entry<String, Object> value : values.entrySet()) {
+                    try {
+                        property.write(cache, value.getKey(), value.getValue());
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Ignoring invalid value of {} for '{}': {}", property.getName(), value.getKey(),
+                                e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the value of a key, or removes the key if the value is
+     * {@code null}.
+     *
+     * @param property
+     *            the property name
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     */
+    void put(String property, String key, Object value) {
+        if (value == null) {
+            Map<String, Object> values = this.properties.get(property);
+            if (values != null) {
+                values.remove(key);
+                if (values.isEmpty()) {
+                    this.properties.remove(property);
+                }
+            }
+        } else {
+            Map<String, Object> values = this.properties.get(property);
+            if (values == null) {
+                values = new HashMap<>();
+                this.properties.put(property, values);
+            }
+            values.put(key, value);
+        }
+    }
+
+    /**
+     * @return the properties of this image, mapping property names to the
+     *         values of the keys
+     */
+    Map<String, Map<String, Object>> getProperties() {
+        return Collections.unmodifiableMap(this.properties);
+    }
+
+    /**
+     * @return the number of keys of all properties
+     */
+    int size() {
+        int size = 0;
+        for (Map<String, Object> values : this.properties.values()) {
+            size += values.size();
+        }
+        return size;
+    }
+
+    /**
+     * Computes the changes that turn the previous image into this one.
+     *
+     * @param previous
+     *            the previous image
+     *
+     * @return the changed values by property and key; removed keys are
+     *         mapped to {@code null}
+     */
+    Map<String, Map<String, Object>> diff(CacheImage previous) {
+        Map<String, Map<String, Object>> delta = new HashMap<>();
+        for (Entry<String, Map<String, Object>> property : this.properties.entrySet()) {
+            Map<String, Object> previousValues = previous.properties.get(property.getKey());
+            for (Entry<String, Object> value : property.getValue().entrySet()) {
+                if (previousValues == null || !value.getValue().equals(previousValues.get(value.getKey()))) {
+                    put(delta, property.getKey(), value.getKey(), value.getValue());
+                }
+            }
+        }
+        for (Entry<String, Map<String, Object>> property : previous.properties.entrySet()) {
+            Map<String, Object> values = this.properties.get(property.getKey());
+            for (String key : property.getValue().keySet()) {
+                if (values == null || !values.containsKey(key)) {
+                    put(delta, property.getKey(), key, null);
+                }
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Computes a hash of a value of an image. The hash of a set does not
+     * depend on the iteration order of its elements.
+     *
+     * @param value
+     *            the value
+     *
+     * @return the hash
+     */
+    static long hash(Object value) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        if (value instanceof Set) {
+            long elements = 0;
+            for (Object element : (Set<?>) value) {
+                elements += hash(element);
+            }
+            hasher.putByte((byte) 1).putInt(((Set<?>) value).size()).putLong(elements);
+        } else if (value instanceof String) {
+            hasher.putByte((byte) 2).putUnencodedChars((String) value);
+        } else if (value instanceof Integer) {
+            hasher.putByte((byte) 3).putInt((Integer) value);
+        } else if (value instanceof DateTime) {
+            hasher.putByte((byte) 4).putLong(((DateTime) value).getMillis());
+        } else if (value instanceof SosEnvelope) {
+            SosEnvelope envelope = (SosEnvelope) value;
+            hasher.putByte((byte) 5).putInt(envelope.getSrid());
+            Envelope e = envelope.getEnvelope();
+            if (e != null && !e.isNull()) {
+                hasher.putDouble(e.getMinX()).putDouble(e.getMaxX()).putDouble(e.getMinY()).putDouble(e.getMaxY());
+            }
+            hasher.putInt(Objects.hashCode(envelope.getMinZ(), envelope.getMaxZ()));
+        } else if (value instanceof MultilingualString) {
+            long localizations = 0;
+            for (LocalizedString localized : (MultilingualString) value) {
+                localizations += HASH_FUNCTION.newHasher().putUnencodedChars(localized.getLang().toLanguageTag())
+                        .putByte((byte) 0).putUnencodedChars(localized.getText()).hash().asLong();
+            }
+            hasher.putByte((byte) 6).putLong(localizations);
+        } else if (value != null) {
+            hasher.putInt(value.hashCode());
+        }
+        return hasher.hash().asLong();
+    }
+
+    private static void put(Map<String, Map<String, Object>> delta, String property, String key, Object value) {
+        Map<String, Object> values = delta.get(property);
+        if (values == null) {
+            values = new HashMap<>();
+            delta.put(property, values);
+        }
+        values.put(key, value);
+    }
+
+    /**
+     * Hashes of the values of an image. A digest is used to find the changes
+     * of a cache without keeping the values that were written before, and
+     * without creating an image of the complete cache.
+     */
+    static final class Digest {
+        private final Map<String, Map<String, Long>> hashes = new HashMap<>();
+
+        /**
+         * Creates the digest of the specified image.
+         *
+         * @param image
+         *            the image
+         *
+         * @return the digest
+         */
+        static Digest of(CacheImage image) {
+            Digest digest = new Digest();
+            for (Entry<String, Map<String, Object>> property : image.properties.entrySet()) {
+                Map<String, Long> values = new HashMap<>();
+                for (Entry<String, Object> value : property.getValue().entrySet()) {
+                    values.put(value.getKey(), hash(value.getValue()));
+                }
+                digest.hashes.put(property.getKey(), values);
+            }
+            return digest;
+        }
+
+        /**
+         * Computes the changes of the cache since the state of this digest.
+         *
+         * @param cache
+         *            the cache
+         * @param next
+         *            the (empty) digest to fill with the state of the cache
+         *
+         * @return the changed values by property and key; removed keys are
+         *         mapped to {@code null}
+         */
+        Map<String, Map<String, Object>> diff(ContentCache cache, Digest next) {
+            Map<String, Map<String, Object>> delta = new HashMap<>();
+            for (Property property : PROPERTIES) {
+                Map<String, Long> previous = this.hashes.get(property.getName());
+                Map<String, Long> current = new HashMap<>();
+                for (String key : property.keys(cache)) {
+                    Object value = property.value(cache, key);
+                    if (value != null) {
+                        Long hash = hash(value);
+                        current.put(key, hash);
+                        if (previous == null || !hash.equals(previous.get(key))) {
+                            put(delta, property.getName(), key, value);
+                        }
+                    }
+                }
+                if (previous != null) {
+                    for (String key : previous.keySet()) {
+                        if (!current.containsKey(key)) {
+                            put(delta, property.getName(), key, null);
+                        }
+                    }
+                }
+                if (!current.isEmpty()) {
+                    next.hashes.put(property.getName(), current);
+                }
+            }
+            return delta;
+        }
+
+        /**
+         * @return the number of keys of all properties
+         */
+        int size() {
+            int size = 0;
+            for (Map<String, Long> values : this.hashes.values()) {
+                size += values.size();
+            }
+            return size;
+        }
+    }
+
+    private static DateTime utc(DateTime time) {
+        return time == null ? null : time.withZone(DateTimeZone.UTC);
+    }
+
+    private static MultilingualString copy(MultilingualString string) {
+        if (string == null || string.isEmpty()) {
+            return null;
+        }
+        MultilingualString copy = new MultilingualString();
+        for (LocalizedString localized : string) {
+            copy.addLocalization(localized);
+        }
+        return copy;
+    }
+
+    private static String humanReadableName(String identifier, String name) {
+        return name == null || name.equals(identifier) ? null : name;
+    }
+
+    /**
+     * The key sets of the properties.
+     */
+    private enum Domain {
+        GLOBAL {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                return Collections.singleton(CacheImage.GLOBAL);
+            }
+        },
+        OFFERINGS {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                return cache.getOfferings();
+            }
+        },
+        PROCEDURES {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                return cache.getProcedures();
+            }
+        },
+        FEATURES_OF_INTEREST {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                return cache.getFeaturesOfInterest();
+            }
+        },
+        OBSERVABLE_PROPERTIES {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                return Sets.union(cache.getObservableProperties(), cache.getCompositePhenomenons());
+            }
+        },
+        COMPOSITE_PHENOMENONS {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                return cache.getCompositePhenomenons();
+            }
+        },
+        RESULT_TEMPLATES {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                return cache.getResultTemplates();
+            }
+        },
+        RELATED_FEATURES {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                return cache.getRelatedFeatures();
+            }
+        },
+        TYPE_INSTANCES {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                Set<String> keys = new HashSet<>();
+                for (TypeInstance typeInstance : TypeInstance.values()) {
+                    keys.add(typeInstance.name());
+                }
+                return keys;
+            }
+        },
+        COMPONENT_AGGREGATIONS {
+            @Override
+            Set<String> keys(ContentCache cache) {
+                Set<String> keys = new HashSet<>();
+                for (ComponentAggregation componentAggregation : ComponentAggregation.values()) {
+                    keys.add(componentAggregation.name());
+                }
+                return keys;
+            }
+        };
+
+        abstract Set<String> keys(ContentCache cache);
+    }
+
+    /**
+     * A named part of the cache state.
+     */
+    private abstract static class Property {
+        private final String name;
+
+        private final Domain domain;
+
+        Property(String name, Domain domain) {
+            this.name = name;
+            this.domain = domain;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        Set<String> keys(ContentCache cache) {
+            return this.domain.keys(cache);
+        }
+
+        void read(ContentCache cache, Map<String, Object> values) {
+            for (String key : keys(cache)) {
+                Object value = value(cache, key);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+        }
+
+        /**
+         * @return the value of the key as it is stored in an image, or
+         *         {@code null} if the key has no value
+         */
+        Object value(ContentCache cache, String key) {
+            Object value = get(cache, key);
+            if (value instanceof Set) {
+                return ((Set<?>) value).isEmpty() ? null : ImmutableSet.copyOf((Set<?>) value);
+            }
+            return value;
+        }
+
+        abstract Object get(ContentCache cache, String key);
+
+        abstract void write(WritableContentCache cache, String key, Object value);
+    }
+
+    /**
+     * Property whose values are identifier sets.
+     */
+    private abstract static class Relation extends Property {
+        Relation(String name, Domain domain) {
+            super(name, domain);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void write(WritableContentCache cache, String key, Object value) {
+            set(cache, key, (Set<String>) value);
+        }
+
+        abstract void set(WritableContentCache cache, String key, Set<String> values);
+    }
+
+    /**
+     * Property whose values are times.
+     */
+    private abstract static class TimeProperty extends Property {
+        TimeProperty(String name, Domain domain) {
+            super(name, domain);
+        }
+
+        @Override
+        Object get(ContentCache cache, String key) {
+            return utc(time(cache, key));
+        }
+
+        @Override
+        void write(WritableContentCache cache, String key, Object value) {
+            set(cache, key, (DateTime) value);
+        }
+
+        abstract DateTime time(ContentCache cache, String key);
+
+        abstract void set(WritableContentCache cache, String key, DateTime value);
+    }
+
+    /**
+     * Property whose values are envelopes.
+     */
+    private abstract static class EnvelopeProperty extends Property {
+        EnvelopeProperty(String name, Domain domain) {
+            super(name, domain);
+        }
+
+        @Override
+        void write(WritableContentCache cache, String key, Object value) {
+            set(cache, key, (SosEnvelope) value);
+        }
+
+        abstract void set(WritableContentCache cache, String key, SosEnvelope value);
+    }
+
+    /**
+     * Property whose values are strings.
+     */
+    private abstract static class TextProperty extends Property {
+        TextProperty(String name, Domain domain) {
+            super(name, domain);
+        }
+
+        @Override
+        void write(WritableContentCache cache, String key, Object value) {
+            set(cache, key, (String) value);
+        }
+
+        abstract void set(WritableContentCache cache, String key, String value);
+    }
+
+    /**
+     * Property whose values are multilingual strings.
+     */
+    private abstract static class I18NProperty extends Property {
+        I18NProperty(String name, Domain domain) {
+            super(name, domain);
+        }
+
+        @Override
+        void write(WritableContentCache cache, String key, Object value) {
+            set(cache, key, (MultilingualString) value);
+        }
+
+        abstract void set(WritableContentCache cache, String key, MultilingualString value);
+    }
+
+    private static List<Property> createProperties() {
+        List<Property> properties = new ArrayList<>();
+        // global values
+        properties.add(new Property("lastUpdateTime", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return utc(cache.getLastUpdateTime());
+            }
+
+            @Override
+            void write(WritableContentCache cache, String key, Object value) {
+                cache.setLastUpdateTime((DateTime) value);
+            }
+        });
+        properties.add(new Property("defaultEpsgCode", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getDefaultEPSGCode();
+            }
+
+            @Override
+            void write(WritableContentCache cache, String key, Object value) {
+                cache.setDefaultEPSGCode((Integer) value);
+            }
+        });
+        properties.add(new Property("epsgCodes", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getEpsgCodes();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            void write(WritableContentCache cache, String key, Object value) {
+                cache.addEpsgCodes((Set<Integer>) value);
+            }
+        });
+        properties.add(new EnvelopeProperty("globalEnvelope", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getGlobalEnvelope();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, SosEnvelope value) {
+                cache.setGlobalEnvelope(value);
+            }
+        });
+        properties.add(new TimeProperty("minPhenomenonTime", Domain.GLOBAL) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMinPhenomenonTime();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMinPhenomenonTime(value);
+            }
+        });
+        properties.add(new TimeProperty("maxPhenomenonTime", Domain.GLOBAL) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMaxPhenomenonTime();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMaxPhenomenonTime(value);
+            }
+        });
+        properties.add(new TimeProperty("minResultTime", Domain.GLOBAL) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMinResultTime();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMinResultTime(value);
+            }
+        });
+        properties.add(new TimeProperty("maxResultTime", Domain.GLOBAL) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMaxResultTime();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMaxResultTime(value);
+            }
+        });
+        properties.add(new Relation("supportedLanguages", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                Set<String> languages = new HashSet<>();
+                for (Locale locale : cache.getSupportedLanguages()) {
+                    languages.add(locale.toLanguageTag());
+                }
+                return languages;
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                for (String language : values) {
+                    cache.addSupportedLanguage(Locale.forLanguageTag(language));
+                }
+            }
+        });
+        properties.add(new Relation("requestableProcedureDescriptionFormats", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getRequestableProcedureDescriptionFormat();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setRequestableProcedureDescriptionFormat(values);
+            }
+        });
+        properties.add(new Relation("offerings", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getOfferings();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setOfferings(values);
+            }
+        });
+        properties.add(new Relation("procedures", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getProcedures();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setProcedures(values);
+            }
+        });
+        properties.add(new Relation("featuresOfInterest", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getFeaturesOfInterest();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setFeaturesOfInterest(values);
+            }
+        });
+        properties.add(new Relation("resultTemplates", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getResultTemplates();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.addResultTemplates(values);
+            }
+        });
+        properties.add(new Relation("compositePhenomenons", Domain.GLOBAL) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getCompositePhenomenons();
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setCompositePhenomenon(values);
+            }
+        });
+        properties.add(new Relation("typeInstanceProcedures", Domain.TYPE_INSTANCES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getTypeInstanceProcedure(TypeInstance.valueOf(key));
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                for (String procedure : values) {
+                    cache.addTypeInstanceProcedure(TypeInstance.valueOf(key), procedure);
+                }
+            }
+        });
+        properties.add(new Relation("componentAggregationProcedures", Domain.COMPONENT_AGGREGATIONS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getComponentAggregationProcedure(ComponentAggregation.valueOf(key));
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                for (String procedure : values) {
+                    cache.addComponentAggregationProcedure(ComponentAggregation.valueOf(key), procedure);
+                }
+            }
+        });
+        // offerings
+        properties.add(new Relation("allowedObservationTypesForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getAllowedObservationTypesForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setAllowedObservationTypeForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("allowedFeatureOfInterestTypesForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getAllowedFeatureOfInterestTypesForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setAllowedFeatureOfInterestTypeForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("featuresOfInterestForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getFeaturesOfInterestForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setFeaturesOfInterestForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("observablePropertiesForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getObservablePropertiesForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setObservablePropertiesForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("observationTypesForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getObservationTypesForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setObservationTypesForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("featureOfInterestTypesForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getFeatureOfInterestTypesForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setFeatureOfInterestTypesForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("proceduresForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getProceduresForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setProceduresForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("hiddenChildProceduresForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getHiddenChildProceduresForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setHiddenChildProceduresForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("relatedFeaturesForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getRelatedFeaturesForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setRelatedFeaturesForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("resultTemplatesForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getResultTemplatesForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setResultTemplatesForOffering(key, values);
+            }
+        });
+        properties.add(new Relation("parentOfferings", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getParentOfferings(key, false, false);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.addParentOfferings(key, values);
+            }
+        });
+        properties.add(new Relation("compositePhenomenonsForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getCompositePhenomenonsForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setCompositePhenomenonForOffering(key, values);
+            }
+        });
+        properties.add(new TextProperty("nameForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getNameForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, String value) {
+                cache.setNameForOffering(key, value);
+            }
+        });
+        properties.add(new TextProperty("humanReadableNameForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return humanReadableName(key, cache.getOfferingHumanReadableNameForIdentifier(key));
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, String value) {
+                cache.addOfferingIdentifierHumanReadableName(key, value);
+            }
+        });
+        properties.add(new I18NProperty("i18nNameForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return copy(cache.getI18nNamesForOffering(key));
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, MultilingualString value) {
+                cache.setI18nNameForOffering(key, value);
+            }
+        });
+        properties.add(new I18NProperty("i18nDescriptionForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return copy(cache.getI18nDescriptionsForOffering(key));
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, MultilingualString value) {
+                cache.setI18nDescriptionForOffering(key, value);
+            }
+        });
+        properties.add(new EnvelopeProperty("envelopeForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getEnvelopeForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, SosEnvelope value) {
+                cache.setEnvelopeForOffering(key, value);
+            }
+        });
+        properties.add(new EnvelopeProperty("spatialFilteringProfileEnvelopeForOffering", Domain.OFFERINGS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getSpatialFilteringProfileEnvelopeForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, SosEnvelope value) {
+                cache.setSpatialFilteringProfileEnvelopeForOffering(key, value);
+            }
+        });
+        properties.add(new TimeProperty("minPhenomenonTimeForOffering", Domain.OFFERINGS) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMinPhenomenonTimeForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMinPhenomenonTimeForOffering(key, value);
+            }
+        });
+        properties.add(new TimeProperty("maxPhenomenonTimeForOffering", Domain.OFFERINGS) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMaxPhenomenonTimeForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMaxPhenomenonTimeForOffering(key, value);
+            }
+        });
+        properties.add(new TimeProperty("minResultTimeForOffering", Domain.OFFERINGS) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMinResultTimeForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMinResultTimeForOffering(key, value);
+            }
+        });
+        properties.add(new TimeProperty("maxResultTimeForOffering", Domain.OFFERINGS) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMaxResultTimeForOffering(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMaxResultTimeForOffering(key, value);
+            }
+        });
+        // procedures
+        properties.add(new Relation("offeringsForProcedure", Domain.PROCEDURES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getOfferingsForProcedure(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setOfferingsForProcedure(key, values);
+            }
+        });
+        properties.add(new Relation("observablePropertiesForProcedure", Domain.PROCEDURES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getObservablePropertiesForProcedure(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setObservablePropertiesForProcedure(key, values);
+            }
+        });
+        properties.add(new Relation("parentProcedures", Domain.PROCEDURES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getParentProcedures(key, false, false);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.addParentProcedures(key, values);
+            }
+        });
+        properties.add(new Relation("instancesForProcedure", Domain.PROCEDURES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getInstancesForProcedure(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.addTypeOfProcedure(key, values);
+            }
+        });
+        properties.add(new Relation("procedureDescriptionFormatsForProcedure", Domain.PROCEDURES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getProcedureDescriptionFormatsForProcedure(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.addProcedureDescriptionFormatsForProcedure(key, values);
+            }
+        });
+        properties.add(new Relation("compositePhenomenonsForProcedure", Domain.PROCEDURES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getCompositePhenomenonsForProcedure(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setCompositePhenomenonForProcedure(key, values);
+            }
+        });
+        properties.add(new TextProperty("humanReadableNameForProcedure", Domain.PROCEDURES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return humanReadableName(key, cache.getProcedureHumanReadableNameForIdentifier(key));
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, String value) {
+                cache.addProcedureIdentifierHumanReadableName(key, value);
+            }
+        });
+        properties.add(new TimeProperty("minPhenomenonTimeForProcedure", Domain.PROCEDURES) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMinPhenomenonTimeForProcedure(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMinPhenomenonTimeForProcedure(key, value);
+            }
+        });
+        properties.add(new TimeProperty("maxPhenomenonTimeForProcedure", Domain.PROCEDURES) {
+            @Override
+            DateTime time(ContentCache cache, String key) {
+                return cache.getMaxPhenomenonTimeForProcedure(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, DateTime value) {
+                cache.setMaxPhenomenonTimeForProcedure(key, value);
+            }
+        });
+        // features of interest
+        properties.add(new Relation("offeringsForFeatureOfInterest", Domain.FEATURES_OF_INTEREST) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getOfferingsForFeatureOfInterest(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                for (String offering : values) {
+                    cache.addOfferingForFeaturesOfInterest(offering, Collections.singleton(key));
+                }
+            }
+        });
+        properties.add(new Relation("proceduresForFeatureOfInterest", Domain.FEATURES_OF_INTEREST) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getProceduresForFeatureOfInterest(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setProceduresForFeatureOfInterest(key, values);
+            }
+        });
+        properties.add(new Relation("parentFeatures", Domain.FEATURES_OF_INTEREST) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getParentFeatures(key, false, false);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.addParentFeatures(key, values);
+            }
+        });
+        properties.add(new TextProperty("humanReadableNameForFeatureOfInterest", Domain.FEATURES_OF_INTEREST) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return humanReadableName(key, cache.getFeatureOfInterestHumanReadableNameForIdentifier(key));
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, String value) {
+                cache.addFeatureOfInterestIdentifierHumanReadableName(key, value);
+            }
+        });
+        // observable properties
+        properties.add(new Relation("offeringsForObservableProperty", Domain.OBSERVABLE_PROPERTIES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getOfferingsForObservableProperty(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setOfferingsForObservableProperty(key, values);
+            }
+        });
+        properties.add(new Relation("proceduresForObservableProperty", Domain.OBSERVABLE_PROPERTIES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getProceduresForObservableProperty(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setProceduresForObservableProperty(key, values);
+            }
+        });
+        properties.add(new Relation("compositePhenomenonsForObservableProperty", Domain.OBSERVABLE_PROPERTIES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getCompositePhenomenonForObservableProperty(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                for (String compositePhenomenon : values) {
+                    cache.addCompositePhenomenonForObservableProperty(key, compositePhenomenon);
+                }
+            }
+        });
+        properties.add(new TextProperty("humanReadableNameForObservableProperty", Domain.OBSERVABLE_PROPERTIES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return humanReadableName(key, cache.getObservablePropertyHumanReadableNameForIdentifier(key));
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, String value) {
+                cache.addObservablePropertyIdentifierHumanReadableName(key, value);
+            }
+        });
+        properties.add(new Relation("observablePropertiesForCompositePhenomenon", Domain.COMPOSITE_PHENOMENONS) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getObservablePropertiesForCompositePhenomenon(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setObservablePropertiesForCompositePhenomenon(key, values);
+            }
+        });
+        // result templates and related features
+        properties.add(new Relation("featuresOfInterestForResultTemplate", Domain.RESULT_TEMPLATES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getFeaturesOfInterestForResultTemplate(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.addFeaturesOfInterestForResultTemplate(key, values);
+            }
+        });
+        properties.add(new Relation("observablePropertiesForResultTemplate", Domain.RESULT_TEMPLATES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getObservablePropertiesForResultTemplate(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setObservablePropertiesForResultTemplate(key, values);
+            }
+        });
+        properties.add(new Relation("rolesForRelatedFeature", Domain.RELATED_FEATURES) {
+            @Override
+            Object get(ContentCache cache, String key) {
+                return cache.getRolesForRelatedFeature(key);
+            }
+
+            @Override
+            void set(WritableContentCache cache, String key, Set<String> values) {
+                cache.setRolesForRelatedFeature(key, values);
+            }
+        });
+        return Collections.unmodifiableList(properties);
+    }
+}
@@ -30,13 +30,33 @@ package org.n52.sos.cache.ctrl.persistence;
 
 import org.n52.sos.cache.ContentCachePersistenceStrategy;
 import org.n52.sos.config.SettingsManager;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.exception.ConfigurationException;
 
+@Configurable
 public class CachePersistenceStrategyFactory {
+    private String format = CachePersistenceStrategyFactorySettings.SERIALIZED;
+
     private CachePersistenceStrategyFactory() {
     }
 
+    @Setting(CachePersistenceStrategyFactorySettings.CACHE_PERSISTENCE_FORMAT)
+    public void setFormat(String format) {
+        if (!CachePersistenceStrategyFactorySettings.SERIALIZED.equals(format)
+                && !CachePersistenceStrategyFactorySettings.BINARY.equals(format)) {
+            throw new ConfigurationException(String.format("Unknown cache persistence format: %s", format));
+        }
+        this.format = format;
+    }
+
     public ContentCachePersistenceStrategy create() {
-        ContentCachePersistenceStrategy strategy = new AsyncCachePersistenceStrategy();
+        ContentCachePersistenceStrategy strategy;
+        if (CachePersistenceStrategyFactorySettings.BINARY.equals(this.format)) {
+            strategy = new BinaryCachePersistenceStrategy();
+        } else {
+            strategy = new AsyncCachePersistenceStrategy();
+        }
         SettingsManager.getInstance().configure(strategy);
         return strategy;
     }
@@ -46,10 +66,15 @@ public class CachePersistenceStrategyFactory {
     }
 
     private static class LazyHolder {
-        private static final CachePersistenceStrategyFactory INSTANCE
-                = new CachePersistenceStrategyFactory();
+        private static final CachePersistenceStrategyFactory INSTANCE = createInstance();
 
         private LazyHolder() {
         }
+
+        private static CachePersistenceStrategyFactory createInstance() {
+            CachePersistenceStrategyFactory factory = new CachePersistenceStrategyFactory();
+            SettingsManager.getInstance().configure(factory);
+            return factory;
+        }
     }
 }
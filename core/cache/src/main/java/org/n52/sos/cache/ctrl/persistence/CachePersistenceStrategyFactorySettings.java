@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.persistence;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.n52.sos.config.SettingDefinition;
+import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.ChoiceSettingDefinition;
+import org.n52.sos.service.ServiceSettings;
+
+/**
+ * Settings for the {@link CachePersistenceStrategyFactory}.
+ *
+ * @since 4.4.0
+ */
+public class CachePersistenceStrategyFactorySettings implements SettingDefinitionProvider {
+    public static final String CACHE_PERSISTENCE_FORMAT = "service.cachePersistenceFormat";
+
+    /**
+     * Value selecting the {@link AsyncCachePersistenceStrategy}.
+     */
+    public static final String SERIALIZED = "serialized";
+
+    /**
+     * Value selecting the {@link BinaryCachePersistenceStrategy}.
+     */
+    public static final String BINARY = "binary";
+
+    public static final ChoiceSettingDefinition CACHE_PERSISTENCE_FORMAT_DEFINITION = createDefinition();
+
+    private static ChoiceSettingDefinition createDefinition() {
+        ChoiceSettingDefinition definition = new ChoiceSettingDefinition();
+        definition.setGroup(ServiceSettings.GROUP)
+                .setOrder(6.15F)
+                .setKey(CACHE_PERSISTENCE_FORMAT)
+                .setTitle("Content cache persistence format")
+                .setDescription("The format the content cache is persisted in. Java serialization rewrites "
+                        + "the complete cache on every write and can not be read after an update of the "
+                        + "service. The binary format only appends the changes of incremental cache updates "
+                        + "and is read considerably faster on startup. Requires a restart of the service.");
+        definition.addOption(SERIALIZED, "Java serialization");
+        definition.addOption(BINARY, "Versioned binary format");
+        definition.setDefaultValue(SERIALIZED);
+        return definition;
+    }
+
+    @Override
+    public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
+        return Collections.<SettingDefinition<?, ?>> singleton(CACHE_PERSISTENCE_FORMAT_DEFINITION);
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing the read throughput of {@link InMemoryCacheImpl}
+ * and {@link SnapshotContentCache} while a concurrent writer modifies the
+ * cache. Run it with {@link #main(String[])} from the test classpath.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ContentCacheBenchmark {
+    private static final int OFFERINGS = 100;
+
+    private static final int PROCEDURES_PER_OFFERING = 50;
+
+    @Param({ "inMemory", "snapshot" })
+    private String implementation;
+
+    private WritableContentCache cache;
+
+    private int readCounter;
+
+    private int writeCounter;
+
+    @Setup
+    public void setup() {
+        if ("snapshot".equals(implementation)) {
+            cache = new SnapshotContentCache();
+        } else {
+            cache = new InMemoryCacheImpl();
+        }
+        for (int i = 0; i < OFFERINGS; ++i) {
+            for (int j = 0; j < PROCEDURES_PER_OFFERING; ++j) {
+                cache.addProcedureForOffering(offering(i), procedure(j));
+                cache.addFeatureOfInterestForOffering(offering(i), "feature" + j);
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Set<String> read() {
+        return cache.getProceduresForOffering(offering(readCounter++ % OFFERINGS));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void write() {
+        int i = writeCounter++;
+        cache.addProcedureForOffering(offering(i % OFFERINGS), procedure(i % (2 * PROCEDURES_PER_OFFERING)));
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public boolean hasProcedure() {
+        return cache.hasProcedure(procedure(readCounter++ % PROCEDURES_PER_OFFERING));
+    }
+
+    private static String offering(int i) {
+        return "offering" + i;
+    }
+
+    private static String procedure(int i) {
+        return "procedure" + i;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(ContentCacheBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
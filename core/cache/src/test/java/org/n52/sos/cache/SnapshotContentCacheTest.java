@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.n52.sos.ogc.gml.time.TimePeriod;
+
+/**
+ * @since 4.4.0
+ */
+public class SnapshotContentCacheTest {
+    private static final String OFFERING = "test-offering";
+
+    private static final String PROCEDURE = "test-procedure";
+
+    private SnapshotContentCache cache;
+
+    @Before
+    public void initInstance() {
+        cache = new SnapshotContentCache();
+    }
+
+    @Test
+    public void should_be_equal_to_new_instance() {
+        assertThat(cache.equals(new SnapshotContentCache()), is(true));
+        assertThat(cache.hashCode(), is(new SnapshotContentCache().hashCode()));
+    }
+
+    @Test
+    public void should_not_change_previously_returned_sets() {
+        cache.addProcedureForOffering(OFFERING, PROCEDURE);
+        Set<String> procedures = cache.getProceduresForOffering(OFFERING);
+        cache.addProcedureForOffering(OFFERING, "other-procedure");
+        cache.removeProcedureForOffering(OFFERING, PROCEDURE);
+        assertThat(procedures, contains(PROCEDURE));
+        assertThat(cache.getProceduresForOffering(OFFERING), contains("other-procedure"));
+    }
+
+    @Test
+    public void should_remove_key_with_last_value() {
+        cache.addProcedureForOffering(OFFERING, PROCEDURE);
+        cache.removeProcedureForOffering(OFFERING, PROCEDURE);
+        assertThat(cache.getProceduresForOffering(OFFERING), is(empty()));
+        assertThat(cache.equals(new SnapshotContentCache()), is(true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void should_return_unmodifiable_sets() {
+        cache.addProcedureForOffering(OFFERING, PROCEDURE);
+        cache.getProceduresForOffering(OFFERING).add("other-procedure");
+    }
+
+    @Test
+    public void should_increment_version_on_modification() {
+        long version = cache.getVersion();
+        cache.addProcedure(PROCEDURE);
+        assertThat(cache.getVersion(), is(version + 1));
+    }
+
+    @Test
+    public void should_publish_update_at_once() throws InterruptedException {
+        final CountDownLatch modified = new CountDownLatch(1);
+        final CountDownLatch read = new CountDownLatch(1);
+        final AtomicReference<Set<String>> seen = new AtomicReference<Set<String>>();
+        final long version = cache.getVersion();
+        cache.beginUpdate();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    modified.await();
+                    seen.set(cache.getProcedures());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    read.countDown();
+                }
+            }
+        });
+        reader.start();
+        try {
+            cache.addProcedure(PROCEDURE);
+            cache.addOffering(OFFERING);
+            assertThat(cache.getProcedures(), contains(PROCEDURE));
+            modified.countDown();
+            read.await();
+        } finally {
+            cache.endUpdate();
+        }
+        reader.join();
+        assertThat(seen.get(), is(empty()));
+        assertThat(cache.getProcedures(), contains(PROCEDURE));
+        assertThat(cache.getVersion(), is(version + 1));
+    }
+
+    @Test
+    public void should_expand_global_phenomenon_time() {
+        cache.updatePhenomenonTime(new TimePeriod(new DateTime(52L), new DateTime(100L)));
+        cache.updatePhenomenonTime(new TimePeriod(new DateTime(10L), new DateTime(80L)));
+        assertThat(cache.getMinPhenomenonTime().getMillis(), is(10L));
+        assertThat(cache.getMaxPhenomenonTime().getMillis(), is(100L));
+    }
+
+    @Test
+    public void should_survive_serialization() throws IOException, ClassNotFoundException {
+        cache.addProcedureForOffering(OFFERING, PROCEDURE);
+        cache.addProcedure(PROCEDURE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(cache);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            SnapshotContentCache read = (SnapshotContentCache) ois.readObject();
+            assertThat(read.equals(cache), is(true));
+            assertThat(read.getProcedures(), containsInAnyOrder(PROCEDURE));
+        }
+    }
+}
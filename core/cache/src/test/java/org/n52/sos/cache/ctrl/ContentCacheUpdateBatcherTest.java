@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+import org.n52.sos.cache.ContentCacheUpdate;
+import org.n52.sos.cache.ctrl.action.BatchedCacheUpdate;
+import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+import com.google.common.collect.Lists;
+
+/**
+ * @since 4.4.0
+ *
+ */
+public class ContentCacheUpdateBatcherTest {
+
+    private final RecordingExecutor executor = new RecordingExecutor();
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    public void should_execute_updates_directly_if_disabled() throws OwsExceptionReport {
+        ContentCacheUpdateBatcher batcher = new ContentCacheUpdateBatcher(executor, 0, 10);
+        TestUpdate first = new TestUpdate(false);
+        TestUpdate second = new TestUpdate(false);
+        batcher.execute(first);
+        batcher.execute(second);
+        assertThat(executor.executed.size(), is(2));
+        assertThat(executor.executed.get(0), is((ContentCacheUpdate) first));
+        assertThat(first.executions, is(1));
+        assertThat(second.executions, is(1));
+    }
+
+    @Test
+    public void should_execute_concurrent_updates_as_one_batch() throws Exception {
+        ContentCacheUpdateBatcher batcher = new ContentCacheUpdateBatcher(executor, 10000, 3);
+        List<TestUpdate> updates = Lists.newArrayList(new TestUpdate(false), new TestUpdate(false),
+                new TestUpdate(false));
+        for (Future<OwsExceptionReport> result : submit(batcher, updates)) {
+            assertThat(result.get(), is(nullValue()));
+        }
+        assertThat(executor.executed.size(), is(1));
+        assertThat(executor.executed.get(0), is(instanceOf(BatchedCacheUpdate.class)));
+        assertThat(((BatchedCacheUpdate) executor.executed.get(0)).size(), is(3));
+        for (TestUpdate update : updates) {
+            assertThat(update.executions, is(1));
+        }
+    }
+
+    @Test
+    public void should_execute_batch_after_window() throws OwsExceptionReport {
+        ContentCacheUpdateBatcher batcher = new ContentCacheUpdateBatcher(executor, 10, 100);
+        TestUpdate update = new TestUpdate(false);
+        batcher.execute(update);
+        assertThat(executor.executed.size(), is(1));
+        assertThat(update.executions, is(1));
+    }
+
+    @Test
+    public void should_report_failure_to_submitter_only() throws Exception {
+        ContentCacheUpdateBatcher batcher = new ContentCacheUpdateBatcher(executor, 10000, 2);
+        List<TestUpdate> updates = Lists.newArrayList(new TestUpdate(true), new TestUpdate(false));
+        List<Future<OwsExceptionReport>> results = submit(batcher, updates);
+        assertThat(results.get(0).get(), is(instanceOf(NoApplicableCodeException.class)));
+        assertThat(results.get(1).get(), is(nullValue()));
+        assertThat(executor.executed.size(), is(1));
+    }
+
+    private List<Future<OwsExceptionReport>> submit(final ContentCacheUpdateBatcher batcher,
+            List<TestUpdate> updates) {
+        List<Future<OwsExceptionReport>> results = Lists.newArrayListWithCapacity(updates.size());
+        for (final TestUpdate update : updates) {
+            results.add(threads.submit(new Callable<OwsExceptionReport>() {
+                @Override
+                public OwsExceptionReport call() {
+                    try {
+                        batcher.execute(update);
+                        return null;
+                    } catch (OwsExceptionReport e) {
+                        return e;
+                    }
+                }
+            }));
+        }
+        return results;
+    }
+
+    private static class RecordingExecutor implements ContentCacheUpdateBatcher.Executor {
+        private final List<ContentCacheUpdate> executed = Collections
+                .synchronizedList(Lists.<ContentCacheUpdate> newArrayList());
+
+        @Override
+        public void execute(ContentCacheUpdate update) throws OwsExceptionReport {
+            executed.add(update);
+            update.reset();
+            update.execute();
+            if (update.failed()) {
+                throw update.getFailureCause();
+            }
+        }
+    }
+
+    private static class TestUpdate extends ContentCacheUpdate {
+        private final boolean fail;
+
+        private volatile int executions = 0;
+
+        TestUpdate(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public void execute() {
+            ++executions;
+            if (fail) {
+                fail(new NoApplicableCodeException().withMessage("failed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.persistence;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.n52.sos.cache.InMemoryCacheImpl;
+import org.n52.sos.cache.WritableContentCache;
+import org.n52.sos.ogc.sos.SosEnvelope;
+
+import com.google.common.collect.Sets;
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * @since 4.4.0
+ */
+public class BinaryCacheFileTest {
+    private static final String OFFERING = "offering";
+
+    private static final String PROCEDURE = "procedure";
+
+    private static final String FEATURE = "feature";
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("BinaryCacheFileTest", ".bin");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void should_restore_cache() throws IOException {
+        WritableContentCache cache = createCache();
+        new BinaryCacheFile(file).write(CacheImage.of(cache));
+
+        WritableContentCache loaded = load();
+        assertThat(loaded.getOfferings(), contains(OFFERING));
+        assertThat(loaded.getProcedures(), contains(PROCEDURE));
+        assertThat(loaded.getProceduresForOffering(OFFERING), contains(PROCEDURE));
+        assertThat(loaded.getOfferingsForProcedure(PROCEDURE), contains(OFFERING));
+        assertThat(loaded.getFeaturesOfInterestForOffering(OFFERING), contains(FEATURE));
+        assertThat(loaded.getNameForOffering(OFFERING), is("name"));
+        assertThat(loaded.getEpsgCodes(), containsInAnyOrder(4326, 31467));
+        assertThat(loaded.getMinPhenomenonTimeForOffering(OFFERING), is(time(1000L)));
+        assertThat(loaded.getEnvelopeForOffering(OFFERING), is(cache.getEnvelopeForOffering(OFFERING)));
+        assertThat(CacheImage.of(loaded).diff(CacheImage.of(cache)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void should_append_changes() throws IOException {
+        WritableContentCache cache = createCache();
+        BinaryCacheFile binaryFile = new BinaryCacheFile(file);
+        CacheImage image = CacheImage.of(cache);
+        binaryFile.write(image);
+        long length = file.length();
+
+        cache.addProcedure("other");
+        cache.removeFeatureOfInterestForOffering(OFFERING, FEATURE);
+        binaryFile.append(CacheImage.of(cache).diff(image));
+        assertThat(file.length(), is(greaterThan(length)));
+        assertThat(binaryFile.getDeltaRecords(), is(2));
+
+        WritableContentCache loaded = load();
+        assertThat(loaded.getProcedures(), containsInAnyOrder(PROCEDURE, "other"));
+        assertThat(loaded.getFeaturesOfInterestForOffering(OFFERING), is(empty()));
+    }
+
+    @Test
+    public void should_append_changes_found_by_digest() throws IOException {
+        WritableContentCache cache = createCache();
+        BinaryCacheFile binaryFile = new BinaryCacheFile(file);
+        CacheImage image = CacheImage.of(cache);
+        binaryFile.write(image);
+        CacheImage.Digest digest = CacheImage.Digest.of(image);
+
+        CacheImage.Digest next = new CacheImage.Digest();
+        assertThat(digest.diff(cache, next).isEmpty(), is(true));
+        assertThat(next.size(), is(image.size()));
+
+        cache.addProcedure("other");
+        cache.removeFeatureOfInterestForOffering(OFFERING, FEATURE);
+        binaryFile.append(next.diff(cache, new CacheImage.Digest()));
+        assertThat(binaryFile.getDeltaRecords(), is(2));
+
+        WritableContentCache loaded = load();
+        assertThat(loaded.getProcedures(), containsInAnyOrder(PROCEDURE, "other"));
+        assertThat(loaded.getFeaturesOfInterestForOffering(OFFERING), is(empty()));
+        assertThat(CacheImage.of(loaded).diff(CacheImage.of(cache)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void should_hash_sets_independent_of_order() {
+        assertThat(CacheImage.hash(Sets.newLinkedHashSet(Arrays.asList("a", "b"))),
+                is(CacheImage.hash(Sets.newLinkedHashSet(Arrays.asList("b", "a")))));
+        assertThat(CacheImage.hash(Sets.newHashSet("a", "b")), is(not(CacheImage.hash(Sets.newHashSet("a", "c")))));
+    }
+
+    @Test
+    public void should_ignore_incomplete_frames() throws IOException {
+        new BinaryCacheFile(file).write(CacheImage.of(createCache()));
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[] { 2, 0, 0, 1 });
+        }
+        WritableContentCache loaded = load();
+        assertThat(loaded.getOfferings(), contains(OFFERING));
+    }
+
+    @Test(expected = IOException.class)
+    public void should_reject_unknown_files() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        }
+        new BinaryCacheFile(file).read();
+    }
+
+    private WritableContentCache load() throws IOException {
+        WritableContentCache cache = new InMemoryCacheImpl();
+        new BinaryCacheFile(file).read().applyTo(cache);
+        return cache;
+    }
+
+    private static WritableContentCache createCache() {
+        WritableContentCache cache = new InMemoryCacheImpl();
+        cache.addOffering(OFFERING);
+        cache.addProcedure(PROCEDURE);
+        cache.addFeatureOfInterest(FEATURE);
+        cache.addProcedureForOffering(OFFERING, PROCEDURE);
+        cache.addOfferingForProcedure(PROCEDURE, OFFERING);
+        cache.addFeatureOfInterestForOffering(OFFERING, FEATURE);
+        cache.setNameForOffering(OFFERING, "name");
+        cache.addEpsgCode(4326);
+        cache.addEpsgCode(31467);
+        cache.setMinPhenomenonTimeForOffering(OFFERING, time(1000L));
+        cache.setEnvelopeForOffering(OFFERING, new SosEnvelope(new Envelope(1, 2, 3, 4), 4326));
+        return cache;
+    }
+
+    private static DateTime time(long millis) {
+        return new DateTime(millis, DateTimeZone.UTC);
+    }
+}
@@ -899,7 +899,7 @@ public class GetCapabilitiesDAO extends AbstractGetCapabilitiesDAO {
     }
 
     private Collection<String> getObservationTypes(String offering) {
-        final Collection<String> observationTypes = getCache().getAllObservationTypesForOffering(offering);
+        final Collection<String> observationTypes = Sets.newHashSet(getCache().getAllObservationTypesForOffering(offering));
 //        final Set<String> observationTypes = Sets.newHashSet();
         observationTypes.remove(SosConstants.NOT_DEFINED);
 //        for (final String observationType : allObservationTypes) {
@@ -28,8 +28,11 @@
  */
 package org.n52.sos.ext.deleteobservation;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.hibernate.HibernateException;
 import org.hibernate.ScrollableResults;
@@ -39,8 +42,11 @@ import org.hibernate.criterion.Criterion;
 import org.n52.sos.convert.ConverterException;
 import org.n52.sos.ds.HibernateDatasourceConstants;
 import org.n52.sos.ds.hibernate.HibernateSessionHolder;
+import org.n52.sos.ds.hibernate.IngestionLock;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
-import org.n52.sos.ds.hibernate.dao.observation.series.SeriesDAO;
+import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesObservationDAO;
 import org.n52.sos.ds.hibernate.entities.observation.Observation;
 import org.n52.sos.ds.hibernate.entities.observation.series.Series;
 import org.n52.sos.ds.hibernate.entities.observation.series.SeriesObservation;
@@ -53,11 +59,24 @@ import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.request.AbstractObservationRequest;
 import org.n52.sos.request.GetObservationRequest;
 import org.n52.sos.util.CollectionHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
+ * Hibernate implementation of the DeleteObservation operation.
+ * <p>
+ * Observations are deleted by setting their deleted flag. Deletions by
+ * parameter are executed as one set-based update of the observations of the
+ * affected series, and the first/latest values of a series are recomputed once
+ * after all its observations are deleted. Deletions hold the
+ * {@link IngestionLock} of the affected series, so they are serialized against
+ * insertions into and deletions from the same series only.
+ *
  * @author <a href="mailto:e.h.juerrens@52north.org">Eike Hinderk
  *         J&uuml;rrens</a>
  *
@@ -65,21 +84,24 @@ import com.google.common.collect.Sets;
  */
 public class DeleteObservationDAO extends DeleteObservationAbstractDAO {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeleteObservationDAO.class);
+
     private HibernateSessionHolder hibernateSessionHolder = new HibernateSessionHolder();
 
     @Override
-    public synchronized DeleteObservationResponse deleteObservation(DeleteObservationRequest request)
+    public DeleteObservationResponse deleteObservation(DeleteObservationRequest request)
             throws OwsExceptionReport {
         DeleteObservationResponse response = request.getResponse();
         Session session = null;
         Transaction transaction = null;
+        List<IngestionLock> locks = Lists.newLinkedList();
         try {
             session = hibernateSessionHolder.getSession();
             transaction = session.beginTransaction();
             if (request.isSetObservationIdentifiers()) {
-                deleteObservationsByIdentifier(request, response, session);
+                deleteObservationsByIdentifier(request, response, locks, session);
             } else {
-                deleteObservationByParameter(request, response, session);
+                deleteObservationByParameter(request, response, locks, session);
             }
             transaction.commit();
         } catch (HibernateException he) {
@@ -92,6 +114,7 @@ public class DeleteObservationDAO extends DeleteObservationAbstractDAO {
             throw new NoApplicableCodeException().causedBy(ce)
                     .withMessage("Error while updating deleted observation flag data!");
         } finally {
+            unlock(locks);
             hibernateSessionHolder.returnSession(session);
         }
         return response;
@@ -108,13 +131,37 @@ public class DeleteObservationDAO extends DeleteObservationAbstractDAO {
     }
 
     private void deleteObservationsByIdentifier(DeleteObservationRequest request, DeleteObservationResponse response,
-            Session session) throws OwsExceptionReport, ConverterException {
+            List<IngestionLock> locks, Session session) throws OwsExceptionReport, ConverterException {
         Set<String> ids = request.getObservationIdentifiers();
         List<Observation<?>> observations = DaoFactory.getInstance().getObservationDAO().getObservationByIdentifiers(ids, session);
         if (CollectionHelper.isNotEmpty(observations)) {
+            Map<Long, Series> series = Maps.newHashMap();
+            for (Observation<?> observation : observations) {
+                if (observation instanceof SeriesObservation) {
+                    Series s = ((SeriesObservation<?>) observation).getSeries();
+                    series.put(s.getSeriesId(), s);
+                }
+            }
+            lock(series.values(), locks);
+            // the first/latest values may have changed before the lock was
+            // acquired
+            for (Series s : series.values()) {
+                session.refresh(s);
+            }
+            Map<Long, Series> seriesToUpdate = Maps.newHashMap();
+            for (Observation<?> observation : observations) {
+                if (observation instanceof SeriesObservation) {
+                    Series s = ((SeriesObservation<?>) observation).getSeries();
+                    if (isFirstOrLatest(s, observation)) {
+                        seriesToUpdate.put(s.getSeriesId(), s);
+                    }
+                }
+            }
             for (Observation<?> observation : observations) {
                 delete(observation, session);
             }
+            session.flush();
+            updateSeries(seriesToUpdate.values(), session);
             if (DeleteObservationConstants.NS_SOSDO_1_0.equals(request.getResponseFormat())) {
                 Observation<?> observation = observations.iterator().next();
                 OmObservation so = HibernateObservationUtilities
@@ -133,43 +180,123 @@ public class DeleteObservationDAO extends DeleteObservationAbstractDAO {
     }
 
     private void deleteObservationByParameter(DeleteObservationRequest request, DeleteObservationResponse response,
-            Session session) throws OwsExceptionReport {
+            List<IngestionLock> locks, Session session) throws OwsExceptionReport {
         Criterion filter = null;
         if (CollectionHelper.isNotEmpty(request.getTemporalFilters())) {
             filter = TemporalRestrictions.filter(request.getTemporalFilters());
         }
-        ScrollableResults result = DaoFactory.getInstance().getObservationDAO().getObservations(request.getProcedures(),
-                request.getObservedProperties(), request.getFeatureIdentifiers(), request.getOfferings(),
-                filter, session);
-        while (result.next()) {
-            delete((Observation<?>) result.get()[0], session);
+        AbstractObservationDAO observationDAO = DaoFactory.getInstance().getObservationDAO();
+        if (observationDAO instanceof AbstractSeriesObservationDAO) {
+            AbstractSeriesObservationDAO seriesObservationDAO = (AbstractSeriesObservationDAO) observationDAO;
+            lock(DaoFactory.getInstance().getSeriesDAO().getSeries(request.getProcedures(),
+                    request.getObservedProperties(), request.getFeatureIdentifiers(), session), locks);
+            List<Long> seriesIds = seriesObservationDAO.getSeriesIds(request.getProcedures(),
+                    request.getObservedProperties(), request.getFeatureIdentifiers(), request.getOfferings(), filter,
+                    session);
+            if (seriesIds.isEmpty()) {
+                return;
+            }
+            if (seriesObservationDAO.isDeletedFlagUpdateSupported(request.getTemporalFilters())) {
+                int deleted = seriesObservationDAO.updateDeletedFlag(seriesIds, request.getOfferings(),
+                        request.getTemporalFilters(), session);
+                LOGGER.debug("Deleted {} observations of {} series", deleted, seriesIds.size());
+            } else {
+                delete(observationDAO, request, filter, session);
+                session.flush();
+            }
+            List<Series> series = Lists.newArrayListWithCapacity(seriesIds.size());
+            for (Long id : seriesIds) {
+                series.add((Series) session.get(Series.class, id));
+            }
+            updateSeries(series, session);
+        } else {
+            delete(observationDAO, request, filter, session);
         }
     }
-    
+
+    private void delete(AbstractObservationDAO observationDAO, DeleteObservationRequest request, Criterion filter,
+            Session session) {
+        ScrollableResults result = observationDAO.getObservations(request.getProcedures(),
+                request.getObservedProperties(), request.getFeatureIdentifiers(), request.getOfferings(), filter,
+                session);
+        try {
+            while (result.next()) {
+                delete((Observation<?>) result.get()[0], session);
+            }
+        } finally {
+            result.close();
+        }
+    }
+
     private void delete(Observation<?> observation, Session session) {
         if (observation != null) {
             observation.setDeleted(true);
             session.saveOrUpdate(observation);
-            checkSeriesForFirstLatest(observation, session);
-            session.flush();
         }
     }
 
     /**
      * Check if {@link Series} should be updated
      * 
+     * @param series
+     *            Series of the deleted observation
      * @param observation
      *            Deleted observation
+     * @return <code>true</code>, if the observation is the first or latest of
+     *         the series
+     */
+    private boolean isFirstOrLatest(Series series, Observation<?> observation) {
+        return (series.getFirstTimeStamp() != null
+                && series.getFirstTimeStamp().equals(observation.getPhenomenonTimeStart()))
+                || (series.getLastTimeStamp() != null
+                        && series.getLastTimeStamp().equals(observation.getPhenomenonTimeEnd()));
+    }
+
+    /**
+     * Recompute the first/latest values of the {@link Series} once after
+     * their observations are deleted
+     *
+     * @param series
+     *            Affected series
      * @param session
      *            Hibernate session
+     * @throws OwsExceptionReport
+     *             If the series DAO is not supported
      */
-    private void checkSeriesForFirstLatest(Observation<?> observation, Session session) {
-        if (observation instanceof SeriesObservation) {
-            Series series = ((SeriesObservation) observation).getSeries();
-            if (series.getFirstTimeStamp().equals(observation.getPhenomenonTimeStart())
-                    || series.getLastTimeStamp().equals(observation.getPhenomenonTimeEnd())) {
-                new SeriesDAO().updateSeriesAfterObservationDeletion(series, (SeriesObservation) observation, session);
+    private void updateSeries(Iterable<Series> series, Session session) throws OwsExceptionReport {
+        AbstractSeriesDAO seriesDAO = null;
+        for (Series s : series) {
+            if (s != null) {
+                if (seriesDAO == null) {
+                    seriesDAO = DaoFactory.getInstance().getSeriesDAO();
+                }
+                seriesDAO.updateSeriesFirstLatestValues(s, session);
             }
         }
     }
+
+    /**
+     * Acquire the {@link IngestionLock} of the series before their
+     * observations are read
+     *
+     * @param series
+     *            Affected series
+     * @param locks
+     *            Acquired locks, to be released after the transaction ends
+     */
+    private void lock(Collection<Series> series, List<IngestionLock> locks) {
+        Set<String> keys = new TreeSet<>();
+        for (Series s : series) {
+            keys.add(IngestionLock.getKey(s.getProcedure().getIdentifier(),
+                    s.getObservableProperty().getIdentifier(), s.getFeatureOfInterest().getIdentifier()));
+        }
+        locks.add(IngestionLock.lock(keys));
+    }
+
+    private void unlock(List<IngestionLock> locks) {
+        for (IngestionLock lock : Lists.reverse(locks)) {
+            lock.unlock();
+        }
+        locks.clear();
+    }
 }
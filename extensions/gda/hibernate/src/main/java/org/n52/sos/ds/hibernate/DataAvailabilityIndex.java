@@ -0,0 +1,501 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Criteria;
+import org.hibernate.Session;
+import org.n52.sos.config.SettingsManager;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.ds.hibernate.dao.DaoFactory;
+import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesObservationDAO;
+import org.n52.sos.ds.hibernate.entities.observation.series.Series;
+import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.event.SosEvent;
+import org.n52.sos.event.SosEventBus;
+import org.n52.sos.event.SosEventListener;
+import org.n52.sos.event.events.ContentCacheUpdateEvent;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.ResultInsertion;
+import org.n52.sos.event.events.ResultTemplateInsertion;
+import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.event.events.SosContentChangeEvent;
+import org.n52.sos.gda.GetDataAvailabilitySettings;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.util.CollectionHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+/**
+ * Index of the phenomenon time extent and the value count of each series and
+ * of each offering of a series, used to answer GetDataAvailability requests
+ * without querying every series separately.
+ * <p/>
+ * The values are queried with grouped queries. If the index is enabled, the
+ * values of all series are queried once and kept in memory. Inserted
+ * observations and results only mark the series of their procedure and
+ * feature of interest as changed, and the values of these series are queried
+ * again on the next request. Deletions, sensor modifications and complete
+ * content cache updates invalidate the whole index. If the index is disabled,
+ * the values are queried per request for the requested series only.
+ * 
+ * @since 4.4.0
+ */
+@Configurable
+public class DataAvailabilityIndex implements SosEventListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataAvailabilityIndex.class);
+
+    private static final int SERIES_CHUNK_SIZE = 500;
+
+    private static final Set<Class<? extends SosEvent>> TYPES = Sets.<Class<? extends SosEvent>> newHashSet(
+            ContentCacheUpdateEvent.class, SosContentChangeEvent.class);
+
+    private static DataAvailabilityIndex instance = null;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Set<SeriesKey> changed = Sets.newConcurrentHashSet();
+
+    private volatile Snapshot snapshot;
+
+    private volatile boolean enabled = false;
+
+    public static synchronized DataAvailabilityIndex getInstance() {
+        if (instance == null) {
+            instance = new DataAvailabilityIndex();
+            SettingsManager.getInstance().configure(instance);
+            SosEventBus.getInstance().register(instance);
+        }
+        return instance;
+    }
+
+    DataAvailabilityIndex() {
+    }
+
+    @Setting(GetDataAvailabilitySettings.GDA_INDEX)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            invalidate();
+            this.snapshot = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the time extents and value counts of the series. If the index is
+     * enabled, the values of all series are returned. They are queried
+     * completely only after the index was invalidated, otherwise only the
+     * values of changed series are queried again. If the index is disabled,
+     * the values of the requested series are queried.
+     * 
+     * @param seriesObservationDAO
+     *            DAO to query the values
+     * @param seriesIds
+     *            Ids of the requested series
+     * @param session
+     *            Hibernate session
+     * @return the time extents and value counts
+     * @throws OwsExceptionReport
+     *             If an error occurs while querying the changed series
+     */
+    public Snapshot getSnapshot(AbstractSeriesObservationDAO seriesObservationDAO, Collection<Long> seriesIds,
+            Session session) throws OwsExceptionReport {
+        if (!isEnabled()) {
+            return query(seriesObservationDAO, seriesIds, new Snapshot(generation.get()), session);
+        }
+        Snapshot current = this.snapshot;
+        if (isValid(current) && changed.isEmpty()) {
+            return current;
+        }
+        synchronized (this) {
+            current = this.snapshot;
+            if (!isValid(current)) {
+                // changes up to now are contained in the new snapshot
+                changed.clear();
+                current = query(seriesObservationDAO, null, new Snapshot(generation.get()), session);
+                LOGGER.debug("Built data availability index for {} series", current.size());
+                this.snapshot = current;
+            } else if (!changed.isEmpty()) {
+                current = refresh(current, seriesObservationDAO, session);
+                this.snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Invalidate the index. The values of all series are queried again on the
+     * next request.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    private boolean isValid(Snapshot snapshot) {
+        return snapshot != null && snapshot.getGeneration() == generation.get();
+    }
+
+    /**
+     * Query the values of the series of the changed procedures and features
+     * of interest and replace them in a copy of the snapshot.
+     */
+    private Snapshot refresh(Snapshot current, AbstractSeriesObservationDAO seriesObservationDAO, Session session)
+            throws OwsExceptionReport {
+        SetMultimap<String, String> featuresPerProcedure = HashMultimap.create();
+        for (SeriesKey key : changed) {
+            if (changed.remove(key)) {
+                featuresPerProcedure.put(key.getProcedure(), key.getFeatureOfInterest());
+            }
+        }
+        try {
+            Set<Long> seriesIds = Sets.newHashSet();
+            for (String procedure : featuresPerProcedure.keySet()) {
+                for (List<String> features : Iterables.partition(featuresPerProcedure.get(procedure),
+                        SERIES_CHUNK_SIZE)) {
+                    for (Series series : DaoFactory.getInstance().getSeriesDAO()
+                            .getSeries(Collections.singleton(procedure), null, features, session)) {
+                        seriesIds.add(series.getSeriesId());
+                    }
+                }
+            }
+            LOGGER.debug("Updating data availability index for {} changed series", seriesIds.size());
+            return current.with(
+                    query(seriesObservationDAO, seriesIds, new Snapshot(current.getGeneration()), session),
+                    seriesIds);
+        } catch (OwsExceptionReport | RuntimeException e) {
+            // the changes are lost, so query everything on the next request
+            invalidate();
+            throw e;
+        }
+    }
+
+    private Snapshot query(AbstractSeriesObservationDAO seriesObservationDAO, Collection<Long> seriesIds,
+            Snapshot snapshot, Session session) {
+        if (seriesIds == null) {
+            queryChunk(seriesObservationDAO, null, snapshot, session);
+        } else if (CollectionHelper.isNotEmpty(seriesIds)) {
+            for (List<Long> chunk : Iterables.partition(seriesIds, SERIES_CHUNK_SIZE)) {
+                queryChunk(seriesObservationDAO, chunk, snapshot, session);
+            }
+        }
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void queryChunk(AbstractSeriesObservationDAO seriesObservationDAO, Collection<Long> seriesIds,
+            Snapshot snapshot, Session session) {
+        Criteria criteria = seriesObservationDAO.getMinMaxTimeCountCriteriaForSeries(seriesIds, false, session);
+        LOGGER.debug("QUERY getDataAvailabilityIndex(series): {}", HibernateHelper.getSqlString(criteria));
+        for (Object[] row : (List<Object[]>) criteria.list()) {
+            snapshot.put((Long) row[0], null, new Entry((Date) row[1], (Date) row[2], (Long) row[3]));
+        }
+        criteria = seriesObservationDAO.getMinMaxTimeCountCriteriaForSeries(seriesIds, true, session);
+        LOGGER.debug("QUERY getDataAvailabilityIndex(series, offerings): {}", HibernateHelper.getSqlString(criteria));
+        for (Object[] row : (List<Object[]>) criteria.list()) {
+            snapshot.put((Long) row[0], (String) row[1], new Entry((Date) row[2], (Date) row[3], (Long) row[4]));
+        }
+    }
+
+    @Override
+    public Set<Class<? extends SosEvent>> getTypes() {
+        return Collections.unmodifiableSet(TYPES);
+    }
+
+    @Override
+    public void handle(SosEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (event instanceof ContentCacheUpdateEvent) {
+            if (((ContentCacheUpdateEvent) event).isCompleteUpdate()) {
+                LOGGER.debug("Invalidating data availability index: {}", event);
+                invalidate();
+            }
+        } else if (event instanceof ObservationInsertion) {
+            markChanged(((ObservationInsertion) event).getRequest().getObservations(), event);
+        } else if (event instanceof ResultInsertion) {
+            markChanged(((ResultInsertion) event).getResponse().getObservations(), event);
+        } else if (!(event instanceof SensorInsertion) && !(event instanceof ResultTemplateInsertion)) {
+            // deletions and modifications can not be attributed to series
+            LOGGER.debug("Invalidating data availability index: {}", event);
+            invalidate();
+        }
+    }
+
+    private void markChanged(Collection<OmObservation> observations, SosEvent event) {
+        if (CollectionHelper.isEmpty(observations)) {
+            LOGGER.debug("Invalidating data availability index: {}", event);
+            invalidate();
+            return;
+        }
+        for (OmObservation observation : observations) {
+            String procedure = observation.getObservationConstellation().getProcedureIdentifier();
+            String featureOfInterest = observation.getObservationConstellation().getFeatureOfInterestIdentifier();
+            if (Strings.isNullOrEmpty(procedure) || Strings.isNullOrEmpty(featureOfInterest)) {
+                LOGGER.debug("Invalidating data availability index: {}", event);
+                invalidate();
+                return;
+            }
+            changed.add(new SeriesKey(procedure, featureOfInterest));
+        }
+    }
+
+    /**
+     * Procedure and feature of interest of changed series.
+     */
+    private static class SeriesKey {
+        private final String procedure;
+
+        private final String featureOfInterest;
+
+        SeriesKey(String procedure, String featureOfInterest) {
+            this.procedure = procedure;
+            this.featureOfInterest = featureOfInterest;
+        }
+
+        String getProcedure() {
+            return procedure;
+        }
+
+        String getFeatureOfInterest() {
+            return featureOfInterest;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(procedure, featureOfInterest);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof SeriesKey) {
+                SeriesKey other = (SeriesKey) obj;
+                return Objects.equal(procedure, other.getProcedure())
+                        && Objects.equal(featureOfInterest, other.getFeatureOfInterest());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Time extents and value counts of series and their offerings.
+     */
+    public static class Snapshot {
+        private final long generation;
+
+        private final Map<Long, Entry> series = Maps.newHashMap();
+
+        private final Map<Long, Map<String, Entry>> offerings = Maps.newHashMap();
+
+        Snapshot(long generation) {
+            this.generation = generation;
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+
+        void put(Long seriesId, String offering, Entry entry) {
+            if (offering == null) {
+                series.put(seriesId, entry);
+            } else {
+                Map<String, Entry> entries = offerings.get(seriesId);
+                if (entries == null) {
+                    entries = Maps.newHashMap();
+                    offerings.put(seriesId, entries);
+                }
+                entries.put(offering, entry);
+            }
+        }
+
+        /**
+         * Create a copy of this snapshot in which the values of the series are
+         * replaced by the values of the other snapshot. The entries are
+         * immutable and therefore shared.
+         * 
+         * @param other
+         *            the snapshot with the new values
+         * @param seriesIds
+         *            the ids of the series to replace
+         * @return the new snapshot
+         */
+        Snapshot with(Snapshot other, Collection<Long> seriesIds) {
+            Snapshot snapshot = new Snapshot(generation);
+            snapshot.series.putAll(series);
+            snapshot.offerings.putAll(offerings);
+            for (Long seriesId : seriesIds) {
+                snapshot.series.remove(seriesId);
+                snapshot.offerings.remove(seriesId);
+            }
+            snapshot.series.putAll(other.series);
+            snapshot.offerings.putAll(other.offerings);
+            return snapshot;
+        }
+
+        /**
+         * @return the number of series
+         */
+        public int size() {
+            return series.size();
+        }
+
+        /**
+         * Get the values of the series, merged over the offerings if
+         * offerings are specified
+         * 
+         * @param seriesId
+         *            the series id
+         * @param offerings
+         *            the offerings to restrict the values to, may be empty
+         * @return the values or <code>null</code> if the series has no
+         *         matching observations
+         */
+        public Entry get(long seriesId, Collection<String> offerings) {
+            if (CollectionHelper.isEmpty(offerings)) {
+                return series.get(seriesId);
+            }
+            Entry merged = null;
+            for (Entry entry : getOfferings(seriesId, offerings).values()) {
+                merged = merged == null ? entry : merged.merge(entry);
+            }
+            return merged;
+        }
+
+        /**
+         * Get the values of each offering of the series
+         * 
+         * @param seriesId
+         *            the series id
+         * @param offerings
+         *            the offerings to restrict the values to, may be empty
+         * @return the values per offering identifier
+         */
+        public Map<String, Entry> getOfferings(long seriesId, Collection<String> offerings) {
+            Map<String, Entry> entries = this.offerings.get(seriesId);
+            if (entries == null) {
+                return Collections.emptyMap();
+            }
+            if (CollectionHelper.isEmpty(offerings)) {
+                return Collections.unmodifiableMap(entries);
+            }
+            Map<String, Entry> filtered = Maps.newHashMap();
+            for (String offering : offerings) {
+                if (entries.containsKey(offering)) {
+                    filtered.put(offering, entries.get(offering));
+                }
+            }
+            return filtered;
+        }
+    }
+
+    /**
+     * Phenomenon time extent and value count.
+     */
+    public static class Entry {
+        private final Date start;
+
+        private final Date end;
+
+        private final long count;
+
+        public Entry(Date start, Date end, long count) {
+            this.start = start;
+            this.end = end;
+            this.count = count;
+        }
+
+        public Date getStart() {
+            return start;
+        }
+
+        public Date getEnd() {
+            return end;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public TimePeriod getTimePeriod() {
+            return new TimePeriod(start, end);
+        }
+
+        /**
+         * Merge the values with the values of another offering of the series.
+         * The count is summed up like a count over the joined offerings.
+         * 
+         * @param other
+         *            the other values
+         * @return the merged values
+         */
+        public Entry merge(Entry other) {
+            return new Entry(min(start, other.getStart()), max(end, other.getEnd()), count + other.getCount());
+        }
+
+        private static Date min(Date a, Date b) {
+            if (a == null) {
+                return b;
+            } else if (b == null) {
+                return a;
+            }
+            return a.before(b) ? a : b;
+        }
+
+        private static Date max(Date a, Date b) {
+            if (a == null) {
+                return b;
+            } else if (b == null) {
+                return a;
+            }
+            return a.after(b) ? a : b;
+        }
+    }
+}
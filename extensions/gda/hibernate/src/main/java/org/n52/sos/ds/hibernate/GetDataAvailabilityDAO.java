@@ -29,10 +29,12 @@
 package org.n52.sos.ds.hibernate;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.hibernate.Criteria;
@@ -94,6 +96,7 @@ import org.n52.sos.util.StringHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -131,6 +134,9 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
 
     private static final String SQL_QUERY_GET_DATA_AVAILABILITY_FOR_SERIES = "getDataAvailabilityForSeries";
     private static final String SQL_QUERY_GET_OFFERING_DATA_AVAILABILITY_FOR_SERIES = "getOfferingDataAvailabilityForSeries";
+
+    private static final int SERIES_CHUNK_SIZE = 500;
+
     private final HibernateSessionHolder sessionHolder = new HibernateSessionHolder();
 
     public GetDataAvailabilityDAO() {
@@ -287,15 +293,33 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
                 .setSeriesObservationDAO(getSeriesObservationDAO())
                 .setSupportsSeriesObservationTime(EntitiyHelper.getInstance().isSeriesObservationTimeSupported());
         boolean gdaV20 = checkForGDAv20(request);
-        for (final Series series : DaoFactory.getInstance().getSeriesDAO().getSeries(request.getProcedures(),
-                request.getObservedProperties(), request.getFeaturesOfInterest(), request.getOfferings(), session)) {
+        if (gdaV20) {
+            context.setMinMaxTransformer(new SeriesOfferingMinMaxTransformer())
+            .setSupportsNamedQuery(HibernateHelper.isNamedQuerySupported(SQL_QUERY_GET_OFFERING_DATA_AVAILABILITY_FOR_SERIES, session));
+        } else {
+            context.setMinMaxTransformer(new SeriesMinMaxTransformer())
+            .setSupportsNamedQuery(HibernateHelper.isNamedQuerySupported(SQL_QUERY_GET_DATA_AVAILABILITY_FOR_SERIES, session));
+        }
+        List<Series> seriesList = DaoFactory.getInstance().getSeriesDAO().getSeries(request.getProcedures(),
+                request.getObservedProperties(), request.getFeaturesOfInterest(), request.getOfferings(), session);
+        Set<Long> seriesIds = Sets.newHashSetWithExpectedSize(seriesList.size());
+        for (Series series : seriesList) {
+            seriesIds.add(series.getSeriesId());
+        }
+        // a named query or the SeriesObservationTime mapping of the database
+        // is used per series if the index is disabled
+        DataAvailabilityIndex index = DataAvailabilityIndex.getInstance();
+        if (index.isEnabled() || !context.isSupportsNamedQuery() && !context.isSupportsSeriesObservationTime()) {
+            context.setIndex(index.getSnapshot(context.getSeriesObservationDAO(), seriesIds, session));
+        }
+        if (isIncludeResultTime(request) && !seriesIds.isEmpty()) {
+            context.setResultTimes(getResultTimesFromSeriesObservation(context.getSeriesObservationDAO(), seriesIds,
+                    request, session));
+        }
+        for (final Series series : seriesList) {
             if (gdaV20) {
-                context.setMinMaxTransformer(new SeriesOfferingMinMaxTransformer())
-                .setSupportsNamedQuery(HibernateHelper.isNamedQuerySupported(SQL_QUERY_GET_OFFERING_DATA_AVAILABILITY_FOR_SERIES, session));
                 processDataAvailabilityForEachOffering(series, context, session);
             } else {
-                context.setMinMaxTransformer(new SeriesMinMaxTransformer())
-                .setSupportsNamedQuery(HibernateHelper.isNamedQuerySupported(SQL_QUERY_GET_DATA_AVAILABILITY_FOR_SERIES, session));
                 processDataAvailability(series, context, session);
             }
         }
@@ -323,45 +347,44 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
      *             If an error occurs
      */
     private void processDataAvailabilityForEachOffering(Series series, GdaRequestContext context, Session session) throws OwsExceptionReport {
-        List<OfferingMinMaxTime> offeringTimePeriodList = null;
+        List<OfferingMinMaxTime> offeringTimePeriodList = Lists.newArrayList();
         if (series.isSetOffering() && series.isSetFirstLastTime()) {
-            offeringTimePeriodList = Lists.newArrayList();
             offeringTimePeriodList.add(new OfferingMinMaxTime().setOffering(series.getOffering().getIdentifier())
                     .setTimePeriod(new TimePeriod(series.getFirstTimeStamp(), series.getLastTimeStamp())));
-        } else {
-            if (context.isSupportsNamedQuery()) {
-                offeringTimePeriodList = getOfferingTimePeriodFromNamedQuery(series.getSeriesId(), context.getMinMaxTransformer(), session);
-            } else if (offeringTimePeriodList == null && context.isSupportsSeriesObservationTime()) {
-                SeriesObservationTimeDAO seriesObservationTimeDAO =
-                        (SeriesObservationTimeDAO) DaoFactory.getInstance().getObservationTimeDAO();
-                offeringTimePeriodList = getOfferingTimePeriodFromSeriesGetDataAvailability(seriesObservationTimeDAO,
-                        series, context.getRequest(), context.getMinMaxTransformer(), session);
+        } else if (context.isSetIndex()) {
+            Map<String, DataAvailabilityIndex.Entry> entries =
+                    context.getIndex().getOfferings(series.getSeriesId(), context.getRequest().getOfferings());
+            for (Entry<String, DataAvailabilityIndex.Entry> entry : entries.entrySet()) {
+                offeringTimePeriodList.add(new OfferingMinMaxTime().setOffering(entry.getKey())
+                        .setTimePeriod(entry.getValue().getTimePeriod()));
             }
-            // get time information from SeriesObservation
-            else if (offeringTimePeriodList == null) {
-                offeringTimePeriodList = getOfferingTimePeriodFromSeriesObservation(context.getSeriesObservationDAO(),
-                        series, context.getRequest(), context.getMinMaxTransformer(), session);
-            }
-        }
-        if (CollectionHelper.isNotEmpty(offeringTimePeriodList)) {
-            for (OfferingMinMaxTime ommt : offeringTimePeriodList) {
-                if (ommt != null && !ommt.isEmpty()) {
-                    DataAvailability dataAvailability =
-                            new DataAvailability(getProcedureReference(series, context.getProcedures()), getObservedPropertyReference(
-                                    series, context.getObservableProperties()), getFeatureOfInterestReference(series,
-                                            context.getFeaturesOfInterest(), session), ommt.getTimePeriod());
-                    if (isShowCount(context.getRequest())) {
-                        dataAvailability.setCount(getCountFor(series, context.getRequest(), session));
-                    }
-                    if (isIncludeResultTime(context.getRequest())) {
-                        dataAvailability.setResultTimes(getResultTimesFromSeriesObservation(context.getSeriesObservationDAO(), series,
-                                context.getRequest(), session));
-                    }
-                    dataAvailability.setOffering(getOfferingReference(series, context.getOfferings(), ommt.getOffering(), session));
-                    dataAvailability.setFormatDescriptor(getFormatDescriptor(ommt.getOffering(), context, series));
-                    checkForMetadataExtension(dataAvailability, series, session);
-                    context.addDataAvailability(dataAvailability);
+        } else if (context.isSupportsNamedQuery()) {
+            offeringTimePeriodList = getOfferingTimePeriodFromNamedQuery(series.getSeriesId(), context.getMinMaxTransformer(), session);
+        } else if (context.isSupportsSeriesObservationTime()) {
+            SeriesObservationTimeDAO seriesObservationTimeDAO =
+                    (SeriesObservationTimeDAO) DaoFactory.getInstance().getObservationTimeDAO();
+            offeringTimePeriodList = getOfferingTimePeriodFromSeriesGetDataAvailability(seriesObservationTimeDAO,
+                    series, context.getRequest(), context.getMinMaxTransformer(), session);
+        } else {
+            offeringTimePeriodList = getOfferingTimePeriodFromSeriesObservation(context.getSeriesObservationDAO(),
+                    series, context.getRequest(), context.getMinMaxTransformer(), session);
+        }
+        for (OfferingMinMaxTime ommt : offeringTimePeriodList) {
+            if (ommt != null && !ommt.isEmpty()) {
+                DataAvailability dataAvailability =
+                        new DataAvailability(getProcedureReference(series, context.getProcedures()), getObservedPropertyReference(
+                                series, context.getObservableProperties()), getFeatureOfInterestReference(series,
+                                        context.getFeaturesOfInterest(), session), ommt.getTimePeriod());
+                if (isShowCount(context.getRequest())) {
+                    dataAvailability.setCount(getCountFor(series, context, session));
                 }
+                if (isIncludeResultTime(context.getRequest())) {
+                    dataAvailability.setResultTimes(context.getResultTimes(series));
+                }
+                dataAvailability.setOffering(getOfferingReference(series, context.getOfferings(), ommt.getOffering(), session));
+                dataAvailability.setFormatDescriptor(getFormatDescriptor(ommt.getOffering(), context, series));
+                checkForMetadataExtension(dataAvailability, series, session);
+                context.addDataAvailability(dataAvailability);
             }
         }
         checkForParentOfferings(context);
@@ -453,7 +476,7 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
     @SuppressWarnings("unchecked")
     private List<OfferingMinMaxTime> getOfferingTimePeriodFromNamedQuery(long seriesId,
             ResultTransformer minMaxTransformer, Session session) {
-        Query namedQuery = session.getNamedQuery(SQL_QUERY_GET_DATA_AVAILABILITY_FOR_SERIES);
+        Query namedQuery = session.getNamedQuery(SQL_QUERY_GET_OFFERING_DATA_AVAILABILITY_FOR_SERIES);
         namedQuery.setParameter(ContextualReferencedSeriesObservation.SERIES, seriesId);
         LOGGER.debug("QUERY getOfferingTimePeriodFromNamedQuery(series) with NamedQuery: {}", namedQuery);
         namedQuery.setResultTransformer(minMaxTransformer);
@@ -498,31 +521,37 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
      */
     private void processDataAvailability(Series series, GdaRequestContext context, Session session) throws OwsExceptionReport {
         TimePeriod timePeriod = null;
-        if (!context.getRequest().isSetOfferings()) {
-            // get time information from series object
-            if (series.isSetFirstLastTime()) {
-                timePeriod = new TimePeriod(series.getFirstTimeStamp(), series.getLastTimeStamp());
+        // get time information from series object
+        if (!context.getRequest().isSetOfferings() && series.isSetFirstLastTime()) {
+            timePeriod = new TimePeriod(series.getFirstTimeStamp(), series.getLastTimeStamp());
+        }
+        // get time information from the data availability index
+        else if (context.isSetIndex()) {
+            DataAvailabilityIndex.Entry entry =
+                    context.getIndex().get(series.getSeriesId(), context.getRequest().getOfferings());
+            if (entry != null) {
+                timePeriod = entry.getTimePeriod();
             }
+        } else {
             // get time information from a named query
-            else if (timePeriod == null && context.isSupportsNamedQuery()) {
+            if (!context.getRequest().isSetOfferings() && context.isSupportsNamedQuery()) {
                 timePeriod = getTimePeriodFromNamedQuery(series.getSeriesId(), context.getMinMaxTransformer(), session);
             }
-        }
-        // get time information from SeriesGetDataAvailability mapping if
-        // supported
-        if (timePeriod == null && context.isSupportsSeriesObservationTime()) {
-            SeriesObservationTimeDAO seriesObservationTimeDAO =
-                    (SeriesObservationTimeDAO) DaoFactory.getInstance().getObservationTimeDAO();
-
-            timePeriod =
-                    getTimePeriodFromSeriesGetDataAvailability(seriesObservationTimeDAO, series, context.getRequest(),
-                            context.getMinMaxTransformer(), session);
-        }
-        // get time information from SeriesObservation
-        else if (timePeriod == null) {
-            timePeriod =
-                    getTimePeriodFromSeriesObservation(context.getSeriesObservationDAO(), series, context.getRequest(),
-                            context.getMinMaxTransformer(), session);
+            // get time information from SeriesGetDataAvailability mapping if
+            // supported
+            if (timePeriod == null && context.isSupportsSeriesObservationTime()) {
+                SeriesObservationTimeDAO seriesObservationTimeDAO =
+                        (SeriesObservationTimeDAO) DaoFactory.getInstance().getObservationTimeDAO();
+                timePeriod =
+                        getTimePeriodFromSeriesGetDataAvailability(seriesObservationTimeDAO, series, context.getRequest(),
+                                context.getMinMaxTransformer(), session);
+            }
+            // get time information from SeriesObservation
+            else if (timePeriod == null) {
+                timePeriod =
+                        getTimePeriodFromSeriesObservation(context.getSeriesObservationDAO(), series, context.getRequest(),
+                                context.getMinMaxTransformer(), session);
+            }
         }
         // create DataAvailabilities
         if (timePeriod != null && !timePeriod.isEmpty()) {
@@ -531,11 +560,10 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
                             series, context.getObservableProperties()), getFeatureOfInterestReference(series,
                                     context.getFeaturesOfInterest(), session), timePeriod);
             if (isShowCount(context.getRequest())) {
-                dataAvailability.setCount(getCountFor(series, context.getRequest(), session));
+                dataAvailability.setCount(getCountFor(series, context, session));
             }
             if (isIncludeResultTime(context.getRequest())) {
-                dataAvailability.setResultTimes(getResultTimesFromSeriesObservation(context.getSeriesObservationDAO(), series,
-                        context.getRequest(), session));
+                dataAvailability.setResultTimes(context.getResultTimes(series));
             }
             context.addDataAvailability(dataAvailability);
         }
@@ -616,28 +644,34 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
      *
      * @param seriesObservationDAO
      *            DAO
-     * @param series
-     *            time series
+     * @param seriesIds
+     *            Ids of the time series
      * @param request
      *            GetDataAvailability request
      * @param session
      *            Hibernate session
-     * @return List of result times
+     * @return List of result times per series id
      * @throws OwsExceptionReport
      *             if the requested temporal filter is not supported
      */
-    private List<TimeInstant> getResultTimesFromSeriesObservation(AbstractSeriesObservationDAO seriesObservationDAO,
-            Series series, GetDataAvailabilityRequest request, Session session) throws OwsExceptionReport {
+    private Map<Long, List<TimeInstant>> getResultTimesFromSeriesObservation(
+            AbstractSeriesObservationDAO seriesObservationDAO, Collection<Long> seriesIds,
+            GetDataAvailabilityRequest request, Session session) throws OwsExceptionReport {
         Criterion filter = null;
         if (hasPhenomenonTimeFilter(request.getExtensions())) {
             filter = TemporalRestrictions.filter(getPhenomenonTimeFilter(request.getExtensions()));
         }
-        List<Date> dateTimes =
-                seriesObservationDAO.getResultTimesForSeriesObservation(series, request.getOfferings(), filter,
-                        session);
-        List<TimeInstant> resultTimes = Lists.newArrayList();
-        for (Date date : dateTimes) {
-            resultTimes.add(new TimeInstant(date));
+        Map<Long, List<TimeInstant>> resultTimes = Maps.newHashMap();
+        for (List<Long> chunk : Iterables.partition(seriesIds, SERIES_CHUNK_SIZE)) {
+            Map<Long, List<Date>> dateTimes =
+                    seriesObservationDAO.getResultTimesForSeries(chunk, request.getOfferings(), filter, session);
+            for (Entry<Long, List<Date>> entry : dateTimes.entrySet()) {
+                List<TimeInstant> timeInstants = Lists.newArrayListWithCapacity(entry.getValue().size());
+                for (Date date : entry.getValue()) {
+                    timeInstants.add(new TimeInstant(date));
+                }
+                resultTimes.put(entry.getKey(), timeInstants);
+            }
         }
         return resultTimes;
     }
@@ -647,19 +681,24 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
      *
      * @param series
      *            Time series
-     * @param request
-     *            GetDataAvailability request
+     * @param context
+     *            Request context
      * @param session
      *            Hibernate session
      * @return Count of available observations
      */
-    private Long getCountFor(Series series, GetDataAvailabilityRequest request, Session session) {
+    private Long getCountFor(Series series, GdaRequestContext context, Session session) {
+        if (context.isSetIndex()) {
+            DataAvailabilityIndex.Entry entry =
+                    context.getIndex().get(series.getSeriesId(), context.getRequest().getOfferings());
+            return entry == null ? 0L : entry.getCount();
+        }
         Criteria criteria = session.createCriteria(TemporalReferencedSeriesObservation.class)
-        		.add(Restrictions.eq(TemporalReferencedSeriesObservation.DELETED, false));
+                .add(Restrictions.eq(TemporalReferencedSeriesObservation.DELETED, false));
         criteria.add(Restrictions.eq(TemporalReferencedSeriesObservation.SERIES, series));
-        if (request.isSetOfferings()) {
+        if (context.getRequest().isSetOfferings()) {
             criteria.createCriteria(TemporalReferencedSeriesObservation.OFFERINGS)
-                    .add(Restrictions.in(Offering.IDENTIFIER, request.getOfferings()));
+                    .add(Restrictions.in(Offering.IDENTIFIER, context.getRequest().getOfferings()));
         }
         criteria.setProjection(Projections.rowCount());
         return (Long) criteria.uniqueResult();
@@ -933,6 +972,8 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
         private boolean seriesObservationTimeSupported;
         private boolean namedQuerySupported;
         private ResultTransformer minMaxTransformer;
+        private DataAvailabilityIndex.Snapshot index;
+        private Map<Long, List<TimeInstant>> resultTimes = Collections.emptyMap();
         private AbstractSeriesObservationDAO seriesObservationDAO;
         private List<DataAvailability> dataAvailabilityValues = Lists.newArrayList();
         private Map<String, ReferenceType> procedures = new HashMap<>();
@@ -995,6 +1036,16 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
             return this;
         }
 
+        public GdaRequestContext setIndex(DataAvailabilityIndex.Snapshot index) {
+            this.index = index;
+            return this;
+        }
+
+        public GdaRequestContext setResultTimes(Map<Long, List<TimeInstant>> resultTimes) {
+            this.resultTimes = resultTimes;
+            return this;
+        }
+
         public GdaRequestContext setSeriesObservationDAO(AbstractSeriesObservationDAO seriesObservationDAO) {
             this.seriesObservationDAO = seriesObservationDAO;
             return this;
@@ -1043,6 +1094,19 @@ public class GetDataAvailabilityDAO extends AbstractGetDataAvailabilityDAO imple
             return minMaxTransformer;
         }
 
+        public DataAvailabilityIndex.Snapshot getIndex() {
+            return index;
+        }
+
+        public boolean isSetIndex() {
+            return index != null;
+        }
+
+        public List<TimeInstant> getResultTimes(Series series) {
+            List<TimeInstant> times = resultTimes.get(series.getSeriesId());
+            return times == null ? Lists.<TimeInstant> newArrayList() : times;
+        }
+
         public AbstractSeriesObservationDAO getSeriesObservationDAO() {
             return seriesObservationDAO;
         }
@@ -45,6 +45,8 @@ public class GetDataAvailabilitySettings implements SettingDefinitionProvider {
     
     public static final String FORCE_GDA_20_RESPONSE = "operation.gda.forceVersion20";
     
+    public static final String GDA_INDEX = "operation.gda.index";
+    
     public static final BooleanSettingDefinition FORCE_GDA_VALUE_COUNT_DEFINITION = new BooleanSettingDefinition()
                 .setGroup(MiscSettings.GROUP)
                 .setOrder(ORDER_17)
@@ -63,8 +65,18 @@ public class GetDataAvailabilitySettings implements SettingDefinitionProvider {
             .setDescription(
                     "Should the SOS forced returning DataAvailability v2.0?");
     
+    public static final BooleanSettingDefinition GDA_INDEX_DEFINITION = new BooleanSettingDefinition()
+            .setGroup(MiscSettings.GROUP)
+            .setOrder(18.1F)
+            .setKey(GDA_INDEX)
+            .setDefaultValue(false)
+            .setTitle("Should the SOS keep a data availability index?")
+            .setDescription(
+                    "Should the SOS keep the time extent and value count of all timeseries in memory to answer GetDataAvailability requests without querying each timeseries? Inserted observations only update the index for the affected timeseries, deletions and complete content cache updates rebuild the whole index. If disabled, the values of the requested timeseries are queried per request.");
+    
     private static final Set<SettingDefinition<?, ?>> DEFINITIONS =
-            ImmutableSet.<SettingDefinition<?, ?>> of(FORCE_GDA_VALUE_COUNT_DEFINITION, FORCE_GDA_20_RESPONSE_DEFINITION);
+            ImmutableSet.<SettingDefinition<?, ?>> of(FORCE_GDA_VALUE_COUNT_DEFINITION, FORCE_GDA_20_RESPONSE_DEFINITION,
+                    GDA_INDEX_DEFINITION);
 
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+
+import org.hibernate.HibernateException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Striped lock that serializes concurrent insertions into the same series,
+ * identified by procedure, observable property and feature of interest, while
+ * insertions into different series run in parallel. The locks are acquired in
+ * stripe order, so requests spanning several series can not deadlock.
+ * <p/>
+ * Entities shared between series (features, units, codespaces, ...) are
+ * inserted optimistically: if two transactions race for the same entity, the
+ * unique constraint rejects one of them and the insertion is retried (see
+ * {@link #isRetryable(HibernateException)}), finding the entity committed by
+ * the other transaction.
+ * <p/>
+ * If the series are only known while inserting, the lock can be extended by
+ * {@link #tryExtend(Iterable)} without waiting. If another insertion holds one
+ * of the additional series, {@link #extend(Iterable)} fails with a retryable
+ * exception and the insertion is retried with all series locked in advance.
+ * <p/>
+ * Deletions acquire the same locks, so the first/latest values of a series are
+ * not recomputed while observations are inserted into it.
+ *
+ * @since 4.4.0
+ */
+public final class IngestionLock {
+    /**
+     * Maximum number of attempts of an insertion that failed because of a
+     * concurrent insertion of a shared entity.
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final int STRIPES = 1024;
+
+    private static final Striped<Lock> LOCKS = Striped.lazyWeakLock(STRIPES);
+
+    private static final Joiner KEY_JOINER = Joiner.on('\u0000').useForNull("");
+
+    private final List<Lock> locks = Lists.newArrayList();
+
+    private final Set<Lock> held = Sets.newIdentityHashSet();
+
+    private IngestionLock() {
+    }
+
+    /**
+     * Acquire the locks of the series of the observations.
+     *
+     * @param observations
+     *            the observations to insert
+     * @return the acquired lock
+     */
+    static IngestionLock lock(Collection<OmObservation> observations) {
+        return lock(getKeys(observations));
+    }
+
+    /**
+     * Acquire the locks of the series keys.
+     *
+     * @param keys
+     *            the keys of the series
+     * @return the acquired lock
+     */
+    public static IngestionLock lock(Iterable<String> keys) {
+        IngestionLock lock = new IngestionLock();
+        for (Lock l : LOCKS.bulkGet(keys)) {
+            if (lock.held.add(l)) {
+                l.lock();
+                lock.locks.add(l);
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Acquire the locks of all series. Used if the series of an insertion can
+     * not be locked in advance.
+     *
+     * @return the acquired lock
+     */
+    static IngestionLock lockAll() {
+        IngestionLock lock = new IngestionLock();
+        for (int i = 0; i < LOCKS.size(); i++) {
+            Lock l = LOCKS.getAt(i);
+            if (lock.held.add(l)) {
+                l.lock();
+                lock.locks.add(l);
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Try to acquire the locks of additional series keys without waiting.
+     * Waiting for them could deadlock, as the locks are not acquired in
+     * stripe order.
+     *
+     * @param keys
+     *            the keys of the series
+     * @return if the locks of all keys are held
+     */
+    boolean tryExtend(Iterable<String> keys) {
+        for (Lock l : LOCKS.bulkGet(keys)) {
+            if (!held.contains(l)) {
+                if (!l.tryLock()) {
+                    return false;
+                }
+                held.add(l);
+                locks.add(l);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Acquire the locks of additional series keys without waiting.
+     *
+     * @param keys
+     *            the keys of the series
+     * @throws LockUnavailableException
+     *             if another insertion holds one of the locks
+     */
+    void extend(Iterable<String> keys) throws LockUnavailableException {
+        if (!tryExtend(keys)) {
+            throw new LockUnavailableException();
+        }
+    }
+
+    /**
+     * Release all locks.
+     */
+    public void unlock() {
+        for (Lock l : Lists.reverse(locks)) {
+            l.unlock();
+        }
+        locks.clear();
+        held.clear();
+    }
+
+    /**
+     * @return the number of stripes held by this lock
+     */
+    int size() {
+        return locks.size();
+    }
+
+    /**
+     * Get the keys of the series of the observations.
+     *
+     * @param observations
+     *            the observations
+     * @return the sorted keys
+     */
+    static Set<String> getKeys(Collection<OmObservation> observations) {
+        Set<String> keys = new TreeSet<>();
+        for (OmObservation observation : observations) {
+            keys.add(getKey(observation.getObservationConstellation()));
+        }
+        return keys;
+    }
+
+    /**
+     * Get the key of the series of an observation constellation.
+     *
+     * @param constellation
+     *            the observation constellation
+     * @return the key
+     */
+    static String getKey(OmObservationConstellation constellation) {
+        String observableProperty = null;
+        if (constellation.getObservableProperty() != null) {
+            observableProperty = constellation.getObservablePropertyIdentifier();
+        }
+        return getKey(constellation.getProcedureIdentifier(), observableProperty,
+                constellation.getFeatureOfInterestIdentifier());
+    }
+
+    /**
+     * Get the key of a series.
+     *
+     * @param procedure
+     *            the procedure identifier
+     * @param observableProperty
+     *            the observable property identifier
+     * @param featureOfInterest
+     *            the feature of interest identifier
+     * @return the key
+     */
+    public static String getKey(String procedure, String observableProperty, String featureOfInterest) {
+        return KEY_JOINER.join(procedure, observableProperty, featureOfInterest);
+    }
+
+    /**
+     * Check if a failed insertion may have been caused by a concurrent
+     * insertion of the same entity and should be retried.
+     *
+     * @param he
+     *            the exception
+     * @return if the insertion should be retried
+     */
+    static boolean isRetryable(HibernateException he) {
+        return he instanceof ConstraintViolationException || he instanceof LockUnavailableException;
+    }
+
+    /**
+     * Thrown if the lock of an additional series is held by another insertion.
+     */
+    static class LockUnavailableException extends HibernateException {
+        private static final long serialVersionUID = 2381409365373720744L;
+
+        LockUnavailableException() {
+            super("The series is locked by a concurrent insertion");
+        }
+    }
+}
@@ -28,6 +28,8 @@
  */
 package org.n52.sos.ds.hibernate.dao.ereporting;
 
+import java.util.List;
+
 import org.hibernate.Criteria;
 import org.hibernate.criterion.Restrictions;
 import org.n52.sos.ds.hibernate.dao.observation.ObservationContext;
@@ -65,6 +67,13 @@ public class EReportingObservationContext extends ObservationContext {
         }
     }
 
+    @Override
+    public List<String> getSeriesKey() {
+        List<String> key = super.getSeriesKey();
+        key.add(isSetSamplingPoint() ? getSamplingPoint().getIdentifier() : null);
+        return key;
+    }
+
     @Override
     public void addValuesToSeries(HasWriteableObservationContext contextual) {
         super.addValuesToSeries(contextual);
@@ -62,6 +62,7 @@ import org.n52.sos.ds.hibernate.dao.ObservationConstellationDAO;
 import org.n52.sos.ds.hibernate.dao.ObservationTypeDAO;
 import org.n52.sos.ds.hibernate.dao.ParameterDAO;
 import org.n52.sos.ds.hibernate.dao.UnitDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.SeriesBatch;
 import org.n52.sos.ds.hibernate.entities.Codespace;
 import org.n52.sos.ds.hibernate.entities.ObservableProperty;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
@@ -171,6 +172,26 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
     protected abstract void addObservationContextToObservation(ObservationContext observationIdentifiers,
             Observation<?> observation, Session session) throws CodedException;
 
+    /**
+     * Add observation identifier (procedure, observableProperty,
+     * featureOfInterest) to observation using the series state of a bulk
+     * insertion. DAOs without series ignore the batch.
+     *
+     * @param observationIdentifiers
+     *            Observation identifiers
+     * @param observation
+     *            Observation to add identifiers
+     * @param seriesBatch
+     *            Series state of the bulk insertion, may be <code>null</code>
+     * @param session
+     *            Hibernate session
+     * @throws CodedException
+     */
+    protected void addObservationContextToObservation(ObservationContext observationIdentifiers,
+            Observation<?> observation, SeriesBatch seriesBatch, Session session) throws CodedException {
+        addObservationContextToObservation(observationIdentifiers, observation, session);
+    }
+
     /**
      * Get Hibernate Criteria for querying observations with parameters
      * featureOfInterst and procedure
@@ -517,10 +538,39 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
     public void insertObservationMultiValue(ObservationConstellation observationConstellation,
             AbstractFeatureOfInterest feature, OmObservation containerObservation, Map<String, Codespace> codespaceCache,
             Map<UoM, Unit> unitCache, Set<Offering> hOfferings, Session session) throws OwsExceptionReport {
+        insertObservationMultiValue(observationConstellation, feature, containerObservation, codespaceCache,
+                unitCache, hOfferings, null, session);
+    }
+
+    /**
+     * Insert a multi value observation for observation constellations and
+     * featureOfInterest as part of a bulk insertion
+     *
+     * @param observationConstellation
+     *            Observation constellation object
+     * @param feature
+     *            FeatureOfInterest object
+     * @param containerObservation
+     *            SOS observation
+     * @param codespaceCache
+     *            Map based codespace object cache to prevent redundant queries
+     * @param unitCache
+     *            Map based unit object cache to prevent redundant queries
+     * @param seriesBatch
+     *            Series state of the bulk insertion, may be <code>null</code>
+     * @param session
+     *            Hibernate session
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public void insertObservationMultiValue(ObservationConstellation observationConstellation,
+            AbstractFeatureOfInterest feature, OmObservation containerObservation, Map<String, Codespace> codespaceCache,
+            Map<UoM, Unit> unitCache, Set<Offering> hOfferings, SeriesBatch seriesBatch, Session session)
+            throws OwsExceptionReport {
         List<OmObservation> unfoldObservations = HibernateObservationUtilities.unfoldObservation(containerObservation);
         for (OmObservation sosObservation : unfoldObservations) {
             insertObservationSingleValue(observationConstellation, feature, sosObservation, codespaceCache, unitCache,
-                    hOfferings, session);
+                    hOfferings, seriesBatch, session);
         }
     }
 
@@ -562,12 +612,42 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
      *            Hibernate session
      * @throws OwsExceptionReport
      */
-    @SuppressWarnings("rawtypes")
     public void insertObservationSingleValue(ObservationConstellation hObservationConstellation,
             AbstractFeatureOfInterest hFeature, OmObservation sosObservation,
             Map<String, Codespace> codespaceCache,
             Map<UoM, Unit> unitCache, Set<Offering> hOfferings, Session session)
             throws OwsExceptionReport {
+        insertObservationSingleValue(hObservationConstellation, hFeature, sosObservation, codespaceCache, unitCache,
+                hOfferings, null, session);
+    }
+
+    /**
+     * Insert a single observation for observation constellations and
+     * featureOfInterest as part of a bulk insertion
+     *
+     * @param hObservationConstellations
+     *            Observation constellation objects
+     * @param hFeature
+     *            FeatureOfInterest object
+     * @param sosObservation
+     *            SOS observation to insert
+     * @param codespaceCache
+     *            Map cache for codespace objects (to prevent redundant
+     *            querying)
+     * @param unitCache
+     *            Map cache for unit objects (to prevent redundant querying)
+     * @param seriesBatch
+     *            Series state of the bulk insertion, may be <code>null</code>
+     * @param session
+     *            Hibernate session
+     * @throws OwsExceptionReport
+     */
+    @SuppressWarnings("rawtypes")
+    public void insertObservationSingleValue(ObservationConstellation hObservationConstellation,
+            AbstractFeatureOfInterest hFeature, OmObservation sosObservation,
+            Map<String, Codespace> codespaceCache,
+            Map<UoM, Unit> unitCache, Set<Offering> hOfferings, SeriesBatch seriesBatch, Session session)
+            throws OwsExceptionReport {
         SingleObservationValue<?> value
                 = (SingleObservationValue) sosObservation.getValue();
         ObservationPersister persister = new ObservationPersister(
@@ -578,6 +658,7 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
                 codespaceCache,
                 unitCache,
                 hOfferings,
+                seriesBatch,
                 session
         );
         value.getValue().accept(persister);
@@ -1409,10 +1490,11 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
                 Map<String, Codespace> codespaceCache,
                 Map<UoM, Unit> unitCache,
                 Set<Offering> hOfferings,
+                SeriesBatch seriesBatch,
                 Session session)
                 throws OwsExceptionReport {
             this(new DAOs(observationDao),
-                 new Caches(codespaceCache, unitCache),
+                 new Caches(codespaceCache, unitCache, seriesBatch),
                  sosObservation,
                  hObservationConstellation,
                  hFeature,
@@ -1668,7 +1750,8 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
             observationContext.setFeatureOfInterest(featureOfInterest);
             observation.setOfferings(offerings);
             daos.observation().fillObservationContext(observationContext, sosObservation, session);
-            daos.observation().addObservationContextToObservation(observationContext, observation, session);
+            daos.observation().addObservationContextToObservation(observationContext, observation,
+                    caches.seriesBatch(), session);
 
             session.saveOrUpdate(observation);
 
@@ -1697,10 +1780,12 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
         private static class Caches {
             private final Map<String, Codespace> codespaces;
             private final Map<UoM, Unit> units;
+            private final SeriesBatch seriesBatch;
 
-            Caches(Map<String, Codespace> codespaces, Map<UoM, Unit> units) {
+            Caches(Map<String, Codespace> codespaces, Map<UoM, Unit> units, SeriesBatch seriesBatch) {
                 this.codespaces = codespaces;
                 this.units = units;
+                this.seriesBatch = seriesBatch;
             }
 
             public Map<String, Codespace> codespaces() {
@@ -1710,6 +1795,10 @@ public abstract class AbstractObservationDAO extends AbstractIdentifierNameDescr
             public Map<UoM, Unit> units() {
                 return units;
             }
+
+            public SeriesBatch seriesBatch() {
+                return seriesBatch;
+            }
         }
 
         private static class DAOs {
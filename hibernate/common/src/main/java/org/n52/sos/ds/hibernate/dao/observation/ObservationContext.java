@@ -28,6 +28,8 @@
  */
 package org.n52.sos.ds.hibernate.dao.observation;
 
+import java.util.List;
+
 import org.hibernate.Criteria;
 import org.hibernate.criterion.Restrictions;
 import org.n52.sos.ds.hibernate.entities.HibernateRelations.HasSeriesType;
@@ -38,6 +40,7 @@ import org.n52.sos.ds.hibernate.entities.Procedure;
 import org.n52.sos.ds.hibernate.entities.feature.AbstractFeatureOfInterest;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 
 /**
  * Class to carry observation identifiers (featureOfInterest,
@@ -151,6 +154,20 @@ public class ObservationContext {
         }
     }
 
+    /**
+     * Get a key that identifies the series described by this context, e.g. to
+     * reuse an already resolved series for subsequent observations.
+     *
+     * @return the identifiers of the series defining entities
+     */
+    public List<String> getSeriesKey() {
+        return Lists.newArrayList(
+                isSetFeatureOfInterest() ? getFeatureOfInterest().getIdentifier() : null,
+                isSetObservableProperty() ? getObservableProperty().getIdentifier() : null,
+                isSetProcedure() ? getProcedure().getIdentifier() : null,
+                isSetOffering() ? getOffering().getIdentifier() : null);
+    }
+
     public void addValuesToSeries(HasWriteableObservationContext contextual) {
         if (isSetFeatureOfInterest()) {
             contextual.setFeatureOfInterest(getFeatureOfInterest());
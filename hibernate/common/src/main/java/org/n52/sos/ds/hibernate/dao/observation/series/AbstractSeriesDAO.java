@@ -501,8 +501,25 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
      *            Hibernate session
      */
     public void updateSeriesWithFirstLatestValues(Series series, Observation<?> hObservation, Session session) {
+        setFirstLatestValues(series, hObservation);
+        session.saveOrUpdate(series);
+        session.flush();
+    }
+
+    /**
+     * Set the first/latest values of the series from the observation without
+     * persisting the series.
+     *
+     * @param series
+     *            Series object
+     * @param hObservation
+     *            Observation object
+     * @return <code>true</code>, if the series was modified
+     */
+    boolean setFirstLatestValues(Series series, Observation<?> hObservation) {
         boolean minChanged = false;
         boolean maxChanged = false;
+        boolean unitChanged = false;
         if (!series.isSetFirstTimeStamp()
                 || (series.isSetFirstTimeStamp() && series.getFirstTimeStamp().after(
                         hObservation.getPhenomenonTimeStart()))) {
@@ -526,10 +543,10 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
             if (!series.isSetUnit() && hObservation.isSetUnit()) {
                 // TODO check if both unit are equal. If not throw exception?
                 series.setUnit(hObservation.getUnit());
+                unitChanged = true;
             }
         }
-        session.saveOrUpdate(series);
-        session.flush();
+        return minChanged || maxChanged || unitChanged;
     }
 
     /**
@@ -579,6 +596,46 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
         session.saveOrUpdate(series);
     }
 
+    /**
+     * Recompute the first and latest time stamps and values of the series from
+     * its remaining, not deleted observations. Used after a bulk deletion to
+     * update each affected series only once.
+     *
+     * @param series
+     *            Series to update
+     * @param session
+     *            Hibernate session
+     *
+     * @since 4.4.0
+     */
+    public void updateSeriesFirstLatestValues(Series series, Session session) {
+        SeriesObservationDAO seriesObservationDAO = new SeriesObservationDAO();
+        SeriesObservation<?> firstObservation = seriesObservationDAO.getFirstObservationFor(series, session);
+        if (firstObservation != null) {
+            series.setFirstTimeStamp(firstObservation.getPhenomenonTimeStart());
+            if (firstObservation instanceof NumericObservation) {
+                series.setFirstNumericValue(((NumericObservation) firstObservation).getValue());
+            }
+        } else {
+            series.setFirstTimeStamp(null);
+            series.setFirstNumericValue(null);
+        }
+        SeriesObservation<?> latestObservation = seriesObservationDAO.getLastObservationFor(series, session);
+        if (latestObservation != null) {
+            series.setLastTimeStamp(latestObservation.getPhenomenonTimeEnd());
+            if (latestObservation instanceof NumericObservation) {
+                series.setLastNumericValue(((NumericObservation) latestObservation).getValue());
+            }
+        } else {
+            series.setLastTimeStamp(null);
+            series.setLastNumericValue(null);
+        }
+        if (!series.isSetFirstLastTime()) {
+            series.setUnit(null);
+        }
+        session.saveOrUpdate(series);
+    }
+
     public TimeExtrema getProcedureTimeExtrema(Session session, String procedure) {
         Criteria c = getDefaultSeriesCriteria(session);
         addProcedureToCriteria(c, procedure);
@@ -597,6 +654,39 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
         return pte;
     }
 
+    /**
+     * Get the state of all series that is relevant for the content cache,
+     * used to detect changed series between two cache updates. Each row
+     * contains the series id, the offering (may be <code>null</code>),
+     * procedure, featureOfInterest and observableProperty identifiers, the
+     * first and last time stamp and the deleted and published flags.
+     *
+     * @param session
+     *            Hibernate session
+     * @return Series states
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getSeriesCacheStates(Session session) {
+        Criteria c = session.createCriteria(getSeriesClass());
+        c.createAlias(Series.OFFERING, "off", JoinType.LEFT_OUTER_JOIN);
+        c.createAlias(Series.PROCEDURE, "proc");
+        c.createAlias(Series.FEATURE_OF_INTEREST, "foi");
+        c.createAlias(Series.OBSERVABLE_PROPERTY, "obsProp");
+        ProjectionList projectionList = Projections.projectionList();
+        projectionList.add(Projections.property(Series.ID));
+        projectionList.add(Projections.property("off." + Offering.IDENTIFIER));
+        projectionList.add(Projections.property("proc." + Procedure.IDENTIFIER));
+        projectionList.add(Projections.property("foi." + FeatureOfInterest.IDENTIFIER));
+        projectionList.add(Projections.property("obsProp." + ObservableProperty.IDENTIFIER));
+        projectionList.add(Projections.property(Series.FIRST_TIME_STAMP));
+        projectionList.add(Projections.property(Series.LAST_TIME_STAMP));
+        projectionList.add(Projections.property(Series.DELETED));
+        projectionList.add(Projections.property(Series.PUBLISHED));
+        c.setProjection(projectionList);
+        LOGGER.debug("QUERY getSeriesCacheStates(): {}", HibernateHelper.getSqlString(c));
+        return c.list();
+    }
+
     /**
      * Create series query criteria for parameter
      *
@@ -34,14 +34,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.hibernate.Criteria;
+import org.hibernate.Query;
 import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.ProjectionList;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.dialect.Dialect;
@@ -69,18 +73,26 @@ import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.ds.hibernate.util.HibernateGeometryCreator;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.ScrollableIterable;
+import org.n52.sos.ds.hibernate.util.TemporalRestrictions;
+import org.n52.sos.ds.hibernate.util.TimePrimitiveFieldDescriptor;
 import org.n52.sos.ds.hibernate.util.observation.ExtensionFesFilterCriteriaAdder;
 import org.n52.sos.exception.CodedException;
+import org.n52.sos.ogc.filter.TemporalFilter;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
 import org.n52.sos.ogc.om.OmObservation;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.SosConstants.SosIndeterminateTime;
 import org.n52.sos.request.GetObservationRequest;
 import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.DateTimeHelper;
 import org.n52.sos.util.GeometryHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
@@ -88,6 +100,16 @@ public abstract class AbstractSeriesObservationDAO extends AbstractObservationDA
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractSeriesObservationDAO.class);
 
+    private static final String DELETED_PARAMETER = "deleted";
+
+    private static final String NOT_DELETED_PARAMETER = "notDeleted";
+
+    private static final String SERIES_PARAMETER = "series";
+
+    private static final String OFFERING_PARAMETER = "offering";
+
+    private static final String TIME_PARAMETER = "time";
+
     @Override
     protected void addObservationContextToObservation(ObservationContext ctx,
             Observation<?> observation, Session session) throws CodedException {
@@ -97,6 +119,19 @@ public abstract class AbstractSeriesObservationDAO extends AbstractObservationDA
         seriesDAO.updateSeriesWithFirstLatestValues(series, observation, session);
     }
 
+    @Override
+    protected void addObservationContextToObservation(ObservationContext ctx, Observation<?> observation,
+            SeriesBatch seriesBatch, Session session) throws CodedException {
+        if (seriesBatch == null) {
+            addObservationContextToObservation(ctx, observation, session);
+        } else {
+            AbstractSeriesDAO seriesDAO = DaoFactory.getInstance().getSeriesDAO();
+            Series series = seriesBatch.getOrInsertSeries(ctx, seriesDAO, session);
+            ((SeriesObservation) observation).setSeries(series);
+            seriesBatch.updateSeriesWithFirstLatestValues(series, observation, seriesDAO);
+        }
+    }
+
     @Override
     public Criteria getObservationInfoCriteriaForFeatureOfInterestAndProcedure(String feature, String procedure,
             Session session) {
@@ -238,6 +273,229 @@ public abstract class AbstractSeriesObservationDAO extends AbstractObservationDA
     public ScrollableResults getObservations(Set<String> procedure, Set<String> observableProperty,
             Set<String> featureOfInterest, Set<String> offering, Criterion filterCriterion, Session session) {
         Criteria c = getDefaultObservationCriteria(session);
+        createObservationsCriteria(c, procedure, observableProperty, featureOfInterest, offering, filterCriterion);
+        LOGGER.debug("QUERY getObservations({}): {}", getLogArgs(filterCriterion), HibernateHelper.getSqlString(c));
+        
+        return c.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * Query the ids of the series with observations matching the parameters.
+     * No observation entities or ids are loaded.
+     *
+     * @param procedure
+     *            Procedure identifiers
+     * @param observableProperty
+     *            ObservableProperty identifiers
+     * @param featureOfInterest
+     *            FeatureOfInterest identifiers
+     * @param offering
+     *            Offering identifiers
+     * @param filterCriterion
+     *            Temporal filter {@link Criterion}, may be {@code null}
+     * @param session
+     *            Hibernate session
+     * @return Ids of the series with matching observations
+     *
+     * @since 4.4.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> getSeriesIds(Set<String> procedure, Set<String> observableProperty,
+            Set<String> featureOfInterest, Set<String> offering, Criterion filterCriterion, Session session) {
+        Criteria c = getDefaultObservationCriteria(session);
+        String seriesAliasPrefix =
+                createObservationsCriteria(c, procedure, observableProperty, featureOfInterest, offering,
+                        filterCriterion);
+        c.setProjection(Projections.distinct(Projections.property(seriesAliasPrefix + Series.ID)));
+        LOGGER.debug("QUERY getSeriesIds({}): {}", getLogArgs(filterCriterion), HibernateHelper.getSqlString(c));
+        return c.list();
+    }
+
+    /**
+     * Check if the temporal filters can be applied by
+     * {@link #updateDeletedFlag(Collection, Set, Collection, Session)}. The
+     * HQL UPDATE supports the operators <tt>TM_Before</tt>, <tt>TM_After</tt>,
+     * <tt>TM_During</tt> and <tt>TM_Equals</tt> on the phenomenon and result
+     * time.
+     *
+     * @param temporalFilters
+     *            the temporal filters, may be empty
+     * @return if the filters are supported
+     *
+     * @since 4.4.0
+     */
+    public boolean isDeletedFlagUpdateSupported(Collection<TemporalFilter> temporalFilters) {
+        if (CollectionHelper.isNotEmpty(temporalFilters)) {
+            for (TemporalFilter temporalFilter : temporalFilters) {
+                if (getTemporalFilterHql(temporalFilter, Maps.<String, Object> newHashMap()) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Set the deleted flag of the observations of the series matching the
+     * offerings and temporal filters with one HQL UPDATE statement, instead of
+     * loading and updating the observations.
+     *
+     * @param seriesIds
+     *            Ids of the series
+     * @param offering
+     *            Offering identifiers, may be empty
+     * @param temporalFilters
+     *            Temporal filters, may be empty. Must be
+     *            {@link #isDeletedFlagUpdateSupported(Collection) supported}.
+     * @param session
+     *            Hibernate session
+     * @return Number of updated observations
+     *
+     * @since 4.4.0
+     */
+    public int updateDeletedFlag(Collection<Long> seriesIds, Set<String> offering,
+            Collection<TemporalFilter> temporalFilters, Session session) {
+        if (CollectionHelper.isEmpty(seriesIds)) {
+            return 0;
+        }
+        Map<String, Object> parameters = Maps.newHashMap();
+        StringBuilder hql = new StringBuilder().append("update ")
+                .append(getObservationFactory().contextualReferencedClass().getName()).append(" o set ")
+                .append(Observation.DELETED).append(" = :").append(DELETED_PARAMETER).append(" where o.")
+                .append(Observation.DELETED).append(" = :").append(NOT_DELETED_PARAMETER).append(" and o.")
+                .append(SeriesObservation.SERIES).append('.').append(Series.ID).append(" in (:")
+                .append(SERIES_PARAMETER).append(')');
+        parameters.put(DELETED_PARAMETER, true);
+        parameters.put(NOT_DELETED_PARAMETER, false);
+        parameters.put(SERIES_PARAMETER, seriesIds);
+        if (CollectionHelper.isNotEmpty(offering)) {
+            hql.append(" and exists (select off from ").append(Offering.class.getName()).append(" off where off.")
+                    .append(Offering.IDENTIFIER).append(" in (:").append(OFFERING_PARAMETER)
+                    .append(") and off member of o.").append(SeriesObservation.OFFERINGS).append(')');
+            parameters.put(OFFERING_PARAMETER, offering);
+        }
+        if (CollectionHelper.isNotEmpty(temporalFilters)) {
+            // filters of the same value reference are combined by OR, like
+            // TemporalRestrictions.filter(Iterable)
+            Map<String, List<String>> byValueReference = Maps.newHashMap();
+            for (TemporalFilter temporalFilter : temporalFilters) {
+                List<String> clauses = byValueReference.get(temporalFilter.getValueReference());
+                if (clauses == null) {
+                    clauses = Lists.newArrayList();
+                    byValueReference.put(temporalFilter.getValueReference(), clauses);
+                }
+                clauses.add(getTemporalFilterHql(temporalFilter, parameters));
+            }
+            for (List<String> clauses : byValueReference.values()) {
+                hql.append(" and (").append(Joiner.on(" or ").join(clauses)).append(')');
+            }
+        }
+        LOGGER.debug("QUERY updateDeletedFlag({} series): {}", seriesIds.size(), hql);
+        Query query = session.createQuery(hql.toString());
+        for (Entry<String, Object> parameter : parameters.entrySet()) {
+            if (parameter.getValue() instanceof Collection) {
+                query.setParameterList(parameter.getKey(), (Collection<?>) parameter.getValue());
+            } else {
+                query.setParameter(parameter.getKey(), parameter.getValue());
+            }
+        }
+        return query.executeUpdate();
+    }
+
+    /**
+     * Create the HQL condition of a temporal filter with the semantics of
+     * {@link TemporalRestrictions#filter(TemporalFilter)}.
+     *
+     * @param temporalFilter
+     *            the temporal filter
+     * @param parameters
+     *            the query parameters to add the compared times to
+     * @return the HQL condition or <code>null</code> if the filter is not
+     *         supported
+     */
+    private String getTemporalFilterHql(TemporalFilter temporalFilter, Map<String, Object> parameters) {
+        TimePrimitiveFieldDescriptor fields;
+        if (TemporalRestrictions.PHENOMENON_TIME_VALUE_REFERENCE.equals(temporalFilter.getValueReference())) {
+            fields = TemporalRestrictions.PHENOMENON_TIME_FIELDS;
+        } else if (TemporalRestrictions.RESULT_TIME_VALUE_REFERENCE.equals(temporalFilter.getValueReference())) {
+            fields = TemporalRestrictions.RESULT_TIME_FIELDS;
+        } else {
+            return null;
+        }
+        String begin = "o." + (fields.isPeriod() ? fields.getBeginPosition() : fields.getPosition());
+        String end = "o." + (fields.isPeriod() ? fields.getEndPosition() : fields.getPosition());
+        Date otherBegin;
+        Date otherEnd;
+        boolean fromReducedPrecisionInstant = false;
+        if (temporalFilter.getTime() instanceof TimePeriod) {
+            TimePeriod period = (TimePeriod) temporalFilter.getTime();
+            otherBegin = period.resolveStart().toDate();
+            otherEnd = period.resolveEnd().toDate();
+        } else if (temporalFilter.getTime() instanceof TimeInstant) {
+            TimeInstant instant = (TimeInstant) temporalFilter.getTime();
+            otherBegin = instant.resolveValue().toDate();
+            otherEnd = DateTimeHelper.setDateTime2EndOfMostPreciseUnit4RequestedEndPosition(instant.getValue(),
+                    instant.getRequestedTimeLength()).toDate();
+            fromReducedPrecisionInstant = !instant.getValue().toDate().equals(otherEnd);
+            if (!fromReducedPrecisionInstant) {
+                otherEnd = otherBegin;
+            }
+        } else {
+            return null;
+        }
+        String beginParameter = TIME_PARAMETER + parameters.size();
+        String endParameter = TIME_PARAMETER + (parameters.size() + 1);
+        String condition;
+        if (otherBegin.equals(otherEnd)) {
+            switch (temporalFilter.getOperator()) {
+            case TM_Before:
+                condition = String.format("%s < :%s", end, beginParameter);
+                break;
+            case TM_After:
+                condition = String.format("%s > :%s", begin, beginParameter);
+                break;
+            case TM_Equals:
+                condition = String.format("(%s = :%s and %s = :%s)", begin, beginParameter, end, beginParameter);
+                break;
+            default:
+                return null;
+            }
+            parameters.put(beginParameter, otherBegin);
+        } else {
+            switch (temporalFilter.getOperator()) {
+            case TM_Before:
+                condition = String.format("%s < :%s", end, beginParameter);
+                break;
+            case TM_After:
+                condition = String.format("%s > :%s", begin, endParameter);
+                break;
+            case TM_During:
+                condition = String.format("(%s > :%s and %s < :%s)", begin, beginParameter, end, endParameter);
+                break;
+            case TM_Equals:
+                if (fromReducedPrecisionInstant) {
+                    // periods equal to the period of the instant, or instants
+                    // within it
+                    condition = String.format("((%s = :%s and %s = :%s) or (%s = %s and %s >= :%s and %s <= :%s))",
+                            begin, beginParameter, end, endParameter, begin, end, begin, beginParameter, begin,
+                            endParameter);
+                } else if (fields.isPeriod()) {
+                    condition = String.format("(%s = :%s and %s = :%s)", begin, beginParameter, end, endParameter);
+                } else {
+                    return null;
+                }
+                break;
+            default:
+                return null;
+            }
+            parameters.put(beginParameter, otherBegin);
+            parameters.put(endParameter, otherEnd);
+        }
+        return condition;
+    }
+
+    private String createObservationsCriteria(Criteria c, Set<String> procedure, Set<String> observableProperty,
+            Set<String> featureOfInterest, Set<String> offering, Criterion filterCriterion) {
         String seriesAliasPrefix = createSeriesAliasAndRestrictions(c);
         if (CollectionHelper.isNotEmpty(procedure)) {
             c.createCriteria(seriesAliasPrefix + Series.PROCEDURE).add(Restrictions.in(Procedure.IDENTIFIER, procedure));
@@ -255,14 +513,18 @@ public abstract class AbstractSeriesObservationDAO extends AbstractObservationDA
         if (CollectionHelper.isNotEmpty(offering)) {
             c.createCriteria(SeriesObservation.OFFERINGS).add(Restrictions.in(Offering.IDENTIFIER, offering));
         }
+        if (filterCriterion != null) {
+            c.add(filterCriterion);
+        }
+        return seriesAliasPrefix;
+    }
+
+    private String getLogArgs(Criterion filterCriterion) {
         String logArgs = "request, features, offerings";
         if (filterCriterion != null) {
             logArgs += ", filterCriterion";
-            c.add(filterCriterion);
         }
-        LOGGER.debug("QUERY getObservations({}): {}", logArgs, HibernateHelper.getSqlString(c));
-        
-        return c.scroll(ScrollMode.FORWARD_ONLY);
+        return logArgs;
     }
 
     @SuppressWarnings("unchecked")
@@ -466,6 +728,90 @@ public abstract class AbstractSeriesObservationDAO extends AbstractObservationDA
         return criteria;
     }
 
+    /**
+     * Create criteria to query the min/max time and the count of observations
+     * of multiple series at once, grouped by the series id and optionally by
+     * the offering identifier.
+     * <p>
+     * Projection: series id, [offering identifier,] min phenomenon time start,
+     * max phenomenon time end, count
+     *
+     * @param seriesIds
+     *            Ids of the series to get values for, <code>null</code> for
+     *            all series
+     * @param groupByOffering
+     *            Whether to group the values by offering
+     * @param session
+     *            Hibernate session
+     * @return Criteria to get min/max time and count values of series
+     *
+     * @since 4.4.0
+     */
+    public Criteria getMinMaxTimeCountCriteriaForSeries(Collection<Long> seriesIds, boolean groupByOffering,
+            Session session) {
+        Criteria criteria = getDefaultObservationCriteria(session);
+        criteria.createAlias(AbstractSeriesObservation.SERIES, "s");
+        if (seriesIds != null) {
+            criteria.add(Restrictions.in("s." + Series.ID, seriesIds));
+        }
+        ProjectionList projectionList = Projections.projectionList().add(Projections.groupProperty("s." + Series.ID));
+        if (groupByOffering) {
+            criteria.createAlias(AbstractSeriesObservation.OFFERINGS, "off");
+            projectionList.add(Projections.groupProperty("off." + Offering.IDENTIFIER));
+        }
+        projectionList.add(Projections.min(TemporalReferencedSeriesObservation.PHENOMENON_TIME_START))
+                .add(Projections.max(TemporalReferencedSeriesObservation.PHENOMENON_TIME_END))
+                .add(Projections.rowCount());
+        criteria.setProjection(projectionList);
+        return criteria;
+    }
+
+    /**
+     * Get the result times of multiple series at once
+     *
+     * @param seriesIds
+     *            Ids of the series to get result times for
+     * @param offerings
+     *            Offerings to restrict matching result times
+     * @param filter
+     *            Temporal filter to restrict matching result times
+     * @param session
+     *            Hibernate session
+     * @return Ordered result times grouped by series id
+     *
+     * @since 4.4.0
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, List<Date>> getResultTimesForSeries(Collection<Long> seriesIds, List<String> offerings,
+            Criterion filter, Session session) {
+        Criteria criteria = getDefaultObservationCriteria(session);
+        criteria.createAlias(AbstractSeriesObservation.SERIES, "s");
+        criteria.add(Restrictions.in("s." + Series.ID, seriesIds));
+        if (CollectionHelper.isNotEmpty(offerings)) {
+            criteria.createCriteria(TemporalReferencedSeriesObservation.OFFERINGS)
+                    .add(Restrictions.in(Offering.IDENTIFIER, offerings));
+        }
+        if (filter != null) {
+            criteria.add(filter);
+        }
+        criteria.setProjection(Projections.distinct(Projections.projectionList()
+                .add(Projections.property("s." + Series.ID))
+                .add(Projections.property(TemporalReferencedSeriesObservation.RESULT_TIME))));
+        criteria.addOrder(Order.asc(TemporalReferencedSeriesObservation.RESULT_TIME));
+        LOGGER.debug("QUERY getResultTimesForSeries({}): {}", seriesIds, HibernateHelper.getSqlString(criteria));
+        Map<Long, List<Date>> resultTimes = Maps.newHashMap();
+        for (Object[] row : (List<Object[]>) criteria.list()) {
+            Long series = (Long) row[0];
+            List<Date> dates = resultTimes.get(series);
+            if (dates == null) {
+                dates = Lists.newArrayList();
+                resultTimes.put(series, dates);
+            }
+            dates.add((Date) row[1]);
+        }
+        return resultTimes;
+    }
+
     public ScrollableResults getSeriesNotMatchingSeries(Set<Long> seriesIDs, GetObservationRequest request,
             Set<String> features, Criterion temporalFilterCriterion, Session session) throws OwsExceptionReport {
         Criteria c = getSeriesObservationCriteriaFor(request, features, temporalFilterCriterion, null, session);
@@ -796,6 +1142,69 @@ public abstract class AbstractSeriesObservationDAO extends AbstractObservationDA
 
     protected abstract void addSpecificRestrictions(Criteria c, GetObservationRequest request) throws CodedException;
 
+    /**
+     * Query the first or latest observations of multiple series at once. The
+     * first/latest time stamps of the series are used as extrema times, so
+     * only series with set first/latest time stamps should be passed. If the
+     * observations at the extrema time of a series do not match the offering
+     * or spatial filter of the request, no observations are returned for this
+     * series.
+     *
+     * @param seriesIds
+     *            Ids of the series to get observations for
+     * @param request
+     *            GetObservation request
+     * @param sosIndeterminateTime
+     *            Indeterminate time (first/latest)
+     * @param session
+     *            Hibernate session
+     * @return Series observations with the first/latest time of their series
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     *
+     * @since 4.4.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<SeriesObservation<?>> getSeriesObservationsFor(Collection<Long> seriesIds,
+            GetObservationRequest request, SosIndeterminateTime sosIndeterminateTime, Session session)
+            throws OwsExceptionReport {
+        final Criteria c = getDefaultObservationCriteria(session);
+        c.createAlias(AbstractSeriesObservation.SERIES, "s");
+        c.add(Restrictions.in("s." + Series.ID, seriesIds));
+        checkAndAddSpatialFilteringProfileCriterion(c, request, session);
+        if (request.isSetOffering()) {
+            c.createCriteria(AbstractSeriesObservation.OFFERINGS).add(
+                    Restrictions.in(Offering.IDENTIFIER, request.getOfferings()));
+        }
+        String seriesExtremaProperty =
+                SosIndeterminateTime.first.equals(sosIndeterminateTime) ? Series.FIRST_TIME_STAMP
+                        : Series.LAST_TIME_STAMP;
+        c.add(Restrictions.eqProperty(getIndeterminateTimeFilterProperty(sosIndeterminateTime), "s."
+                + seriesExtremaProperty));
+        LOGGER.debug("QUERY getSeriesObservationFor(seriesIds, request, sosIndeterminateTime): {}",
+                HibernateHelper.getSqlString(c));
+        return c.list();
+    }
+
+    /**
+     * Query not deleted series observations by their ids
+     *
+     * @param observationIds
+     *            Observation ids
+     * @param session
+     *            Hibernate session
+     * @return Series observations
+     *
+     * @since 4.4.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<SeriesObservation<?>> getSeriesObservationsForIds(Collection<Long> observationIds, Session session) {
+        final Criteria c = getDefaultObservationCriteria(session);
+        c.add(Restrictions.in(AbstractSeriesObservation.OBS_ID, observationIds));
+        LOGGER.debug("QUERY getSeriesObservationsForIds(observationIds): {}", HibernateHelper.getSqlString(c));
+        return c.list();
+    }
+
     protected Criteria getSeriesObservationCriteriaFor(Series series, GetObservationRequest request,
             SosIndeterminateTime sosIndeterminateTime, Session session) throws OwsExceptionReport {
         final Criteria c =
@@ -28,6 +28,7 @@
  */
 package org.n52.sos.ds.hibernate.dao.observation.series;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -230,6 +231,51 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
         return (List<AbstractValuedLegacyObservation<?>>) c.list();
     }
 
+    /**
+     * Query streaming value for parameter as chunk {@link List}, paged by the
+     * key of the last value of the previous chunk instead of a row offset.
+     * The values are ordered by the order column and the observation id, so
+     * the query cost does not grow with the number of already queried chunks.
+     * 
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series ids
+     * @param temporalFilterCriterion
+     *            Temporal filter {@link Criterion}, may be <code>null</code>
+     * @param chunkSize
+     *            chunk size
+     * @param lastValue
+     *            Last value of the previous chunk, <code>null</code> for the
+     *            first chunk
+     * @param session
+     *            Hibernate Session
+     * @return Resulting chunk {@link List}
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying the {@link AbstractValue}s
+     * @since 4.4.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<AbstractValuedLegacyObservation<?>> getStreamingSeriesValuesFor(AbstractObservationRequest request,
+            Set<Long> series, Criterion temporalFilterCriterion, int chunkSize,
+            AbstractValuedLegacyObservation<?> lastValue, Session session) throws OwsExceptionReport {
+        Criteria c = getSeriesValueCriteriaFor(request, series, temporalFilterCriterion, session);
+        c.addOrder(Order.asc(AbstractValuedLegacyObservation.OBS_ID));
+        if (lastValue != null) {
+            String orderColumn = getOrderColumn(request);
+            Date lastTime = AbstractValuedLegacyObservation.RESULT_TIME.equals(orderColumn)
+                    ? lastValue.getResultTime() : lastValue.getPhenomenonTimeStart();
+            c.add(Restrictions.or(Restrictions.gt(orderColumn, lastTime),
+                    Restrictions.and(Restrictions.eq(orderColumn, lastTime),
+                            Restrictions.gt(AbstractValuedLegacyObservation.OBS_ID, lastValue.getObservationId()))));
+        }
+        if (chunkSize > 0) {
+            c.setMaxResults(chunkSize);
+        }
+        LOGGER.debug("QUERY getStreamingSeriesValuesFor(keyset): {}", HibernateHelper.getSqlString(c));
+        return (List<AbstractValuedLegacyObservation<?>>) c.list();
+    }
+
     /**
      * Get {@link Criteria} for parameter
      * 
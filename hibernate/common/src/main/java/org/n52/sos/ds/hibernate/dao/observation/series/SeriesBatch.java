@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.n52.sos.ds.hibernate.dao.observation.ObservationContext;
+import org.n52.sos.ds.hibernate.entities.observation.Observation;
+import org.n52.sos.ds.hibernate.entities.observation.series.Series;
+import org.n52.sos.exception.CodedException;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Series state of a bulk observation insertion. Each {@link Series} is
+ * resolved once per batch and the first/latest values are only kept in memory
+ * until the batch is flushed, instead of querying the series and writing it
+ * for every inserted observation.
+ *
+ * @since 4.4.0
+ *
+ */
+public class SeriesBatch {
+
+    private final Map<List<String>, Series> series = Maps.newHashMap();
+
+    private final Set<Series> modified = Sets.newIdentityHashSet();
+
+    /**
+     * Get the series for the observation context, querying or inserting it
+     * only if it was not requested before in this batch.
+     *
+     * @param ctx
+     *            Observation context
+     * @param seriesDAO
+     *            Series DAO to query the series
+     * @param session
+     *            Hibernate session
+     * @return Series object
+     * @throws CodedException
+     */
+    public Series getOrInsertSeries(ObservationContext ctx, AbstractSeriesDAO seriesDAO, Session session)
+            throws CodedException {
+        List<String> key = ctx.getSeriesKey();
+        Series s = series.get(key);
+        if (s == null) {
+            s = seriesDAO.getOrInsertSeries(ctx, session);
+            series.put(key, s);
+        }
+        return s;
+    }
+
+    /**
+     * Update the first/latest values of the series in memory. The series is
+     * written with the next {@link #flush(Session)}.
+     *
+     * @param s
+     *            Series object
+     * @param hObservation
+     *            Observation object
+     * @param seriesDAO
+     *            Series DAO
+     */
+    public void updateSeriesWithFirstLatestValues(Series s, Observation<?> hObservation, AbstractSeriesDAO seriesDAO) {
+        if (seriesDAO.setFirstLatestValues(s, hObservation)) {
+            modified.add(s);
+        }
+    }
+
+    /**
+     * Write the modified series to the session. This has to be called before
+     * the session is flushed and cleared.
+     *
+     * @param session
+     *            Hibernate session
+     */
+    public void flush(Session session) {
+        for (Series s : modified) {
+            session.saveOrUpdate(s);
+        }
+        modified.clear();
+    }
+
+    /**
+     * Forget the resolved series, e.g. after the session was cleared.
+     */
+    public void clear() {
+        series.clear();
+        modified.clear();
+    }
+
+    /**
+     * @return the number of series modified since the last flush
+     */
+    public int getModifiedSeriesCount() {
+        return modified.size();
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collection;
+
+import org.hibernate.Session;
+import org.n52.sos.ds.hibernate.dao.observation.series.SeriesBatch;
+import org.n52.sos.ogc.om.MultiObservationValues;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.values.MultiValue;
+import org.n52.sos.ogc.swe.SweDataArray;
+
+/**
+ * Bulk mode of the observation insertion for large InsertObservation and
+ * InsertResult requests.
+ * <p>
+ * While active, the session is flushed and cleared every
+ * {@value #FLUSH_THRESHOLD} values, so the observation inserts are sent as
+ * JDBC batches and the session does not grow with the request. The flush mode
+ * of the session is not changed: the lookups of series, features, units,
+ * codespaces, ... still flush pending inserts of their entities, so entities
+ * inserted within a flush interval are found instead of inserted twice. The
+ * series are resolved once per flush interval and their first/latest values
+ * are written once when the session is flushed.
+ *
+ * @since 4.4.0
+ */
+final class BulkInsertion {
+    static final int DEFAULT_THRESHOLD = 1000;
+
+    static final int FLUSH_THRESHOLD = 500;
+
+    private final Session session;
+
+    private final SeriesBatch seriesBatch = new SeriesBatch();
+
+    private int pending;
+
+    private BulkInsertion(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Start a bulk insertion if the number of values reaches the threshold.
+     *
+     * @param session
+     *            Hibernate session
+     * @param values
+     *            Number of values to insert
+     * @param threshold
+     *            Bulk insertion threshold, <code>0</code> to disable the bulk
+     *            mode
+     * @return the bulk insertion or <code>null</code> if the values should be
+     *         inserted one by one
+     */
+    static BulkInsertion start(Session session, int values, int threshold) {
+        if (threshold <= 0 || values < threshold) {
+            return null;
+        }
+        return new BulkInsertion(session);
+    }
+
+    /**
+     * Start a bulk insertion for values whose number is not known in advance,
+     * e.g. streamed result values.
+     *
+     * @param session
+     *            Hibernate session
+     * @param threshold
+     *            Bulk insertion threshold, <code>0</code> to disable the bulk
+     *            mode
+     * @return the bulk insertion or <code>null</code> if the bulk mode is
+     *         disabled
+     */
+    static BulkInsertion start(Session session, int threshold) {
+        return threshold > 0 ? new BulkInsertion(session) : null;
+    }
+
+    /**
+     * @return the series state of this insertion
+     */
+    SeriesBatch getSeriesBatch() {
+        return seriesBatch;
+    }
+
+    /**
+     * Register inserted values and flush the session if the flush threshold
+     * is reached.
+     *
+     * @param values
+     *            Number of inserted values
+     */
+    void inserted(int values) {
+        pending += values;
+        if (pending >= FLUSH_THRESHOLD) {
+            flush();
+            session.clear();
+            seriesBatch.clear();
+        }
+    }
+
+    /**
+     * Write the pending series updates and observations.
+     */
+    void flush() {
+        seriesBatch.flush(session);
+        session.flush();
+        pending = 0;
+    }
+
+    /**
+     * Count the values of the observations, the values of multi value
+     * observations are counted separately.
+     *
+     * @param observations
+     *            Observations to insert
+     * @return the number of values
+     */
+    static int countValues(Collection<OmObservation> observations) {
+        int count = 0;
+        for (OmObservation observation : observations) {
+            count += countValues(observation);
+        }
+        return count;
+    }
+
+    static int countValues(OmObservation observation) {
+        if (observation.getValue() instanceof MultiObservationValues) {
+            MultiValue<?> multiValue = ((MultiObservationValues<?>) observation.getValue()).getValue();
+            Object value = multiValue != null ? multiValue.getValue() : null;
+            if (value instanceof SweDataArray && ((SweDataArray) value).isSetValues()) {
+                return ((SweDataArray) value).getValues().size();
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,371 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.n52.sos.config.SettingsManager;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesObservationDAO;
+import org.n52.sos.ds.hibernate.entities.observation.series.Series;
+import org.n52.sos.ds.hibernate.entities.observation.series.SeriesObservation;
+import org.n52.sos.event.SosEvent;
+import org.n52.sos.event.SosEventBus;
+import org.n52.sos.event.SosEventListener;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.ResultInsertion;
+import org.n52.sos.event.events.SosDeletionEvent;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosConstants.SosIndeterminateTime;
+import org.n52.sos.request.GetObservationRequest;
+import org.n52.sos.util.Validation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Store of the observations matching first/latest GetObservation requests per
+ * series.
+ * <p/>
+ * The store keeps the ids of the first or latest observations of each series
+ * (per requested offerings) and loads them with a single query. Series not in
+ * the store are resolved with a single query using the first/latest time stamps
+ * of the series and only series without time stamps or with no observation
+ * matching the request at these time stamps are queried separately. An entry is
+ * only used while its time equals the first/latest time stamp of the series and
+ * is removed if observations are inserted into the series or any observation or
+ * sensor is deleted.
+ *
+ * @since 4.4.0
+ */
+@Configurable
+public class FirstLatestObservationStore implements SosEventListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FirstLatestObservationStore.class);
+
+    public static final int DEFAULT_SIZE = 10000;
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final Joiner KEY_JOINER = Joiner.on('\u0000').useForNull("");
+
+    private static final Set<Class<? extends SosEvent>> TYPES = Sets.<Class<? extends SosEvent>> newHashSet(
+            ObservationInsertion.class, ResultInsertion.class, SosDeletionEvent.class);
+
+    private static FirstLatestObservationStore instance = null;
+
+    private volatile Cache<Key, Entry> cache = createCache(DEFAULT_SIZE);
+
+    public static synchronized FirstLatestObservationStore getInstance() {
+        if (instance == null) {
+            instance = new FirstLatestObservationStore();
+            SettingsManager.getInstance().configure(instance);
+            SosEventBus.getInstance().register(instance);
+        }
+        return instance;
+    }
+
+    FirstLatestObservationStore() {
+    }
+
+    @Setting(FirstLatestObservationStoreSettings.FIRST_LATEST_STORE_SIZE)
+    public void setSize(int size) throws ConfigurationException {
+        Validation.greaterEqualZero("First/latest observation store size", size);
+        this.cache = createCache(size);
+    }
+
+    private static Cache<Key, Entry> createCache(int size) {
+        if (size == 0) {
+            return null;
+        }
+        return CacheBuilder.newBuilder().maximumSize(size).build();
+    }
+
+    /**
+     * Get the first or latest observations of the series.
+     * 
+     * @param series
+     *            the series
+     * @param request
+     *            the GetObservation request
+     * @param sosIndeterminateTime
+     *            first or latest
+     * @param observationDAO
+     *            the DAO to query observations
+     * @param session
+     *            the Hibernate session
+     * @return the first or latest observations of the series
+     * @throws OwsExceptionReport
+     *             if the query fails
+     */
+    public List<SeriesObservation<?>> getObservations(Collection<Series> series, GetObservationRequest request,
+            SosIndeterminateTime sosIndeterminateTime, AbstractSeriesObservationDAO observationDAO, Session session)
+            throws OwsExceptionReport {
+        Cache<Key, Entry> cache = request.hasSpatialFilteringProfileSpatialFilter() ? null : this.cache;
+        List<SeriesObservation<?>> observations = Lists.newLinkedList();
+        Map<Long, Series> missing = Maps.newHashMap();
+        Map<Long, Series> hits = Maps.newHashMap();
+        Map<Long, Integer> expectedHits = Maps.newHashMap();
+        List<Long> observationIds = Lists.newArrayList();
+        int fromStore = 0;
+        for (Series s : series) {
+            Entry entry = cache == null ? null : get(cache, s, request, sosIndeterminateTime);
+            if (entry == null) {
+                missing.put(s.getSeriesId(), s);
+            } else {
+                hits.put(s.getSeriesId(), s);
+                expectedHits.put(s.getSeriesId(), entry.getObservationIds().size());
+                observationIds.addAll(entry.getObservationIds());
+            }
+        }
+        if (!observationIds.isEmpty()) {
+            // observations of the store may have been deleted in the meantime
+            Map<Long, List<SeriesObservation<?>>> loaded = Maps.newHashMap();
+            for (List<Long> chunk : Iterables.partition(observationIds, CHUNK_SIZE)) {
+                groupBySeries(observationDAO.getSeriesObservationsForIds(chunk, session), loaded);
+            }
+            for (Series s : hits.values()) {
+                List<SeriesObservation<?>> seriesObservations = loaded.get(s.getSeriesId());
+                if (seriesObservations != null
+                        && seriesObservations.size() == expectedHits.get(s.getSeriesId()).intValue()) {
+                    observations.addAll(seriesObservations);
+                    fromStore++;
+                } else {
+                    missing.put(s.getSeriesId(), s);
+                }
+            }
+        }
+        List<Long> withExtrema = Lists.newArrayList();
+        for (Series s : missing.values()) {
+            if (getSeriesExtremaTime(s, sosIndeterminateTime) != null) {
+                withExtrema.add(s.getSeriesId());
+            }
+        }
+        if (!withExtrema.isEmpty()) {
+            Map<Long, List<SeriesObservation<?>>> queried = Maps.newHashMap();
+            for (List<Long> chunk : Iterables.partition(withExtrema, CHUNK_SIZE)) {
+                groupBySeries(observationDAO.getSeriesObservationsFor(chunk, request, sosIndeterminateTime, session),
+                        queried);
+            }
+            for (Map.Entry<Long, List<SeriesObservation<?>>> e : queried.entrySet()) {
+                Series s = missing.remove(e.getKey());
+                if (s != null) {
+                    observations.addAll(e.getValue());
+                    put(cache, s, request, sosIndeterminateTime, e.getValue());
+                }
+            }
+        }
+        // series without first/latest time stamps or without observations
+        // matching the request at these time stamps
+        for (Series s : missing.values()) {
+            List<SeriesObservation<?>> seriesObservations =
+                    observationDAO.getSeriesObservationsFor(s, request, sosIndeterminateTime, session);
+            observations.addAll(seriesObservations);
+            put(cache, s, request, sosIndeterminateTime, seriesObservations);
+        }
+        LOGGER.debug("Resolved {} observations of {} series, {} from store, {} queried separately",
+                sosIndeterminateTime, series.size(), fromStore, missing.size());
+        return observations;
+    }
+
+    private void groupBySeries(List<SeriesObservation<?>> observations, Map<Long, List<SeriesObservation<?>>> map) {
+        for (SeriesObservation<?> observation : observations) {
+            long seriesId = observation.getSeries().getSeriesId();
+            List<SeriesObservation<?>> list = map.get(seriesId);
+            if (list == null) {
+                list = Lists.newLinkedList();
+                map.put(seriesId, list);
+            }
+            list.add(observation);
+        }
+    }
+
+    /**
+     * Get the entry of the series if it is still valid.
+     */
+    Entry get(Cache<Key, Entry> cache, Series series, GetObservationRequest request,
+            SosIndeterminateTime sosIndeterminateTime) {
+        Key key = new Key(series, request.getOfferings(), sosIndeterminateTime);
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        Date extrema = getSeriesExtremaTime(series, sosIndeterminateTime);
+        if (extrema != null && extrema.getTime() != entry.getTime()) {
+            cache.invalidate(key);
+            return null;
+        }
+        return entry;
+    }
+
+    void put(Cache<Key, Entry> cache, Series series, GetObservationRequest request,
+            SosIndeterminateTime sosIndeterminateTime, List<SeriesObservation<?>> observations) {
+        if (cache == null || observations.isEmpty()) {
+            return;
+        }
+        List<Long> ids = Lists.newArrayListWithCapacity(observations.size());
+        for (SeriesObservation<?> observation : observations) {
+            ids.add(observation.getObservationId());
+        }
+        SeriesObservation<?> observation = observations.iterator().next();
+        Date time = SosIndeterminateTime.first.equals(sosIndeterminateTime) ? observation.getPhenomenonTimeStart()
+                : observation.getPhenomenonTimeEnd();
+        cache.put(new Key(series, request.getOfferings(), sosIndeterminateTime), new Entry(time.getTime(), ids));
+    }
+
+    Cache<Key, Entry> getCache() {
+        return cache;
+    }
+
+    private static Date getSeriesExtremaTime(Series series, SosIndeterminateTime sosIndeterminateTime) {
+        return SosIndeterminateTime.first.equals(sosIndeterminateTime) ? series.getFirstTimeStamp() : series
+                .getLastTimeStamp();
+    }
+
+    @Override
+    public Set<Class<? extends SosEvent>> getTypes() {
+        return Collections.unmodifiableSet(TYPES);
+    }
+
+    @Override
+    public void handle(SosEvent event) {
+        Cache<Key, Entry> cache = this.cache;
+        if (cache == null) {
+            return;
+        }
+        if (event instanceof ObservationInsertion) {
+            invalidate(cache, ((ObservationInsertion) event).getRequest().getObservations());
+        } else if (event instanceof ResultInsertion) {
+            invalidate(cache, ((ResultInsertion) event).getResponse().getObservations());
+        } else {
+            LOGGER.debug("Invalidating first/latest observation store: {}", event);
+            cache.invalidateAll();
+        }
+    }
+
+    private void invalidate(Cache<Key, Entry> cache, List<OmObservation> observations) {
+        if (observations == null) {
+            cache.invalidateAll();
+            return;
+        }
+        Set<String> constellations = Sets.newHashSet();
+        for (OmObservation observation : observations) {
+            OmObservationConstellation oc = observation.getObservationConstellation();
+            constellations.add(KEY_JOINER.join(oc.getProcedureIdentifier(), oc.getObservablePropertyIdentifier(),
+                    oc.getFeatureOfInterestIdentifier()));
+        }
+        Iterator<Key> iter = cache.asMap().keySet().iterator();
+        while (iter.hasNext()) {
+            if (constellations.contains(iter.next().getConstellation())) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Key of a store entry: series, requested offerings and first/latest.
+     */
+    static class Key {
+        private final long seriesId;
+
+        private final String constellation;
+
+        private final String offerings;
+
+        private final SosIndeterminateTime sosIndeterminateTime;
+
+        Key(Series series, Collection<String> offerings, SosIndeterminateTime sosIndeterminateTime) {
+            this.seriesId = series.getSeriesId();
+            this.constellation =
+                    KEY_JOINER.join(series.getProcedure().getIdentifier(), series.getObservableProperty()
+                            .getIdentifier(), series.getFeatureOfInterest().getIdentifier());
+            this.offerings = offerings == null ? "" : KEY_JOINER.join(Sets.newTreeSet(offerings));
+            this.sosIndeterminateTime = sosIndeterminateTime;
+        }
+
+        String getConstellation() {
+            return constellation;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(seriesId, offerings, sosIndeterminateTime);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return seriesId == other.seriesId && Objects.equal(offerings, other.offerings)
+                        && sosIndeterminateTime == other.sosIndeterminateTime;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Ids of the first/latest observations of a series and their time.
+     */
+    static class Entry {
+        private final long time;
+
+        private final List<Long> observationIds;
+
+        Entry(long time, List<Long> observationIds) {
+            this.time = time;
+            this.observationIds = observationIds;
+        }
+
+        long getTime() {
+            return time;
+        }
+
+        List<Long> getObservationIds() {
+            return observationIds;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.n52.sos.config.SettingDefinition;
+import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.IntegerSettingDefinition;
+import org.n52.sos.service.ServiceSettings;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * {@link SettingDefinitionProvider} for the {@link FirstLatestObservationStore}.
+ *
+ * @since 4.4.0
+ */
+public class FirstLatestObservationStoreSettings implements SettingDefinitionProvider {
+
+    public static final String FIRST_LATEST_STORE_SIZE = "service.firstLatestStoreSize";
+
+    public static final IntegerSettingDefinition FIRST_LATEST_STORE_SIZE_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP).setOrder(8.2f).setKey(FIRST_LATEST_STORE_SIZE)
+            .setDefaultValue(FirstLatestObservationStore.DEFAULT_SIZE).setMinimum(0)
+            .setTitle("First/latest observation store size")
+            .setDescription("The maximum number of timeseries for which the observations matching a first or latest "
+                    + "GetObservation request are kept in memory, so that repeated requests load them by id. Entries "
+                    + "are invalidated by insertions into and deletions from the timeseries. A value of 0 disables "
+                    + "the store.");
+
+    private static final Set<SettingDefinition<?, ?>> DEFINITIONS = ImmutableSet
+            .<SettingDefinition<?, ?>> of(FIRST_LATEST_STORE_SIZE_DEFINITION);
+
+    @Override
+    public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
+        return Collections.unmodifiableSet(DEFINITIONS);
+    }
+}
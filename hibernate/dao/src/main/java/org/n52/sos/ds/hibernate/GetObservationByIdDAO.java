@@ -53,6 +53,7 @@ import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.observation.HibernateObservationUtilities;
 import org.n52.sos.ds.hibernate.values.HibernateStreamingConfiguration;
 import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesStreamingValue;
+import org.n52.sos.ds.hibernate.values.series.HibernateKeysetSeriesStreamingValue;
 import org.n52.sos.ds.hibernate.values.series.HibernateScrollableSeriesStreamingValue;
 import org.n52.sos.ds.hibernate.values.series.HibernateSeriesStreamingValue;
 import org.n52.sos.exception.CodedException;
@@ -231,7 +232,9 @@ public class GetObservationByIdDAO extends AbstractGetObservationByIdDAO {
      * @throws CodedException 
      */
     private HibernateSeriesStreamingValue getSeriesStreamingValue(GetObservationByIdRequest request, long seriesId) throws CodedException {
-        if (HibernateStreamingConfiguration.getInstance().isChunkDatasourceStreaming()) {
+        if (HibernateStreamingConfiguration.getInstance().isKeysetDatasourceStreaming()) {
+            return new HibernateKeysetSeriesStreamingValue(request, seriesId, request.isCheckForDuplicity());
+        } else if (HibernateStreamingConfiguration.getInstance().isChunkDatasourceStreaming()) {
             return new HibernateChunkSeriesStreamingValue(request, seriesId, request.isCheckForDuplicity());
         } else {
             return new HibernateScrollableSeriesStreamingValue(request, seriesId, request.isCheckForDuplicity());
@@ -62,6 +62,7 @@ import org.n52.sos.ds.hibernate.values.HibernateScrollableStreamingValue;
 import org.n52.sos.ds.hibernate.values.HibernateStreamingConfiguration;
 import org.n52.sos.ds.hibernate.values.HibernateStreamingValue;
 import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesStreamingValue;
+import org.n52.sos.ds.hibernate.values.series.HibernateKeysetSeriesStreamingValue;
 import org.n52.sos.ds.hibernate.values.series.HibernateScrollableSeriesStreamingValue;
 import org.n52.sos.ds.hibernate.values.series.HibernateSeriesStreamingValue;
 import org.n52.sos.exception.CodedException;
@@ -319,12 +320,10 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
                             observationDAO.getSeriesObservationsFor(request, features,
                                     sosIndeterminateTime, session);
                 } else {
-                    for (Series series : seriesDAO.getSeries(request, features, session)) {
-                        seriesObservations.addAll(observationDAO.getSeriesObservationsFor(series, request,
-                                sosIndeterminateTime, session));
-                        
-                    }
-                    seriesObservations = checkObservationsForDuplicity(observationDAO.getSeriesObservationsFor(request, features, session), request);
+                    seriesObservations.addAll(FirstLatestObservationStore.getInstance().getObservations(
+                            seriesDAO.getSeries(request, features, session), request, sosIndeterminateTime,
+                            observationDAO, session));
+                    seriesObservations = checkObservationsForDuplicity(seriesObservations, request);
                 }
             }
         }
@@ -490,7 +489,9 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
      * @throws CodedException 
      */
     private HibernateSeriesStreamingValue getSeriesStreamingValue(GetObservationRequest request, long seriesId, boolean duplicated) throws CodedException {
-        if (HibernateStreamingConfiguration.getInstance().isChunkDatasourceStreaming()) {
+        if (HibernateStreamingConfiguration.getInstance().isKeysetDatasourceStreaming()) {
+            return new HibernateKeysetSeriesStreamingValue(request, seriesId, duplicated);
+        } else if (HibernateStreamingConfiguration.getInstance().isChunkDatasourceStreaming()) {
             return new HibernateChunkSeriesStreamingValue(request, seriesId, duplicated);
         } else {
             return new HibernateScrollableSeriesStreamingValue(request, seriesId, duplicated);
@@ -61,6 +61,10 @@ import org.n52.sos.ds.hibernate.util.QueryHelper;
 import org.n52.sos.ds.hibernate.util.ResultHandlingHelper;
 import org.n52.sos.ds.hibernate.util.SpatialRestrictions;
 import org.n52.sos.ds.hibernate.util.TemporalRestrictions;
+import org.n52.sos.ds.hibernate.values.HibernateChunkStreamingResultValues;
+import org.n52.sos.ds.hibernate.values.HibernateScrollableStreamingResultValues;
+import org.n52.sos.ds.hibernate.values.HibernateStreamingConfiguration;
+import org.n52.sos.ds.hibernate.values.HibernateStreamingResultValues;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.exception.ows.concrete.UnsupportedOperatorException;
 import org.n52.sos.exception.ows.concrete.UnsupportedTimeException;
@@ -121,16 +125,20 @@ public class GetResultDAO extends AbstractGetResultDAO {
                         new SosResultEncoding(resultTemplates.get(0).getResultEncoding());
                 final SosResultStructure sosResultStructure =
                         new SosResultStructure(resultTemplates.get(0).getResultStructure());
-                final List<Observation<?>> observations;
                 String procedure = resultTemplates.get(0).getProcedure().getIdentifier();
-                if (EntitiyHelper.getInstance().isSeriesObservationSupported()) {
-                    observations = querySeriesObservation(request, featureIdentifier, procedure, session);
+                if (HibernateStreamingConfiguration.getInstance().isForceDatasourceStreaming()) {
+                    response.setStreamingResultValues(getStreamingResultValues(request, featureIdentifier,
+                            procedure, sosResultEncoding, sosResultStructure));
                 } else {
-                    observations = queryObservation(request, featureIdentifier, procedure, session);
+                    final List<Observation<?>> observations;
+                    if (EntitiyHelper.getInstance().isSeriesObservationSupported()) {
+                        observations = querySeriesObservation(request, featureIdentifier, procedure, session);
+                    } else {
+                        observations = queryObservation(request, featureIdentifier, procedure, session);
+                    }
+                    response.setResultValues(helper.createResultValuesFromObservations(observations,
+                            sosResultEncoding, sosResultStructure));
                 }
-
-                response.setResultValues(helper.createResultValuesFromObservations(observations,
-                        sosResultEncoding, sosResultStructure));
             }
             return response;
         } catch (final HibernateException he) {
@@ -175,6 +183,71 @@ public class GetResultDAO extends AbstractGetResultDAO {
     @SuppressWarnings("unchecked")
     protected List<Observation<?>> queryObservation(final GetResultRequest request,
             final Set<String> featureIdentifiers, String procedure, final Session session) throws OwsExceptionReport {
+        final Criteria c = createObservationCriteria(request, featureIdentifiers, procedure, session);
+        if (c == null) {
+            return null;
+        }
+        addDistinctAndOrder(c);
+        LOGGER.debug("QUERY queryObservation(request, featureIdentifiers): {}", HibernateHelper.getSqlString(c));
+        return c.list();
+
+    }
+
+    /**
+     * Query series observations from database depending on requested filters
+     *
+     * @param request
+     *            GetObservation request
+     * @param featureIdentifiers
+     *            Set of feature identifiers. If <tt>null</tt>, query filter
+     *            will not be added. If <tt>empty</tt>, <tt>null</tt> will be
+     *            returned.
+     * @param procedure 
+     * @param session
+     *            Hibernate session
+     * @return List of Observation objects
+     * @throws OwsExceptionReport
+     *             If an error occurs.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<Observation<?>> querySeriesObservation(GetResultRequest request,
+            Collection<String> featureIdentifiers, String procedure, Session session) throws OwsExceptionReport {
+        final Criteria c = createSeriesObservationCriteria(request, featureIdentifiers, procedure, session);
+        if (c == null) {
+            return null;
+        }
+        addDistinctAndOrder(c);
+        LOGGER.debug("QUERY queryObservation(request, featureIdentifiers): {}", HibernateHelper.getSqlString(c));
+        return c.list();
+
+    }
+
+    /**
+     * Create the Criteria for the observations of a GetResult request without
+     * ordering. Used for the complete, counted and chunked queries.
+     *
+     * @param request
+     *            GetResult request
+     * @param featureIdentifiers
+     *            Set of feature identifiers
+     * @param procedure
+     *            Procedure identifier of the result template
+     * @param session
+     *            Hibernate session
+     * @return the Criteria or <code>null</code> if no observation can match
+     * @throws OwsExceptionReport
+     *             If an error occurs.
+     */
+    public Criteria createResultValuesCriteria(GetResultRequest request, Set<String> featureIdentifiers,
+            String procedure, Session session) throws OwsExceptionReport {
+        if (EntitiyHelper.getInstance().isSeriesObservationSupported()) {
+            return createSeriesObservationCriteria(request, featureIdentifiers, procedure, session);
+        }
+        return createObservationCriteria(request, featureIdentifiers, procedure, session);
+    }
+
+    private Criteria createObservationCriteria(final GetResultRequest request,
+            final Set<String> featureIdentifiers, String procedure, final Session session) throws OwsExceptionReport {
         final Criteria c = createCriteriaFor(AbstractLegacyObservation.class, session);
         addSpatialFilteringProfileRestrictions(c, request, session);
 
@@ -199,31 +272,10 @@ public class GetResultDAO extends AbstractGetResultDAO {
         if (request.getTemporalFilter() != null && !request.getTemporalFilter().isEmpty()) {
             addTemporalFilter(c, request.getTemporalFilter());
         }
-        c.addOrder(Order.asc(AbstractLegacyObservation.PHENOMENON_TIME_START));
-
-        LOGGER.debug("QUERY queryObservation(request, featureIdentifiers): {}", HibernateHelper.getSqlString(c));
-        return c.list();
-
+        return c;
     }
 
-    /**
-     * Query series observations from database depending on requested filters
-     *
-     * @param request
-     *            GetObservation request
-     * @param featureIdentifiers
-     *            Set of feature identifiers. If <tt>null</tt>, query filter
-     *            will not be added. If <tt>empty</tt>, <tt>null</tt> will be
-     *            returned.
-     * @param procedure 
-     * @param session
-     *            Hibernate session
-     * @return List of Observation objects
-     * @throws OwsExceptionReport
-     *             If an error occurs.
-     */
-    @SuppressWarnings("unchecked")
-    protected List<Observation<?>> querySeriesObservation(GetResultRequest request,
+    private Criteria createSeriesObservationCriteria(GetResultRequest request,
             Collection<String> featureIdentifiers, String procedure, Session session) throws OwsExceptionReport {
         final Criteria c = createCriteriaFor(AbstractSeriesObservation.class, session);
         addSpatialFilteringProfileRestrictions(c, request, session);
@@ -241,10 +293,34 @@ public class GetResultDAO extends AbstractGetResultDAO {
         if (request.getTemporalFilter() != null && !request.getTemporalFilter().isEmpty()) {
             addTemporalFilter(c, request.getTemporalFilter());
         }
+        return c;
+    }
 
-        LOGGER.debug("QUERY queryObservation(request, featureIdentifiers): {}", HibernateHelper.getSqlString(c));
-        return c.list();
-
+    /**
+     * Create the streaming result values depending on the streaming approach
+     *
+     * @param request
+     *            GetResult request
+     * @param featureIdentifiers
+     *            Set of feature identifiers
+     * @param procedure
+     *            Procedure identifier of the result template
+     * @param sosResultEncoding
+     *            The ResultEncoding
+     * @param sosResultStructure
+     *            The ResultStructure
+     * @return Streaming result values
+     */
+    private HibernateStreamingResultValues getStreamingResultValues(GetResultRequest request,
+            Set<String> featureIdentifiers, String procedure, SosResultEncoding sosResultEncoding,
+            SosResultStructure sosResultStructure) {
+        if (HibernateStreamingConfiguration.getInstance().isChunkDatasourceStreaming()) {
+            return new HibernateChunkStreamingResultValues(this, request, featureIdentifiers, procedure,
+                    sosResultEncoding, sosResultStructure);
+        } else {
+            return new HibernateScrollableStreamingResultValues(this, request, featureIdentifiers, procedure,
+                    sosResultEncoding, sosResultStructure);
+        }
     }
 
     /**
@@ -298,21 +374,30 @@ public class GetResultDAO extends AbstractGetResultDAO {
     }
 
     /**
-     * Create Hibernate Criteria for the class and add ascending of phenomenon
-     * start time
+     * Create Hibernate Criteria for the class restricted to not deleted
+     * observations
      *
      * @param clazz
      *            The class for the Criteria
      * @param session
      *            Hibernate session
-     * @return Hibernate Criteria for the class and add ascending of phenomenon
-     *         start time
+     * @return Hibernate Criteria for the class
      */
     @SuppressWarnings("rawtypes")
     private Criteria createCriteriaFor(Class clazz, Session session) {
-        return session.createCriteria(clazz).setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
-                .add(Restrictions.eq(AbstractLegacyObservation.DELETED, false))
-                .addOrder(Order.asc(AbstractLegacyObservation.PHENOMENON_TIME_START));
+        return session.createCriteria(clazz).add(Restrictions.eq(AbstractLegacyObservation.DELETED, false));
+    }
+
+    /**
+     * Add distinct root entity result transformer and ascending order of
+     * phenomenon start time
+     *
+     * @param c
+     *            Hibernate Criteria
+     */
+    private void addDistinctAndOrder(Criteria c) {
+        c.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY).addOrder(
+                Order.asc(AbstractLegacyObservation.PHENOMENON_TIME_START));
     }
 
     /**
@@ -40,12 +40,15 @@ import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.annotations.common.util.StringHelper;
 import org.hibernate.exception.ConstraintViolationException;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
 import org.n52.sos.ds.AbstractInsertObservationDAO;
 import org.n52.sos.ds.HibernateDatasourceConstants;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.dao.FeatureOfInterestDAO;
 import org.n52.sos.ds.hibernate.dao.ObservationConstellationDAO;
 import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.SeriesBatch;
 import org.n52.sos.ds.hibernate.entities.Codespace;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.Offering;
@@ -68,7 +71,10 @@ import org.n52.sos.request.InsertObservationRequest;
 import org.n52.sos.response.InsertObservationResponse;
 import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.Validation;
 import org.n52.sos.util.http.HTTPStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
@@ -78,7 +84,9 @@ import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 
 
+@Configurable
 public class InsertObservationDAO extends AbstractInsertObservationDAO {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InsertObservationDAO.class);
     private static final int FLUSH_THRESHOLD = 50;
     private static final String CONSTRAINT_OBSERVATION_IDENTITY = "observationIdentity";
     private static final String CONSTRAINT_OBSERVATION_IDENTIFIER_IDENTITY = "obsIdentifierUK";
@@ -86,6 +94,7 @@ public class InsertObservationDAO extends AbstractInsertObservationDAO {
     private final HibernateSessionHolder sessionHolder = new HibernateSessionHolder();
     private final ObservationConstellationDAO observationConstellationDAO = new ObservationConstellationDAO();
     private final FeatureOfInterestDAO featureOfInterestDAO = new FeatureOfInterestDAO();
+    private int bulkInsertionThreshold = BulkInsertion.DEFAULT_THRESHOLD;
 
     /**
      * constructor
@@ -94,24 +103,62 @@ public class InsertObservationDAO extends AbstractInsertObservationDAO {
         super(SosConstants.SOS);
     }
 
+    @Setting(InsertionSettingDefinitionProvider.BULK_INSERTION_THRESHOLD)
+    public void setBulkInsertionThreshold(int threshold) {
+        Validation.greaterEqualZero("Bulk insertion threshold", threshold);
+        this.bulkInsertionThreshold = threshold;
+    }
+
     @Override
     public String getDatasourceDaoIdentifier() {
         return HibernateDatasourceConstants.ORM_DATASOURCE_DAO_IDENTIFIER;
     }
 
     @Override
-    public synchronized InsertObservationResponse insertObservation(final InsertObservationRequest request)
+    public InsertObservationResponse insertObservation(final InsertObservationRequest request)
             throws OwsExceptionReport {
         final InsertObservationResponse response = new InsertObservationResponse();
         response.setService(request.getService());
         response.setVersion(request.getVersion());
+
+        // serialize only insertions into the same series
+        IngestionLock lock = IngestionLock.lock(request.getObservations());
+        try {
+            for (int attempt = 1;; attempt++) {
+                try {
+                    insertObservations(request);
+                    break;
+                } catch (final HibernateException he) {
+                    if (attempt < IngestionLock.MAX_ATTEMPTS && IngestionLock.isRetryable(he)
+                            && !isObservationIdentityViolation(he)) {
+                        LOGGER.debug("Retrying insertion after concurrent modification (attempt {})", attempt, he);
+                    } else {
+                        handleHibernateException(he);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        /*
+         * TODO: ... all the DS insertion stuff Requirement 68
+         * proc/obsProp/Offering same obsType;
+         */
+
+        return response;
+    }
+
+    private void insertObservations(final InsertObservationRequest request) throws OwsExceptionReport {
         Session session = null;
         Transaction transaction = null;
+        BulkInsertion bulk = null;
 
         // TODO: checkConstellation unit and set if available and not defined in DB
         try {
             session = sessionHolder.getSession();
             transaction = session.beginTransaction();
+            bulk = BulkInsertion.start(session, BulkInsertion.countValues(request.getObservations()),
+                    bulkInsertionThreshold);
             final CompositeOwsException exceptions = new CompositeOwsException();
 
             InsertObservationCache cache = new InsertObservationCache();
@@ -135,12 +182,17 @@ public class InsertObservationDAO extends AbstractInsertObservationDAO {
                                 sosObservation.getIdentifier());
                     }
                 }
-                insertObservation(sosObservation, cache, exceptions, session);
-
-                // flush every FLUSH_INTERVAL
-                if (++obsCount % FLUSH_THRESHOLD == 0) {
-                    session.flush();
-                    session.clear();
+                if (bulk != null) {
+                    insertObservation(sosObservation, cache, exceptions, bulk.getSeriesBatch(), session);
+                    bulk.inserted(BulkInsertion.countValues(sosObservation));
+                } else {
+                    insertObservation(sosObservation, cache, exceptions, null, session);
+
+                    // flush every FLUSH_INTERVAL
+                    if (++obsCount % FLUSH_THRESHOLD == 0) {
+                        session.flush();
+                        session.clear();
+                    }
                 }
             }
 
@@ -151,24 +203,22 @@ public class InsertObservationDAO extends AbstractInsertObservationDAO {
                 throw exceptions;
             }
 
-            session.flush();
+            if (bulk != null) {
+                bulk.flush();
+            } else {
+                session.flush();
+            }
             transaction.commit();
         } catch (final HibernateException he) {
             if (transaction != null) {
                 transaction.rollback();
             }
-            handleHibernateException(he);
+            throw he;
         } finally {
             sessionHolder.returnSession(session);
         }
-        /*
-         * TODO: ... all the DS insertion stuff Requirement 68
-         * proc/obsProp/Offering same obsType;
-         */
-
-        return response;
     }
-    
+
     private Set<Offering> getOfferings(Set<ObservationConstellation> hObservationConstellations) {
         Set<Offering> offerings = Sets.newHashSet();
         for (ObservationConstellation observationConstellation : hObservationConstellations) {
@@ -180,6 +230,7 @@ public class InsertObservationDAO extends AbstractInsertObservationDAO {
     private void insertObservation(OmObservation sosObservation,
                                      InsertObservationCache cache,
                                      CompositeOwsException exceptions,
+                                     SeriesBatch seriesBatch,
                                      Session session)
             throws OwsExceptionReport, CodedException {
 
@@ -232,11 +283,13 @@ public class InsertObservationDAO extends AbstractInsertObservationDAO {
                 if (sosObservation.getValue() instanceof SingleObservationValue) {
                     observationDAO.insertObservationSingleValue(
                             hObservationConstellation, hFeature, sosObservation,
-                            cache.getCodespaceCache(), cache.getUnitCache(), getOfferings(hObservationConstellations), session);
+                            cache.getCodespaceCache(), cache.getUnitCache(), getOfferings(hObservationConstellations),
+                            seriesBatch, session);
                 } else if (sosObservation.getValue() instanceof MultiObservationValues) {
                     observationDAO.insertObservationMultiValue(
                             hObservationConstellation, hFeature, sosObservation,
-                            cache.getCodespaceCache(), cache.getUnitCache(), getOfferings(hObservationConstellations), session);
+                            cache.getCodespaceCache(), cache.getUnitCache(), getOfferings(hObservationConstellations),
+                            seriesBatch, session);
                 }
             }
         }
@@ -281,6 +334,24 @@ public class InsertObservationDAO extends AbstractInsertObservationDAO {
         }
     }
 
+    /**
+     * Check if the constraint violation is caused by an already contained
+     * observation, which is not resolved by retrying the insertion.
+     */
+    private boolean isObservationIdentityViolation(HibernateException he) {
+        if (!(he instanceof ConstraintViolationException)) {
+            return false;
+        }
+        ConstraintViolationException cve = (ConstraintViolationException) he;
+        String message = String.valueOf(cve.getConstraintName()) + cve.getMessage();
+        if (cve.getSQLException() != null) {
+            message += cve.getSQLException().getMessage();
+        }
+        message = message.toLowerCase();
+        return message.contains(CONSTRAINT_OBSERVATION_IDENTITY.toLowerCase())
+                || message.contains(CONSTRAINT_OBSERVATION_IDENTIFIER_IDENTITY.toLowerCase());
+    }
+
     private void checkEqualsAndThrow(String constraintName, HibernateException he) throws OwsExceptionReport {
         if (StringHelper.isNotEmpty(constraintName)) {
             String exceptionMsg = null;
@@ -28,17 +28,22 @@
  */
 package org.n52.sos.ds.hibernate;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.n52.sos.coding.CodingRepository;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
 import org.n52.sos.ds.AbstractInsertResultDAO;
 import org.n52.sos.ds.HibernateDatasourceConstants;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
@@ -46,6 +51,7 @@ import org.n52.sos.ds.hibernate.dao.FeatureOfInterestDAO;
 import org.n52.sos.ds.hibernate.dao.ObservationConstellationDAO;
 import org.n52.sos.ds.hibernate.dao.ResultTemplateDAO;
 import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.SeriesBatch;
 import org.n52.sos.ds.hibernate.entities.Codespace;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.Procedure;
@@ -57,8 +63,11 @@ import org.n52.sos.ds.hibernate.util.observation.HibernateObservationUtilities;
 import org.n52.sos.exception.CodedException;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.exception.ows.concrete.MissingResultValuesParameterException;
 import org.n52.sos.ogc.UoM;
 import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
 import org.n52.sos.ogc.om.MultiObservationValues;
 import org.n52.sos.ogc.om.OmConstants;
 import org.n52.sos.ogc.om.OmObservableProperty;
@@ -67,6 +76,7 @@ import org.n52.sos.ogc.om.OmObservationConstellation;
 import org.n52.sos.ogc.om.SingleObservationValue;
 import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
 import org.n52.sos.ogc.om.values.SweDataArrayValue;
+import org.n52.sos.ogc.om.values.Value;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sensorML.SensorML;
 import org.n52.sos.ogc.sos.CapabilitiesExtension;
@@ -91,10 +101,13 @@ import org.n52.sos.ogc.swe.simpleType.SweAbstractUomType;
 import org.n52.sos.ogc.swe.simpleType.SweText;
 import org.n52.sos.request.InsertResultRequest;
 import org.n52.sos.response.InsertResultResponse;
+import org.n52.sos.util.SweTextBlockReader;
+import org.n52.sos.util.Validation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -104,12 +117,14 @@ import com.google.common.collect.Sets;
  * @since 4.0.0
  * 
  */
+@Configurable
 public class InsertResultDAO extends AbstractInsertResultDAO implements CapabilitiesExtensionProvider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InsertResultDAO.class);
     private static final int FLUSH_THRESHOLD = 50;
     private final HibernateSessionHolder sessionHolder = new HibernateSessionHolder();
     private ResultHandlingHelper helper = new  ResultHandlingHelper();
+    private int bulkInsertionThreshold = BulkInsertion.DEFAULT_THRESHOLD;
 
     /**
      * constructor
@@ -117,6 +132,12 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
     public InsertResultDAO() {
         super(SosConstants.SOS);
     }
+
+    @Setting(InsertionSettingDefinitionProvider.BULK_INSERTION_THRESHOLD)
+    public void setBulkInsertionThreshold(int threshold) {
+        Validation.greaterEqualZero("Bulk insertion threshold", threshold);
+        this.bulkInsertionThreshold = threshold;
+    }
     
     @Override
     public String getDatasourceDaoIdentifier() {
@@ -124,16 +145,50 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
     }
 
     @Override
-    public synchronized InsertResultResponse insertResult(final InsertResultRequest request) throws OwsExceptionReport {
+    public InsertResultResponse insertResult(final InsertResultRequest request) throws OwsExceptionReport {
         final InsertResultResponse response = new InsertResultResponse();
         response.setService(request.getService());
         response.setVersion(request.getVersion());
+        // the streamed result values are copied while read to retry the insertion
+        final ResultValuesSpool spool =
+                request.isStreamingResultValues() ? new ResultValuesSpool(request.getResultValuesReader()) : null;
+        final Set<String> seriesKeys = new TreeSet<>();
+        try {
+            for (int attempt = 1;; attempt++) {
+                try {
+                    if (spool != null) {
+                        insertStreamingResult(request, response, spool, seriesKeys,
+                                attempt == IngestionLock.MAX_ATTEMPTS);
+                    } else {
+                        insertResult(request, response);
+                    }
+                    return response;
+                } catch (final HibernateException he) {
+                    if (attempt < IngestionLock.MAX_ATTEMPTS && IngestionLock.isRetryable(he)) {
+                        LOGGER.debug("Retrying insertion after concurrent modification (attempt {})", attempt, he);
+                    } else {
+                        // XXX exception text
+                        throw new NoApplicableCodeException().causedBy(he);
+                    }
+                }
+            }
+        } finally {
+            if (spool != null) {
+                try {
+                    spool.close();
+                } catch (final IOException ioe) {
+                    LOGGER.debug("Error while closing result values", ioe);
+                }
+            }
+        }
+    }
+
+    private void insertResult(final InsertResultRequest request, final InsertResultResponse response)
+            throws OwsExceptionReport {
         Session session = null;
         Transaction transaction = null;
-        
-        Map<String, Codespace> codespaceCache = Maps.newHashMap();
-        Map<UoM, Unit> unitCache = Maps.newHashMap();
-        
+        IngestionLock lock = null;
+        BulkInsertion bulk = null;
         try {
             session = sessionHolder.getSession();
             final ResultTemplate resultTemplate =
@@ -149,49 +204,15 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
                 response.setObservations(observations);
             }
 
-            final ObservationConstellationDAO obsConstDao = new ObservationConstellationDAO();
-            Map<OmObservationConstellation, ObservationConstellation> obsConsts = new HashMap<>();
+            // serialize only insertions into the same series
+            lock = IngestionLock.lock(observations);
+            bulk = BulkInsertion.start(session, BulkInsertion.countValues(observations), bulkInsertionThreshold);
 
-            int insertion = 0;
             final int size = observations.size();
-            final AbstractObservationDAO observationDAO = DaoFactory.getInstance().getObservationDAO();
             LOGGER.debug("Start saving {} observations.", size);
-            Map<String, AbstractFeatureOfInterest> featureEntityMap = new HashMap<>();
-            for (final OmObservation observation : observations) {
-                OmObservationConstellation omObsConst = observation.getObservationConstellation();
-                if (!obsConsts.containsKey(omObsConst)) {
-                    obsConsts.put(omObsConst, 
-                            obsConstDao.getObservationConstellation(omObsConst, session));
-                }
-                ObservationConstellation obsConst = obsConsts.get(observation.getObservationConstellation());
-                AbstractFeatureOfInterest feature = null;
-                if (resultTemplate.isSetFeatureOfInterest()) {
-                    feature = resultTemplate.getFeatureOfInterest();
-                } else {
-                    if (!featureEntityMap.containsKey(omObsConst.getFeatureOfInterestIdentifier())) {
-                        feature = featureEntityMap.get(omObsConst.getFeatureOfInterestIdentifier());
-                    } else {
-                        FeatureOfInterestDAO featureOfInterestDAO = new FeatureOfInterestDAO();
-                        feature =
-                                featureOfInterestDAO.checkOrInsertFeatureOfInterest(omObsConst.getFeatureOfInterest(),
-                                        session);
-                        featureOfInterestDAO.checkOrInsertFeatureOfInterestRelatedFeatureRelation(feature,
-                                obsConst.getOffering(), session);
-                        featureEntityMap.put(feature.getIdentifier(), feature);
-                    }
-                }
-                if (observation.getValue() instanceof SingleObservationValue) {
-                    observationDAO.insertObservationSingleValue(obsConst, feature,
-                            observation, codespaceCache, unitCache, Sets.newHashSet(obsConst.getOffering()), session);
-                } else if (observation.getValue() instanceof MultiObservationValues) {
-                    observationDAO.insertObservationMultiValue(obsConst, feature,
-                            observation, codespaceCache, unitCache, Sets.newHashSet(obsConst.getOffering()), session);
-                }
-                if ((++insertion % FLUSH_THRESHOLD) == 0) {
-                    session.flush();
-                    session.clear();
-                    LOGGER.debug("Saved {}/{} observations.", insertion, size);
-                }
+            new ObservationInserter(resultTemplate, bulk, session).insert(observations);
+            if (bulk != null) {
+                bulk.flush();
             }
             LOGGER.debug("Saved {} observations.", size);
             transaction.commit();
@@ -199,12 +220,116 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
             if (transaction != null) {
                 transaction.rollback();
             }
-            // XXX exception text
-            throw new NoApplicableCodeException().causedBy(he);
+            throw he;
         } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+            sessionHolder.returnSession(session);
+        }
+    }
+
+    /**
+     * Insert the result values read from the request's result values reader.
+     * The values are read, unfolded and inserted in chunks of
+     * {@value BulkInsertion#FLUSH_THRESHOLD} blocks, so the complete result
+     * values are never held in memory. The response contains one summarizing
+     * observation per observation constellation with the covered phenomenon
+     * time and the latest result time.
+     * <p/>
+     * The series of the observations are locked before each chunk is
+     * inserted. If a series is locked by a concurrent insertion, the insertion
+     * fails with a retryable exception and the next attempt locks all series
+     * seen so far in advance. The last attempt locks all series.
+     *
+     * @param request
+     *            InsertResult request with result values reader
+     * @param response
+     *            the response to fill
+     * @param spool
+     *            the copy of the result values
+     * @param seriesKeys
+     *            the keys of the series seen in previous attempts, extended by
+     *            the series of this attempt
+     * @param lockAll
+     *            if all series should be locked
+     * @throws OwsExceptionReport
+     *             If the result values can not be read or inserted
+     */
+    private void insertStreamingResult(final InsertResultRequest request, final InsertResultResponse response,
+            final ResultValuesSpool spool, final Set<String> seriesKeys, final boolean lockAll)
+            throws OwsExceptionReport {
+        Session session = null;
+        Transaction transaction = null;
+        IngestionLock lock = null;
+        BulkInsertion bulk = null;
+        try {
+            session = sessionHolder.getSession();
+            final ResultTemplate resultTemplate =
+                    new ResultTemplateDAO().getResultTemplateObject(request.getTemplateIdentifier(), session);
+            final SosResultEncoding resultEncoding = new SosResultEncoding(resultTemplate.getResultEncoding());
+            final SosResultStructure resultStructure = new SosResultStructure(resultTemplate.getResultStructure());
+            if (!(resultEncoding.getEncoding() instanceof SweTextEncoding)) {
+                throw new NoApplicableCodeException().withMessage(
+                        "Only text encoded result values can be streamed!");
+            }
+            transaction = session.beginTransaction();
+            final OmObservationConstellation constellation = getSosObservationConstellation(resultTemplate, session);
+
+            // the series are only known after parsing, so lock the series seen
+            // in previous attempts in advance and extend the lock per chunk
+            if (lockAll) {
+                lock = IngestionLock.lockAll();
+            } else {
+                lock = IngestionLock.lock(seriesKeys);
+            }
+            bulk = BulkInsertion.start(session, bulkInsertionThreshold);
+            final ObservationInserter inserter = new ObservationInserter(resultTemplate, bulk, session);
+            final Map<OmObservationConstellation, OmObservation> summaries = new LinkedHashMap<>();
+
+            try (SweTextBlockReader reader = new SweTextBlockReader(spool.open(),
+                    (SweTextEncoding) resultEncoding.getEncoding())) {
+                int blocks = 0;
+                List<List<String>> chunk;
+                while (!(chunk = reader.readBlocks(BulkInsertion.FLUSH_THRESHOLD)).isEmpty()) {
+                    final OmObservation o =
+                            getObservation(constellation, chunk, resultStructure.getResultStructure(),
+                                    resultEncoding.getEncoding());
+                    final List<OmObservation> observations = getSingleObservationsFromObservation(o);
+                    final Set<String> keys = IngestionLock.getKeys(observations);
+                    seriesKeys.addAll(keys);
+                    lock.extend(keys);
+                    inserter.insert(observations);
+                    summarize(summaries, observations);
+                    blocks += chunk.size();
+                    LOGGER.debug("Saved {} streamed result blocks.", blocks);
+                }
+            }
+            if (summaries.isEmpty()) {
+                throw new MissingResultValuesParameterException();
+            }
+            if (bulk != null) {
+                bulk.flush();
+            }
+            transaction.commit();
+            response.setObservations(Lists.newArrayList(summaries.values()));
+        } catch (final IOException ioe) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw new NoApplicableCodeException().causedBy(ioe).withMessage(
+                    "Error while reading result values! Message: %s", ioe.getMessage());
+        } catch (final HibernateException | OwsExceptionReport e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
             sessionHolder.returnSession(session);
         }
-        return response;
     }
 
     /**
@@ -229,8 +354,9 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
         final SosResultStructure resultStructure = new SosResultStructure(resultTemplate.getResultStructure());
         final String[] blockValues = getBlockValues(resultValues, resultEncoding.getEncoding());
         final OmObservation singleObservation =
-                getObservation(resultTemplate, blockValues, resultStructure.getResultStructure(),
-                        resultEncoding.getEncoding(), session);
+                getObservation(getSosObservationConstellation(resultTemplate, session),
+                        getBlocks(blockValues, resultEncoding.getEncoding()), resultStructure.getResultStructure(),
+                        resultEncoding.getEncoding());
 //        final AbstractFeature feature = getSosAbstractFeature(resultTemplate.getFeatureOfInterest(), version, session);
 //        singleObservation.getObservationConstellation().setFeatureOfInterest(feature);
         return singleObservation;
@@ -332,23 +458,21 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
     /**
      * Get internal observation
      * 
-     * @param resultTemplate
-     *            Associated ResultTemplate
-     * @param blockValues
-     *            Block values from result values
+     * @param observationConstellation
+     *            Observation constellation of the associated ResultTemplate
+     * @param blocks
+     *            Blocks of single values from result values
      * @param resultStructure
      *            Associated ResultStructure
      * @param encoding
      *            Associated ResultEncoding
-     * @param session
-     *            Hibernate session
      * @return Internal observation
      * @throws OwsExceptionReport
      *             If processing fails
      */
-    private OmObservation getObservation(final ResultTemplate resultTemplate, final String[] blockValues,
-            final SweAbstractDataComponent resultStructure, final SweAbstractEncoding encoding, final Session session)
-            throws OwsExceptionReport {
+    private OmObservation getObservation(final OmObservationConstellation observationConstellation,
+            final Iterable<List<String>> blocks, final SweAbstractDataComponent resultStructure,
+            final SweAbstractEncoding encoding) throws OwsExceptionReport {
         final int resultTimeIndex = helper.hasResultTime(resultStructure);
         final int phenomenonTimeIndex = helper.hasPhenomenonTime(resultStructure);
 
@@ -363,10 +487,10 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
         getIndexFor(record, j, observedProperties, units, featureOfInterest, procedure, Sets.newHashSet(resultTimeIndex, phenomenonTimeIndex));
         
         final MultiObservationValues<SweDataArray> sosValues =
-                createObservationValueFrom(blockValues, record, encoding, resultTimeIndex, phenomenonTimeIndex);
+                createObservationValueFrom(blocks, record, encoding, resultTimeIndex, phenomenonTimeIndex);
 
         final OmObservation observation = new OmObservation();
-        observation.setObservationConstellation(getSosObservationConstellation(resultTemplate, session));
+        observation.setObservationConstellation(observationConstellation);
         observation.setResultType(OmConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION);
         observation.setValue(sosValues);
         return observation;
@@ -420,8 +544,8 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
     /**
      * Create internal observation value
      * 
-     * @param blockValues
-     *            Block values from result values
+     * @param blocks
+     *            Blocks of single values from result values
      * @param recordFromResultStructure
      *            Associated ResultStructure
      * @param encoding
@@ -434,7 +558,7 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
      * @throws OwsExceptionReport
      *             If processing fails
      */
-    private MultiObservationValues<SweDataArray> createObservationValueFrom(final String[] blockValues,
+    private MultiObservationValues<SweDataArray> createObservationValueFrom(final Iterable<List<String>> blocks,
             final SweAbstractDataComponent recordFromResultStructure, final SweAbstractEncoding encoding,
             final int resultTimeIndex, final int phenomenonTimeIndex) throws OwsExceptionReport {
         final SweDataArray dataArray = new SweDataArray();
@@ -444,15 +568,32 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
         final SweDataArrayValue dataArrayValue = new SweDataArrayValue();
         dataArrayValue.setValue(dataArray);
 
+        for (final List<String> block : blocks) {
+            dataArrayValue.addBlock(block);
+        }
+        final MultiObservationValues<SweDataArray> sosValues = new MultiObservationValues<SweDataArray>();
+        sosValues.setValue(dataArrayValue);
+        return sosValues;
+    }
+
+    /**
+     * Get the single values of the block values
+     * 
+     * @param blockValues
+     *            Block values from result values
+     * @param encoding
+     *            ResultEncoding
+     * @return Blocks of single values
+     */
+    private List<List<String>> getBlocks(final String[] blockValues, final SweAbstractEncoding encoding) {
+        final List<List<String>> blocks = Lists.newArrayListWithCapacity(blockValues.length);
         for (final String block : blockValues) {
             final String[] singleValues = getSingleValues(block, encoding);
             if (singleValues != null && singleValues.length > 0) {
-                dataArrayValue.addBlock(Arrays.asList(singleValues));
+                blocks.add(Arrays.asList(singleValues));
             }
         }
-        final MultiObservationValues<SweDataArray> sosValues = new MultiObservationValues<SweDataArray>();
-        sosValues.setValue(dataArrayValue);
-        return sosValues;
+        return blocks;
     }
 
     /**
@@ -526,6 +667,118 @@ public class InsertResultDAO extends AbstractInsertResultDAO implements Capabili
         return values.split(separator);
     }
 
+    /**
+     * Add the observations to the per observation constellation summaries of
+     * streamed result values.
+     * 
+     * @param summaries
+     *            Summarizing observations per observation constellation
+     * @param observations
+     *            Inserted single observations
+     */
+    private void summarize(final Map<OmObservationConstellation, OmObservation> summaries,
+            final List<OmObservation> observations) {
+        for (final OmObservation observation : observations) {
+            OmObservation summary = summaries.get(observation.getObservationConstellation());
+            if (summary == null) {
+                summary = observation.cloneTemplate();
+                summary.setValue(createSummaryValue(observation.getValue().getValue()));
+                summaries.put(observation.getObservationConstellation(), summary);
+            }
+            ((TimePeriod) summary.getPhenomenonTime()).extendToContain(observation.getPhenomenonTime());
+            final TimeInstant resultTime = observation.getResultTime();
+            if (resultTime != null
+                    && (summary.getResultTime() == null || resultTime.compareTo(summary.getResultTime()) > 0)) {
+                summary.setResultTime(resultTime);
+            }
+        }
+    }
+
+    private <T> SingleObservationValue<T> createSummaryValue(final Value<T> value) {
+        return new SingleObservationValue<T>(new TimePeriod(), value);
+    }
+
+    /**
+     * Inserts the unfolded observations of a result template and keeps the
+     * entities looked up for them for subsequent insertions.
+     */
+    private static class ObservationInserter {
+        private final ResultTemplate resultTemplate;
+
+        private final BulkInsertion bulk;
+
+        private final Session session;
+
+        private final Map<String, Codespace> codespaceCache = Maps.newHashMap();
+
+        private final Map<UoM, Unit> unitCache = Maps.newHashMap();
+
+        private final Map<OmObservationConstellation, ObservationConstellation> obsConsts = new HashMap<>();
+
+        private final Map<String, AbstractFeatureOfInterest> featureEntityMap = new HashMap<>();
+
+        private final ObservationConstellationDAO obsConstDao = new ObservationConstellationDAO();
+
+        private final AbstractObservationDAO observationDAO;
+
+        private int insertion;
+
+        ObservationInserter(final ResultTemplate resultTemplate, final BulkInsertion bulk, final Session session)
+                throws OwsExceptionReport {
+            this.resultTemplate = resultTemplate;
+            this.bulk = bulk;
+            this.session = session;
+            this.observationDAO = DaoFactory.getInstance().getObservationDAO();
+        }
+
+        void insert(final List<OmObservation> observations) throws OwsExceptionReport {
+            final SeriesBatch seriesBatch = bulk != null ? bulk.getSeriesBatch() : null;
+            final int size = observations.size();
+            int inserted = 0;
+            for (final OmObservation observation : observations) {
+                OmObservationConstellation omObsConst = observation.getObservationConstellation();
+                if (!obsConsts.containsKey(omObsConst)) {
+                    obsConsts.put(omObsConst, 
+                            obsConstDao.getObservationConstellation(omObsConst, session));
+                }
+                ObservationConstellation obsConst = obsConsts.get(observation.getObservationConstellation());
+                AbstractFeatureOfInterest feature = null;
+                if (resultTemplate.isSetFeatureOfInterest()) {
+                    feature = resultTemplate.getFeatureOfInterest();
+                } else {
+                    if (!featureEntityMap.containsKey(omObsConst.getFeatureOfInterestIdentifier())) {
+                        feature = featureEntityMap.get(omObsConst.getFeatureOfInterestIdentifier());
+                    } else {
+                        FeatureOfInterestDAO featureOfInterestDAO = new FeatureOfInterestDAO();
+                        feature =
+                                featureOfInterestDAO.checkOrInsertFeatureOfInterest(omObsConst.getFeatureOfInterest(),
+                                        session);
+                        featureOfInterestDAO.checkOrInsertFeatureOfInterestRelatedFeatureRelation(feature,
+                                obsConst.getOffering(), session);
+                        featureEntityMap.put(feature.getIdentifier(), feature);
+                    }
+                }
+                if (observation.getValue() instanceof SingleObservationValue) {
+                    observationDAO.insertObservationSingleValue(obsConst, feature,
+                            observation, codespaceCache, unitCache, Sets.newHashSet(obsConst.getOffering()),
+                            seriesBatch, session);
+                } else if (observation.getValue() instanceof MultiObservationValues) {
+                    observationDAO.insertObservationMultiValue(obsConst, feature,
+                            observation, codespaceCache, unitCache, Sets.newHashSet(obsConst.getOffering()),
+                            seriesBatch, session);
+                }
+                ++inserted;
+                if (bulk != null) {
+                    bulk.inserted(BulkInsertion.countValues(observation));
+                } else if ((++insertion % FLUSH_THRESHOLD) == 0) {
+                    session.flush();
+                    session.clear();
+                    LOGGER.debug("Saved {}/{} observations.", inserted, size);
+                }
+            }
+        }
+    }
+
     @Override
     public CapabilitiesExtension getExtension() {
         final SosInsertionCapabilities insertionCapabilities = new SosInsertionCapabilities();
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.n52.sos.config.SettingDefinition;
+import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.IntegerSettingDefinition;
+import org.n52.sos.service.ServiceSettings;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * {@link SettingDefinitionProvider} for the observation insertion settings.
+ *
+ * @since 4.4.0
+ */
+public class InsertionSettingDefinitionProvider implements SettingDefinitionProvider {
+
+    public static final String BULK_INSERTION_THRESHOLD = "service.bulkInsertionThreshold";
+
+    public static final IntegerSettingDefinition BULK_INSERTION_THRESHOLD_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP).setOrder(8.1f).setKey(BULK_INSERTION_THRESHOLD)
+            .setDefaultValue(BulkInsertion.DEFAULT_THRESHOLD)
+            .setTitle("Bulk insertion threshold")
+            .setDescription("The number of observation values of an InsertObservation or InsertResult request from "
+                    + "which on the values are inserted in bulk mode: each series is resolved and updated once per "
+                    + "batch and the observations are written in JDBC batches. Duplicated observations within a "
+                    + "request are then only detected by the database constraints. A value of 0 disables the bulk "
+                    + "mode.");
+
+    private static final Set<SettingDefinition<?, ?>> DEFINITIONS = ImmutableSet
+            .<SettingDefinition<?, ?>> of(BULK_INSERTION_THRESHOLD_DEFINITION);
+
+    @Override
+    public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
+        return Collections.unmodifiableSet(DEFINITIONS);
+    }
+}
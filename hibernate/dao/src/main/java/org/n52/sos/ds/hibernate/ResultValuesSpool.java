@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.io.FileBackedOutputStream;
+
+/**
+ * Copies the streamed result values of an InsertResult request while they are
+ * read, so an insertion can be retried after a concurrent modification. The
+ * copy is kept in memory up to {@value #MEMORY_THRESHOLD} bytes and in a
+ * temporary file beyond.
+ *
+ * @since 4.4.0
+ */
+final class ResultValuesSpool implements Closeable {
+    private static final int MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final Reader source;
+
+    private final FileBackedOutputStream spool = new FileBackedOutputStream(MEMORY_THRESHOLD, true);
+
+    private final Writer copy = new OutputStreamWriter(spool, StandardCharsets.UTF_8);
+
+    ResultValuesSpool(Reader source) {
+        this.source = source;
+    }
+
+    /**
+     * Open a reader that returns the values read so far followed by the
+     * remaining values of the source. Only one reader may be used at a time.
+     *
+     * @return the reader
+     * @throws IOException
+     *             if the copy can not be read
+     */
+    Reader open() throws IOException {
+        copy.flush();
+        final Reader spooled = spool.asByteSource().asCharSource(StandardCharsets.UTF_8).openStream();
+        return new Reader() {
+            private boolean replaying = true;
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                if (replaying) {
+                    int read = spooled.read(cbuf, off, len);
+                    if (read >= 0) {
+                        return read;
+                    }
+                    replaying = false;
+                    spooled.close();
+                }
+                int read = source.read(cbuf, off, len);
+                if (read > 0) {
+                    copy.write(cbuf, off, read);
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                // the source is closed with the spool
+                spooled.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            source.close();
+        } finally {
+            copy.close();
+            spool.reset();
+        }
+    }
+}
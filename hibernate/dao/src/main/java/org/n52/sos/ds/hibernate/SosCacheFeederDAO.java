@@ -31,18 +31,25 @@ package org.n52.sos.ds.hibernate;
 import static org.n52.sos.ds.hibernate.CacheFeederSettingDefinitionProvider.CACHE_THREAD_COUNT;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.hibernate.Session;
 import org.joda.time.Period;
 import org.joda.time.format.PeriodFormat;
+import org.n52.sos.cache.ContentCacheDelta;
 import org.n52.sos.cache.WritableContentCache;
 import org.n52.sos.config.annotation.Configurable;
 import org.n52.sos.config.annotation.Setting;
-import org.n52.sos.ds.CacheFeederDAO;
 import org.n52.sos.ds.HibernateDatasourceConstants;
+import org.n52.sos.ds.IncrementalCacheFeederDAO;
 import org.n52.sos.ds.hibernate.cache.InitialCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.SeriesChangeTracker;
+import org.n52.sos.ds.hibernate.cache.SeriesChangeTracker.SeriesChanges;
+import org.n52.sos.ds.hibernate.cache.SeriesDeltaCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.OfferingCacheUpdate;
+import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.ows.CompositeOwsException;
@@ -58,7 +65,7 @@ import org.slf4j.LoggerFactory;
  * @since 4.0.0
  */
 @Configurable
-public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFeederDAO {
+public class SosCacheFeederDAO extends HibernateSessionHolder implements IncrementalCacheFeederDAO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SosCacheFeederDAO.class);
 
@@ -68,6 +75,12 @@ public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFe
      */
     private int cacheThreadCount = 5;
 
+    /**
+     * Series states at the time of the last cache update, used as watermark
+     * for incremental updates.
+     */
+    private final SeriesChangeTracker seriesChangeTracker = new SeriesChangeTracker();
+
     public int getCacheThreadCount() {
         return cacheThreadCount;
     }
@@ -93,6 +106,8 @@ public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFe
             LOGGER.info("Starting cache update");
             long cacheUpdateStartTime = System.currentTimeMillis();
 
+            resetSeriesChangeTracker(session);
+
             update.execute();
 
             logCacheLoadTime(cacheUpdateStartTime);
@@ -103,11 +118,73 @@ public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFe
             returnSession(session);
         }
         if (!errors.isEmpty()) {
+            seriesChangeTracker.clear();
             throw new CompositeOwsException(errors);
         }
         
     }
 
+    @Override
+    public ContentCacheDelta updateCacheIncrementally(WritableContentCache cache) throws OwsExceptionReport {
+        checkCacheNotNull(cache);
+        if (!DaoFactory.getInstance().isSeriesDAO()) {
+            return ContentCacheDelta.completeUpdateRequired("the datasource does not support series");
+        }
+        List<OwsExceptionReport> errors = CollectionHelper.synchronizedList();
+        ContentCacheDelta delta = null;
+        Session session = null;
+        try {
+            session = getSession();
+            LOGGER.info("Starting delta cache update");
+            long cacheUpdateStartTime = System.currentTimeMillis();
+
+            SeriesChanges changes = seriesChangeTracker
+                    .detect(DaoFactory.getInstance().getSeriesDAO().getSeriesCacheStates(session));
+            if (changes == null) {
+                return ContentCacheDelta.completeUpdateRequired("no previous series state recorded");
+            }
+            if (changes.hasRemovedSeries()) {
+                return ContentCacheDelta.completeUpdateRequired("series were removed or reassigned");
+            }
+            Set<String> offerings = new HashSet<>(changes.getOfferings());
+            for (String procedure : changes.getProceduresWithoutOffering()) {
+                Set<String> offeringsForProcedure = cache.getOfferingsForProcedure(procedure);
+                if (offeringsForProcedure.isEmpty()) {
+                    return ContentCacheDelta.completeUpdateRequired(
+                            String.format("offerings of procedure %s are unknown", procedure));
+                }
+                offerings.addAll(offeringsForProcedure);
+            }
+
+            if (!changes.isEmpty()) {
+                SeriesDeltaCacheUpdate update = new SeriesDeltaCacheUpdate(getCacheThreadCount(), offerings,
+                        changes.getProcedures(), changes.hasNewSeries());
+                update.setCache(cache);
+                update.setErrors(errors);
+                update.setSession(session);
+                update.execute();
+            }
+            if (errors.isEmpty()) {
+                seriesChangeTracker.commit(changes);
+                delta = new ContentCacheDelta(changes.getChangedSeries(), offerings.size(),
+                        changes.getProcedures().size(), changes.getFeaturesOfInterest().size(),
+                        changes.getObservableProperties().size());
+            }
+            logCacheLoadTime(cacheUpdateStartTime);
+        } catch (Exception e) {
+            LOGGER.error("Error while updating ContentCache incrementally!", e);
+            errors.add(new NoApplicableCodeException().causedBy(e)
+                    .withMessage("Error while updating ContentCache incrementally!"));
+        } finally {
+            returnSession(session);
+        }
+        if (!errors.isEmpty()) {
+            seriesChangeTracker.clear();
+            throw new CompositeOwsException(errors);
+        }
+        return delta;
+    }
+
     @Override
     public void updateCacheOfferings(WritableContentCache cache, Collection<String> offeringsNeedingUpdate)
             throws OwsExceptionReport {
@@ -141,6 +218,22 @@ public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFe
         }
     }
 
+    /**
+     * Record the current series states as watermark for the next incremental
+     * update. Failing to do so only disables incremental updates until the
+     * next complete update.
+     */
+    private void resetSeriesChangeTracker(Session session) {
+        try {
+            if (DaoFactory.getInstance().isSeriesDAO()) {
+                seriesChangeTracker.reset(DaoFactory.getInstance().getSeriesDAO().getSeriesCacheStates(session));
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Could not record series states, delta cache updates will fall back to complete updates", e);
+            seriesChangeTracker.clear();
+        }
+    }
+
     private void checkCacheNotNull(WritableContentCache cache) {
         if (cache == null) {
             throw new NullPointerException("cache is null");
@@ -0,0 +1,292 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.cache;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesDAO;
+
+/**
+ * Keeps the state of all series at the time of the last cache update and
+ * detects the series that changed since then. Series are compared by their
+ * offering, procedure, featureOfInterest and observableProperty as well as
+ * their first and last time stamp, so the first/last time stamps serve as the
+ * watermark of the cache.
+ *
+ * @see AbstractSeriesDAO#getSeriesCacheStates(org.hibernate.Session)
+ * @since 4.4.0
+ */
+public class SeriesChangeTracker {
+    private Map<Long, SeriesState> states;
+
+    /**
+     * Record the current series states, e.g. at the beginning of a complete
+     * cache update.
+     *
+     * @param rows
+     *            the series states
+     */
+    public synchronized void reset(List<Object[]> rows) {
+        this.states = toStates(rows);
+    }
+
+    /**
+     * Forget the recorded series states. The next detection will require a
+     * complete update.
+     */
+    public synchronized void clear() {
+        this.states = null;
+    }
+
+    /**
+     * Compare the current series states with the recorded ones. The recorded
+     * states are not modified until the changes are
+     * {@link #commit(SeriesChanges) committed}.
+     *
+     * @param rows
+     *            the current series states
+     * @return the changes or <code>null</code> if no states are recorded
+     */
+    public synchronized SeriesChanges detect(List<Object[]> rows) {
+        if (this.states == null) {
+            return null;
+        }
+        Map<Long, SeriesState> current = toStates(rows);
+        SeriesChanges changes = new SeriesChanges(this.states, current);
+        for (Entry<Long, SeriesState> entry : this.states.entrySet()) {
+            SeriesState state = current.get(entry.getKey());
+            if (state == null || !state.hasSameRelations(entry.getValue())) {
+                changes.removedSeries++;
+            }
+        }
+        for (Entry<Long, SeriesState> entry : current.entrySet()) {
+            SeriesState previous = this.states.get(entry.getKey());
+            if (previous == null || !previous.equals(entry.getValue())) {
+                changes.add(entry.getValue(), previous == null);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Record the states the changes were detected against, after they were
+     * successfully applied to the cache. Changes detected before the last
+     * {@link #reset(List)} are ignored.
+     *
+     * @param changes
+     *            the applied changes
+     */
+    public synchronized void commit(SeriesChanges changes) {
+        if (this.states == changes.previous) {
+            this.states = changes.current;
+        }
+    }
+
+    private static Map<Long, SeriesState> toStates(List<Object[]> rows) {
+        Map<Long, SeriesState> map = new HashMap<>(rows.size());
+        for (Object[] row : rows) {
+            boolean deleted = Boolean.TRUE.equals(row[7]);
+            boolean published = !Boolean.FALSE.equals(row[8]);
+            if (!deleted && published) {
+                map.put(((Number) row[0]).longValue(), new SeriesState((String) row[1], (String) row[2],
+                        (String) row[3], (String) row[4], toMillis(row[5]), toMillis(row[6])));
+            }
+        }
+        return map;
+    }
+
+    private static Long toMillis(Object date) {
+        // Timestamp.equals(Date) is not symmetric, compare the millis instead
+        return date instanceof Date ? ((Date) date).getTime() : null;
+    }
+
+    /**
+     * The series that changed between two cache updates.
+     */
+    public static class SeriesChanges {
+        private final Map<Long, SeriesState> previous;
+
+        private final Map<Long, SeriesState> current;
+
+        private final Set<String> offerings = new HashSet<>();
+
+        private final Set<String> proceduresWithoutOffering = new HashSet<>();
+
+        private final Set<String> procedures = new HashSet<>();
+
+        private final Set<String> featuresOfInterest = new HashSet<>();
+
+        private final Set<String> observableProperties = new HashSet<>();
+
+        private int changedSeries;
+
+        private int newSeries;
+
+        private int removedSeries;
+
+        SeriesChanges(Map<Long, SeriesState> previous, Map<Long, SeriesState> current) {
+            this.previous = previous;
+            this.current = current;
+        }
+
+        private void add(SeriesState state, boolean isNew) {
+            this.changedSeries++;
+            if (isNew) {
+                this.newSeries++;
+            }
+            if (state.offering != null) {
+                this.offerings.add(state.offering);
+            } else {
+                this.proceduresWithoutOffering.add(state.procedure);
+            }
+            this.procedures.add(state.procedure);
+            this.featuresOfInterest.add(state.featureOfInterest);
+            this.observableProperties.add(state.observableProperty);
+        }
+
+        /**
+         * @return the number of new or modified series
+         */
+        public int getChangedSeries() {
+            return changedSeries;
+        }
+
+        /**
+         * @return if series were added, which may introduce new relations
+         */
+        public boolean hasNewSeries() {
+            return newSeries > 0;
+        }
+
+        /**
+         * @return if series were deleted, unpublished or reassigned, which
+         *         can not be applied incrementally
+         */
+        public boolean hasRemovedSeries() {
+            return removedSeries > 0;
+        }
+
+        /**
+         * @return if no series changed
+         */
+        public boolean isEmpty() {
+            return changedSeries == 0 && removedSeries == 0;
+        }
+
+        /**
+         * @return the offerings of the changed series
+         */
+        public Set<String> getOfferings() {
+            return Collections.unmodifiableSet(offerings);
+        }
+
+        /**
+         * @return the procedures of changed series that are not assigned to
+         *         an offering
+         */
+        public Set<String> getProceduresWithoutOffering() {
+            return Collections.unmodifiableSet(proceduresWithoutOffering);
+        }
+
+        /**
+         * @return the procedures of the changed series
+         */
+        public Set<String> getProcedures() {
+            return Collections.unmodifiableSet(procedures);
+        }
+
+        /**
+         * @return the features of interest of the changed series
+         */
+        public Set<String> getFeaturesOfInterest() {
+            return Collections.unmodifiableSet(featuresOfInterest);
+        }
+
+        /**
+         * @return the observable properties of the changed series
+         */
+        public Set<String> getObservableProperties() {
+            return Collections.unmodifiableSet(observableProperties);
+        }
+    }
+
+    private static class SeriesState {
+        private final String offering;
+
+        private final String procedure;
+
+        private final String featureOfInterest;
+
+        private final String observableProperty;
+
+        private final Long firstTimeStamp;
+
+        private final Long lastTimeStamp;
+
+        SeriesState(String offering, String procedure, String featureOfInterest, String observableProperty,
+                Long firstTimeStamp, Long lastTimeStamp) {
+            this.offering = offering;
+            this.procedure = procedure;
+            this.featureOfInterest = featureOfInterest;
+            this.observableProperty = observableProperty;
+            this.firstTimeStamp = firstTimeStamp;
+            this.lastTimeStamp = lastTimeStamp;
+        }
+
+        boolean hasSameRelations(SeriesState other) {
+            return Objects.equals(offering, other.offering) && Objects.equals(procedure, other.procedure)
+                    && Objects.equals(featureOfInterest, other.featureOfInterest)
+                    && Objects.equals(observableProperty, other.observableProperty);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SeriesState)) {
+                return false;
+            }
+            SeriesState other = (SeriesState) obj;
+            return hasSameRelations(other) && Objects.equals(firstTimeStamp, other.firstTimeStamp)
+                    && Objects.equals(lastTimeStamp, other.lastTimeStamp);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(offering, procedure, featureOfInterest, observableProperty, firstTimeStamp,
+                    lastTimeStamp);
+        }
+    }
+}
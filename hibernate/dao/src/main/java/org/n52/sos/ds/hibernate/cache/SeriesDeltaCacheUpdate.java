@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.cache;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.n52.sos.ds.hibernate.cache.base.FeatureOfInterestCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.base.ObservablePropertiesCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.base.OfferingCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.base.ProcedureCacheUpdate;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Refreshes the offerings and procedures of changed series in an existing
+ * cache. Features of interest and observable properties are only reloaded if
+ * new series were added. The global time extrema are recalculated from the
+ * offerings.
+ *
+ * @see SeriesChangeTracker
+ * @see InitialCacheUpdate
+ *
+ * @since 4.4.0
+ */
+public class SeriesDeltaCacheUpdate extends CompositeCacheUpdate {
+
+    public SeriesDeltaCacheUpdate(int threadCount, Collection<String> offerings, Collection<String> procedures,
+            boolean newSeries) {
+        super(createUpdates(threadCount, offerings, procedures, newSeries));
+    }
+
+    private static AbstractDatasourceCacheUpdate[] createUpdates(int threadCount, Collection<String> offerings,
+            Collection<String> procedures, boolean newSeries) {
+        List<AbstractDatasourceCacheUpdate> updates = Lists.newArrayListWithCapacity(4);
+        if (newSeries) {
+            updates.add(new FeatureOfInterestCacheUpdate());
+            updates.add(new ObservablePropertiesCacheUpdate());
+        }
+        if (!offerings.isEmpty()) {
+            updates.add(new OfferingCacheUpdate(threadCount, offerings));
+        }
+        if (!procedures.isEmpty()) {
+            updates.add(new ProcedureCacheUpdate(threadCount, procedures));
+        }
+        return updates.toArray(new AbstractDatasourceCacheUpdate[updates.size()]);
+    }
+
+    @Override
+    public void execute() {
+        super.execute();
+        getCache().recalculatePhenomenonTime();
+        getCache().recalculateResultTime();
+    }
+}
@@ -76,6 +76,8 @@ public class ProcedureCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<
 
     private Map<String,Collection<ObservationConstellationInfo>> procObsConstInfoMap;
 
+    private Collection<String> procedureIdsToUpdate;
+
     /**
      * constructor
      * @param threads Thread count
@@ -84,6 +86,20 @@ public class ProcedureCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<
         super(threads, THREAD_GROUP_NAME);
     }
 
+    /**
+     * constructor
+     * @param threads Thread count
+     * @param procedureIdsToUpdate Identifiers of the procedures to update
+     */
+    public ProcedureCacheUpdate(int threads, Collection<String> procedureIdsToUpdate) {
+        super(threads, THREAD_GROUP_NAME);
+        this.procedureIdsToUpdate = procedureIdsToUpdate;
+    }
+
+    protected boolean shouldProcedureBeProcessed(String procedureIdentifier) {
+        return procedureIdsToUpdate == null || procedureIdsToUpdate.contains(procedureIdentifier);
+    }
+
     private Map<String,Collection<ObservationConstellationInfo>> getProcedureObservationConstellationInfo() {
         if (procObsConstInfoMap == null) {
             procObsConstInfoMap = ObservationConstellationInfo.mapByProcedure(
@@ -131,7 +147,9 @@ public class ProcedureCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<
         Collection<ProcedureCacheUpdateTask> procedureUpdateTasks = Lists.newArrayList();
         Set<String> procedureIdentifiers = getProcedureMap().keySet();
         for (String procedureIdentifier : procedureIdentifiers) {
-            procedureUpdateTasks.add(new ProcedureCacheUpdateTask(procedureIdentifier));
+            if (shouldProcedureBeProcessed(procedureIdentifier)) {
+                procedureUpdateTasks.add(new ProcedureCacheUpdateTask(procedureIdentifier));
+            }
         }
         return procedureUpdateTasks.toArray(new ProcedureCacheUpdateTask[procedureUpdateTasks.size()]);
     }
@@ -149,6 +167,9 @@ public class ProcedureCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<
         List<Procedure> procedures = procedureDAO.getProcedureObjects(getSession());
         for (Procedure procedure : procedures) {
             String procedureIdentifier = procedure.getIdentifier();
+            if (!shouldProcedureBeProcessed(procedureIdentifier)) {
+                continue;
+            }
             Collection<String> parentProcedures = procedureMap.get(procedureIdentifier);
 //		}
 //        for (Entry<String, Collection<String>> entry : procedureMap.entrySet()) {
@@ -201,6 +222,9 @@ public class ProcedureCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<
         if (!CollectionHelper.isEmpty(procedureTimeExtrema)) {
             for (Entry<String, TimeExtrema> entry : procedureTimeExtrema.entrySet()) {
                 String procedureId = entry.getKey();
+                if (!shouldProcedureBeProcessed(procedureId)) {
+                    continue;
+                }
                 TimeExtrema te = entry.getValue();
                 getCache().setMinPhenomenonTimeForProcedure(procedureId, te.getMinPhenomenonTime());
                 getCache().setMaxPhenomenonTimeForProcedure(procedureId, te.getMaxPhenomenonTime());
@@ -142,26 +142,8 @@ public class ResultHandlingHelper {
             final Map<Integer, String> valueOrder = getValueOrderMap(sosResultStructure.getResultStructure());
             addElementCount(builder, observations.size(), blockSeparator);
             for (final Observation<?> observation : observations) {
-                for (final Integer intger : valueOrder.keySet()) {
-                    final String definition = valueOrder.get(intger);
-                    switch (definition) {
-                        case PHENOMENON_TIME:
-                            builder.append(getTimeStringForPhenomenonTime(observation.getPhenomenonTimeStart(),
-                                                                          observation.getPhenomenonTimeEnd()));
-                            break;
-                        case RESULT_TIME:
-                            builder.append(getTimeStringForResultTime(observation.getResultTime()));
-                            break;
-                        case OmConstants.PARAM_NAME_SAMPLING_GEOMETRY:
-                            builder.append(getSamplingGeometry(observation, tokenSeparator, sosResultStructure.getResultStructure()));
-                            break;
-                        default:
-                            builder.append(getValueAsStringForObservedProperty(observation, definition));
-                            break;
-                    }
-                    builder.append(tokenSeparator);
-                }
-                builder.delete(builder.lastIndexOf(tokenSeparator), builder.length());
+                addResultValuesBlock(builder, observation, valueOrder, tokenSeparator,
+                        sosResultStructure.getResultStructure());
                 builder.append(blockSeparator);
             }
             if (builder.length() > 0) {
@@ -171,6 +153,59 @@ public class ResultHandlingHelper {
         return builder.toString();
     }
 
+    /**
+     * Create the token separated values of a single observation (one block)
+     * according to the ResultStructure
+     *
+     * @param observation
+     *            Observation to create the block from
+     * @param valueOrder
+     *            Value order of the ResultStructure, see
+     *            {@link #getValueOrderMap(SweAbstractDataComponent)}
+     * @param tokenSeparator
+     *            Token separator of the ResultEncoding
+     * @param resultStructure
+     *            The ResultStructure
+     * @return The block without block separator
+     * @throws OwsExceptionReport
+     *             If creation fails
+     */
+    public String createResultValuesBlock(final Observation<?> observation, final Map<Integer, String> valueOrder,
+            final String tokenSeparator, final SweAbstractDataComponent resultStructure) throws OwsExceptionReport {
+        final StringBuilder builder = new StringBuilder();
+        addResultValuesBlock(builder, observation, valueOrder, tokenSeparator, resultStructure);
+        return builder.toString();
+    }
+
+    private void addResultValuesBlock(final StringBuilder builder, final Observation<?> observation,
+            final Map<Integer, String> valueOrder, final String tokenSeparator,
+            final SweAbstractDataComponent resultStructure) throws OwsExceptionReport {
+        final int start = builder.length();
+        for (final Integer intger : valueOrder.keySet()) {
+            final String definition = valueOrder.get(intger);
+            switch (definition) {
+                case PHENOMENON_TIME:
+                    builder.append(getTimeStringForPhenomenonTime(observation.getPhenomenonTimeStart(),
+                                                                  observation.getPhenomenonTimeEnd()));
+                    break;
+                case RESULT_TIME:
+                    builder.append(getTimeStringForResultTime(observation.getResultTime()));
+                    break;
+                case OmConstants.PARAM_NAME_SAMPLING_GEOMETRY:
+                    builder.append(getSamplingGeometry(observation, tokenSeparator, resultStructure));
+                    break;
+                default:
+                    builder.append(getValueAsStringForObservedProperty(observation, definition));
+                    break;
+            }
+            builder.append(tokenSeparator);
+        }
+        final int lastTokenSeparator = builder.lastIndexOf(tokenSeparator);
+        if (lastTokenSeparator >= start) {
+            builder.delete(lastTokenSeparator, builder.length());
+        }
+    }
+
     /**
      * Get token separator from encoding
      *
@@ -289,7 +324,15 @@ public class ResultHandlingHelper {
         return builder.toString();
     }
 
-    private Map<Integer, String> getValueOrderMap(final SweAbstractDataComponent sweDataElement) {
+    /**
+     * Get the definitions of the ResultStructure fields ordered by their
+     * position in a block
+     *
+     * @param sweDataElement
+     *            The ResultStructure
+     * @return Position to definition map
+     */
+    public Map<Integer, String> getValueOrderMap(final SweAbstractDataComponent sweDataElement) {
         final Map<Integer, String> valueOrder = new HashMap<>(0);
         if (sweDataElement instanceof SweDataArray
                 && ((SweDataArray) sweDataElement).getElementType() instanceof SweDataRecord) {
@@ -187,6 +187,18 @@ public abstract class AbstractHibernateStreamingValue extends StreamingValue<Abs
 
     }
 
+    /**
+     * Return the session if the values were not completely consumed, e.g.
+     * because the encoding was aborted. Returning an already returned session
+     * has no effect.
+     */
+    @Override
+    public void close() {
+        if (session != null) {
+            sessionHolder.returnSession(session);
+        }
+    }
+
     /**
      * Create a {@link TimeValuePair} from {@link AbstractValuedLegacyObservation}
      *
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.values;
+
+import java.util.Set;
+
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.n52.sos.ds.hibernate.GetResultDAO;
+import org.n52.sos.ds.hibernate.entities.observation.Observation;
+import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosResultEncoding;
+import org.n52.sos.ogc.sos.SosResultStructure;
+import org.n52.sos.request.GetResultRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hibernate streaming GetResult values implementation for
+ * {@link ScrollableResults}. The chunk size is used as JDBC fetch size.
+ *
+ * @since 4.4.0
+ *
+ */
+public class HibernateScrollableStreamingResultValues extends HibernateStreamingResultValues {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HibernateScrollableStreamingResultValues.class);
+
+    private ScrollableResults scrollableResult;
+
+    private boolean queried = false;
+
+    /**
+     * constructor
+     *
+     * @param dao
+     *            {@link GetResultDAO} to create the queries
+     * @param request
+     *            {@link GetResultRequest}
+     * @param featureIdentifiers
+     *            Set of feature identifiers
+     * @param procedure
+     *            Procedure identifier of the result template
+     * @param sosResultEncoding
+     *            The ResultEncoding
+     * @param sosResultStructure
+     *            The ResultStructure
+     */
+    public HibernateScrollableStreamingResultValues(GetResultDAO dao, GetResultRequest request,
+            Set<String> featureIdentifiers, String procedure, SosResultEncoding sosResultEncoding,
+            SosResultStructure sosResultStructure) {
+        super(dao, request, featureIdentifiers, procedure, sosResultEncoding, sosResultStructure);
+    }
+
+    @Override
+    public boolean hasNextBlock() throws OwsExceptionReport {
+        boolean next = false;
+        try {
+            if (!queried) {
+                getResults();
+            }
+            if (scrollableResult != null) {
+                next = scrollableResult.next();
+            }
+        } catch (final HibernateException he) {
+            throw handleException(he);
+        }
+        if (!next) {
+            if (scrollableResult != null) {
+                scrollableResult.close();
+                scrollableResult = null;
+            }
+            sessionHolder.returnSession(session);
+        }
+        return next;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (scrollableResult != null) {
+                scrollableResult.close();
+                scrollableResult = null;
+            }
+        } catch (final HibernateException he) {
+            LOGGER.debug("Error while closing the scrollable result values!", he);
+        } finally {
+            super.close();
+        }
+    }
+
+    @Override
+    public String nextBlock() throws OwsExceptionReport {
+        try {
+            return createBlock((Observation<?>) scrollableResult.get()[0]);
+        } catch (final HibernateException he) {
+            throw handleException(he);
+        }
+    }
+
+    /**
+     * Query the results from database
+     *
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying the results
+     */
+    private void getResults() throws OwsExceptionReport {
+        queried = true;
+        Criteria c = createOrderedCriteria();
+        if (c != null) {
+            int chunkSize = HibernateStreamingConfiguration.getInstance().getChunkSize();
+            if (chunkSize > 0) {
+                c.setFetchSize(chunkSize);
+            }
+            LOGGER.debug("QUERY getResults(): {}", HibernateHelper.getSqlString(c));
+            scrollableResult = c.scroll(ScrollMode.FORWARD_ONLY);
+        }
+    }
+
+}
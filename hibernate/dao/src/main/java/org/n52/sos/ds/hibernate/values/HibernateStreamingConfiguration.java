@@ -31,6 +31,7 @@ package org.n52.sos.ds.hibernate.values;
 import org.n52.sos.config.SettingsManager;
 import org.n52.sos.config.annotation.Configurable;
 import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.util.Validation;
 
 /**
  * Configuration class for Hibernate streaming settings
@@ -47,6 +48,12 @@ public class HibernateStreamingConfiguration {
     public static boolean DEFAULT_STREAMING_DATASOURCE = true;
     
     public static boolean DEFAULT_CHUNK_STREAMING_DATASOURCE = true; 
+
+    public static boolean DEFAULT_KEYSET_STREAMING_DATASOURCE = false;
+
+    public static int DEFAULT_PREFETCH_CHUNKS = 0;
+
+    public static int DEFAULT_PREFETCH_THREADS = 4;
     
     private static HibernateStreamingConfiguration instance;
 
@@ -54,8 +61,14 @@ public class HibernateStreamingConfiguration {
 
     private boolean chunkDatasourceStreaming = DEFAULT_CHUNK_STREAMING_DATASOURCE;
 
+    private boolean keysetDatasourceStreaming = DEFAULT_KEYSET_STREAMING_DATASOURCE;
+
     private int chunkSize = DEFAULT_CHUNK_SIZE;
 
+    private int prefetchChunks = DEFAULT_PREFETCH_CHUNKS;
+
+    private int prefetchThreads = DEFAULT_PREFETCH_THREADS;
+
     /**
      * @return Returns a singleton instance of the ServiceConfiguration.
      */
@@ -114,6 +127,27 @@ public class HibernateStreamingConfiguration {
         return chunkDatasourceStreaming;
     }
 
+    /**
+     * Set the indicator to page the chunks by key
+     * 
+     * @param keysetDatasourceStreaming
+     *            Value to set
+     */
+    @Setting(HibernateStreamingSettings.KEYSET_DATASOURCE_STREAMING)
+    public void setKeysetDatasourceStreaming(boolean keysetDatasourceStreaming) {
+        this.keysetDatasourceStreaming = keysetDatasourceStreaming;
+    }
+
+    /**
+     * Check if chunks should be paged by key and prefetched, only supported
+     * for the series concept.
+     * 
+     * @return <code>true</code>, if keyset streaming should be used
+     */
+    public boolean isKeysetDatasourceStreaming() {
+        return chunkDatasourceStreaming && keysetDatasourceStreaming;
+    }
+
     /**
      * Set the chunk size for chunk streaming
      * 
@@ -134,4 +168,46 @@ public class HibernateStreamingConfiguration {
         return chunkSize;
     }
 
+    /**
+     * Set the number of chunks to prefetch for keyset streaming
+     * 
+     * @param prefetchChunks
+     *            Number to set
+     */
+    @Setting(HibernateStreamingSettings.PREFETCH_CHUNKS)
+    public void setPrefetchChunks(int prefetchChunks) {
+        Validation.greaterEqualZero("Number of prefetched chunks", prefetchChunks);
+        this.prefetchChunks = prefetchChunks;
+    }
+
+    /**
+     * Get the number of chunks to prefetch for keyset streaming
+     * 
+     * @return the number of prefetched chunks
+     */
+    public int getPrefetchChunks() {
+        return prefetchChunks;
+    }
+
+    /**
+     * Set the maximum number of threads prefetching chunks
+     * 
+     * @param prefetchThreads
+     *            Number to set
+     */
+    @Setting(HibernateStreamingSettings.PREFETCH_THREADS)
+    public void setPrefetchThreads(int prefetchThreads) {
+        Validation.greaterZero("Number of prefetching threads", prefetchThreads);
+        this.prefetchThreads = prefetchThreads;
+    }
+
+    /**
+     * Get the maximum number of threads prefetching chunks
+     * 
+     * @return the number of prefetching threads
+     */
+    public int getPrefetchThreads() {
+        return prefetchThreads;
+    }
+
 }
@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.values;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.n52.sos.ds.hibernate.GetResultDAO;
+import org.n52.sos.ds.hibernate.HibernateSessionHolder;
+import org.n52.sos.ds.hibernate.entities.observation.AbstractObservation;
+import org.n52.sos.ds.hibernate.entities.observation.Observation;
+import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ds.hibernate.util.ResultHandlingHelper;
+import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosResultEncoding;
+import org.n52.sos.ogc.sos.SosResultStructure;
+import org.n52.sos.ogc.sos.StreamingResultValues;
+import org.n52.sos.ogc.swe.SweAbstractDataComponent;
+import org.n52.sos.request.GetResultRequest;
+import org.n52.sos.util.http.HTTPStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Abstract class for Hibernate streaming GetResult values. The observations
+ * are queried with the restrictions of the {@link GetResultDAO} in their own
+ * session, which is returned when all blocks are consumed or the values are
+ * closed by the response writer.
+ *
+ * @since 4.4.0
+ *
+ */
+public abstract class HibernateStreamingResultValues extends StreamingResultValues {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HibernateStreamingResultValues.class);
+
+    protected final HibernateSessionHolder sessionHolder = new HibernateSessionHolder();
+
+    protected Session session;
+
+    private final ResultHandlingHelper helper = new ResultHandlingHelper();
+
+    private final GetResultDAO dao;
+
+    private final GetResultRequest request;
+
+    private final Set<String> featureIdentifiers;
+
+    private final String procedure;
+
+    private final String tokenSeparator;
+
+    private final String blockSeparator;
+
+    private final SweAbstractDataComponent resultStructure;
+
+    private final Map<Integer, String> valueOrder;
+
+    private Long elementCount;
+
+    /**
+     * constructor
+     *
+     * @param dao
+     *            {@link GetResultDAO} to create the queries
+     * @param request
+     *            {@link GetResultRequest}
+     * @param featureIdentifiers
+     *            Set of feature identifiers
+     * @param procedure
+     *            Procedure identifier of the result template
+     * @param sosResultEncoding
+     *            The ResultEncoding
+     * @param sosResultStructure
+     *            The ResultStructure
+     */
+    public HibernateStreamingResultValues(GetResultDAO dao, GetResultRequest request, Set<String> featureIdentifiers,
+            String procedure, SosResultEncoding sosResultEncoding, SosResultStructure sosResultStructure) {
+        this.dao = dao;
+        this.request = request;
+        this.featureIdentifiers = featureIdentifiers;
+        this.procedure = procedure;
+        this.tokenSeparator = helper.getTokenSeparator(sosResultEncoding.getEncoding());
+        this.blockSeparator = helper.getBlockSeparator(sosResultEncoding.getEncoding());
+        this.resultStructure = sosResultStructure.getResultStructure();
+        this.valueOrder = helper.getValueOrderMap(resultStructure);
+    }
+
+    @Override
+    public String getBlockSeparator() {
+        return blockSeparator;
+    }
+
+    @Override
+    public long getElementCount() throws OwsExceptionReport {
+        if (elementCount == null) {
+            Criteria c = createCriteria();
+            if (c == null) {
+                elementCount = 0L;
+            } else {
+                c.setProjection(Projections.rowCount());
+                LOGGER.debug("QUERY getElementCount(): {}", HibernateHelper.getSqlString(c));
+                elementCount = (Long) c.uniqueResult();
+            }
+        }
+        return elementCount;
+    }
+
+    /**
+     * Create the token separated values of the observation and evict the
+     * observation from the session
+     *
+     * @param observation
+     *            Observation to create the block from
+     * @return The block
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    protected String createBlock(Observation<?> observation) throws OwsExceptionReport {
+        try {
+            return helper.createResultValuesBlock(observation, valueOrder, tokenSeparator, resultStructure);
+        } finally {
+            session.evict(observation);
+        }
+    }
+
+    /**
+     * Create the Criteria for the observations ordered by phenomenon start
+     * time and id, so that chunks are stable.
+     *
+     * @return the Criteria or <code>null</code> if no observation can match
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    protected Criteria createOrderedCriteria() throws OwsExceptionReport {
+        Criteria c = createCriteria();
+        if (c != null) {
+            c.addOrder(Order.asc(AbstractObservation.PHENOMENON_TIME_START)).addOrder(
+                    Order.asc(AbstractObservation.OBS_ID));
+        }
+        return c;
+    }
+
+    private Criteria createCriteria() throws OwsExceptionReport {
+        if (session == null) {
+            session = sessionHolder.getSession();
+        }
+        try {
+            return dao.createResultValuesCriteria(request, featureIdentifiers, procedure, session);
+        } catch (final HibernateException he) {
+            throw handleException(he);
+        }
+    }
+
+    /**
+     * Return the session if the blocks were not completely consumed, e.g.
+     * because the encoding was aborted. Returning an already returned session
+     * has no effect.
+     */
+    @Override
+    public void close() {
+        if (session != null) {
+            sessionHolder.returnSession(session);
+        }
+    }
+
+    /**
+     * Return the session and create the exception to throw
+     *
+     * @param he
+     *            the cause
+     * @return the exception to throw
+     */
+    protected OwsExceptionReport handleException(HibernateException he) {
+        sessionHolder.returnSession(session);
+        return new NoApplicableCodeException().causedBy(he).withMessage("Error while querying result data!")
+                .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+    }
+
+}
@@ -52,8 +52,14 @@ public class HibernateStreamingSettings implements SettingDefinitionProvider {
 
     public static final String DATASOURCE_STREAMING_APPROACH = "service.streaming.datasource.approach";
 
+    public static final String KEYSET_DATASOURCE_STREAMING = "service.streaming.datasource.keyset";
+
     public static final String CHUNK_SIZE = "service.streaming.datasource.chunkSize";
 
+    public static final String PREFETCH_CHUNKS = "service.streaming.datasource.prefetchChunks";
+
+    public static final String PREFETCH_THREADS = "service.streaming.datasource.prefetchThreads";
+
     public static final BooleanSettingDefinition FORCE_DATASOURCE_STREAMING_DEFINITION =
             new BooleanSettingDefinition()
                     .setGroup(StreamingSettings.GROUP)
@@ -75,6 +81,16 @@ public class HibernateStreamingSettings implements SettingDefinitionProvider {
                     .setDescription(
                             "Whether the service should query the streaming stream datasource values (currently only GetObservation) as chunk of x (true) or as scrollable values. NOTE: Please uncheck if you use Oracle because there is an issue in Hibernate ORM which cause exceptions if yor request contains offering parameter.");
 
+    public static final BooleanSettingDefinition KEYSET_DATASOURCE_STREAMING_DEFINITION =
+            new BooleanSettingDefinition()
+                    .setGroup(StreamingSettings.GROUP)
+                    .setOrder(ORDER_3)
+                    .setKey(KEYSET_DATASOURCE_STREAMING)
+                    .setDefaultValue(HibernateStreamingConfiguration.DEFAULT_KEYSET_STREAMING_DATASOURCE)
+                    .setTitle("Should this service page the chunks of streaming datasource values by key?")
+                    .setDescription(
+                            "Whether the chunks of streaming datasource values should be paged by the last queried value (keyset) instead of a row offset. This avoids the growing costs of row offsets for long time series. Only relevant if chunk streaming is set to 'true' and for the series concept.");
+
     public static final IntegerSettingDefinition CHUNK_SIZE_DEFINITION =
             new IntegerSettingDefinition()
                     .setGroup(StreamingSettings.GROUP)
@@ -83,10 +99,34 @@ public class HibernateStreamingSettings implements SettingDefinitionProvider {
                     .setTitle(String.format("Number of chunk size.", HibernateStreamingConfiguration.DEFAULT_CHUNK_SIZE))
                     .setDescription(
                             "Number of chunk size, only relevant if scrollable datasource streaming is set to 'true'. If define a number <= 0, the whole values are queried at once!")
-                    .setOrder(ORDER_3);
+                    .setOrder(ORDER_4);
+
+    public static final IntegerSettingDefinition PREFETCH_CHUNKS_DEFINITION =
+            new IntegerSettingDefinition()
+                    .setGroup(StreamingSettings.GROUP)
+                    .setKey(PREFETCH_CHUNKS)
+                    .setDefaultValue(HibernateStreamingConfiguration.DEFAULT_PREFETCH_CHUNKS)
+                    .setMinimum(0)
+                    .setTitle("Number of prefetched chunks.")
+                    .setDescription(
+                            "Number of chunks queried in the background while the previous chunk is encoded, only relevant if the chunks are paged by key. Each prefetched chunk holds a database connection until it is encoded. If set to 0, the chunks are queried when they are needed!")
+                    .setOrder(ORDER_5);
+
+    public static final IntegerSettingDefinition PREFETCH_THREADS_DEFINITION =
+            new IntegerSettingDefinition()
+                    .setGroup(StreamingSettings.GROUP)
+                    .setKey(PREFETCH_THREADS)
+                    .setDefaultValue(HibernateStreamingConfiguration.DEFAULT_PREFETCH_THREADS)
+                    .setMinimum(1)
+                    .setTitle("Maximum number of prefetching threads.")
+                    .setDescription(
+                            "Maximum number of responses whose chunks are prefetched at the same time, only relevant if chunks are prefetched. Further responses query their chunks when they are needed. Keep the number of threads times the prefetched chunks well below the size of the connection pool!")
+                    .setOrder(ORDER_6);
 
     private static final Set<SettingDefinition<?, ?>> DEFINITIONS = Sets.<SettingDefinition<?, ?>> newHashSet(
-            FORCE_DATASOURCE_STREAMING_DEFINITION, DATASOURCE_STREAMING_APPROACH_DEFINITION, CHUNK_SIZE_DEFINITION);
+            FORCE_DATASOURCE_STREAMING_DEFINITION, DATASOURCE_STREAMING_APPROACH_DEFINITION,
+            KEYSET_DATASOURCE_STREAMING_DEFINITION, CHUNK_SIZE_DEFINITION, PREFETCH_CHUNKS_DEFINITION,
+            PREFETCH_THREADS_DEFINITION);
 
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
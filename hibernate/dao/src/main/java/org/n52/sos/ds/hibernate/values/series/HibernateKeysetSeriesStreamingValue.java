@@ -0,0 +1,396 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.values.series;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.n52.sos.ds.hibernate.entities.observation.legacy.AbstractValuedLegacyObservation;
+import org.n52.sos.ds.hibernate.values.HibernateStreamingConfiguration;
+import org.n52.sos.exception.CodedException;
+import org.n52.sos.exception.ows.NoApplicableCodeException;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.TimeValuePair;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.request.AbstractObservationRequest;
+import org.n52.sos.request.GetObservationRequest;
+import org.n52.sos.util.http.HTTPStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Hibernate series streaming value implementation for chunk results that are
+ * paged by the key (order column, observation id) of the last value of the
+ * previous chunk instead of a row offset, so the costs of a chunk query do not
+ * grow with the position in the time series.
+ * <p>
+ * If configured, the next chunks are queried in the background while the
+ * current chunk is encoded. Each chunk is queried and consumed with its own
+ * session, at most {@link HibernateStreamingConfiguration#getPrefetchChunks()}
+ * chunks are queued. At most
+ * {@link HibernateStreamingConfiguration#getPrefetchThreads()} streams are
+ * prefetched at the same time, further streams and streams without prefetching
+ * query the chunks when they are needed. The sessions of prefetched chunks are
+ * returned when the response writer closes the values.
+ *
+ * @since 4.4.0
+ *
+ */
+public class HibernateKeysetSeriesStreamingValue extends HibernateSeriesStreamingValue {
+
+    private static final long serialVersionUID = 5398745627451632098L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HibernateKeysetSeriesStreamingValue.class);
+
+    /**
+     * Seconds the prefetching waits for the encoder to take a chunk before
+     * the streaming is considered abandoned. Only a safeguard if the values
+     * are not closed.
+     */
+    private static final long ABANDON_TIMEOUT = TimeUnit.MINUTES.toSeconds(1);
+
+    private static ThreadPoolExecutor prefetchExecutor;
+
+    private final int chunkSize;
+
+    private int prefetchChunks;
+
+    private transient BlockingQueue<Chunk> queue;
+
+    private transient volatile boolean prefetchFinished;
+
+    private transient volatile boolean closed;
+
+    private transient Chunk currentChunk;
+
+    private transient Iterator<AbstractValuedLegacyObservation<?>> seriesValuesResult;
+
+    private transient AbstractValuedLegacyObservation<?> lastValue;
+
+    private boolean noChunk = false;
+
+    /**
+     * constructor
+     *
+     * @param request
+     *            {@link GetObservationRequest}
+     * @param series
+     *            Datasource series id
+     * @param duplicated
+     * @throws CodedException
+     */
+    public HibernateKeysetSeriesStreamingValue(AbstractObservationRequest request, long series, boolean duplicated)
+            throws CodedException {
+        super(request, series, duplicated);
+        this.chunkSize = HibernateStreamingConfiguration.getInstance().getChunkSize();
+        this.prefetchChunks = HibernateStreamingConfiguration.getInstance().getPrefetchChunks();
+    }
+
+    @Override
+    public boolean hasNextValue() throws OwsExceptionReport {
+        while (seriesValuesResult == null || !seriesValuesResult.hasNext()) {
+            releaseCurrentChunk();
+            if (noChunk) {
+                return false;
+            }
+            Chunk chunk = nextChunk();
+            if (chunk.isLast()) {
+                noChunk = true;
+            }
+            if (chunk.getError() != null) {
+                sessionHolder.returnSession(chunk.getSession());
+                throw new NoApplicableCodeException().causedBy(chunk.getError())
+                        .withMessage("Error while querying observation data!")
+                        .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+            }
+            checkMaxNumberOfReturnedValues(chunk.getValues().size());
+            currentChunk = chunk;
+            session = chunk.getSession();
+            seriesValuesResult = chunk.getValues().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public AbstractValuedLegacyObservation<?> nextEntity() throws OwsExceptionReport {
+        AbstractValuedLegacyObservation<?> resultObject = seriesValuesResult.next();
+        if (checkValue(resultObject)) {
+            return resultObject;
+        }
+        session.evict(resultObject);
+        return null;
+    }
+
+    @Override
+    public TimeValuePair nextValue() throws OwsExceptionReport {
+        try {
+            if (hasNextValue()) {
+                AbstractValuedLegacyObservation<?> resultObject = seriesValuesResult.next();
+                TimeValuePair value = null;
+                if (checkValue(resultObject)) {
+                    value = resultObject.createTimeValuePairFrom();
+                }
+                session.evict(resultObject);
+                return value;
+            }
+            return null;
+        } catch (final HibernateException he) {
+            releaseCurrentChunk();
+            throw new NoApplicableCodeException().causedBy(he).withMessage("Error while querying observation data!")
+                    .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    public OmObservation nextSingleObservation(boolean withIdentifierNameDesription) throws OwsExceptionReport {
+        try {
+            if (hasNextValue()) {
+                OmObservation observation = null;
+                AbstractValuedLegacyObservation<?> resultObject = seriesValuesResult.next();
+                if (checkValue(resultObject)) {
+                    observation = observationTemplate.cloneTemplate(withIdentifierNameDesription);
+                    resultObject.addValuesToObservation(observation, getResponseFormat());
+                    checkForModifications(observation);
+                }
+                session.evict(resultObject);
+                return observation;
+            }
+            return null;
+        } catch (final HibernateException he) {
+            releaseCurrentChunk();
+            throw new NoApplicableCodeException().causedBy(he).withMessage("Error while querying observation data!")
+                    .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Get the next chunk, either from the prefetch queue or by querying it
+     * directly.
+     *
+     * @return the next chunk
+     * @throws OwsExceptionReport
+     *             If the streaming is interrupted
+     */
+    private Chunk nextChunk() throws OwsExceptionReport {
+        if (prefetchChunks <= 0) {
+            return queryChunk();
+        }
+        if (queue == null) {
+            queue = new ArrayBlockingQueue<>(prefetchChunks);
+            try {
+                getPrefetchExecutor().execute(new Prefetcher());
+            } catch (RejectedExecutionException ree) {
+                LOGGER.debug("All prefetching threads are busy, query the chunks of series {} when needed.", series);
+                queue = null;
+                prefetchChunks = 0;
+                return queryChunk();
+            }
+        }
+        try {
+            while (true) {
+                Chunk chunk = queue.poll(1, TimeUnit.SECONDS);
+                if (chunk != null) {
+                    return chunk;
+                }
+                if (prefetchFinished && queue.isEmpty()) {
+                    throw new NoApplicableCodeException().withMessage("Prefetching of observation data stopped!")
+                            .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new NoApplicableCodeException().causedBy(ie)
+                    .withMessage("Interrupted while querying observation data!")
+                    .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Query the chunk following the last queried value with a new session.
+     * Errors are returned as part of the chunk, so they can be passed to the
+     * encoding thread.
+     *
+     * @return the queried chunk
+     */
+    private Chunk queryChunk() {
+        Session s = null;
+        try {
+            s = sessionHolder.getSession();
+            List<AbstractValuedLegacyObservation<?>> values =
+                    seriesValueDAO.getStreamingSeriesValuesFor(request, series, temporalFilterCriterion, chunkSize,
+                            lastValue, s);
+            if (!values.isEmpty()) {
+                lastValue = values.get(values.size() - 1);
+            }
+            return new Chunk(s, values, chunkSize <= 0 || values.size() < chunkSize, null);
+        } catch (OwsExceptionReport | HibernateException e) {
+            return new Chunk(s, Collections.<AbstractValuedLegacyObservation<?>> emptyList(), true, e);
+        }
+    }
+
+    /**
+     * Stop the prefetching and return the sessions of the current and all
+     * queued chunks.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        releaseCurrentChunk();
+        releaseQueuedChunks();
+    }
+
+    /**
+     * Return the sessions of the queued chunks.
+     */
+    private void releaseQueuedChunks() {
+        if (queue != null) {
+            for (Chunk queued = queue.poll(); queued != null; queued = queue.poll()) {
+                sessionHolder.returnSession(queued.getSession());
+            }
+        }
+    }
+
+    /**
+     * Return the session of the consumed chunk.
+     */
+    private void releaseCurrentChunk() {
+        if (currentChunk != null) {
+            sessionHolder.returnSession(currentChunk.getSession());
+            currentChunk = null;
+            session = null;
+            seriesValuesResult = null;
+        }
+    }
+
+    /**
+     * Get the executor for the prefetching, the maximum number of threads is
+     * adjusted to the current configuration.
+     *
+     * @return the prefetch executor
+     */
+    private static synchronized ThreadPoolExecutor getPrefetchExecutor() {
+        int threads = HibernateStreamingConfiguration.getInstance().getPrefetchThreads();
+        if (prefetchExecutor == null) {
+            prefetchExecutor =
+                    new ThreadPoolExecutor(0, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                            new ThreadFactoryBuilder().setNameFormat("streaming-prefetch-%d").setDaemon(true)
+                                    .build());
+        } else if (prefetchExecutor.getMaximumPoolSize() != threads) {
+            prefetchExecutor.setMaximumPoolSize(threads);
+        }
+        return prefetchExecutor;
+    }
+
+    /**
+     * Background task querying the chunks into the queue.
+     */
+    private class Prefetcher implements Runnable {
+        @Override
+        public void run() {
+            try {
+                boolean last = false;
+                while (!last && !closed) {
+                    Chunk chunk = queryChunk();
+                    last = chunk.isLast();
+                    if (!offer(chunk)) {
+                        if (!closed) {
+                            LOGGER.warn("Streaming of series {} was abandoned, stop prefetching.", series);
+                        }
+                        sessionHolder.returnSession(chunk.getSession());
+                        break;
+                    }
+                }
+                if (closed) {
+                    // the values were closed while the chunk was offered
+                    releaseQueuedChunks();
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } finally {
+                prefetchFinished = true;
+            }
+        }
+
+        private boolean offer(Chunk chunk) throws InterruptedException {
+            for (long waited = 0; waited < ABANDON_TIMEOUT && !closed; waited++) {
+                if (queue.offer(chunk, 1, TimeUnit.SECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Queried values with the session they are attached to.
+     */
+    private static class Chunk {
+        private final Session session;
+
+        private final List<AbstractValuedLegacyObservation<?>> values;
+
+        private final boolean last;
+
+        private final Exception error;
+
+        Chunk(Session session, List<AbstractValuedLegacyObservation<?>> values, boolean last, Exception error) {
+            this.session = session;
+            this.values = values;
+            this.last = last;
+            this.error = error;
+        }
+
+        Session getSession() {
+            return session;
+        }
+
+        List<AbstractValuedLegacyObservation<?>> getValues() {
+            return values;
+        }
+
+        boolean isLast() {
+            return last;
+        }
+
+        Exception getError() {
+            return error;
+        }
+    }
+}
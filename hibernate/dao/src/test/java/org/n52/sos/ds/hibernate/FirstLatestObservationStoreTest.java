@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.entities.ObservableProperty;
+import org.n52.sos.ds.hibernate.entities.Procedure;
+import org.n52.sos.ds.hibernate.entities.feature.FeatureOfInterest;
+import org.n52.sos.ds.hibernate.entities.observation.series.Series;
+import org.n52.sos.ds.hibernate.entities.observation.series.SeriesObservation;
+import org.n52.sos.ds.hibernate.entities.observation.series.full.SeriesNumericObservation;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.SensorDeletion;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.om.OmObservableProperty;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.SingleObservationValue;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosConstants.SosIndeterminateTime;
+import org.n52.sos.ogc.sos.SosProcedureDescriptionUnknowType;
+import org.n52.sos.request.DeleteSensorRequest;
+import org.n52.sos.request.GetObservationRequest;
+import org.n52.sos.request.InsertObservationRequest;
+import org.n52.sos.response.DeleteSensorResponse;
+import org.n52.sos.response.InsertObservationResponse;
+
+import com.google.common.collect.Lists;
+
+/**
+ * @since 4.4.0
+ */
+public class FirstLatestObservationStoreTest {
+
+    private static final SosIndeterminateTime LATEST = SosIndeterminateTime.latest;
+
+    private FirstLatestObservationStore store;
+
+    private GetObservationRequest request;
+
+    @Before
+    public void setUp() {
+        store = new FirstLatestObservationStore();
+        request = new GetObservationRequest();
+    }
+
+    @Test
+    public void should_return_entry_while_series_time_is_unchanged() {
+        Series series = series(1, "feature", 1000);
+        put(series, observation(series, 10, 1000));
+
+        assertThat(store.get(store.getCache(), series, request, LATEST).getObservationIds(), contains(10L));
+
+        series.setLastTimeStamp(new Date(2000));
+        assertThat(store.get(store.getCache(), series, request, LATEST), is(nullValue()));
+    }
+
+    @Test
+    public void should_keep_entries_per_offerings_and_indeterminate_time() {
+        Series series = series(1, "feature", 1000);
+        put(series, observation(series, 10, 1000));
+
+        GetObservationRequest offeringRequest = new GetObservationRequest();
+        offeringRequest.setOfferings(Lists.newArrayList("offering"));
+        assertThat(store.get(store.getCache(), series, offeringRequest, LATEST), is(nullValue()));
+        assertThat(store.get(store.getCache(), series, request, SosIndeterminateTime.first), is(nullValue()));
+        assertThat(store.get(store.getCache(), series, request, LATEST), is(notNullValue()));
+    }
+
+    @Test
+    public void should_invalidate_series_on_observation_insertion() throws OwsExceptionReport {
+        Series series = series(1, "feature", 1000);
+        Series other = series(2, "other", 1000);
+        put(series, observation(series, 10, 1000));
+        put(other, observation(other, 20, 1000));
+
+        InsertObservationRequest insertion = new InsertObservationRequest();
+        insertion.setObservation(Lists.newArrayList(omObservation("feature")));
+        store.handle(new ObservationInsertion(insertion, new InsertObservationResponse()));
+
+        assertThat(store.get(store.getCache(), series, request, LATEST), is(nullValue()));
+        assertThat(store.get(store.getCache(), other, request, LATEST), is(notNullValue()));
+    }
+
+    @Test
+    public void should_invalidate_all_on_deletion() {
+        Series series = series(1, "feature", 1000);
+        put(series, observation(series, 10, 1000));
+
+        store.handle(new SensorDeletion(new DeleteSensorRequest(), new DeleteSensorResponse()));
+
+        assertThat(store.get(store.getCache(), series, request, LATEST), is(nullValue()));
+    }
+
+    private void put(Series series, SeriesObservation<?> observation) {
+        List<SeriesObservation<?>> observations = Lists.newArrayList();
+        observations.add(observation);
+        store.put(store.getCache(), series, request, LATEST, observations);
+    }
+
+    private static Series series(long id, String feature, long last) {
+        Series series = new Series();
+        series.setSeriesId(id);
+        Procedure procedure = new Procedure();
+        procedure.setIdentifier("procedure");
+        series.setProcedure(procedure);
+        ObservableProperty observableProperty = new ObservableProperty();
+        observableProperty.setIdentifier("property");
+        series.setObservableProperty(observableProperty);
+        FeatureOfInterest featureOfInterest = new FeatureOfInterest();
+        featureOfInterest.setIdentifier(feature);
+        series.setFeatureOfInterest(featureOfInterest);
+        series.setFirstTimeStamp(new Date(0));
+        series.setLastTimeStamp(new Date(last));
+        return series;
+    }
+
+    private static SeriesObservation<?> observation(Series series, long id, long time) {
+        SeriesNumericObservation observation = new SeriesNumericObservation();
+        observation.setObservationId(id);
+        observation.setSeries(series);
+        observation.setPhenomenonTimeStart(new Date(time));
+        observation.setPhenomenonTimeEnd(new Date(time));
+        return observation;
+    }
+
+    private static OmObservation omObservation(String feature) {
+        OmObservationConstellation constellation = new OmObservationConstellation();
+        constellation.setProcedure(new SosProcedureDescriptionUnknowType("procedure", null, null));
+        constellation.setObservableProperty(new OmObservableProperty("property"));
+        constellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority(feature)));
+        OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(constellation);
+        observation.setValue(new SingleObservationValue<Double>(new TimeInstant(new Date(3000)), new QuantityValue(
+                1.0)));
+        return observation;
+    }
+}
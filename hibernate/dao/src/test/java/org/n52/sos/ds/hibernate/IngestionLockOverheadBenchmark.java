@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the locking overhead of a node-wide monitor, as previously
+ * used by {@link InsertObservationDAO} and {@link InsertResultDAO}, compared
+ * with the {@link IngestionLock} for an increasing number of client threads.
+ * Every thread inserts into its own series.
+ * <p/>
+ * Only the locks are measured: the transaction is simulated by waiting a
+ * fixed time for the database, no observations are encoded, mapped or
+ * written. The results show how far the locks let insertions into different
+ * series overlap, not the insertion throughput of a database. Run it with
+ * {@link #main(String[])} from the test classpath.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestionLockOverheadBenchmark {
+    private static final long TRANSACTION_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private static final int[] THREADS = { 1, 2, 4, 8, 16 };
+
+    private final Object monitor = new Object();
+
+    private final AtomicInteger sensors = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Sensor {
+        private Set<String> series;
+
+        @Setup
+        public void setup(IngestionLockOverheadBenchmark benchmark) {
+            series = Collections.singleton("series" + benchmark.sensors.getAndIncrement());
+        }
+    }
+
+    @Benchmark
+    public void globalMonitor(Sensor sensor) {
+        synchronized (monitor) {
+            transaction();
+        }
+    }
+
+    @Benchmark
+    public void ingestionLock(Sensor sensor) {
+        IngestionLock lock = IngestionLock.lock(sensor.series);
+        try {
+            transaction();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void transaction() {
+        LockSupport.parkNanos(TRANSACTION_NANOS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder().include(IngestionLockOverheadBenchmark.class.getSimpleName())
+                    .threads(threads).build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.om.OmObservableProperty;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.sos.SosProcedureDescriptionUnknowType;
+
+/**
+ * @since 4.4.0
+ */
+public class IngestionLockTest {
+
+    @Test
+    public void should_create_key_per_series() {
+        assertThat(IngestionLock.getKey(constellation("procedure", "property", "feature")),
+                is(IngestionLock.getKey(constellation("procedure", "property", "feature"))));
+        assertThat(IngestionLock.getKey(constellation("procedure", "property", "feature")),
+                not(equalTo(IngestionLock.getKey(constellation("procedure", "property", "other")))));
+        assertThat(IngestionLock.getKey(constellation("procedure", "property", null)),
+                not(equalTo(IngestionLock.getKey(constellation("procedure", "property", "feature")))));
+    }
+
+    @Test
+    public void should_block_insertions_into_same_series() throws InterruptedException {
+        IngestionLock lock = IngestionLock.lock(Collections.singleton("series1"));
+        CountDownLatch acquired = lockConcurrently("series1");
+        try {
+            assertThat(acquired.await(100, TimeUnit.MILLISECONDS), is(false));
+        } finally {
+            lock.unlock();
+        }
+        assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void should_not_block_insertions_into_other_series() throws InterruptedException {
+        IngestionLock lock = IngestionLock.lock(Collections.singleton("series1"));
+        try {
+            assertThat(lockConcurrently("series2").await(5, TimeUnit.SECONDS), is(true));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Test
+    public void should_not_wait_for_series_locked_by_other_insertions() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch acquired = holdConcurrently("series2", release);
+        assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+        IngestionLock lock = IngestionLock.lock(Collections.singleton("series1"));
+        try {
+            assertThat(lock.tryExtend(Collections.singleton("series1")), is(true));
+            assertThat(lock.tryExtend(Collections.singleton("series2")), is(false));
+            release.countDown();
+            assertThat(lockConcurrently("series2").await(5, TimeUnit.SECONDS), is(true));
+            assertThat(lock.tryExtend(Collections.singleton("series2")), is(true));
+        } finally {
+            release.countDown();
+            lock.unlock();
+        }
+        assertThat(lockConcurrently("series1").await(5, TimeUnit.SECONDS), is(true));
+        assertThat(lockConcurrently("series2").await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void should_lock_all_series() throws InterruptedException {
+        IngestionLock lock = IngestionLock.lockAll();
+        CountDownLatch acquired = lockConcurrently("series1");
+        try {
+            assertThat(lock.tryExtend(Collections.singleton("series1")), is(true));
+            assertThat(acquired.await(100, TimeUnit.MILLISECONDS), is(false));
+        } finally {
+            lock.unlock();
+        }
+        assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    private static CountDownLatch holdConcurrently(final String key, final CountDownLatch release) {
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                IngestionLock lock = IngestionLock.lock(Collections.singleton(key));
+                acquired.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return acquired;
+    }
+
+    private static CountDownLatch lockConcurrently(final String key) {
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                IngestionLock.lock(Collections.singleton(key)).unlock();
+                acquired.countDown();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return acquired;
+    }
+
+    private static OmObservationConstellation constellation(String procedure, String observableProperty,
+            String feature) {
+        OmObservationConstellation constellation = new OmObservationConstellation();
+        constellation.setProcedure(new SosProcedureDescriptionUnknowType(procedure, null, null));
+        constellation.setObservableProperty(new OmObservableProperty(observableProperty));
+        if (feature != null) {
+            constellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority(feature)));
+        }
+        return constellation;
+    }
+}
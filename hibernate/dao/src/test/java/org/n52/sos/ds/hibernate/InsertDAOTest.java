@@ -635,6 +635,23 @@ public class InsertDAOTest extends HibernateTestCase {
         checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, TIME3, PROCEDURE3, OBSPROP3, FEATURE3, VAL3, TEMP_UNIT);
     }
     
+    @Test
+    public void testInsertResultInBulkMode() throws OwsExceptionReport, InterruptedException {
+        InsertResultDAO bulkInsertResultDAO = new InsertResultDAO();
+        bulkInsertResultDAO.setBulkInsertionThreshold(1);
+        InsertResultRequest req = new InsertResultRequest();
+        req.setTemplateIdentifier(RESULT_TEMPLATE);
+        req.setResultValues(makeResultValueString(CollectionHelper.list(TIME1, TIME2, TIME3),
+                CollectionHelper.list(VAL1, VAL2, VAL3)));
+        InsertResultResponse resp = bulkInsertResultDAO.insertResult(req);
+        SosEventBus.fire(new ResultInsertion(req, resp));
+        assertInsertionAftermathBeforeAndAfterCacheReload();
+
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, TIME1, PROCEDURE3, OBSPROP3, FEATURE3, VAL1, TEMP_UNIT);
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, TIME2, PROCEDURE3, OBSPROP3, FEATURE3, VAL2, TEMP_UNIT);
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, TIME3, PROCEDURE3, OBSPROP3, FEATURE3, VAL3, TEMP_UNIT);
+    }
+
     @Test
     public void testInsertObservationWithSamplingGeometry() throws OwsExceptionReport, ConverterException, InterruptedException {
         InsertObservationRequest req = new InsertObservationRequest();
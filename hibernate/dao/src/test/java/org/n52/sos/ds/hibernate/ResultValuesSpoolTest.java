@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.io.CharStreams;
+
+/**
+ * @since 4.4.0
+ */
+public class ResultValuesSpoolTest {
+
+    @Test
+    public void should_replay_partially_read_values() throws IOException {
+        String values = "2016-01-01T00:00:00Z,1.0@2016-01-01T00:01:00Z,2.0@";
+        try (ResultValuesSpool spool = new ResultValuesSpool(new StringReader(values))) {
+            Reader reader = spool.open();
+            char[] buffer = new char[10];
+            assertThat(reader.read(buffer), is(10));
+            assertThat(CharStreams.toString(spool.open()), is(values));
+            assertThat(CharStreams.toString(spool.open()), is(values));
+        }
+    }
+
+    @Test
+    public void should_replay_values_exceeding_memory_threshold() throws IOException {
+        String values = Strings.repeat("2016-01-01T00:00:00Z,ä@", 100000);
+        try (ResultValuesSpool spool = new ResultValuesSpool(new StringReader(values))) {
+            assertThat(CharStreams.toString(spool.open()), is(values));
+            assertThat(CharStreams.toString(spool.open()), is(values));
+        }
+    }
+}
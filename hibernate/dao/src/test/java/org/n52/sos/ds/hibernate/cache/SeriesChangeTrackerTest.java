@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.cache;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.cache.SeriesChangeTracker.SeriesChanges;
+
+import com.google.common.collect.Lists;
+
+/**
+ * @since 4.4.0
+ */
+public class SeriesChangeTrackerTest {
+    private SeriesChangeTracker tracker;
+
+    private List<Object[]> rows;
+
+    @Before
+    public void setUp() {
+        tracker = new SeriesChangeTracker();
+        rows = Lists.newArrayList();
+        rows.add(series(1L, "off1", "proc1", "foi1", "prop1", 1000L, 2000L));
+        rows.add(series(2L, "off2", "proc2", "foi2", "prop2", 1000L, 2000L));
+    }
+
+    @Test
+    public void should_require_recorded_state() {
+        assertThat(tracker.detect(rows), is(nullValue()));
+    }
+
+    @Test
+    public void should_detect_no_changes() {
+        tracker.reset(rows);
+        List<Object[]> current = Lists.newArrayList();
+        current.add(series(1L, "off1", "proc1", "foi1", "prop1", 1000L, 2000L));
+        current.add(series(2L, "off2", "proc2", "foi2", "prop2", 1000L, 2000L));
+        current.get(0)[6] = new Timestamp(2000L);
+        assertThat(tracker.detect(current).isEmpty(), is(true));
+    }
+
+    @Test
+    public void should_detect_extended_series() {
+        tracker.reset(rows);
+        rows.set(1, series(2L, "off2", "proc2", "foi2", "prop2", 1000L, 3000L));
+        SeriesChanges changes = tracker.detect(rows);
+        assertThat(changes.getChangedSeries(), is(1));
+        assertThat(changes.hasNewSeries(), is(false));
+        assertThat(changes.hasRemovedSeries(), is(false));
+        assertThat(changes.getOfferings(), contains("off2"));
+        assertThat(changes.getProcedures(), contains("proc2"));
+    }
+
+    @Test
+    public void should_detect_new_series() {
+        tracker.reset(rows);
+        rows.add(series(3L, null, "proc3", "foi3", "prop1", 1000L, 1000L));
+        SeriesChanges changes = tracker.detect(rows);
+        assertThat(changes.getChangedSeries(), is(1));
+        assertThat(changes.hasNewSeries(), is(true));
+        assertThat(changes.getOfferings(), is(empty()));
+        assertThat(changes.getProceduresWithoutOffering(), contains("proc3"));
+        assertThat(changes.getFeaturesOfInterest(), contains("foi3"));
+    }
+
+    @Test
+    public void should_detect_removed_series() {
+        tracker.reset(rows);
+        rows.get(0)[7] = true;
+        assertThat(tracker.detect(rows).hasRemovedSeries(), is(true));
+        rows.remove(0);
+        assertThat(tracker.detect(rows).hasRemovedSeries(), is(true));
+    }
+
+    @Test
+    public void should_detect_reassigned_series() {
+        tracker.reset(rows);
+        rows.set(0, series(1L, "off1", "proc1", "foi2", "prop1", 1000L, 2000L));
+        assertThat(tracker.detect(rows).hasRemovedSeries(), is(true));
+    }
+
+    @Test
+    public void should_advance_on_commit() {
+        tracker.reset(rows);
+        rows.set(1, series(2L, "off2", "proc2", "foi2", "prop2", 1000L, 3000L));
+        SeriesChanges changes = tracker.detect(rows);
+        assertThat(tracker.detect(rows).isEmpty(), is(false));
+        tracker.commit(changes);
+        assertThat(tracker.detect(rows).isEmpty(), is(true));
+    }
+
+    @Test
+    public void should_ignore_commit_after_reset() {
+        tracker.reset(rows);
+        rows.set(1, series(2L, "off2", "proc2", "foi2", "prop2", 1000L, 3000L));
+        SeriesChanges changes = tracker.detect(rows);
+        tracker.clear();
+        tracker.commit(changes);
+        assertThat(tracker.detect(rows), is(nullValue()));
+    }
+
+    private static Object[] series(long id, String offering, String procedure, String feature, String property,
+            long first, long last) {
+        return new Object[] { id, offering, procedure, feature, property, new Date(first), new Date(last), false,
+                true };
+    }
+}
@@ -38,6 +38,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -47,6 +48,9 @@ import org.hibernate.dialect.Dialect;
 import org.hibernate.mapping.Table;
 import org.hibernate.spatial.dialect.postgis.PostgisDialectSpatialIndex;
 import org.hibernate.tool.hbm2ddl.DatabaseMetadata;
+import org.n52.sos.config.SettingDefinition;
+import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.BooleanSettingDefinition;
 import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.exception.ConfigurationException;
 import org.slf4j.Logger;
@@ -67,6 +71,19 @@ public abstract class AbstractPostgresDatasource extends AbstractHibernateFullDB
 
     protected static final Pattern JDBC_URL_PATTERN = Pattern.compile("^jdbc:postgresql://([^:]+):([0-9]+)/(.*)$");
 
+    protected static final String REWRITE_BATCHED_INSERTS_KEY = "jdbc.reWriteBatchedInserts";
+
+    protected static final String REWRITE_BATCHED_INSERTS_TITLE = "Rewrite batched inserts";
+
+    protected static final String REWRITE_BATCHED_INSERTS_DESCRIPTION =
+            "Let the PostgreSQL JDBC driver send insert batches as multi-row inserts (driver option "
+                    + "reWriteBatchedInserts). Speeds up the bulk insertion of large InsertObservation and "
+                    + "InsertResult requests.";
+
+    protected static final Boolean REWRITE_BATCHED_INSERTS_DEFAULT_VALUE = false;
+
+    protected static final String REWRITE_BATCHED_INSERTS_PROPERTY = "hibernate.connection.reWriteBatchedInserts";
+
     protected static final String USERNAME_DESCRIPTION =
             "Your database server user name. The default value for PostgreSQL is \"postgres\".";
 
@@ -267,12 +284,51 @@ public abstract class AbstractPostgresDatasource extends AbstractHibernateFullDB
         return checkScriptForGeneratedAndDuplicatedEntries(checkedSchema.toArray(new String[checkedSchema.size()]));
     }
 
+    @Override
+    public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
+        Set<SettingDefinition<?, ?>> set = super.getSettingDefinitions();
+        set.add(createReWriteBatchedInsertsDefinition());
+        return set;
+    }
+
+    @Override
+    public Set<SettingDefinition<?, ?>> getChangableSettingDefinitions(Properties current) {
+        Set<SettingDefinition<?, ?>> set = super.getChangableSettingDefinitions(current);
+        set.add(createReWriteBatchedInsertsDefinition().setDefaultValue(
+                Boolean.valueOf(current.getProperty(REWRITE_BATCHED_INSERTS_PROPERTY))));
+        return set;
+    }
+
     @Override
     public Properties getDatasourceProperties(Map<String, Object> settings) {
         Properties p = super.getDatasourceProperties(settings);
         p.put(HibernateConstants.C3P0_PREFERRED_TEST_QUERY, "SELECT 1");
+        if (Boolean.TRUE.equals(settings.get(REWRITE_BATCHED_INSERTS_KEY))) {
+            p.put(REWRITE_BATCHED_INSERTS_PROPERTY, "true");
+        }
         return p;
     }
 
+    @Override
+    public Map<String, Object> parseDatasourceProperties(Properties current) {
+        Map<String, Object> settings = super.parseDatasourceProperties(current);
+        settings.put(REWRITE_BATCHED_INSERTS_KEY,
+                Boolean.valueOf(current.getProperty(REWRITE_BATCHED_INSERTS_PROPERTY)));
+        return settings;
+    }
+
+    /**
+     * Create settings definition for the reWriteBatchedInserts option of the
+     * PostgreSQL JDBC driver
+     *
+     * @return reWriteBatchedInserts settings definition
+     */
+    protected BooleanSettingDefinition createReWriteBatchedInsertsDefinition() {
+        return new BooleanSettingDefinition().setGroup(ADVANCED_GROUP).setOrder(SettingDefinitionProvider.ORDER_12)
+                .setKey(REWRITE_BATCHED_INSERTS_KEY).setTitle(REWRITE_BATCHED_INSERTS_TITLE)
+                .setDescription(REWRITE_BATCHED_INSERTS_DESCRIPTION)
+                .setDefaultValue(REWRITE_BATCHED_INSERTS_DEFAULT_VALUE);
+    }
+
 
 }
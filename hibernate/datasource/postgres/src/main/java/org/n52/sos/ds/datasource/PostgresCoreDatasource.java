@@ -63,11 +63,13 @@ public class PostgresCoreDatasource extends AbstractPostgresDatasource {
     
     @Override
     public Set<SettingDefinition<?, ?>> getChangableSettingDefinitions(Properties current) {
-        return filter(super.getChangableSettingDefinitions(current), ImmutableSet.of(TRANSACTIONAL_KEY, BATCH_SIZE_KEY));
+        return filter(super.getChangableSettingDefinitions(current), ImmutableSet.of(TRANSACTIONAL_KEY, BATCH_SIZE_KEY,
+                REWRITE_BATCHED_INSERTS_KEY));
     }
 
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
-        return filter(super.getSettingDefinitions(), ImmutableSet.of(TRANSACTIONAL_KEY, BATCH_SIZE_KEY));
+        return filter(super.getSettingDefinitions(), ImmutableSet.of(TRANSACTIONAL_KEY, BATCH_SIZE_KEY,
+                REWRITE_BATCHED_INSERTS_KEY));
     }
 }
@@ -0,0 +1,340 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Session;
+import org.n52.sos.config.SettingsManager;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.ds.hibernate.create.HibernateGeometryVisitor;
+import org.n52.sos.ds.hibernate.dao.AbstractFeatureOfInterestDAO;
+import org.n52.sos.ds.hibernate.dao.DaoFactory;
+import org.n52.sos.ds.hibernate.entities.feature.AbstractFeatureOfInterest;
+import org.n52.sos.event.SosEvent;
+import org.n52.sos.event.SosEventBus;
+import org.n52.sos.event.SosEventListener;
+import org.n52.sos.event.events.ContentCacheUpdateEvent;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.ResultInsertion;
+import org.n52.sos.event.events.ResultTemplateInsertion;
+import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.event.events.SettingsChangeEvent;
+import org.n52.sos.event.events.SosContentChangeEvent;
+import org.n52.sos.exception.CodedException;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.util.GeometryHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * In-memory STR-tree of the feature geometries to evaluate spatial filters for
+ * non-spatial datasources.
+ * <p/>
+ * The index is built from all features of the datasource on first use and
+ * after it was invalidated by deletions, modifications, complete content cache
+ * updates or setting changes. Features of inserted observations, results or
+ * result templates are marked as pending: they are excluded from the index
+ * results and checked against the datasource instead, until the index is
+ * rebuilt because too many features are pending.
+ * <p/>
+ * The geometries are indexed as they are created for the responses, i.e. with
+ * the axis order switched by
+ * {@link GeometryHandler#switchCoordinateAxisFromToDatasourceIfNeeded(Geometry)}
+ * . They are compared to the filter geometries like
+ * {@link GeometryHandler#featureIsInFilter(Geometry, List)} compares the
+ * geometries of the created features.
+ *
+ * @since 4.4.0
+ */
+@Configurable
+public class FeatureSpatialIndex implements SosEventListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeatureSpatialIndex.class);
+
+    /**
+     * Number of pending features that causes a rebuild of the index
+     */
+    static final int MAX_PENDING = 1000;
+
+    private static final Set<Class<? extends SosEvent>> TYPES = Sets.<Class<? extends SosEvent>> newHashSet(
+            SosContentChangeEvent.class, ContentCacheUpdateEvent.class, SettingsChangeEvent.class);
+
+    private static FeatureSpatialIndex instance = null;
+
+    private final AtomicLong generation = new AtomicLong(0);
+
+    private final Set<String> pending = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private volatile STRtree tree = null;
+
+    private volatile boolean enabled = true;
+
+    public static synchronized FeatureSpatialIndex getInstance() {
+        if (instance == null) {
+            instance = new FeatureSpatialIndex();
+            SettingsManager.getInstance().configure(instance);
+            SosEventBus.getInstance().register(instance);
+        }
+        return instance;
+    }
+
+    FeatureSpatialIndex() {
+    }
+
+    @Setting(FeatureSpatialIndexSettings.FEATURE_SPATIAL_INDEX)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        invalidate();
+    }
+
+    /**
+     * @return if the index should be used
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the identifiers of the features whose geometry is contained in one
+     * of the filter geometries. The filter geometries have to be created by
+     * {@link GeometryHandler#getFilterForNonSpatialDatasource(org.n52.sos.ogc.filter.SpatialFilter)}
+     * .
+     *
+     * @param filters
+     *            the filter geometries
+     * @param session
+     *            Hibernate session
+     * @return the identifiers of the matching features
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public Set<String> getFeatureIdentifiers(List<Geometry> filters, Session session) throws OwsExceptionReport {
+        STRtree tree = getTree(session);
+        Set<String> pending = Sets.newHashSet(this.pending);
+        Set<String> identifiers = query(tree, filters, pending);
+        if (!pending.isEmpty()) {
+            for (AbstractFeatureOfInterest feature : getFeatureDAO().getFeatureOfInterestObjects(pending, session)) {
+                if (getGeometryHandler().featureIsInFilter(getGeometry(feature, session), filters)) {
+                    identifiers.add(feature.getIdentifier());
+                }
+            }
+        }
+        LOGGER.debug("Found {} features for spatial filter in index ({} pending)", identifiers.size(),
+                pending.size());
+        return identifiers;
+    }
+
+    private STRtree getTree(Session session) throws OwsExceptionReport {
+        STRtree tree = this.tree;
+        if (tree != null && pending.size() <= MAX_PENDING) {
+            return tree;
+        }
+        synchronized (this) {
+            tree = this.tree;
+            if (tree != null && pending.size() <= MAX_PENDING) {
+                return tree;
+            }
+            long start = System.currentTimeMillis();
+            long currentGeneration = generation.get();
+            // features inserted while loading are added again
+            pending.clear();
+            Map<String, Geometry> geometries = Maps.newHashMap();
+            for (AbstractFeatureOfInterest feature : getFeatureDAO().getFeatures(session)) {
+                geometries.put(feature.getIdentifier(), getGeometry(feature, session));
+            }
+            tree = createTree(geometries);
+            if (generation.get() == currentGeneration) {
+                this.tree = tree;
+            }
+            LOGGER.debug("Built feature spatial index with {} geometries in {} ms", tree.size(),
+                    System.currentTimeMillis() - start);
+            return tree;
+        }
+    }
+
+    /**
+     * Get the geometry of the feature in the axis order of the responses.
+     *
+     * @param feature
+     *            the feature
+     * @param session
+     *            Hibernate session
+     * @return the geometry with switched axis order if needed
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    Geometry getGeometry(AbstractFeatureOfInterest feature, Session session) throws OwsExceptionReport {
+        // the feature creators switch the axis order
+        return feature.accept(new HibernateGeometryVisitor(getGeometryHandler().getStorageEPSG(),
+                getGeometryHandler().getStorage3DEPSG(), session));
+    }
+
+    /**
+     * Create an STR-tree of the non-empty geometries.
+     *
+     * @param geometries
+     *            the geometries keyed by feature identifier
+     * @return the tree
+     */
+    static STRtree createTree(Map<String, Geometry> geometries) {
+        STRtree tree = new STRtree();
+        for (Map.Entry<String, Geometry> entry : geometries.entrySet()) {
+            Geometry geometry = entry.getValue();
+            if (geometry != null && !geometry.isEmpty()) {
+                tree.insert(geometry.getEnvelopeInternal(), new IndexedFeature(entry.getKey(), geometry));
+            }
+        }
+        tree.build();
+        return tree;
+    }
+
+    /**
+     * Get the identifiers of the features in the tree whose geometry is
+     * contained in one of the filter geometries.
+     *
+     * @param tree
+     *            the tree
+     * @param filters
+     *            the filter geometries
+     * @param excluded
+     *            identifiers to exclude
+     * @return the identifiers of the matching features
+     */
+    static Set<String> query(STRtree tree, Collection<Geometry> filters, Set<String> excluded) {
+        Set<String> identifiers = Sets.newHashSet();
+        for (Geometry filter : filters) {
+            for (Object item : tree.query(filter.getEnvelopeInternal())) {
+                IndexedFeature feature = (IndexedFeature) item;
+                if (!excluded.contains(feature.getIdentifier()) && filter.contains(feature.getGeometry())) {
+                    identifiers.add(feature.getIdentifier());
+                }
+            }
+        }
+        return identifiers;
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        tree = null;
+    }
+
+    @Override
+    public Set<Class<? extends SosEvent>> getTypes() {
+        return Collections.unmodifiableSet(TYPES);
+    }
+
+    @Override
+    public void handle(SosEvent event) {
+        if (event instanceof SensorInsertion) {
+            return;
+        } else if (event instanceof ObservationInsertion) {
+            addPending(((ObservationInsertion) event).getRequest().getObservations());
+        } else if (event instanceof ResultInsertion) {
+            addPending(((ResultInsertion) event).getResponse().getObservations());
+        } else if (event instanceof ResultTemplateInsertion) {
+            OmObservationConstellation template =
+                    ((ResultTemplateInsertion) event).getRequest().getObservationTemplate();
+            if (template == null || template.getFeatureOfInterestIdentifier() == null) {
+                invalidate();
+            } else {
+                pending.add(template.getFeatureOfInterestIdentifier());
+            }
+        } else if (event instanceof ContentCacheUpdateEvent) {
+            if (((ContentCacheUpdateEvent) event).isCompleteUpdate()) {
+                invalidate();
+            }
+        } else {
+            LOGGER.debug("Invalidating feature spatial index: {}", event);
+            invalidate();
+        }
+    }
+
+    private void addPending(List<OmObservation> observations) {
+        if (observations == null) {
+            invalidate();
+            return;
+        }
+        for (OmObservation observation : observations) {
+            String identifier = observation.getObservationConstellation().getFeatureOfInterestIdentifier();
+            if (identifier == null) {
+                invalidate();
+                return;
+            }
+            pending.add(identifier);
+        }
+    }
+
+    Set<String> getPending() {
+        return pending;
+    }
+
+    protected GeometryHandler getGeometryHandler() {
+        return GeometryHandler.getInstance();
+    }
+
+    protected AbstractFeatureOfInterestDAO getFeatureDAO() throws CodedException {
+        return DaoFactory.getInstance().getFeatureDAO();
+    }
+
+    /**
+     * Feature identifier and geometry stored in the tree.
+     */
+    private static class IndexedFeature {
+        private final String identifier;
+
+        private final Geometry geometry;
+
+        IndexedFeature(String identifier, Geometry geometry) {
+            this.identifier = identifier;
+            this.geometry = geometry;
+        }
+
+        String getIdentifier() {
+            return identifier;
+        }
+
+        Geometry getGeometry() {
+            return geometry;
+        }
+    }
+}
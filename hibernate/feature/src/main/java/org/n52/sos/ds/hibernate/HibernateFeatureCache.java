@@ -0,0 +1,373 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.n52.sos.config.SettingsManager;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.event.SosEvent;
+import org.n52.sos.event.SosEventBus;
+import org.n52.sos.event.SosEventListener;
+import org.n52.sos.event.events.ContentCacheUpdateEvent;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.ResultInsertion;
+import org.n52.sos.event.events.ResultTemplateInsertion;
+import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.event.events.SettingsChangeEvent;
+import org.n52.sos.event.events.SosContentChangeEvent;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.exception.ows.concrete.InvalidSridException;
+import org.n52.sos.ogc.gml.AbstractFeature;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.util.Validation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Cache of the {@link SamplingFeature}s created by the
+ * {@link HibernateFeatureQueryHandler}.
+ * <p/>
+ * Features are cached per identifier, storage EPSG codes, requested locale and
+ * service version and the cache is bounded by the number of geometry
+ * coordinates of the cached features. Callers always receive a copy of the
+ * cached feature, so that modifications of the response (e.g. the
+ * transformation to the requested CRS) do not affect the cache. Features are
+ * removed if observations or result templates are inserted for them, and the
+ * whole cache is cleared on deletions, modifications, content cache updates
+ * and setting changes.
+ *
+ * @since 4.4.0
+ */
+@Configurable
+public class HibernateFeatureCache implements SosEventListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HibernateFeatureCache.class);
+
+    public static final int DEFAULT_SIZE = 1000000;
+
+    private static final Set<Class<? extends SosEvent>> TYPES = Sets.<Class<? extends SosEvent>> newHashSet(
+            SosContentChangeEvent.class, ContentCacheUpdateEvent.class, SettingsChangeEvent.class);
+
+    private static final Weigher<Key, SamplingFeature> WEIGHER = new Weigher<Key, SamplingFeature>() {
+        @Override
+        public int weigh(Key key, SamplingFeature feature) {
+            return getWeight(feature);
+        }
+    };
+
+    private static HibernateFeatureCache instance = null;
+
+    private volatile Cache<Key, SamplingFeature> cache = createCache(DEFAULT_SIZE);
+
+    public static synchronized HibernateFeatureCache getInstance() {
+        if (instance == null) {
+            instance = new HibernateFeatureCache();
+            SettingsManager.getInstance().configure(instance);
+            SosEventBus.getInstance().register(instance);
+        }
+        return instance;
+    }
+
+    HibernateFeatureCache() {
+    }
+
+    @Setting(HibernateFeatureCacheSettings.FEATURE_CACHE_SIZE)
+    public void setSize(int size) throws ConfigurationException {
+        Validation.greaterEqualZero("Feature cache size", size);
+        this.cache = createCache(size);
+    }
+
+    private static Cache<Key, SamplingFeature> createCache(int size) {
+        if (size == 0) {
+            return null;
+        }
+        return CacheBuilder.newBuilder().maximumWeight(size).weigher(WEIGHER).recordStats().build();
+    }
+
+    /**
+     * @return if features are cached
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Get a copy of the cached feature.
+     *
+     * @param identifier
+     *            the feature identifier
+     * @param storageEPSG
+     *            the storage EPSG code
+     * @param storage3DEPSG
+     *            the storage 3D EPSG code
+     * @param locale
+     *            the requested locale, may be <code>null</code>
+     * @param version
+     *            the service version
+     * @return a copy of the cached feature or <code>null</code> if it is not
+     *         cached
+     */
+    public AbstractFeature get(String identifier, int storageEPSG, int storage3DEPSG, Locale locale, String version) {
+        Cache<Key, SamplingFeature> cache = this.cache;
+        if (cache == null || identifier == null) {
+            return null;
+        }
+        SamplingFeature feature =
+                cache.getIfPresent(new Key(identifier, storageEPSG, storage3DEPSG, locale, version));
+        return feature == null ? null : copy(feature);
+    }
+
+    /**
+     * Cache a copy of the feature. Only {@link SamplingFeature}s are cached,
+     * other feature types are ignored.
+     *
+     * @param identifier
+     *            the feature identifier
+     * @param storageEPSG
+     *            the storage EPSG code
+     * @param storage3DEPSG
+     *            the storage 3D EPSG code
+     * @param locale
+     *            the requested locale, may be <code>null</code>
+     * @param version
+     *            the service version
+     * @param feature
+     *            the feature to cache
+     */
+    public void put(String identifier, int storageEPSG, int storage3DEPSG, Locale locale, String version,
+            AbstractFeature feature) {
+        Cache<Key, SamplingFeature> cache = this.cache;
+        if (cache == null || identifier == null || !isCacheable(feature)) {
+            return;
+        }
+        cache.put(new Key(identifier, storageEPSG, storage3DEPSG, locale, version), copy((SamplingFeature) feature));
+    }
+
+    /**
+     * @return the hit/miss statistics of the cache
+     */
+    public CacheStats getStats() {
+        Cache<Key, SamplingFeature> cache = this.cache;
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+
+    /**
+     * @return the number of cached features
+     */
+    public long size() {
+        Cache<Key, SamplingFeature> cache = this.cache;
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Override
+    public Set<Class<? extends SosEvent>> getTypes() {
+        return Collections.unmodifiableSet(TYPES);
+    }
+
+    @Override
+    public void handle(SosEvent event) {
+        Cache<Key, SamplingFeature> cache = this.cache;
+        if (cache == null || event instanceof SensorInsertion) {
+            return;
+        }
+        if (event instanceof ObservationInsertion) {
+            invalidate(cache, getFeatureIdentifiers(((ObservationInsertion) event).getRequest().getObservations()));
+        } else if (event instanceof ResultInsertion) {
+            invalidate(cache, getFeatureIdentifiers(((ResultInsertion) event).getResponse().getObservations()));
+        } else if (event instanceof ResultTemplateInsertion) {
+            OmObservationConstellation template =
+                    ((ResultTemplateInsertion) event).getRequest().getObservationTemplate();
+            invalidate(cache, template == null ? null : Collections.singleton(template
+                    .getFeatureOfInterestIdentifier()));
+        } else {
+            LOGGER.debug("Invalidating feature cache ({}): {}", cache.stats(), event);
+            cache.invalidateAll();
+        }
+    }
+
+    private Set<String> getFeatureIdentifiers(List<OmObservation> observations) {
+        if (observations == null) {
+            return null;
+        }
+        Set<String> identifiers = Sets.newHashSet();
+        for (OmObservation observation : observations) {
+            identifiers.add(observation.getObservationConstellation().getFeatureOfInterestIdentifier());
+        }
+        return identifiers;
+    }
+
+    private void invalidate(Cache<Key, SamplingFeature> cache, Set<String> identifiers) {
+        if (identifiers == null || identifiers.contains(null)) {
+            cache.invalidateAll();
+            return;
+        }
+        Iterator<Map.Entry<Key, SamplingFeature>> iter = cache.asMap().entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<Key, SamplingFeature> entry = iter.next();
+            // features are also removed if one of their sampled features is
+            // affected, as the insertion may have changed the relation
+            if (identifiers.contains(entry.getKey().getIdentifier())
+                    || containsSampledFeature(entry.getValue(), identifiers)) {
+                iter.remove();
+            }
+        }
+    }
+
+    private static boolean containsSampledFeature(SamplingFeature feature, Set<String> identifiers) {
+        for (AbstractFeature sampledFeature : feature.getSampledFeatures()) {
+            if (sampledFeature.isSetIdentifier()
+                    && identifiers.contains(sampledFeature.getIdentifierCodeWithAuthority().getValue())) {
+                return true;
+            }
+            if (sampledFeature instanceof SamplingFeature
+                    && containsSampledFeature((SamplingFeature) sampledFeature, identifiers)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCacheable(AbstractFeature feature) {
+        return feature != null && feature.getClass() == SamplingFeature.class;
+    }
+
+    private static int getWeight(SamplingFeature feature) {
+        int weight = 1;
+        if (feature.getGeometry() != null) {
+            weight += feature.getGeometry().getNumPoints();
+        }
+        for (AbstractFeature sampledFeature : feature.getSampledFeatures()) {
+            if (sampledFeature instanceof SamplingFeature) {
+                weight += getWeight((SamplingFeature) sampledFeature);
+            } else {
+                weight++;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Copy the feature and its sampled features. Geometries, identifiers,
+     * names and parameters are shared as they are not modified in place.
+     *
+     * @param feature
+     *            the feature to copy
+     * @return the copy
+     */
+    static SamplingFeature copy(SamplingFeature feature) {
+        SamplingFeature copy = new SamplingFeature(feature.getIdentifierCodeWithAuthority(), feature.getGmlId());
+        copy.setDefaultElementEncoding(feature.getDefaultElementEncoding());
+        copy.setHumanReadableIdentifier(feature.getHumanReadableIdentifierCodeWithAuthority());
+        copy.setName(Lists.newArrayList(feature.getName()));
+        copy.setDescription(feature.getDescription());
+        copy.setMetaDataProperty(Lists.newArrayList(feature.getMetaDataProperty()));
+        try {
+            copy.setGeometry(feature.getGeometry());
+        } catch (InvalidSridException ise) {
+            // can not happen as the geometry was already set on the feature
+            throw new IllegalStateException(ise);
+        }
+        copy.setFeatureType(feature.getFeatureType());
+        copy.setUrl(feature.getUrl());
+        copy.setXmlDescription(feature.getXmlDescription());
+        copy.setEncode(feature.isEncode());
+        copy.setParameters(feature.getParameters());
+        if (feature.isSetRelatedSamplingFeatures()) {
+            copy.setRelatedSamplingFeatures(feature.getRelatedSamplingFeatures());
+        }
+        if (feature.isSetSampledFeatures()) {
+            List<AbstractFeature> sampledFeatures = Lists.newArrayListWithCapacity(feature.getSampledFeatures().size());
+            for (AbstractFeature sampledFeature : feature.getSampledFeatures()) {
+                sampledFeatures.add(isCacheable(sampledFeature) ? copy((SamplingFeature) sampledFeature)
+                        : sampledFeature);
+            }
+            copy.setSampledFeatures(sampledFeatures);
+        }
+        return copy;
+    }
+
+    /**
+     * Key of a cached feature.
+     */
+    static class Key {
+        private final String identifier;
+
+        private final int storageEPSG;
+
+        private final int storage3DEPSG;
+
+        private final Locale locale;
+
+        private final String version;
+
+        Key(String identifier, int storageEPSG, int storage3DEPSG, Locale locale, String version) {
+            this.identifier = identifier;
+            this.storageEPSG = storageEPSG;
+            this.storage3DEPSG = storage3DEPSG;
+            this.locale = locale;
+            this.version = version;
+        }
+
+        String getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(identifier, storageEPSG, storage3DEPSG, locale, version);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return Objects.equal(identifier, other.identifier) && storageEPSG == other.storageEPSG
+                        && storage3DEPSG == other.storage3DEPSG && Objects.equal(locale, other.locale)
+                        && Objects.equal(version, other.version);
+            }
+            return false;
+        }
+    }
+}
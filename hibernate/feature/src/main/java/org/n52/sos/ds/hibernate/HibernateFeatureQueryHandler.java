@@ -35,6 +35,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
@@ -71,6 +72,7 @@ import org.n52.sos.util.StringHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Sets;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
@@ -92,10 +94,14 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler, Hibern
 
     @Override
     public AbstractFeature getFeatureByID(FeatureQueryHandlerQueryObject queryObject) throws OwsExceptionReport {
+        AbstractFeature cached = getCachedFeature(queryObject.getFeatureIdentifier(), queryObject);
+        if (cached != null) {
+            return cached;
+        }
         final Session session = HibernateSessionHolder.getSession(queryObject.getConnection());
         try {
             AbstractFeatureOfInterest feature = getFeatureDAO().getFeature(queryObject.getFeatureIdentifier(), session);
-            return createSosAbstractFeature(feature, queryObject);
+            return createCachedSosAbstractFeature(feature, queryObject, session);
         } catch (final HibernateException he) {
             throw new NoApplicableCodeException().causedBy(he).withMessage(
                     "An error occurred while querying feature data for a featureOfInterest identifier!");
@@ -119,9 +125,14 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler, Hibern
                 return getFeatureDAO().getFeatureIdentifiers(queryObject.getSpatialFitler(), session);
             } else {
                 final List<String> identifiers = new LinkedList<String>();
-                final List<AbstractFeatureOfInterest> features = getFeatureDAO().getFeatures(session);
                 if (queryObject.getSpatialFitler() != null) {
                     final Geometry envelope = GeometryHandler.getInstance().getFilterForNonSpatialDatasource(queryObject.getSpatialFitler());
+                    if (getFeatureSpatialIndex().isEnabled()) {
+                        identifiers.addAll(getFeatureSpatialIndex().getFeatureIdentifiers(
+                                Collections.singletonList(envelope), session));
+                        return identifiers;
+                    }
+                    final List<AbstractFeatureOfInterest> features = getFeatureDAO().getFeatures(session);
                     for (final AbstractFeatureOfInterest feature : features) {
                         final Geometry geom = feature.accept(new HibernateGeometryVisitor(getStorageEPSG(), getStorage3DEPSG(), session));
                         if (geom != null && !geom.isEmpty() && envelope.contains(geom)) {
@@ -153,17 +164,55 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler, Hibern
     public Map<String, AbstractFeature> getFeatures(FeatureQueryHandlerQueryObject queryObject)
             throws OwsExceptionReport {
         try {
-            if (getGeometryHandler().isSpatialDatasource()) {
-                return getFeaturesForSpatialDatasource(queryObject);
-            } else {
-                return getFeaturesForNonSpatialDatasource(queryObject);
+            if (!queryObject.isSetSpatialFilters() && queryObject.isSetFeatureIdentifiers()
+                    && getFeatureCache().isEnabled()) {
+                return getFeaturesUsingCache(queryObject);
             }
+            return getFeaturesFromDatasource(queryObject);
         } catch (final HibernateException he) {
             throw new NoApplicableCodeException().causedBy(he).withMessage(
                     "Error while querying features from data source!");
         }
     }
 
+    private Map<String, AbstractFeature> getFeaturesFromDatasource(FeatureQueryHandlerQueryObject queryObject)
+            throws OwsExceptionReport {
+        if (getGeometryHandler().isSpatialDatasource()) {
+            return getFeaturesForSpatialDatasource(queryObject);
+        } else {
+            return getFeaturesForNonSpatialDatasource(queryObject);
+        }
+    }
+
+    /**
+     * Get the requested features from the {@link HibernateFeatureCache} and
+     * query only the missing features from the datasource.
+     */
+    private Map<String, AbstractFeature> getFeaturesUsingCache(FeatureQueryHandlerQueryObject queryObject)
+            throws OwsExceptionReport {
+        final Map<String, AbstractFeature> featureMap =
+                new HashMap<String, AbstractFeature>(queryObject.getFeatureIdentifiers().size());
+        final Set<String> missing = Sets.newHashSet();
+        for (final String identifier : queryObject.getFeatureIdentifiers()) {
+            final AbstractFeature cached = getCachedFeature(identifier, queryObject);
+            if (cached == null) {
+                missing.add(identifier);
+            } else if (getGeometryHandler().isSpatialDatasource()) {
+                featureMap.put(identifier, cached);
+            } else {
+                featureMap.put(cached.getIdentifierCodeWithAuthority().getValue(), cached);
+            }
+        }
+        LOGGER.debug("Got {} of {} requested features from feature cache", featureMap.size(), queryObject
+                .getFeatureIdentifiers().size());
+        if (!missing.isEmpty()) {
+            featureMap.putAll(getFeaturesFromDatasource(new FeatureQueryHandlerQueryObject()
+                    .setConnection(queryObject.getConnection()).setI18N(queryObject.getI18N())
+                    .setVersion(queryObject.getVersion()).setFeatureIdentifiers(missing)));
+        }
+        return featureMap;
+    }
+
     @Deprecated
     @Override
     public SosEnvelope getEnvelopeForFeatureIDs(Collection<String> featureIDs, Object connection)
@@ -309,7 +358,7 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler, Hibern
             final FeatureQueryHandlerQueryObject queryObject, Session session) throws OwsExceptionReport {
         final Map<String, AbstractFeature> sosAbstractFois = new HashMap<String, AbstractFeature>();
         for (final AbstractFeatureOfInterest feature : features) {
-            final AbstractFeature sosFeature = createSosAbstractFeature(feature, queryObject, session);
+            final AbstractFeature sosFeature = createCachedSosAbstractFeature(feature, queryObject, session);
             sosAbstractFois.put(feature.getIdentifier(), sosFeature);
         }
         // TODO if sampledFeatures are also in sosAbstractFois, reference them.
@@ -340,6 +389,38 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler, Hibern
         return feature.accept(new HibernateFeatureVisitor(queryObject.getI18N(), queryObject.getVersion(), getStorageEPSG(), getStorage3DEPSG(), session));
     }
 
+    /**
+     * Get the SOS feature from the {@link HibernateFeatureCache} or create it
+     * from the FeatureOfInterest object and add it to the cache.
+     *
+     * @param feature
+     *            FeatureOfInterest object
+     * @param queryObject
+     *            the query object
+     * @param session
+     *            Hibernate session
+     * @return SOS feature
+     * @throws OwsExceptionReport
+     */
+    protected AbstractFeature createCachedSosAbstractFeature(final AbstractFeatureOfInterest feature,
+            final FeatureQueryHandlerQueryObject queryObject, Session session) throws OwsExceptionReport {
+        if (feature == null) {
+            return null;
+        }
+        AbstractFeature sosFeature = getCachedFeature(feature.getIdentifier(), queryObject);
+        if (sosFeature == null) {
+            sosFeature = createSosAbstractFeature(feature, queryObject, session);
+            getFeatureCache().put(feature.getIdentifier(), getStorageEPSG(), getStorage3DEPSG(),
+                    queryObject.getI18N(), queryObject.getVersion(), sosFeature);
+        }
+        return sosFeature;
+    }
+
+    private AbstractFeature getCachedFeature(String identifier, FeatureQueryHandlerQueryObject queryObject) {
+        return getFeatureCache().get(identifier, getStorageEPSG(), getStorage3DEPSG(), queryObject.getI18N(),
+                queryObject.getVersion());
+    }
+
     protected AbstractFeatureOfInterest insertFeatureOfInterest(final SamplingFeature samplingFeature, final Session session)
             throws OwsExceptionReport {
         if (!getGeometryHandler().isSpatialDatasource()) {
@@ -371,11 +452,18 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler, Hibern
                 envelopes.add(getGeometryHandler().getFilterForNonSpatialDatasource(filter));
             }
         }
+        Collection<String> identifiers = queryObject.getFeatureIdentifiers();
+        if (hasSpatialFilter && getFeatureSpatialIndex().isEnabled()) {
+            // only load the features matching the spatial filters
+            identifiers = Sets.intersection(queryObject.getFeatureIdentifiers(),
+                    getFeatureSpatialIndex().getFeatureIdentifiers(envelopes, session));
+            hasSpatialFilter = false;
+        }
         final List<AbstractFeatureOfInterest> featuresOfInterest =
-                new FeatureOfInterestDAO().getFeatureOfInterestObjects(queryObject.getFeatureIdentifiers(), session);
+                new FeatureOfInterestDAO().getFeatureOfInterestObjects(identifiers, session);
         for (final AbstractFeatureOfInterest feature : featuresOfInterest) {
             final SamplingFeature sosAbstractFeature =
-                    (SamplingFeature) createSosAbstractFeature(feature, queryObject);
+                    (SamplingFeature) createCachedSosAbstractFeature(feature, queryObject, session);
             if (!hasSpatialFilter) {
                 featureMap.put(sosAbstractFeature.getIdentifierCodeWithAuthority().getValue(), sosAbstractFeature);
             } else {
@@ -407,6 +495,14 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler, Hibern
         return GeometryHandler.getInstance();
     }
     
+    protected FeatureSpatialIndex getFeatureSpatialIndex() {
+        return FeatureSpatialIndex.getInstance();
+    }
+
+    protected HibernateFeatureCache getFeatureCache() {
+        return HibernateFeatureCache.getInstance();
+    }
+
     protected AbstractFeatureOfInterestDAO getFeatureDAO() throws CodedException {
         return DaoFactory.getInstance().getFeatureDAO();
     }
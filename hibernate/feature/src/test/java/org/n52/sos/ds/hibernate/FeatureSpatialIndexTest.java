@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.ds.FeatureQuerySettingsProvider;
+import org.n52.sos.ds.hibernate.entities.feature.FeatureOfInterest;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.ogc.filter.FilterConstants.SpatialOperator;
+import org.n52.sos.ogc.filter.SpatialFilter;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.request.InsertObservationRequest;
+import org.n52.sos.response.InsertObservationResponse;
+import org.n52.sos.util.GeometryHandler;
+import org.n52.sos.util.JTSHelper;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * @since 4.4.0
+ */
+public class FeatureSpatialIndexTest {
+
+    private static final GeometryFactory FACTORY = JTSHelper.getGeometryFactoryForSRID(4326);
+
+    private STRtree tree;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        GeometryHandler.getInstance().setStorageEpsg(
+                FeatureQuerySettingsProvider.STORAGE_EPSG_DEFINITION.getDefaultValue());
+        GeometryHandler.getInstance().setStorage3DEpsg(
+                FeatureQuerySettingsProvider.STORAGE_3D_EPSG_DEFINITION.getDefaultValue());
+        GeometryHandler.getInstance().setEpsgCodesWithNorthingFirstAxisOrder(
+                FeatureQuerySettingsProvider.EPSG_CODES_WITH_REVERSED_AXIS_ORDER_DEFINITION.getDefaultValue());
+        GeometryHandler.getInstance().setDatasourceNorthingFirst(
+                FeatureQuerySettingsProvider.DATASOURCE_NORTHING_FIRST_DEFINITION.getDefaultValue());
+        Map<String, Geometry> geometries = Maps.newHashMap();
+        geometries.put("inside", FACTORY.createPoint(new Coordinate(1, 1)));
+        geometries.put("outside", FACTORY.createPoint(new Coordinate(5, 5)));
+        geometries.put("crossing", FACTORY.createLineString(new Coordinate[] { new Coordinate(1, 1),
+                new Coordinate(5, 5) }));
+        geometries.put("empty", FACTORY.createPoint((Coordinate) null));
+        geometries.put("null", null);
+        tree = FeatureSpatialIndex.createTree(geometries);
+    }
+
+    @Test
+    public void should_return_features_contained_in_filter() {
+        assertThat(FeatureSpatialIndex.query(tree, filter(0, 2), Collections.<String> emptySet()),
+                containsInAnyOrder("inside"));
+        assertThat(FeatureSpatialIndex.query(tree, filter(0, 6), Collections.<String> emptySet()),
+                containsInAnyOrder("inside", "outside", "crossing"));
+    }
+
+    @Test
+    public void should_return_features_contained_in_any_filter() {
+        List<Geometry> filters = Lists.newArrayList(filter(0, 2));
+        filters.addAll(filter(4, 6));
+        assertThat(FeatureSpatialIndex.query(tree, filters, Collections.<String> emptySet()),
+                containsInAnyOrder("inside", "outside"));
+    }
+
+    @Test
+    public void should_skip_excluded_features() {
+        assertThat(FeatureSpatialIndex.query(tree, filter(0, 2), Sets.newHashSet("inside")), is(empty()));
+    }
+
+    @Test
+    public void should_compare_switched_geometries_for_northing_first_epsg() throws OwsExceptionReport {
+        assertThat(GeometryHandler.getInstance().isNorthingFirstEpsgCode(4326), is(true));
+        FeatureOfInterest feature = new FeatureOfInterest();
+        feature.setIdentifier("feature");
+        feature.setGeom(FACTORY.createPoint(new Coordinate(7, 52)));
+        Geometry geometry = new FeatureSpatialIndex().getGeometry(feature, null);
+        assertThat(geometry.getCoordinate(), is(new Coordinate(52, 7)));
+
+        STRtree tree = FeatureSpatialIndex.createTree(Collections.singletonMap("feature", geometry));
+        for (Envelope bbox : Lists.newArrayList(new Envelope(51, 53, 6, 8), new Envelope(6, 8, 51, 53))) {
+            List<Geometry> filters = Collections.singletonList(GeometryHandler.getInstance()
+                    .getFilterForNonSpatialDatasource(
+                            new SpatialFilter(SpatialOperator.BBOX, FACTORY.toGeometry(bbox), "shape")));
+            assertThat(FeatureSpatialIndex.query(tree, filters, Collections.<String> emptySet()).isEmpty(),
+                    is(!GeometryHandler.getInstance().featureIsInFilter(geometry, filters)));
+        }
+    }
+
+    @Test
+    public void should_mark_features_of_inserted_observations_as_pending() {
+        FeatureSpatialIndex index = new FeatureSpatialIndex();
+        InsertObservationRequest insertion = new InsertObservationRequest();
+        insertion.setObservation(Lists.newArrayList(omObservation("feature")));
+        index.handle(new ObservationInsertion(insertion, new InsertObservationResponse()));
+
+        assertThat(index.getPending(), containsInAnyOrder("feature"));
+    }
+
+    private static List<Geometry> filter(double min, double max) {
+        return Lists.newArrayList(FACTORY.toGeometry(new Envelope(min, max, min, max)));
+    }
+
+    private static OmObservation omObservation(String feature) {
+        OmObservationConstellation constellation = new OmObservationConstellation();
+        constellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority(feature)));
+        OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(constellation);
+        return observation;
+    }
+}
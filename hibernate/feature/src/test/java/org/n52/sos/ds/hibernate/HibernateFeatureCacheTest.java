@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2012-2016 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.SensorDeletion;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.ogc.gml.AbstractFeature;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.om.features.samplingFeatures.SfSpecimen;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.Sos2Constants;
+import org.n52.sos.request.DeleteSensorRequest;
+import org.n52.sos.request.InsertObservationRequest;
+import org.n52.sos.response.DeleteSensorResponse;
+import org.n52.sos.response.InsertObservationResponse;
+import org.n52.sos.util.JTSHelper;
+
+import com.google.common.collect.Lists;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * @since 4.4.0
+ */
+public class HibernateFeatureCacheTest {
+
+    private static final String VERSION = Sos2Constants.SERVICEVERSION;
+
+    private HibernateFeatureCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new HibernateFeatureCache();
+    }
+
+    @Test
+    public void should_return_copies_of_cached_features() throws OwsExceptionReport {
+        SamplingFeature feature = feature("feature");
+        put(feature, null);
+
+        AbstractFeature cached = get("feature", null);
+        assertThat(cached, is(instanceOf(SamplingFeature.class)));
+        assertThat(cached, is(not(sameInstance((AbstractFeature) feature))));
+        assertThat(((SamplingFeature) cached).getGeometry(), is(feature.getGeometry()));
+
+        ((SamplingFeature) cached).setGeometry(point(5, 5));
+        assertThat(((SamplingFeature) get("feature", null)).getGeometry(), is(feature.getGeometry()));
+        assertThat(cache.getStats().hitCount(), is(2L));
+    }
+
+    @Test
+    public void should_keep_features_per_locale_version_and_epsg() throws OwsExceptionReport {
+        put(feature("feature"), Locale.GERMAN);
+
+        assertThat(get("feature", Locale.GERMAN), is(notNullValue()));
+        assertThat(get("feature", Locale.ENGLISH), is(nullValue()));
+        assertThat(get("feature", null), is(nullValue()));
+        assertThat(cache.get("feature", 4326, 4979, Locale.GERMAN, "1.0.0"), is(nullValue()));
+        assertThat(cache.get("feature", 31467, 4979, Locale.GERMAN, VERSION), is(nullValue()));
+        assertThat(cache.getStats().missCount(), is(4L));
+    }
+
+    @Test
+    public void should_not_cache_other_feature_types() {
+        cache.put("specimen", 4326, 4979, null, VERSION, new SfSpecimen(new CodeWithAuthority("specimen")));
+
+        assertThat(get("specimen", null), is(nullValue()));
+    }
+
+    @Test
+    public void should_be_disabled_for_size_zero() throws OwsExceptionReport, ConfigurationException {
+        cache.setSize(0);
+        put(feature("feature"), null);
+
+        assertThat(cache.isEnabled(), is(false));
+        assertThat(get("feature", null), is(nullValue()));
+    }
+
+    @Test
+    public void should_invalidate_feature_on_observation_insertion() throws OwsExceptionReport {
+        put(feature("feature"), null);
+        put(feature("other"), null);
+
+        InsertObservationRequest insertion = new InsertObservationRequest();
+        insertion.setObservation(Lists.newArrayList(omObservation("feature")));
+        cache.handle(new ObservationInsertion(insertion, new InsertObservationResponse()));
+
+        assertThat(get("feature", null), is(nullValue()));
+        assertThat(get("other", null), is(notNullValue()));
+    }
+
+    @Test
+    public void should_invalidate_all_on_deletion() throws OwsExceptionReport {
+        put(feature("feature"), null);
+
+        cache.handle(new SensorDeletion(new DeleteSensorRequest(), new DeleteSensorResponse()));
+
+        assertThat(get("feature", null), is(nullValue()));
+        assertThat(cache.size(), is(0L));
+    }
+
+    private void put(SamplingFeature feature, Locale locale) {
+        cache.put(feature.getIdentifierCodeWithAuthority().getValue(), 4326, 4979, locale, VERSION, feature);
+    }
+
+    private AbstractFeature get(String identifier, Locale locale) {
+        return cache.get(identifier, 4326, 4979, locale, VERSION);
+    }
+
+    private static SamplingFeature feature(String identifier) throws OwsExceptionReport {
+        SamplingFeature feature = new SamplingFeature(new CodeWithAuthority(identifier));
+        feature.setGeometry(point(52, 7));
+        return feature;
+    }
+
+    private static Geometry point(double x, double y) {
+        return JTSHelper.getGeometryFactoryForSRID(4326).createPoint(new Coordinate(x, y));
+    }
+
+    private static OmObservation omObservation(String feature) {
+        OmObservationConstellation constellation = new OmObservationConstellation();
+        constellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority(feature)));
+        OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(constellation);
+        return observation;
+    }
+}
@@ -88,10 +88,12 @@ public class SosInsertResultOperatorV20 extends
         } catch (OwsExceptionReport owse) {
             exceptions.add(owse);
         }
-        try {
-            checkResultValues(request.getResultValues());
-        } catch (OwsExceptionReport owse) {
-            exceptions.add(owse);
+        if (!request.isStreamingResultValues()) {
+            try {
+                checkResultValues(request.getResultValues());
+            } catch (OwsExceptionReport owse) {
+                exceptions.add(owse);
+            }
         }
         exceptions.throwIfNotEmpty();
     }